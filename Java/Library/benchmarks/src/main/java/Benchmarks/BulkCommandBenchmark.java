@@ -0,0 +1,160 @@
+/*
+ *                      QEMU INSTANCES MANAGER LIBRARY
+ *                                Java Version
+ * 
+ * PRODUCT OWNER: Research Centre in Real-Time & Embedded Computing Systems
+ * PROJECT MANAGER: Luís Pinho and Cláudio Maia {lmn,clrrm}@isep.ipp.pt
+ * DEVELOPER: Manuel Meireles ( mjcdm@isep.ipp.pt )
+ * DATE: 24/11/2017
+ * SCOPE: CISTER Summer Internship 2017
+ * VERSION: 1.0
+ */
+package Benchmarks;
+
+import Commands.BuildQemuInstance;
+import Commands.Command;
+import Commands.QueryStatusQMP;
+import Communications.Creation;
+import Communications.ExecutionResult;
+import Configurations.Settings;
+import Instances.InstanceID;
+import Managers.QemuInstancesManager;
+import Simulation.VirtualClock;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * A benchmark of the bulk operations of the {@link QemuInstancesManager}
+ * over a large fleet of {@link Instances.SimulatedInstance}s: a query sent
+ * to every instance through one batch and the suspension and resumption of
+ * every instance, one operation at a time. The simulated commands take no
+ * time, so that only the manager is measured, and the events they schedule
+ * are delivered by advancing the {@link VirtualClock} after each round.
+ *
+ * @author Manuel Meireles ( mjcdm@isep.ipp.pt )
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BulkCommandBenchmark {
+
+    /**
+     * The number of instances of the fleet.
+     */
+    @Param({"1024", "16384"})
+    public int fleet;
+
+    /**
+     * The manager under measurement.
+     */
+    private QemuInstancesManager manager;
+
+    /**
+     * The identifications of the instances.
+     */
+    private InstanceID[] ids;
+
+    /**
+     * The batch of a query to every instance.
+     */
+    private Map<InstanceID, List<Command>> queries;
+
+    /**
+     * It writes the configurations and starts the fleet.
+     *
+     * @throws IOException if the configurations could not be written.
+     */
+    @Setup
+    public void setUp() throws IOException {
+        Path directory = Files.createTempDirectory("bulk-command-benchmark");
+        Path config = directory.resolve("config.properties");
+        Files.write(config, String.join("\n",
+                "qemu_path=" + directory + "/",
+                "log_file_name=" + directory.resolve("info.log"),
+                "port_number=34040",
+                "journal_file=",
+                "instance_backend=simulated",
+                "memory_overcommit_ratio=100000",
+                "cpu_overcommit_ratio=100000",
+                "qmp_heartbeat_interval=0",
+                "watchdog_interval=0",
+                "resource_sample_interval=0",
+                "guest_stats_interval=0").getBytes(StandardCharsets.UTF_8));
+        Settings.loadConfigurations(config.toString());
+        manager = (QemuInstancesManager) QemuInstancesManager.getInstance();
+        ids = new InstanceID[fleet];
+        queries = new TreeMap<>();
+        for (int index = 0; index < fleet; index++) {
+            ExecutionResult creation = manager.buildInstance(BuildQemuInstance.command("simulated -m 16"));
+            if (!(creation instanceof Creation) || !creation.wasSuccessful()) {
+                throw new IllegalStateException("The instance was not built: " + creation);
+            }
+            ids[index] = ((Creation) creation).id();
+            ExecutionResult start = manager.executeInstance(ids[index]);
+            if (!start.wasSuccessful()) {
+                throw new IllegalStateException("The instance did not start: " + start);
+            }
+            queries.put(ids[index], Collections.singletonList(QueryStatusQMP.create()));
+        }
+    }
+
+    /**
+     * It shuts the fleet down.
+     */
+    @TearDown
+    public void tearDown() {
+        manager.shutdown(60000, 0);
+    }
+
+    /**
+     * It queries every instance through one batch.
+     *
+     * @return the results of the batch.
+     */
+    @Benchmark
+    public ExecutionResult queryAll() {
+        return manager.executeCommands(queries);
+    }
+
+    /**
+     * It suspends and resumes every instance, one operation at a time, and
+     * delivers the events of the round.
+     *
+     * @return the number of failed operations.
+     */
+    @Benchmark
+    public int suspendAndResumeAll() {
+        int failed = 0;
+        for (InstanceID id : ids) {
+            failed += manager.suspendInstance(id).wasSuccessful() ? 0 : 1;
+        }
+        for (InstanceID id : ids) {
+            failed += manager.continueInstance(id).wasSuccessful() ? 0 : 1;
+        }
+        VirtualClock.shared().runAll();
+        return failed;
+    }
+
+}
@@ -0,0 +1,184 @@
+/*
+ *                      QEMU INSTANCES MANAGER LIBRARY
+ *                                Java Version
+ * 
+ * PRODUCT OWNER: Research Centre in Real-Time & Embedded Computing Systems
+ * PROJECT MANAGER: Luís Pinho and Cláudio Maia {lmn,clrrm}@isep.ipp.pt
+ * DEVELOPER: Manuel Meireles ( mjcdm@isep.ipp.pt )
+ * DATE: 24/11/2017
+ * SCOPE: CISTER Summer Internship 2017
+ * VERSION: 1.0
+ */
+package Benchmarks;
+
+import HTTP.ResultToJSON;
+import Parsers.JSONReader;
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+
+/**
+ * An in-process stand-in of the QMP endpoint of a QEMU, so that the QMP
+ * client is measured without the process and the guest of a real QEMU. It
+ * greets every connection and replies right away to every command with an
+ * empty success, or with a running status to a «query-status», echoing the
+ * identification of the command.
+ *
+ * @author Manuel Meireles ( mjcdm@isep.ipp.pt )
+ */
+public class FakeQmpEndpoint {
+
+    /**
+     * The greeting of the QEMU.
+     */
+    private static final String GREETING = "{\"QMP\": {\"version\": {\"qemu\": {\"micro\": 0, \"minor\": 2, "
+            + "\"major\": 8}, \"package\": \"\"}, \"capabilities\": [\"oob\"]}}\r\n";
+
+    /**
+     * The reply to a «query-status», up to its identification.
+     */
+    private static final String STATUS = "{\"return\": {\"status\": \"running\", \"singlestep\": false, "
+            + "\"running\": true}";
+
+    /**
+     * The reply to any other command, up to its identification.
+     */
+    private static final String EMPTY = "{\"return\": {}";
+
+    /**
+     * The socket on which the endpoint listens.
+     */
+    private final ServerSocket server;
+
+    /**
+     * A private constructor that opens the listening socket.
+     *
+     * @throws IOException if the socket could not be opened.
+     */
+    private FakeQmpEndpoint() throws IOException {
+        server = new ServerSocket(0, 50, InetAddress.getLoopbackAddress());
+    }
+
+    /**
+     * It builds an endpoint listening on an ephemeral port of the loopback
+     * interface and starts accepting connections.
+     *
+     * @return the started endpoint.
+     * @throws IOException if the socket could not be opened.
+     */
+    public static FakeQmpEndpoint start() throws IOException {
+        FakeQmpEndpoint endpoint = new FakeQmpEndpoint();
+        Thread acceptor = new Thread(endpoint::accept, "fake-qmp-accept");
+        acceptor.setDaemon(true);
+        acceptor.start();
+        return endpoint;
+    }
+
+    /**
+     * A getter of the port on which the endpoint listens.
+     *
+     * @return the port number.
+     */
+    public int port() {
+        return server.getLocalPort();
+    }
+
+    /**
+     * It stops accepting connections.
+     */
+    public void stop() {
+        try {
+            server.close();
+        } catch (IOException ex) {
+            // Already closed.
+        }
+    }
+
+    /**
+     * It accepts connections until the endpoint is stopped, serving each one
+     * on its own thread.
+     */
+    private void accept() {
+        while (!server.isClosed()) {
+            try {
+                Socket socket = server.accept();
+                socket.setTcpNoDelay(true);
+                Thread session = new Thread(() -> serve(socket), "fake-qmp-session");
+                session.setDaemon(true);
+                session.start();
+            } catch (IOException ex) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * It greets a connection and replies to its commands until it is closed.
+     * The commands are split from the stream by the nesting of their braces,
+     * since the QMP does not delimit them.
+     *
+     * @param socket the connection.
+     */
+    private void serve(Socket socket) {
+        try (Socket connection = socket) {
+            InputStream input = new BufferedInputStream(connection.getInputStream());
+            OutputStream output = connection.getOutputStream();
+            output.write(GREETING.getBytes(StandardCharsets.UTF_8));
+            output.flush();
+            StringBuilder command = new StringBuilder();
+            int depth = 0;
+            boolean quoted = false;
+            boolean escaped = false;
+            int read;
+            while ((read = input.read()) >= 0) {
+                char character = (char) read;
+                if (depth > 0) {
+                    command.append(character);
+                }
+                if (escaped) {
+                    escaped = false;
+                } else if (quoted) {
+                    escaped = character == '\\';
+                    quoted = character != '"';
+                } else if (character == '"') {
+                    quoted = true;
+                } else if (character == '{') {
+                    if (depth++ == 0) {
+                        command.append(character);
+                    }
+                } else if (character == '}' && --depth == 0) {
+                    output.write(reply(command.toString()).getBytes(StandardCharsets.UTF_8));
+                    output.flush();
+                    command.setLength(0);
+                }
+            }
+        } catch (IOException ex) {
+            // The client went away.
+        }
+    }
+
+    /**
+     * It builds the reply to a command.
+     *
+     * @param command the command as it was received.
+     * @return the reply, terminated as the QEMU terminates it.
+     */
+    private static String reply(String command) {
+        Map<String, Object> json = JSONReader.object(command);
+        Object id = json.get("id");
+        String reply = "query-status".equals(json.get("execute")) ? STATUS : EMPTY;
+        if (id instanceof String) {
+            reply += ", \"id\": " + ResultToJSON.string((String) id);
+        } else if (id instanceof Number) {
+            reply += ", \"id\": " + ((Number) id).longValue();
+        }
+        return reply + "}\r\n";
+    }
+
+}
@@ -0,0 +1,170 @@
+/*
+ *                      QEMU INSTANCES MANAGER LIBRARY
+ *                                Java Version
+ * 
+ * PRODUCT OWNER: Research Centre in Real-Time & Embedded Computing Systems
+ * PROJECT MANAGER: Luís Pinho and Cláudio Maia {lmn,clrrm}@isep.ipp.pt
+ * DEVELOPER: Manuel Meireles ( mjcdm@isep.ipp.pt )
+ * DATE: 24/11/2017
+ * SCOPE: CISTER Summer Internship 2017
+ * VERSION: 1.0
+ */
+package Benchmarks;
+
+import Instances.InstanceID;
+import Instances.QemuInstanceID;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * A benchmark of the identifications of the instances: their hash, their
+ * equality and their order, and the lookups they key in the hash and the
+ * tree maps of the manager and of its results. The identifications are
+ * visited in a shuffled order, so that neither the branches nor the caches
+ * learn it.
+ *
+ * @author Manuel Meireles ( mjcdm@isep.ipp.pt )
+ */
+@State(Scope.Thread)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class InstanceIdBenchmark {
+
+    /**
+     * The number of identifications, which is a power of two.
+     */
+    @Param({"16", "4096"})
+    public int size;
+
+    /**
+     * The identifications in a shuffled order.
+     */
+    private InstanceID[] ids;
+
+    /**
+     * Equal but distinct copies of the identifications.
+     */
+    private InstanceID[] copies;
+
+    /**
+     * The identifications in a hash map.
+     */
+    private Map<InstanceID, InstanceID> hashed;
+
+    /**
+     * The identifications in a tree map.
+     */
+    private Map<InstanceID, InstanceID> sorted;
+
+    /**
+     * The position of the next identification.
+     */
+    private int next;
+
+    /**
+     * It builds the identifications and the maps.
+     */
+    @Setup
+    public void setUp() {
+        ids = new InstanceID[size];
+        copies = new InstanceID[size];
+        hashed = new HashMap<>();
+        sorted = new TreeMap<>();
+        for (int index = 0; index < size; index++) {
+            ids[index] = QemuInstanceID.valueOf(index + 1);
+        }
+        Random random = new Random(42);
+        for (int index = size - 1; index > 0; index--) {
+            int other = random.nextInt(index + 1);
+            InstanceID swap = ids[index];
+            ids[index] = ids[other];
+            ids[other] = swap;
+        }
+        for (int index = 0; index < size; index++) {
+            copies[index] = QemuInstanceID.valueOf(((QemuInstanceID) ids[index]).value());
+            hashed.put(ids[index], ids[index]);
+            sorted.put(ids[index], ids[index]);
+        }
+        next = 0;
+    }
+
+    /**
+     * It provides the position of the next identification.
+     *
+     * @return the position, wrapping around.
+     */
+    private int next() {
+        next = (next + 1) & (size - 1);
+        return next;
+    }
+
+    /**
+     * It hashes an identification.
+     *
+     * @return the hash.
+     */
+    @Benchmark
+    public int hash() {
+        return ids[next()].hashCode();
+    }
+
+    /**
+     * It compares an identification with an equal copy.
+     *
+     * @return whether they are equal.
+     */
+    @Benchmark
+    public boolean equality() {
+        int index = next();
+        return ids[index].equals(copies[index]);
+    }
+
+    /**
+     * It orders two identifications.
+     *
+     * @return the order of the identifications.
+     */
+    @Benchmark
+    public int compare() {
+        int index = next();
+        return ids[index].compareTo(ids[(index + 1) & (size - 1)]);
+    }
+
+    /**
+     * It looks an identification up in a hash map.
+     *
+     * @return the identification found.
+     */
+    @Benchmark
+    public InstanceID hashLookup() {
+        return hashed.get(copies[next()]);
+    }
+
+    /**
+     * It looks an identification up in a tree map.
+     *
+     * @return the identification found.
+     */
+    @Benchmark
+    public InstanceID treeLookup() {
+        return sorted.get(copies[next()]);
+    }
+
+}
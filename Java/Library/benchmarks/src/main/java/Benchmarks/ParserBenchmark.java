@@ -0,0 +1,93 @@
+/*
+ *                      QEMU INSTANCES MANAGER LIBRARY
+ *                                Java Version
+ * 
+ * PRODUCT OWNER: Research Centre in Real-Time & Embedded Computing Systems
+ * PROJECT MANAGER: Luís Pinho and Cláudio Maia {lmn,clrrm}@isep.ipp.pt
+ * DEVELOPER: Manuel Meireles ( mjcdm@isep.ipp.pt )
+ * DATE: 24/11/2017
+ * SCOPE: CISTER Summer Internship 2017
+ * VERSION: 1.0
+ */
+package Benchmarks;
+
+import Commands.Command;
+import Commands.GenericQMP;
+import Commands.MigrateQMP;
+import Commands.SuspendQMP;
+import Parsers.CMDtoJSON;
+import Parsers.Parser;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * A benchmark of the parse of the commands to the JSON format the QEMU
+ * recognizes through the {@link CMDtoJSON}, which every QMP command goes
+ * through. The shapes are a command without arguments, a command with
+ * arguments and a command already in JSON format.
+ *
+ * @author Manuel Meireles ( mjcdm@isep.ipp.pt )
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ParserBenchmark {
+
+    /**
+     * The shape of the command to parse.
+     */
+    @Param({"bare", "arguments", "json"})
+    public String shape;
+
+    /**
+     * The parser under measurement.
+     */
+    private Parser parser;
+
+    /**
+     * The command to parse.
+     */
+    private Command command;
+
+    /**
+     * It builds the parser and the command of the shape.
+     */
+    @Setup
+    public void setUp() {
+        parser = new CMDtoJSON();
+        switch (shape) {
+            case "arguments":
+                command = MigrateQMP.create("tcp:192.168.1.20:4444");
+                break;
+            case "json":
+                command = GenericQMP.create("{\"execute\":\"query-stats\",\"arguments\":{\"target\":\"vcpu\"}}");
+                break;
+            default:
+                command = SuspendQMP.create();
+        }
+    }
+
+    /**
+     * It parses the command.
+     *
+     * @return the parsed command.
+     */
+    @Benchmark
+    public Command parse() {
+        return parser.parse(command);
+    }
+
+}
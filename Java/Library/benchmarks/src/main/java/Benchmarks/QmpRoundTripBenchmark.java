@@ -0,0 +1,139 @@
+/*
+ *                      QEMU INSTANCES MANAGER LIBRARY
+ *                                Java Version
+ * 
+ * PRODUCT OWNER: Research Centre in Real-Time & Embedded Computing Systems
+ * PROJECT MANAGER: Luís Pinho and Cláudio Maia {lmn,clrrm}@isep.ipp.pt
+ * DEVELOPER: Manuel Meireles ( mjcdm@isep.ipp.pt )
+ * DATE: 24/11/2017
+ * SCOPE: CISTER Summer Internship 2017
+ * VERSION: 1.0
+ */
+package Benchmarks;
+
+import Commands.Command;
+import Commands.GenericQMP;
+import Commands.QueryStatusQMP;
+import Communications.ExecutionResult;
+import TCP.QMPClient;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * A benchmark of the full round trip of a QMP command through the
+ * {@link QMPClient} against an in-process {@link FakeQmpEndpoint}: the parse,
+ * the framing, the write, the reader thread handing the reply over and the
+ * trap of the reply. A batch of commands is measured too, sent one at a time
+ * and pipelined, per command.
+ *
+ * @author Manuel Meireles ( mjcdm@isep.ipp.pt )
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class QmpRoundTripBenchmark {
+
+    /**
+     * The number of commands of a batch.
+     */
+    private static final int BATCH = 8;
+
+    /**
+     * The endpoint to which the client is connected.
+     */
+    private FakeQmpEndpoint endpoint;
+
+    /**
+     * The client under measurement.
+     */
+    private QMPClient client;
+
+    /**
+     * A command.
+     */
+    private Command command;
+
+    /**
+     * A batch of commands.
+     */
+    private List<Command> batch;
+
+    /**
+     * It starts the endpoint and connects the client.
+     *
+     * @throws IOException if the client could not connect.
+     */
+    @Setup
+    public void setUp() throws IOException {
+        endpoint = FakeQmpEndpoint.start();
+        client = QMPClient.create("127.0.0.1", endpoint.port(), "benchmark");
+        command = QueryStatusQMP.create();
+        batch = new ArrayList<>(BATCH);
+        for (int index = 0; index < BATCH; index++) {
+            batch.add(GenericQMP.create("query-stats {\"target\":\"vcpu\"}"));
+        }
+    }
+
+    /**
+     * It closes the client and stops the endpoint.
+     */
+    @TearDown
+    public void tearDown() {
+        client.close();
+        endpoint.stop();
+    }
+
+    /**
+     * It sends a command and waits for its reply.
+     *
+     * @return the reply.
+     */
+    @Benchmark
+    public ExecutionResult send() {
+        return client.send(command);
+    }
+
+    /**
+     * It sends a batch of commands one at a time.
+     *
+     * @return the replies.
+     */
+    @Benchmark
+    @OperationsPerInvocation(BATCH)
+    public List<ExecutionResult> sendSequentially() {
+        List<ExecutionResult> results = new ArrayList<>(BATCH);
+        for (Command each : batch) {
+            results.add(client.send(each));
+        }
+        return results;
+    }
+
+    /**
+     * It sends a batch of commands pipelined.
+     *
+     * @return the replies.
+     */
+    @Benchmark
+    @OperationsPerInvocation(BATCH)
+    public List<ExecutionResult> sendPipelined() {
+        return client.sendAll(batch);
+    }
+
+}
@@ -0,0 +1,163 @@
+/*
+ *                      QEMU INSTANCES MANAGER LIBRARY
+ *                                Java Version
+ * 
+ * PRODUCT OWNER: Research Centre in Real-Time & Embedded Computing Systems
+ * PROJECT MANAGER: Luís Pinho and Cláudio Maia {lmn,clrrm}@isep.ipp.pt
+ * DEVELOPER: Manuel Meireles ( mjcdm@isep.ipp.pt )
+ * DATE: 24/11/2017
+ * SCOPE: CISTER Summer Internship 2017
+ * VERSION: 1.0
+ */
+package Benchmarks;
+
+import Commands.BuildQemuInstance;
+import Communications.Creation;
+import Communications.ExecutionResult;
+import Configurations.Settings;
+import Instances.InstanceID;
+import Instances.QemuInstanceID;
+import Managers.QemuInstancesManager;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * A benchmark of the lookups of the registry of the
+ * {@link QemuInstancesManager}: an operation on a registered instance, an
+ * operation on an unknown one and the listing of the whole fleet. They go
+ * through the whole manager operation, i.e. its logging, its span and its
+ * latency. The fleet is made of {@link Instances.SimulatedInstance}s, so
+ * that neither a process nor a guest runs, and the watchdog, the samplers,
+ * the heartbeats and the journal are disabled, so that nothing else runs
+ * either.
+ *
+ * @author Manuel Meireles ( mjcdm@isep.ipp.pt )
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RegistryBenchmark {
+
+    /**
+     * The number of instances of the fleet.
+     */
+    @Param({"256", "16384"})
+    public int fleet;
+
+    /**
+     * The manager under measurement.
+     */
+    private QemuInstancesManager manager;
+
+    /**
+     * The identifications of the registered instances.
+     */
+    private InstanceID[] known;
+
+    /**
+     * An identification that is not registered.
+     */
+    private InstanceID unknown;
+
+    /**
+     * The position of the next registered identification.
+     */
+    private int next;
+
+    /**
+     * It writes the configurations and starts the fleet.
+     *
+     * @throws IOException if the configurations could not be written.
+     */
+    @Setup
+    public void setUp() throws IOException {
+        Path directory = Files.createTempDirectory("registry-benchmark");
+        Path config = directory.resolve("config.properties");
+        Files.write(config, String.join("\n",
+                "qemu_path=" + directory + "/",
+                "log_file_name=" + directory.resolve("info.log"),
+                "port_number=34040",
+                "journal_file=",
+                "instance_backend=simulated",
+                "memory_overcommit_ratio=100000",
+                "cpu_overcommit_ratio=100000",
+                "qmp_heartbeat_interval=0",
+                "watchdog_interval=0",
+                "resource_sample_interval=0",
+                "guest_stats_interval=0").getBytes(StandardCharsets.UTF_8));
+        Settings.loadConfigurations(config.toString());
+        manager = (QemuInstancesManager) QemuInstancesManager.getInstance();
+        known = new InstanceID[fleet];
+        for (int index = 0; index < fleet; index++) {
+            ExecutionResult creation = manager.buildInstance(BuildQemuInstance.command("simulated -m 16"));
+            if (!(creation instanceof Creation) || !creation.wasSuccessful()) {
+                throw new IllegalStateException("The instance was not built: " + creation);
+            }
+            known[index] = ((Creation) creation).id();
+            ExecutionResult start = manager.executeInstance(known[index]);
+            if (!start.wasSuccessful()) {
+                throw new IllegalStateException("The instance did not start: " + start);
+            }
+        }
+        unknown = QemuInstanceID.valueOf(Long.MAX_VALUE);
+        next = 0;
+    }
+
+    /**
+     * It shuts the fleet down.
+     */
+    @TearDown
+    public void tearDown() {
+        manager.shutdown(2000, 0);
+    }
+
+    /**
+     * It runs an operation on a registered instance.
+     *
+     * @return the result of the operation.
+     */
+    @Benchmark
+    public ExecutionResult lookupKnown() {
+        next = next + 1 == fleet ? 0 : next + 1;
+        return manager.resources(known[next], 0);
+    }
+
+    /**
+     * It runs an operation on an unknown instance.
+     *
+     * @return the result of the operation.
+     */
+    @Benchmark
+    public ExecutionResult lookupUnknown() {
+        return manager.resources(unknown, 0);
+    }
+
+    /**
+     * It lists the fleet.
+     *
+     * @return the list of the instances.
+     */
+    @Benchmark
+    public ExecutionResult list() {
+        return manager.listInstances();
+    }
+
+}
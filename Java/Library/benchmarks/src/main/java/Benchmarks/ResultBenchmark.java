@@ -0,0 +1,143 @@
+/*
+ *                      QEMU INSTANCES MANAGER LIBRARY
+ *                                Java Version
+ * 
+ * PRODUCT OWNER: Research Centre in Real-Time & Embedded Computing Systems
+ * PROJECT MANAGER: Luís Pinho and Cláudio Maia {lmn,clrrm}@isep.ipp.pt
+ * DEVELOPER: Manuel Meireles ( mjcdm@isep.ipp.pt )
+ * DATE: 24/11/2017
+ * SCOPE: CISTER Summer Internship 2017
+ * VERSION: 1.0
+ */
+package Benchmarks;
+
+import Communications.ExecutionResult;
+import Communications.ListResult;
+import Communications.MapResult;
+import Communications.Reply;
+import Instances.InstanceID;
+import Instances.QemuInstanceID;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * A benchmark of the handling of the replies: the creation of a
+ * {@link Reply} and the descriptions of a reply, of the {@link ListResult}
+ * of the replies of an instance and of the {@link MapResult} of the replies
+ * of a fleet, as built by a bulk execution of commands.
+ *
+ * @author Manuel Meireles ( mjcdm@isep.ipp.pt )
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ResultBenchmark {
+
+    /**
+     * A reply of the QEMU to a «query-status».
+     */
+    private static final String REPLY = "{\"return\": {\"status\": \"running\", \"singlestep\": false, "
+            + "\"running\": true}, \"id\": \"1f2e-1f31-42\"}";
+
+    /**
+     * The number of replies of each instance.
+     */
+    private static final int COMMANDS = 4;
+
+    /**
+     * The number of instances of the fleet.
+     */
+    @Param({"16", "256"})
+    public int fleet;
+
+    /**
+     * A reply.
+     */
+    private ExecutionResult reply;
+
+    /**
+     * The replies of an instance.
+     */
+    private ExecutionResult list;
+
+    /**
+     * The replies of the fleet.
+     */
+    private ExecutionResult map;
+
+    /**
+     * It builds the results.
+     */
+    @Setup
+    public void setUp() {
+        reply = Reply.create(REPLY, true);
+        List<ExecutionResult> replies = new ArrayList<>();
+        for (int index = 0; index < COMMANDS; index++) {
+            replies.add(Reply.create(REPLY, true));
+        }
+        list = ListResult.create(replies);
+        Map<InstanceID, ExecutionResult> results = new TreeMap<>();
+        for (int index = 0; index < fleet; index++) {
+            results.put(QemuInstanceID.valueOf(index + 1), ListResult.create(replies));
+        }
+        map = MapResult.create(results);
+    }
+
+    /**
+     * It creates a reply and assesses its success.
+     *
+     * @return whether the reply was successful.
+     */
+    @Benchmark
+    public boolean replyCreate() {
+        return Reply.create(REPLY, true).wasSuccessful();
+    }
+
+    /**
+     * It describes a reply.
+     *
+     * @return the description of the reply.
+     */
+    @Benchmark
+    public String replyDescription() {
+        return reply.description();
+    }
+
+    /**
+     * It describes the replies of an instance.
+     *
+     * @return the description of the list.
+     */
+    @Benchmark
+    public String listDescription() {
+        return list.description();
+    }
+
+    /**
+     * It describes the replies of the fleet.
+     *
+     * @return the description of the map.
+     */
+    @Benchmark
+    public String mapDescription() {
+        return map.description();
+    }
+
+}
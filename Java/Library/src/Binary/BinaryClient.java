@@ -0,0 +1,414 @@
+/*
+ *                      QEMU INSTANCES MANAGER LIBRARY
+ *                                Java Version
+ * 
+ * PRODUCT OWNER: Research Centre in Real-Time & Embedded Computing Systems
+ * PROJECT MANAGER: Luís Pinho and Cláudio Maia {lmn,clrrm}@isep.ipp.pt
+ * DEVELOPER: Manuel Meireles ( mjcdm@isep.ipp.pt )
+ * DATE: 24/11/2017
+ * SCOPE: CISTER Summer Internship 2017
+ * VERSION: 1.0
+ */
+package Binary;
+
+import Communications.ExecutionResult;
+import Communications.Fail;
+import Communications.Fail.Reason;
+import Configurations.Log;
+import Configurations.Settings;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.StandardProtocolFamily;
+import java.net.StandardSocketOptions;
+import java.net.UnixDomainSocketAddress;
+import java.nio.channels.SocketChannel;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A client of the binary control protocol. Requests are pipelined on a single
+ * connection: {@link BinaryClient#submit(Binary.Request)} returns at once and
+ * the pending result is completed when its response arrives, in whatever
+ * order the server answers. Several requests may also be sent in a single
+ * batch frame. The client is safe to use from many threads. Each connection
+ * opens with a {@link Frame#HELLO} that presents the token of the server,
+ * which is the one from the {@link Settings} unless another one is given.
+ *
+ * @see BinaryServer
+ * @author Manuel Meireles ( mjcdm@isep.ipp.pt )
+ */
+public class BinaryClient implements Closeable {
+
+    /**
+     * The connection to the server.
+     */
+    private final FrameChannel connection;
+
+    /**
+     * The pending results, where the keys are the ids of the frames.
+     */
+    private final Map<Integer, CompletableFuture<List<ExecutionResult>>> pending;
+
+    /**
+     * The id of the next frame.
+     */
+    private final AtomicInteger nextId;
+
+    /**
+     * An indicator of whether the connection has ended, so that no request
+     * is left pending forever.
+     */
+    private volatile boolean closed;
+
+    /**
+     * A private constructor that initializes the connection and starts its
+     * reader and writer threads. Despite no validation is made, the socket
+     * should be connected.
+     *
+     * @param socket the connected socket.
+     */
+    private BinaryClient(SocketChannel socket) {
+        connection = FrameChannel.create(socket);
+        pending = new ConcurrentHashMap<>();
+        nextId = new AtomicInteger(0);
+        daemon(connection::write, "binary-client-writer");
+        daemon(this::read, "binary-client-reader");
+    }
+
+    /**
+     * It connects to a binary server on a port of the loopback interface.
+     *
+     * @param port the port of the server.
+     * @return the connected client.
+     * @throws IOException if the connection failed.
+     */
+    public static BinaryClient connect(int port) throws IOException {
+        return connect(new InetSocketAddress(InetAddress.getLoopbackAddress(), port));
+    }
+
+    /**
+     * It connects to a binary server on a host and port, e.g. another member
+     * of a federation.
+     *
+     * @param address the host and port of the server.
+     * @return the connected client.
+     * @throws IOException if the connection failed.
+     */
+    public static BinaryClient connect(InetSocketAddress address) throws IOException {
+        return connect(address, 0);
+    }
+
+    /**
+     * It connects to a binary server on a host and port, giving up if the
+     * connection is not established in time, e.g. when the host is down.
+     *
+     * @param address the host and port of the server.
+     * @param timeout the time, in milliseconds, to wait for the connection
+     * (zero to wait for as long as it takes).
+     * @return the connected client.
+     * @throws IOException if the connection failed or timed out.
+     */
+    public static BinaryClient connect(InetSocketAddress address, int timeout) throws IOException {
+        return connect(address, timeout, Settings.getAccessToken());
+    }
+
+    /**
+     * It connects to a binary server on a host and port with a given token,
+     * giving up if the connection is not established in time.
+     *
+     * @param address the host and port of the server.
+     * @param timeout the time, in milliseconds, to wait for the connection
+     * and for its acceptance (zero to wait for as long as it takes).
+     * @param token the token of the server.
+     * @return the connected client.
+     * @throws IOException if the connection failed, timed out or was refused.
+     */
+    public static BinaryClient connect(InetSocketAddress address, int timeout, String token) throws IOException {
+        SocketChannel socket = SocketChannel.open();
+        try {
+            socket.socket().connect(address, timeout);
+            socket.setOption(StandardSocketOptions.TCP_NODELAY, true);
+        } catch (IOException ex) {
+            socket.close();
+            throw ex;
+        }
+        return open(socket, token, timeout);
+    }
+
+    /**
+     * It connects to a binary server on a Unix domain socket.
+     *
+     * @param socket the path of the socket of the server.
+     * @return the connected client.
+     * @throws IOException if the connection failed.
+     */
+    public static BinaryClient connect(Path socket) throws IOException {
+        return connect(socket, Settings.getAccessToken());
+    }
+
+    /**
+     * It connects to a binary server on a Unix domain socket with a given
+     * token.
+     *
+     * @param socket the path of the socket of the server.
+     * @param token the token of the server.
+     * @return the connected client.
+     * @throws IOException if the connection failed or was refused.
+     */
+    public static BinaryClient connect(Path socket, String token) throws IOException {
+        SocketChannel channel = SocketChannel.open(StandardProtocolFamily.UNIX);
+        channel.connect(UnixDomainSocketAddress.of(socket));
+        return open(channel, token, 0);
+    }
+
+    /**
+     * It builds a client on a connected socket and presents the token to the
+     * server. The client is closed if the server refuses it.
+     *
+     * @param socket the connected socket.
+     * @param token the token of the server.
+     * @param timeout the time, in milliseconds, to wait for the acceptance
+     * (zero to wait for as long as it takes).
+     * @return the accepted client.
+     * @throws IOException if the server refused the client or did not accept
+     * it in time.
+     */
+    private static BinaryClient open(SocketChannel socket, String token, long timeout) throws IOException {
+        BinaryClient client = new BinaryClient(socket);
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        new DataOutputStream(bytes).writeUTF(token);
+        ExecutionResult result = await(single(client.queue(Frame.HELLO, bytes.toByteArray())), timeout);
+        if (!result.wasSuccessful()) {
+            client.close();
+            throw new IOException("The server refused the connection: " + result.description());
+        }
+        return client;
+    }
+
+    /**
+     * It sends a request without waiting for its response.
+     *
+     * @param request the request to send.
+     * @return the pending execution result.
+     */
+    public CompletableFuture<ExecutionResult> submit(Request request) {
+        return single(send(Frame.REQUEST, Collections.singletonList(request)));
+    }
+
+    /**
+     * It provides the single result of a pending frame. Cancelling the
+     * provided result cancels the pending frame as well, so that it stops
+     * being awaited.
+     *
+     * @param sent the pending results of the frame.
+     * @return the pending first result.
+     */
+    private static CompletableFuture<ExecutionResult> single(CompletableFuture<List<ExecutionResult>> sent) {
+        CompletableFuture<ExecutionResult> result = sent.thenApply(results -> results.get(0));
+        result.whenComplete((reply, failure) -> {
+            if (failure instanceof CancellationException) {
+                sent.cancel(false);
+            }
+        });
+        return result;
+    }
+
+    /**
+     * It sends several requests in a single batch frame without waiting for
+     * the response. The server runs them in order.
+     *
+     * @param requests the requests to send.
+     * @return the pending execution results, in the order of the requests.
+     */
+    public CompletableFuture<List<ExecutionResult>> submit(List<Request> requests) {
+        return send(Frame.BATCH_REQUEST, requests);
+    }
+
+    /**
+     * It sends a request and waits for its response.
+     *
+     * @param request the request to send.
+     * @return <ul><li>the execution result of the request;</li><li>a
+     * {@link Fail} due to {@link Reason#IO_EXCEPTION} if the connection
+     * failed;</li></ul>
+     */
+    public ExecutionResult call(Request request) {
+        return call(request, 0);
+    }
+
+    /**
+     * It sends a request and waits, at most the given time, for its response.
+     * A response that arrives later is discarded.
+     *
+     * @param request the request to send.
+     * @param timeout the time, in milliseconds, to wait for the response
+     * (zero to wait for as long as it takes).
+     * @return <ul><li>the execution result of the request;</li><li>a
+     * {@link Fail} due to {@link Reason#IO_EXCEPTION} if the connection
+     * failed or the response did not arrive in time;</li></ul>
+     */
+    public ExecutionResult call(Request request, long timeout) {
+        return await(submit(request), timeout);
+    }
+
+    /**
+     * It waits, at most the given time, for a pending execution result. A
+     * result that arrives later is discarded.
+     *
+     * @param result the pending execution result.
+     * @param timeout the time, in milliseconds, to wait for the result (zero
+     * to wait for as long as it takes).
+     * @return <ul><li>the execution result;</li><li>a {@link Fail} due to
+     * {@link Reason#IO_EXCEPTION} if the connection failed or the result did
+     * not arrive in time;</li></ul>
+     */
+    private static ExecutionResult await(CompletableFuture<ExecutionResult> result, long timeout) {
+        try {
+            return timeout > 0 ? result.get(timeout, TimeUnit.MILLISECONDS) : result.get();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            return Fail.because(Reason.IO_EXCEPTION, ex.toString());
+        } catch (ExecutionException ex) {
+            return Fail.because(Reason.IO_EXCEPTION, ex.getCause().toString());
+        } catch (TimeoutException ex) {
+            result.cancel(false);
+            return Fail.because(Reason.IO_EXCEPTION, "No reply within " + timeout + " ms.");
+        }
+    }
+
+    /**
+     * It closes the connection. The pending results are failed.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        connection.close();
+        failPending(new IOException("Connection closed."));
+    }
+
+    /**
+     * It encodes the requests into a frame and queues it.
+     *
+     * @param type the type of the frame.
+     * @param requests the requests of the frame.
+     * @return the pending execution results.
+     */
+    private CompletableFuture<List<ExecutionResult>> send(byte type, List<Request> requests) {
+        CompletableFuture<List<ExecutionResult>> result = new CompletableFuture<>();
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        try {
+            if (type == Frame.BATCH_REQUEST) {
+                out.writeInt(requests.size());
+            }
+            for (Request request : requests) {
+                request.write(out);
+            }
+        } catch (IOException ex) {
+            result.completeExceptionally(ex);
+            return result;
+        }
+        return queue(type, bytes.toByteArray());
+    }
+
+    /**
+     * It queues a frame whose response is awaited. The frame stops being
+     * awaited as soon as its result is completed in any way, e.g. cancelled
+     * after a timeout, so that a server that never answers leaks nothing.
+     *
+     * @param type the type of the frame.
+     * @param payload the payload of the frame.
+     * @return the pending execution results.
+     */
+    private CompletableFuture<List<ExecutionResult>> queue(byte type, byte[] payload) {
+        CompletableFuture<List<ExecutionResult>> result = new CompletableFuture<>();
+        int id = nextId.incrementAndGet();
+        pending.put(id, result);
+        result.whenComplete((results, failure) -> pending.remove(id, result));
+        connection.send(Frame.create(type, id, payload));
+        if (closed) {
+            failPending(new IOException("Connection closed."));
+        }
+        return result;
+    }
+
+    /**
+     * It reads the responses and completes their pending results until the
+     * connection ends. A malformed response ends the connection as well.
+     */
+    private void read() {
+        try {
+            Frame frame;
+            while ((frame = connection.read()) != null) {
+                CompletableFuture<List<ExecutionResult>> result = pending.get(frame.id());
+                if (result == null) {
+                    Log.warning("Unexpected response {0}.", frame.id());
+                    continue;
+                }
+                DataInputStream in = frame.payload();
+                if (frame.type() == Frame.BATCH_RESPONSE) {
+                    int count = in.readInt();
+                    List<ExecutionResult> results = new ArrayList<>(count);
+                    for (int i = 0; i < count; i++) {
+                        results.add(RemoteResult.read(in));
+                    }
+                    result.complete(results);
+                } else {
+                    result.complete(Collections.singletonList(RemoteResult.read(in)));
+                }
+            }
+            closed = true;
+            failPending(new IOException("Connection closed by the server."));
+        } catch (IOException ex) {
+            closed = true;
+            failPending(ex);
+        } catch (RuntimeException ex) {
+            Log.warning("Malformed response: {0}", ex);
+            closed = true;
+            connection.close();
+            failPending(new IOException("Malformed response: " + ex, ex));
+        }
+    }
+
+    /**
+     * It fails every pending result.
+     *
+     * @param cause the reason of the failure.
+     */
+    private void failPending(IOException cause) {
+        for (Integer id : new ArrayList<>(pending.keySet())) {
+            CompletableFuture<List<ExecutionResult>> result = pending.remove(id);
+            if (result != null) {
+                result.completeExceptionally(cause);
+            }
+        }
+    }
+
+    /**
+     * It runs a task on a new daemon thread.
+     *
+     * @param task the task to run.
+     * @param name the name of the thread.
+     */
+    private static void daemon(Runnable task, String name) {
+        Thread thread = new Thread(task, name);
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+}
@@ -0,0 +1,398 @@
+/*
+ *                      QEMU INSTANCES MANAGER LIBRARY
+ *                                Java Version
+ * 
+ * PRODUCT OWNER: Research Centre in Real-Time & Embedded Computing Systems
+ * PROJECT MANAGER: Luís Pinho and Cláudio Maia {lmn,clrrm}@isep.ipp.pt
+ * DEVELOPER: Manuel Meireles ( mjcdm@isep.ipp.pt )
+ * DATE: 24/11/2017
+ * SCOPE: CISTER Summer Internship 2017
+ * VERSION: 1.0
+ */
+package Binary;
+
+import Communications.ExecutionResult;
+import Communications.Fail;
+import Communications.Fail.Reason;
+import Communications.Success;
+import Configurations.Log;
+import Configurations.Settings;
+import Configurations.Threads;
+import Managers.InstanceManager;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.net.StandardProtocolFamily;
+import java.net.StandardSocketOptions;
+import java.net.UnixDomainSocketAddress;
+import java.security.MessageDigest;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+
+/**
+ * An embeddable server of the binary control protocol of an
+ * {@link InstanceManager}. It listens either on a TCP port or on a Unix domain
+ * socket. Each connection must open with a {@link Frame#HELLO} that carries
+ * the token of the server, the same one the HTTP control API requires (see
+ * {@link Settings#getAccessToken()}); otherwise it is refused and closed
+ * before any request runs, since the port of a federation member is
+ * reachable from other hosts. Each admitted connection may pipeline any
+ * number of {@link Frame#REQUEST}s, which run concurrently and are answered
+ * as soon as each one completes, and {@link Frame#BATCH_REQUEST}s, whose
+ * requests run in order and are answered together. Every request runs on its
+ * own thread (see {@link Threads#perTask(java.lang.String)}).
+ *
+ * @see BinaryClient
+ * @author Manuel Meireles ( mjcdm@isep.ipp.pt )
+ */
+public class BinaryServer {
+
+    /**
+     * The maximum number of pending connections.
+     */
+    private static final int BACKLOG = 1024;
+
+    /**
+     * The handler that runs the requests.
+     */
+    private final RequestHandler handler;
+
+    /**
+     * The TCP address or the Unix domain socket to listen on.
+     */
+    private final SocketAddress address;
+
+    /**
+     * The token the clients must present, as UTF-8 bytes.
+     */
+    private final byte[] token;
+
+    /**
+     * The open connections.
+     */
+    private final Set<FrameChannel> connections;
+
+    /**
+     * The listening channel. It is null while the server is stopped.
+     */
+    private ServerSocketChannel listener;
+
+    /**
+     * The executor on which each connection and each request runs on its own
+     * thread. It is null while the server is stopped.
+     */
+    private ExecutorService executor;
+
+    /**
+     * A private constructor that initializes the handler, the address and the
+     * token. Despite no validations are made, none of the objects should be
+     * null.
+     *
+     * @param theHandler the handler that runs the requests.
+     * @param theAddress the address to listen on.
+     * @param theToken the token the clients must present.
+     */
+    private BinaryServer(RequestHandler theHandler, SocketAddress theAddress, String theToken) {
+        handler = theHandler;
+        address = theAddress;
+        token = theToken.getBytes(StandardCharsets.UTF_8);
+        connections = ConcurrentHashMap.newKeySet();
+    }
+
+    /**
+     * It builds a binary server on the Unix domain socket from the
+     * {@link Settings} or, if there is none, on its TCP port.
+     *
+     * @param manager the manager whose operations are exposed.
+     * @return the built binary server, not yet started.
+     */
+    public static BinaryServer create(InstanceManager manager) {
+        String socket = Settings.getBinarySocket();
+        if (!socket.isEmpty()) {
+            return create(manager, Paths.get(socket));
+        }
+        return create(manager, Settings.getBinaryPort());
+    }
+
+    /**
+     * It builds a binary server on the given port of the loopback interface.
+     *
+     * @param manager the manager whose operations are exposed.
+     * @param port the port to listen on (zero for an ephemeral one).
+     * @return the built binary server, not yet started.
+     */
+    public static BinaryServer create(InstanceManager manager, int port) {
+        return create(manager, new InetSocketAddress(InetAddress.getLoopbackAddress(), port));
+    }
+
+    /**
+     * It builds a binary server on the given Unix domain socket.
+     *
+     * @param manager the manager whose operations are exposed.
+     * @param socket the path of the socket. A stale socket file is replaced.
+     * @return the built binary server, not yet started.
+     */
+    public static BinaryServer create(InstanceManager manager, Path socket) {
+        return create(manager, UnixDomainSocketAddress.of(socket));
+    }
+
+    /**
+     * It builds a binary server that runs each request on a manager.
+     *
+     * @param manager the manager whose operations are exposed.
+     * @param address the TCP address or the Unix domain socket address to
+     * listen on.
+     * @return the built binary server, not yet started.
+     */
+    public static BinaryServer create(InstanceManager manager, SocketAddress address) {
+        return create(request -> request.applyTo(manager), address);
+    }
+
+    /**
+     * It builds a binary server with a custom handler of the requests. The
+     * clients must present the token from the {@link Settings}.
+     *
+     * @param handler the handler that runs the requests.
+     * @param address the TCP address or the Unix domain socket address to
+     * listen on.
+     * @return the built binary server, not yet started.
+     */
+    public static BinaryServer create(RequestHandler handler, SocketAddress address) {
+        return new BinaryServer(handler, address, Settings.getAccessToken());
+    }
+
+    /**
+     * It starts listening. Starting a server that is already listening has no
+     * effect.
+     *
+     * @return <ul><li>a {@link Success} with the address listened
+     * on;</li><li>a {@link Fail} due to {@link Reason#IO_EXCEPTION} if the
+     * address could not be bound;</li></ul>
+     */
+    public synchronized ExecutionResult start() {
+        Log.entering(getClass().getName(), "start", address);
+        ExecutionResult result;
+        if (listener == null) {
+            try {
+                if (address instanceof UnixDomainSocketAddress) {
+                    Files.deleteIfExists(((UnixDomainSocketAddress) address).getPath());
+                    listener = ServerSocketChannel.open(StandardProtocolFamily.UNIX);
+                } else {
+                    listener = ServerSocketChannel.open();
+                }
+                listener.bind(address, BACKLOG);
+            } catch (IOException | UnsupportedOperationException ex) {
+                listener = null;
+                result = Fail.because(Reason.IO_EXCEPTION, ex.toString());
+                Log.exiting(getClass().getName(), "start", result);
+                return result;
+            }
+            executor = Threads.perTask("binary-server");
+            ServerSocketChannel accepting = listener;
+            executor.execute(() -> accept(accepting));
+        }
+        result = Success.achieved("listening on " + address());
+        Log.exiting(getClass().getName(), "start", result);
+        return result;
+    }
+
+    /**
+     * It stops listening and closes every connection once the responses
+     * already queued are written.
+     */
+    public synchronized void stop() {
+        Log.entering(getClass().getName(), "stop");
+        if (listener != null) {
+            try {
+                listener.close();
+                if (address instanceof UnixDomainSocketAddress) {
+                    Files.deleteIfExists(((UnixDomainSocketAddress) address).getPath());
+                }
+            } catch (IOException ex) {
+                Log.warning("{0}", ex);
+            }
+            for (FrameChannel connection : connections) {
+                connection.close();
+            }
+            executor.shutdown();
+            listener = null;
+            executor = null;
+        }
+        Log.exiting(getClass().getName(), "stop");
+    }
+
+    /**
+     * It provides the address the server is listening on, which has the
+     * actual port if an ephemeral one was requested.
+     *
+     * @return the address listened on or the configured one if the server is
+     * stopped.
+     */
+    public synchronized SocketAddress address() {
+        if (listener != null) {
+            try {
+                return listener.getLocalAddress();
+            } catch (IOException ex) {
+                Log.fine("{0}", ex);
+            }
+        }
+        return address;
+    }
+
+    /**
+     * It provides the TCP port the server is listening on.
+     *
+     * @return the port or -1 if the server is stopped or listens on a Unix
+     * domain socket.
+     */
+    public int port() {
+        SocketAddress bound = address();
+        return listener != null && bound instanceof InetSocketAddress ? ((InetSocketAddress) bound).getPort() : -1;
+    }
+
+    /**
+     * It accepts connections until the listening channel is closed.
+     *
+     * @param accepting the listening channel.
+     */
+    private void accept(ServerSocketChannel accepting) {
+        while (accepting.isOpen()) {
+            try {
+                SocketChannel socket = accepting.accept();
+                if (!(address instanceof UnixDomainSocketAddress)) {
+                    socket.setOption(StandardSocketOptions.TCP_NODELAY, true);
+                }
+                FrameChannel connection = FrameChannel.create(socket);
+                connections.add(connection);
+                ExecutorService running = executor;
+                running.execute(connection::write);
+                running.execute(() -> serve(connection, running));
+            } catch (IOException | RuntimeException ex) {
+                Log.fine("{0}", ex);
+            }
+        }
+    }
+
+    /**
+     * It reads the frames of a connection and runs each one on its own
+     * thread, until the client disconnects.
+     *
+     * @param connection the connection of the client.
+     * @param running the executor on which the frames run.
+     */
+    private void serve(FrameChannel connection, ExecutorService running) {
+        try {
+            if (!admit(connection)) {
+                return;
+            }
+            Frame frame;
+            while ((frame = connection.read()) != null) {
+                Frame request = frame;
+                running.execute(() -> respond(connection, request));
+            }
+        } catch (IOException | RuntimeException ex) {
+            Log.fine("{0}", ex);
+        } finally {
+            connections.remove(connection);
+            connection.close();
+        }
+    }
+
+    /**
+     * It reads the first frame of a connection and answers it with a
+     * {@link Success} if it is a {@link Frame#HELLO} with the token of the
+     * server or with a {@link Fail} due to {@link Reason#WRONG_EXEC}
+     * otherwise. The token is compared in constant time, so that it can not
+     * be guessed from the timing.
+     *
+     * @param connection the connection of the client.
+     * @return true if the connection is admitted or false otherwise.
+     * @throws IOException if the connection failed.
+     */
+    private boolean admit(FrameChannel connection) throws IOException {
+        Frame hello = connection.read();
+        if (hello == null) {
+            return false;
+        }
+        boolean admitted = false;
+        if (hello.type() == Frame.HELLO) {
+            try {
+                byte[] given = hello.payload().readUTF().getBytes(StandardCharsets.UTF_8);
+                admitted = MessageDigest.isEqual(given, token);
+            } catch (IOException ex) {
+                Log.fine("{0}", ex);
+            }
+        }
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        RemoteResult.write(new DataOutputStream(bytes),
+                admitted ? Success.achieved() : Fail.because(Reason.WRONG_EXEC, "Missing or wrong token."));
+        connection.send(Frame.create(Frame.RESPONSE, hello.id(), bytes.toByteArray()));
+        if (!admitted) {
+            Log.warning("Refused a connection to {0} without the token.", address());
+        }
+        return admitted;
+    }
+
+    /**
+     * It runs the requests of a frame on the handler and sends the response.
+     * An invalid frame is answered with a single {@link Fail} due to
+     * {@link Reason#NULL_ARGUMENT}, even if it was a batch.
+     *
+     * @param connection the connection of the client.
+     * @param frame the frame with the requests.
+     */
+    private void respond(FrameChannel connection, Frame frame) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        boolean stopping = false;
+        byte type = Frame.RESPONSE;
+        try {
+            DataInputStream in = frame.payload();
+            if (frame.type() == Frame.REQUEST) {
+                Request request = Request.read(in);
+                RemoteResult.write(out, handler.handle(request));
+                stopping = request.operation() == Request.Operation.SHUTDOWN;
+            } else if (frame.type() == Frame.BATCH_REQUEST) {
+                List<Request> requests = new ArrayList<>();
+                int count = in.readInt();
+                for (int i = 0; i < count; i++) {
+                    requests.add(Request.read(in));
+                }
+                out.writeInt(count);
+                for (Request request : requests) {
+                    RemoteResult.write(out, handler.handle(request));
+                    stopping |= request.operation() == Request.Operation.SHUTDOWN;
+                }
+                type = Frame.BATCH_RESPONSE;
+            } else {
+                throw new IOException("Unknown frame type " + frame.type() + ".");
+            }
+        } catch (IOException | RuntimeException ex) {
+            bytes.reset();
+            type = Frame.RESPONSE;
+            try {
+                RemoteResult.write(out, Fail.because(Reason.NULL_ARGUMENT, "Invalid request: " + ex));
+            } catch (IOException never) {
+                Log.severe("{0}", never);
+            }
+        }
+        connection.send(Frame.create(type, frame.id(), bytes.toByteArray()));
+        if (stopping) {
+            stop();
+        }
+    }
+
+}
@@ -0,0 +1,160 @@
+/*
+ *                      QEMU INSTANCES MANAGER LIBRARY
+ *                                Java Version
+ * 
+ * PRODUCT OWNER: Research Centre in Real-Time & Embedded Computing Systems
+ * PROJECT MANAGER: Luís Pinho and Cláudio Maia {lmn,clrrm}@isep.ipp.pt
+ * DEVELOPER: Manuel Meireles ( mjcdm@isep.ipp.pt )
+ * DATE: 24/11/2017
+ * SCOPE: CISTER Summer Internship 2017
+ * VERSION: 1.0
+ */
+package Binary;
+
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.nio.ByteBuffer;
+
+/**
+ * A frame of the binary control protocol. Every frame is length-prefixed:
+ * <pre>
+ * int  length   (of the rest of the frame, in bytes)
+ * byte type     ({@link Frame#HELLO}, {@link Frame#REQUEST},
+ *                {@link Frame#RESPONSE}, {@link Frame#BATCH_REQUEST} or
+ *                {@link Frame#BATCH_RESPONSE})
+ * int  id       (chosen by the client and echoed in the response)
+ * ...  payload
+ * </pre>
+ * All numbers are big-endian. Since every response carries the id of its
+ * request, a client may pipeline many requests on one connection and the
+ * responses may arrive in any order. The first frame of a connection must be
+ * a {@link Frame#HELLO}, which the server answers with a {@link Frame#RESPONSE}
+ * before it runs any request.
+ *
+ * @see FrameChannel
+ * @author Manuel Meireles ( mjcdm@isep.ipp.pt )
+ */
+public class Frame {
+
+    /**
+     * The type of the frame that opens a connection. Its payload is the token
+     * of the server, as a modified UTF-8 text (see
+     * {@link java.io.DataOutput#writeUTF(java.lang.String)}).
+     */
+    public static final byte HELLO = 5;
+
+    /**
+     * The type of a frame with a single {@link Request}.
+     */
+    public static final byte REQUEST = 1;
+
+    /**
+     * The type of a frame with the result of a single request.
+     */
+    public static final byte RESPONSE = 2;
+
+    /**
+     * The type of a frame with several requests, to be executed in order.
+     */
+    public static final byte BATCH_REQUEST = 3;
+
+    /**
+     * The type of a frame with the results of a batch, in the order of its
+     * requests.
+     */
+    public static final byte BATCH_RESPONSE = 4;
+
+    /**
+     * The size, in bytes, of the type and the id of a frame.
+     */
+    public static final int HEADER = 5;
+
+    /**
+     * The maximum size, in bytes, of a frame, so that a corrupt length does
+     * not exhaust the memory.
+     */
+    public static final int MAX_LENGTH = 16 << 20;
+
+    /**
+     * The type of the frame.
+     */
+    private final byte type;
+
+    /**
+     * The id of the frame.
+     */
+    private final int id;
+
+    /**
+     * The payload of the frame.
+     */
+    private final byte[] payload;
+
+    /**
+     * A private constructor that initializes the frame. Despite no
+     * validations are made, the payload should not be null.
+     *
+     * @param theType the type of the frame.
+     * @param theId the id of the frame.
+     * @param thePayload the payload of the frame.
+     */
+    private Frame(byte theType, int theId, byte[] thePayload) {
+        type = theType;
+        id = theId;
+        payload = thePayload;
+    }
+
+    /**
+     * It builds a frame.
+     *
+     * @param type the type of the frame.
+     * @param id the id of the frame.
+     * @param payload the payload of the frame.
+     * @return the built frame.
+     */
+    public static Frame create(byte type, int id, byte[] payload) {
+        return new Frame(type, id, payload);
+    }
+
+    /**
+     * A getter of the type of the frame.
+     *
+     * @return the {@link Frame#type}.
+     */
+    public byte type() {
+        return type;
+    }
+
+    /**
+     * A getter of the id of the frame.
+     *
+     * @return the {@link Frame#id}.
+     */
+    public int id() {
+        return id;
+    }
+
+    /**
+     * It provides a stream to decode the payload.
+     *
+     * @return the payload as a data input.
+     */
+    public DataInputStream payload() {
+        return new DataInputStream(new ByteArrayInputStream(payload));
+    }
+
+    /**
+     * It encodes the frame, with its length prefix, ready to be written.
+     *
+     * @return the bytes of the frame.
+     */
+    public byte[] encode() {
+        ByteBuffer buffer = ByteBuffer.allocate(Integer.BYTES + HEADER + payload.length);
+        buffer.putInt(HEADER + payload.length);
+        buffer.put(type);
+        buffer.putInt(id);
+        buffer.put(payload);
+        return buffer.array();
+    }
+
+}
@@ -0,0 +1,221 @@
+/*
+ *                      QEMU INSTANCES MANAGER LIBRARY
+ *                                Java Version
+ * 
+ * PRODUCT OWNER: Research Centre in Real-Time & Embedded Computing Systems
+ * PROJECT MANAGER: Luís Pinho and Cláudio Maia {lmn,clrrm}@isep.ipp.pt
+ * DEVELOPER: Manuel Meireles ( mjcdm@isep.ipp.pt )
+ * DATE: 24/11/2017
+ * SCOPE: CISTER Summer Internship 2017
+ * VERSION: 1.0
+ */
+package Binary;
+
+import Configurations.Log;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ByteChannel;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+
+/**
+ * A channel of frames over a blocking byte channel (a TCP or a Unix domain
+ * socket). One thread reads the frames, through a large buffer so that
+ * pipelined frames cost a single system call, and another one writes them:
+ * the frames sent by any thread are queued and the writer coalesces
+ * everything queued into as few writes as possible.
+ *
+ * @see Frame
+ * @author Manuel Meireles ( mjcdm@isep.ipp.pt )
+ */
+public class FrameChannel implements Closeable {
+
+    /**
+     * The size, in bytes, of the input and output buffers.
+     */
+    private static final int BUFFER = 64 * 1024;
+
+    /**
+     * The marker queued to stop the writer.
+     */
+    private static final byte[] CLOSE = new byte[0];
+
+    /**
+     * The underlying byte channel.
+     */
+    private final ByteChannel channel;
+
+    /**
+     * The input buffer. It is kept ready to be read from.
+     */
+    private ByteBuffer input;
+
+    /**
+     * The output buffer of the writer.
+     */
+    private final ByteBuffer output;
+
+    /**
+     * The encoded frames waiting to be written.
+     */
+    private final BlockingQueue<byte[]> outbox;
+
+    /**
+     * A private constructor that initializes the buffers. Despite no
+     * validation is made, the channel should not be null and it should be in
+     * blocking mode.
+     *
+     * @param theChannel the underlying byte channel.
+     */
+    private FrameChannel(ByteChannel theChannel) {
+        channel = theChannel;
+        input = ByteBuffer.allocate(BUFFER);
+        input.flip();
+        output = ByteBuffer.allocate(BUFFER);
+        outbox = new LinkedBlockingQueue<>();
+    }
+
+    /**
+     * It builds a channel of frames. The writer must be run, through
+     * {@link FrameChannel#write()}, for the sent frames to be written.
+     *
+     * @param channel the underlying blocking byte channel.
+     * @return the built channel of frames.
+     */
+    public static FrameChannel create(ByteChannel channel) {
+        return new FrameChannel(channel);
+    }
+
+    /**
+     * It reads the next frame. It must only be called by one thread.
+     *
+     * @return the frame or null if the peer closed the channel.
+     * @throws IOException if the channel failed or the frame is corrupt.
+     */
+    public Frame read() throws IOException {
+        if (!fill(Integer.BYTES)) {
+            return null;
+        }
+        int length = input.getInt();
+        if (length < Frame.HEADER || length > Frame.MAX_LENGTH) {
+            throw new IOException("Invalid frame length " + length + ".");
+        }
+        if (!fill(length)) {
+            throw new IOException("Truncated frame.");
+        }
+        byte type = input.get();
+        int id = input.getInt();
+        byte[] payload = new byte[length - Frame.HEADER];
+        input.get(payload);
+        return Frame.create(type, id, payload);
+    }
+
+    /**
+     * It queues a frame to be written. It never blocks and may be called by
+     * any thread.
+     *
+     * @param frame the frame to write.
+     */
+    public void send(Frame frame) {
+        outbox.add(frame.encode());
+    }
+
+    /**
+     * It writes the queued frames until the channel is closed and then closes
+     * the underlying channel, which also ends a blocked
+     * {@link FrameChannel#read()}. It must only be run by one thread.
+     */
+    public void write() {
+        List<byte[]> batch = new ArrayList<>();
+        try {
+            while (true) {
+                batch.add(outbox.take());
+                outbox.drainTo(batch);
+                for (byte[] frame : batch) {
+                    if (frame == CLOSE) {
+                        drain();
+                        return;
+                    }
+                    if (frame.length > output.remaining()) {
+                        drain();
+                    }
+                    if (frame.length > output.capacity()) {
+                        ByteBuffer large = ByteBuffer.wrap(frame);
+                        while (large.hasRemaining()) {
+                            channel.write(large);
+                        }
+                    } else {
+                        output.put(frame);
+                    }
+                }
+                batch.clear();
+                drain();
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        } catch (IOException ex) {
+            Log.fine("{0}", ex);
+        } finally {
+            try {
+                channel.close();
+            } catch (IOException ex) {
+                Log.fine("{0}", ex);
+            }
+        }
+    }
+
+    /**
+     * It stops the writer once the frames queued so far are written, which
+     * then closes the underlying channel.
+     */
+    @Override
+    public void close() {
+        outbox.add(CLOSE);
+    }
+
+    /**
+     * It makes sure the input buffer has, at least, the given number of bytes
+     * ready to be read, reading from the channel as needed.
+     *
+     * @param bytes the number of bytes needed.
+     * @return true if they are available or false if the channel ended.
+     * @throws IOException if the channel failed.
+     */
+    private boolean fill(int bytes) throws IOException {
+        if (input.remaining() >= bytes) {
+            return true;
+        }
+        if (input.capacity() < bytes) {
+            ByteBuffer larger = ByteBuffer.allocate(bytes);
+            larger.put(input);
+            input = larger;
+        } else {
+            input.compact();
+        }
+        while (input.position() < bytes) {
+            if (channel.read(input) < 0) {
+                input.flip();
+                return false;
+            }
+        }
+        input.flip();
+        return true;
+    }
+
+    /**
+     * It writes everything in the output buffer.
+     *
+     * @throws IOException if the channel failed.
+     */
+    private void drain() throws IOException {
+        output.flip();
+        while (output.hasRemaining()) {
+            channel.write(output);
+        }
+        output.clear();
+    }
+
+}
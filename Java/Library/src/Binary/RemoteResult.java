@@ -0,0 +1,293 @@
+/*
+ *                      QEMU INSTANCES MANAGER LIBRARY
+ *                                Java Version
+ * 
+ * PRODUCT OWNER: Research Centre in Real-Time & Embedded Computing Systems
+ * PROJECT MANAGER: Luís Pinho and Cláudio Maia {lmn,clrrm}@isep.ipp.pt
+ * DEVELOPER: Manuel Meireles ( mjcdm@isep.ipp.pt )
+ * DATE: 24/11/2017
+ * SCOPE: CISTER Summer Internship 2017
+ * VERSION: 1.0
+ */
+package Binary;
+
+import Communications.Creation;
+import Communications.ExecutionResult;
+import Communications.Fail;
+import Communications.Fail.Reason;
+import Communications.Headroom;
+import Communications.LaunchReport;
+import Communications.ListResult;
+import Communications.MapResult;
+import Communications.Reply;
+import Communications.Success;
+import Communications.Termination;
+import Instances.Instance;
+import Instances.QemuInstanceID;
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * An execution result received through the binary control protocol. Results
+ * are encoded as their {@link Kind}, their success, the ordinal of the
+ * reason of a {@link Fail} (or -1), the long id of a {@link Creation} (or -1),
+ * their description and their figures: the capacities and commitments of a
+ * {@link Headroom} or the long ids of the instances of a {@link ListResult}.
+ * A fail, a creation, a success, a reply and a headroom are decoded into the
+ * original classes; every other result into a remote result that keeps its
+ * kind, its success, its description and its figures.
+ *
+ * @see ExecutionResult
+ * @author Manuel Meireles ( mjcdm@isep.ipp.pt )
+ */
+public class RemoteResult implements ExecutionResult {
+
+    /**
+     * The kinds of results. The ordinals are part of the protocol, so new
+     * kinds must be appended.
+     */
+    public enum Kind {
+        SUCCESS,
+        FAIL,
+        CREATION,
+        REPLY,
+        LIST,
+        MAP,
+        HEADROOM,
+        TERMINATION,
+        LAUNCH_REPORT,
+        OTHER
+    }
+
+    /**
+     * The separator between the reason and the description of a
+     * {@link Fail}.
+     */
+    private static final String FAIL_SEPARATOR = " | ";
+
+    /**
+     * The kind of the original result.
+     */
+    private final Kind kind;
+
+    /**
+     * The success of the original result.
+     */
+    private final boolean success;
+
+    /**
+     * The description of the original result.
+     */
+    private final String description;
+
+    /**
+     * The figures of the original result.
+     */
+    private final long[] figures;
+
+    /**
+     * A private constructor that initializes the result. Despite no
+     * validations are made, neither the kind nor the figures should be null.
+     *
+     * @param theKind the kind of the original result.
+     * @param theSuccess the success of the original result.
+     * @param theDescription the description of the original result.
+     * @param theFigures the figures of the original result.
+     */
+    private RemoteResult(Kind theKind, boolean theSuccess, String theDescription, long[] theFigures) {
+        kind = theKind;
+        success = theSuccess;
+        description = theDescription;
+        figures = theFigures;
+    }
+
+    /**
+     * It encodes an execution result.
+     *
+     * @param out the output to encode into.
+     * @param result the execution result.
+     * @throws IOException if the output failed.
+     */
+    public static void write(DataOutput out, ExecutionResult result) throws IOException {
+        Kind kind = kindOf(result);
+        out.writeByte(kind.ordinal());
+        out.writeBoolean(result.wasSuccessful());
+        out.writeByte(result instanceof Fail ? ((Fail) result).reason().ordinal() : -1);
+        if (result instanceof Creation && ((Creation) result).id() instanceof QemuInstanceID) {
+            out.writeLong(((QemuInstanceID) ((Creation) result).id()).value());
+        } else {
+            out.writeLong(-1);
+        }
+        Request.writeText(out, result.description());
+        long[] figures = figuresOf(result);
+        out.writeInt(figures.length);
+        for (long figure : figures) {
+            out.writeLong(figure);
+        }
+    }
+
+    /**
+     * It decodes an execution result.
+     *
+     * @param in the input to decode from.
+     * @return the decoded execution result.
+     * @throws IOException if the input failed or the kind is unknown.
+     */
+    public static ExecutionResult read(DataInput in) throws IOException {
+        int ordinal = in.readUnsignedByte();
+        Kind kind = ordinal < Kind.values().length ? Kind.values()[ordinal] : Kind.OTHER;
+        boolean success = in.readBoolean();
+        int reason = in.readByte();
+        long id = in.readLong();
+        String description = Request.readText(in);
+        int count = in.readInt();
+        if (count < 0 || count > Frame.MAX_LENGTH / Long.BYTES) {
+            throw new IOException("Invalid figures count " + count + ".");
+        }
+        long[] figures = new long[count];
+        for (int i = 0; i < count; i++) {
+            figures[i] = in.readLong();
+        }
+        switch (kind) {
+            case FAIL:
+                if (reason < 0 || reason >= Reason.values().length) {
+                    return Fail.because(Reason.WRONG_EXEC, description);
+                }
+                Reason because = Reason.values()[reason];
+                String prefix = because + FAIL_SEPARATOR;
+                if (description != null && description.startsWith(prefix)) {
+                    return Fail.because(because, description.substring(prefix.length()));
+                }
+                return Fail.because(because);
+            case CREATION:
+                return Creation.create(QemuInstanceID.valueOf(id), success);
+            case SUCCESS:
+                return Success.achieved(description);
+            case REPLY:
+                return Reply.create(description, success);
+            case HEADROOM:
+                if (figures.length == 4) {
+                    return Headroom.create(figures[0], figures[1], figures[2], figures[3]);
+                }
+                return new RemoteResult(kind, success, description, figures);
+            default:
+                return new RemoteResult(kind, success, description, figures);
+        }
+    }
+
+    /**
+     * A getter of the kind of the original result.
+     *
+     * @return the {@link RemoteResult#kind}.
+     */
+    public Kind kind() {
+        return kind;
+    }
+
+    /**
+     * A getter of the figures of the original result, e.g. the long ids of
+     * the instances of a list.
+     *
+     * @return a copy of the {@link RemoteResult#figures}.
+     */
+    public long[] figures() {
+        return figures.clone();
+    }
+
+    /**
+     * A textual representation of the result.
+     *
+     * @return the description of the original result.
+     */
+    @Override
+    public String description() {
+        return description;
+    }
+
+    /**
+     * An indicator to assess if the result was successful or not.
+     *
+     * @return the success of the original result.
+     */
+    @Override
+    public boolean wasSuccessful() {
+        return success;
+    }
+
+    /**
+     * The textual representation of the result.
+     *
+     * @return the {@link RemoteResult#description()} result.
+     */
+    @Override
+    public String toString() {
+        return description();
+    }
+
+    /**
+     * It provides the figures of an execution result.
+     *
+     * @param result the execution result.
+     * @return the capacities and commitments of a headroom, the long ids of
+     * the instances of a list, the figures of a remote result or nothing
+     * otherwise.
+     */
+    private static long[] figuresOf(ExecutionResult result) {
+        if (result instanceof RemoteResult) {
+            return ((RemoteResult) result).figures;
+        } else if (result instanceof Headroom) {
+            Headroom headroom = (Headroom) result;
+            return new long[]{headroom.memoryCapacity(), headroom.memoryCommitted(),
+                headroom.cpuCapacity(), headroom.cpuCommitted()};
+        } else if (result instanceof ListResult) {
+            List<Long> ids = new ArrayList<>();
+            for (Object item : ((ListResult<?>) result).items()) {
+                Object id = item instanceof Instance ? ((Instance) item).id() : item;
+                if (id instanceof QemuInstanceID) {
+                    ids.add(((QemuInstanceID) id).value());
+                }
+            }
+            long[] figures = new long[ids.size()];
+            for (int i = 0; i < figures.length; i++) {
+                figures[i] = ids.get(i);
+            }
+            return figures;
+        }
+        return new long[0];
+    }
+
+    /**
+     * It provides the kind of an execution result.
+     *
+     * @param result the execution result.
+     * @return the kind of the result.
+     */
+    private static Kind kindOf(ExecutionResult result) {
+        if (result instanceof RemoteResult) {
+            return ((RemoteResult) result).kind;
+        } else if (result instanceof Success) {
+            return Kind.SUCCESS;
+        } else if (result instanceof Fail) {
+            return Kind.FAIL;
+        } else if (result instanceof Creation) {
+            return Kind.CREATION;
+        } else if (result instanceof Reply) {
+            return Kind.REPLY;
+        } else if (result instanceof ListResult) {
+            return Kind.LIST;
+        } else if (result instanceof MapResult) {
+            return Kind.MAP;
+        } else if (result instanceof Headroom) {
+            return Kind.HEADROOM;
+        } else if (result instanceof Termination) {
+            return Kind.TERMINATION;
+        } else if (result instanceof LaunchReport) {
+            return Kind.LAUNCH_REPORT;
+        }
+        return Kind.OTHER;
+    }
+
+}
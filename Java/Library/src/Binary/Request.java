@@ -0,0 +1,616 @@
+/*
+ *                      QEMU INSTANCES MANAGER LIBRARY
+ *                                Java Version
+ * 
+ * PRODUCT OWNER: Research Centre in Real-Time & Embedded Computing Systems
+ * PROJECT MANAGER: Luís Pinho and Cláudio Maia {lmn,clrrm}@isep.ipp.pt
+ * DEVELOPER: Manuel Meireles ( mjcdm@isep.ipp.pt )
+ * DATE: 24/11/2017
+ * SCOPE: CISTER Summer Internship 2017
+ * VERSION: 1.0
+ */
+package Binary;
+
+import Commands.BuildQemuInstance;
+import Commands.Command;
+import Commands.GenericQMP;
+import Communications.ExecutionResult;
+import Communications.Fail;
+import Communications.Fail.Reason;
+import Instances.InstanceID;
+import Instances.QemuInstanceID;
+import Managers.InstanceManager;
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * A request of the binary control protocol, i.e. an operation of the
+ * {@link InstanceManager} along with its operands. It is encoded as the
+ * ordinal of its {@link Operation} followed by the operands of that
+ * operation:
+ * <ul>
+ * <li>{@link Operation#START} and {@link Operation#BUILD}: the text of the
+ * options, without the QEMU path, and the tags;</li>
+ * <li>{@link Operation#CONFIG}: a text;</li>
+ * <li>{@link Operation#EXECUTE}, {@link Operation#CONTINUE},
+ * {@link Operation#SUSPEND} and {@link Operation#SHUTDOWN_INSTANCE}: the
+ * long id of the instance;</li>
+ * <li>{@link Operation#RETAG}: the long id of the instance and the
+ * tags;</li>
+ * <li>{@link Operation#COMMANDS}: the long id of the instance and the
+ * texts of the QMP commands;</li>
+ * <li>{@link Operation#START_BULK}: the texts of the options, the int window
+ * and the double ramp rate;</li>
+ * <li>{@link Operation#SHUTDOWN}: the long deadline and the long
+ * grace;</li>
+ * <li>{@link Operation#JOIN}: the texts of the members;</li>
+ * <li>{@link Operation#MIGRATE}: the long id of the instance and the text of
+ * the target;</li>
+ * <li>{@link Operation#LIST}, {@link Operation#HEADROOM} and
+ * {@link Operation#DESCRIBE}: nothing.</li>
+ * </ul>
+ * Texts are an int length followed by UTF-8 bytes, lists are an int count
+ * followed by the items and tags are an int count followed by the key and
+ * value texts.
+ *
+ * @see Frame
+ * @author Manuel Meireles ( mjcdm@isep.ipp.pt )
+ */
+public class Request {
+
+    /**
+     * The operations of the manager that can be requested. The ordinals are
+     * part of the protocol, so new operations must be appended.
+     */
+    public enum Operation {
+        START,
+        BUILD,
+        EXECUTE,
+        CONTINUE,
+        SUSPEND,
+        SHUTDOWN_INSTANCE,
+        RETAG,
+        LIST,
+        HEADROOM,
+        COMMANDS,
+        START_BULK,
+        SHUTDOWN,
+        CONFIG,
+        JOIN,
+        MIGRATE,
+        DESCRIBE
+    }
+
+    /**
+     * The requested operation.
+     */
+    private final Operation operation;
+
+    /**
+     * The long id of the instance. It is zero if the operation has no
+     * instance.
+     */
+    private final long id;
+
+    /**
+     * The texts of the operation: the options, the QMP commands or the
+     * configurations file.
+     */
+    private final List<String> texts;
+
+    /**
+     * The tags of a {@link Operation#RETAG}, a {@link Operation#START} or a
+     * {@link Operation#BUILD}.
+     */
+    private final Map<String, String> tags;
+
+    /**
+     * The window of a {@link Operation#START_BULK} or the deadline of a
+     * {@link Operation#SHUTDOWN}.
+     */
+    private final long first;
+
+    /**
+     * The grace of a {@link Operation#SHUTDOWN}.
+     */
+    private final long second;
+
+    /**
+     * The ramp rate of a {@link Operation#START_BULK}.
+     */
+    private final double rate;
+
+    /**
+     * A private constructor that initializes the operation and its operands.
+     * Despite no validations are made, neither the operation nor the
+     * collections should be null.
+     *
+     * @param theOperation the requested operation.
+     * @param theId the long id of the instance.
+     * @param theTexts the texts of the operation.
+     * @param theTags the tags of the operation.
+     * @param theFirst the window or the deadline.
+     * @param theSecond the grace.
+     * @param theRate the ramp rate.
+     */
+    private Request(Operation theOperation, long theId, List<String> theTexts, Map<String, String> theTags,
+            long theFirst, long theSecond, double theRate) {
+        operation = theOperation;
+        id = theId;
+        texts = theTexts;
+        tags = theTags;
+        first = theFirst;
+        second = theSecond;
+        rate = theRate;
+    }
+
+    /**
+     * It builds a request of an operation on an instance.
+     *
+     * @param operation one of {@link Operation#EXECUTE},
+     * {@link Operation#CONTINUE}, {@link Operation#SUSPEND} or
+     * {@link Operation#SHUTDOWN_INSTANCE}.
+     * @param id the long id of the instance.
+     * @return the built request.
+     */
+    public static Request on(Operation operation, long id) {
+        return new Request(operation, id, Collections.emptyList(), Collections.emptyMap(), 0, 0, 0);
+    }
+
+    /**
+     * It builds a request to start an instance.
+     *
+     * @param options the options of the instance, without the QEMU path.
+     * @return the built request.
+     */
+    public static Request start(String options) {
+        return start(options, Collections.emptyMap());
+    }
+
+    /**
+     * It builds a request to start a tagged instance.
+     *
+     * @param options the options of the instance, without the QEMU path.
+     * @param tags the tags of the instance.
+     * @return the built request.
+     */
+    public static Request start(String options, Map<String, String> tags) {
+        return new Request(Operation.START, 0, Collections.singletonList(options), new TreeMap<>(tags), 0, 0, 0);
+    }
+
+    /**
+     * It builds a request to build an instance without starting it.
+     *
+     * @param options the options of the instance, without the QEMU path.
+     * @return the built request.
+     */
+    public static Request build(String options) {
+        return build(options, Collections.emptyMap());
+    }
+
+    /**
+     * It builds a request to build a tagged instance without starting it.
+     *
+     * @param options the options of the instance, without the QEMU path.
+     * @param tags the tags of the instance.
+     * @return the built request.
+     */
+    public static Request build(String options, Map<String, String> tags) {
+        return new Request(Operation.BUILD, 0, Collections.singletonList(options), new TreeMap<>(tags), 0, 0, 0);
+    }
+
+    /**
+     * It builds a request to load a configurations file.
+     *
+     * @param file the path and name of the file.
+     * @return the built request.
+     */
+    public static Request config(String file) {
+        return new Request(Operation.CONFIG, 0, Collections.singletonList(file), Collections.emptyMap(), 0, 0, 0);
+    }
+
+    /**
+     * It builds a request to replace the tags of an instance.
+     *
+     * @param id the long id of the instance.
+     * @param tags the new tags.
+     * @return the built request.
+     */
+    public static Request retag(long id, Map<String, String> tags) {
+        return new Request(Operation.RETAG, id, Collections.emptyList(), new TreeMap<>(tags), 0, 0, 0);
+    }
+
+    /**
+     * It builds a request to list the instances.
+     *
+     * @return the built request.
+     */
+    public static Request list() {
+        return on(Operation.LIST, 0);
+    }
+
+    /**
+     * It builds a request to describe the instances to another member of a
+     * federation, i.e. their identity, liveness, run state and tags.
+     *
+     * @return the built request.
+     */
+    public static Request describe() {
+        return on(Operation.DESCRIBE, 0);
+    }
+
+    /**
+     * It builds a request of the host capacity still available.
+     *
+     * @return the built request.
+     */
+    public static Request headroom() {
+        return on(Operation.HEADROOM, 0);
+    }
+
+    /**
+     * It builds a request to send QMP commands to an instance.
+     *
+     * @param id the long id of the instance.
+     * @param commands the QMP commands.
+     * @return the built request.
+     */
+    public static Request commands(long id, List<String> commands) {
+        return new Request(Operation.COMMANDS, id, new ArrayList<>(commands), Collections.emptyMap(), 0, 0, 0);
+    }
+
+    /**
+     * It builds a request to start several instances in bulk.
+     *
+     * @param options the options of each instance.
+     * @param window the maximum number of concurrent launches.
+     * @param rampRate the maximum number of launches started per second.
+     * @return the built request.
+     */
+    public static Request startBulk(List<String> options, int window, double rampRate) {
+        return new Request(Operation.START_BULK, 0, new ArrayList<>(options), Collections.emptyMap(), window, 0, rampRate);
+    }
+
+    /**
+     * It builds a request to shut down the manager.
+     *
+     * @param deadline the time, in milliseconds, the whole shutdown may take.
+     * @param powerdownGrace the time, in milliseconds, given to the guests to
+     * power down.
+     * @return the built request.
+     */
+    public static Request shutdown(long deadline, long powerdownGrace) {
+        return new Request(Operation.SHUTDOWN, 0, Collections.emptyList(), Collections.emptyMap(), deadline, powerdownGrace, 0);
+    }
+
+    /**
+     * It builds a request to join a federation of managers, which is not an
+     * operation of a manager but of a federation node.
+     *
+     * @param members the textual representation of the members known to the
+     * sender, starting with the sender itself.
+     * @return the built request.
+     */
+    public static Request join(List<String> members) {
+        return new Request(Operation.JOIN, 0, new ArrayList<>(members), Collections.emptyMap(), 0, 0, 0);
+    }
+
+    /**
+     * It builds a request to live migrate an instance.
+     *
+     * @param id the long id of the instance.
+     * @param target the address on which the destination listens.
+     * @return the built request.
+     */
+    public static Request migrate(long id, String target) {
+        return new Request(Operation.MIGRATE, id, Collections.singletonList(target), Collections.emptyMap(), 0, 0, 0);
+    }
+
+    /**
+     * A getter of the requested operation.
+     *
+     * @return the {@link Request#operation}.
+     */
+    public Operation operation() {
+        return operation;
+    }
+
+    /**
+     * A getter of the texts of the request: the options, the QMP commands,
+     * the configurations file or the members.
+     *
+     * @return an unmodifiable view of the {@link Request#texts}.
+     */
+    public List<String> texts() {
+        return Collections.unmodifiableList(texts);
+    }
+
+    /**
+     * A getter of the long id of the instance of the request.
+     *
+     * @return the {@link Request#id} or zero if the operation has no
+     * instance.
+     */
+    public long id() {
+        return id;
+    }
+
+    /**
+     * It runs the request on a manager.
+     *
+     * @param manager the manager on which to run the request.
+     * @return <ul><li>the execution result of the operation of the
+     * manager;</li><li>a {@link Fail} due to {@link Reason#NULL_ARGUMENT} if a
+     * text is missing;</li></ul>
+     */
+    public ExecutionResult applyTo(InstanceManager manager) {
+        if (texts.contains(null)) {
+            return Fail.because(Reason.NULL_ARGUMENT);
+        }
+        InstanceID instance = QemuInstanceID.valueOf(id);
+        switch (operation) {
+            case START:
+                return manager.startInstance(BuildQemuInstance.command(texts.get(0)).tagged(tags));
+            case BUILD:
+                return manager.buildInstance(BuildQemuInstance.command(texts.get(0)).tagged(tags));
+            case EXECUTE:
+                return manager.executeInstance(instance);
+            case CONTINUE:
+                return manager.continueInstance(instance);
+            case SUSPEND:
+                return manager.suspendInstance(instance);
+            case SHUTDOWN_INSTANCE:
+                return manager.shutdownInstance(instance);
+            case RETAG:
+                return manager.retagInstance(instance, tags);
+            case LIST:
+                return manager.listInstances();
+            case HEADROOM:
+                return manager.headroom();
+            case COMMANDS:
+                List<Command> commands = new ArrayList<>();
+                for (String text : texts) {
+                    commands.add(GenericQMP.create(text));
+                }
+                Map<InstanceID, List<Command>> map = new TreeMap<>();
+                map.put(instance, commands);
+                return manager.executeCommands(map);
+            case START_BULK:
+                List<Command> options = new ArrayList<>();
+                for (String text : texts) {
+                    options.add(BuildQemuInstance.command(text));
+                }
+                return manager.startInstances(options, (int) first, rate, null);
+            case SHUTDOWN:
+                return manager.shutdown(first, second);
+            case CONFIG:
+                return manager.loadConfigurationFile(texts.get(0));
+            case JOIN:
+            case DESCRIBE:
+                return Fail.because(Reason.WRONG_EXEC, "Not a federation node.");
+            case MIGRATE:
+                return manager.migrateInstance(instance, texts.get(0));
+            default:
+                return Fail.because(Reason.NULL_ARGUMENT, "Unknown operation " + operation + ".");
+        }
+    }
+
+    /**
+     * It encodes the request.
+     *
+     * @param out the output to encode into.
+     * @throws IOException if the output failed.
+     */
+    public void write(DataOutput out) throws IOException {
+        out.writeByte(operation.ordinal());
+        switch (operation) {
+            case START:
+            case BUILD:
+                writeText(out, texts.get(0));
+                writeTags(out, tags);
+                break;
+            case CONFIG:
+                writeText(out, texts.get(0));
+                break;
+            case EXECUTE:
+            case CONTINUE:
+            case SUSPEND:
+            case SHUTDOWN_INSTANCE:
+                out.writeLong(id);
+                break;
+            case RETAG:
+                out.writeLong(id);
+                writeTags(out, tags);
+                break;
+            case COMMANDS:
+                out.writeLong(id);
+                writeTexts(out, texts);
+                break;
+            case JOIN:
+                writeTexts(out, texts);
+                break;
+            case MIGRATE:
+                out.writeLong(id);
+                writeText(out, texts.get(0));
+                break;
+            case START_BULK:
+                writeTexts(out, texts);
+                out.writeInt((int) first);
+                out.writeDouble(rate);
+                break;
+            case SHUTDOWN:
+                out.writeLong(first);
+                out.writeLong(second);
+                break;
+            default:
+                break;
+        }
+    }
+
+    /**
+     * It decodes a request.
+     *
+     * @param in the input to decode from.
+     * @return the decoded request.
+     * @throws IOException if the input failed or the operation is unknown.
+     */
+    public static Request read(DataInput in) throws IOException {
+        int ordinal = in.readUnsignedByte();
+        if (ordinal >= Operation.values().length) {
+            throw new IOException("Unknown operation " + ordinal + ".");
+        }
+        Operation operation = Operation.values()[ordinal];
+        switch (operation) {
+            case START:
+                String started = readText(in);
+                return start(started, readTags(in));
+            case BUILD:
+                String built = readText(in);
+                return build(built, readTags(in));
+            case CONFIG:
+                return config(readText(in));
+            case EXECUTE:
+            case CONTINUE:
+            case SUSPEND:
+            case SHUTDOWN_INSTANCE:
+                return on(operation, in.readLong());
+            case RETAG:
+                long id = in.readLong();
+                return retag(id, readTags(in));
+            case COMMANDS:
+                long instance = in.readLong();
+                return commands(instance, readTexts(in));
+            case JOIN:
+                return join(readTexts(in));
+            case MIGRATE:
+                long migrated = in.readLong();
+                return migrate(migrated, readText(in));
+            case START_BULK:
+                List<String> options = readTexts(in);
+                int window = in.readInt();
+                return startBulk(options, window, in.readDouble());
+            case SHUTDOWN:
+                long deadline = in.readLong();
+                return shutdown(deadline, in.readLong());
+            default:
+                return on(operation, 0);
+        }
+    }
+
+    /**
+     * The textual representation of the request.
+     *
+     * @return the operation and its operands.
+     */
+    @Override
+    public String toString() {
+        return operation + " " + id + " " + texts + " " + tags;
+    }
+
+    /**
+     * It encodes a text as its length followed by its UTF-8 bytes.
+     *
+     * @param out the output to encode into.
+     * @param text the text. It may be null.
+     * @throws IOException if the output failed.
+     */
+    static void writeText(DataOutput out, String text) throws IOException {
+        if (text == null) {
+            out.writeInt(-1);
+            return;
+        }
+        byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    /**
+     * It decodes a text encoded by
+     * {@link Request#writeText(java.io.DataOutput, java.lang.String)}.
+     *
+     * @param in the input to decode from.
+     * @return the text, which may be null.
+     * @throws IOException if the input failed or the length is invalid.
+     */
+    static String readText(DataInput in) throws IOException {
+        int length = in.readInt();
+        if (length < 0) {
+            return null;
+        }
+        if (length > Frame.MAX_LENGTH) {
+            throw new IOException("Invalid text length " + length + ".");
+        }
+        byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * It encodes tags as their count followed by each key and value.
+     *
+     * @param out the output to encode into.
+     * @param tags the tags.
+     * @throws IOException if the output failed.
+     */
+    private static void writeTags(DataOutput out, Map<String, String> tags) throws IOException {
+        out.writeInt(tags.size());
+        for (Map.Entry<String, String> tag : tags.entrySet()) {
+            writeText(out, tag.getKey());
+            writeText(out, tag.getValue());
+        }
+    }
+
+    /**
+     * It decodes tags.
+     *
+     * @param in the input to decode from.
+     * @return the tags.
+     * @throws IOException if the input failed.
+     */
+    private static Map<String, String> readTags(DataInput in) throws IOException {
+        Map<String, String> tags = new TreeMap<>();
+        int count = in.readInt();
+        for (int i = 0; i < count; i++) {
+            tags.put(readText(in), readText(in));
+        }
+        return tags;
+    }
+
+    /**
+     * It encodes a list of texts as its size followed by the texts.
+     *
+     * @param out the output to encode into.
+     * @param texts the texts.
+     * @throws IOException if the output failed.
+     */
+    private static void writeTexts(DataOutput out, List<String> texts) throws IOException {
+        out.writeInt(texts.size());
+        for (String text : texts) {
+            writeText(out, text);
+        }
+    }
+
+    /**
+     * It decodes a list of texts.
+     *
+     * @param in the input to decode from.
+     * @return the texts.
+     * @throws IOException if the input failed.
+     */
+    private static List<String> readTexts(DataInput in) throws IOException {
+        int count = in.readInt();
+        List<String> texts = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            texts.add(readText(in));
+        }
+        return texts;
+    }
+
+}
@@ -0,0 +1,35 @@
+/*
+ *                      QEMU INSTANCES MANAGER LIBRARY
+ *                                Java Version
+ * 
+ * PRODUCT OWNER: Research Centre in Real-Time & Embedded Computing Systems
+ * PROJECT MANAGER: Luís Pinho and Cláudio Maia {lmn,clrrm}@isep.ipp.pt
+ * DEVELOPER: Manuel Meireles ( mjcdm@isep.ipp.pt )
+ * DATE: 24/11/2017
+ * SCOPE: CISTER Summer Internship 2017
+ * VERSION: 1.0
+ */
+package Binary;
+
+import Communications.ExecutionResult;
+
+/**
+ * The interface of a handler of the requests received by a
+ * {@link BinaryServer}. The default one runs each request on an
+ * {@link Managers.InstanceManager}, but a handler may also answer requests
+ * that are not operations of a manager, such as a {@link Request.Operation#JOIN}.
+ *
+ * @see BinaryServer#create(Binary.RequestHandler, java.net.SocketAddress)
+ * @author Manuel Meireles ( mjcdm@isep.ipp.pt )
+ */
+public interface RequestHandler {
+
+    /**
+     * It runs a request. It may be called concurrently from many threads.
+     *
+     * @param request the received request.
+     * @return the execution result to send back.
+     */
+    ExecutionResult handle(Request request);
+
+}
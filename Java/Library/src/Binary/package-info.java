@@ -0,0 +1,12 @@
+/**
+ * The package contains classes related to the binary control protocol. It is
+ * a compact, length-prefixed protocol over TCP or Unix domain sockets for
+ * high-rate remote calls to an {@link Managers.InstanceManager}: the
+ * {@link Binary.BinaryServer} answers {@link Binary.Frame}s with
+ * {@link Binary.Request}s, which may be pipelined and batched, through its
+ * {@link Binary.RequestHandler}, and the
+ * {@link Binary.BinaryClient} sends them and receives the
+ * {@link Binary.RemoteResult}s. Both read and write the frames through a
+ * {@link Binary.FrameChannel}.
+ */
+package Binary;
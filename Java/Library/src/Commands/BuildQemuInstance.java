@@ -12,6 +12,10 @@
 package Commands;
 
 import Configurations.Settings;
+import java.util.Collections;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * A command to build a new QEMU instance.
@@ -48,9 +52,40 @@ public class BuildQemuInstance implements Command {
      * The number of ports the that have been assigned. Since each QEMU instance
      * must have its own port, in order to ensure that no mistakes are made, the
      * port numbers may be automatically assigned by adding this value to the
-     * starting port number from the configurations.
+     * starting port number from the configurations. It is atomic since
+     * commands may be built concurrently.
      */
-    private static int PORTS_ASSIGNED = 0;
+    private static final AtomicInteger PORTS_ASSIGNED = new AtomicInteger(0);
+
+    /**
+     * The guest memory, in MiB, that QEMU assigns when the «-m» parameter is
+     * not given.
+     */
+    private static final long DEFAULT_MEMORY = 128;
+
+    /**
+     * The number of virtual CPUs that QEMU assigns when the «-smp» parameter
+     * is not given.
+     */
+    private static final int DEFAULT_CPUS = 1;
+
+    /**
+     * The guest memory, in MiB, requested by the instruction through the «-m»
+     * parameter.
+     */
+    private final long memory;
+
+    /**
+     * The number of virtual CPUs requested by the instruction through the
+     * «-smp» parameter.
+     */
+    private final int cpus;
+
+    /**
+     * The tags of the instance, i.e. free key/value labels such as its role or
+     * the fleet it belongs to. They are not given to QEMU.
+     */
+    private final Map<String, String> tags;
 
     /**
      * A private constructor that initializes the instruction, the IP address
@@ -61,11 +96,15 @@ public class BuildQemuInstance implements Command {
      * {@link BuildQemuInstance#instruction}).
      * @param theIP the IP address on which the QEMU will be operating.
      * @param thePort the port number on which the QEMU will be listening.
+     * @param theTags the tags of the instance.
      */
-    private BuildQemuInstance(String theInstructions, String theIP, int thePort) {
+    private BuildQemuInstance(String theInstructions, String theIP, int thePort, Map<String, String> theTags) {
         instruction = theInstructions;
         ip = theIP;
         port = thePort;
+        memory = parseMemory(theInstructions);
+        cpus = parseCpus(theInstructions);
+        tags = Collections.unmodifiableMap(new TreeMap<>(theTags));
     }
 
     /**
@@ -78,9 +117,33 @@ public class BuildQemuInstance implements Command {
      */
     public static BuildQemuInstance command(String options) {
         String path = Settings.getQemuPath();
-        int portNumber = Settings.getStartingPortNumber() + PORTS_ASSIGNED;
-        PORTS_ASSIGNED++;
-        return new BuildQemuInstance(path + options, DEFAULT_IP, portNumber);
+        int portNumber = assignPort();
+        return new BuildQemuInstance(path + options, DEFAULT_IP, portNumber, Collections.<String, String>emptyMap());
+    }
+
+    /**
+     * It assigns the next port number that no other instance of the manager
+     * uses, e.g. for the QMP or the migration stream of a new instance.
+     *
+     * @return the assigned port number.
+     */
+    public static int assignPort() {
+        return Settings.getStartingPortNumber() + PORTS_ASSIGNED.getAndIncrement();
+    }
+
+    /**
+     * It reserves a port number that is already in use, e.g. by an instance
+     * that was re-attached from a previous run of the manager. The assigned
+     * ports are moved past it so that it is never assigned again. Port numbers
+     * below the starting port number are never assigned, so nothing is done.
+     *
+     * @param port the port number to reserve.
+     */
+    public static void reservePort(int port) {
+        int offset = port - Settings.getStartingPortNumber();
+        if (offset >= 0) {
+            PORTS_ASSIGNED.accumulateAndGet(offset + 1, Math::max);
+        }
     }
 
     /**
@@ -96,7 +159,34 @@ public class BuildQemuInstance implements Command {
      */
     public static BuildQemuInstance command(String options, String ip, int port) {
         String path = Settings.getQemuPath();
-        return new BuildQemuInstance(path + options, ip, port);
+        return new BuildQemuInstance(path + options, ip, port, Collections.<String, String>emptyMap());
+    }
+
+    /**
+     * It creates a new BuildQemuInstance command from an instruction that
+     * already contains the QEMU path, e.g. one that was previously built and
+     * persisted. Despite no validation is made, none of the parameters should
+     * be null.
+     *
+     * @param instruction the complete instruction to start the QEMU instance.
+     * @param ip the IP address on which the QEMU will be operating.
+     * @param port the port number on which the QEMU will be listening.
+     * @param tags the tags of the instance.
+     * @return the built command.
+     */
+    public static BuildQemuInstance exact(String instruction, String ip, int port, Map<String, String> tags) {
+        return new BuildQemuInstance(instruction, ip, port, tags);
+    }
+
+    /**
+     * It creates a copy of this command with other tags. Despite no validation
+     * is made, the tags should not be null.
+     *
+     * @param tags the tags of the instance.
+     * @return the built command.
+     */
+    public BuildQemuInstance tagged(Map<String, String> tags) {
+        return new BuildQemuInstance(instruction, ip, port, tags);
     }
 
     /**
@@ -127,6 +217,33 @@ public class BuildQemuInstance implements Command {
         return port;
     }
 
+    /**
+     * A getter of the tags of the instance.
+     *
+     * @return the {@link BuildQemuInstance#tags}, unmodifiable.
+     */
+    public Map<String, String> tags() {
+        return tags;
+    }
+
+    /**
+     * A getter of the guest memory requested by the instruction.
+     *
+     * @return the {@link BuildQemuInstance#memory} in MiB.
+     */
+    public long memory() {
+        return memory;
+    }
+
+    /**
+     * A getter of the number of virtual CPUs requested by the instruction.
+     *
+     * @return the {@link BuildQemuInstance#cpus}.
+     */
+    public int cpus() {
+        return cpus;
+    }
+
     /**
      * The textual representation of the command.
      *
@@ -137,4 +254,118 @@ public class BuildQemuInstance implements Command {
         return instruction();
     }
 
+    /**
+     * It finds the value given to a parameter of the instruction, i.e. the
+     * token that follows the parameter name.
+     *
+     * @param instruction the instruction to search.
+     * @param parameter the parameter name, such as «-m».
+     * @return the value of the parameter or null if it is not present.
+     */
+    private static String parameterValue(String instruction, String parameter) {
+        String[] tokens = instruction.trim().split("\\s+");
+        for (int i = 0; i < tokens.length - 1; i++) {
+            if (tokens[i].equals(parameter)) {
+                return tokens[i + 1];
+            }
+        }
+        return null;
+    }
+
+    /**
+     * It interprets the «-m» parameter of the instruction. Both the legacy
+     * form («-m 512», «-m 2G») and the keyed form («-m size=2G,slots=2») are
+     * understood. Sizes without suffix are in MiB, as QEMU reads them.
+     *
+     * @param instruction the instruction to interpret.
+     * @return the requested guest memory in MiB or the QEMU default if it is
+     * absent or malformed.
+     */
+    private static long parseMemory(String instruction) {
+        String value = parameterValue(instruction, "-m");
+        if (value == null) {
+            return DEFAULT_MEMORY;
+        }
+        for (String option : value.split(",")) {
+            if (option.startsWith("size=")) {
+                return parseSize(option.substring("size=".length()));
+            }
+            if (!option.contains("=")) {
+                return parseSize(option);
+            }
+        }
+        return DEFAULT_MEMORY;
+    }
+
+    /**
+     * It converts a QEMU size with an optional suffix (K, M, G or T) to MiB.
+     *
+     * @param size the size as given on the instruction.
+     * @return the size in MiB or the QEMU default if it is malformed.
+     */
+    private static long parseSize(String size) {
+        if (size.isEmpty()) {
+            return DEFAULT_MEMORY;
+        }
+        char unit = Character.toUpperCase(size.charAt(size.length() - 1));
+        String digits = Character.isDigit(unit) ? size : size.substring(0, size.length() - 1);
+        try {
+            double amount = Double.parseDouble(digits);
+            switch (unit) {
+                case 'K':
+                    return (long) Math.ceil(amount / 1024);
+                case 'G':
+                    return (long) Math.ceil(amount * 1024);
+                case 'T':
+                    return (long) Math.ceil(amount * 1024 * 1024);
+                default:
+                    return (long) Math.ceil(amount);
+            }
+        } catch (NumberFormatException ex) {
+            return DEFAULT_MEMORY;
+        }
+    }
+
+    /**
+     * It interprets the «-smp» parameter of the instruction. The number of
+     * CPUs is either given explicitly («-smp 4», «-smp cpus=4») or derived
+     * from the topology («-smp sockets=2,cores=2,threads=1»).
+     *
+     * @param instruction the instruction to interpret.
+     * @return the requested number of virtual CPUs or the QEMU default if it
+     * is absent or malformed.
+     */
+    private static int parseCpus(String instruction) {
+        String value = parameterValue(instruction, "-smp");
+        if (value == null) {
+            return DEFAULT_CPUS;
+        }
+        int topology = 1;
+        boolean hasTopology = false;
+        try {
+            for (String option : value.split(",")) {
+                if (!option.contains("=")) {
+                    return Integer.parseInt(option);
+                }
+                String[] pair = option.split("=", 2);
+                switch (pair[0]) {
+                    case "cpus":
+                        return Integer.parseInt(pair[1]);
+                    case "sockets":
+                    case "dies":
+                    case "cores":
+                    case "threads":
+                        topology *= Integer.parseInt(pair[1]);
+                        hasTopology = true;
+                        break;
+                    default:
+                        break;
+                }
+            }
+        } catch (NumberFormatException ex) {
+            return DEFAULT_CPUS;
+        }
+        return hasTopology ? topology : DEFAULT_CPUS;
+    }
+
 }
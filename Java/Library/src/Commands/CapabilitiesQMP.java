@@ -29,9 +29,23 @@ public class CapabilitiesQMP implements Command {
     private static final String INSTRUCTION = "qmp_capabilities";
 
     /**
-     * A private empty constructor. The instruction is predefined.
+     * The instruction of the command that also enables the out-of-band
+     * execution of commands.
      */
-    private CapabilitiesQMP() {
+    private static final String OUT_OF_BAND_INSTRUCTION = INSTRUCTION + " {\"enable\":[\"oob\"]}";
+
+    /**
+     * Whether the out-of-band execution of commands is enabled.
+     */
+    private final boolean outOfBand;
+
+    /**
+     * A private constructor. The instruction is predefined.
+     *
+     * @param theOutOfBand true to enable the out-of-band execution.
+     */
+    private CapabilitiesQMP(boolean theOutOfBand) {
+        outOfBand = theOutOfBand;
     }
 
     /**
@@ -40,7 +54,29 @@ public class CapabilitiesQMP implements Command {
      * @return the built command.
      */
     public static Command create() {
-        return new CapabilitiesQMP();
+        return new CapabilitiesQMP(false);
+    }
+
+    /**
+     * It builds a command to request capabilities to the QEMU, optionally
+     * enabling the out-of-band execution of commands. It should only be
+     * enabled if the QEMU advertised the «oob» capability in its greeting.
+     *
+     * @param outOfBand true to enable the out-of-band execution.
+     * @return the built command.
+     */
+    public static Command create(boolean outOfBand) {
+        return new CapabilitiesQMP(outOfBand);
+    }
+
+    /**
+     * An indicator of whether the command enables the out-of-band execution
+     * of commands.
+     *
+     * @return the {@link CapabilitiesQMP#outOfBand}.
+     */
+    public boolean outOfBand() {
+        return outOfBand;
     }
 
     /**
@@ -50,7 +86,7 @@ public class CapabilitiesQMP implements Command {
      */
     @Override
     public String instruction() {
-        return INSTRUCTION;
+        return outOfBand ? OUT_OF_BAND_INSTRUCTION : INSTRUCTION;
     }
 
     /**
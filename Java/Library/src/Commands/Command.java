@@ -18,6 +18,20 @@ package Commands;
  */
 public interface Command {
 
+    /**
+     * The lanes in which a command may be sent. Commands of a higher lane
+     * overtake the waiting commands of the lower ones, while the
+     * {@link Priority#OUT_OF_BAND} ones are sent with QMP «exec-oob» right
+     * away, even while another command is still being executed, if the QEMU
+     * supports it. Only a few QEMU commands, such as «migrate-pause» or
+     * «migrate-recover», may be executed out of band.
+     */
+    enum Priority {
+        NORMAL,
+        HIGH,
+        OUT_OF_BAND
+    }
+
     /**
      * It provides the instruction of the command.
      * 
@@ -25,4 +39,14 @@ public interface Command {
      */
     String instruction();
 
+    /**
+     * It provides the lane in which the command is sent.
+     *
+     * @return the priority of the command, which is
+     * {@link Priority#NORMAL} unless overridden.
+     */
+    default Priority priority() {
+        return Priority.NORMAL;
+    }
+
 }
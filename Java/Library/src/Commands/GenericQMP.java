@@ -24,12 +24,19 @@ public class GenericQMP implements Command {
      */
     private final String instruction;
 
+    /**
+     * The lane in which the command is sent.
+     */
+    private final Priority priority;
+
     /**
      * A private empty constructor. The instruction is as given. Despite no
-     * validation is made, the instruction should not be null.
+     * validation is made, the instruction and the priority should not be
+     * null.
      */
-    private GenericQMP(String theInstruction) {
+    private GenericQMP(String theInstruction, Priority thePriority) {
         instruction = theInstruction;
+        priority = thePriority;
     }
 
     /**
@@ -40,7 +47,20 @@ public class GenericQMP implements Command {
      * @return the built command.
      */
     public static Command create(String instruction) {
-        return new GenericQMP(instruction);
+        return new GenericQMP(instruction, Priority.NORMAL);
+    }
+
+    /**
+     * It builds a command with a given instruction to be sent in a given
+     * lane. A null priority is deemed {@link Command.Priority#NORMAL}.
+     * Despite no validation is made, the instruction should not be null.
+     *
+     * @param instruction the instruction from the command to be executed.
+     * @param priority the lane in which the command is sent.
+     * @return the built command.
+     */
+    public static Command create(String instruction, Priority priority) {
+        return new GenericQMP(instruction, priority == null ? Priority.NORMAL : priority);
     }
 
     /**
@@ -53,6 +73,16 @@ public class GenericQMP implements Command {
         return instruction;
     }
 
+    /**
+     * It provides the lane in which the command is sent.
+     *
+     * @return the {@link GenericQMP#priority}.
+     */
+    @Override
+    public Priority priority() {
+        return priority;
+    }
+
     /**
      * The textual representation of the command.
      *
@@ -0,0 +1,74 @@
+/*
+ *                      QEMU INSTANCES MANAGER LIBRARY
+ *                                Java Version
+ * 
+ * PRODUCT OWNER: Research Centre in Real-Time & Embedded Computing Systems
+ * PROJECT MANAGER: Luís Pinho and Cláudio Maia {lmn,clrrm}@isep.ipp.pt
+ * DEVELOPER: Manuel Meireles ( mjcdm@isep.ipp.pt )
+ * DATE: 24/11/2017
+ * SCOPE: CISTER Summer Internship 2017
+ * VERSION: 1.0
+ */
+package Commands;
+
+/**
+ * A command to request the QEMU to cancel its ongoing migration. The guest
+ * keeps running on the source.
+ *
+ * @see Command
+ * @author Manuel Meireles ( mjcdm@isep.ipp.pt )
+ */
+public class MigrateCancelQMP implements Command {
+
+    /**
+     * The instruction of the command.
+     */
+    private static final String INSTRUCTION = "migrate_cancel";
+
+    /**
+     * A private empty constructor. The instruction is predefined.
+     */
+    private MigrateCancelQMP() {
+    }
+
+    /**
+     * It builds a command to request the QEMU to cancel its migration.
+     *
+     * @return the built command.
+     */
+    public static Command create() {
+        return new MigrateCancelQMP();
+    }
+
+    /**
+     * A textual representation of the instruction.
+     *
+     * @return the instruction as text.
+     */
+    @Override
+    public String instruction() {
+        return INSTRUCTION;
+    }
+
+    /**
+     * It provides the lane in which the command is sent. It is time-critical,
+     * so it overtakes the waiting commands.
+     *
+     * @return {@link Command.Priority#HIGH}.
+     */
+    @Override
+    public Priority priority() {
+        return Priority.HIGH;
+    }
+
+    /**
+     * The textual representation of the command.
+     *
+     * @return the {@link MigrateCancelQMP#instruction()} result.
+     */
+    @Override
+    public String toString() {
+        return instruction();
+    }
+
+}
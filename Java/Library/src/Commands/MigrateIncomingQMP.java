@@ -0,0 +1,73 @@
+/*
+ *                      QEMU INSTANCES MANAGER LIBRARY
+ *                                Java Version
+ * 
+ * PRODUCT OWNER: Research Centre in Real-Time & Embedded Computing Systems
+ * PROJECT MANAGER: Luís Pinho and Cláudio Maia {lmn,clrrm}@isep.ipp.pt
+ * DEVELOPER: Manuel Meireles ( mjcdm@isep.ipp.pt )
+ * DATE: 24/11/2017
+ * SCOPE: CISTER Summer Internship 2017
+ * VERSION: 1.0
+ */
+package Commands;
+
+/**
+ * A command to request a QEMU started with «-incoming defer» to start
+ * listening for the migration of a guest.
+ *
+ * @see Command
+ * @author Manuel Meireles ( mjcdm@isep.ipp.pt )
+ */
+public class MigrateIncomingQMP implements Command {
+
+    /**
+     * The name of the command.
+     */
+    private static final String NAME = "migrate-incoming";
+
+    /**
+     * The instruction of the command, i.e. its name followed by its arguments.
+     */
+    private final String instruction;
+
+    /**
+     * A private constructor that initializes the instruction.
+     *
+     * @param theUri the URI to listen on, e.g. «tcp:127.0.0.1:4444».
+     */
+    private MigrateIncomingQMP(String theUri) {
+        instruction = NAME + " {\"uri\":\"" + theUri + "\"}";
+    }
+
+    /**
+     * It builds a command to request the QEMU to listen for a migration.
+     * Despite no validation is made, the URI should not be null.
+     *
+     * @param uri the URI to listen on, e.g. «tcp:127.0.0.1:4444».
+     * @return the built command.
+     */
+    public static Command create(String uri) {
+        return new MigrateIncomingQMP(uri);
+    }
+
+    /**
+     * A textual representation of the instruction.
+     *
+     * @return the instruction as text.
+     */
+    @Override
+    public String instruction() {
+        return instruction;
+    }
+
+    /**
+     * The textual representation of the command.
+     *
+     * @return the {@link MigrateIncomingQMP#instruction()} result.
+     */
+    @Override
+    public String toString() {
+        return instruction();
+    }
+
+}
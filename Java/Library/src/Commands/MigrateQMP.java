@@ -0,0 +1,73 @@
+/*
+ *                      QEMU INSTANCES MANAGER LIBRARY
+ *                                Java Version
+ * 
+ * PRODUCT OWNER: Research Centre in Real-Time & Embedded Computing Systems
+ * PROJECT MANAGER: Luís Pinho and Cláudio Maia {lmn,clrrm}@isep.ipp.pt
+ * DEVELOPER: Manuel Meireles ( mjcdm@isep.ipp.pt )
+ * DATE: 24/11/2017
+ * SCOPE: CISTER Summer Internship 2017
+ * VERSION: 1.0
+ */
+package Commands;
+
+/**
+ * A command to request the QEMU to migrate its guest to a destination QEMU
+ * that is waiting for it, e.g. one started with «-incoming».
+ *
+ * @see Command
+ * @author Manuel Meireles ( mjcdm@isep.ipp.pt )
+ */
+public class MigrateQMP implements Command {
+
+    /**
+     * The name of the command.
+     */
+    private static final String NAME = "migrate";
+
+    /**
+     * The instruction of the command, i.e. its name followed by its arguments.
+     */
+    private final String instruction;
+
+    /**
+     * A private constructor that initializes the instruction.
+     *
+     * @param theUri the URI of the destination, e.g. «tcp:127.0.0.1:4444».
+     */
+    private MigrateQMP(String theUri) {
+        instruction = NAME + " {\"uri\":\"" + theUri + "\"}";
+    }
+
+    /**
+     * It builds a command to request the QEMU to migrate its guest. Despite
+     * no validation is made, the URI should not be null.
+     *
+     * @param uri the URI of the destination, e.g. «tcp:127.0.0.1:4444».
+     * @return the built command.
+     */
+    public static Command create(String uri) {
+        return new MigrateQMP(uri);
+    }
+
+    /**
+     * A textual representation of the instruction.
+     *
+     * @return the instruction as text.
+     */
+    @Override
+    public String instruction() {
+        return instruction;
+    }
+
+    /**
+     * The textual representation of the command.
+     *
+     * @return the {@link MigrateQMP#instruction()} result.
+     */
+    @Override
+    public String toString() {
+        return instruction();
+    }
+
+}
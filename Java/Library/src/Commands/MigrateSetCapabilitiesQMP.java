@@ -0,0 +1,78 @@
+/*
+ *                      QEMU INSTANCES MANAGER LIBRARY
+ *                                Java Version
+ * 
+ * PRODUCT OWNER: Research Centre in Real-Time & Embedded Computing Systems
+ * PROJECT MANAGER: Luís Pinho and Cláudio Maia {lmn,clrrm}@isep.ipp.pt
+ * DEVELOPER: Manuel Meireles ( mjcdm@isep.ipp.pt )
+ * DATE: 24/11/2017
+ * SCOPE: CISTER Summer Internship 2017
+ * VERSION: 1.0
+ */
+package Commands;
+
+/**
+ * A command to request the QEMU to enable or disable the migration
+ * capabilities the manager tunes: the multiple file descriptors transfer
+ * («multifd») and the postcopy of the memory («postcopy-ram»). They must be
+ * set alike on both sides before the migration starts.
+ *
+ * @see Command
+ * @author Manuel Meireles ( mjcdm@isep.ipp.pt )
+ */
+public class MigrateSetCapabilitiesQMP implements Command {
+
+    /**
+     * The name of the command.
+     */
+    private static final String NAME = "migrate-set-capabilities";
+
+    /**
+     * The instruction of the command, i.e. its name followed by its arguments.
+     */
+    private final String instruction;
+
+    /**
+     * A private constructor that initializes the instruction.
+     *
+     * @param theMultifd true to enable the multiple channels transfer.
+     * @param thePostcopy true to allow the switch to postcopy.
+     */
+    private MigrateSetCapabilitiesQMP(boolean theMultifd, boolean thePostcopy) {
+        instruction = NAME + " {\"capabilities\":[{\"capability\":\"multifd\",\"state\":" + theMultifd
+                + "},{\"capability\":\"postcopy-ram\",\"state\":" + thePostcopy + "}]}";
+    }
+
+    /**
+     * It builds a command to request the QEMU to set the migration
+     * capabilities.
+     *
+     * @param multifd true to enable the multiple channels transfer.
+     * @param postcopy true to allow the switch to postcopy.
+     * @return the built command.
+     */
+    public static Command create(boolean multifd, boolean postcopy) {
+        return new MigrateSetCapabilitiesQMP(multifd, postcopy);
+    }
+
+    /**
+     * A textual representation of the instruction.
+     *
+     * @return the instruction as text.
+     */
+    @Override
+    public String instruction() {
+        return instruction;
+    }
+
+    /**
+     * The textual representation of the command.
+     *
+     * @return the {@link MigrateSetCapabilitiesQMP#instruction()} result.
+     */
+    @Override
+    public String toString() {
+        return instruction();
+    }
+
+}
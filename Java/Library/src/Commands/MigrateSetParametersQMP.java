@@ -0,0 +1,97 @@
+/*
+ *                      QEMU INSTANCES MANAGER LIBRARY
+ *                                Java Version
+ * 
+ * PRODUCT OWNER: Research Centre in Real-Time & Embedded Computing Systems
+ * PROJECT MANAGER: Luís Pinho and Cláudio Maia {lmn,clrrm}@isep.ipp.pt
+ * DEVELOPER: Manuel Meireles ( mjcdm@isep.ipp.pt )
+ * DATE: 24/11/2017
+ * SCOPE: CISTER Summer Internship 2017
+ * VERSION: 1.0
+ */
+package Commands;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A command to request the QEMU to set the migration parameters the manager
+ * tunes: the maximum bandwidth, the maximum downtime of the guest and the
+ * number of multiple file descriptors channels. Parameters that are not
+ * positive are left unchanged.
+ *
+ * @see Command
+ * @author Manuel Meireles ( mjcdm@isep.ipp.pt )
+ */
+public class MigrateSetParametersQMP implements Command {
+
+    /**
+     * The name of the command.
+     */
+    private static final String NAME = "migrate-set-parameters";
+
+    /**
+     * The number of bytes in a MiB.
+     */
+    private static final long BYTES_PER_MIB = 1024 * 1024;
+
+    /**
+     * The instruction of the command, i.e. its name followed by its arguments.
+     */
+    private final String instruction;
+
+    /**
+     * A private constructor that initializes the instruction.
+     *
+     * @param theBandwidth the maximum bandwidth in MiB per second.
+     * @param theDowntimeLimit the maximum downtime in milliseconds.
+     * @param theChannels the number of multiple file descriptors channels.
+     */
+    private MigrateSetParametersQMP(long theBandwidth, long theDowntimeLimit, int theChannels) {
+        List<String> arguments = new ArrayList<>();
+        if (theBandwidth > 0) {
+            arguments.add("\"max-bandwidth\":" + theBandwidth * BYTES_PER_MIB);
+        }
+        if (theDowntimeLimit > 0) {
+            arguments.add("\"downtime-limit\":" + theDowntimeLimit);
+        }
+        if (theChannels > 0) {
+            arguments.add("\"multifd-channels\":" + theChannels);
+        }
+        instruction = NAME + " {" + String.join(",", arguments) + "}";
+    }
+
+    /**
+     * It builds a command to request the QEMU to set the migration
+     * parameters. Parameters that are not positive are left unchanged.
+     *
+     * @param bandwidth the maximum bandwidth in MiB per second.
+     * @param downtimeLimit the maximum downtime of the guest in milliseconds.
+     * @param channels the number of multiple file descriptors channels.
+     * @return the built command.
+     */
+    public static Command create(long bandwidth, long downtimeLimit, int channels) {
+        return new MigrateSetParametersQMP(bandwidth, downtimeLimit, channels);
+    }
+
+    /**
+     * A textual representation of the instruction.
+     *
+     * @return the instruction as text.
+     */
+    @Override
+    public String instruction() {
+        return instruction;
+    }
+
+    /**
+     * The textual representation of the command.
+     *
+     * @return the {@link MigrateSetParametersQMP#instruction()} result.
+     */
+    @Override
+    public String toString() {
+        return instruction();
+    }
+
+}
@@ -0,0 +1,74 @@
+/*
+ *                      QEMU INSTANCES MANAGER LIBRARY
+ *                                Java Version
+ * 
+ * PRODUCT OWNER: Research Centre in Real-Time & Embedded Computing Systems
+ * PROJECT MANAGER: Luís Pinho and Cláudio Maia {lmn,clrrm}@isep.ipp.pt
+ * DEVELOPER: Manuel Meireles ( mjcdm@isep.ipp.pt )
+ * DATE: 24/11/2017
+ * SCOPE: CISTER Summer Internship 2017
+ * VERSION: 1.0
+ */
+package Commands;
+
+/**
+ * A command to request the QEMU to power down the guest, as if its power
+ * button was pressed. Unlike the {@link ShutdownQMP}, the guest operating
+ * system is given the chance to shut down cleanly (or to ignore it).
+ *
+ * @see Command
+ * @author Manuel Meireles ( mjcdm@isep.ipp.pt )
+ */
+public class PowerdownQMP implements Command {
+
+    /**
+     * The instruction of the command.
+     */
+    private static final String INSTRUCTION = "system_powerdown";
+
+    /**
+     * A private empty constructor. The instruction is predefined.
+     */
+    private PowerdownQMP(){}
+
+    /**
+     * It builds a command to request QEMU to power down the guest.
+     *
+     * @return the built command.
+     */
+    public static Command create(){
+        return new PowerdownQMP();
+    }
+
+    /**
+     * A textual representation of the instruction.
+     *
+     * @return the instruction as text.
+     */
+    @Override
+    public String instruction() {
+        return INSTRUCTION;
+    }
+
+    /**
+     * It provides the lane in which the command is sent. It is time-critical,
+     * so it overtakes the waiting commands.
+     *
+     * @return {@link Command.Priority#HIGH}.
+     */
+    @Override
+    public Priority priority() {
+        return Priority.HIGH;
+    }
+
+    /**
+     * The textual representation of the command.
+     *
+     * @return the {@link PowerdownQMP#instruction()} result.
+     */
+    @Override
+    public String toString(){
+        return instruction();
+    }
+
+}
@@ -0,0 +1,77 @@
+/*
+ *                      QEMU INSTANCES MANAGER LIBRARY
+ *                                Java Version
+ * 
+ * PRODUCT OWNER: Research Centre in Real-Time & Embedded Computing Systems
+ * PROJECT MANAGER: Luís Pinho and Cláudio Maia {lmn,clrrm}@isep.ipp.pt
+ * DEVELOPER: Manuel Meireles ( mjcdm@isep.ipp.pt )
+ * DATE: 24/11/2017
+ * SCOPE: CISTER Summer Internship 2017
+ * VERSION: 1.0
+ */
+package Commands;
+
+/**
+ * A command to request the QEMU the value of a property of an object of its
+ * object model, e.g. the «guest-stats» of a balloon device.
+ *
+ * @see Command
+ * @author Manuel Meireles ( mjcdm@isep.ipp.pt )
+ */
+public class QomGetQMP implements Command {
+
+    /**
+     * The name of the command.
+     */
+    private static final String NAME = "qom-get";
+
+    /**
+     * The instruction of the command, i.e. its name followed by its arguments.
+     */
+    private final String instruction;
+
+    /**
+     * A private constructor that initializes the instruction.
+     *
+     * @param thePath the path of the object.
+     * @param theProperty the name of the property.
+     */
+    private QomGetQMP(String thePath, String theProperty) {
+        instruction = NAME + " {\"path\":\"" + thePath + "\",\"property\":\"" + theProperty + "\"}";
+    }
+
+    /**
+     * It builds a command to request the QEMU the value of a property.
+     * Despite no validations are made, neither the path nor the property
+     * should hold quotes.
+     *
+     * @param path the path of the object, e.g.
+     * «/machine/peripheral/balloon0».
+     * @param property the name of the property.
+     * @return the built command.
+     */
+    public static Command create(String path, String property) {
+        return new QomGetQMP(path, property);
+    }
+
+    /**
+     * A textual representation of the instruction.
+     *
+     * @return the instruction as text.
+     */
+    @Override
+    public String instruction() {
+        return instruction;
+    }
+
+    /**
+     * The textual representation of the command.
+     *
+     * @return the {@link QomGetQMP#instruction()} result.
+     */
+    @Override
+    public String toString() {
+        return instruction();
+    }
+
+}
@@ -0,0 +1,80 @@
+/*
+ *                      QEMU INSTANCES MANAGER LIBRARY
+ *                                Java Version
+ * 
+ * PRODUCT OWNER: Research Centre in Real-Time & Embedded Computing Systems
+ * PROJECT MANAGER: Luís Pinho and Cláudio Maia {lmn,clrrm}@isep.ipp.pt
+ * DEVELOPER: Manuel Meireles ( mjcdm@isep.ipp.pt )
+ * DATE: 24/11/2017
+ * SCOPE: CISTER Summer Internship 2017
+ * VERSION: 1.0
+ */
+package Commands;
+
+/**
+ * A command to request the QEMU to set a numeric property of an object of
+ * its object model, e.g. the «guest-stats-polling-interval» of a balloon
+ * device.
+ *
+ * @see Command
+ * @author Manuel Meireles ( mjcdm@isep.ipp.pt )
+ */
+public class QomSetQMP implements Command {
+
+    /**
+     * The name of the command.
+     */
+    private static final String NAME = "qom-set";
+
+    /**
+     * The instruction of the command, i.e. its name followed by its arguments.
+     */
+    private final String instruction;
+
+    /**
+     * A private constructor that initializes the instruction.
+     *
+     * @param thePath the path of the object.
+     * @param theProperty the name of the property.
+     * @param theValue the value of the property.
+     */
+    private QomSetQMP(String thePath, String theProperty, long theValue) {
+        instruction = NAME + " {\"path\":\"" + thePath + "\",\"property\":\"" + theProperty
+                + "\",\"value\":" + theValue + "}";
+    }
+
+    /**
+     * It builds a command to request the QEMU to set a numeric property.
+     * Despite no validations are made, neither the path nor the property
+     * should hold quotes.
+     *
+     * @param path the path of the object.
+     * @param property the name of the property.
+     * @param value the value of the property.
+     * @return the built command.
+     */
+    public static Command create(String path, String property, long value) {
+        return new QomSetQMP(path, property, value);
+    }
+
+    /**
+     * A textual representation of the instruction.
+     *
+     * @return the instruction as text.
+     */
+    @Override
+    public String instruction() {
+        return instruction;
+    }
+
+    /**
+     * The textual representation of the command.
+     *
+     * @return the {@link QomSetQMP#instruction()} result.
+     */
+    @Override
+    public String toString() {
+        return instruction();
+    }
+
+}
@@ -0,0 +1,85 @@
+/*
+ *                      QEMU INSTANCES MANAGER LIBRARY
+ *                                Java Version
+ * 
+ * PRODUCT OWNER: Research Centre in Real-Time & Embedded Computing Systems
+ * PROJECT MANAGER: Luís Pinho and Cláudio Maia {lmn,clrrm}@isep.ipp.pt
+ * DEVELOPER: Manuel Meireles ( mjcdm@isep.ipp.pt )
+ * DATE: 24/11/2017
+ * SCOPE: CISTER Summer Internship 2017
+ * VERSION: 1.0
+ */
+package Commands;
+
+/**
+ * A command to request the QEMU the statistics of its accelerator, e.g. the
+ * KVM statistics of the whole virtual machine or of each of its virtual
+ * CPUs, available since QEMU 7.1.
+ *
+ * @see Command
+ * @author Manuel Meireles ( mjcdm@isep.ipp.pt )
+ */
+public class QueryStatsQMP implements Command {
+
+    /**
+     * The name of the command.
+     */
+    private static final String NAME = "query-stats";
+
+    /**
+     * The target of the statistics of the whole virtual machine.
+     */
+    public static final String VM = "vm";
+
+    /**
+     * The target of the statistics of each virtual CPU.
+     */
+    public static final String VCPU = "vcpu";
+
+    /**
+     * The instruction of the command, i.e. its name followed by its arguments.
+     */
+    private final String instruction;
+
+    /**
+     * A private constructor that initializes the instruction.
+     *
+     * @param theTarget the target of the statistics.
+     */
+    private QueryStatsQMP(String theTarget) {
+        instruction = NAME + " {\"target\":\"" + theTarget + "\"}";
+    }
+
+    /**
+     * It builds a command to request the QEMU the statistics of a target.
+     * Despite no validation is made, the target should be
+     * {@link QueryStatsQMP#VM} or {@link QueryStatsQMP#VCPU}.
+     *
+     * @param target the target of the statistics.
+     * @return the built command.
+     */
+    public static Command create(String target) {
+        return new QueryStatsQMP(target);
+    }
+
+    /**
+     * A textual representation of the instruction.
+     *
+     * @return the instruction as text.
+     */
+    @Override
+    public String instruction() {
+        return instruction;
+    }
+
+    /**
+     * The textual representation of the command.
+     *
+     * @return the {@link QueryStatsQMP#instruction()} result.
+     */
+    @Override
+    public String toString() {
+        return instruction();
+    }
+
+}
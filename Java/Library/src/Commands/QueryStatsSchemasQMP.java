@@ -0,0 +1,66 @@
+/*
+ *                      QEMU INSTANCES MANAGER LIBRARY
+ *                                Java Version
+ * 
+ * PRODUCT OWNER: Research Centre in Real-Time & Embedded Computing Systems
+ * PROJECT MANAGER: Luís Pinho and Cláudio Maia {lmn,clrrm}@isep.ipp.pt
+ * DEVELOPER: Manuel Meireles ( mjcdm@isep.ipp.pt )
+ * DATE: 24/11/2017
+ * SCOPE: CISTER Summer Internship 2017
+ * VERSION: 1.0
+ */
+package Commands;
+
+/**
+ * A command to request the QEMU the schemas of the statistics of its
+ * accelerator, i.e. the name, the type (cumulative, instant, peak or
+ * histogram) and the unit of each statistic returned by «query-stats».
+ *
+ * @see Command
+ * @see QueryStatsQMP
+ * @author Manuel Meireles ( mjcdm@isep.ipp.pt )
+ */
+public class QueryStatsSchemasQMP implements Command {
+
+    /**
+     * The instruction of the command.
+     */
+    private static final String INSTRUCTION = "query-stats-schemas";
+
+    /**
+     * A private empty constructor. The instruction is predefined.
+     */
+    private QueryStatsSchemasQMP() {
+    }
+
+    /**
+     * It builds a command to request the QEMU the schemas of the statistics
+     * of every provider.
+     *
+     * @return the built command.
+     */
+    public static Command create() {
+        return new QueryStatsSchemasQMP();
+    }
+
+    /**
+     * A textual representation of the instruction.
+     *
+     * @return the instruction as text.
+     */
+    @Override
+    public String instruction() {
+        return INSTRUCTION;
+    }
+
+    /**
+     * The textual representation of the command.
+     *
+     * @return the {@link QueryStatsSchemasQMP#instruction()} result.
+     */
+    @Override
+    public String toString() {
+        return instruction();
+    }
+
+}
@@ -48,6 +48,17 @@ public class ShutdownQMP implements Command {
         return INSTRUCTION;
     }
 
+    /**
+     * It provides the lane in which the command is sent. It is time-critical,
+     * so it overtakes the waiting commands.
+     *
+     * @return {@link Command.Priority#HIGH}.
+     */
+    @Override
+    public Priority priority() {
+        return Priority.HIGH;
+    }
+
     /**
      * The textual representation of the command.
      *
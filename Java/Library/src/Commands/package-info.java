@@ -13,8 +13,19 @@
  * {@link Instances.QemuInstance} stop its execution;</li>
  * <li>{@link Commands.ShutdownQMP}: it sends a command to the
  * {@link Instances.QemuInstance} shutdown;</li>
+ * <li>{@link Commands.PowerdownQMP}: it sends a command to the
+ * {@link Instances.QemuInstance} power down its guest;</li>
  * <li>{@link Commands.GenericQMP}: it sends any command to the
  * {@link Instances.QemuInstance};</li>
+ * <li>{@link Commands.MigrateSetCapabilitiesQMP},
+ * {@link Commands.MigrateSetParametersQMP},
+ * {@link Commands.MigrateIncomingQMP}, {@link Commands.MigrateQMP},
+ * {@link Commands.QueryMigrateQMP}, {@link Commands.MigrateStartPostcopyQMP}
+ * and {@link Commands.MigrateCancelQMP}: they drive the live migration of a
+ * {@link Instances.QemuInstance};</li>
+ * <li>{@link Commands.QueryStatsQMP}, {@link Commands.QueryStatsSchemasQMP},
+ * {@link Commands.QomGetQMP} and {@link Commands.QomSetQMP}: they poll the
+ * statistics of the guest of a {@link Instances.QemuInstance};</li>
  * <li>{@link Commands.BuildQemuInstance}: it sends a command to the
  * {@link Instances.QemuInstance} class in order for it to provide a new
  * instance;</li>
@@ -25,8 +25,11 @@ public class Fail implements ExecutionResult {
      * The possible reasons of a devious execution of a command.
      */
     public enum Reason {
+        CIRCUIT_OPEN,
         FILE_UNAVAILABLE,
+        INSUFFICIENT_CAPACITY,
         IO_EXCEPTION,
+        MAILBOX_FULL,
         NULL_ARGUMENT,
         QEMU_INSTANCE_IS_OFF,
         UNKNOWN_ID,
@@ -103,6 +106,15 @@ public class Fail implements ExecutionResult {
         return builder.toString();
     }
 
+    /**
+     * A getter of the reason of the failure.
+     *
+     * @return the {@link Fail#reason}.
+     */
+    public Reason reason() {
+        return reason;
+    }
+
     /**
      * An indicator to assess if the result was successful or not. The failure
      * is always false.
@@ -0,0 +1,233 @@
+/*
+ *                      QEMU INSTANCES MANAGER LIBRARY
+ *                                Java Version
+ * 
+ * PRODUCT OWNER: Research Centre in Real-Time & Embedded Computing Systems
+ * PROJECT MANAGER: Luís Pinho and Cláudio Maia {lmn,clrrm}@isep.ipp.pt
+ * DEVELOPER: Manuel Meireles ( mjcdm@isep.ipp.pt )
+ * DATE: 24/11/2017
+ * SCOPE: CISTER Summer Internship 2017
+ * VERSION: 1.0
+ */
+package Communications;
+
+/**
+ * An execution result that holds the statistics of the guest of an instance
+ * collected through the QMP: a time series, oldest first, of the KVM
+ * statistics of the virtual machine («vm.») and of its virtual CPUs, summed
+ * across them («vcpu.»), and of the memory statistics reported by the
+ * balloon driver of the guest («balloon.»). Each metric has a {@link Kind},
+ * which tells how to read it and how it is downsampled. A metric that was
+ * not collected in a sample is -1.
+ *
+ * @see ExecutionResult
+ * @author Manuel Meireles ( mjcdm@isep.ipp.pt )
+ */
+public class GuestStats implements ExecutionResult {
+
+    /**
+     * The kinds of metrics: a counter that only grows, a gauge of the current
+     * value and the highest value seen so far.
+     */
+    public enum Kind {
+        CUMULATIVE,
+        INSTANT,
+        PEAK
+    }
+
+    /**
+     * The name of each metric.
+     */
+    private final String[] names;
+
+    /**
+     * The kind of each metric.
+     */
+    private final Kind[] kinds;
+
+    /**
+     * The time, in milliseconds since the epoch, of each sample.
+     */
+    private final long[] times;
+
+    /**
+     * The values of each metric, in the order of the names, of each sample.
+     */
+    private final long[][] values;
+
+    /**
+     * A private constructor that initializes the series. Despite no
+     * validations are made, there should be as many kinds and series of values
+     * as names and as many values in each series as times.
+     *
+     * @param theNames the name of each metric.
+     * @param theKinds the kind of each metric.
+     * @param theTimes the time of each sample.
+     * @param theValues the values of each metric of each sample.
+     */
+    private GuestStats(String[] theNames, Kind[] theKinds, long[] theTimes, long[][] theValues) {
+        names = theNames;
+        kinds = theKinds;
+        times = theTimes;
+        values = theValues;
+    }
+
+    /**
+     * It builds a GuestStats execution result. Despite no validations are
+     * made, there should be as many kinds and series of values as names, as
+     * many values in each series as times and the arrays should not be changed
+     * afterwards.
+     *
+     * @param names the name of each metric.
+     * @param kinds the kind of each metric.
+     * @param times the time, in milliseconds since the epoch, of each sample,
+     * oldest first.
+     * @param values the values of each metric, in the order of the names, of
+     * each sample.
+     * @return the built GuestStats.
+     */
+    public static GuestStats create(String[] names, Kind[] kinds, long[] times, long[][] values) {
+        return new GuestStats(names, kinds, times, values);
+    }
+
+    /**
+     * A getter of the number of samples.
+     *
+     * @return the number of samples.
+     */
+    public int size() {
+        return times.length;
+    }
+
+    /**
+     * A getter of the names of the metrics.
+     *
+     * @return the {@link GuestStats#names}.
+     */
+    public String[] names() {
+        return names.clone();
+    }
+
+    /**
+     * A getter of the time of each sample.
+     *
+     * @return the {@link GuestStats#times} in milliseconds since the epoch.
+     */
+    public long[] times() {
+        return times.clone();
+    }
+
+    /**
+     * It provides the kind of a metric.
+     *
+     * @param name the name of the metric.
+     * @return the kind of the metric or null if there is no such metric.
+     */
+    public Kind kind(String name) {
+        int index = indexOf(name);
+        return index < 0 ? null : kinds[index];
+    }
+
+    /**
+     * It provides the values of a metric.
+     *
+     * @param name the name of the metric.
+     * @return the values of the metric of each sample, oldest first, or an
+     * empty array if there is no such metric.
+     */
+    public long[] values(String name) {
+        int index = indexOf(name);
+        return index < 0 ? new long[0] : values[index].clone();
+    }
+
+    /**
+     * It provides the last value of a metric.
+     *
+     * @param name the name of the metric.
+     * @return the value of the last sample or -1 if there is none.
+     */
+    public long latest(String name) {
+        int index = indexOf(name);
+        return index < 0 || times.length == 0 ? -1 : values[index][times.length - 1];
+    }
+
+    /**
+     * It provides the rate of a cumulative metric over the samples.
+     *
+     * @param name the name of the cumulative metric, e.g. «vcpu.exits».
+     * @return the increase per second between the first and the last samples
+     * or zero if they are not enough or the metric was not collected.
+     */
+    public double rate(String name) {
+        int index = indexOf(name);
+        int last = times.length - 1;
+        if (index < 0 || last < 1 || times[last] == times[0]) {
+            return 0;
+        }
+        long[] series = values[index];
+        if (series[0] < 0 || series[last] < 0) {
+            return 0;
+        }
+        return (series[last] - series[0]) * 1000.0 / (times[last] - times[0]);
+    }
+
+    /**
+     * It provides the index of a metric.
+     *
+     * @param name the name of the metric.
+     * @return the index of the metric or -1 if there is no such metric.
+     */
+    private int indexOf(String name) {
+        for (int index = 0; index < names.length; index++) {
+            if (names[index].equals(name)) {
+                return index;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * A textual representation of the result.
+     *
+     * @return the window followed by a line per metric with its last value
+     * and, if cumulative, its rate.
+     */
+    @Override
+    public String description() {
+        if (times.length == 0) {
+            return "No samples yet.";
+        }
+        StringBuilder builder = new StringBuilder();
+        builder.append(String.format("%d samples of %d metrics over %.1f s", times.length, names.length,
+                (times[times.length - 1] - times[0]) / 1000.0));
+        for (int index = 0; index < names.length; index++) {
+            builder.append(System.lineSeparator());
+            builder.append(names[index]).append(": ").append(latest(names[index]));
+            if (kinds[index] == Kind.CUMULATIVE) {
+                builder.append(String.format(" (%.1f/s)", rate(names[index])));
+            }
+        }
+        return builder.toString();
+    }
+
+    /**
+     * An indicator to assess if the result was successful or not.
+     *
+     * @return true, since statistics are always successful.
+     */
+    @Override
+    public boolean wasSuccessful() {
+        return true;
+    }
+
+    /**
+     * The textual representation of the result.
+     *
+     * @return the {@link GuestStats#description()} result.
+     */
+    @Override
+    public String toString() {
+        return description();
+    }
+
+}
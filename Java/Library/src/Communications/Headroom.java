@@ -0,0 +1,188 @@
+/*
+ *                      QEMU INSTANCES MANAGER LIBRARY
+ *                                Java Version
+ * 
+ * PRODUCT OWNER: Research Centre in Real-Time & Embedded Computing Systems
+ * PROJECT MANAGER: Luís Pinho and Cláudio Maia {lmn,clrrm}@isep.ipp.pt
+ * DEVELOPER: Manuel Meireles ( mjcdm@isep.ipp.pt )
+ * DATE: 24/11/2017
+ * SCOPE: CISTER Summer Internship 2017
+ * VERSION: 1.0
+ */
+package Communications;
+
+/**
+ * An execution result that holds the capacity of the host that is still
+ * available to new instances, i.e. the difference between what the host may
+ * commit and what is already committed to the running instances.
+ *
+ * @see ExecutionResult
+ * @author Manuel Meireles ( mjcdm@isep.ipp.pt )
+ */
+public class Headroom implements ExecutionResult {
+
+    /**
+     * The guest memory, in MiB, that the host may commit.
+     */
+    private final long memoryCapacity;
+
+    /**
+     * The guest memory, in MiB, already committed to instances.
+     */
+    private final long memoryCommitted;
+
+    /**
+     * The number of virtual CPUs that the host may commit.
+     */
+    private final long cpuCapacity;
+
+    /**
+     * The number of virtual CPUs already committed to instances.
+     */
+    private final long cpuCommitted;
+
+    /**
+     * A private constructor that initializes the capacities and the committed
+     * amounts. Despite no validations are made, none of the values should be
+     * negative.
+     *
+     * @param theMemoryCapacity the guest memory the host may commit.
+     * @param theMemoryCommitted the guest memory already committed.
+     * @param theCpuCapacity the virtual CPUs the host may commit.
+     * @param theCpuCommitted the virtual CPUs already committed.
+     */
+    private Headroom(long theMemoryCapacity, long theMemoryCommitted, long theCpuCapacity, long theCpuCommitted) {
+        memoryCapacity = theMemoryCapacity;
+        memoryCommitted = theMemoryCommitted;
+        cpuCapacity = theCpuCapacity;
+        cpuCommitted = theCpuCommitted;
+    }
+
+    /**
+     * It builds a Headroom execution result from the capacities and the
+     * committed amounts. Despite no validations are made, none of the values
+     * should be negative.
+     *
+     * @param memoryCapacity the guest memory, in MiB, the host may commit.
+     * @param memoryCommitted the guest memory, in MiB, already committed.
+     * @param cpuCapacity the virtual CPUs the host may commit.
+     * @param cpuCommitted the virtual CPUs already committed.
+     * @return the built Headroom.
+     */
+    public static Headroom create(long memoryCapacity, long memoryCommitted, long cpuCapacity, long cpuCommitted) {
+        return new Headroom(memoryCapacity, memoryCommitted, cpuCapacity, cpuCommitted);
+    }
+
+    /**
+     * A getter of the guest memory that may still be committed.
+     *
+     * @return the free memory in MiB (negative if overcommitted).
+     */
+    public long memory() {
+        return memoryCapacity - memoryCommitted;
+    }
+
+    /**
+     * A getter of the virtual CPUs that may still be committed.
+     *
+     * @return the free virtual CPUs (negative if overcommitted).
+     */
+    public long cpus() {
+        return cpuCapacity - cpuCommitted;
+    }
+
+    /**
+     * A getter of the guest memory the host may hold.
+     *
+     * @return the {@link Headroom#memoryCapacity} in MiB.
+     */
+    public long memoryCapacity() {
+        return memoryCapacity;
+    }
+
+    /**
+     * A getter of the guest memory already committed.
+     *
+     * @return the {@link Headroom#memoryCommitted} in MiB.
+     */
+    public long memoryCommitted() {
+        return memoryCommitted;
+    }
+
+    /**
+     * A getter of the virtual CPUs the host may hold.
+     *
+     * @return the {@link Headroom#cpuCapacity}.
+     */
+    public long cpuCapacity() {
+        return cpuCapacity;
+    }
+
+    /**
+     * A getter of the virtual CPUs already committed.
+     *
+     * @return the {@link Headroom#cpuCommitted}.
+     */
+    public long cpuCommitted() {
+        return cpuCommitted;
+    }
+
+    /**
+     * It checks if the headroom is enough to hold a new instance.
+     *
+     * @param memory the guest memory, in MiB, of the new instance.
+     * @param cpus the virtual CPUs of the new instance.
+     * @return true if both the memory and the CPUs fit or false otherwise.
+     */
+    public boolean fits(long memory, long cpus) {
+        return memory <= memory() && cpus <= cpus();
+    }
+
+    /**
+     * A textual representation of the result.
+     *
+     * @return the free, committed and total memory and virtual CPUs.
+     */
+    @Override
+    public String description() {
+        StringBuilder builder = new StringBuilder();
+        builder.append("memory: ");
+        builder.append(memory());
+        builder.append(" MiB free (");
+        builder.append(memoryCommitted);
+        builder.append("/");
+        builder.append(memoryCapacity);
+        builder.append(" MiB committed)");
+        builder.append(System.lineSeparator());
+        builder.append("vcpus: ");
+        builder.append(cpus());
+        builder.append(" free (");
+        builder.append(cpuCommitted);
+        builder.append("/");
+        builder.append(cpuCapacity);
+        builder.append(" committed)");
+        return builder.toString();
+    }
+
+    /**
+     * An indicator to assess if the result was successful or not. The headroom
+     * is always obtainable.
+     *
+     * @return true.
+     */
+    @Override
+    public boolean wasSuccessful() {
+        return true;
+    }
+
+    /**
+     * The textual representation of the result.
+     *
+     * @return the {@link Headroom#description()} result.
+     */
+    @Override
+    public String toString() {
+        return description();
+    }
+
+}
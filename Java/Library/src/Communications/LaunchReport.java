@@ -0,0 +1,167 @@
+/*
+ *                      QEMU INSTANCES MANAGER LIBRARY
+ *                                Java Version
+ * 
+ * PRODUCT OWNER: Research Centre in Real-Time & Embedded Computing Systems
+ * PROJECT MANAGER: Luís Pinho and Cláudio Maia {lmn,clrrm}@isep.ipp.pt
+ * DEVELOPER: Manuel Meireles ( mjcdm@isep.ipp.pt )
+ * DATE: 24/11/2017
+ * SCOPE: CISTER Summer Internship 2017
+ * VERSION: 1.0
+ */
+package Communications;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * An execution result from a bulk launch of instances. It holds the result of
+ * each launch, in the order the specifications were given, along with the
+ * launch throughput and the time-to-ready percentiles.
+ *
+ * @see ExecutionResult
+ * @author Manuel Meireles ( mjcdm@isep.ipp.pt )
+ */
+public class LaunchReport implements ExecutionResult {
+
+    /**
+     * The number of nanoseconds in a millisecond.
+     */
+    private static final double NANOS_PER_MILLI = 1e6;
+
+    /**
+     * The number of nanoseconds in a second.
+     */
+    private static final double NANOS_PER_SECOND = 1e9;
+
+    /**
+     * The execution results of each launch.
+     */
+    private final List<ExecutionResult> results;
+
+    /**
+     * The time-to-ready, in nanoseconds, of each successful launch, sorted.
+     */
+    private final long[] readyTimes;
+
+    /**
+     * The time, in nanoseconds, the whole bulk launch took.
+     */
+    private final long elapsed;
+
+    /**
+     * A private constructor that initializes the results and the timings.
+     * Despite no validations are made, none of the parameters should be null.
+     *
+     * @param theResults the execution results of each launch.
+     * @param theReadyTimes the time-to-ready of the successful launches.
+     * @param theElapsed the time the whole bulk launch took.
+     */
+    private LaunchReport(List<ExecutionResult> theResults, long[] theReadyTimes, long theElapsed) {
+        results = theResults;
+        readyTimes = theReadyTimes.clone();
+        Arrays.sort(readyTimes);
+        elapsed = theElapsed;
+    }
+
+    /**
+     * It builds a LaunchReport from the results and the timings of a bulk
+     * launch. Despite no validations are made, none of the parameters should
+     * be null.
+     *
+     * @param results the execution results of each launch, in order.
+     * @param readyTimes the time-to-ready, in nanoseconds, of the successful
+     * launches.
+     * @param elapsed the time, in nanoseconds, the whole bulk launch took.
+     * @return the built LaunchReport.
+     */
+    public static LaunchReport create(List<ExecutionResult> results, long[] readyTimes, long elapsed) {
+        return new LaunchReport(results, readyTimes, elapsed);
+    }
+
+    /**
+     * A getter of the execution results of each launch.
+     *
+     * @return the {@link LaunchReport#results}.
+     */
+    public List<ExecutionResult> results() {
+        return results;
+    }
+
+    /**
+     * It provides the number of instances that were launched successfully.
+     *
+     * @return the number of successful launches.
+     */
+    public int launched() {
+        return readyTimes.length;
+    }
+
+    /**
+     * It provides the launch throughput.
+     *
+     * @return the successful launches per second.
+     */
+    public double throughput() {
+        if (elapsed <= 0) {
+            return 0;
+        }
+        return readyTimes.length * NANOS_PER_SECOND / elapsed;
+    }
+
+    /**
+     * It provides a percentile of the time-to-ready of the successful
+     * launches, using the nearest-rank method.
+     *
+     * @param percentile the percentile, between 0 and 100.
+     * @return the time-to-ready in milliseconds or zero if nothing was
+     * launched.
+     */
+    public double percentile(double percentile) {
+        if (readyTimes.length == 0) {
+            return 0;
+        }
+        int rank = (int) Math.ceil(percentile / 100 * readyTimes.length);
+        int index = Math.min(Math.max(rank - 1, 0), readyTimes.length - 1);
+        return readyTimes[index] / NANOS_PER_MILLI;
+    }
+
+    /**
+     * A textual representation of the result.
+     *
+     * @return the result of each launch followed by the launch statistics.
+     */
+    @Override
+    public String description() {
+        StringBuilder builder = new StringBuilder();
+        for (ExecutionResult result : results) {
+            builder.append(result);
+            builder.append(System.lineSeparator());
+        }
+        builder.append(String.format("launched %d/%d in %.1f ms | %.2f launches/s | p50 %.1f ms | p99 %.1f ms",
+                launched(), results.size(), elapsed / NANOS_PER_MILLI, throughput(), percentile(50), percentile(99)));
+        return builder.toString();
+    }
+
+    /**
+     * An indicator to assess if the result was successful or not. The bulk
+     * launch succeeds only if every instance was launched.
+     *
+     * @return true if all the launches succeeded or false otherwise.
+     */
+    @Override
+    public boolean wasSuccessful() {
+        return !results.isEmpty() && readyTimes.length == results.size();
+    }
+
+    /**
+     * The textual representation of the result.
+     *
+     * @return the {@link LaunchReport#description()} result.
+     */
+    @Override
+    public String toString() {
+        return description();
+    }
+
+}
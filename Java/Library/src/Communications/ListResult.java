@@ -80,6 +80,15 @@ public class ListResult<T> implements ExecutionResult {
         return builder.toString();
     }
 
+    /**
+     * A getter of the objects of the result.
+     *
+     * @return the {@link ListResult#list}.
+     */
+    public Collection<T> items() {
+        return list;
+    }
+
     /**
      * An indicator to assess if the result was successful or not.
      *
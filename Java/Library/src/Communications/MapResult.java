@@ -83,6 +83,15 @@ public class MapResult<K, V> implements ExecutionResult {
         return builder.toString();
     }
 
+    /**
+     * A getter of the map of objects from the result.
+     *
+     * @return the {@link MapResult#map}.
+     */
+    public Map<K, V> map() {
+        return map;
+    }
+
     /**
      * An indicator to assess if the result was successful or not.
      *
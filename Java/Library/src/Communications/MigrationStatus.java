@@ -0,0 +1,215 @@
+/*
+ *                      QEMU INSTANCES MANAGER LIBRARY
+ *                                Java Version
+ * 
+ * PRODUCT OWNER: Research Centre in Real-Time & Embedded Computing Systems
+ * PROJECT MANAGER: Luís Pinho and Cláudio Maia {lmn,clrrm}@isep.ipp.pt
+ * DEVELOPER: Manuel Meireles ( mjcdm@isep.ipp.pt )
+ * DATE: 24/11/2017
+ * SCOPE: CISTER Summer Internship 2017
+ * VERSION: 1.0
+ */
+package Communications;
+
+/**
+ * An execution result from a live migration. It is a snapshot of the
+ * progress reported by the QEMU through «query-migrate»: the status, the
+ * memory transferred and remaining, the rate at which the guest dirties its
+ * memory and the expected downtime at the switchover or, once completed, the
+ * actual one.
+ *
+ * @see ExecutionResult
+ * @author Manuel Meireles ( mjcdm@isep.ipp.pt )
+ */
+public class MigrationStatus implements ExecutionResult {
+
+    /**
+     * The status of a completed migration.
+     */
+    public static final String COMPLETED = "completed";
+
+    /**
+     * The status of a failed migration.
+     */
+    public static final String FAILED = "failed";
+
+    /**
+     * The status of a cancelled migration.
+     */
+    public static final String CANCELLED = "cancelled";
+
+    /**
+     * The number of bytes in a MiB.
+     */
+    private static final double BYTES_PER_MIB = 1024 * 1024;
+
+    /**
+     * The status of the migration as reported by the QEMU, e.g. «active»,
+     * «postcopy-active» or «completed».
+     */
+    private final String status;
+
+    /**
+     * The bytes of memory transferred so far.
+     */
+    private final long transferred;
+
+    /**
+     * The bytes of memory still to transfer.
+     */
+    private final long remaining;
+
+    /**
+     * The bytes of memory of the guest.
+     */
+    private final long total;
+
+    /**
+     * The pages dirtied by the guest per second, or -1 if unknown.
+     */
+    private final long dirtyRate;
+
+    /**
+     * The expected downtime, in milliseconds, while the migration is active or
+     * the actual one once completed, or -1 if unknown.
+     */
+    private final long downtime;
+
+    /**
+     * The time, in milliseconds, the migration has taken.
+     */
+    private final long elapsed;
+
+    /**
+     * A private constructor that initializes the snapshot. Despite no
+     * validation is made, the status should not be null.
+     *
+     * @param theStatus the status of the migration.
+     * @param theTransferred the bytes transferred.
+     * @param theRemaining the bytes still to transfer.
+     * @param theTotal the bytes of memory of the guest.
+     * @param theDirtyRate the pages dirtied per second.
+     * @param theDowntime the expected or actual downtime.
+     * @param theElapsed the time the migration has taken.
+     */
+    private MigrationStatus(String theStatus, long theTransferred, long theRemaining, long theTotal,
+            long theDirtyRate, long theDowntime, long theElapsed) {
+        status = theStatus;
+        transferred = theTransferred;
+        remaining = theRemaining;
+        total = theTotal;
+        dirtyRate = theDirtyRate;
+        downtime = theDowntime;
+        elapsed = theElapsed;
+    }
+
+    /**
+     * It builds a MigrationStatus execution result. Despite no validation is
+     * made, the status should not be null.
+     *
+     * @param status the status of the migration as reported by the QEMU.
+     * @param transferred the bytes of memory transferred so far.
+     * @param remaining the bytes of memory still to transfer.
+     * @param total the bytes of memory of the guest.
+     * @param dirtyRate the pages dirtied by the guest per second (-1 if
+     * unknown).
+     * @param downtime the expected downtime, in milliseconds, or the actual
+     * one once completed (-1 if unknown).
+     * @param elapsed the time, in milliseconds, the migration has taken.
+     * @return the built MigrationStatus.
+     */
+    public static MigrationStatus create(String status, long transferred, long remaining, long total,
+            long dirtyRate, long downtime, long elapsed) {
+        return new MigrationStatus(status, transferred, remaining, total, dirtyRate, downtime, elapsed);
+    }
+
+    /**
+     * A getter of the status of the migration.
+     *
+     * @return the {@link MigrationStatus#status}.
+     */
+    public String status() {
+        return status;
+    }
+
+    /**
+     * A getter of the memory transferred so far.
+     *
+     * @return the {@link MigrationStatus#transferred} in bytes.
+     */
+    public long transferred() {
+        return transferred;
+    }
+
+    /**
+     * A getter of the memory still to transfer.
+     *
+     * @return the {@link MigrationStatus#remaining} in bytes.
+     */
+    public long remaining() {
+        return remaining;
+    }
+
+    /**
+     * A getter of the rate at which the guest dirties its memory.
+     *
+     * @return the {@link MigrationStatus#dirtyRate} in pages per second.
+     */
+    public long dirtyRate() {
+        return dirtyRate;
+    }
+
+    /**
+     * A getter of the expected or actual downtime.
+     *
+     * @return the {@link MigrationStatus#downtime} in milliseconds.
+     */
+    public long downtime() {
+        return downtime;
+    }
+
+    /**
+     * An indicator to assess if the migration has ended, either well or not.
+     *
+     * @return true if the status is completed, failed or cancelled.
+     */
+    public boolean hasEnded() {
+        return COMPLETED.equals(status) || FAILED.equals(status) || CANCELLED.equals(status);
+    }
+
+    /**
+     * A textual representation of the result.
+     *
+     * @return the status followed by the progress figures.
+     */
+    @Override
+    public String description() {
+        String downtimeLabel = COMPLETED.equals(status) ? "downtime" : "expected downtime";
+        return String.format("%s after %d ms: %.1f/%.1f MiB transferred, %.1f MiB remaining, %d dirty pages/s, %s %d ms",
+                status, elapsed, transferred / BYTES_PER_MIB, total / BYTES_PER_MIB, remaining / BYTES_PER_MIB,
+                dirtyRate, downtimeLabel, downtime);
+    }
+
+    /**
+     * An indicator to assess if the result was successful or not. An ongoing
+     * migration is not a failure.
+     *
+     * @return false if the migration failed or was cancelled or true
+     * otherwise.
+     */
+    @Override
+    public boolean wasSuccessful() {
+        return !FAILED.equals(status) && !CANCELLED.equals(status);
+    }
+
+    /**
+     * The textual representation of the result.
+     *
+     * @return the {@link MigrationStatus#description()} result.
+     */
+    @Override
+    public String toString() {
+        return description();
+    }
+
+}
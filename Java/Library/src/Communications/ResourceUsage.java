@@ -0,0 +1,193 @@
+/*
+ *                      QEMU INSTANCES MANAGER LIBRARY
+ *                                Java Version
+ * 
+ * PRODUCT OWNER: Research Centre in Real-Time & Embedded Computing Systems
+ * PROJECT MANAGER: Luís Pinho and Cláudio Maia {lmn,clrrm}@isep.ipp.pt
+ * DEVELOPER: Manuel Meireles ( mjcdm@isep.ipp.pt )
+ * DATE: 24/11/2017
+ * SCOPE: CISTER Summer Internship 2017
+ * VERSION: 1.0
+ */
+package Communications;
+
+/**
+ * An execution result that holds the recent host resource usage of an
+ * instance: a time series, oldest first, of the counters and gauges sampled
+ * from the «/proc» of its process. The counters are cumulative, so the usage
+ * over the window is the difference between the last and the first samples.
+ *
+ * @see ExecutionResult
+ * @author Manuel Meireles ( mjcdm@isep.ipp.pt )
+ */
+public class ResourceUsage implements ExecutionResult {
+
+    /**
+     * The metrics of a sample: the CPU time, in nanoseconds, the resident
+     * memory, in bytes, the bytes read from and written to the storage, the
+     * voluntary and involuntary context switches and the CPU migrations of
+     * every thread, and the number of threads. A metric that could not be read
+     * is -1.
+     */
+    public enum Metric {
+        CPU_TIME,
+        RSS,
+        READ_BYTES,
+        WRITE_BYTES,
+        VOLUNTARY_SWITCHES,
+        INVOLUNTARY_SWITCHES,
+        MIGRATIONS,
+        THREADS
+    }
+
+    /**
+     * The number of bytes in a MiB.
+     */
+    private static final double BYTES_PER_MIB = 1024 * 1024;
+
+    /**
+     * The number of bytes in a KiB.
+     */
+    private static final double BYTES_PER_KIB = 1024;
+
+    /**
+     * The number of nanoseconds in a second.
+     */
+    private static final double NANOS_PER_SECOND = 1e9;
+
+    /**
+     * The time, in milliseconds since the epoch, of each sample.
+     */
+    private final long[] times;
+
+    /**
+     * The values of each metric, indexed by its ordinal, of each sample.
+     */
+    private final long[][] values;
+
+    /**
+     * A private constructor that initializes the series. Despite no
+     * validations are made, there should be as many values of each metric as
+     * times.
+     *
+     * @param theTimes the time of each sample.
+     * @param theValues the values of each metric of each sample.
+     */
+    private ResourceUsage(long[] theTimes, long[][] theValues) {
+        times = theTimes;
+        values = theValues;
+    }
+
+    /**
+     * It builds a ResourceUsage execution result. Despite no validations are
+     * made, there should be as many values of each metric as times and the
+     * arrays should not be changed afterwards.
+     *
+     * @param times the time, in milliseconds since the epoch, of each sample,
+     * oldest first.
+     * @param values the values of each {@link Metric}, indexed by its ordinal,
+     * of each sample.
+     * @return the built ResourceUsage.
+     */
+    public static ResourceUsage create(long[] times, long[][] values) {
+        return new ResourceUsage(times, values);
+    }
+
+    /**
+     * A getter of the number of samples.
+     *
+     * @return the number of samples.
+     */
+    public int size() {
+        return times.length;
+    }
+
+    /**
+     * A getter of the time of each sample.
+     *
+     * @return the {@link ResourceUsage#times} in milliseconds since the epoch.
+     */
+    public long[] times() {
+        return times.clone();
+    }
+
+    /**
+     * A getter of the values of a metric.
+     *
+     * @param metric the metric.
+     * @return the values of the metric of each sample, oldest first.
+     */
+    public long[] values(Metric metric) {
+        return values[metric.ordinal()].clone();
+    }
+
+    /**
+     * It provides the last value of a metric.
+     *
+     * @param metric the metric.
+     * @return the value of the last sample or -1 if there is none.
+     */
+    public long latest(Metric metric) {
+        return times.length == 0 ? -1 : values[metric.ordinal()][times.length - 1];
+    }
+
+    /**
+     * It provides the rate of a cumulative metric over the samples.
+     *
+     * @param metric the cumulative metric, e.g. {@link Metric#CPU_TIME}.
+     * @return the increase per second between the first and the last samples
+     * or zero if they are not enough or the metric could not be read.
+     */
+    public double rate(Metric metric) {
+        int last = times.length - 1;
+        if (last < 1 || times[last] == times[0]) {
+            return 0;
+        }
+        long[] series = values[metric.ordinal()];
+        if (series[0] < 0 || series[last] < 0) {
+            return 0;
+        }
+        return (series[last] - series[0]) * 1000.0 / (times[last] - times[0]);
+    }
+
+    /**
+     * A textual representation of the result.
+     *
+     * @return the window followed by the CPU usage, the resident memory and
+     * the rates of I/O, context switches and migrations.
+     */
+    @Override
+    public String description() {
+        if (times.length == 0) {
+            return "No samples yet.";
+        }
+        return String.format("%d samples over %.1f s: CPU %.1f %%, RSS %.1f MiB, %d threads, "
+                + "read %.1f KiB/s, written %.1f KiB/s, %.1f voluntary and %.1f involuntary switches/s, "
+                + "%.1f migrations/s", times.length, (times[times.length - 1] - times[0]) / 1000.0,
+                rate(Metric.CPU_TIME) * 100 / NANOS_PER_SECOND, latest(Metric.RSS) / BYTES_PER_MIB,
+                latest(Metric.THREADS), rate(Metric.READ_BYTES) / BYTES_PER_KIB,
+                rate(Metric.WRITE_BYTES) / BYTES_PER_KIB, rate(Metric.VOLUNTARY_SWITCHES),
+                rate(Metric.INVOLUNTARY_SWITCHES), rate(Metric.MIGRATIONS));
+    }
+
+    /**
+     * An indicator to assess if the result was successful or not.
+     *
+     * @return true, since a usage is always successful.
+     */
+    @Override
+    public boolean wasSuccessful() {
+        return true;
+    }
+
+    /**
+     * The textual representation of the result.
+     *
+     * @return the {@link ResourceUsage#description()} result.
+     */
+    @Override
+    public String toString() {
+        return description();
+    }
+
+}
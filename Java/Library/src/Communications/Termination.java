@@ -0,0 +1,126 @@
+/*
+ *                      QEMU INSTANCES MANAGER LIBRARY
+ *                                Java Version
+ * 
+ * PRODUCT OWNER: Research Centre in Real-Time & Embedded Computing Systems
+ * PROJECT MANAGER: Luís Pinho and Cláudio Maia {lmn,clrrm}@isep.ipp.pt
+ * DEVELOPER: Manuel Meireles ( mjcdm@isep.ipp.pt )
+ * DATE: 24/11/2017
+ * SCOPE: CISTER Summer Internship 2017
+ * VERSION: 1.0
+ */
+package Communications;
+
+/**
+ * An execution result from the termination of an instance. It holds the stage
+ * of the escalation at which the process actually exited and how long it
+ * took.
+ *
+ * @see ExecutionResult
+ * @author Manuel Meireles ( mjcdm@isep.ipp.pt )
+ */
+public class Termination implements ExecutionResult {
+
+    /**
+     * The stages of the termination escalation, from the most graceful to the
+     * most brutal, plus the outcomes of a process that had already exited or
+     * that survived every stage.
+     */
+    public enum Stage {
+        ALREADY_EXITED,
+        POWERDOWN,
+        QUIT,
+        SIGTERM,
+        SIGKILL,
+        LEAKED
+    }
+
+    /**
+     * The number of nanoseconds in a millisecond.
+     */
+    private static final double NANOS_PER_MILLI = 1e6;
+
+    /**
+     * The stage at which the process exited.
+     */
+    private final Stage stage;
+
+    /**
+     * The time, in nanoseconds, the termination took.
+     */
+    private final long duration;
+
+    /**
+     * A private constructor that initializes the stage and the duration.
+     * Despite no validation is made, the stage should not be null.
+     *
+     * @param theStage the stage at which the process exited.
+     * @param theDuration the time the termination took.
+     */
+    private Termination(Stage theStage, long theDuration) {
+        stage = theStage;
+        duration = theDuration;
+    }
+
+    /**
+     * It builds a Termination execution result. Despite no validation is made,
+     * the stage should not be null.
+     *
+     * @param stage the stage at which the process exited.
+     * @param duration the time, in nanoseconds, the termination took.
+     * @return the built Termination.
+     */
+    public static Termination create(Stage stage, long duration) {
+        return new Termination(stage, duration);
+    }
+
+    /**
+     * A getter of the stage at which the process exited.
+     *
+     * @return the {@link Termination#stage}.
+     */
+    public Stage stage() {
+        return stage;
+    }
+
+    /**
+     * A getter of the time the termination took.
+     *
+     * @return the {@link Termination#duration} in nanoseconds.
+     */
+    public long duration() {
+        return duration;
+    }
+
+    /**
+     * A textual representation of the result.
+     *
+     * @return the stage followed by the duration in milliseconds.
+     */
+    @Override
+    public String description() {
+        return String.format("%s after %.1f ms", stage, duration / NANOS_PER_MILLI);
+    }
+
+    /**
+     * An indicator to assess if the result was successful or not. Only a
+     * process that survived every stage is a failure.
+     *
+     * @return false if the process was {@link Stage#LEAKED} or true otherwise.
+     */
+    @Override
+    public boolean wasSuccessful() {
+        return stage != Stage.LEAKED;
+    }
+
+    /**
+     * The textual representation of the result.
+     *
+     * @return the {@link Termination#description()} result.
+     */
+    @Override
+    public String toString() {
+        return description();
+    }
+
+}
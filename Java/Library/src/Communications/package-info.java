@@ -6,10 +6,13 @@
  * For the time being there are the following results:<ul>
  * <li>{@link Communications.Creation}: the result of a {@link Commands.BuildQemuInstance} command. It contains the {@link Instances.InstanceID} of the new instance;</li>
  * <li>{@link Communications.Fail}: the result of a devious execution of a command;</li>
+ * <li>{@link Communications.Headroom}: the result of {@link Managers.InstanceManager#headroom}. It contains the host capacity still available to new instances;</li>
+ * <li>{@link Communications.LaunchReport}: the result of {@link Managers.InstanceManager#startInstances}. It contains the result of each launch and the launch timings;</li>
  * <li>{@link Communications.ListResult}: the result is a list, i.e. the result of {@link Managers.InstanceManager#listInstances};</li>
  * <li>{@link Communications.MapResult}: the result is a map, i.e. the result of {@link Managers.InstanceManager#executeCommands};</li>
  * <li>{@link Communications.Reply}: the result of a {@link Commands.GenericQMP} send to the QEMU;</li>
  * <li>{@link Communications.Success}: the result of the expected execution of a command;</li>
+ * <li>{@link Communications.Termination}: the result of terminating an instance on {@link Managers.InstanceManager#shutdown}. It contains the stage at which the process exited;</li>
  * </ul>
  */
 package Communications;
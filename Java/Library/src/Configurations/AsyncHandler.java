@@ -0,0 +1,226 @@
+/*
+ *                      QEMU INSTANCES MANAGER LIBRARY
+ *                                Java Version
+ * 
+ * PRODUCT OWNER: Research Centre in Real-Time & Embedded Computing Systems
+ * PROJECT MANAGER: Luís Pinho and Cláudio Maia {lmn,clrrm}@isep.ipp.pt
+ * DEVELOPER: Manuel Meireles ( mjcdm@isep.ipp.pt )
+ * DATE: 24/11/2017
+ * SCOPE: CISTER Summer Internship 2017
+ * VERSION: 1.0
+ */
+package Configurations;
+
+import java.util.Locale;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Handler;
+import java.util.logging.Level;
+import java.util.logging.LogRecord;
+
+/**
+ * A log handler that writes on a thread of its own. The records are put in a
+ * bounded ring buffer and handed over to the target handler, e.g. a
+ * {@link java.util.logging.FileHandler}, by the writer thread, so that
+ * neither the formatting of the messages nor the file I/O happen on the
+ * logging thread. When the buffer is full, a record is dropped according to
+ * the {@link DropPolicy} instead of blocking the logging thread, and the
+ * number of dropped records is logged once there is room again.
+ *
+ * @author Manuel Meireles ( mjcdm@isep.ipp.pt )
+ */
+public class AsyncHandler extends Handler {
+
+    /**
+     * The records dropped when the buffer is full: the one being logged or
+     * the oldest one waiting.
+     */
+    public enum DropPolicy {
+        NEWEST,
+        OLDEST
+    }
+
+    /**
+     * The time, in milliseconds, the writer waits for a record before it
+     * checks whether the handler was closed.
+     */
+    private static final long POLL_INTERVAL = 100;
+
+    /**
+     * The time, in milliseconds, a close waits for the writer to empty the
+     * buffer.
+     */
+    private static final long CLOSE_TIMEOUT = 5000;
+
+    /**
+     * The handler that writes the records.
+     */
+    private final Handler target;
+
+    /**
+     * The records waiting to be written.
+     */
+    private final BlockingQueue<LogRecord> buffer;
+
+    /**
+     * The records dropped when the buffer is full.
+     */
+    private final DropPolicy policy;
+
+    /**
+     * The number of records dropped so far.
+     */
+    private final AtomicLong dropped;
+
+    /**
+     * The thread that writes the records.
+     */
+    private final Thread writer;
+
+    /**
+     * Whether the handler was closed.
+     */
+    private volatile boolean closed;
+
+    /**
+     * A private constructor that initializes an empty buffer. Despite no
+     * validations are made, the target and the policy should not be null and
+     * the capacity should be positive.
+     *
+     * @param theTarget the handler that writes the records.
+     * @param theCapacity the number of records that may wait.
+     * @param thePolicy the records dropped when the buffer is full.
+     */
+    private AsyncHandler(Handler theTarget, int theCapacity, DropPolicy thePolicy) {
+        target = theTarget;
+        buffer = new ArrayBlockingQueue<>(theCapacity);
+        policy = thePolicy;
+        dropped = new AtomicLong();
+        closed = false;
+        writer = new Thread(this::write, "log-writer");
+        writer.setDaemon(true);
+        setLevel(theTarget.getLevel());
+    }
+
+    /**
+     * It builds a handler and starts its writer thread. A capacity lower than
+     * one is raised to one.
+     *
+     * @param target the handler that writes the records.
+     * @param capacity the number of records that may wait to be written.
+     * @param policy the records dropped when the buffer is full.
+     * @return the built handler.
+     */
+    public static AsyncHandler create(Handler target, int capacity, DropPolicy policy) {
+        AsyncHandler handler = new AsyncHandler(target, Math.max(1, capacity), policy);
+        handler.writer.start();
+        return handler;
+    }
+
+    /**
+     * It parses a drop policy, regardless of its case.
+     *
+     * @param policy the name of the drop policy, e.g. «newest».
+     * @return the drop policy or {@link DropPolicy#NEWEST} if it is unknown.
+     */
+    public static DropPolicy policy(String policy) {
+        try {
+            return DropPolicy.valueOf(policy.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException | NullPointerException ex) {
+            return DropPolicy.NEWEST;
+        }
+    }
+
+    /**
+     * It puts the record in the buffer, without formatting it. The caller is
+     * inferred beforehand, since it could no longer be once on the writer
+     * thread.
+     *
+     * @param record the record to write.
+     */
+    @Override
+    public void publish(LogRecord record) {
+        if (closed || !isLoggable(record)) {
+            return;
+        }
+        record.getSourceClassName();
+        if (buffer.offer(record)) {
+            return;
+        }
+        if (policy == DropPolicy.NEWEST) {
+            dropped.incrementAndGet();
+            return;
+        }
+        while (!buffer.offer(record)) {
+            if (buffer.poll() != null) {
+                dropped.incrementAndGet();
+            }
+        }
+    }
+
+    /**
+     * It flushes the target handler. The records still waiting are not.
+     */
+    @Override
+    public void flush() {
+        target.flush();
+    }
+
+    /**
+     * It closes the handler, waiting for the writer to write the records
+     * still waiting, and then closes the target handler.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        try {
+            writer.join(CLOSE_TIMEOUT);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+        target.close();
+    }
+
+    /**
+     * A getter of the number of records dropped so far.
+     *
+     * @return the {@link AsyncHandler#dropped} records.
+     */
+    public long dropped() {
+        return dropped.get();
+    }
+
+    /**
+     * It writes the records as they arrive until the handler is closed and
+     * the buffer is empty. The records dropped since the last report are
+     * reported once the buffer is empty.
+     */
+    private void write() {
+        long reported = 0;
+        while (true) {
+            LogRecord record;
+            try {
+                record = buffer.poll(POLL_INTERVAL, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException ex) {
+                return;
+            }
+            if (record != null) {
+                target.publish(record);
+            } else if (closed) {
+                return;
+            }
+            long lost = dropped.get();
+            if (lost > reported && buffer.isEmpty()) {
+                LogRecord report = new LogRecord(Level.WARNING, "Log records dropped while the buffer was full: {0}.");
+                report.setParameters(new Object[]{lost - reported});
+                report.setSourceClassName(AsyncHandler.class.getName());
+                report.setSourceMethodName("write");
+                target.publish(report);
+                reported = lost;
+            }
+        }
+    }
+
+}
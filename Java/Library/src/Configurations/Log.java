@@ -0,0 +1,378 @@
+/*
+ *                      QEMU INSTANCES MANAGER LIBRARY
+ *                                Java Version
+ * 
+ * PRODUCT OWNER: Research Centre in Real-Time & Embedded Computing Systems
+ * PROJECT MANAGER: Luís Pinho and Cláudio Maia {lmn,clrrm}@isep.ipp.pt
+ * DEVELOPER: Manuel Meireles ( mjcdm@isep.ipp.pt )
+ * DATE: 24/11/2017
+ * SCOPE: CISTER Summer Internship 2017
+ * VERSION: 1.0
+ */
+package Configurations;
+
+import java.util.logging.Level;
+import java.util.logging.LogManager;
+import java.util.logging.Logger;
+import java.util.logging.SimpleFormatter;
+
+/**
+ * The logging facade of the library, on top of {@link Settings#logger()}. The
+ * level is checked before anything is built, i.e. a record, an array of
+ * parameters or the caller, so that a message below the level of the
+ * {@link Settings} costs a single comparison, and the messages take their
+ * parameters apart, in the «{0}» notation of {@link java.text.MessageFormat},
+ * so that they are only formatted by the {@link AsyncHandler}, off the
+ * logging thread. A pattern should not hold single quotes, which the
+ * formatting takes as escapes.
+ *
+ * @author Manuel Meireles ( mjcdm@isep.ipp.pt )
+ */
+public final class Log {
+
+    /**
+     * The walker that finds the caller of the facade.
+     */
+    private static final StackWalker CALLERS = StackWalker.getInstance();
+
+    /**
+     * The property of the format of the {@link SimpleFormatter} that writes
+     * the log file.
+     */
+    private static final String FORMAT_PROPERTY = SimpleFormatter.class.getName() + ".format";
+
+    /**
+     * Whether the records are written with their source, i.e. whether the
+     * format of the {@link SimpleFormatter} holds its «%2$» argument, as the
+     * default one does. Otherwise the caller is not looked up at all.
+     */
+    private static final boolean SOURCE_FORMATTED = formatsSource();
+
+    /**
+     * A private constructor, since the facade is not to be instantiated.
+     */
+    private Log() {
+    }
+
+    /**
+     * An indicator to assess if a level is logged.
+     *
+     * @param level the level.
+     * @return true if records at the level are logged or false otherwise.
+     */
+    public static boolean isLoggable(Level level) {
+        return Settings.logger().isLoggable(level);
+    }
+
+    /**
+     * It logs the entry to a method at {@link Level#FINER}, if that level is
+     * logged.
+     *
+     * @param source the name of the class.
+     * @param method the name of the method.
+     */
+    public static void entering(String source, String method) {
+        Logger logger = Settings.logger();
+        if (logger.isLoggable(Level.FINER)) {
+            logger.entering(source, method);
+        }
+    }
+
+    /**
+     * It logs the entry to a method at {@link Level#FINER}, if that level is
+     * logged.
+     *
+     * @param source the name of the class.
+     * @param method the name of the method.
+     * @param param the parameter of the method.
+     */
+    public static void entering(String source, String method, Object param) {
+        Logger logger = Settings.logger();
+        if (logger.isLoggable(Level.FINER)) {
+            logger.entering(source, method, param);
+        }
+    }
+
+    /**
+     * It logs the exit from a method at {@link Level#FINER}, if that level is
+     * logged.
+     *
+     * @param source the name of the class.
+     * @param method the name of the method.
+     */
+    public static void exiting(String source, String method) {
+        Logger logger = Settings.logger();
+        if (logger.isLoggable(Level.FINER)) {
+            logger.exiting(source, method);
+        }
+    }
+
+    /**
+     * It logs the exit from a method at {@link Level#FINER}, if that level is
+     * logged.
+     *
+     * @param source the name of the class.
+     * @param method the name of the method.
+     * @param result the result of the method.
+     */
+    public static void exiting(String source, String method, Object result) {
+        Logger logger = Settings.logger();
+        if (logger.isLoggable(Level.FINER)) {
+            logger.exiting(source, method, result);
+        }
+    }
+
+    /**
+     * It logs a serious failure at {@link Level#SEVERE}, if that level is logged.
+     *
+     * @param message the message.
+     */
+    public static void severe(String message) {
+        log(Level.SEVERE, message, null);
+    }
+
+    /**
+     * It logs a serious failure at {@link Level#SEVERE}, if that level is logged. The
+     * message is only formatted on the writer thread.
+     *
+     * @param pattern the message, where «{0}» stands for the parameter.
+     * @param param the parameter of the message.
+     */
+    public static void severe(String pattern, Object param) {
+        if (Settings.logger().isLoggable(Level.SEVERE)) {
+            log(Level.SEVERE, pattern, new Object[]{param});
+        }
+    }
+
+    /**
+     * It logs a serious failure at {@link Level#SEVERE}, if that level is logged. The
+     * message is only formatted on the writer thread.
+     *
+     * @param pattern the message, where «{0}» and «{1}» stand for the
+     * parameters.
+     * @param first the first parameter of the message.
+     * @param second the second parameter of the message.
+     */
+    public static void severe(String pattern, Object first, Object second) {
+        if (Settings.logger().isLoggable(Level.SEVERE)) {
+            log(Level.SEVERE, pattern, new Object[]{first, second});
+        }
+    }
+
+    /**
+     * It logs a serious failure at {@link Level#SEVERE} together with the
+     * throwable that caused it, whose stack trace is kept, if that level is
+     * logged.
+     *
+     * @param message the message.
+     * @param thrown the cause of the failure.
+     */
+    public static void thrown(String message, Throwable thrown) {
+        log(Level.SEVERE, message, null, thrown);
+    }
+
+    /**
+     * It logs a potential problem at {@link Level#WARNING}, if that level is logged.
+     *
+     * @param message the message.
+     */
+    public static void warning(String message) {
+        log(Level.WARNING, message, null);
+    }
+
+    /**
+     * It logs a potential problem at {@link Level#WARNING}, if that level is logged. The
+     * message is only formatted on the writer thread.
+     *
+     * @param pattern the message, where «{0}» stands for the parameter.
+     * @param param the parameter of the message.
+     */
+    public static void warning(String pattern, Object param) {
+        if (Settings.logger().isLoggable(Level.WARNING)) {
+            log(Level.WARNING, pattern, new Object[]{param});
+        }
+    }
+
+    /**
+     * It logs a potential problem at {@link Level#WARNING}, if that level is logged. The
+     * message is only formatted on the writer thread.
+     *
+     * @param pattern the message, where «{0}» and «{1}» stand for the
+     * parameters.
+     * @param first the first parameter of the message.
+     * @param second the second parameter of the message.
+     */
+    public static void warning(String pattern, Object first, Object second) {
+        if (Settings.logger().isLoggable(Level.WARNING)) {
+            log(Level.WARNING, pattern, new Object[]{first, second});
+        }
+    }
+
+    /**
+     * It logs an informational message at {@link Level#INFO}, if that level is logged.
+     *
+     * @param message the message.
+     */
+    public static void info(String message) {
+        log(Level.INFO, message, null);
+    }
+
+    /**
+     * It logs an informational message at {@link Level#INFO}, if that level is logged. The
+     * message is only formatted on the writer thread.
+     *
+     * @param pattern the message, where «{0}» stands for the parameter.
+     * @param param the parameter of the message.
+     */
+    public static void info(String pattern, Object param) {
+        if (Settings.logger().isLoggable(Level.INFO)) {
+            log(Level.INFO, pattern, new Object[]{param});
+        }
+    }
+
+    /**
+     * It logs an informational message at {@link Level#INFO}, if that level is logged. The
+     * message is only formatted on the writer thread.
+     *
+     * @param pattern the message, where «{0}» and «{1}» stand for the
+     * parameters.
+     * @param first the first parameter of the message.
+     * @param second the second parameter of the message.
+     */
+    public static void info(String pattern, Object first, Object second) {
+        if (Settings.logger().isLoggable(Level.INFO)) {
+            log(Level.INFO, pattern, new Object[]{first, second});
+        }
+    }
+
+    /**
+     * It logs a tracing message at {@link Level#FINE}, if that level is logged.
+     *
+     * @param message the message.
+     */
+    public static void fine(String message) {
+        log(Level.FINE, message, null);
+    }
+
+    /**
+     * It logs a tracing message at {@link Level#FINE}, if that level is logged. The
+     * message is only formatted on the writer thread.
+     *
+     * @param pattern the message, where «{0}» stands for the parameter.
+     * @param param the parameter of the message.
+     */
+    public static void fine(String pattern, Object param) {
+        if (Settings.logger().isLoggable(Level.FINE)) {
+            log(Level.FINE, pattern, new Object[]{param});
+        }
+    }
+
+    /**
+     * It logs a tracing message at {@link Level#FINE}, if that level is logged. The
+     * message is only formatted on the writer thread.
+     *
+     * @param pattern the message, where «{0}» and «{1}» stand for the
+     * parameters.
+     * @param first the first parameter of the message.
+     * @param second the second parameter of the message.
+     */
+    public static void fine(String pattern, Object first, Object second) {
+        if (Settings.logger().isLoggable(Level.FINE)) {
+            log(Level.FINE, pattern, new Object[]{first, second});
+        }
+    }
+
+    /**
+     * It logs a highly detailed tracing message at {@link Level#FINEST}, if that level is logged.
+     *
+     * @param message the message.
+     */
+    public static void finest(String message) {
+        log(Level.FINEST, message, null);
+    }
+
+    /**
+     * It logs a highly detailed tracing message at {@link Level#FINEST}, if that level is logged. The
+     * message is only formatted on the writer thread.
+     *
+     * @param pattern the message, where «{0}» stands for the parameter.
+     * @param param the parameter of the message.
+     */
+    public static void finest(String pattern, Object param) {
+        if (Settings.logger().isLoggable(Level.FINEST)) {
+            log(Level.FINEST, pattern, new Object[]{param});
+        }
+    }
+
+    /**
+     * It logs a highly detailed tracing message at {@link Level#FINEST}, if that level is logged. The
+     * message is only formatted on the writer thread.
+     *
+     * @param pattern the message, where «{0}» and «{1}» stand for the
+     * parameters.
+     * @param first the first parameter of the message.
+     * @param second the second parameter of the message.
+     */
+    public static void finest(String pattern, Object first, Object second) {
+        if (Settings.logger().isLoggable(Level.FINEST)) {
+            log(Level.FINEST, pattern, new Object[]{first, second});
+        }
+    }
+
+    /**
+     * It logs a message on behalf of the caller of the facade, if the level
+     * is logged.
+     *
+     * @param level the level of the message.
+     * @param pattern the message.
+     * @param params the parameters of the message, or null if it has none.
+     */
+    private static void log(Level level, String pattern, Object[] params) {
+        log(level, pattern, params, null);
+    }
+
+    /**
+     * It logs a message on behalf of the caller of the facade, if the level
+     * is logged. The caller is only looked up, which walks the stack, once
+     * the level is known to be logged and if the source is written at all.
+     *
+     * @param level the level of the message.
+     * @param pattern the message.
+     * @param params the parameters of the message, or null if it has none.
+     * @param thrown the throwable of the message, or null if it has none.
+     */
+    private static void log(Level level, String pattern, Object[] params, Throwable thrown) {
+        Logger logger = Settings.logger();
+        if (!logger.isLoggable(level)) {
+            return;
+        }
+        StackWalker.StackFrame caller = !SOURCE_FORMATTED ? null : CALLERS.walk(frames -> frames
+                .filter(frame -> !frame.getClassName().equals(Log.class.getName())).findFirst()).orElse(null);
+        String source = caller == null ? null : caller.getClassName();
+        String method = caller == null ? null : caller.getMethodName();
+        if (thrown != null) {
+            logger.logp(level, source, method, pattern, thrown);
+        } else if (params == null) {
+            logger.logp(level, source, method, pattern);
+        } else {
+            logger.logp(level, source, method, pattern, params);
+        }
+    }
+
+    /**
+     * An indicator to assess if the {@link SimpleFormatter} writes the source
+     * of the records, according to its format from the system properties or
+     * from the logging configuration.
+     *
+     * @return true if the format holds the source or there is no format, in
+     * which case the default one, which holds it, applies, or false otherwise.
+     */
+    private static boolean formatsSource() {
+        String format = System.getProperty(FORMAT_PROPERTY);
+        if (format == null) {
+            format = LogManager.getLogManager().getProperty(FORMAT_PROPERTY);
+        }
+        return format == null || format.contains("%2$");
+    }
+
+}
@@ -19,8 +19,11 @@ import java.io.File;
 import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.security.SecureRandom;
+import java.util.Base64;
 import java.util.Properties;
 import java.util.logging.FileHandler;
+import java.util.logging.Handler;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import java.util.logging.SimpleFormatter;
@@ -82,91 +85,1524 @@ public class Settings {
     private static final String PROPERTY_INITIAL_PORT_NUMBER_VALUE = "30040";
 
     /**
-     * The singleton object of the settings.
+     * The name of the property key to define the ratio between the guest
+     * memory that may be committed and the physical memory of the host.
      */
-    private static Settings singleton;
+    private static final String PROPERTY_MEMORY_OVERCOMMIT_RATIO_KEY = "memory_overcommit_ratio";
 
     /**
-     * The properties that store all the configurations.
+     * The value of the property that defines the ratio between the guest
+     * memory that may be committed and the physical memory of the host.
      */
-    private Properties properties;
+    private static final String PROPERTY_MEMORY_OVERCOMMIT_RATIO_VALUE = "1.0";
+
+    /**
+     * The name of the property key to define the ratio between the virtual
+     * CPUs that may be committed and the CPUs of the host.
+     */
+    private static final String PROPERTY_CPU_OVERCOMMIT_RATIO_KEY = "cpu_overcommit_ratio";
+
+    /**
+     * The value of the property that defines the ratio between the virtual
+     * CPUs that may be committed and the CPUs of the host.
+     */
+    private static final String PROPERTY_CPU_OVERCOMMIT_RATIO_VALUE = "4.0";
+
+    /**
+     * The name of the property key to define what happens to a launch that
+     * exceeds the host capacity («reject» or «queue»).
+     */
+    private static final String PROPERTY_ADMISSION_POLICY_KEY = "admission_policy";
+
+    /**
+     * The value of the property that defines what happens to a launch that
+     * exceeds the host capacity.
+     */
+    private static final String PROPERTY_ADMISSION_POLICY_VALUE = "reject";
+
+    /**
+     * The name of the property key to define how long, in milliseconds, a
+     * queued launch waits for capacity before being rejected.
+     */
+    private static final String PROPERTY_ADMISSION_TIMEOUT_KEY = "admission_queue_timeout";
+
+    /**
+     * The value of the property that defines how long, in milliseconds, a
+     * queued launch waits for capacity before being rejected.
+     */
+    private static final String PROPERTY_ADMISSION_TIMEOUT_VALUE = "60000";
+
+    /**
+     * The name of the property key to define the maximum number of instances
+     * launched at the same time by a bulk launch.
+     */
+    private static final String PROPERTY_BULK_LAUNCH_WINDOW_KEY = "bulk_launch_window";
+
+    /**
+     * The value of the property that defines the maximum number of instances
+     * launched at the same time by a bulk launch.
+     */
+    private static final String PROPERTY_BULK_LAUNCH_WINDOW_VALUE = "8";
+
+    /**
+     * The name of the property key to define the maximum number of launches
+     * started per second by a bulk launch.
+     */
+    private static final String PROPERTY_BULK_LAUNCH_RAMP_RATE_KEY = "bulk_launch_ramp_rate";
+
+    /**
+     * The value of the property that defines the maximum number of launches
+     * started per second by a bulk launch.
+     */
+    private static final String PROPERTY_BULK_LAUNCH_RAMP_RATE_VALUE = "4";
+
+    /**
+     * The name of the property key to define the time, in milliseconds, the
+     * shutdown of the whole fleet may take.
+     */
+    private static final String PROPERTY_SHUTDOWN_DEADLINE_KEY = "shutdown_deadline";
+
+    /**
+     * The value of the property that defines the time, in milliseconds, the
+     * shutdown of the whole fleet may take.
+     */
+    private static final String PROPERTY_SHUTDOWN_DEADLINE_VALUE = "30000";
+
+    /**
+     * The name of the property key to define the time, in milliseconds, the
+     * guests are given to power down on shutdown (zero skips the graceful
+     * phase).
+     */
+    private static final String PROPERTY_SHUTDOWN_POWERDOWN_GRACE_KEY = "shutdown_powerdown_grace";
+
+    /**
+     * The value of the property that defines the time, in milliseconds, the
+     * guests are given to power down on shutdown (zero skips the graceful
+     * phase).
+     */
+    private static final String PROPERTY_SHUTDOWN_POWERDOWN_GRACE_VALUE = "0";
+
+    /**
+     * The name of the property key to define the time, in milliseconds, an
+     * instance is given to exit after a QMP «quit» on shutdown.
+     */
+    private static final String PROPERTY_SHUTDOWN_QUIT_GRACE_KEY = "shutdown_quit_grace";
+
+    /**
+     * The value of the property that defines the time, in milliseconds, an
+     * instance is given to exit after a QMP «quit» on shutdown.
+     */
+    private static final String PROPERTY_SHUTDOWN_QUIT_GRACE_VALUE = "3000";
+
+    /**
+     * The name of the property key to define the time, in milliseconds, an
+     * instance is given to exit after a SIGTERM on shutdown.
+     */
+    private static final String PROPERTY_SHUTDOWN_TERM_GRACE_KEY = "shutdown_term_grace";
+
+    /**
+     * The value of the property that defines the time, in milliseconds, an
+     * instance is given to exit after a SIGTERM on shutdown.
+     */
+    private static final String PROPERTY_SHUTDOWN_TERM_GRACE_VALUE = "3000";
+
+    /**
+     * The name of the property key to define the file path and name of the
+     * journal of the running instances (empty to disable journaling).
+     */
+    private static final String PROPERTY_JOURNAL_FILE_KEY = "journal_file";
+
+    /**
+     * The value of the property that defines the file path and name of the
+     * journal of the running instances.
+     */
+    private static final String PROPERTY_JOURNAL_FILE_VALUE = "instances.journal";
+
+    /**
+     * The name of the property key to define the number of journal lines after
+     * which the journal is compacted.
+     */
+    private static final String PROPERTY_JOURNAL_COMPACTION_KEY = "journal_compaction_threshold";
+
+    /**
+     * The value of the property that defines the number of journal lines after
+     * which the journal is compacted.
+     */
+    private static final String PROPERTY_JOURNAL_COMPACTION_VALUE = "1000";
+
+    /**
+     * The name of the property key to define the TCP port of the loopback
+     * HTTP control API.
+     */
+    private static final String PROPERTY_HTTP_PORT_KEY = "http_port";
+
+    /**
+     * The value of the property that defines the TCP port of the loopback
+     * HTTP control API.
+     */
+    private static final String PROPERTY_HTTP_PORT_VALUE = "8350";
+
+    /**
+     * The name of the property key to define the number of events buffered
+     * for each streaming client of the HTTP control API before the oldest
+     * are dropped.
+     */
+    private static final String PROPERTY_HTTP_EVENT_BUFFER_KEY = "http_event_buffer";
+
+    /**
+     * The value of the property that defines the number of events buffered
+     * for each streaming client of the HTTP control API before the oldest
+     * are dropped.
+     */
+    private static final String PROPERTY_HTTP_EVENT_BUFFER_VALUE = "1024";
+
+    /**
+     * The name of the property key to define the TCP port of the loopback
+     * binary control protocol.
+     */
+    private static final String PROPERTY_BINARY_PORT_KEY = "binary_port";
+
+    /**
+     * The value of the property that defines the TCP port of the loopback
+     * binary control protocol.
+     */
+    private static final String PROPERTY_BINARY_PORT_VALUE = "8351";
+
+    /**
+     * The name of the property key to define the Unix domain socket of the
+     * binary control protocol, which is used instead of the TCP port if it
+     * is not empty.
+     */
+    private static final String PROPERTY_BINARY_SOCKET_KEY = "binary_socket";
+
+    /**
+     * The value of the property that defines the Unix domain socket of the
+     * binary control protocol, which is used instead of the TCP port if it
+     * is not empty.
+     */
+    private static final String PROPERTY_BINARY_SOCKET_VALUE = "";
+
+    /**
+     * The name of the property key to define the identification of this
+     * manager within a federation.
+     */
+    private static final String PROPERTY_FEDERATION_NODE_KEY = "federation_node";
+
+    /**
+     * The value of the property that defines the identification of this
+     * manager within a federation.
+     */
+    private static final String PROPERTY_FEDERATION_NODE_VALUE = "node";
+
+    /**
+     * The name of the property key to define the address on which this
+     * manager is reached by the other members of a federation.
+     */
+    private static final String PROPERTY_FEDERATION_HOST_KEY = "federation_host";
+
+    /**
+     * The value of the property that defines the address on which this
+     * manager is reached by the other members of a federation.
+     */
+    private static final String PROPERTY_FEDERATION_HOST_VALUE = "127.0.0.1";
+
+    /**
+     * The name of the property key to define the comma separated addresses
+     * (host:port) of the members of a federation to register with.
+     */
+    private static final String PROPERTY_FEDERATION_SEEDS_KEY = "federation_seeds";
+
+    /**
+     * The value of the property that defines the comma separated addresses
+     * (host:port) of the members of a federation to register with.
+     */
+    private static final String PROPERTY_FEDERATION_SEEDS_VALUE = "";
+
+    /**
+     * The name of the property key to define how a federation places new
+     * instances: consistent_hash or least_loaded.
+     */
+    private static final String PROPERTY_FEDERATION_PLACEMENT_KEY = "federation_placement";
+
+    /**
+     * The value of the property that defines how a federation places new
+     * instances: consistent_hash or least_loaded.
+     */
+    private static final String PROPERTY_FEDERATION_PLACEMENT_VALUE = "consistent_hash";
+
+    /**
+     * The name of the property key to define the interval, in milliseconds,
+     * between the heartbeats exchanged by the members of a federation.
+     */
+    private static final String PROPERTY_FEDERATION_HEARTBEAT_KEY = "federation_heartbeat";
+
+    /**
+     * The value of the property that defines the interval, in milliseconds,
+     * between the heartbeats exchanged by the members of a federation.
+     */
+    private static final String PROPERTY_FEDERATION_HEARTBEAT_VALUE = "1000";
+
+    /**
+     * The name of the property key to define the time, in milliseconds,
+     * without heartbeats after which a member of a federation is considered
+     * down.
+     */
+    private static final String PROPERTY_FEDERATION_TIMEOUT_KEY = "federation_timeout";
+
+    /**
+     * The value of the property that defines the time, in milliseconds,
+     * without heartbeats after which a member of a federation is considered
+     * down.
+     */
+    private static final String PROPERTY_FEDERATION_TIMEOUT_VALUE = "5000";
+
+    /**
+     * The name of the property key to define the maximum bandwidth, in MiB
+     * per second, of a live migration (zero keeps the QEMU default).
+     */
+    private static final String PROPERTY_MIGRATION_BANDWIDTH_KEY = "migration_bandwidth";
+
+    /**
+     * The value of the property that defines the maximum bandwidth, in MiB
+     * per second, of a live migration (zero keeps the QEMU default).
+     */
+    private static final String PROPERTY_MIGRATION_BANDWIDTH_VALUE = "0";
+
+    /**
+     * The name of the property key to define the maximum time, in
+     * milliseconds, a migrating guest may be paused at the switchover.
+     */
+    private static final String PROPERTY_MIGRATION_DOWNTIME_LIMIT_KEY = "migration_downtime_limit";
+
+    /**
+     * The value of the property that defines the maximum time, in
+     * milliseconds, a migrating guest may be paused at the switchover.
+     */
+    private static final String PROPERTY_MIGRATION_DOWNTIME_LIMIT_VALUE = "300";
+
+    /**
+     * The name of the property key to define the number of parallel
+     * channels of a live migration (zero disables multifd).
+     */
+    private static final String PROPERTY_MIGRATION_MULTIFD_CHANNELS_KEY = "migration_multifd_channels";
+
+    /**
+     * The value of the property that defines the number of parallel
+     * channels of a live migration (zero disables multifd).
+     */
+    private static final String PROPERTY_MIGRATION_MULTIFD_CHANNELS_VALUE = "0";
+
+    /**
+     * The name of the property key to define whether a live migration
+     * switches to postcopy once the first pass over the memory is done.
+     */
+    private static final String PROPERTY_MIGRATION_POSTCOPY_KEY = "migration_postcopy";
+
+    /**
+     * The value of the property that defines whether a live migration
+     * switches to postcopy once the first pass over the memory is done.
+     */
+    private static final String PROPERTY_MIGRATION_POSTCOPY_VALUE = "false";
+
+    /**
+     * The name of the property key to define the time, in milliseconds,
+     * between the progress queries of a live migration.
+     */
+    private static final String PROPERTY_MIGRATION_POLL_INTERVAL_KEY = "migration_poll_interval";
+
+    /**
+     * The value of the property that defines the time, in milliseconds,
+     * between the progress queries of a live migration.
+     */
+    private static final String PROPERTY_MIGRATION_POLL_INTERVAL_VALUE = "250";
+
+    /**
+     * The name of the property key to define the time, in milliseconds, a
+     * live migration may take before it is cancelled.
+     */
+    private static final String PROPERTY_MIGRATION_TIMEOUT_KEY = "migration_timeout";
+
+    /**
+     * The value of the property that defines the time, in milliseconds, a
+     * live migration may take before it is cancelled.
+     */
+    private static final String PROPERTY_MIGRATION_TIMEOUT_VALUE = "600000";
+
+    /**
+     * The name of the property key to define the number of commands that
+     * may wait in the mailbox of an instance.
+     */
+    private static final String PROPERTY_MAILBOX_CAPACITY_KEY = "mailbox_capacity";
+
+    /**
+     * The value of the property that defines the number of commands that
+     * may wait in the mailbox of an instance.
+     */
+    private static final String PROPERTY_MAILBOX_CAPACITY_VALUE = "64";
+
+    /**
+     * The name of the property key to define the time, in milliseconds, a
+     * command waits for room in a full mailbox before it fails.
+     */
+    private static final String PROPERTY_MAILBOX_OFFER_TIMEOUT_KEY = "mailbox_offer_timeout";
+
+    /**
+     * The value of the property that defines the time, in milliseconds, a
+     * command waits for room in a full mailbox before it fails.
+     */
+    private static final String PROPERTY_MAILBOX_OFFER_TIMEOUT_VALUE = "0";
+
+    /**
+     * The name of the property key to define the time, in milliseconds, the
+     * replies to each read-only query command are cached.
+     */
+    private static final String PROPERTY_QUERY_CACHE_TTLS_KEY = "query_cache_ttls";
+
+    /**
+     * The value of the property that defines the time, in milliseconds, the
+     * replies to each read-only query command are cached.
+     */
+    private static final String PROPERTY_QUERY_CACHE_TTLS_VALUE = "query-status:500,query-cpus-fast:1000,query-block:2000";
+
+    /**
+     * The name of the property key to define the time, in milliseconds, to
+     * connect to the QMP server of an instance and to read its greeting.
+     */
+    private static final String PROPERTY_QMP_CONNECT_TIMEOUT_KEY = "qmp_connect_timeout";
+
+    /**
+     * The value of the property that defines the time, in milliseconds, to
+     * connect to the QMP server of an instance and to read its greeting.
+     */
+    private static final String PROPERTY_QMP_CONNECT_TIMEOUT_VALUE = "1000";
+
+    /**
+     * The name of the property key to define the time, in milliseconds,
+     * between the heartbeat pings of the QMP connection of an idle
+     * instance.
+     */
+    private static final String PROPERTY_QMP_HEARTBEAT_INTERVAL_KEY = "qmp_heartbeat_interval";
+
+    /**
+     * The value of the property that defines the time, in milliseconds,
+     * between the heartbeat pings of the QMP connection of an idle
+     * instance.
+     */
+    private static final String PROPERTY_QMP_HEARTBEAT_INTERVAL_VALUE = "5000";
+
+    /**
+     * The name of the property key to define the number of consecutive
+     * failures of the QMP connection of an instance that open its circuit
+     * breaker.
+     */
+    private static final String PROPERTY_QMP_BREAKER_THRESHOLD_KEY = "qmp_breaker_threshold";
+
+    /**
+     * The value of the property that defines the number of consecutive
+     * failures of the QMP connection of an instance that open its circuit
+     * breaker.
+     */
+    private static final String PROPERTY_QMP_BREAKER_THRESHOLD_VALUE = "3";
+
+    /**
+     * The name of the property key to define the time, in milliseconds, an
+     * open circuit breaker first waits before a reconnection is tried.
+     */
+    private static final String PROPERTY_QMP_BACKOFF_INITIAL_KEY = "qmp_backoff_initial";
+
+    /**
+     * The value of the property that defines the time, in milliseconds, an
+     * open circuit breaker first waits before a reconnection is tried.
+     */
+    private static final String PROPERTY_QMP_BACKOFF_INITIAL_VALUE = "100";
+
+    /**
+     * The name of the property key to define the longest time, in
+     * milliseconds, an open circuit breaker waits before a reconnection is
+     * tried.
+     */
+    private static final String PROPERTY_QMP_BACKOFF_MAX_KEY = "qmp_backoff_max";
+
+    /**
+     * The value of the property that defines the longest time, in
+     * milliseconds, an open circuit breaker waits before a reconnection is
+     * tried.
+     */
+    private static final String PROPERTY_QMP_BACKOFF_MAX_VALUE = "30000";
+
+    /**
+     * The name of the property key to define the time, in milliseconds,
+     * between the sweeps of the watchdog over every instance.
+     */
+    private static final String PROPERTY_WATCHDOG_INTERVAL_KEY = "watchdog_interval";
+
+    /**
+     * The value of the property that defines the time, in milliseconds,
+     * between the sweeps of the watchdog over every instance.
+     */
+    private static final String PROPERTY_WATCHDOG_INTERVAL_VALUE = "5000";
+
+    /**
+     * The name of the property key to define the number of instances the
+     * watchdog probes at the same time.
+     */
+    private static final String PROPERTY_WATCHDOG_CONCURRENCY_KEY = "watchdog_concurrency";
+
+    /**
+     * The value of the property that defines the number of instances the
+     * watchdog probes at the same time.
+     */
+    private static final String PROPERTY_WATCHDOG_CONCURRENCY_VALUE = "4";
+
+    /**
+     * The name of the property key to define the time, in milliseconds, a
+     * QMP command may wait for its reply before the watchdog deems the
+     * instance unresponsive.
+     */
+    private static final String PROPERTY_WATCHDOG_RESPONSE_TIMEOUT_KEY = "watchdog_response_timeout";
+
+    /**
+     * The value of the property that defines the time, in milliseconds, a
+     * QMP command may wait for its reply before the watchdog deems the
+     * instance unresponsive.
+     */
+    private static final String PROPERTY_WATCHDOG_RESPONSE_TIMEOUT_VALUE = "15000";
+
+    /**
+     * The name of the property key to define the number of consecutive
+     * probes of a running instance without any CPU progress after which the
+     * watchdog deems it stalled.
+     */
+    private static final String PROPERTY_WATCHDOG_STALL_PROBES_KEY = "watchdog_stall_probes";
+
+    /**
+     * The value of the property that defines the number of consecutive
+     * probes of a running instance without any CPU progress after which the
+     * watchdog deems it stalled.
+     */
+    private static final String PROPERTY_WATCHDOG_STALL_PROBES_VALUE = "6";
+
+    /**
+     * The name of the property key to define the remedy the watchdog
+     * applies to an unhealthy instance.
+     */
+    private static final String PROPERTY_WATCHDOG_REMEDY_KEY = "watchdog_remedy";
+
+    /**
+     * The value of the property that defines the remedy the watchdog
+     * applies to an unhealthy instance.
+     */
+    private static final String PROPERTY_WATCHDOG_REMEDY_VALUE = "alert";
+
+    /**
+     * The name of the property key to define the lowest level of the
+     * records that are logged.
+     */
+    private static final String PROPERTY_LOG_LEVEL_KEY = "log_level";
+
+    /**
+     * The value of the property that defines the lowest level of the
+     * records that are logged.
+     */
+    private static final String PROPERTY_LOG_LEVEL_VALUE = "INFO";
+
+    /**
+     * The name of the property key to define the size at which the log file
+     * is rotated.
+     */
+    private static final String PROPERTY_LOG_FILE_LIMIT_KEY = "log_file_limit";
+
+    /**
+     * The value of the property that defines the size at which the log file
+     * is rotated.
+     */
+    private static final String PROPERTY_LOG_FILE_LIMIT_VALUE = "0";
+
+    /**
+     * The name of the property key to define the number of rotated log
+     * files kept.
+     */
+    private static final String PROPERTY_LOG_FILE_COUNT_KEY = "log_file_count";
+
+    /**
+     * The value of the property that defines the number of rotated log
+     * files kept.
+     */
+    private static final String PROPERTY_LOG_FILE_COUNT_VALUE = "1";
+
+    /**
+     * The name of the property key to define the number of records that may
+     * wait to be written to the log file.
+     */
+    private static final String PROPERTY_LOG_BUFFER_KEY = "log_buffer";
+
+    /**
+     * The value of the property that defines the number of records that may
+     * wait to be written to the log file.
+     */
+    private static final String PROPERTY_LOG_BUFFER_VALUE = "8192";
+
+    /**
+     * The name of the property key to define the records dropped when the
+     * log buffer is full.
+     */
+    private static final String PROPERTY_LOG_DROP_POLICY_KEY = "log_drop_policy";
+
+    /**
+     * The value of the property that defines the records dropped when the
+     * log buffer is full.
+     */
+    private static final String PROPERTY_LOG_DROP_POLICY_VALUE = "newest";
+
+    /**
+     * The name of the property key to define the time between two samples
+     * of the host resources used by the instances.
+     */
+    private static final String PROPERTY_RESOURCE_SAMPLE_INTERVAL_KEY = "resource_sample_interval";
+
+    /**
+     * The value of the property that defines the time between two samples
+     * of the host resources used by the instances.
+     */
+    private static final String PROPERTY_RESOURCE_SAMPLE_INTERVAL_VALUE = "5000";
+
+    /**
+     * The name of the property key to define the number of samples of the
+     * host resources kept per instance.
+     */
+    private static final String PROPERTY_RESOURCE_SAMPLE_CAPACITY_KEY = "resource_sample_capacity";
+
+    /**
+     * The value of the property that defines the number of samples of the
+     * host resources kept per instance.
+     */
+    private static final String PROPERTY_RESOURCE_SAMPLE_CAPACITY_VALUE = "720";
+
+    /**
+     * The name of the property key to define the base time between two
+     * polls of the guest statistics of an instance.
+     */
+    private static final String PROPERTY_GUEST_STATS_INTERVAL_KEY = "guest_stats_interval";
+
+    /**
+     * The value of the property that defines the base time between two
+     * polls of the guest statistics of an instance.
+     */
+    private static final String PROPERTY_GUEST_STATS_INTERVAL_VALUE = "10000";
+
+    /**
+     * The name of the property key to define the longest time between two
+     * polls of the guest statistics of an idle instance.
+     */
+    private static final String PROPERTY_GUEST_STATS_MAX_INTERVAL_KEY = "guest_stats_max_interval";
+
+    /**
+     * The value of the property that defines the longest time between two
+     * polls of the guest statistics of an idle instance.
+     */
+    private static final String PROPERTY_GUEST_STATS_MAX_INTERVAL_VALUE = "80000";
+
+    /**
+     * The name of the property key to define the rate of exits of the
+     * virtual CPUs below which a guest is idle.
+     */
+    private static final String PROPERTY_GUEST_STATS_IDLE_EXITS_KEY = "guest_stats_idle_exits";
+
+    /**
+     * The value of the property that defines the rate of exits of the
+     * virtual CPUs below which a guest is idle.
+     */
+    private static final String PROPERTY_GUEST_STATS_IDLE_EXITS_VALUE = "100";
+
+    /**
+     * The name of the property key to define the number of samples of the
+     * guest statistics kept per instance.
+     */
+    private static final String PROPERTY_GUEST_STATS_CAPACITY_KEY = "guest_stats_capacity";
+
+    /**
+     * The value of the property that defines the number of samples of the
+     * guest statistics kept per instance.
+     */
+    private static final String PROPERTY_GUEST_STATS_CAPACITY_VALUE = "360";
+
+    /**
+     * The name of the property key to define the path of the balloon device
+     * whose guest memory statistics are polled.
+     */
+    private static final String PROPERTY_GUEST_STATS_BALLOON_PATH_KEY = "guest_stats_balloon_path";
+
+    /**
+     * The value of the property that defines the path of the balloon device
+     * whose guest memory statistics are polled.
+     */
+    private static final String PROPERTY_GUEST_STATS_BALLOON_PATH_VALUE = "/machine/peripheral/balloon0";
+
+    /**
+     * The name of the property key to define the number of finished trace
+     * spans kept for export.
+     */
+    private static final String PROPERTY_TRACE_BUFFER_KEY = "trace_buffer";
+
+    /**
+     * The value of the property that defines the number of finished trace
+     * spans kept for export.
+     */
+    private static final String PROPERTY_TRACE_BUFFER_VALUE = "16384";
+
+    /**
+     * The name of the property key to define the file to which the trace
+     * spans are exported when the manager shuts down.
+     */
+    private static final String PROPERTY_TRACE_FILE_KEY = "trace_file";
+
+    /**
+     * The value of the property that defines the file to which the trace
+     * spans are exported when the manager shuts down.
+     */
+    private static final String PROPERTY_TRACE_FILE_VALUE = "";
+
+    /**
+     * The name of the property key to define the launcher of the instances.
+     */
+    private static final String PROPERTY_LAUNCHER_KEY = "launcher";
+
+    /**
+     * The value of the property that defines the launcher of the instances.
+     */
+    private static final String PROPERTY_LAUNCHER_VALUE = "qemu";
+
+    /**
+     * The name of the property key to define the backend of the instances.
+     */
+    private static final String PROPERTY_INSTANCE_BACKEND_KEY = "instance_backend";
+
+    /**
+     * The value of the property that defines the backend of the instances.
+     */
+    private static final String PROPERTY_INSTANCE_BACKEND_VALUE = "qemu";
+
+    /**
+     * The name of the property key to define the time, in milliseconds, a
+     * bulk launch waits for the QMP monitor of each instance to answer.
+     */
+    private static final String PROPERTY_BULK_LAUNCH_READY_TIMEOUT_KEY = "bulk_launch_ready_timeout";
+
+    /**
+     * The value of the property that defines the time, in milliseconds, a
+     * bulk launch waits for the QMP monitor of each instance to answer.
+     */
+    private static final String PROPERTY_BULK_LAUNCH_READY_TIMEOUT_VALUE = "30000";
+
+    /**
+     * The name of the property key to define the token that the clients of
+     * the HTTP and of the binary control APIs, the members of a federation
+     * included, must present.
+     */
+    private static final String PROPERTY_ACCESS_TOKEN_KEY = "access_token";
+
+    /**
+     * The value of the property that defines the token that the clients of
+     * the control APIs must present, a random one per process being drawn if
+     * it is empty.
+     */
+    private static final String PROPERTY_ACCESS_TOKEN_VALUE = "";
+
+    /**
+     * The name of the property key to define the time, in milliseconds, a
+     * member of a federation waits for the reply of another one before
+     * deeming the request failed.
+     */
+    private static final String PROPERTY_FEDERATION_REQUEST_TIMEOUT_KEY = "federation_request_timeout";
+
+    /**
+     * The value of the property that defines the time, in milliseconds, a
+     * member of a federation waits for the reply of another one before
+     * deeming the request failed.
+     */
+    private static final String PROPERTY_FEDERATION_REQUEST_TIMEOUT_VALUE = "30000";
+
+    /**
+     * The number of random bytes of the token drawn when none is configured.
+     */
+    private static final int TOKEN_BYTES = 24;
+
+    /**
+     * The holder of the singleton object of the settings. The JVM builds it
+     * once, on first use, and publishes it safely to every thread that reads
+     * the settings.
+     */
+    private static final class Holder {
+
+        /**
+         * The singleton object of the settings.
+         */
+        private static final Settings SINGLETON = new Settings();
+
+    }
+
+    /**
+     * The properties that store all the configurations. They are filled
+     * before being published, so that a reader never sees a load in
+     * progress.
+     */
+    private volatile Properties properties;
 
     /**
      * The logger that will log occurrences to the file.
      */
-    private Logger logger;
+    private volatile Logger logger;
+
+    /**
+     * The random token of the control APIs of this process, used when none
+     * is configured.
+     */
+    private final String drawnToken;
+
+    /**
+     * A private constructor to ensure the singleton pattern. It loads the
+     * configurations from the default file.
+     */
+    private Settings() {
+        byte[] random = new byte[TOKEN_BYTES];
+        new SecureRandom().nextBytes(random);
+        drawnToken = Base64.getUrlEncoder().withoutPadding().encodeToString(random);
+        loadProperties(PROPERTIES_FILE_NAME);
+    }
+
+    /**
+     * A private getter of the singleton. The singleton should not be given
+     * directly, rather their functions should be called directly.
+     *
+     * @return the singleton object.
+     */
+    private static Settings settings() {
+        return Holder.SINGLETON;
+    }
+
+    /**
+     * It loads the configuration from the given file path and name. If it
+     * fails, it will load the default configurations.
+     *
+     * @param file the file path followed by the its name.
+     * @return <ul><li>a {@link Success} if the file configurations were
+     * loaded;</li><li>a {@link Fail} if the default configurations were
+     * loaded;</li></ul>
+     */
+    public static ExecutionResult loadConfigurations(String file) {
+        Log.entering(Settings.class.getName(), "loadConfigurations", file);
+        ExecutionResult result;
+        if (settings().loadProperties(file)) {
+            result = Success.achieved(SUCCESSFUL_LOADING_MESSAGE);
+        } else {
+            result = Fail.because(Reason.FILE_UNAVAILABLE);
+        }
+        Log.exiting(Settings.class.getName(), "loadConfigurations", result);
+        return result;
+    }
+
+    /**
+     * A getter to the logger object. The library logs through the {@link Log}
+     * facade, which checks the level before building anything.
+     *
+     * @return the logger that logs into the file.
+     */
+    public static Logger logger() {
+        return settings().logger;
+    }
+
+    /**
+     * It provides the path in which the QEMU is installed and can be executed,
+     * i.e. the value store ate the property
+     * {@link Settings#PROPERTY_QEMU_PATH_KEY}.
+     *
+     * @return the QEMU path.
+     */
+    public static String getQemuPath() {
+        return settings().getProperty(PROPERTY_QEMU_PATH_KEY);
+    }
+
+    /**
+     * It provides the starting port number to be assigned to the instances,
+     * i.e. the value store ate the property
+     * {@link Settings#PROPERTY_INITIAL_PORT_NUMBER_KEY}.
+     *
+     * @return the starting port number to be assigned.
+     */
+    public static int getStartingPortNumber() {
+        return Integer.parseInt(settings().getProperty(PROPERTY_INITIAL_PORT_NUMBER_KEY));
+    }
+
+    /**
+     * It provides the ratio between the guest memory that may be committed and
+     * the physical memory of the host, i.e. the value stored at the property
+     * {@link Settings#PROPERTY_MEMORY_OVERCOMMIT_RATIO_KEY}.
+     *
+     * @return the memory overcommit ratio.
+     */
+    public static double getMemoryOvercommitRatio() {
+        return Double.parseDouble(settings().getProperty(PROPERTY_MEMORY_OVERCOMMIT_RATIO_KEY, PROPERTY_MEMORY_OVERCOMMIT_RATIO_VALUE));
+    }
+
+    /**
+     * It provides the ratio between the virtual CPUs that may be committed and
+     * the CPUs of the host, i.e. the value stored at the property
+     * {@link Settings#PROPERTY_CPU_OVERCOMMIT_RATIO_KEY}.
+     *
+     * @return the CPU overcommit ratio.
+     */
+    public static double getCpuOvercommitRatio() {
+        return Double.parseDouble(settings().getProperty(PROPERTY_CPU_OVERCOMMIT_RATIO_KEY, PROPERTY_CPU_OVERCOMMIT_RATIO_VALUE));
+    }
+
+    /**
+     * It provides the policy applied to launches that exceed the host
+     * capacity, i.e. the value stored at the property
+     * {@link Settings#PROPERTY_ADMISSION_POLICY_KEY}.
+     *
+     * @return the admission policy («reject» or «queue»).
+     */
+    public static String getAdmissionPolicy() {
+        return settings().getProperty(PROPERTY_ADMISSION_POLICY_KEY, PROPERTY_ADMISSION_POLICY_VALUE);
+    }
+
+    /**
+     * It provides how long a queued launch waits for capacity, i.e. the value
+     * stored at the property {@link Settings#PROPERTY_ADMISSION_TIMEOUT_KEY}.
+     *
+     * @return the queue timeout in milliseconds.
+     */
+    public static long getAdmissionQueueTimeout() {
+        return Long.parseLong(settings().getProperty(PROPERTY_ADMISSION_TIMEOUT_KEY, PROPERTY_ADMISSION_TIMEOUT_VALUE));
+    }
+
+    /**
+     * It provides the maximum number of instances launched at the same time by
+     * a bulk launch, i.e. the value stored at the property
+     * {@link Settings#PROPERTY_BULK_LAUNCH_WINDOW_KEY}.
+     *
+     * @return the bulk launch window.
+     */
+    public static int getBulkLaunchWindow() {
+        return Integer.parseInt(settings().getProperty(PROPERTY_BULK_LAUNCH_WINDOW_KEY, PROPERTY_BULK_LAUNCH_WINDOW_VALUE));
+    }
+
+    /**
+     * It provides the maximum number of launches started per second by a bulk
+     * launch, i.e. the value stored at the property
+     * {@link Settings#PROPERTY_BULK_LAUNCH_RAMP_RATE_KEY}.
+     *
+     * @return the bulk launch ramp rate.
+     */
+    public static double getBulkLaunchRampRate() {
+        return Double.parseDouble(settings().getProperty(PROPERTY_BULK_LAUNCH_RAMP_RATE_KEY, PROPERTY_BULK_LAUNCH_RAMP_RATE_VALUE));
+    }
+
+    /**
+     * It provides the time the shutdown of the whole fleet may take, i.e. the
+     * value stored at the property
+     * {@link Settings#PROPERTY_SHUTDOWN_DEADLINE_KEY}.
+     *
+     * @return the shutdown deadline in milliseconds.
+     */
+    public static long getShutdownDeadline() {
+        return Long.parseLong(settings().getProperty(PROPERTY_SHUTDOWN_DEADLINE_KEY, PROPERTY_SHUTDOWN_DEADLINE_VALUE));
+    }
+
+    /**
+     * It provides the time the guests are given to power down on shutdown, i.e.
+     * the value stored at the property
+     * {@link Settings#PROPERTY_SHUTDOWN_POWERDOWN_GRACE_KEY}.
+     *
+     * @return the powerdown grace in milliseconds.
+     */
+    public static long getShutdownPowerdownGrace() {
+        return Long.parseLong(settings().getProperty(PROPERTY_SHUTDOWN_POWERDOWN_GRACE_KEY, PROPERTY_SHUTDOWN_POWERDOWN_GRACE_VALUE));
+    }
+
+    /**
+     * It provides the time an instance is given to exit after a QMP «quit» on
+     * shutdown, i.e. the value stored at the property
+     * {@link Settings#PROPERTY_SHUTDOWN_QUIT_GRACE_KEY}.
+     *
+     * @return the quit grace in milliseconds.
+     */
+    public static long getShutdownQuitGrace() {
+        return Long.parseLong(settings().getProperty(PROPERTY_SHUTDOWN_QUIT_GRACE_KEY, PROPERTY_SHUTDOWN_QUIT_GRACE_VALUE));
+    }
+
+    /**
+     * It provides the time an instance is given to exit after a SIGTERM on
+     * shutdown, i.e. the value stored at the property
+     * {@link Settings#PROPERTY_SHUTDOWN_TERM_GRACE_KEY}.
+     *
+     * @return the SIGTERM grace in milliseconds.
+     */
+    public static long getShutdownTermGrace() {
+        return Long.parseLong(settings().getProperty(PROPERTY_SHUTDOWN_TERM_GRACE_KEY, PROPERTY_SHUTDOWN_TERM_GRACE_VALUE));
+    }
+
+    /**
+     * It provides the file path and name of the journal of the running
+     * instances, i.e. the value stored at the property
+     * {@link Settings#PROPERTY_JOURNAL_FILE_KEY}.
+     *
+     * @return the journal file or an empty text if journaling is disabled.
+     */
+    public static String getJournalFile() {
+        return settings().getProperty(PROPERTY_JOURNAL_FILE_KEY, PROPERTY_JOURNAL_FILE_VALUE).trim();
+    }
+
+    /**
+     * It provides the number of journal lines after which the journal is
+     * compacted, i.e. the value stored at the property
+     * {@link Settings#PROPERTY_JOURNAL_COMPACTION_KEY}.
+     *
+     * @return the compaction threshold.
+     */
+    public static int getJournalCompactionThreshold() {
+        return Integer.parseInt(settings().getProperty(PROPERTY_JOURNAL_COMPACTION_KEY, PROPERTY_JOURNAL_COMPACTION_VALUE));
+    }
+
+    /**
+     * It provides the TCP port on which the HTTP control API listens on the
+     * loopback interface, i.e. the value stored at the property
+     * {@link Settings#PROPERTY_HTTP_PORT_KEY}.
+     *
+     * @return the HTTP port (zero for an ephemeral one).
+     */
+    public static int getHttpPort() {
+        return Integer.parseInt(settings().getProperty(PROPERTY_HTTP_PORT_KEY, PROPERTY_HTTP_PORT_VALUE).trim());
+    }
+
+    /**
+     * It provides the number of events buffered for each streaming client
+     * of the HTTP control API, i.e. the value stored at the property
+     * {@link Settings#PROPERTY_HTTP_EVENT_BUFFER_KEY}.
+     *
+     * @return the size of the event buffer of each client.
+     */
+    public static int getHttpEventBuffer() {
+        return Integer.parseInt(settings().getProperty(PROPERTY_HTTP_EVENT_BUFFER_KEY, PROPERTY_HTTP_EVENT_BUFFER_VALUE).trim());
+    }
+
+    /**
+     * It provides the TCP port on which the binary control protocol listens
+     * on the loopback interface, i.e. the value stored at the property
+     * {@link Settings#PROPERTY_BINARY_PORT_KEY}.
+     *
+     * @return the binary port (zero for an ephemeral one).
+     */
+    public static int getBinaryPort() {
+        return Integer.parseInt(settings().getProperty(PROPERTY_BINARY_PORT_KEY, PROPERTY_BINARY_PORT_VALUE).trim());
+    }
 
     /**
-     * A private constructor to ensure the singleton pattern. It loads the
-     * configurations from the default file.
+     * It provides the path of the Unix domain socket on which the binary
+     * control protocol listens, i.e. the value stored at the property
+     * {@link Settings#PROPERTY_BINARY_SOCKET_KEY}.
+     *
+     * @return the socket path or an empty text to listen on the TCP port
+     * instead.
      */
-    private Settings() {
-        loadProperties(PROPERTIES_FILE_NAME);
+    public static String getBinarySocket() {
+        return settings().getProperty(PROPERTY_BINARY_SOCKET_KEY, PROPERTY_BINARY_SOCKET_VALUE).trim();
     }
 
     /**
-     * A private getter of the singleton. The singleton should not be given
-     * directly, rather their functions should be called directly.
+     * It provides the identification of this manager within a federation of
+     * managers, i.e. the value stored at the property
+     * {@link Settings#PROPERTY_FEDERATION_NODE_KEY}.
      *
-     * @return the singleton object.
+     * @return the node identification.
      */
-    private static Settings settings() {
-        if (singleton == null) {
-            singleton = new Settings();
-        }
-        return singleton;
+    public static String getFederationNode() {
+        return settings().getProperty(PROPERTY_FEDERATION_NODE_KEY, PROPERTY_FEDERATION_NODE_VALUE).trim();
     }
 
     /**
-     * It loads the configuration from the given file path and name. If it
-     * fails, it will load the default configurations.
+     * It provides the address on which this manager listens for, and is
+     * reached by, the other members of a federation, i.e. the value stored
+     * at the property {@link Settings#PROPERTY_FEDERATION_HOST_KEY}.
      *
-     * @param file the file path followed by the its name.
-     * @return <ul><li>a {@link Success} if the file configurations were
-     * loaded;</li><li>a {@link Fail} if the default configurations were
-     * loaded;</li></ul>
+     * @return the host name or IP address.
      */
-    public static ExecutionResult loadConfigurations(String file) {
-        logger().entering(Settings.class.getName(), "loadConfigurations", file);
-        ExecutionResult result;
-        if (settings().loadProperties(file)) {
-            result = Success.achieved(SUCCESSFUL_LOADING_MESSAGE);
-        } else {
-            result = Fail.because(Reason.FILE_UNAVAILABLE);
-        }
-        logger().exiting(Settings.class.getName(), "loadConfigurations", result);
-        return result;
+    public static String getFederationHost() {
+        return settings().getProperty(PROPERTY_FEDERATION_HOST_KEY, PROPERTY_FEDERATION_HOST_VALUE).trim();
     }
 
     /**
-     * A getter to the logger object.
+     * It provides the comma separated addresses, as «host:port», of the
+     * members of a federation to register with on start, i.e. the value
+     * stored at the property
+     * {@link Settings#PROPERTY_FEDERATION_SEEDS_KEY}.
      *
-     * @return the logger that logs into the file.
+     * @return the seeds or an empty text to start a new federation.
      */
-    public static Logger logger() {
-        return settings().logger;
+    public static String getFederationSeeds() {
+        return settings().getProperty(PROPERTY_FEDERATION_SEEDS_KEY, PROPERTY_FEDERATION_SEEDS_VALUE).trim();
     }
 
     /**
-     * It provides the path in which the QEMU is installed and can be executed,
-     * i.e. the value store ate the property
-     * {@link Settings#PROPERTY_QEMU_PATH_KEY}.
+     * It provides how a federation places new instances on its members,
+     * i.e. the value stored at the property
+     * {@link Settings#PROPERTY_FEDERATION_PLACEMENT_KEY}.
      *
-     * @return the QEMU path.
+     * @return the placement policy («consistent_hash» or «least_loaded»).
      */
-    public static String getQemuPath() {
-        return settings().getProperty(PROPERTY_QEMU_PATH_KEY);
+    public static String getFederationPlacement() {
+        return settings().getProperty(PROPERTY_FEDERATION_PLACEMENT_KEY, PROPERTY_FEDERATION_PLACEMENT_VALUE).trim();
     }
 
     /**
-     * It provides the starting port number to be assigned to the instances,
-     * i.e. the value store ate the property
-     * {@link Settings#PROPERTY_INITIAL_PORT_NUMBER_KEY}.
+     * It provides the interval, in milliseconds, between the heartbeats
+     * exchanged by the members of a federation, i.e. the value stored at
+     * the property {@link Settings#PROPERTY_FEDERATION_HEARTBEAT_KEY}.
      *
-     * @return the starting port number to be assigned.
+     * @return the heartbeat interval in milliseconds.
      */
-    public static int getStartingPortNumber() {
-        return Integer.parseInt(settings().getProperty(PROPERTY_INITIAL_PORT_NUMBER_KEY));
+    public static long getFederationHeartbeat() {
+        return Long.parseLong(settings().getProperty(PROPERTY_FEDERATION_HEARTBEAT_KEY, PROPERTY_FEDERATION_HEARTBEAT_VALUE).trim());
+    }
+
+    /**
+     * It provides the time, in milliseconds, without heartbeats after which
+     * a member of a federation is considered down, i.e. the value stored at
+     * the property {@link Settings#PROPERTY_FEDERATION_TIMEOUT_KEY}.
+     *
+     * @return the member timeout in milliseconds.
+     */
+    public static long getFederationTimeout() {
+        return Long.parseLong(settings().getProperty(PROPERTY_FEDERATION_TIMEOUT_KEY, PROPERTY_FEDERATION_TIMEOUT_VALUE).trim());
+    }
+
+    /**
+     * It provides the maximum bandwidth of a live migration, i.e. the value
+     * stored at the property
+     * {@link Settings#PROPERTY_MIGRATION_BANDWIDTH_KEY}.
+     *
+     * @return the bandwidth in MiB per second or zero to keep the QEMU
+     * default.
+     */
+    public static long getMigrationBandwidth() {
+        return Long.parseLong(settings().getProperty(PROPERTY_MIGRATION_BANDWIDTH_KEY, PROPERTY_MIGRATION_BANDWIDTH_VALUE));
+    }
+
+    /**
+     * It provides the maximum time a migrating guest may be paused at the
+     * switchover, i.e. the value stored at the property
+     * {@link Settings#PROPERTY_MIGRATION_DOWNTIME_LIMIT_KEY}.
+     *
+     * @return the downtime limit in milliseconds.
+     */
+    public static long getMigrationDowntimeLimit() {
+        return Long.parseLong(settings().getProperty(PROPERTY_MIGRATION_DOWNTIME_LIMIT_KEY, PROPERTY_MIGRATION_DOWNTIME_LIMIT_VALUE));
+    }
+
+    /**
+     * It provides the number of parallel channels of a live migration, i.e.
+     * the value stored at the property
+     * {@link Settings#PROPERTY_MIGRATION_MULTIFD_CHANNELS_KEY}.
+     *
+     * @return the number of channels or zero to migrate over a single one.
+     */
+    public static int getMigrationMultifdChannels() {
+        return Integer.parseInt(settings().getProperty(PROPERTY_MIGRATION_MULTIFD_CHANNELS_KEY, PROPERTY_MIGRATION_MULTIFD_CHANNELS_VALUE));
+    }
+
+    /**
+     * It provides whether a live migration switches to postcopy once the
+     * first pass over the memory is done, i.e. the value stored at the
+     * property {@link Settings#PROPERTY_MIGRATION_POSTCOPY_KEY}.
+     *
+     * @return true to switch to postcopy or false to stay in precopy.
+     */
+    public static boolean getMigrationPostcopy() {
+        return Boolean.parseBoolean(settings().getProperty(PROPERTY_MIGRATION_POSTCOPY_KEY, PROPERTY_MIGRATION_POSTCOPY_VALUE));
+    }
+
+    /**
+     * It provides the time between the progress queries of a live
+     * migration, i.e. the value stored at the property
+     * {@link Settings#PROPERTY_MIGRATION_POLL_INTERVAL_KEY}.
+     *
+     * @return the interval in milliseconds.
+     */
+    public static long getMigrationPollInterval() {
+        return Long.parseLong(settings().getProperty(PROPERTY_MIGRATION_POLL_INTERVAL_KEY, PROPERTY_MIGRATION_POLL_INTERVAL_VALUE));
+    }
+
+    /**
+     * It provides the time a live migration may take before it is
+     * cancelled, i.e. the value stored at the property
+     * {@link Settings#PROPERTY_MIGRATION_TIMEOUT_KEY}.
+     *
+     * @return the timeout in milliseconds.
+     */
+    public static long getMigrationTimeout() {
+        return Long.parseLong(settings().getProperty(PROPERTY_MIGRATION_TIMEOUT_KEY, PROPERTY_MIGRATION_TIMEOUT_VALUE));
+    }
+
+    /**
+     * It provides the number of commands that may wait in the mailbox of an
+     * instance, i.e. the value stored at the property
+     * {@link Settings#PROPERTY_MAILBOX_CAPACITY_KEY}.
+     *
+     * @return the capacity of the mailbox.
+     */
+    public static int getMailboxCapacity() {
+        return Integer.parseInt(settings().getProperty(PROPERTY_MAILBOX_CAPACITY_KEY, PROPERTY_MAILBOX_CAPACITY_VALUE));
+    }
+
+    /**
+     * It provides the time a command waits for room in a full mailbox
+     * before it fails, i.e. the value stored at the property
+     * {@link Settings#PROPERTY_MAILBOX_OFFER_TIMEOUT_KEY}.
+     *
+     * @return the timeout in milliseconds or zero to fail fast.
+     */
+    public static long getMailboxOfferTimeout() {
+        return Long.parseLong(settings().getProperty(PROPERTY_MAILBOX_OFFER_TIMEOUT_KEY, PROPERTY_MAILBOX_OFFER_TIMEOUT_VALUE));
+    }
+
+    /**
+     * It provides the time, in milliseconds, the replies to each read-only
+     * query command are cached, as comma separated pairs of the name of the
+     * command and its time, i.e. the value stored at the property
+     * {@link Settings#PROPERTY_QUERY_CACHE_TTLS_KEY}.
+     *
+     * @return the times to live or an empty text to cache no reply.
+     */
+    public static String getQueryCacheTtls() {
+        return settings().getProperty(PROPERTY_QUERY_CACHE_TTLS_KEY, PROPERTY_QUERY_CACHE_TTLS_VALUE).trim();
+    }
+
+    /**
+     * It provides the time to connect to the QMP server of an instance and
+     * to read its greeting, i.e. the value stored at the property
+     * {@link Settings#PROPERTY_QMP_CONNECT_TIMEOUT_KEY}.
+     *
+     * @return the connect timeout in milliseconds.
+     */
+    public static long getQmpConnectTimeout() {
+        return Long.parseLong(settings().getProperty(PROPERTY_QMP_CONNECT_TIMEOUT_KEY, PROPERTY_QMP_CONNECT_TIMEOUT_VALUE));
+    }
+
+    /**
+     * It provides the time between the heartbeat pings of the QMP
+     * connection of an idle instance, i.e. the value stored at the property
+     * {@link Settings#PROPERTY_QMP_HEARTBEAT_INTERVAL_KEY}.
+     *
+     * @return the interval in milliseconds or zero to send no heartbeat.
+     */
+    public static long getQmpHeartbeatInterval() {
+        return Long.parseLong(settings().getProperty(PROPERTY_QMP_HEARTBEAT_INTERVAL_KEY, PROPERTY_QMP_HEARTBEAT_INTERVAL_VALUE));
+    }
+
+    /**
+     * It provides the number of consecutive failures of the QMP connection
+     * of an instance that open its circuit breaker, i.e. the value stored
+     * at the property {@link Settings#PROPERTY_QMP_BREAKER_THRESHOLD_KEY}.
+     *
+     * @return the failure threshold.
+     */
+    public static int getQmpBreakerThreshold() {
+        return Integer.parseInt(settings().getProperty(PROPERTY_QMP_BREAKER_THRESHOLD_KEY, PROPERTY_QMP_BREAKER_THRESHOLD_VALUE));
+    }
+
+    /**
+     * It provides the time an open circuit breaker first waits before a
+     * reconnection is tried, which doubles after every failed one, i.e. the
+     * value stored at the property
+     * {@link Settings#PROPERTY_QMP_BACKOFF_INITIAL_KEY}.
+     *
+     * @return the initial backoff in milliseconds.
+     */
+    public static long getQmpBackoffInitial() {
+        return Long.parseLong(settings().getProperty(PROPERTY_QMP_BACKOFF_INITIAL_KEY, PROPERTY_QMP_BACKOFF_INITIAL_VALUE));
+    }
+
+    /**
+     * It provides the longest time an open circuit breaker waits before a
+     * reconnection is tried, i.e. the value stored at the property
+     * {@link Settings#PROPERTY_QMP_BACKOFF_MAX_KEY}.
+     *
+     * @return the maximum backoff in milliseconds.
+     */
+    public static long getQmpBackoffMax() {
+        return Long.parseLong(settings().getProperty(PROPERTY_QMP_BACKOFF_MAX_KEY, PROPERTY_QMP_BACKOFF_MAX_VALUE));
+    }
+
+    /**
+     * It provides the time between the sweeps of the watchdog over every
+     * instance, i.e. the value stored at the property
+     * {@link Settings#PROPERTY_WATCHDOG_INTERVAL_KEY}.
+     *
+     * @return the interval in milliseconds or zero to disable the watchdog.
+     */
+    public static long getWatchdogInterval() {
+        return Long.parseLong(settings().getProperty(PROPERTY_WATCHDOG_INTERVAL_KEY, PROPERTY_WATCHDOG_INTERVAL_VALUE));
+    }
+
+    /**
+     * It provides the number of instances the watchdog probes at the same
+     * time, i.e. the value stored at the property
+     * {@link Settings#PROPERTY_WATCHDOG_CONCURRENCY_KEY}.
+     *
+     * @return the number of concurrent probes.
+     */
+    public static int getWatchdogConcurrency() {
+        return Integer.parseInt(settings().getProperty(PROPERTY_WATCHDOG_CONCURRENCY_KEY, PROPERTY_WATCHDOG_CONCURRENCY_VALUE));
+    }
+
+    /**
+     * It provides the time a QMP command may wait for its reply before the
+     * watchdog deems the instance unresponsive, i.e. the value stored at
+     * the property {@link Settings#PROPERTY_WATCHDOG_RESPONSE_TIMEOUT_KEY}.
+     *
+     * @return the response timeout in milliseconds.
+     */
+    public static long getWatchdogResponseTimeout() {
+        return Long.parseLong(settings().getProperty(PROPERTY_WATCHDOG_RESPONSE_TIMEOUT_KEY, PROPERTY_WATCHDOG_RESPONSE_TIMEOUT_VALUE));
+    }
+
+    /**
+     * It provides the number of consecutive probes of a running instance
+     * without any CPU progress after which the watchdog deems it stalled,
+     * i.e. the value stored at the property
+     * {@link Settings#PROPERTY_WATCHDOG_STALL_PROBES_KEY}.
+     *
+     * @return the number of probes.
+     */
+    public static int getWatchdogStallProbes() {
+        return Integer.parseInt(settings().getProperty(PROPERTY_WATCHDOG_STALL_PROBES_KEY, PROPERTY_WATCHDOG_STALL_PROBES_VALUE));
+    }
+
+    /**
+     * It provides the remedy the watchdog applies to an unhealthy instance:
+     * «alert», «restart» or «kill», i.e. the value stored at the property
+     * {@link Settings#PROPERTY_WATCHDOG_REMEDY_KEY}.
+     *
+     * @return the remedy.
+     */
+    public static String getWatchdogRemedy() {
+        return settings().getProperty(PROPERTY_WATCHDOG_REMEDY_KEY, PROPERTY_WATCHDOG_REMEDY_VALUE).trim();
+    }
+
+    /**
+     * It provides the lowest level of the records that are logged, e.g.
+     * «INFO» or «FINEST», i.e. the value stored at the property
+     * {@link Settings#PROPERTY_LOG_LEVEL_KEY}.
+     *
+     * @return the name of the level.
+     */
+    public static String getLogLevel() {
+        return settings().getProperty(PROPERTY_LOG_LEVEL_KEY, PROPERTY_LOG_LEVEL_VALUE).trim();
+    }
+
+    /**
+     * It provides the size at which the log file is rotated, i.e. the value
+     * stored at the property {@link Settings#PROPERTY_LOG_FILE_LIMIT_KEY}.
+     *
+     * @return the limit in bytes (zero for no rotation).
+     */
+    public static int getLogFileLimit() {
+        return settings().getIntegerProperty(PROPERTY_LOG_FILE_LIMIT_KEY, PROPERTY_LOG_FILE_LIMIT_VALUE);
+    }
+
+    /**
+     * It provides the number of rotated log files kept, i.e. the value
+     * stored at the property {@link Settings#PROPERTY_LOG_FILE_COUNT_KEY}.
+     *
+     * @return the number of log files.
+     */
+    public static int getLogFileCount() {
+        return settings().getIntegerProperty(PROPERTY_LOG_FILE_COUNT_KEY, PROPERTY_LOG_FILE_COUNT_VALUE);
+    }
+
+    /**
+     * It provides the number of records that may wait to be written to the
+     * log file by its writer thread, i.e. the value stored at the property
+     * {@link Settings#PROPERTY_LOG_BUFFER_KEY}.
+     *
+     * @return the capacity of the buffer (zero to write on the calling
+     * thread).
+     */
+    public static int getLogBuffer() {
+        return settings().getIntegerProperty(PROPERTY_LOG_BUFFER_KEY, PROPERTY_LOG_BUFFER_VALUE);
+    }
+
+    /**
+     * It provides which records are dropped when the log buffer is full:
+     * «newest» or «oldest», i.e. the value stored at the property
+     * {@link Settings#PROPERTY_LOG_DROP_POLICY_KEY}.
+     *
+     * @return the drop policy.
+     */
+    public static String getLogDropPolicy() {
+        return settings().getProperty(PROPERTY_LOG_DROP_POLICY_KEY, PROPERTY_LOG_DROP_POLICY_VALUE).trim();
+    }
+
+    /**
+     * It provides the time between two samples of the host resources used
+     * by the instances, i.e. the value stored at the property
+     * {@link Settings#PROPERTY_RESOURCE_SAMPLE_INTERVAL_KEY}.
+     *
+     * @return the interval in milliseconds (zero to disable the sampling).
+     */
+    public static long getResourceSampleInterval() {
+        return Long.parseLong(settings().getProperty(PROPERTY_RESOURCE_SAMPLE_INTERVAL_KEY, PROPERTY_RESOURCE_SAMPLE_INTERVAL_VALUE));
+    }
+
+    /**
+     * It provides the number of samples of the host resources kept per
+     * instance, i.e. the value stored at the property
+     * {@link Settings#PROPERTY_RESOURCE_SAMPLE_CAPACITY_KEY}.
+     *
+     * @return the capacity of the time series.
+     */
+    public static int getResourceSampleCapacity() {
+        return Integer.parseInt(settings().getProperty(PROPERTY_RESOURCE_SAMPLE_CAPACITY_KEY, PROPERTY_RESOURCE_SAMPLE_CAPACITY_VALUE));
+    }
+
+    /**
+     * It provides the base time between two polls of the guest statistics
+     * of an instance, i.e. the value stored at the property
+     * {@link Settings#PROPERTY_GUEST_STATS_INTERVAL_KEY}.
+     *
+     * @return the interval in milliseconds (zero to disable the polls).
+     */
+    public static long getGuestStatsInterval() {
+        return Long.parseLong(settings().getProperty(PROPERTY_GUEST_STATS_INTERVAL_KEY, PROPERTY_GUEST_STATS_INTERVAL_VALUE));
+    }
+
+    /**
+     * It provides the longest time the polls of the guest statistics of an
+     * idle instance back off to, i.e. the value stored at the property
+     * {@link Settings#PROPERTY_GUEST_STATS_MAX_INTERVAL_KEY}.
+     *
+     * @return the interval in milliseconds.
+     */
+    public static long getGuestStatsMaxInterval() {
+        return Long.parseLong(settings().getProperty(PROPERTY_GUEST_STATS_MAX_INTERVAL_KEY, PROPERTY_GUEST_STATS_MAX_INTERVAL_VALUE));
+    }
+
+    /**
+     * It provides the rate of exits of the virtual CPUs of a guest below
+     * which it is deemed idle, i.e. the value stored at the property
+     * {@link Settings#PROPERTY_GUEST_STATS_IDLE_EXITS_KEY}.
+     *
+     * @return the rate in exits per second.
+     */
+    public static long getGuestStatsIdleExits() {
+        return Long.parseLong(settings().getProperty(PROPERTY_GUEST_STATS_IDLE_EXITS_KEY, PROPERTY_GUEST_STATS_IDLE_EXITS_VALUE));
+    }
+
+    /**
+     * It provides the number of samples of the guest statistics kept per
+     * instance, i.e. the value stored at the property
+     * {@link Settings#PROPERTY_GUEST_STATS_CAPACITY_KEY}.
+     *
+     * @return the capacity of the time series.
+     */
+    public static int getGuestStatsCapacity() {
+        return Integer.parseInt(settings().getProperty(PROPERTY_GUEST_STATS_CAPACITY_KEY, PROPERTY_GUEST_STATS_CAPACITY_VALUE));
+    }
+
+    /**
+     * It provides the path, in the object model of the QEMU, of the balloon
+     * device whose guest memory statistics are polled, i.e. the value
+     * stored at the property
+     * {@link Settings#PROPERTY_GUEST_STATS_BALLOON_PATH_KEY}.
+     *
+     * @return the path of the balloon device.
+     */
+    public static String getGuestStatsBalloonPath() {
+        return settings().getProperty(PROPERTY_GUEST_STATS_BALLOON_PATH_KEY, PROPERTY_GUEST_STATS_BALLOON_PATH_VALUE).trim();
+    }
+
+    /**
+     * It provides the number of finished trace spans kept for export, the
+     * oldest being overwritten, i.e. the value stored at the property
+     * {@link Settings#PROPERTY_TRACE_BUFFER_KEY}.
+     *
+     * @return the capacity of the ring of spans (zero to keep none).
+     */
+    public static int getTraceBuffer() {
+        return Integer.parseInt(settings().getProperty(PROPERTY_TRACE_BUFFER_KEY, PROPERTY_TRACE_BUFFER_VALUE));
+    }
+
+    /**
+     * It provides the file to which the trace spans are exported, in the
+     * Chrome trace event format, when the manager shuts down, i.e. the
+     * value stored at the property
+     * {@link Settings#PROPERTY_TRACE_FILE_KEY}.
+     *
+     * @return the path of the file (empty to not export the spans).
+     */
+    public static String getTraceFile() {
+        return settings().getProperty(PROPERTY_TRACE_FILE_KEY, PROPERTY_TRACE_FILE_VALUE).trim();
+    }
+
+    /**
+     * It provides the launcher of the instances, either the QEMU binaries
+     * or the in-process stand-ins of a {@link Simulation.FakeQmpServer},
+     * i.e. the value stored at the property
+     * {@link Settings#PROPERTY_LAUNCHER_KEY}.
+     *
+     * @return the launcher («qemu» or «fake»).
+     */
+    public static String getLauncher() {
+        return settings().getProperty(PROPERTY_LAUNCHER_KEY, PROPERTY_LAUNCHER_VALUE).trim();
+    }
+
+    /**
+     * It provides the backend of the instances the manager builds, either
+     * the QEMU or the in-memory simulation of the
+     * {@link Instances.SimulatedInstance}, i.e. the value stored at the
+     * property {@link Settings#PROPERTY_INSTANCE_BACKEND_KEY}.
+     *
+     * @return the backend («qemu» or «simulated»).
+     */
+    public static String getInstanceBackend() {
+        return settings().getProperty(PROPERTY_INSTANCE_BACKEND_KEY, PROPERTY_INSTANCE_BACKEND_VALUE).trim();
+    }
+
+    /**
+     * It provides the time, in milliseconds, a bulk launch waits for the
+     * QMP monitor of each instance to answer, i.e. the value stored at the
+     * property {@link Settings#PROPERTY_BULK_LAUNCH_READY_TIMEOUT_KEY}.
+     *
+     * @return the bulk launch ready timeout.
+     */
+    public static long getBulkLaunchReadyTimeout() {
+        return Long.parseLong(settings().getProperty(PROPERTY_BULK_LAUNCH_READY_TIMEOUT_KEY, PROPERTY_BULK_LAUNCH_READY_TIMEOUT_VALUE));
+    }
+
+    /**
+     * It provides the token that the clients of the HTTP and of the binary
+     * control APIs must present, i.e. the value stored at the property
+     * {@link Settings#PROPERTY_ACCESS_TOKEN_KEY}. The members of a federation
+     * must be configured with the same token.
+     *
+     * @return the token or, if none is configured, a random one drawn once
+     * for this process.
+     */
+    public static String getAccessToken() {
+        Settings current = settings();
+        String token = current.getProperty(PROPERTY_ACCESS_TOKEN_KEY, PROPERTY_ACCESS_TOKEN_VALUE).trim();
+        return token.isEmpty() ? current.drawnToken : token;
+    }
+
+    /**
+     * It provides the time, in milliseconds, a member of a federation waits
+     * for the reply of another one, i.e. the value stored at the property
+     * {@link Settings#PROPERTY_FEDERATION_REQUEST_TIMEOUT_KEY}.
+     *
+     * @return the request timeout in milliseconds.
+     */
+    public static long getFederationRequestTimeout() {
+        return Long.parseLong(settings().getProperty(PROPERTY_FEDERATION_REQUEST_TIMEOUT_KEY, PROPERTY_FEDERATION_REQUEST_TIMEOUT_VALUE).trim());
     }
 
     /**
@@ -177,15 +1613,16 @@ public class Settings {
      * @return true if the properties are loaded from the file or false if the
      * default ones are loaded.
      */
-    private boolean loadProperties(String file) {
-        properties = new Properties();
+    private synchronized boolean loadProperties(String file) {
         try {
             InputStream propertiesInputStream = new FileInputStream(new File(file));
             if (propertiesInputStream == null) {
                 throw new IOException();
             }
-            properties.load(propertiesInputStream);
+            Properties loaded = new Properties();
+            loaded.load(propertiesInputStream);
             propertiesInputStream.close();
+            properties = loaded;
             loadLogger();
             logger.fine(SUCCESSFUL_LOADING_MESSAGE);
             return true;
@@ -200,10 +1637,71 @@ public class Settings {
      * It loads the default configurations.
      */
     private void loadDefaultProperties() {
-        properties = new Properties();
-        properties.setProperty(PROPERTY_QEMU_PATH_KEY, PROPERTY_QEMU_PATH_VALUE);
-        properties.setProperty(PROPERTY_LOG_FILE_NAME_KEY, PROPERTY_LOG_FILE_NAME_VALUE);
-        properties.setProperty(PROPERTY_INITIAL_PORT_NUMBER_KEY, PROPERTY_INITIAL_PORT_NUMBER_VALUE);
+        Properties defaults = new Properties();
+        defaults.setProperty(PROPERTY_QEMU_PATH_KEY, PROPERTY_QEMU_PATH_VALUE);
+        defaults.setProperty(PROPERTY_LOG_FILE_NAME_KEY, PROPERTY_LOG_FILE_NAME_VALUE);
+        defaults.setProperty(PROPERTY_INITIAL_PORT_NUMBER_KEY, PROPERTY_INITIAL_PORT_NUMBER_VALUE);
+        defaults.setProperty(PROPERTY_MEMORY_OVERCOMMIT_RATIO_KEY, PROPERTY_MEMORY_OVERCOMMIT_RATIO_VALUE);
+        defaults.setProperty(PROPERTY_CPU_OVERCOMMIT_RATIO_KEY, PROPERTY_CPU_OVERCOMMIT_RATIO_VALUE);
+        defaults.setProperty(PROPERTY_ADMISSION_POLICY_KEY, PROPERTY_ADMISSION_POLICY_VALUE);
+        defaults.setProperty(PROPERTY_ADMISSION_TIMEOUT_KEY, PROPERTY_ADMISSION_TIMEOUT_VALUE);
+        defaults.setProperty(PROPERTY_BULK_LAUNCH_WINDOW_KEY, PROPERTY_BULK_LAUNCH_WINDOW_VALUE);
+        defaults.setProperty(PROPERTY_BULK_LAUNCH_RAMP_RATE_KEY, PROPERTY_BULK_LAUNCH_RAMP_RATE_VALUE);
+        defaults.setProperty(PROPERTY_SHUTDOWN_DEADLINE_KEY, PROPERTY_SHUTDOWN_DEADLINE_VALUE);
+        defaults.setProperty(PROPERTY_SHUTDOWN_POWERDOWN_GRACE_KEY, PROPERTY_SHUTDOWN_POWERDOWN_GRACE_VALUE);
+        defaults.setProperty(PROPERTY_SHUTDOWN_QUIT_GRACE_KEY, PROPERTY_SHUTDOWN_QUIT_GRACE_VALUE);
+        defaults.setProperty(PROPERTY_SHUTDOWN_TERM_GRACE_KEY, PROPERTY_SHUTDOWN_TERM_GRACE_VALUE);
+        defaults.setProperty(PROPERTY_JOURNAL_FILE_KEY, PROPERTY_JOURNAL_FILE_VALUE);
+        defaults.setProperty(PROPERTY_JOURNAL_COMPACTION_KEY, PROPERTY_JOURNAL_COMPACTION_VALUE);
+        defaults.setProperty(PROPERTY_HTTP_PORT_KEY, PROPERTY_HTTP_PORT_VALUE);
+        defaults.setProperty(PROPERTY_HTTP_EVENT_BUFFER_KEY, PROPERTY_HTTP_EVENT_BUFFER_VALUE);
+        defaults.setProperty(PROPERTY_BINARY_PORT_KEY, PROPERTY_BINARY_PORT_VALUE);
+        defaults.setProperty(PROPERTY_BINARY_SOCKET_KEY, PROPERTY_BINARY_SOCKET_VALUE);
+        defaults.setProperty(PROPERTY_FEDERATION_NODE_KEY, PROPERTY_FEDERATION_NODE_VALUE);
+        defaults.setProperty(PROPERTY_FEDERATION_HOST_KEY, PROPERTY_FEDERATION_HOST_VALUE);
+        defaults.setProperty(PROPERTY_FEDERATION_SEEDS_KEY, PROPERTY_FEDERATION_SEEDS_VALUE);
+        defaults.setProperty(PROPERTY_FEDERATION_PLACEMENT_KEY, PROPERTY_FEDERATION_PLACEMENT_VALUE);
+        defaults.setProperty(PROPERTY_FEDERATION_HEARTBEAT_KEY, PROPERTY_FEDERATION_HEARTBEAT_VALUE);
+        defaults.setProperty(PROPERTY_FEDERATION_TIMEOUT_KEY, PROPERTY_FEDERATION_TIMEOUT_VALUE);
+        defaults.setProperty(PROPERTY_MIGRATION_BANDWIDTH_KEY, PROPERTY_MIGRATION_BANDWIDTH_VALUE);
+        defaults.setProperty(PROPERTY_MIGRATION_DOWNTIME_LIMIT_KEY, PROPERTY_MIGRATION_DOWNTIME_LIMIT_VALUE);
+        defaults.setProperty(PROPERTY_MIGRATION_MULTIFD_CHANNELS_KEY, PROPERTY_MIGRATION_MULTIFD_CHANNELS_VALUE);
+        defaults.setProperty(PROPERTY_MIGRATION_POSTCOPY_KEY, PROPERTY_MIGRATION_POSTCOPY_VALUE);
+        defaults.setProperty(PROPERTY_MIGRATION_POLL_INTERVAL_KEY, PROPERTY_MIGRATION_POLL_INTERVAL_VALUE);
+        defaults.setProperty(PROPERTY_MIGRATION_TIMEOUT_KEY, PROPERTY_MIGRATION_TIMEOUT_VALUE);
+        defaults.setProperty(PROPERTY_MAILBOX_CAPACITY_KEY, PROPERTY_MAILBOX_CAPACITY_VALUE);
+        defaults.setProperty(PROPERTY_MAILBOX_OFFER_TIMEOUT_KEY, PROPERTY_MAILBOX_OFFER_TIMEOUT_VALUE);
+        defaults.setProperty(PROPERTY_QUERY_CACHE_TTLS_KEY, PROPERTY_QUERY_CACHE_TTLS_VALUE);
+        defaults.setProperty(PROPERTY_QMP_CONNECT_TIMEOUT_KEY, PROPERTY_QMP_CONNECT_TIMEOUT_VALUE);
+        defaults.setProperty(PROPERTY_QMP_HEARTBEAT_INTERVAL_KEY, PROPERTY_QMP_HEARTBEAT_INTERVAL_VALUE);
+        defaults.setProperty(PROPERTY_QMP_BREAKER_THRESHOLD_KEY, PROPERTY_QMP_BREAKER_THRESHOLD_VALUE);
+        defaults.setProperty(PROPERTY_QMP_BACKOFF_INITIAL_KEY, PROPERTY_QMP_BACKOFF_INITIAL_VALUE);
+        defaults.setProperty(PROPERTY_QMP_BACKOFF_MAX_KEY, PROPERTY_QMP_BACKOFF_MAX_VALUE);
+        defaults.setProperty(PROPERTY_WATCHDOG_INTERVAL_KEY, PROPERTY_WATCHDOG_INTERVAL_VALUE);
+        defaults.setProperty(PROPERTY_WATCHDOG_CONCURRENCY_KEY, PROPERTY_WATCHDOG_CONCURRENCY_VALUE);
+        defaults.setProperty(PROPERTY_WATCHDOG_RESPONSE_TIMEOUT_KEY, PROPERTY_WATCHDOG_RESPONSE_TIMEOUT_VALUE);
+        defaults.setProperty(PROPERTY_WATCHDOG_STALL_PROBES_KEY, PROPERTY_WATCHDOG_STALL_PROBES_VALUE);
+        defaults.setProperty(PROPERTY_WATCHDOG_REMEDY_KEY, PROPERTY_WATCHDOG_REMEDY_VALUE);
+        defaults.setProperty(PROPERTY_LOG_LEVEL_KEY, PROPERTY_LOG_LEVEL_VALUE);
+        defaults.setProperty(PROPERTY_LOG_FILE_LIMIT_KEY, PROPERTY_LOG_FILE_LIMIT_VALUE);
+        defaults.setProperty(PROPERTY_LOG_FILE_COUNT_KEY, PROPERTY_LOG_FILE_COUNT_VALUE);
+        defaults.setProperty(PROPERTY_LOG_BUFFER_KEY, PROPERTY_LOG_BUFFER_VALUE);
+        defaults.setProperty(PROPERTY_LOG_DROP_POLICY_KEY, PROPERTY_LOG_DROP_POLICY_VALUE);
+        defaults.setProperty(PROPERTY_RESOURCE_SAMPLE_INTERVAL_KEY, PROPERTY_RESOURCE_SAMPLE_INTERVAL_VALUE);
+        defaults.setProperty(PROPERTY_RESOURCE_SAMPLE_CAPACITY_KEY, PROPERTY_RESOURCE_SAMPLE_CAPACITY_VALUE);
+        defaults.setProperty(PROPERTY_GUEST_STATS_INTERVAL_KEY, PROPERTY_GUEST_STATS_INTERVAL_VALUE);
+        defaults.setProperty(PROPERTY_GUEST_STATS_MAX_INTERVAL_KEY, PROPERTY_GUEST_STATS_MAX_INTERVAL_VALUE);
+        defaults.setProperty(PROPERTY_GUEST_STATS_IDLE_EXITS_KEY, PROPERTY_GUEST_STATS_IDLE_EXITS_VALUE);
+        defaults.setProperty(PROPERTY_GUEST_STATS_CAPACITY_KEY, PROPERTY_GUEST_STATS_CAPACITY_VALUE);
+        defaults.setProperty(PROPERTY_GUEST_STATS_BALLOON_PATH_KEY, PROPERTY_GUEST_STATS_BALLOON_PATH_VALUE);
+        defaults.setProperty(PROPERTY_TRACE_BUFFER_KEY, PROPERTY_TRACE_BUFFER_VALUE);
+        defaults.setProperty(PROPERTY_TRACE_FILE_KEY, PROPERTY_TRACE_FILE_VALUE);
+        defaults.setProperty(PROPERTY_LAUNCHER_KEY, PROPERTY_LAUNCHER_VALUE);
+        defaults.setProperty(PROPERTY_INSTANCE_BACKEND_KEY, PROPERTY_INSTANCE_BACKEND_VALUE);
+        defaults.setProperty(PROPERTY_BULK_LAUNCH_READY_TIMEOUT_KEY, PROPERTY_BULK_LAUNCH_READY_TIMEOUT_VALUE);
+        defaults.setProperty(PROPERTY_ACCESS_TOKEN_KEY, PROPERTY_ACCESS_TOKEN_VALUE);
+        defaults.setProperty(PROPERTY_FEDERATION_REQUEST_TIMEOUT_KEY, PROPERTY_FEDERATION_REQUEST_TIMEOUT_VALUE);
+        properties = defaults;
 
         try {
             loadLogger();
@@ -213,20 +1711,41 @@ public class Settings {
     }
 
     /**
-     * It builds the logger in order to log to the file.
+     * It builds the logger in order to log to the file. The file is rotated
+     * at {@link Settings#PROPERTY_LOG_FILE_LIMIT_KEY} bytes and, unless
+     * {@link Settings#PROPERTY_LOG_BUFFER_KEY} is zero, written by an
+     * {@link AsyncHandler}. The handlers of a former load are closed.
      *
      * @throws IOException due to
-     * {@link FileHandler#FileHandler(java.lang.String)}.
+     * {@link FileHandler#FileHandler(java.lang.String, int, int)}.
      */
     private void loadLogger() throws IOException {
         String logFileName = getProperty(PROPERTY_LOG_FILE_NAME_KEY);
-        FileHandler fileHandler = new FileHandler(logFileName);
+        int limit = getIntegerProperty(PROPERTY_LOG_FILE_LIMIT_KEY, PROPERTY_LOG_FILE_LIMIT_VALUE);
+        int count = getIntegerProperty(PROPERTY_LOG_FILE_COUNT_KEY, PROPERTY_LOG_FILE_COUNT_VALUE);
+        int capacity = getIntegerProperty(PROPERTY_LOG_BUFFER_KEY, PROPERTY_LOG_BUFFER_VALUE);
+        Level level;
+        try {
+            level = Level.parse(getProperty(PROPERTY_LOG_LEVEL_KEY, PROPERTY_LOG_LEVEL_VALUE).trim());
+        } catch (IllegalArgumentException ex) {
+            level = Level.INFO;
+        }
+        logger = Logger.getLogger(logFileName);
+        for (Handler former : logger.getHandlers()) {
+            logger.removeHandler(former);
+            former.close();
+        }
+        FileHandler fileHandler = new FileHandler(logFileName, Math.max(0, limit), Math.max(1, count));
         SimpleFormatter formatter = new SimpleFormatter();
         fileHandler.setFormatter(formatter);
-        logger = Logger.getLogger(logFileName);
+        Handler handler = fileHandler;
+        if (capacity > 0) {
+            handler = AsyncHandler.create(fileHandler, capacity,
+                    AsyncHandler.policy(getProperty(PROPERTY_LOG_DROP_POLICY_KEY, PROPERTY_LOG_DROP_POLICY_VALUE)));
+        }
         logger.setUseParentHandlers(false);
-        logger.addHandler(fileHandler);
-        logger.setLevel(Level.FINEST);
+        logger.addHandler(handler);
+        logger.setLevel(level);
     }
 
     /**
@@ -239,4 +1758,34 @@ public class Settings {
         return properties.getProperty(propertyName);
     }
 
+    /**
+     * A getter of a property that falls back to a default value, so that
+     * configuration files written before the property existed keep working.
+     *
+     * @param propertyName the key name of the property to get.
+     * @param defaultValue the value to use if the property is not defined.
+     * @return the property value.
+     */
+    private String getProperty(String propertyName, String defaultValue) {
+        return properties.getProperty(propertyName, defaultValue);
+    }
+
+    /**
+     * A getter of an integer property that falls back to a default value,
+     * both when the property is absent and when it is not an integer, so
+     * that a malformed value does not prevent the settings from loading.
+     *
+     * @param propertyName the key name of the property to get.
+     * @param defaultValue the value to use if the property is absent or
+     * malformed, which must be an integer.
+     * @return the value of the property or the default value.
+     */
+    private int getIntegerProperty(String propertyName, String defaultValue) {
+        try {
+            return Integer.parseInt(getProperty(propertyName, defaultValue).trim());
+        } catch (NumberFormatException ex) {
+            return Integer.parseInt(defaultValue);
+        }
+    }
+
 }
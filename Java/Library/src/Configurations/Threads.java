@@ -0,0 +1,90 @@
+/*
+ *                      QEMU INSTANCES MANAGER LIBRARY
+ *                                Java Version
+ * 
+ * PRODUCT OWNER: Research Centre in Real-Time & Embedded Computing Systems
+ * PROJECT MANAGER: Luís Pinho and Cláudio Maia {lmn,clrrm}@isep.ipp.pt
+ * DEVELOPER: Manuel Meireles ( mjcdm@isep.ipp.pt )
+ * DATE: 24/11/2017
+ * SCOPE: CISTER Summer Internship 2017
+ * VERSION: 1.0
+ */
+package Configurations;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * The library threading configurations. It provides the executors of the
+ * front ends, which run every request on its own thread: a virtual thread
+ * when the JVM supports them or a pooled daemon platform thread otherwise.
+ * Virtual threads are looked up reflectively, so that the library still runs
+ * on JVMs without them.
+ *
+ * @author Manuel Meireles ( mjcdm@isep.ipp.pt )
+ */
+public class Threads {
+
+    /**
+     * The factory method of the executor of virtual threads. It is null if
+     * the JVM has no virtual threads.
+     */
+    private static final Method VIRTUAL_THREAD_PER_TASK = lookup();
+
+    /**
+     * A private constructor since the class only has static methods.
+     */
+    private Threads() {
+    }
+
+    /**
+     * It builds an executor that runs each task on its own thread: a new
+     * virtual thread if the JVM supports them or an unbounded cached pool of
+     * daemon platform threads otherwise. Neither queues a task behind a
+     * blocked one.
+     *
+     * @param name the name of the platform threads.
+     * @return the built executor.
+     */
+    public static ExecutorService perTask(String name) {
+        if (VIRTUAL_THREAD_PER_TASK != null) {
+            try {
+                return (ExecutorService) VIRTUAL_THREAD_PER_TASK.invoke(null);
+            } catch (ReflectiveOperationException | RuntimeException ex) {
+                Log.warning("{0}", ex);
+            }
+        }
+        return Executors.newCachedThreadPool(runnable -> {
+            Thread thread = new Thread(runnable, name);
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * An indicator of whether the executors run their tasks on virtual
+     * threads.
+     *
+     * @return true if the JVM supports virtual threads or false otherwise.
+     */
+    public static boolean virtual() {
+        return VIRTUAL_THREAD_PER_TASK != null;
+    }
+
+    /**
+     * It looks up the factory method of the executor of virtual threads.
+     *
+     * @return the factory method or null if the JVM has no virtual threads.
+     */
+    private static Method lookup() {
+        try {
+            Method factory = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            ((ExecutorService) factory.invoke(null)).shutdown();
+            return factory;
+        } catch (ReflectiveOperationException | RuntimeException ex) {
+            return null;
+        }
+    }
+
+}
@@ -0,0 +1,168 @@
+/*
+ *                      QEMU INSTANCES MANAGER LIBRARY
+ *                                Java Version
+ * 
+ * PRODUCT OWNER: Research Centre in Real-Time & Embedded Computing Systems
+ * PROJECT MANAGER: Luís Pinho and Cláudio Maia {lmn,clrrm}@isep.ipp.pt
+ * DEVELOPER: Manuel Meireles ( mjcdm@isep.ipp.pt )
+ * DATE: 24/11/2017
+ * SCOPE: CISTER Summer Internship 2017
+ * VERSION: 1.0
+ */
+package Events;
+
+import Instances.InstanceID;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * An event published by the manager. It holds what happened, to which
+ * instance, when and a free text detail. Events are numbered in the order
+ * they were created, so that a client can detect the ones it missed.
+ *
+ * @see EventBus
+ * @author Manuel Meireles ( mjcdm@isep.ipp.pt )
+ */
+public class Event {
+
+    /**
+     * The types of events.
+     */
+    public enum Type {
+        BUILT,
+        STARTED,
+        CONTINUED,
+        SUSPENDED,
+        SHUTDOWN,
+        RETAGGED,
+        TERMINATED,
+        MIGRATING,
+        MIGRATED,
+        UNHEALTHY,
+        RECOVERED,
+        RESTARTED
+    }
+
+    /**
+     * The sequence number of the next event.
+     */
+    private static final AtomicLong NEXT_SEQUENCE = new AtomicLong(1);
+
+    /**
+     * The sequence number of the event.
+     */
+    private final long sequence;
+
+    /**
+     * The time, in milliseconds since the epoch, at which the event happened.
+     */
+    private final long timestamp;
+
+    /**
+     * The type of the event.
+     */
+    private final Type type;
+
+    /**
+     * The identification of the instance the event refers to. It is null if
+     * the event refers to the manager itself.
+     */
+    private final InstanceID id;
+
+    /**
+     * A free text detail of the event. It may be null.
+     */
+    private final String detail;
+
+    /**
+     * A private constructor that initializes the event. Despite no validation
+     * is made, the type should not be null.
+     *
+     * @param theType the type of the event.
+     * @param theId the identification of the instance or null.
+     * @param theDetail the detail of the event or null.
+     */
+    private Event(Type theType, InstanceID theId, String theDetail) {
+        sequence = NEXT_SEQUENCE.getAndIncrement();
+        timestamp = System.currentTimeMillis();
+        type = theType;
+        id = theId;
+        detail = theDetail;
+    }
+
+    /**
+     * It builds an event that happened now.
+     *
+     * @param type the type of the event.
+     * @param id the identification of the instance or null if the event
+     * refers to the manager itself.
+     * @param detail the detail of the event or null.
+     * @return the built event.
+     */
+    public static Event create(Type type, InstanceID id, String detail) {
+        return new Event(type, id, detail);
+    }
+
+    /**
+     * A getter of the sequence number of the event.
+     *
+     * @return the {@link Event#sequence}.
+     */
+    public long sequence() {
+        return sequence;
+    }
+
+    /**
+     * A getter of the time at which the event happened.
+     *
+     * @return the {@link Event#timestamp} in milliseconds since the epoch.
+     */
+    public long timestamp() {
+        return timestamp;
+    }
+
+    /**
+     * A getter of the type of the event.
+     *
+     * @return the {@link Event#type}.
+     */
+    public Type type() {
+        return type;
+    }
+
+    /**
+     * A getter of the identification of the instance.
+     *
+     * @return the {@link Event#id}, which may be null.
+     */
+    public InstanceID id() {
+        return id;
+    }
+
+    /**
+     * A getter of the detail of the event.
+     *
+     * @return the {@link Event#detail}, which may be null.
+     */
+    public String detail() {
+        return detail;
+    }
+
+    /**
+     * The textual representation of the event.
+     *
+     * @return the sequence, the type, the instance and the detail.
+     */
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder();
+        builder.append('#').append(sequence).append(' ').append(type);
+        if (id != null) {
+            builder.append(' ').append(id);
+        }
+        if (detail != null) {
+            builder.append(" | ").append(detail);
+        }
+        return builder.toString();
+    }
+
+}
@@ -0,0 +1,96 @@
+/*
+ *                      QEMU INSTANCES MANAGER LIBRARY
+ *                                Java Version
+ * 
+ * PRODUCT OWNER: Research Centre in Real-Time & Embedded Computing Systems
+ * PROJECT MANAGER: Luís Pinho and Cláudio Maia {lmn,clrrm}@isep.ipp.pt
+ * DEVELOPER: Manuel Meireles ( mjcdm@isep.ipp.pt )
+ * DATE: 24/11/2017
+ * SCOPE: CISTER Summer Internship 2017
+ * VERSION: 1.0
+ */
+package Events;
+
+import Configurations.Log;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * A bus on which the events of the manager are published. Every subscribed
+ * listener receives every event, in the order they were published by each
+ * thread. Subscribing and unsubscribing may happen at any time, even while
+ * events are being delivered.
+ *
+ * @see Event
+ * @author Manuel Meireles ( mjcdm@isep.ipp.pt )
+ */
+public class EventBus {
+
+    /**
+     * The subscribed listeners. The list is copied on write since events are
+     * published far more often than listeners subscribe.
+     */
+    private final List<EventListener> listeners;
+
+    /**
+     * A private constructor that initializes the bus without listeners.
+     */
+    private EventBus() {
+        listeners = new CopyOnWriteArrayList<>();
+    }
+
+    /**
+     * It builds an event bus without listeners.
+     *
+     * @return the built event bus.
+     */
+    public static EventBus create() {
+        return new EventBus();
+    }
+
+    /**
+     * It subscribes a listener to every event published from now on.
+     *
+     * @param listener the listener to subscribe.
+     */
+    public void subscribe(EventListener listener) {
+        if (listener != null) {
+            listeners.add(listener);
+        }
+    }
+
+    /**
+     * It unsubscribes a listener, which will not receive any further event.
+     *
+     * @param listener the listener to unsubscribe.
+     */
+    public void unsubscribe(EventListener listener) {
+        listeners.remove(listener);
+    }
+
+    /**
+     * It delivers an event to every subscribed listener. A listener that
+     * throws is logged and does not prevent the delivery to the others.
+     *
+     * @param event the event to publish.
+     */
+    public void publish(Event event) {
+        for (EventListener listener : listeners) {
+            try {
+                listener.notify(event);
+            } catch (RuntimeException ex) {
+                Log.warning("{0}", ex);
+            }
+        }
+    }
+
+    /**
+     * It provides the number of subscribed listeners.
+     *
+     * @return the number of listeners.
+     */
+    public int listeners() {
+        return listeners.size();
+    }
+
+}
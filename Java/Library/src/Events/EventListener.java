@@ -0,0 +1,31 @@
+/*
+ *                      QEMU INSTANCES MANAGER LIBRARY
+ *                                Java Version
+ * 
+ * PRODUCT OWNER: Research Centre in Real-Time & Embedded Computing Systems
+ * PROJECT MANAGER: Luís Pinho and Cláudio Maia {lmn,clrrm}@isep.ipp.pt
+ * DEVELOPER: Manuel Meireles ( mjcdm@isep.ipp.pt )
+ * DATE: 24/11/2017
+ * SCOPE: CISTER Summer Internship 2017
+ * VERSION: 1.0
+ */
+package Events;
+
+/**
+ * The interface of a listener of the events of the manager.
+ *
+ * @see EventBus
+ * @author Manuel Meireles ( mjcdm@isep.ipp.pt )
+ */
+public interface EventListener {
+
+    /**
+     * It is called once for each published event, on the thread that
+     * published it. It should return quickly and never block, since the
+     * publisher is usually in the middle of an operation of the manager.
+     *
+     * @param event the published event.
+     */
+    void notify(Event event);
+
+}
@@ -0,0 +1,10 @@
+/**
+ * The package contains classes related to the concept of Event. An
+ * {@link Events.Event} is something that happened to an
+ * {@link Instances.Instance} or to the {@link Managers.InstanceManager}, such
+ * as an instance being started or shut down. The events are published on an
+ * {@link Events.EventBus} and delivered to every subscribed
+ * {@link Events.EventListener}, so that front ends can follow the manager
+ * without polling it.
+ */
+package Events;
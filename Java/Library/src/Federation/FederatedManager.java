@@ -0,0 +1,908 @@
+/*
+ *                      QEMU INSTANCES MANAGER LIBRARY
+ *                                Java Version
+ * 
+ * PRODUCT OWNER: Research Centre in Real-Time & Embedded Computing Systems
+ * PROJECT MANAGER: Luís Pinho and Cláudio Maia {lmn,clrrm}@isep.ipp.pt
+ * DEVELOPER: Manuel Meireles ( mjcdm@isep.ipp.pt )
+ * DATE: 24/11/2017
+ * SCOPE: CISTER Summer Internship 2017
+ * VERSION: 1.0
+ */
+package Federation;
+
+import Binary.BinaryClient;
+import Binary.BinaryServer;
+import Binary.Request;
+import Binary.Request.Operation;
+import Commands.BuildQemuInstance;
+import Commands.Command;
+import Communications.Creation;
+import Communications.ExecutionResult;
+import Communications.Fail;
+import Communications.Fail.Reason;
+import Communications.Headroom;
+import Communications.ListResult;
+import Communications.MapResult;
+import Communications.Success;
+import Configurations.Log;
+import Configurations.Settings;
+import Configurations.Threads;
+import Events.EventBus;
+import Instances.Instance;
+import Instances.InstanceID;
+import Instances.QemuInstanceID;
+import Managers.BulkLauncher;
+import Managers.InstanceManager;
+import Managers.LaunchListener;
+import Managers.QemuInstancesManager;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * A manager of a federation of managers. Each manager process runs one,
+ * which serves its local {@link QemuInstancesManager} to the other members
+ * through a {@link BinaryServer} and presents the {@link InstanceManager} API
+ * across the whole federation: new instances are placed on a member by the
+ * {@link Placement} and every other operation is routed to the member that
+ * holds the instance, whose node identification is carried by the
+ * {@link NodeInstanceID}.
+ * <p>
+ * The members find each other through registrations: on every heartbeat
+ * each member sends a {@link Operation#JOIN} with the members it knows of to
+ * the seeds and to every known member, and merges the members they know of
+ * from their replies. A member that stops answering for longer than the
+ * timeout is no longer given new instances.
+ * <p>
+ * Every request to another member is bounded by the request timeout, plus
+ * the time the operation itself may take for a migration or a shutdown, so
+ * that a member that hangs is reported as failed instead of blocking the
+ * whole federation.
+ * <p>
+ * The binary server of a member is reachable from the other hosts, so every
+ * connection to it must present the access token from the
+ * {@link Settings#getAccessToken()} before any registration or operation
+ * runs. The members of a federation must therefore be configured with the
+ * same token.
+ * <p>
+ * Several members may run on the same host, e.g. over the loopback
+ * interface, as long as each has its own node identification, binary port,
+ * QMP ports and journal.
+ *
+ * @see Membership
+ * @author Manuel Meireles ( mjcdm@isep.ipp.pt )
+ */
+public class FederatedManager implements InstanceManager {
+
+    /**
+     * The possible ways of choosing the member of a new instance.
+     */
+    public enum Placement {
+        CONSISTENT_HASH,
+        LEAST_LOADED
+    }
+
+    /**
+     * The tag of an instance whose value is its placement key. It is
+     * generated for instances that do not have one.
+     */
+    public static final String PLACEMENT_TAG = "placement";
+
+    /**
+     * The separator of the seeds at the {@link Settings}.
+     */
+    private static final String SEEDS_SEPARATOR = ",";
+
+    /**
+     * The manager of the instances held by this member.
+     */
+    private final InstanceManager local;
+
+    /**
+     * The view this member has of the federation.
+     */
+    private final Membership membership;
+
+    /**
+     * The way of choosing the member of a new instance.
+     */
+    private final Placement placement;
+
+    /**
+     * The addresses, as «host:port», of the members to register with.
+     */
+    private final List<String> seeds;
+
+    /**
+     * The time, in milliseconds, between registrations. It also bounds how
+     * long a member waits for the reply of another one.
+     */
+    private final long heartbeat;
+
+    /**
+     * The time, in milliseconds, a member waits for the reply of another one
+     * to a request other than a registration.
+     */
+    private final long requestTimeout;
+
+    /**
+     * The connections to the other members. The keys are their addresses.
+     */
+    private final Map<String, BinaryClient> clients;
+
+    /**
+     * The server of the local instances to the other members. It is null
+     * while the member is stopped.
+     */
+    private BinaryServer server;
+
+    /**
+     * The executor of the registrations. It is null while the member is
+     * stopped.
+     */
+    private ScheduledExecutorService heartbeats;
+
+    /**
+     * The executor of the requests fanned out to every member.
+     */
+    private final ExecutorService executor;
+
+    /**
+     * A private constructor that initializes the member. Despite no
+     * validations are made, none of the parameters should be null.
+     *
+     * @param theLocal the manager of the local instances.
+     * @param theSelf the member of this manager.
+     * @param theSeeds the addresses of the members to register with.
+     * @param thePlacement the way of choosing the member of a new instance.
+     * @param theHeartbeat the time between registrations.
+     * @param theTimeout the time after which a silent member is deemed dead.
+     * @param theRequestTimeout the time to wait for the reply of another
+     * member.
+     */
+    private FederatedManager(InstanceManager theLocal, Member theSelf, List<String> theSeeds,
+            Placement thePlacement, long theHeartbeat, long theTimeout, long theRequestTimeout) {
+        local = theLocal;
+        membership = Membership.create(theSelf, theTimeout);
+        seeds = new ArrayList<>(theSeeds);
+        placement = thePlacement;
+        heartbeat = theHeartbeat;
+        requestTimeout = theRequestTimeout;
+        clients = new ConcurrentHashMap<>();
+        executor = Threads.perTask("federation");
+    }
+
+    /**
+     * It builds a member of a federation around the local
+     * {@link QemuInstancesManager} with the node identification, the address,
+     * the seeds, the placement and the timings from the {@link Settings}. The
+     * member is reached at the {@link Settings#getBinaryPort()}.
+     *
+     * @return the built member.
+     * @throws IllegalArgumentException if the node identification is invalid.
+     */
+    public static FederatedManager create() {
+        Placement placement = Placement.CONSISTENT_HASH;
+        if (Placement.LEAST_LOADED.name().equalsIgnoreCase(Settings.getFederationPlacement())) {
+            placement = Placement.LEAST_LOADED;
+        }
+        List<String> seeds = new ArrayList<>();
+        for (String seed : Settings.getFederationSeeds().split(SEEDS_SEPARATOR)) {
+            if (!seed.trim().isEmpty()) {
+                seeds.add(seed.trim());
+            }
+        }
+        Member self = Member.create(Settings.getFederationNode(), Settings.getFederationHost(), Settings.getBinaryPort());
+        return create(QemuInstancesManager.getInstance(), self, seeds, placement,
+                Settings.getFederationHeartbeat(), Settings.getFederationTimeout(), Settings.getFederationRequestTimeout());
+    }
+
+    /**
+     * It builds a member of a federation.
+     *
+     * @param local the manager of the local instances.
+     * @param self the member of this manager.
+     * @param seeds the addresses, as «host:port», of the members to register
+     * with.
+     * @param placement the way of choosing the member of a new instance.
+     * @param heartbeat the time, in milliseconds, between registrations.
+     * @param timeout the time, in milliseconds, after which a silent member
+     * is deemed dead.
+     * @param requestTimeout the time, in milliseconds, to wait for the reply
+     * of another member.
+     * @return the built member.
+     */
+    public static FederatedManager create(InstanceManager local, Member self, List<String> seeds,
+            Placement placement, long heartbeat, long timeout, long requestTimeout) {
+        return new FederatedManager(local, self, seeds, placement, Math.max(1, heartbeat), timeout,
+                Math.max(1, requestTimeout));
+    }
+
+    /**
+     * A getter of the view this member has of the federation.
+     *
+     * @return the {@link FederatedManager#membership}.
+     */
+    public Membership membership() {
+        return membership;
+    }
+
+    /**
+     * It starts serving the local instances to the other members and
+     * registering with them. Starting a member that is already started has
+     * no effect.
+     *
+     * @return <ul><li>the execution result of
+     * {@link BinaryServer#start()};</li></ul>
+     */
+    public synchronized ExecutionResult start() {
+        Log.entering(getClass().getName(), "start");
+        ExecutionResult result;
+        if (server != null) {
+            result = Success.achieved("already started");
+            Log.exiting(getClass().getName(), "start", result);
+            return result;
+        }
+        Member self = membership.self();
+        server = BinaryServer.create(this::handle, self.socketAddress());
+        result = server.start();
+        if (!result.wasSuccessful()) {
+            server = null;
+            Log.exiting(getClass().getName(), "start", result);
+            return result;
+        }
+        heartbeats = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "federation-heartbeat");
+            thread.setDaemon(true);
+            return thread;
+        });
+        heartbeats.scheduleWithFixedDelay(this::register, 0, heartbeat, TimeUnit.MILLISECONDS);
+        Log.exiting(getClass().getName(), "start", result);
+        return result;
+    }
+
+    /**
+     * It stops serving the local instances and registering with the other
+     * members. The local instances are left running.
+     */
+    public synchronized void stop() {
+        Log.entering(getClass().getName(), "stop");
+        if (server != null) {
+            heartbeats.shutdownNow();
+            server.stop();
+            heartbeats = null;
+            server = null;
+        }
+        for (BinaryClient client : clients.values()) {
+            client.close();
+        }
+        clients.clear();
+        Log.exiting(getClass().getName(), "stop");
+    }
+
+    /**
+     * It builds an instance on a member and then executes it right away.
+     *
+     * @param options the options to be used on the call to execute the
+     * instance.
+     * @return <ul><li>the execution result of {@link FederatedManager#executeInstance(Instances.InstanceID)
+     * };</li><li>the execution result of {@link FederatedManager#buildInstance(Commands.Command)
+     * } if not {@link Creation};</li></ul>
+     */
+    @Override
+    public ExecutionResult startInstance(Command options) {
+        Log.entering(getClass().getName(), "startInstance", options);
+        ExecutionResult result = buildInstance(options);
+        if (result instanceof Creation && result.wasSuccessful()) {
+            ExecutionResult execution = executeInstance(((Creation) result).id());
+            if (!execution.wasSuccessful()) {
+                result = execution;
+            }
+        }
+        Log.exiting(getClass().getName(), "startInstance", result);
+        return result;
+    }
+
+    /**
+     * It starts many instances across the federation with the window and
+     * ramp rate from the {@link Settings}.
+     *
+     * @param options the specifications of the instances to launch.
+     * @return the {@link Communications.LaunchReport} of the
+     * {@link BulkLauncher}.
+     */
+    @Override
+    public ExecutionResult startInstances(List<Command> options) {
+        return startInstances(options, Settings.getBulkLaunchWindow(), Settings.getBulkLaunchRampRate(), null);
+    }
+
+    /**
+     * It starts many instances across the federation through a
+     * {@link BulkLauncher}, each one being placed and built, executed and
+     * then ready once its QMP monitor answers.
+     *
+     * @param options the specifications of the instances to launch.
+     * @param window the maximum number of concurrent launches.
+     * @param rampRate the maximum number of launches started per second (non
+     * positive for no ramp).
+     * @param listener the listener to notify as soon as each instance is
+     * ready. It may be null.
+     * @return <ul><li>the {@link Communications.LaunchReport} of the
+     * {@link BulkLauncher};</li><li>a {@link Fail} due to
+     * {@link Reason#NULL_ARGUMENT};</li></ul>
+     */
+    @Override
+    public ExecutionResult startInstances(List<Command> options, int window, double rampRate, LaunchListener listener) {
+        if (options == null) {
+            return Fail.because(Reason.NULL_ARGUMENT);
+        }
+        return BulkLauncher.create(this, window, rampRate).launch(options, listener);
+    }
+
+    /**
+     * It builds an instance on the member chosen by the {@link Placement}.
+     * The placement key is the value of the {@link FederatedManager#PLACEMENT_TAG}
+     * tag, which is generated if the options do not have it.
+     *
+     * @param options the options to be used on the call to execute the
+     * instance.
+     * @return <ul><li>a {@link Creation} with the {@link NodeInstanceID} of
+     * the instance;</li><li>the execution result of the member if not
+     * {@link Creation};</li><li>a {@link Fail} due to
+     * {@link Reason#NULL_ARGUMENT};</li></ul>
+     */
+    @Override
+    public ExecutionResult buildInstance(Command options) {
+        Log.entering(getClass().getName(), "buildInstance", options);
+        ExecutionResult result;
+        if (options == null) {
+            result = Fail.because(Reason.NULL_ARGUMENT);
+            Log.exiting(getClass().getName(), "buildInstance", result);
+            return result;
+        }
+        Map<String, String> tags = new HashMap<>();
+        long memory = 0;
+        long cpus = 0;
+        if (options instanceof BuildQemuInstance) {
+            BuildQemuInstance build = (BuildQemuInstance) options;
+            tags.putAll(build.tags());
+            memory = build.memory();
+            cpus = build.cpus();
+        }
+        tags.putIfAbsent(PLACEMENT_TAG, UUID.randomUUID().toString());
+        Member member = place(tags.get(PLACEMENT_TAG), memory, cpus);
+        if (member.equals(membership.self())) {
+            Command tagged = options instanceof BuildQemuInstance ? ((BuildQemuInstance) options).tagged(tags) : options;
+            result = local.buildInstance(tagged);
+        } else {
+            result = dispatch(member, Request.build(options(options), tags), requestTimeout);
+        }
+        result = federate(member, result);
+        Log.exiting(getClass().getName(), "buildInstance", result);
+        return result;
+    }
+
+    /**
+     * It executes an instance on the member that holds it.
+     *
+     * @param id the {@link NodeInstanceID} of the instance.
+     * @return <ul><li>the execution result of the member;</li><li>a
+     * {@link Fail} due to {@link Reason#NULL_ARGUMENT};</li><li>a
+     * {@link Fail} due to {@link Reason#UNKNOWN_ID} if the member is
+     * unknown;</li></ul>
+     */
+    @Override
+    public ExecutionResult executeInstance(InstanceID id) {
+        return route(id, Operation.EXECUTE);
+    }
+
+    /**
+     * It continues an instance on the member that holds it.
+     *
+     * @param id the {@link NodeInstanceID} of the instance.
+     * @return <ul><li>the execution result of the member;</li><li>a
+     * {@link Fail} due to {@link Reason#NULL_ARGUMENT};</li><li>a
+     * {@link Fail} due to {@link Reason#UNKNOWN_ID} if the member is
+     * unknown;</li></ul>
+     */
+    @Override
+    public ExecutionResult continueInstance(InstanceID id) {
+        return route(id, Operation.CONTINUE);
+    }
+
+    /**
+     * It suspends an instance on the member that holds it.
+     *
+     * @param id the {@link NodeInstanceID} of the instance.
+     * @return <ul><li>the execution result of the member;</li><li>a
+     * {@link Fail} due to {@link Reason#NULL_ARGUMENT};</li><li>a
+     * {@link Fail} due to {@link Reason#UNKNOWN_ID} if the member is
+     * unknown;</li></ul>
+     */
+    @Override
+    public ExecutionResult suspendInstance(InstanceID id) {
+        return route(id, Operation.SUSPEND);
+    }
+
+    /**
+     * It shuts down an instance on the member that holds it.
+     *
+     * @param id the {@link NodeInstanceID} of the instance.
+     * @return <ul><li>the execution result of the member;</li><li>a
+     * {@link Fail} due to {@link Reason#NULL_ARGUMENT};</li><li>a
+     * {@link Fail} due to {@link Reason#UNKNOWN_ID} if the member is
+     * unknown;</li></ul>
+     */
+    @Override
+    public ExecutionResult shutdownInstance(InstanceID id) {
+        return route(id, Operation.SHUTDOWN_INSTANCE);
+    }
+
+    /**
+     * It replaces the tags of an instance on the member that holds it.
+     *
+     * @param id the {@link NodeInstanceID} of the instance.
+     * @param tags the new tags of the instance.
+     * @return <ul><li>the execution result of the member;</li><li>a
+     * {@link Fail} due to {@link Reason#NULL_ARGUMENT};</li><li>a
+     * {@link Fail} due to {@link Reason#UNKNOWN_ID} if the member is
+     * unknown;</li></ul>
+     */
+    @Override
+    public ExecutionResult retagInstance(InstanceID id, Map<String, String> tags) {
+        Log.entering(getClass().getName(), "retagInstance", id);
+        ExecutionResult result;
+        if (tags == null) {
+            result = Fail.because(Reason.NULL_ARGUMENT);
+        } else {
+            result = route(id, Request.retag(local(id), tags), requestTimeout);
+        }
+        Log.exiting(getClass().getName(), "retagInstance", result);
+        return result;
+    }
+
+    /**
+     * It live migrates an instance on the member that holds it, which keeps
+     * it under the same identification. Migrations across members are not
+     * supported, since the destination is launched by the member itself.
+     *
+     * @param id the {@link NodeInstanceID} of the instance.
+     * @param target the local address of the member on which the destination
+     * listens.
+     * @return <ul><li>the execution result of the member;</li><li>a
+     * {@link Fail} due to {@link Reason#NULL_ARGUMENT};</li><li>a
+     * {@link Fail} due to {@link Reason#UNKNOWN_ID} if the member is
+     * unknown;</li></ul>
+     */
+    @Override
+    public ExecutionResult migrateInstance(InstanceID id, String target) {
+        Log.entering(getClass().getName(), "migrateInstance", id);
+        ExecutionResult result;
+        if (target == null) {
+            result = Fail.because(Reason.NULL_ARGUMENT);
+        } else {
+            result = route(id, Request.migrate(local(id), target), requestTimeout + Settings.getMigrationTimeout());
+        }
+        Log.exiting(getClass().getName(), "migrateInstance", result);
+        return result;
+    }
+
+    /**
+     * It lists the instances of every alive member, as a
+     * {@link RemoteInstance} view of each one whose operations are routed
+     * through the federation.
+     *
+     * @return <ul><li>a {@link ListResult} with the {@link RemoteInstance} of
+     * every instance of the members that answered, sorted by their
+     * {@link NodeInstanceID};</li></ul>
+     */
+    @Override
+    public ExecutionResult listInstances() {
+        Log.entering(getClass().getName(), "listInstances");
+        List<Instance> instances = new ArrayList<>();
+        for (Map.Entry<Member, ExecutionResult> entry : broadcast(Request.describe(), requestTimeout).entrySet()) {
+            if (entry.getValue().wasSuccessful()) {
+                instances.addAll(RemoteInstance.parse(this, entry.getKey().node(), entry.getValue().description()));
+            }
+        }
+        Collections.sort(instances);
+        ExecutionResult result = ListResult.create(instances);
+        Log.exiting(getClass().getName(), "listInstances", result);
+        return result;
+    }
+
+    /**
+     * It provides the host capacity still available on every alive member.
+     *
+     * @return <ul><li>a {@link MapResult} where the keys are the node
+     * identification of the members and the values their
+     * {@link Headroom};</li></ul>
+     */
+    @Override
+    public ExecutionResult headroom() {
+        Log.entering(getClass().getName(), "headroom");
+        Map<String, ExecutionResult> headrooms = new TreeMap<>();
+        for (Map.Entry<Member, ExecutionResult> entry : broadcast(Request.headroom(), requestTimeout).entrySet()) {
+            headrooms.put(entry.getKey().node(), entry.getValue());
+        }
+        ExecutionResult result = MapResult.create(headrooms);
+        Log.exiting(getClass().getName(), "headroom", result);
+        return result;
+    }
+
+    /**
+     * It executes a list of commands to each of the instances, each one on
+     * the member that holds it.
+     *
+     * @param commands a map with all the commands, where the keys match the
+     * identification of the instances and the value the list of commands to be
+     * executed on it.
+     * @return <ul><li>a {@link MapResult} where the keys are the
+     * identification of the instances and the values the execution results
+     * of their members;</li><li>a {@link Fail} due to
+     * {@link Reason#NULL_ARGUMENT};</li></ul>
+     */
+    @Override
+    public ExecutionResult executeCommands(Map<InstanceID, List<Command>> commands) {
+        Log.entering(getClass().getName(), "executeCommands", commands);
+        ExecutionResult result;
+        if (commands == null) {
+            result = Fail.because(Reason.NULL_ARGUMENT);
+            Log.exiting(getClass().getName(), "executeCommands", result);
+            return result;
+        }
+        Map<InstanceID, Future<ExecutionResult>> pending = new TreeMap<>();
+        for (Map.Entry<InstanceID, List<Command>> entry : commands.entrySet()) {
+            List<String> texts = new ArrayList<>();
+            for (Command command : entry.getValue()) {
+                texts.add(command.instruction());
+            }
+            InstanceID id = entry.getKey();
+            pending.put(id, executor.submit(() -> route(id, Request.commands(local(id), texts), requestTimeout)));
+        }
+        Map<InstanceID, ExecutionResult> results = new TreeMap<>();
+        for (Map.Entry<InstanceID, Future<ExecutionResult>> entry : pending.entrySet()) {
+            results.put(entry.getKey(), await(entry.getValue(), 0));
+        }
+        result = MapResult.create(results);
+        Log.exiting(getClass().getName(), "executeCommands", result);
+        return result;
+    }
+
+    /**
+     * It shuts down every alive member with the deadline and the graceful
+     * phase from the {@link Settings}.
+     *
+     * @return the execution result of
+     * {@link FederatedManager#shutdown(long, long)}.
+     */
+    @Override
+    public ExecutionResult shutdown() {
+        return shutdown(Settings.getShutdownDeadline(), Settings.getShutdownPowerdownGrace());
+    }
+
+    /**
+     * It shuts down every alive member concurrently, each one through its own
+     * {@link Managers.FleetTerminator}, and then it stops this member.
+     *
+     * @param deadline the time, in milliseconds, the whole shutdown may take.
+     * @param powerdownGrace the time, in milliseconds, given to the guests to
+     * power down before the QMP «quit» (zero to skip the graceful phase).
+     * @return a {@link MapResult} where the keys are the node identification
+     * of the members and the values their execution result of
+     * {@link InstanceManager#shutdown(long, long)}.
+     */
+    @Override
+    public ExecutionResult shutdown(long deadline, long powerdownGrace) {
+        Log.entering(getClass().getName(), "shutdown", deadline);
+        Map<String, ExecutionResult> results = new TreeMap<>();
+        Request request = Request.shutdown(deadline, powerdownGrace);
+        for (Map.Entry<Member, ExecutionResult> entry : broadcast(request, requestTimeout + Math.max(0, deadline)).entrySet()) {
+            results.put(entry.getKey().node(), entry.getValue());
+        }
+        stop();
+        ExecutionResult result = MapResult.create(results);
+        Log.exiting(getClass().getName(), "shutdown", result);
+        return result;
+    }
+
+    /**
+     * A getter of the bus of the events of the local instances. The events of
+     * the other members are published on their own buses.
+     *
+     * @return the {@link EventBus} of the local manager.
+     */
+    @Override
+    public EventBus events() {
+        return local.events();
+    }
+
+    /**
+     * It loads a configuration file into this member only.
+     *
+     * @param config the configuration file path and name.
+     * @return the execution result of the local manager.
+     */
+    @Override
+    public ExecutionResult loadConfigurationFile(String config) {
+        return local.loadConfigurationFile(config);
+    }
+
+    /**
+     * It handles a request of another member, or of this one: a registration
+     * is answered by the {@link Membership}, a description by the
+     * {@link RemoteInstance#describe(Communications.ExecutionResult)} of the
+     * local instances and any other request is run on the local manager.
+     *
+     * @param request the received request.
+     * @return the execution result to send back.
+     */
+    private ExecutionResult handle(Request request) {
+        if (request.operation() == Operation.JOIN) {
+            return membership.join(request.texts());
+        }
+        if (request.operation() == Operation.DESCRIBE) {
+            return RemoteInstance.describe(local.listInstances());
+        }
+        return request.applyTo(local);
+    }
+
+    /**
+     * It registers with the seeds and every other known member, merges the
+     * members they know of and takes off the ring those that stayed silent.
+     */
+    private void register() {
+        try {
+            Set<String> addresses = new LinkedHashSet<>(seeds);
+            for (Member member : membership.others()) {
+                addresses.add(member.address());
+            }
+            addresses.remove(membership.self().address());
+            Request join = Request.join(membership.known());
+            Map<String, Future<ExecutionResult>> pending = new HashMap<>();
+            for (String address : addresses) {
+                pending.put(address, executor.submit(() -> call(address, join, heartbeat)));
+            }
+            for (Future<ExecutionResult> reply : pending.values()) {
+                ExecutionResult result = await(reply, heartbeat);
+                if (result.wasSuccessful()) {
+                    membership.merge(result.description());
+                }
+            }
+            membership.expire();
+        } catch (RuntimeException ex) {
+            Log.warning("{0}", ex);
+        }
+    }
+
+    /**
+     * It chooses the member of a new instance among the alive ones.
+     *
+     * @param key the placement key of the instance.
+     * @param memory the guest memory, in MiB, of the instance.
+     * @param cpus the virtual CPUs of the instance.
+     * @return the chosen member.
+     */
+    private Member place(String key, long memory, long cpus) {
+        if (placement == Placement.CONSISTENT_HASH) {
+            return membership.locate(key);
+        }
+        Member chosen = membership.self();
+        long mostMemory = Long.MIN_VALUE;
+        boolean chosenFits = false;
+        for (Map.Entry<Member, ExecutionResult> entry : broadcast(Request.headroom(), requestTimeout).entrySet()) {
+            if (entry.getValue() instanceof Headroom) {
+                Headroom headroom = (Headroom) entry.getValue();
+                boolean fits = headroom.fits(memory, cpus);
+                if ((fits && !chosenFits) || (fits == chosenFits && headroom.memory() > mostMemory)) {
+                    chosen = entry.getKey();
+                    mostMemory = headroom.memory();
+                    chosenFits = fits;
+                }
+            }
+        }
+        return chosen;
+    }
+
+    /**
+     * It routes an operation on an instance to the member that holds it.
+     *
+     * @param id the {@link NodeInstanceID} of the instance.
+     * @param operation the operation to run.
+     * @return <ul><li>the execution result of the member;</li><li>a
+     * {@link Fail} due to {@link Reason#NULL_ARGUMENT};</li><li>a
+     * {@link Fail} due to {@link Reason#UNKNOWN_ID} if the member is
+     * unknown;</li></ul>
+     */
+    private ExecutionResult route(InstanceID id, Operation operation) {
+        Log.entering(getClass().getName(), "route", operation);
+        ExecutionResult result = route(id, Request.on(operation, local(id)), requestTimeout);
+        Log.exiting(getClass().getName(), "route", result);
+        return result;
+    }
+
+    /**
+     * It routes a request on an instance to the member that holds it.
+     *
+     * @param id the {@link NodeInstanceID} of the instance.
+     * @param request the request to run.
+     * @param timeout the time, in milliseconds, to wait for the reply of
+     * another member.
+     * @return <ul><li>the execution result of the member;</li><li>a
+     * {@link Fail} due to {@link Reason#NULL_ARGUMENT};</li><li>a
+     * {@link Fail} due to {@link Reason#UNKNOWN_ID} if the member is
+     * unknown;</li></ul>
+     */
+    private ExecutionResult route(InstanceID id, Request request, long timeout) {
+        if (id == null) {
+            return Fail.because(Reason.NULL_ARGUMENT);
+        }
+        if (!(id instanceof NodeInstanceID)) {
+            return Fail.because(Reason.UNKNOWN_ID, "Not a federated id " + id + ".");
+        }
+        Member member = membership.get(((NodeInstanceID) id).node());
+        if (member == null) {
+            return Fail.because(Reason.UNKNOWN_ID, "Unknown member of " + id + ".");
+        }
+        return federate(member, dispatch(member, request, timeout));
+    }
+
+    /**
+     * It runs a request on every alive member concurrently. Each reply of
+     * another member is bounded by the timeout, so the whole broadcast is as
+     * well.
+     *
+     * @param request the request to run.
+     * @param timeout the time, in milliseconds, to wait for the reply of
+     * each other member.
+     * @return a map where the keys are the members and the values their
+     * execution results, which is a {@link Fail} due to
+     * {@link Reason#IO_EXCEPTION} for a member that did not reply in time.
+     */
+    private Map<Member, ExecutionResult> broadcast(Request request, long timeout) {
+        Map<Member, Future<ExecutionResult>> pending = new HashMap<>();
+        for (Member member : membership.alive()) {
+            pending.put(member, executor.submit(() -> dispatch(member, request, timeout)));
+        }
+        Map<Member, ExecutionResult> results = new HashMap<>();
+        for (Map.Entry<Member, Future<ExecutionResult>> entry : pending.entrySet()) {
+            results.put(entry.getKey(), await(entry.getValue(), 0));
+        }
+        return results;
+    }
+
+    /**
+     * It runs a request on a member: as if it was received if it is this
+     * member or through the binary protocol otherwise.
+     *
+     * @param member the member on which to run the request.
+     * @param request the request to run.
+     * @param timeout the time, in milliseconds, to wait for the reply of
+     * another member.
+     * @return the execution result of the member.
+     */
+    private ExecutionResult dispatch(Member member, Request request, long timeout) {
+        if (member.equals(membership.self())) {
+            return handle(request);
+        }
+        return call(member.address(), request, timeout);
+    }
+
+    /**
+     * It sends a request to another member and waits, at most the timeout,
+     * for its response. A connection that failed or timed out is dropped, so
+     * that the next request reconnects.
+     *
+     * @param address the address, as «host:port», of the member.
+     * @param request the request to send.
+     * @param timeout the time, in milliseconds, to wait for the connection
+     * and then for the response.
+     * @return <ul><li>the execution result of the member;</li><li>a
+     * {@link Fail} due to {@link Reason#IO_EXCEPTION} if the member could not
+     * be reached or did not reply in time;</li></ul>
+     */
+    private ExecutionResult call(String address, Request request, long timeout) {
+        BinaryClient client;
+        try {
+            client = clients.computeIfAbsent(address, key -> {
+                try {
+                    int colon = key.lastIndexOf(':');
+                    return BinaryClient.connect(new InetSocketAddress(key.substring(0, colon), Integer.parseInt(key.substring(colon + 1))),
+                            (int) Math.min(Integer.MAX_VALUE, timeout));
+                } catch (IOException ex) {
+                    throw new IllegalStateException(ex);
+                }
+            });
+        } catch (IllegalArgumentException | IllegalStateException ex) {
+            return Fail.because(Reason.IO_EXCEPTION, address + ": " + ex.getMessage());
+        }
+        ExecutionResult result = client.call(request, timeout);
+        if (result instanceof Fail && ((Fail) result).reason() == Reason.IO_EXCEPTION) {
+            Log.warning("Member {0} failed: {1}", address, result.description());
+            clients.remove(address, client);
+            client.close();
+        }
+        return result;
+    }
+
+    /**
+     * It waits for a pending execution result.
+     *
+     * @param pending the pending execution result.
+     * @param timeout the time, in milliseconds, to wait for it (zero to wait
+     * for as long as it takes).
+     * @return <ul><li>the execution result;</li><li>a {@link Fail} due to
+     * {@link Reason#IO_EXCEPTION} if it failed or timed out;</li></ul>
+     */
+    private ExecutionResult await(Future<ExecutionResult> pending, long timeout) {
+        try {
+            return timeout > 0 ? pending.get(timeout, TimeUnit.MILLISECONDS) : pending.get();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            return Fail.because(Reason.IO_EXCEPTION, ex.toString());
+        } catch (ExecutionException ex) {
+            return Fail.because(Reason.IO_EXCEPTION, ex.getCause().toString());
+        } catch (TimeoutException ex) {
+            pending.cancel(true);
+            return Fail.because(Reason.IO_EXCEPTION, "No reply within " + timeout + " ms.");
+        }
+    }
+
+    /**
+     * It replaces the local identity of a {@link Creation} of a member by
+     * the {@link NodeInstanceID}.
+     *
+     * @param member the member that created the instance.
+     * @param result the execution result of the member.
+     * @return the federated {@link Creation} or the given result otherwise.
+     */
+    private ExecutionResult federate(Member member, ExecutionResult result) {
+        if (result instanceof Creation && ((Creation) result).id() instanceof QemuInstanceID) {
+            long id = ((QemuInstanceID) ((Creation) result).id()).value();
+            return Creation.create(NodeInstanceID.create(member.node(), id), result.wasSuccessful());
+        }
+        return result;
+    }
+
+    /**
+     * It provides the long number of the local identity of an instance.
+     *
+     * @param id the identity of the instance.
+     * @return the long number of its local identity or -1 if it is not a
+     * {@link NodeInstanceID}.
+     */
+    private static long local(InstanceID id) {
+        return id instanceof NodeInstanceID ? ((NodeInstanceID) id).local().value() : -1;
+    }
+
+    /**
+     * It provides the options of a launch without the QEMU path of this
+     * member, which the receiving member prepends with its own.
+     *
+     * @param options the launch specification.
+     * @return the options of the launch.
+     */
+    private static String options(Command options) {
+        String instruction = options.instruction();
+        String path = Settings.getQemuPath();
+        return instruction.startsWith(path) ? instruction.substring(path.length()) : instruction;
+    }
+
+}
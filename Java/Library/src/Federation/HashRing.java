@@ -0,0 +1,129 @@
+/*
+ *                      QEMU INSTANCES MANAGER LIBRARY
+ *                                Java Version
+ * 
+ * PRODUCT OWNER: Research Centre in Real-Time & Embedded Computing Systems
+ * PROJECT MANAGER: Luís Pinho and Cláudio Maia {lmn,clrrm}@isep.ipp.pt
+ * DEVELOPER: Manuel Meireles ( mjcdm@isep.ipp.pt )
+ * DATE: 24/11/2017
+ * SCOPE: CISTER Summer Internship 2017
+ * VERSION: 1.0
+ */
+package Federation;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+/**
+ * A consistent hash ring of nodes. Each node is hashed onto the ring at many
+ * virtual points, so that the keys are spread evenly, and a key belongs to
+ * the first node found clockwise from its own hash. Adding or removing a node
+ * only moves the keys of the arcs next to its points.
+ *
+ * @see FederatedManager
+ * @author Manuel Meireles ( mjcdm@isep.ipp.pt )
+ */
+public class HashRing {
+
+    /**
+     * The points of the ring, where the keys are the hashes and the values
+     * the nodes.
+     */
+    private final NavigableMap<Long, String> points;
+
+    /**
+     * The number of virtual points of each node.
+     */
+    private final int virtualNodes;
+
+    /**
+     * A private constructor that initializes an empty ring.
+     *
+     * @param theVirtualNodes the number of virtual points of each node.
+     */
+    private HashRing(int theVirtualNodes) {
+        points = new TreeMap<>();
+        virtualNodes = theVirtualNodes;
+    }
+
+    /**
+     * It builds an empty ring.
+     *
+     * @param virtualNodes the number of virtual points of each node. A value
+     * lower than one is raised to one.
+     * @return the built ring.
+     */
+    public static HashRing create(int virtualNodes) {
+        return new HashRing(Math.max(1, virtualNodes));
+    }
+
+    /**
+     * It adds a node to the ring. Adding a node twice has no effect.
+     *
+     * @param node the node identification.
+     */
+    public synchronized void add(String node) {
+        for (int i = 0; i < virtualNodes; i++) {
+            points.put(hash(node + "#" + i), node);
+        }
+    }
+
+    /**
+     * It removes a node from the ring.
+     *
+     * @param node the node identification.
+     */
+    public synchronized void remove(String node) {
+        points.values().removeIf(node::equals);
+    }
+
+    /**
+     * It provides the nodes on the ring.
+     *
+     * @return the node identifications.
+     */
+    public synchronized Set<String> nodes() {
+        return new TreeSet<>(points.values());
+    }
+
+    /**
+     * It locates the node a key belongs to.
+     *
+     * @param key the key to locate.
+     * @return the node identification or null if the ring is empty.
+     */
+    public synchronized String locate(String key) {
+        if (points.isEmpty()) {
+            return null;
+        }
+        Map.Entry<Long, String> point = points.ceilingEntry(hash(key));
+        return point != null ? point.getValue() : points.firstEntry().getValue();
+    }
+
+    /**
+     * It hashes a text onto the ring, with the first eight bytes of its MD5
+     * digest, which are far better spread than {@link String#hashCode()}.
+     *
+     * @param text the text to hash.
+     * @return the hash.
+     */
+    private static long hash(String text) {
+        try {
+            byte[] digest = MessageDigest.getInstance("MD5").digest(text.getBytes(StandardCharsets.UTF_8));
+            long hash = 0;
+            for (int i = 0; i < Long.BYTES; i++) {
+                hash = (hash << 8) | (digest[i] & 0xff);
+            }
+            return hash;
+        } catch (NoSuchAlgorithmException ex) {
+            throw new IllegalStateException(ex);
+        }
+    }
+
+}
@@ -0,0 +1,164 @@
+/*
+ *                      QEMU INSTANCES MANAGER LIBRARY
+ *                                Java Version
+ * 
+ * PRODUCT OWNER: Research Centre in Real-Time & Embedded Computing Systems
+ * PROJECT MANAGER: Luís Pinho and Cláudio Maia {lmn,clrrm}@isep.ipp.pt
+ * DEVELOPER: Manuel Meireles ( mjcdm@isep.ipp.pt )
+ * DATE: 24/11/2017
+ * SCOPE: CISTER Summer Internship 2017
+ * VERSION: 1.0
+ */
+package Federation;
+
+import java.net.InetSocketAddress;
+import java.util.Objects;
+
+/**
+ * A member of a federation of managers, i.e. a manager process identified by
+ * its node identification and reached through the binary control protocol
+ * at its host and port. Its textual representation is «node@host:port».
+ *
+ * @see Membership
+ * @author Manuel Meireles ( mjcdm@isep.ipp.pt )
+ */
+public class Member {
+
+    /**
+     * The separator between the node and the address.
+     */
+    private static final char NODE_SEPARATOR = '@';
+
+    /**
+     * The separator between the host and the port.
+     */
+    private static final char PORT_SEPARATOR = ':';
+
+    /**
+     * The node identification of the member.
+     */
+    private final String node;
+
+    /**
+     * The host name or IP address of the member.
+     */
+    private final String host;
+
+    /**
+     * The port of the binary control protocol of the member.
+     */
+    private final int port;
+
+    /**
+     * A private constructor that initializes the member. Despite no
+     * validations are made, neither the node nor the host should be null.
+     *
+     * @param theNode the node identification.
+     * @param theHost the host name or IP address.
+     * @param thePort the port of the binary control protocol.
+     */
+    private Member(String theNode, String theHost, int thePort) {
+        node = theNode;
+        host = theHost;
+        port = thePort;
+    }
+
+    /**
+     * It builds a member. The node identification may not contain «@» nor
+     * «/».
+     *
+     * @param node the node identification.
+     * @param host the host name or IP address.
+     * @param port the port of the binary control protocol.
+     * @return the built member.
+     * @throws IllegalArgumentException if the node identification is empty or
+     * contains a reserved character.
+     */
+    public static Member create(String node, String host, int port) {
+        if (node.isEmpty() || node.indexOf(NODE_SEPARATOR) >= 0 || node.indexOf(NodeInstanceID.SEPARATOR) >= 0) {
+            throw new IllegalArgumentException("Invalid node \"" + node + "\".");
+        }
+        return new Member(node, host, port);
+    }
+
+    /**
+     * It parses the textual representation of a member.
+     *
+     * @param text the text as «node@host:port».
+     * @return the parsed member.
+     * @throws IllegalArgumentException if the text is malformed.
+     */
+    public static Member valueOf(String text) {
+        int at = text.indexOf(NODE_SEPARATOR);
+        int colon = text.lastIndexOf(PORT_SEPARATOR);
+        if (at <= 0 || colon < at) {
+            throw new IllegalArgumentException("Invalid member \"" + text + "\".");
+        }
+        return create(text.substring(0, at), text.substring(at + 1, colon), Integer.parseInt(text.substring(colon + 1)));
+    }
+
+    /**
+     * A getter of the node identification of the member.
+     *
+     * @return the {@link Member#node}.
+     */
+    public String node() {
+        return node;
+    }
+
+    /**
+     * It provides the address of the binary control protocol of the member.
+     *
+     * @return the address as «host:port».
+     */
+    public String address() {
+        return host + PORT_SEPARATOR + port;
+    }
+
+    /**
+     * It provides the socket address of the binary control protocol of the
+     * member.
+     *
+     * @return the socket address.
+     */
+    public InetSocketAddress socketAddress() {
+        return new InetSocketAddress(host, port);
+    }
+
+    /**
+     * The equality method.
+     *
+     * @param that the other object to be compared.
+     * @return true if that object is a member with the same node, host and
+     * port.
+     */
+    @Override
+    public boolean equals(Object that) {
+        if (!(that instanceof Member)) {
+            return false;
+        }
+        Member thatMember = (Member) that;
+        return node.equals(thatMember.node) && host.equals(thatMember.host) && port == thatMember.port;
+    }
+
+    /**
+     * The hash-code generator.
+     *
+     * @return the hash-code.
+     */
+    @Override
+    public int hashCode() {
+        return Objects.hash(node, host, port);
+    }
+
+    /**
+     * The textual representation of the member.
+     *
+     * @return the member as «node@host:port».
+     */
+    @Override
+    public String toString() {
+        return node + NODE_SEPARATOR + address();
+    }
+
+}
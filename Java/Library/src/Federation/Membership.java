@@ -0,0 +1,256 @@
+/*
+ *                      QEMU INSTANCES MANAGER LIBRARY
+ *                                Java Version
+ * 
+ * PRODUCT OWNER: Research Centre in Real-Time & Embedded Computing Systems
+ * PROJECT MANAGER: Luís Pinho and Cláudio Maia {lmn,clrrm}@isep.ipp.pt
+ * DEVELOPER: Manuel Meireles ( mjcdm@isep.ipp.pt )
+ * DATE: 24/11/2017
+ * SCOPE: CISTER Summer Internship 2017
+ * VERSION: 1.0
+ */
+package Federation;
+
+import Communications.ExecutionResult;
+import Communications.Fail;
+import Communications.Fail.Reason;
+import Communications.Success;
+import Configurations.Log;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The view a manager has of the federation it belongs to. It knows every
+ * member it has heard of, either directly or through another member, and
+ * deems alive only itself and those that answered a registration within the
+ * timeout. Only the alive members are on the {@link HashRing}, so instances
+ * are never placed on a member that stopped answering.
+ *
+ * @see FederatedManager
+ * @author Manuel Meireles ( mjcdm@isep.ipp.pt )
+ */
+public class Membership {
+
+    /**
+     * The separator of the members in the description of a registration.
+     */
+    public static final String SEPARATOR = "\n";
+
+    /**
+     * The number of virtual points of each member on the ring.
+     */
+    private static final int VIRTUAL_NODES = 128;
+
+    /**
+     * The member of this manager.
+     */
+    private final Member self;
+
+    /**
+     * The time, in milliseconds, after which a silent member is deemed dead.
+     */
+    private final long timeout;
+
+    /**
+     * The known members. The keys are their node identification.
+     */
+    private final Map<String, Member> members;
+
+    /**
+     * The {@link System#nanoTime()} at which each member was last heard of.
+     * The keys are their node identification.
+     */
+    private final Map<String, Long> lastSeen;
+
+    /**
+     * The consistent hash ring of the alive members.
+     */
+    private final HashRing ring;
+
+    /**
+     * A private constructor that initializes a membership that only knows of
+     * this manager. Despite no validation is made, the member should not be
+     * null.
+     *
+     * @param theSelf the member of this manager.
+     * @param theTimeout the time after which a silent member is deemed dead.
+     */
+    private Membership(Member theSelf, long theTimeout) {
+        self = theSelf;
+        timeout = theTimeout;
+        members = new TreeMap<>();
+        lastSeen = new TreeMap<>();
+        ring = HashRing.create(VIRTUAL_NODES);
+        members.put(self.node(), self);
+        ring.add(self.node());
+    }
+
+    /**
+     * It builds a membership that only knows of this manager.
+     *
+     * @param self the member of this manager.
+     * @param timeout the time, in milliseconds, after which a silent member is
+     * deemed dead.
+     * @return the built membership.
+     */
+    public static Membership create(Member self, long timeout) {
+        return new Membership(self, Math.max(0, timeout));
+    }
+
+    /**
+     * A getter of the member of this manager.
+     *
+     * @return the {@link Membership#self}.
+     */
+    public Member self() {
+        return self;
+    }
+
+    /**
+     * It registers the sender of a {@link Binary.Request.Operation#JOIN}
+     * along with the members it knows of.
+     *
+     * @param texts the sender followed by the members it knows of, as
+     * «node@host:port».
+     * @return <ul><li>a {@link Success} whose description is this manager
+     * followed by every member it knows of, one per line;</li><li>a
+     * {@link Fail} due to {@link Reason#NULL_ARGUMENT} if the sender is
+     * missing or malformed;</li></ul>
+     */
+    public ExecutionResult join(List<String> texts) {
+        if (texts.isEmpty()) {
+            return Fail.because(Reason.NULL_ARGUMENT);
+        }
+        try {
+            Member sender = Member.valueOf(texts.get(0));
+            for (String text : texts.subList(1, texts.size())) {
+                merge(Member.valueOf(text));
+            }
+            seen(sender);
+        } catch (IllegalArgumentException ex) {
+            return Fail.because(Reason.NULL_ARGUMENT, ex.getMessage());
+        }
+        return Success.achieved(String.join(SEPARATOR, known()));
+    }
+
+    /**
+     * It merges the reply of a member to a registration, i.e. the description
+     * of the {@link Success} of {@link Membership#join(java.util.List)}. The
+     * replying member is deemed alive.
+     *
+     * @param reply the members, one per line, starting with the replying one.
+     */
+    public void merge(String reply) {
+        String[] lines = reply.split(SEPARATOR);
+        try {
+            for (int i = 1; i < lines.length; i++) {
+                merge(Member.valueOf(lines[i]));
+            }
+            seen(Member.valueOf(lines[0]));
+        } catch (IllegalArgumentException ex) {
+            Log.warning(ex.getMessage());
+        }
+    }
+
+    /**
+     * It adds a member it has heard of, without deeming it alive. A member
+     * already known is only replaced if its address changed.
+     *
+     * @param member the member to add.
+     */
+    public synchronized void merge(Member member) {
+        if (!member.node().equals(self.node())) {
+            members.put(member.node(), member);
+        }
+    }
+
+    /**
+     * It deems a member alive and puts it on the ring.
+     *
+     * @param member the member heard of.
+     */
+    public synchronized void seen(Member member) {
+        if (member.node().equals(self.node())) {
+            return;
+        }
+        members.put(member.node(), member);
+        if (lastSeen.put(member.node(), System.nanoTime()) == null || !ring.nodes().contains(member.node())) {
+            ring.add(member.node());
+        }
+    }
+
+    /**
+     * It takes off the ring the members that were not heard of within the
+     * timeout.
+     */
+    public synchronized void expire() {
+        long limit = System.nanoTime() - TimeUnit.MILLISECONDS.toNanos(timeout);
+        for (Map.Entry<String, Long> entry : lastSeen.entrySet()) {
+            if (entry.getValue() - limit < 0) {
+                ring.remove(entry.getKey());
+            }
+        }
+    }
+
+    /**
+     * It provides a known member.
+     *
+     * @param node the node identification of the member.
+     * @return the member or null if it is unknown.
+     */
+    public synchronized Member get(String node) {
+        return members.get(node);
+    }
+
+    /**
+     * It provides the alive members, this manager included.
+     *
+     * @return the alive members, sorted by node identification.
+     */
+    public synchronized List<Member> alive() {
+        List<Member> alive = new ArrayList<>();
+        for (String node : ring.nodes()) {
+            alive.add(members.get(node));
+        }
+        return alive;
+    }
+
+    /**
+     * It provides the other known members, alive or not.
+     *
+     * @return the other members, sorted by node identification.
+     */
+    public synchronized List<Member> others() {
+        List<Member> others = new ArrayList<>(members.values());
+        others.remove(self);
+        return others;
+    }
+
+    /**
+     * It provides this manager followed by every other known member.
+     *
+     * @return the members as «node@host:port».
+     */
+    public synchronized List<String> known() {
+        List<String> known = new ArrayList<>();
+        known.add(self.toString());
+        for (Member member : others()) {
+            known.add(member.toString());
+        }
+        return known;
+    }
+
+    /**
+     * It locates the alive member a placement key belongs to.
+     *
+     * @param key the placement key.
+     * @return the member, which is this manager if it is alone.
+     */
+    public synchronized Member locate(String key) {
+        return members.get(ring.locate(key));
+    }
+
+}
@@ -0,0 +1,153 @@
+/*
+ *                      QEMU INSTANCES MANAGER LIBRARY
+ *                                Java Version
+ * 
+ * PRODUCT OWNER: Research Centre in Real-Time & Embedded Computing Systems
+ * PROJECT MANAGER: Luís Pinho and Cláudio Maia {lmn,clrrm}@isep.ipp.pt
+ * DEVELOPER: Manuel Meireles ( mjcdm@isep.ipp.pt )
+ * DATE: 24/11/2017
+ * SCOPE: CISTER Summer Internship 2017
+ * VERSION: 1.0
+ */
+package Federation;
+
+import Instances.InstanceID;
+import Instances.QemuInstanceID;
+
+/**
+ * A unique identity of an instance within a federation of managers. It
+ * carries the node identification of the member that holds the instance
+ * along with the identity of the instance on that member. Its textual
+ * representation is «node/id».
+ *
+ * @see InstanceID
+ * @author Manuel Meireles ( mjcdm@isep.ipp.pt )
+ */
+public class NodeInstanceID implements InstanceID {
+
+    /**
+     * The separator between the node and the local identity.
+     */
+    public static final char SEPARATOR = '/';
+
+    /**
+     * The node identification of the member that holds the instance.
+     */
+    private final String node;
+
+    /**
+     * The long number of the identity of the instance on its member.
+     */
+    private final long local;
+
+    /**
+     * A private constructor that initializes the identity. Despite no
+     * validation is made, the node should not be null.
+     *
+     * @param theNode the node identification of the member.
+     * @param theLocal the long number of the identity on the member.
+     */
+    private NodeInstanceID(String theNode, long theLocal) {
+        node = theNode;
+        local = theLocal;
+    }
+
+    /**
+     * It builds the federated identity of an instance.
+     *
+     * @param node the node identification of the member.
+     * @param local the long number of the identity on the member.
+     * @return the built identity.
+     */
+    public static NodeInstanceID create(String node, long local) {
+        return new NodeInstanceID(node, local);
+    }
+
+    /**
+     * It parses the textual representation of a federated identity.
+     *
+     * @param text the text as «node/id».
+     * @return the parsed identity.
+     * @throws IllegalArgumentException if the text is malformed.
+     */
+    public static NodeInstanceID valueOf(String text) {
+        int separator = text.lastIndexOf(SEPARATOR);
+        if (separator <= 0) {
+            throw new IllegalArgumentException("Invalid federated id \"" + text + "\".");
+        }
+        return new NodeInstanceID(text.substring(0, separator), Long.parseLong(text.substring(separator + 1)));
+    }
+
+    /**
+     * A getter of the node identification of the member.
+     *
+     * @return the {@link NodeInstanceID#node}.
+     */
+    public String node() {
+        return node;
+    }
+
+    /**
+     * It provides the identity of the instance on its member.
+     *
+     * @return the local identity.
+     */
+    public QemuInstanceID local() {
+        return QemuInstanceID.valueOf(local);
+    }
+
+    /**
+     * The equality method.
+     *
+     * @param that the other object to be compared.
+     * @return true if that object is a federated identity with the same node
+     * and local identity.
+     */
+    @Override
+    public boolean equals(Object that) {
+        if (!(that instanceof NodeInstanceID)) {
+            return false;
+        }
+        NodeInstanceID thatID = (NodeInstanceID) that;
+        return node.equals(thatID.node) && local == thatID.local;
+    }
+
+    /**
+     * The hash-code generator.
+     *
+     * @return the hash-code.
+     */
+    @Override
+    public int hashCode() {
+        return 31 * node.hashCode() + Long.hashCode(local);
+    }
+
+    /**
+     * The textual representation of the identity.
+     *
+     * @return the identity as «node/id».
+     */
+    @Override
+    public String toString() {
+        return node + SEPARATOR + local;
+    }
+
+    /**
+     * It compares federated identities by node and then by local identity,
+     * and any other identity by its textual representation.
+     *
+     * @param that the other id to be compared to.
+     * @return a negative integer, zero, or a positive integer as this instance
+     * is less than, equal to, or greater than the specified instance.
+     */
+    @Override
+    public int compareTo(InstanceID that) {
+        if (that instanceof NodeInstanceID) {
+            NodeInstanceID thatID = (NodeInstanceID) that;
+            int byNode = node.compareTo(thatID.node);
+            return byNode != 0 ? byNode : Long.compare(local, thatID.local);
+        }
+        return toString().compareTo(that.toString());
+    }
+
+}
@@ -0,0 +1,362 @@
+/*
+ *                      QEMU INSTANCES MANAGER LIBRARY
+ *                                Java Version
+ * 
+ * PRODUCT OWNER: Research Centre in Real-Time & Embedded Computing Systems
+ * PROJECT MANAGER: Luís Pinho and Cláudio Maia {lmn,clrrm}@isep.ipp.pt
+ * DEVELOPER: Manuel Meireles ( mjcdm@isep.ipp.pt )
+ * DATE: 24/11/2017
+ * SCOPE: CISTER Summer Internship 2017
+ * VERSION: 1.0
+ */
+package Federation;
+
+import Commands.Command;
+import Communications.ExecutionResult;
+import Communications.ListResult;
+import Communications.MapResult;
+import Communications.Success;
+import Configurations.Log;
+import Instances.Instance;
+import Instances.InstanceID;
+import Instances.QemuInstanceID;
+import Instances.RunState;
+import Managers.InstanceManager;
+import java.net.URLDecoder;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * A view of an instance of a member of a federation, as it was when the
+ * instances were listed: its identification, whether its process was alive,
+ * the run state of its guest and its tags. Its operations are routed to the
+ * member that holds it through the federation, except waiting for its
+ * process, which only the member can do.
+ * <p>
+ * The members describe their instances as a text with a line per instance,
+ * whose fields are separated by tabs: the long number of the local identity,
+ * the liveness, the run state and the «key=value» tags separated by «&amp;»,
+ * the keys and values being URL-encoded.
+ *
+ * @see FederatedManager
+ * @author Manuel Meireles ( mjcdm@isep.ipp.pt )
+ */
+public class RemoteInstance implements Instance {
+
+    /**
+     * The separator between the instances of a description.
+     */
+    private static final String LINE_SEPARATOR = "\n";
+
+    /**
+     * The separator between the fields of an instance.
+     */
+    private static final String FIELD_SEPARATOR = "\t";
+
+    /**
+     * The separator between the tags of an instance.
+     */
+    private static final String TAG_SEPARATOR = "&";
+
+    /**
+     * The separator between the key and the value of a tag.
+     */
+    private static final String TAG_ASSIGNMENT = "=";
+
+    /**
+     * The federation through which the operations are routed.
+     */
+    private final InstanceManager federation;
+
+    /**
+     * The federated identification of the instance.
+     */
+    private final NodeInstanceID id;
+
+    /**
+     * An indicator of whether the process of the instance was alive.
+     */
+    private final boolean alive;
+
+    /**
+     * The run state of the guest.
+     */
+    private final RunState runState;
+
+    /**
+     * The tags of the instance. They are replaced when the instance is
+     * retagged through the view.
+     */
+    private volatile Map<String, String> tags;
+
+    /**
+     * A private constructor that initializes the view. Despite no validations
+     * are made, none of the objects should be null.
+     *
+     * @param theFederation the federation through which the operations are
+     * routed.
+     * @param theID the federated identification of the instance.
+     * @param theAlive whether the process of the instance was alive.
+     * @param theRunState the run state of the guest.
+     * @param theTags the tags of the instance.
+     */
+    private RemoteInstance(InstanceManager theFederation, NodeInstanceID theID, boolean theAlive, RunState theRunState,
+            Map<String, String> theTags) {
+        federation = theFederation;
+        id = theID;
+        alive = theAlive;
+        runState = theRunState;
+        tags = Collections.unmodifiableMap(new TreeMap<>(theTags));
+    }
+
+    /**
+     * It describes the instances of a listing of a local manager.
+     *
+     * @param listing the execution result of
+     * {@link InstanceManager#listInstances()}.
+     * @return <ul><li>a {@link Success} whose description is the description
+     * of the instances;</li><li>the listing itself if it is not a
+     * {@link ListResult};</li></ul>
+     */
+    public static ExecutionResult describe(ExecutionResult listing) {
+        if (!(listing instanceof ListResult)) {
+            return listing;
+        }
+        StringBuilder builder = new StringBuilder();
+        for (Object item : ((ListResult<?>) listing).items()) {
+            if (!(item instanceof Instance) || !(((Instance) item).id() instanceof QemuInstanceID)) {
+                continue;
+            }
+            Instance instance = (Instance) item;
+            StringBuilder encodedTags = new StringBuilder();
+            for (Map.Entry<String, String> tag : instance.tags().entrySet()) {
+                if (encodedTags.length() > 0) {
+                    encodedTags.append(TAG_SEPARATOR);
+                }
+                encodedTags.append(encode(tag.getKey())).append(TAG_ASSIGNMENT).append(encode(tag.getValue()));
+            }
+            builder.append(((QemuInstanceID) instance.id()).value()).append(FIELD_SEPARATOR);
+            builder.append(instance.isAlive()).append(FIELD_SEPARATOR);
+            builder.append(instance.runState()).append(FIELD_SEPARATOR);
+            builder.append(encodedTags).append(LINE_SEPARATOR);
+        }
+        return Success.achieved(builder.toString());
+    }
+
+    /**
+     * It builds the views of the instances of a member from their
+     * description. Malformed lines are skipped.
+     *
+     * @param federation the federation through which the operations are
+     * routed.
+     * @param node the node identification of the member.
+     * @param description the description of the instances of the member.
+     * @return the views of the instances.
+     */
+    public static List<RemoteInstance> parse(InstanceManager federation, String node, String description) {
+        List<RemoteInstance> instances = new ArrayList<>();
+        if (description == null) {
+            return instances;
+        }
+        for (String line : description.split(LINE_SEPARATOR)) {
+            String[] fields = line.split(FIELD_SEPARATOR, -1);
+            if (fields.length != 4) {
+                continue;
+            }
+            try {
+                instances.add(new RemoteInstance(federation, NodeInstanceID.create(node, Long.parseLong(fields[0])),
+                        Boolean.parseBoolean(fields[1]), RunState.valueOf(fields[2]), decodeTags(fields[3])));
+            } catch (IllegalArgumentException ex) {
+                Log.warning("Skipping malformed instance description: {0}", line);
+            }
+        }
+        return instances;
+    }
+
+    /**
+     * A getter of the federated identification of the instance.
+     *
+     * @return the {@link RemoteInstance#id}.
+     */
+    @Override
+    public InstanceID id() {
+        return id;
+    }
+
+    /**
+     * It starts the process of the instance on its member.
+     *
+     * @return the execution result of
+     * {@link InstanceManager#executeInstance(Instances.InstanceID)}.
+     */
+    @Override
+    public ExecutionResult start() {
+        return federation.executeInstance(id);
+    }
+
+    /**
+     * It executes the command on the instance through its member.
+     *
+     * @param command the command to be executed.
+     * @return <ul><li>the execution result of the command;</li><li>the
+     * execution result of
+     * {@link InstanceManager#executeCommands(java.util.Map)} if it holds no
+     * result for the instance;</li></ul>
+     */
+    @Override
+    public ExecutionResult execute(Command command) {
+        Map<InstanceID, List<Command>> commands = new TreeMap<>();
+        commands.put(id, Collections.singletonList(command));
+        ExecutionResult result = federation.executeCommands(commands);
+        if (result instanceof MapResult) {
+            Object reply = ((MapResult<?, ?>) result).map().get(id);
+            if (reply instanceof ExecutionResult) {
+                return (ExecutionResult) reply;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * It checks if the process of the instance was running when the instances
+     * were listed.
+     *
+     * @return the {@link RemoteInstance#alive}.
+     */
+    @Override
+    public boolean isAlive() {
+        return alive;
+    }
+
+    /**
+     * A getter of the run state of the guest when the instances were listed.
+     *
+     * @return the {@link RemoteInstance#runState}.
+     */
+    @Override
+    public RunState runState() {
+        return runState;
+    }
+
+    /**
+     * It can not wait for the process of an instance of another member.
+     *
+     * @param timeout the maximum time to wait, in milliseconds.
+     * @return never.
+     * @throws UnsupportedOperationException always.
+     */
+    @Override
+    public boolean awaitExit(long timeout) {
+        throw new UnsupportedOperationException("The process of " + id + " can only be awaited by its member.");
+    }
+
+    /**
+     * It can not watch the process of an instance of another member.
+     *
+     * @param action the action to run.
+     * @throws UnsupportedOperationException always.
+     */
+    @Override
+    public void onExit(Runnable action) {
+        throw new UnsupportedOperationException("The process of " + id + " can only be watched by its member.");
+    }
+
+    /**
+     * It shuts the instance down through its member, which terminates its
+     * process. The member decides how forcibly.
+     *
+     * @param forcibly ignored.
+     */
+    @Override
+    public void destroy(boolean forcibly) {
+        federation.shutdownInstance(id);
+    }
+
+    /**
+     * A getter of the tags of the instance.
+     *
+     * @return the {@link RemoteInstance#tags}.
+     */
+    @Override
+    public Map<String, String> tags() {
+        return tags;
+    }
+
+    /**
+     * It replaces the tags of the instance through its member and, if it
+     * succeeded, of this view.
+     *
+     * @param newTags the new tags of the instance.
+     */
+    @Override
+    public void retag(Map<String, String> newTags) {
+        if (federation.retagInstance(id, newTags).wasSuccessful()) {
+            tags = Collections.unmodifiableMap(new TreeMap<>(newTags));
+        }
+    }
+
+    /**
+     * It compares the identification of the instances.
+     *
+     * @param that the other instance.
+     * @return the comparison of the identifications.
+     */
+    @Override
+    public int compareTo(Instance that) {
+        return this.id().compareTo(that.id());
+    }
+
+    /**
+     * It provides the textual representation of the id.
+     *
+     * @return the {@link NodeInstanceID#toString() }.
+     */
+    @Override
+    public String toString() {
+        return id.toString();
+    }
+
+    /**
+     * It decodes the tags of an instance.
+     *
+     * @param field the encoded tags.
+     * @return the tags.
+     */
+    private static Map<String, String> decodeTags(String field) {
+        Map<String, String> decoded = new TreeMap<>();
+        if (field.isEmpty()) {
+            return decoded;
+        }
+        for (String tag : field.split(TAG_SEPARATOR)) {
+            String[] pair = tag.split(TAG_ASSIGNMENT, 2);
+            decoded.put(decode(pair[0]), pair.length > 1 ? decode(pair[1]) : "");
+        }
+        return decoded;
+    }
+
+    /**
+     * It escapes a text so that it holds no separators.
+     *
+     * @param text the text to escape.
+     * @return the escaped text.
+     */
+    private static String encode(String text) {
+        return URLEncoder.encode(text, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * It reverts the escaping of {@link RemoteInstance#encode(java.lang.String)}.
+     *
+     * @param text the escaped text.
+     * @return the original text.
+     */
+    private static String decode(String text) {
+        return URLDecoder.decode(text, StandardCharsets.UTF_8);
+    }
+
+}
@@ -0,0 +1,13 @@
+/**
+ * The package contains classes related to the federation of managers. Each
+ * manager process runs a {@link Federation.FederatedManager}, which presents
+ * the {@link Managers.InstanceManager} API across every
+ * {@link Federation.Member} of the federation: new instances are placed on a
+ * member by consistent hashing over a {@link Federation.HashRing} or by the
+ * most headroom, and every instance is identified by a
+ * {@link Federation.NodeInstanceID} that carries the node identification of
+ * its member. The members register with each other through the binary
+ * control protocol and each one keeps its view of the federation in a
+ * {@link Federation.Membership}.
+ */
+package Federation;
@@ -0,0 +1,142 @@
+/*
+ *                      QEMU INSTANCES MANAGER LIBRARY
+ *                                Java Version
+ * 
+ * PRODUCT OWNER: Research Centre in Real-Time & Embedded Computing Systems
+ * PROJECT MANAGER: Luís Pinho and Cláudio Maia {lmn,clrrm}@isep.ipp.pt
+ * DEVELOPER: Manuel Meireles ( mjcdm@isep.ipp.pt )
+ * DATE: 24/11/2017
+ * SCOPE: CISTER Summer Internship 2017
+ * VERSION: 1.0
+ */
+package HTTP;
+
+import Communications.Fail;
+import Communications.Fail.Reason;
+import com.sun.net.httpserver.Filter;
+import com.sun.net.httpserver.HttpExchange;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.regex.Pattern;
+
+/**
+ * A filter that lets through only the requests of local clients that know the
+ * token of the server. Listening on the loopback interface is not enough: a
+ * web page may send simple requests to it (cross-site request forgery) or
+ * rebind its own host name to the loopback address (DNS rebinding). So every
+ * request must:
+ * <ul>
+ * <li>carry no «Origin» header, which browsers add to those
+ * requests;</li>
+ * <li>be addressed to a loopback «Host»;</li>
+ * <li>present the token in an «Authorization: Bearer» header, which a page
+ * can not add without the consent of the server.</li>
+ * </ul>
+ *
+ * @see ControlServer
+ * @author Manuel Meireles ( mjcdm@isep.ipp.pt )
+ */
+public class AccessFilter extends Filter {
+
+    /**
+     * The prefix of the «Authorization» header that carries the token.
+     */
+    private static final String BEARER = "Bearer ";
+
+    /**
+     * The host names and addresses of the loopback interface, optionally
+     * followed by a port.
+     */
+    private static final Pattern LOOPBACK_HOST = Pattern.compile(
+            "(localhost|127\\.\\d{1,3}\\.\\d{1,3}\\.\\d{1,3}|\\[::1\\])(:\\d+)?", Pattern.CASE_INSENSITIVE);
+
+    /**
+     * The token the clients must present.
+     */
+    private final byte[] token;
+
+    /**
+     * A private constructor that initializes the token. Despite no validation
+     * is made, it should not be null nor empty.
+     *
+     * @param theToken the token the clients must present.
+     */
+    private AccessFilter(String theToken) {
+        token = theToken.getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * It builds a filter that requires the given token.
+     *
+     * @param token the token the clients must present.
+     * @return the built filter.
+     */
+    public static AccessFilter create(String token) {
+        return new AccessFilter(token);
+    }
+
+    /**
+     * It lets the request through or rejects it with 403, if it comes from a
+     * browser or is addressed to a foreign host, or 401, if it lacks the
+     * token.
+     *
+     * @param exchange the exchange of the request.
+     * @param chain the rest of the filters and the handler.
+     * @throws IOException if the response could not be written.
+     */
+    @Override
+    public void doFilter(HttpExchange exchange, Chain chain) throws IOException {
+        String host = exchange.getRequestHeaders().getFirst("Host");
+        if (exchange.getRequestHeaders().containsKey("Origin")) {
+            reject(exchange, 403, "Cross-origin requests are not allowed.");
+        } else if (host == null || !LOOPBACK_HOST.matcher(host.trim()).matches()) {
+            reject(exchange, 403, "Only loopback hosts are allowed.");
+        } else if (!authorized(exchange.getRequestHeaders().getFirst("Authorization"))) {
+            exchange.getResponseHeaders().set("WWW-Authenticate", "Bearer");
+            reject(exchange, 401, "Missing or wrong token.");
+        } else {
+            chain.doFilter(exchange);
+        }
+    }
+
+    /**
+     * A getter of the description of the filter.
+     *
+     * @return the description of the filter.
+     */
+    @Override
+    public String description() {
+        return "It requires a loopback host, no origin and the token of the server.";
+    }
+
+    /**
+     * It checks the «Authorization» header of a request, in constant time so
+     * that the token can not be guessed from the timing.
+     *
+     * @param authorization the value of the header, which may be null.
+     * @return true if the header carries the token or false otherwise.
+     */
+    private boolean authorized(String authorization) {
+        if (authorization == null || !authorization.startsWith(BEARER)) {
+            return false;
+        }
+        byte[] given = authorization.substring(BEARER.length()).trim().getBytes(StandardCharsets.UTF_8);
+        return MessageDigest.isEqual(given, token);
+    }
+
+    /**
+     * It rejects a request with a JSON description of the reason.
+     *
+     * @param exchange the exchange of the request.
+     * @param status the HTTP status.
+     * @param description the reason of the rejection.
+     * @throws IOException if the response could not be written.
+     */
+    private static void reject(HttpExchange exchange, int status, String description) throws IOException {
+        exchange.getRequestBody().close();
+        ControlServer.respond(exchange, status, "application/json; charset=utf-8",
+                ResultToJSON.result(Fail.because(Reason.WRONG_EXEC, description)));
+    }
+
+}
@@ -0,0 +1,641 @@
+/*
+ *                      QEMU INSTANCES MANAGER LIBRARY
+ *                                Java Version
+ * 
+ * PRODUCT OWNER: Research Centre in Real-Time & Embedded Computing Systems
+ * PROJECT MANAGER: Luís Pinho and Cláudio Maia {lmn,clrrm}@isep.ipp.pt
+ * DEVELOPER: Manuel Meireles ( mjcdm@isep.ipp.pt )
+ * DATE: 24/11/2017
+ * SCOPE: CISTER Summer Internship 2017
+ * VERSION: 1.0
+ */
+package HTTP;
+
+import Commands.BuildQemuInstance;
+import Commands.Command;
+import Commands.GenericQMP;
+import Communications.Creation;
+import Communications.ExecutionResult;
+import Communications.Fail;
+import Communications.Fail.Reason;
+import Communications.ListResult;
+import Communications.Success;
+import Configurations.Log;
+import Configurations.Settings;
+import Configurations.Threads;
+import Instances.Instance;
+import Instances.InstanceID;
+import Instances.QemuInstanceID;
+import Managers.InstanceManager;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutorService;
+import java.util.function.Function;
+
+/**
+ * An embeddable HTTP/JSON control API of an {@link InstanceManager}. It only
+ * listens on the loopback interface and exposes the operations of the
+ * manager:
+ * <ul>
+ * <li>GET /instances: it lists the instances;</li>
+ * <li>POST /instances: it starts an instance per line of the body (the
+ * options of each one), in bulk if there are several, or only builds them
+ * with «?start=false»;</li>
+ * <li>GET /instances/{id}: it describes an instance;</li>
+ * <li>POST /instances/{id}/execute, /continue, /suspend or /shutdown: it
+ * runs the operation on the instance;</li>
+ * <li>POST /instances/{id}/commands: it sends a QMP command per line of the
+ * body to the instance;</li>
+ * <li>POST /instances/{id}/migrate: it live migrates the instance to a new
+ * QEMU listening on the «target» address (the loopback one by default) and
+ * answers once the migration ends, whose progress is streamed as
+ * events;</li>
+ * <li>PUT /instances/{id}/tags: it replaces the tags of the instance with
+ * the «key=value» pairs of the body;</li>
+ * <li>GET /headroom: it provides the host capacity still available;</li>
+ * <li>POST /config: it loads the configurations file named in the
+ * body;</li>
+ * <li>POST /shutdown: it shuts down the manager (optionally with the
+ * «deadline» and «grace» parameters) and then the server;</li>
+ * <li>GET /events: it streams the events of the manager as Server-Sent
+ * Events;</li>
+ * <li>GET /metrics: it provides the metrics in the Prometheus
+ * format.</li>
+ * </ul>
+ * Every request, the event streams and the metrics included, must present the
+ * token of the server in an «Authorization: Bearer» header, be addressed to a
+ * loopback host and carry no «Origin» header (see {@link AccessFilter}), so
+ * that no web page can reach the manager. The token is the one from the
+ * {@link Settings}, which the binary server requires as well, or, if there is
+ * none, a random one drawn for the process.
+ * Every request runs on its own thread, a virtual one when the JVM supports
+ * them (see {@link Threads#perTask(java.lang.String)}), so a slow instance or
+ * a long event stream never starves the other requests.
+ *
+ * @see ResultToJSON
+ * @author Manuel Meireles ( mjcdm@isep.ipp.pt )
+ */
+public class ControlServer {
+
+    /**
+     * The maximum number of pending connections.
+     */
+    private static final int BACKLOG = 1024;
+
+    /**
+     * The maximum size, in bytes, of a request body.
+     */
+    private static final int MAX_BODY = 1 << 20;
+
+    /**
+     * The address on which the destination of a migration listens if none is
+     * given.
+     */
+    private static final String LOOPBACK_TARGET = "127.0.0.1";
+
+    /**
+     * The manager whose operations are exposed.
+     */
+    private final InstanceManager manager;
+
+    /**
+     * The loopback address and the port to listen on.
+     */
+    private final InetSocketAddress address;
+
+    /**
+     * The parser of the identification of the instances of the manager.
+     */
+    private final Function<String, InstanceID> ids;
+
+    /**
+     * The token the clients must present.
+     */
+    private final String token;
+
+    /**
+     * The metrics of the server.
+     */
+    private final ServerMetrics metrics;
+
+    /**
+     * The underlying HTTP server. It is null while the server is stopped.
+     */
+    private HttpServer server;
+
+    /**
+     * The executor on which each request runs on its own thread. It is null
+     * while the server is stopped.
+     */
+    private ExecutorService executor;
+
+    /**
+     * The handler of the event streams. It is null while the server is
+     * stopped.
+     */
+    private EventStream events;
+
+    /**
+     * A private constructor that initializes the manager, the address, the
+     * parser of the identifications and the token. Despite no validations are
+     * made, none of the objects should be null.
+     *
+     * @param theManager the manager whose operations are exposed.
+     * @param theAddress the address to listen on.
+     * @param theIds the parser of the identification of the instances.
+     * @param theToken the token the clients must present.
+     */
+    private ControlServer(InstanceManager theManager, InetSocketAddress theAddress, Function<String, InstanceID> theIds,
+            String theToken) {
+        manager = theManager;
+        address = theAddress;
+        ids = theIds;
+        token = theToken;
+        metrics = ServerMetrics.create();
+    }
+
+    /**
+     * It builds a control server on the port from the {@link Settings}.
+     *
+     * @param manager the manager whose operations are exposed.
+     * @return the built control server, not yet started.
+     */
+    public static ControlServer create(InstanceManager manager) {
+        return create(manager, Settings.getHttpPort());
+    }
+
+    /**
+     * It builds a control server on the given port of the loopback interface
+     * of a manager whose instances are identified by a {@link QemuInstanceID}.
+     *
+     * @param manager the manager whose operations are exposed.
+     * @param port the port to listen on (zero for an ephemeral one).
+     * @return the built control server, not yet started.
+     */
+    public static ControlServer create(InstanceManager manager, int port) {
+        return create(manager, port, text -> QemuInstanceID.valueOf(Long.parseLong(text)));
+    }
+
+    /**
+     * It builds a control server on the given port of the loopback interface.
+     *
+     * @param manager the manager whose operations are exposed.
+     * @param port the port to listen on (zero for an ephemeral one).
+     * @param ids the parser of the identification of the instances of the
+     * manager, as found in the paths. It throws an
+     * {@link IllegalArgumentException} on a text that is not an
+     * identification.
+     * @return the built control server, not yet started.
+     */
+    public static ControlServer create(InstanceManager manager, int port, Function<String, InstanceID> ids) {
+        return new ControlServer(manager, new InetSocketAddress(InetAddress.getLoopbackAddress(), port), ids,
+                Settings.getAccessToken());
+    }
+
+    /**
+     * It starts listening. Starting a server that is already listening has no
+     * effect.
+     *
+     * @return <ul><li>a {@link Success} with the address listened on and the
+     * token;</li><li>a {@link Fail} due to {@link Reason#IO_EXCEPTION} if the
+     * port could not be bound;</li></ul>
+     */
+    public synchronized ExecutionResult start() {
+        Log.entering(getClass().getName(), "start", address);
+        ExecutionResult result;
+        if (server == null) {
+            try {
+                server = HttpServer.create(address, BACKLOG);
+            } catch (IOException ex) {
+                result = Fail.because(Reason.IO_EXCEPTION, ex.getMessage());
+                Log.exiting(getClass().getName(), "start", result);
+                return result;
+            }
+            executor = Threads.perTask("control-server");
+            events = EventStream.create(manager.events(), metrics);
+            server.setExecutor(executor);
+            AccessFilter access = AccessFilter.create(token);
+            server.createContext("/events", events).getFilters().add(access);
+            server.createContext("/", this::dispatch).getFilters().add(access);
+            server.start();
+        }
+        result = Success.achieved("listening on http://" + address.getHostString() + ":" + port()
+                + (Threads.virtual() ? " (virtual threads)" : " (platform threads)") + " with the token " + token);
+        Log.exiting(getClass().getName(), "start", result);
+        return result;
+    }
+
+    /**
+     * It stops listening, disconnects the event streams and waits, at most a
+     * second, for the requests being handled.
+     */
+    public synchronized void stop() {
+        Log.entering(getClass().getName(), "stop");
+        if (server != null) {
+            events.closeAll();
+            server.stop(1);
+            executor.shutdownNow();
+            server = null;
+            executor = null;
+            events = null;
+        }
+        Log.exiting(getClass().getName(), "stop");
+    }
+
+    /**
+     * It provides the port the server is listening on, which is the actual one
+     * if an ephemeral port was requested.
+     *
+     * @return the port or -1 if the server is stopped.
+     */
+    public synchronized int port() {
+        return server == null ? -1 : server.getAddress().getPort();
+    }
+
+    /**
+     * A getter of the token the clients must present.
+     *
+     * @return the {@link ControlServer#token}.
+     */
+    public String token() {
+        return token;
+    }
+
+    /**
+     * A getter of the metrics of the server.
+     *
+     * @return the {@link ControlServer#metrics}.
+     */
+    public ServerMetrics metrics() {
+        return metrics;
+    }
+
+    /**
+     * It provides the decoded value of a query parameter of a request.
+     *
+     * @param exchange the exchange of the request.
+     * @param name the name of the parameter.
+     * @return the value of the first parameter with that name or null if there
+     * is none.
+     */
+    static String query(HttpExchange exchange, String name) {
+        String query = exchange.getRequestURI().getRawQuery();
+        if (query == null) {
+            return null;
+        }
+        for (String parameter : query.split("&")) {
+            String[] pair = parameter.split("=", 2);
+            if (URLDecoder.decode(pair[0], StandardCharsets.UTF_8).equals(name)) {
+                return pair.length > 1 ? URLDecoder.decode(pair[1], StandardCharsets.UTF_8) : "";
+            }
+        }
+        return null;
+    }
+
+    /**
+     * It handles every request but the event streams: it routes the request
+     * to the manager, writes the result as JSON and records the metrics.
+     *
+     * @param exchange the exchange of the request.
+     * @throws IOException if the response could not be written.
+     */
+    private void dispatch(HttpExchange exchange) throws IOException {
+        long start = System.nanoTime();
+        metrics.requestStarted();
+        String method = exchange.getRequestMethod();
+        String[] path = segments(exchange);
+        int status = 500;
+        try {
+            if (path.length == 1 && path[0].equals("metrics") && method.equals("GET")) {
+                status = 200;
+                respond(exchange, status, "text/plain; version=0.0.4; charset=utf-8", metrics.render(manager));
+                return;
+            }
+            ExecutionResult result;
+            try {
+                result = route(exchange, method, path);
+            } catch (IllegalArgumentException ex) {
+                result = Fail.because(Reason.NULL_ARGUMENT, "Invalid request: " + ex.getMessage());
+            }
+            if (result == null) {
+                status = 404;
+                result = Fail.because(Reason.UNKNOWN_ID, "No route for " + method + " " + exchange.getRequestURI().getPath());
+            } else {
+                status = status(result);
+            }
+            respond(exchange, status, "application/json; charset=utf-8", ResultToJSON.result(result));
+        } catch (RuntimeException ex) {
+            Log.severe("{0}", ex);
+            respond(exchange, status, "application/json; charset=utf-8", ResultToJSON.result(Fail.because(Reason.WRONG_EXEC, ex.toString())));
+        } finally {
+            metrics.requestFinished(template(path), method, status, System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * It runs the operation of the manager that matches the request.
+     *
+     * @param exchange the exchange of the request.
+     * @param method the HTTP method of the request.
+     * @param path the segments of the path of the request.
+     * @return the execution result of the operation or null if no operation
+     * matches the request.
+     * @throws IOException if the body could not be read.
+     */
+    private ExecutionResult route(HttpExchange exchange, String method, String[] path) throws IOException {
+        if (path.length == 0) {
+            return null;
+        }
+        switch (path[0]) {
+            case "instances":
+                return routeInstances(exchange, method, path);
+            case "headroom":
+                return path.length == 1 && method.equals("GET") ? manager.headroom() : null;
+            case "config":
+                return path.length == 1 && method.equals("POST") ? manager.loadConfigurationFile(body(exchange).trim()) : null;
+            case "shutdown":
+                if (path.length != 1 || !method.equals("POST")) {
+                    return null;
+                }
+                String deadline = query(exchange, "deadline");
+                String grace = query(exchange, "grace");
+                ExecutionResult result = manager.shutdown(
+                        deadline == null ? Settings.getShutdownDeadline() : Long.parseLong(deadline),
+                        grace == null ? Settings.getShutdownPowerdownGrace() : Long.parseLong(grace));
+                executor.execute(this::stop);
+                return result;
+            default:
+                return null;
+        }
+    }
+
+    /**
+     * It runs the operation of the manager on the instances that matches the
+     * request.
+     *
+     * @param exchange the exchange of the request.
+     * @param method the HTTP method of the request.
+     * @param path the segments of the path of the request, starting with
+     * «instances».
+     * @return the execution result of the operation or null if no operation
+     * matches the request.
+     * @throws IOException if the body could not be read.
+     */
+    private ExecutionResult routeInstances(HttpExchange exchange, String method, String[] path) throws IOException {
+        if (path.length == 1) {
+            if (method.equals("GET")) {
+                return manager.listInstances();
+            }
+            if (method.equals("POST")) {
+                return launch(exchange, lines(body(exchange)));
+            }
+            return null;
+        }
+        InstanceID id = ids.apply(path[1]);
+        if (path.length == 2) {
+            return method.equals("GET") ? describe(id) : null;
+        }
+        if (path.length != 3) {
+            return null;
+        }
+        if (method.equals("PUT") && path[2].equals("tags")) {
+            return manager.retagInstance(id, tags(body(exchange)));
+        }
+        if (!method.equals("POST")) {
+            return null;
+        }
+        switch (path[2]) {
+            case "execute":
+                return manager.executeInstance(id);
+            case "continue":
+                return manager.continueInstance(id);
+            case "suspend":
+                return manager.suspendInstance(id);
+            case "shutdown":
+                return manager.shutdownInstance(id);
+            case "migrate":
+                String target = query(exchange, "target");
+                return manager.migrateInstance(id, target == null ? LOOPBACK_TARGET : target);
+            case "commands":
+                List<Command> commands = new ArrayList<>();
+                for (String line : lines(body(exchange))) {
+                    commands.add(GenericQMP.create(line));
+                }
+                if (commands.isEmpty()) {
+                    return Fail.because(Reason.NULL_ARGUMENT, "No commands in the body.");
+                }
+                Map<InstanceID, List<Command>> map = new TreeMap<>();
+                map.put(id, commands);
+                return manager.executeCommands(map);
+            default:
+                return null;
+        }
+    }
+
+    /**
+     * It starts (or only builds, with «?start=false») an instance per line of
+     * the body. Several instances are started in bulk, throttled by the
+     * optional «window» and «rate» parameters.
+     *
+     * @param exchange the exchange of the request.
+     * @param lines the options of each instance.
+     * @return the execution result of the launch.
+     */
+    private ExecutionResult launch(HttpExchange exchange, List<String> lines) {
+        if (lines.isEmpty()) {
+            return Fail.because(Reason.NULL_ARGUMENT, "No instance options in the body.");
+        }
+        List<Command> options = new ArrayList<>();
+        for (String line : lines) {
+            options.add(BuildQemuInstance.command(line));
+        }
+        if ("false".equals(query(exchange, "start"))) {
+            if (options.size() == 1) {
+                return manager.buildInstance(options.get(0));
+            }
+            List<ExecutionResult> creations = new ArrayList<>();
+            for (Command option : options) {
+                creations.add(manager.buildInstance(option));
+            }
+            return ListResult.create(creations);
+        }
+        if (options.size() == 1) {
+            return manager.startInstance(options.get(0));
+        }
+        String window = query(exchange, "window");
+        String rate = query(exchange, "rate");
+        return manager.startInstances(options,
+                window == null ? Settings.getBulkLaunchWindow() : Integer.parseInt(window),
+                rate == null ? Settings.getBulkLaunchRampRate() : Double.parseDouble(rate), null);
+    }
+
+    /**
+     * It describes an instance of the manager.
+     *
+     * @param id the identification of the instance.
+     * @return <ul><li>a {@link ListResult} with the instance;</li><li>a
+     * {@link Fail} due to {@link Reason#UNKNOWN_ID};</li></ul>
+     */
+    private ExecutionResult describe(InstanceID id) {
+        ExecutionResult list = manager.listInstances();
+        if (list instanceof ListResult) {
+            for (Object item : ((ListResult<?>) list).items()) {
+                if (item instanceof Instance && ((Instance) item).id().equals(id)) {
+                    List<Object> found = new ArrayList<>();
+                    found.add(item);
+                    return ListResult.create(found);
+                }
+            }
+        }
+        return Fail.because(Reason.UNKNOWN_ID);
+    }
+
+    /**
+     * It maps an execution result into an HTTP status.
+     *
+     * @param result the execution result.
+     * @return 201 for a successful {@link Creation}, the status that matches
+     * the reason of a {@link Fail} or 200 otherwise.
+     */
+    private static int status(ExecutionResult result) {
+        if (result instanceof Creation && result.wasSuccessful()) {
+            return 201;
+        }
+        if (!(result instanceof Fail)) {
+            return 200;
+        }
+        switch (((Fail) result).reason()) {
+            case NULL_ARGUMENT:
+                return 400;
+            case UNKNOWN_ID:
+                return 404;
+            case QEMU_INSTANCE_IS_OFF:
+                return 409;
+            case FILE_UNAVAILABLE:
+                return 422;
+            case IO_EXCEPTION:
+                return 502;
+            case INSUFFICIENT_CAPACITY:
+            case CIRCUIT_OPEN:
+                return 503;
+            case MAILBOX_FULL:
+                return 429;
+            default:
+                return 500;
+        }
+    }
+
+    /**
+     * It provides the route template of a path for the metrics, i.e. the path
+     * with the identification of the instance replaced by «{id}».
+     *
+     * @param path the segments of the path.
+     * @return the route template.
+     */
+    private static String template(String[] path) {
+        StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < path.length; i++) {
+            builder.append('/');
+            builder.append(i == 1 && path[0].equals("instances") ? "{id}" : path[i]);
+        }
+        return builder.length() == 0 ? "/" : builder.toString();
+    }
+
+    /**
+     * It splits the path of a request into its non empty segments.
+     *
+     * @param exchange the exchange of the request.
+     * @return the segments of the path.
+     */
+    private static String[] segments(HttpExchange exchange) {
+        List<String> segments = new ArrayList<>();
+        for (String segment : exchange.getRequestURI().getPath().split("/")) {
+            if (!segment.isEmpty()) {
+                segments.add(segment);
+            }
+        }
+        return segments.toArray(new String[0]);
+    }
+
+    /**
+     * It reads the body of a request as text.
+     *
+     * @param exchange the exchange of the request.
+     * @return the body.
+     * @throws IOException if the body could not be read.
+     * @throws IllegalArgumentException if the body is too large.
+     */
+    private static String body(HttpExchange exchange) throws IOException {
+        try (InputStream in = exchange.getRequestBody()) {
+            byte[] bytes = in.readNBytes(MAX_BODY + 1);
+            if (bytes.length > MAX_BODY) {
+                throw new IllegalArgumentException("Body larger than " + MAX_BODY + " bytes.");
+            }
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+    }
+
+    /**
+     * It splits a body into its trimmed non empty lines.
+     *
+     * @param body the body.
+     * @return the lines.
+     */
+    private static List<String> lines(String body) {
+        List<String> lines = new ArrayList<>();
+        for (String line : body.split("\\R")) {
+            if (!line.trim().isEmpty()) {
+                lines.add(line.trim());
+            }
+        }
+        return lines;
+    }
+
+    /**
+     * It parses the «key=value» pairs of a body, separated by commas or line
+     * breaks.
+     *
+     * @param body the body.
+     * @return the tags.
+     */
+    private static Map<String, String> tags(String body) {
+        Map<String, String> tags = new TreeMap<>();
+        for (String tag : body.split("[,\\r\\n]")) {
+            String[] pair = tag.split("=", 2);
+            if (!pair[0].trim().isEmpty()) {
+                tags.put(pair[0].trim(), pair.length > 1 ? pair[1].trim() : "");
+            }
+        }
+        return tags;
+    }
+
+    /**
+     * It writes a complete response.
+     *
+     * @param exchange the exchange of the request.
+     * @param status the HTTP status.
+     * @param contentType the content type of the body.
+     * @param body the body.
+     * @throws IOException if the response could not be written.
+     */
+    static void respond(HttpExchange exchange, int status, String contentType, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", contentType);
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+}
@@ -0,0 +1,169 @@
+/*
+ *                      QEMU INSTANCES MANAGER LIBRARY
+ *                                Java Version
+ * 
+ * PRODUCT OWNER: Research Centre in Real-Time & Embedded Computing Systems
+ * PROJECT MANAGER: Luís Pinho and Cláudio Maia {lmn,clrrm}@isep.ipp.pt
+ * DEVELOPER: Manuel Meireles ( mjcdm@isep.ipp.pt )
+ * DATE: 24/11/2017
+ * SCOPE: CISTER Summer Internship 2017
+ * VERSION: 1.0
+ */
+package HTTP;
+
+import Configurations.Log;
+import Configurations.Settings;
+import Events.Event;
+import Events.EventBus;
+import Events.EventListener;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A handler that streams the events of the manager as Server-Sent Events.
+ * Each client gets its own bounded buffer: the publisher never blocks on a
+ * slow client, whose oldest events are dropped instead. The stream may be
+ * narrowed with the «instance» and «type» query parameters, and a comment is
+ * sent every few seconds so that idle connections are kept open.
+ *
+ * @see ControlServer
+ * @author Manuel Meireles ( mjcdm@isep.ipp.pt )
+ */
+public class EventStream implements HttpHandler {
+
+    /**
+     * The time, in seconds, after which an idle stream is sent a keep-alive
+     * comment.
+     */
+    private static final long KEEP_ALIVE = 15;
+
+    /**
+     * The bus whose events are streamed.
+     */
+    private final EventBus bus;
+
+    /**
+     * The metrics in which the streams and the events are counted.
+     */
+    private final ServerMetrics metrics;
+
+    /**
+     * The number of events buffered for each client.
+     */
+    private final int buffer;
+
+    /**
+     * The threads currently streaming, so that they can be interrupted when
+     * the server stops.
+     */
+    private final Set<Thread> streaming;
+
+    /**
+     * A private constructor that initializes the bus, the metrics and the
+     * buffer. Despite no validations are made, none of the objects should be
+     * null and the buffer should be positive.
+     *
+     * @param theBus the bus whose events are streamed.
+     * @param theMetrics the metrics of the server.
+     * @param theBuffer the number of events buffered for each client.
+     */
+    private EventStream(EventBus theBus, ServerMetrics theMetrics, int theBuffer) {
+        bus = theBus;
+        metrics = theMetrics;
+        buffer = theBuffer;
+        streaming = ConcurrentHashMap.newKeySet();
+    }
+
+    /**
+     * It builds an event stream handler with the buffer size from the
+     * {@link Settings}.
+     *
+     * @param bus the bus whose events are streamed.
+     * @param metrics the metrics of the server.
+     * @return the built handler.
+     */
+    public static EventStream create(EventBus bus, ServerMetrics metrics) {
+        return new EventStream(bus, metrics, Math.max(1, Settings.getHttpEventBuffer()));
+    }
+
+    /**
+     * It streams the events to the client until it disconnects or the server
+     * stops. It blocks the calling thread for the whole stream, which is cheap
+     * on a virtual thread.
+     *
+     * @param exchange the exchange of the client.
+     * @throws IOException if the response could not be started.
+     */
+    @Override
+    public void handle(HttpExchange exchange) throws IOException {
+        String instance = ControlServer.query(exchange, "instance");
+        String type = ControlServer.query(exchange, "type");
+        BlockingQueue<Event> queue = new ArrayBlockingQueue<>(buffer);
+        EventListener listener = event -> {
+            if ((instance == null || (event.id() != null && instance.equals(event.id().toString())))
+                    && (type == null || type.equalsIgnoreCase(event.type().toString()))) {
+                while (!queue.offer(event)) {
+                    if (queue.poll() != null) {
+                        metrics.eventDropped();
+                    }
+                }
+            }
+        };
+        exchange.getResponseHeaders().set("Content-Type", "text/event-stream; charset=utf-8");
+        exchange.getResponseHeaders().set("Cache-Control", "no-cache");
+        exchange.sendResponseHeaders(200, 0);
+        streaming.add(Thread.currentThread());
+        bus.subscribe(listener);
+        metrics.streamOpened();
+        try (OutputStream out = exchange.getResponseBody()) {
+            write(out, ": connected\n\n");
+            while (!Thread.currentThread().isInterrupted()) {
+                Event event = queue.poll(KEEP_ALIVE, TimeUnit.SECONDS);
+                if (event == null) {
+                    write(out, ": keep-alive\n\n");
+                } else {
+                    write(out, "id: " + event.sequence() + "\nevent: " + event.type() + "\ndata: " + ResultToJSON.event(event) + "\n\n");
+                    metrics.eventSent();
+                }
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        } catch (IOException ex) {
+            Log.fine("{0}", ex);
+        } finally {
+            bus.unsubscribe(listener);
+            metrics.streamClosed();
+            streaming.remove(Thread.currentThread());
+        }
+    }
+
+    /**
+     * It interrupts every stream, so that their clients are disconnected.
+     */
+    public void closeAll() {
+        for (Thread thread : streaming) {
+            thread.interrupt();
+        }
+    }
+
+    /**
+     * It writes a chunk of the stream and flushes it right away.
+     *
+     * @param out the output of the stream.
+     * @param text the text to write.
+     * @throws IOException if the client disconnected.
+     */
+    private static void write(OutputStream out, String text) throws IOException {
+        out.write(text.getBytes(StandardCharsets.UTF_8));
+        out.flush();
+    }
+
+}
@@ -0,0 +1,245 @@
+/*
+ *                      QEMU INSTANCES MANAGER LIBRARY
+ *                                Java Version
+ * 
+ * PRODUCT OWNER: Research Centre in Real-Time & Embedded Computing Systems
+ * PROJECT MANAGER: Luís Pinho and Cláudio Maia {lmn,clrrm}@isep.ipp.pt
+ * DEVELOPER: Manuel Meireles ( mjcdm@isep.ipp.pt )
+ * DATE: 24/11/2017
+ * SCOPE: CISTER Summer Internship 2017
+ * VERSION: 1.0
+ */
+package HTTP;
+
+import Communications.Creation;
+import Communications.ExecutionResult;
+import Communications.Fail;
+import Communications.Headroom;
+import Communications.LaunchReport;
+import Communications.ListResult;
+import Communications.MapResult;
+import Communications.Termination;
+import Events.Event;
+import Instances.Instance;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.Map;
+
+/**
+ * A converter of execution results, instances and events into JSON. Every
+ * result becomes an object with, at least, its success and its description,
+ * plus the structured content of the results that have one (e.g. the items
+ * of a {@link ListResult} or the reason of a {@link Fail}).
+ *
+ * @see ControlServer
+ * @author Manuel Meireles ( mjcdm@isep.ipp.pt )
+ */
+public class ResultToJSON {
+
+    /**
+     * The number of nanoseconds in a millisecond.
+     */
+    private static final double NANOS_PER_MILLI = 1e6;
+
+    /**
+     * A private constructor since the class only has static methods.
+     */
+    private ResultToJSON() {
+    }
+
+    /**
+     * It converts an execution result into a JSON object.
+     *
+     * @param result the execution result to convert.
+     * @return the JSON text.
+     */
+    public static String result(ExecutionResult result) {
+        StringBuilder builder = new StringBuilder();
+        appendResult(builder, result);
+        return builder.toString();
+    }
+
+    /**
+     * It converts an event into a JSON object.
+     *
+     * @param event the event to convert.
+     * @return the JSON text.
+     */
+    public static String event(Event event) {
+        StringBuilder builder = new StringBuilder();
+        builder.append("{\"sequence\":").append(event.sequence());
+        builder.append(",\"timestamp\":").append(event.timestamp());
+        builder.append(",\"type\":");
+        appendString(builder, event.type().toString());
+        builder.append(",\"id\":");
+        appendString(builder, event.id() == null ? null : event.id().toString());
+        builder.append(",\"detail\":");
+        appendString(builder, event.detail());
+        builder.append('}');
+        return builder.toString();
+    }
+
+    /**
+     * It converts a text into a JSON string, escaping it as needed.
+     *
+     * @param text the text to convert. It may be null.
+     * @return the JSON string or null.
+     */
+    public static String string(String text) {
+        StringBuilder builder = new StringBuilder();
+        appendString(builder, text);
+        return builder.toString();
+    }
+
+    /**
+     * It appends an execution result as a JSON object.
+     *
+     * @param builder the builder to append to.
+     * @param result the execution result to append.
+     */
+    private static void appendResult(StringBuilder builder, ExecutionResult result) {
+        builder.append("{\"success\":").append(result.wasSuccessful());
+        builder.append(",\"result\":");
+        appendString(builder, result.getClass().getSimpleName());
+        if (result instanceof Fail) {
+            builder.append(",\"reason\":");
+            appendString(builder, ((Fail) result).reason().toString());
+        } else if (result instanceof Creation) {
+            builder.append(",\"id\":");
+            appendString(builder, ((Creation) result).id().toString());
+        } else if (result instanceof Headroom) {
+            builder.append(",\"memory\":").append(((Headroom) result).memory());
+            builder.append(",\"cpus\":").append(((Headroom) result).cpus());
+        } else if (result instanceof Termination) {
+            builder.append(",\"stage\":");
+            appendString(builder, ((Termination) result).stage().toString());
+            builder.append(",\"durationMs\":").append(((Termination) result).duration() / NANOS_PER_MILLI);
+        } else if (result instanceof LaunchReport) {
+            LaunchReport report = (LaunchReport) result;
+            builder.append(",\"launched\":").append(report.launched());
+            builder.append(",\"throughput\":").append(report.throughput());
+            builder.append(",\"p50Ms\":").append(report.percentile(50));
+            builder.append(",\"p99Ms\":").append(report.percentile(99));
+            builder.append(",\"items\":");
+            appendItems(builder, report.results());
+        } else if (result instanceof ListResult) {
+            builder.append(",\"items\":");
+            appendItems(builder, ((ListResult<?>) result).items());
+        } else if (result instanceof MapResult) {
+            builder.append(",\"entries\":");
+            appendEntries(builder, ((MapResult<?, ?>) result).map());
+        }
+        builder.append(",\"description\":");
+        appendString(builder, result.description());
+        builder.append('}');
+    }
+
+    /**
+     * It appends a collection as a JSON array.
+     *
+     * @param builder the builder to append to.
+     * @param items the items to append.
+     */
+    private static void appendItems(StringBuilder builder, Collection<?> items) {
+        builder.append('[');
+        Iterator<?> iterator = items.iterator();
+        while (iterator.hasNext()) {
+            appendValue(builder, iterator.next());
+            if (iterator.hasNext()) {
+                builder.append(',');
+            }
+        }
+        builder.append(']');
+    }
+
+    /**
+     * It appends a map as a JSON object whose names are the keys as text.
+     *
+     * @param builder the builder to append to.
+     * @param entries the entries to append.
+     */
+    private static void appendEntries(StringBuilder builder, Map<?, ?> entries) {
+        builder.append('{');
+        Iterator<? extends Map.Entry<?, ?>> iterator = entries.entrySet().iterator();
+        while (iterator.hasNext()) {
+            Map.Entry<?, ?> entry = iterator.next();
+            appendString(builder, String.valueOf(entry.getKey()));
+            builder.append(':');
+            appendValue(builder, entry.getValue());
+            if (iterator.hasNext()) {
+                builder.append(',');
+            }
+        }
+        builder.append('}');
+    }
+
+    /**
+     * It appends any value: execution results and instances as JSON objects,
+     * maps as JSON objects and everything else as JSON strings.
+     *
+     * @param builder the builder to append to.
+     * @param value the value to append.
+     */
+    private static void appendValue(StringBuilder builder, Object value) {
+        if (value instanceof ExecutionResult) {
+            appendResult(builder, (ExecutionResult) value);
+        } else if (value instanceof Instance) {
+            Instance instance = (Instance) value;
+            builder.append("{\"id\":");
+            appendString(builder, instance.id().toString());
+            builder.append(",\"alive\":").append(instance.isAlive());
+            builder.append(",\"state\":");
+            appendString(builder, instance.runState().status());
+            builder.append(",\"tags\":");
+            appendEntries(builder, instance.tags());
+            builder.append('}');
+        } else if (value instanceof Map) {
+            appendEntries(builder, (Map<?, ?>) value);
+        } else {
+            appendString(builder, value == null ? null : value.toString());
+        }
+    }
+
+    /**
+     * It appends a text as a JSON string, escaping the quotes, the
+     * backslashes and the control characters.
+     *
+     * @param builder the builder to append to.
+     * @param text the text to append. It may be null.
+     */
+    private static void appendString(StringBuilder builder, String text) {
+        if (text == null) {
+            builder.append("null");
+            return;
+        }
+        builder.append('"');
+        for (int i = 0; i < text.length(); i++) {
+            char character = text.charAt(i);
+            switch (character) {
+                case '"':
+                    builder.append("\\\"");
+                    break;
+                case '\\':
+                    builder.append("\\\\");
+                    break;
+                case '\n':
+                    builder.append("\\n");
+                    break;
+                case '\r':
+                    builder.append("\\r");
+                    break;
+                case '\t':
+                    builder.append("\\t");
+                    break;
+                default:
+                    if (character < 0x20) {
+                        builder.append(String.format("\\u%04x", (int) character));
+                    } else {
+                        builder.append(character);
+                    }
+            }
+        }
+        builder.append('"');
+    }
+
+}
@@ -0,0 +1,240 @@
+/*
+ *                      QEMU INSTANCES MANAGER LIBRARY
+ *                                Java Version
+ * 
+ * PRODUCT OWNER: Research Centre in Real-Time & Embedded Computing Systems
+ * PROJECT MANAGER: Luís Pinho and Cláudio Maia {lmn,clrrm}@isep.ipp.pt
+ * DEVELOPER: Manuel Meireles ( mjcdm@isep.ipp.pt )
+ * DATE: 24/11/2017
+ * SCOPE: CISTER Summer Internship 2017
+ * VERSION: 1.0
+ */
+package HTTP;
+
+import Commands.Command.Priority;
+import Communications.ListResult;
+import Communications.ExecutionResult;
+import Instances.Instance;
+import Instances.LaneLatency;
+import Instances.QueryCache;
+import Managers.InstanceManager;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * The metrics of the HTTP control API. The counters are striped, so that
+ * thousands of concurrent requests do not contend on them, and they are
+ * rendered in the Prometheus text exposition format.
+ *
+ * @see ControlServer
+ * @author Manuel Meireles ( mjcdm@isep.ipp.pt )
+ */
+public class ServerMetrics {
+
+    /**
+     * The number of nanoseconds in a second.
+     */
+    private static final double NANOS_PER_SECOND = 1e9;
+
+    /**
+     * The prefix of every metric name.
+     */
+    private static final String PREFIX = "qemu_manager_";
+
+    /**
+     * The number of requests handled, where the keys are the labels of the
+     * route, the method and the status.
+     */
+    private final ConcurrentMap<String, LongAdder> requests;
+
+    /**
+     * The total time, in nanoseconds, spent handling the requests, where the
+     * keys are the labels of the route and the method.
+     */
+    private final ConcurrentMap<String, LongAdder> latencies;
+
+    /**
+     * The number of requests being handled.
+     */
+    private final AtomicInteger inFlight;
+
+    /**
+     * The number of clients streaming events.
+     */
+    private final AtomicInteger streams;
+
+    /**
+     * The number of events sent to the streaming clients.
+     */
+    private final LongAdder eventsSent;
+
+    /**
+     * The number of events dropped because a streaming client was too slow.
+     */
+    private final LongAdder eventsDropped;
+
+    /**
+     * A private constructor that initializes every metric at zero.
+     */
+    private ServerMetrics() {
+        requests = new ConcurrentHashMap<>();
+        latencies = new ConcurrentHashMap<>();
+        inFlight = new AtomicInteger(0);
+        streams = new AtomicInteger(0);
+        eventsSent = new LongAdder();
+        eventsDropped = new LongAdder();
+    }
+
+    /**
+     * It builds the metrics with every one at zero.
+     *
+     * @return the built metrics.
+     */
+    public static ServerMetrics create() {
+        return new ServerMetrics();
+    }
+
+    /**
+     * It records that a request started being handled.
+     */
+    public void requestStarted() {
+        inFlight.incrementAndGet();
+    }
+
+    /**
+     * It records that a request was handled.
+     *
+     * @param route the route template of the request, e.g.
+     * «/instances/{id}/continue», so that the identifications do not explode
+     * the number of series.
+     * @param method the HTTP method of the request.
+     * @param status the HTTP status of the response.
+     * @param duration the time, in nanoseconds, the request took.
+     */
+    public void requestFinished(String route, String method, int status, long duration) {
+        inFlight.decrementAndGet();
+        String labels = "route=\"" + route + "\",method=\"" + method + "\"";
+        requests.computeIfAbsent(labels + ",status=\"" + status + "\"", key -> new LongAdder()).increment();
+        latencies.computeIfAbsent(labels, key -> new LongAdder()).add(duration);
+    }
+
+    /**
+     * It records that a client started streaming events.
+     */
+    public void streamOpened() {
+        streams.incrementAndGet();
+    }
+
+    /**
+     * It records that a client stopped streaming events.
+     */
+    public void streamClosed() {
+        streams.decrementAndGet();
+    }
+
+    /**
+     * It records that an event was sent to a streaming client.
+     */
+    public void eventSent() {
+        eventsSent.increment();
+    }
+
+    /**
+     * It records that an event was dropped for a slow streaming client.
+     */
+    public void eventDropped() {
+        eventsDropped.increment();
+    }
+
+    /**
+     * It renders every metric, plus the instances of the manager, in the
+     * Prometheus text exposition format.
+     *
+     * @param manager the manager whose instances are counted.
+     * @return the metrics as text.
+     */
+    public String render(InstanceManager manager) {
+        StringBuilder builder = new StringBuilder();
+        builder.append("# TYPE ").append(PREFIX).append("http_requests_total counter\n");
+        for (Map.Entry<String, LongAdder> entry : new TreeMap<>(requests).entrySet()) {
+            sample(builder, "http_requests_total{" + entry.getKey() + "}", entry.getValue().sum());
+        }
+        builder.append("# TYPE ").append(PREFIX).append("http_request_seconds_sum counter\n");
+        for (Map.Entry<String, LongAdder> entry : new TreeMap<>(latencies).entrySet()) {
+            sample(builder, "http_request_seconds_sum{" + entry.getKey() + "}", entry.getValue().sum() / NANOS_PER_SECOND);
+        }
+        gauge(builder, "http_requests_in_flight", inFlight.get());
+        gauge(builder, "event_streams", streams.get());
+        builder.append("# TYPE ").append(PREFIX).append("events_sent_total counter\n");
+        sample(builder, "events_sent_total", eventsSent.sum());
+        builder.append("# TYPE ").append(PREFIX).append("events_dropped_total counter\n");
+        sample(builder, "events_dropped_total", eventsDropped.sum());
+        builder.append("# TYPE ").append(PREFIX).append("qmp_lane_commands_total counter\n");
+        for (Priority lane : Priority.values()) {
+            sample(builder, "qmp_lane_commands_total{lane=\"" + lane + "\"}", LaneLatency.of(lane).count());
+        }
+        builder.append("# TYPE ").append(PREFIX).append("qmp_lane_seconds_sum counter\n");
+        for (Priority lane : Priority.values()) {
+            sample(builder, "qmp_lane_seconds_sum{lane=\"" + lane + "\"}", LaneLatency.of(lane).total() / NANOS_PER_SECOND);
+        }
+        builder.append("# TYPE ").append(PREFIX).append("qmp_lane_seconds_max gauge\n");
+        for (Priority lane : Priority.values()) {
+            sample(builder, "qmp_lane_seconds_max{lane=\"" + lane + "\"}", LaneLatency.of(lane).max() / NANOS_PER_SECOND);
+        }
+        builder.append("# TYPE ").append(PREFIX).append("query_cache_hits_total counter\n");
+        sample(builder, "query_cache_hits_total", QueryCache.hits());
+        builder.append("# TYPE ").append(PREFIX).append("query_cache_misses_total counter\n");
+        sample(builder, "query_cache_misses_total", QueryCache.misses());
+        builder.append("# TYPE ").append(PREFIX).append("query_cache_coalesced_total counter\n");
+        sample(builder, "query_cache_coalesced_total", QueryCache.coalesced());
+        int instances = 0;
+        int alive = 0;
+        ExecutionResult list = manager.listInstances();
+        if (list instanceof ListResult) {
+            for (Object item : ((ListResult<?>) list).items()) {
+                instances++;
+                if (item instanceof Instance && ((Instance) item).isAlive()) {
+                    alive++;
+                }
+            }
+        }
+        gauge(builder, "instances", instances);
+        gauge(builder, "instances_alive", alive);
+        return builder.toString();
+    }
+
+    /**
+     * It appends a gauge with its type line.
+     *
+     * @param builder the builder to append to.
+     * @param name the name of the gauge, without the prefix.
+     * @param value the value of the gauge.
+     */
+    private static void gauge(StringBuilder builder, String name, double value) {
+        builder.append("# TYPE ").append(PREFIX).append(name).append(" gauge\n");
+        sample(builder, name, value);
+    }
+
+    /**
+     * It appends a sample line.
+     *
+     * @param builder the builder to append to.
+     * @param series the name of the series, without the prefix, with its
+     * labels.
+     * @param value the value of the sample.
+     */
+    private static void sample(StringBuilder builder, String series, double value) {
+        builder.append(PREFIX).append(series).append(' ');
+        if (value == Math.rint(value)) {
+            builder.append((long) value);
+        } else {
+            builder.append(value);
+        }
+        builder.append('\n');
+    }
+
+}
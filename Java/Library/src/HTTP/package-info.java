@@ -0,0 +1,9 @@
+/**
+ * The package contains classes related to the HTTP control API. The
+ * {@link HTTP.ControlServer} exposes the operations of an
+ * {@link Managers.InstanceManager} as JSON over HTTP on the loopback
+ * interface, streams its {@link Events.Event}s through the
+ * {@link HTTP.EventStream} and publishes the {@link HTTP.ServerMetrics}.
+ * The results are converted into JSON by the {@link HTTP.ResultToJSON}.
+ */
+package HTTP;
@@ -0,0 +1,200 @@
+/*
+ *                      QEMU INSTANCES MANAGER LIBRARY
+ *                                Java Version
+ * 
+ * PRODUCT OWNER: Research Centre in Real-Time & Embedded Computing Systems
+ * PROJECT MANAGER: Luís Pinho and Cláudio Maia {lmn,clrrm}@isep.ipp.pt
+ * DEVELOPER: Manuel Meireles ( mjcdm@isep.ipp.pt )
+ * DATE: 24/11/2017
+ * SCOPE: CISTER Summer Internship 2017
+ * VERSION: 1.0
+ */
+package Instances;
+
+import Configurations.Settings;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The circuit breaker of the QMP connection of an instance. After a number of
+ * consecutive failures it opens, and every command fails right away instead
+ * of waiting for a connection that is likely to fail too. Once the backoff
+ * elapses, a single reconnection is tried: if it succeeds the breaker closes,
+ * otherwise it opens again for twice as long, up to a maximum.
+ *
+ * @see QemuInstance
+ * @author Manuel Meireles ( mjcdm@isep.ipp.pt )
+ */
+public class CircuitBreaker {
+
+    /**
+     * The states of the breaker. A closed breaker lets everything through, an
+     * open one nothing and a half open one only the trial of a reconnection.
+     */
+    public enum State {
+        CLOSED,
+        OPEN,
+        HALF_OPEN
+    }
+
+    /**
+     * The number of consecutive failures that open the breaker.
+     */
+    private final int threshold;
+
+    /**
+     * The time, in nanoseconds, the breaker first stays open.
+     */
+    private final long initialBackoff;
+
+    /**
+     * The longest time, in nanoseconds, the breaker stays open.
+     */
+    private final long maxBackoff;
+
+    /**
+     * The current state of the breaker.
+     */
+    private State state;
+
+    /**
+     * The number of consecutive failures.
+     */
+    private int failures;
+
+    /**
+     * The time, in nanoseconds, the breaker stays open the next time it opens.
+     */
+    private long backoff;
+
+    /**
+     * The {@link System#nanoTime()} at which an open breaker allows a trial.
+     */
+    private long retryAt;
+
+    /**
+     * A private constructor that initializes a closed breaker. Despite no
+     * validations are made, the threshold should be positive and the
+     * backoffs should not be negative.
+     *
+     * @param theThreshold the number of consecutive failures that open the
+     * breaker.
+     * @param theInitialBackoff the time the breaker first stays open.
+     * @param theMaxBackoff the longest time the breaker stays open.
+     */
+    private CircuitBreaker(int theThreshold, long theInitialBackoff, long theMaxBackoff) {
+        threshold = theThreshold;
+        initialBackoff = theInitialBackoff;
+        maxBackoff = theMaxBackoff;
+        state = State.CLOSED;
+        failures = 0;
+        backoff = theInitialBackoff;
+        retryAt = 0;
+    }
+
+    /**
+     * It builds a closed breaker with the threshold and the backoffs from the
+     * {@link Settings}.
+     *
+     * @return the built breaker.
+     */
+    public static CircuitBreaker create() {
+        return create(Settings.getQmpBreakerThreshold(), Settings.getQmpBackoffInitial(),
+                Settings.getQmpBackoffMax());
+    }
+
+    /**
+     * It builds a closed breaker. A threshold lower than one is raised to one
+     * and a maximum backoff lower than the initial one is raised to it.
+     *
+     * @param threshold the number of consecutive failures that open the
+     * breaker.
+     * @param initialBackoff the time, in milliseconds, the breaker first stays
+     * open.
+     * @param maxBackoff the longest time, in milliseconds, the breaker stays
+     * open.
+     * @return the built breaker.
+     */
+    public static CircuitBreaker create(int threshold, long initialBackoff, long maxBackoff) {
+        long initial = TimeUnit.MILLISECONDS.toNanos(Math.max(0, initialBackoff));
+        return new CircuitBreaker(Math.max(1, threshold), initial,
+                Math.max(initial, TimeUnit.MILLISECONDS.toNanos(maxBackoff)));
+    }
+
+    /**
+     * An indicator of whether the breaker rejects the commands right away,
+     * i.e. it is open and its backoff has not elapsed yet.
+     *
+     * @return true if the commands should fail right away or false otherwise.
+     */
+    public synchronized boolean rejects() {
+        return state == State.OPEN && System.nanoTime() - retryAt < 0;
+    }
+
+    /**
+     * It asks the breaker to let a reconnection through. An open breaker
+     * whose backoff has elapsed becomes half open and lets only this one
+     * through.
+     *
+     * @return true if the reconnection may be tried or false otherwise.
+     */
+    public synchronized boolean allow() {
+        switch (state) {
+            case CLOSED:
+                return true;
+            case OPEN:
+                if (System.nanoTime() - retryAt < 0) {
+                    return false;
+                }
+                state = State.HALF_OPEN;
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    /**
+     * It records a success, which closes the breaker and resets the backoff.
+     */
+    public synchronized void success() {
+        state = State.CLOSED;
+        failures = 0;
+        backoff = initialBackoff;
+    }
+
+    /**
+     * It records a failure. The breaker opens if the failed reconnection was
+     * its trial or if the failures reached the threshold, and the next
+     * backoff doubles.
+     */
+    public synchronized void failure() {
+        failures++;
+        if (state == State.HALF_OPEN || failures >= threshold) {
+            state = State.OPEN;
+            retryAt = System.nanoTime() + backoff;
+            backoff = Math.min(maxBackoff, Math.max(1, backoff * 2));
+        }
+    }
+
+    /**
+     * A getter of the current state of the breaker.
+     *
+     * @return the {@link CircuitBreaker#state}.
+     */
+    public synchronized State state() {
+        return state;
+    }
+
+    /**
+     * It provides the time left until an open breaker allows a trial.
+     *
+     * @return the time left, in milliseconds, or zero if it is not open or the
+     * backoff has elapsed.
+     */
+    public synchronized long retryIn() {
+        if (state != State.OPEN) {
+            return 0;
+        }
+        return Math.max(0, TimeUnit.NANOSECONDS.toMillis(retryAt - System.nanoTime()));
+    }
+
+}
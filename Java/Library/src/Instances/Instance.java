@@ -13,6 +13,9 @@ package Instances;
 
 import Commands.Command;
 import Communications.ExecutionResult;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
 
 /**
  * The interface of an instance, i.e. a virtual machine that is identified by
@@ -46,4 +49,78 @@ public interface Instance extends Comparable<Instance> {
      */
     ExecutionResult execute(Command command);
 
+    /**
+     * It executes several commands as a batch. Instances whose transport may
+     * have several commands in flight pipeline them, while the others execute
+     * them one at a time, which is the case unless overridden.
+     *
+     * @param commands the commands to be executed.
+     * @return the execution result of each command, in order.
+     */
+    default List<ExecutionResult> executeAll(List<Command> commands) {
+        List<ExecutionResult> results = new ArrayList<>(commands.size());
+        for (Command command : commands) {
+            results.add(execute(command));
+        }
+        return results;
+    }
+
+    /**
+     * It checks if the process of the instance is running.
+     *
+     * @return true if the process exists and has not exited or false
+     * otherwise.
+     */
+    boolean isAlive();
+
+    /**
+     * A getter of the run state of the guest, as last known. It does not
+     * query the instance.
+     *
+     * @return the run state of the guest.
+     */
+    RunState runState();
+
+    /**
+     * It waits for the process of the instance to exit.
+     *
+     * @param timeout the maximum time to wait, in milliseconds.
+     * @return true if the process has exited (or never existed) or false if
+     * the time elapsed first.
+     */
+    boolean awaitExit(long timeout);
+
+    /**
+     * It registers an action to run once the current process of the instance
+     * exits, whatever the reason, e.g. to release what it held. The action
+     * runs right away if there is no process running.
+     *
+     * @param action the action to run.
+     */
+    void onExit(Runnable action);
+
+    /**
+     * It asks the operating system to terminate the process of the instance,
+     * regardless of its guest.
+     *
+     * @param forcibly false to request the process to terminate (SIGTERM) or
+     * true to kill it right away (SIGKILL).
+     */
+    void destroy(boolean forcibly);
+
+    /**
+     * A getter of the tags of the instance, i.e. free key/value labels such as
+     * its role or the fleet it belongs to.
+     *
+     * @return the tags, unmodifiable.
+     */
+    Map<String, String> tags();
+
+    /**
+     * It replaces the tags of the instance.
+     *
+     * @param tags the new tags of the instance.
+     */
+    void retag(Map<String, String> tags);
+
 }
@@ -0,0 +1,36 @@
+/*
+ *                      QEMU INSTANCES MANAGER LIBRARY
+ *                                Java Version
+ * 
+ * PRODUCT OWNER: Research Centre in Real-Time & Embedded Computing Systems
+ * PROJECT MANAGER: Luís Pinho and Cláudio Maia {lmn,clrrm}@isep.ipp.pt
+ * DEVELOPER: Manuel Meireles ( mjcdm@isep.ipp.pt )
+ * DATE: 24/11/2017
+ * SCOPE: CISTER Summer Internship 2017
+ * VERSION: 1.0
+ */
+package Instances;
+
+import Commands.Command;
+
+/**
+ * The interface of a factory of instances, through which the manager builds
+ * every instance, so that the backend of the instances can be replaced, e.g.
+ * by {@link SimulatedInstance}s.
+ *
+ * @see QemuInstance#create(Commands.Command)
+ * @see SimulatedInstance#factory(Simulation.VirtualClock)
+ * @author Manuel Meireles ( mjcdm@isep.ipp.pt )
+ */
+public interface InstanceFactory {
+
+    /**
+     * It builds an instance, ready to be started, from its specification.
+     *
+     * @param options the specification of the instance.
+     * @return the built instance or null if the specification is not one the
+     * factory can build.
+     */
+    Instance create(Command options);
+
+}
@@ -0,0 +1,123 @@
+/*
+ *                      QEMU INSTANCES MANAGER LIBRARY
+ *                                Java Version
+ * 
+ * PRODUCT OWNER: Research Centre in Real-Time & Embedded Computing Systems
+ * PROJECT MANAGER: Luís Pinho and Cláudio Maia {lmn,clrrm}@isep.ipp.pt
+ * DEVELOPER: Manuel Meireles ( mjcdm@isep.ipp.pt )
+ * DATE: 24/11/2017
+ * SCOPE: CISTER Summer Internship 2017
+ * VERSION: 1.0
+ */
+package Instances;
+
+import Commands.Command.Priority;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * The latency of the commands sent in a lane, from the moment they are handed
+ * to an instance until their reply arrives, so the time they waited behind
+ * other commands included. There is one per {@link Priority}, shared by every
+ * instance, and the counters are striped so that concurrent commands do not
+ * contend on them.
+ *
+ * @see QemuInstance#execute(Commands.Command)
+ * @author Manuel Meireles ( mjcdm@isep.ipp.pt )
+ */
+public class LaneLatency {
+
+    /**
+     * The latency of each lane.
+     */
+    private static final Map<Priority, LaneLatency> LANES = lanes();
+
+    /**
+     * The number of commands sent in the lane.
+     */
+    private final LongAdder count;
+
+    /**
+     * The sum of the latencies, in nanoseconds.
+     */
+    private final LongAdder total;
+
+    /**
+     * The highest latency, in nanoseconds.
+     */
+    private final LongAccumulator max;
+
+    /**
+     * A private constructor that initializes the counters at zero.
+     */
+    private LaneLatency() {
+        count = new LongAdder();
+        total = new LongAdder();
+        max = new LongAccumulator(Math::max, 0);
+    }
+
+    /**
+     * It provides the latency of a lane.
+     *
+     * @param lane the lane.
+     * @return the latency of the lane.
+     */
+    public static LaneLatency of(Priority lane) {
+        return LANES.get(lane);
+    }
+
+    /**
+     * It records the latency of a command.
+     *
+     * @param nanos the latency of the command, in nanoseconds.
+     */
+    public void record(long nanos) {
+        count.increment();
+        total.add(nanos);
+        max.accumulate(nanos);
+    }
+
+    /**
+     * A getter of the number of commands sent in the lane.
+     *
+     * @return the {@link LaneLatency#count}.
+     */
+    public long count() {
+        return count.sum();
+    }
+
+    /**
+     * A getter of the sum of the latencies.
+     *
+     * @return the {@link LaneLatency#total} in nanoseconds.
+     */
+    public long total() {
+        return total.sum();
+    }
+
+    /**
+     * A getter of the highest latency.
+     *
+     * @return the {@link LaneLatency#max} in nanoseconds.
+     */
+    public long max() {
+        return max.get();
+    }
+
+    /**
+     * It builds the latency of every lane.
+     *
+     * @return a map where the keys are the lanes and the values their
+     * latency.
+     */
+    private static Map<Priority, LaneLatency> lanes() {
+        Map<Priority, LaneLatency> lanes = new EnumMap<>(Priority.class);
+        for (Priority lane : Priority.values()) {
+            lanes.put(lane, new LaneLatency());
+        }
+        return lanes;
+    }
+
+}
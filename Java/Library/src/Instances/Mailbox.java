@@ -0,0 +1,256 @@
+/*
+ *                      QEMU INSTANCES MANAGER LIBRARY
+ *                                Java Version
+ * 
+ * PRODUCT OWNER: Research Centre in Real-Time & Embedded Computing Systems
+ * PROJECT MANAGER: Luís Pinho and Cláudio Maia {lmn,clrrm}@isep.ipp.pt
+ * DEVELOPER: Manuel Meireles ( mjcdm@isep.ipp.pt )
+ * DATE: 24/11/2017
+ * SCOPE: CISTER Summer Internship 2017
+ * VERSION: 1.0
+ */
+package Instances;
+
+import Communications.ExecutionResult;
+import Communications.Fail;
+import Communications.Fail.Reason;
+import Configurations.Threads;
+import Profiling.MailboxDrainEvent;
+import Profiling.TimeoutEvent;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * The mailbox of an instance. The commands to the instance are queued in a
+ * bounded mailbox and run one at a time, in the order they were delivered, by
+ * a single drainer that only exists while there is work. Different instances
+ * have different mailboxes, so they proceed in parallel. A full mailbox does
+ * not block its callers forever: a delivery that finds no room within the
+ * offer timeout fails right away with {@link Reason#MAILBOX_FULL}. The urgent
+ * commands wait in a lane of their own, which the drainer always empties
+ * first, so a time-critical command only waits for the one already running.
+ *
+ * @see QemuInstance
+ * @author Manuel Meireles ( mjcdm@isep.ipp.pt )
+ */
+public class Mailbox {
+
+    /**
+     * The executor of the drainers of every mailbox. Each drainer runs on its
+     * own thread, a virtual one when the JVM supports them.
+     */
+    private static final ExecutorService DRAINERS = Threads.perTask("mailbox");
+
+    /**
+     * The mailbox whose drainer runs on the current thread, if any.
+     */
+    private static final ThreadLocal<Mailbox> DRAINING = new ThreadLocal<>();
+
+    /**
+     * The identification of the instance that owns the mailbox, as it is told
+     * to the flight recorder.
+     */
+    private final String owner;
+
+    /**
+     * The commands waiting to run.
+     */
+    private final BlockingQueue<FutureTask<ExecutionResult>> queue;
+
+    /**
+     * The urgent commands waiting to run, ahead of the others.
+     */
+    private final BlockingQueue<FutureTask<ExecutionResult>> urgent;
+
+    /**
+     * The number of commands that may wait to run in each lane.
+     */
+    private final int capacity;
+
+    /**
+     * The time, in milliseconds, a delivery waits for room in a full mailbox.
+     */
+    private final long offerTimeout;
+
+    /**
+     * Whether a drainer is scheduled or running.
+     */
+    private final AtomicBoolean draining;
+
+    /**
+     * A private constructor that initializes an empty mailbox. Despite no
+     * validations are made, the capacity should be positive and the offer
+     * timeout should not be negative.
+     *
+     * @param theOwner the identification of the instance that owns the
+     * mailbox.
+     * @param theCapacity the number of commands that may wait to run in each
+     * lane.
+     * @param theOfferTimeout the time a delivery waits for room.
+     */
+    private Mailbox(String theOwner, int theCapacity, long theOfferTimeout) {
+        owner = theOwner;
+        queue = new ArrayBlockingQueue<>(theCapacity);
+        urgent = new ArrayBlockingQueue<>(theCapacity);
+        capacity = theCapacity;
+        offerTimeout = theOfferTimeout;
+        draining = new AtomicBoolean(false);
+    }
+
+    /**
+     * It builds an empty mailbox. A capacity lower than one is raised to one.
+     *
+     * @param capacity the number of commands that may wait to run in each
+     * lane.
+     * @param offerTimeout the time, in milliseconds, a delivery waits for
+     * room in a full mailbox (zero to fail fast).
+     * @return the built mailbox.
+     */
+    public static Mailbox create(int capacity, long offerTimeout) {
+        return create("", capacity, offerTimeout);
+    }
+
+    /**
+     * It builds an empty mailbox of an instance. A capacity lower than one is
+     * raised to one.
+     *
+     * @param owner the identification of the instance that owns the mailbox,
+     * as it is told to the flight recorder.
+     * @param capacity the number of commands that may wait to run in each
+     * lane.
+     * @param offerTimeout the time, in milliseconds, a delivery waits for
+     * room in a full mailbox (zero to fail fast).
+     * @return the built mailbox.
+     */
+    public static Mailbox create(String owner, int capacity, long offerTimeout) {
+        return new Mailbox(owner, Math.max(1, capacity), Math.max(0, offerTimeout));
+    }
+
+    /**
+     * It delivers a command to the mailbox and waits for it to run. A command
+     * delivered by the drainer of this very mailbox, i.e. from within another
+     * command, runs right away, since it would otherwise wait for itself.
+     *
+     * @param command the command to run.
+     * @return <ul><li>the execution result of the command;</li><li>a
+     * {@link Fail} due to {@link Reason#MAILBOX_FULL} if there was no room
+     * within the offer timeout;</li><li>a {@link Fail} due to
+     * {@link Reason#WRONG_EXEC} if the command threw or the wait was
+     * interrupted;</li></ul>
+     */
+    public ExecutionResult deliver(Callable<ExecutionResult> command) {
+        return deliver(command, false);
+    }
+
+    /**
+     * It delivers a command to one of the lanes of the mailbox and waits for
+     * it to run. An urgent command runs before every command of the other
+     * lane that is still waiting.
+     *
+     * @param command the command to run.
+     * @param isUrgent true to deliver the command to the urgent lane.
+     * @return <ul><li>the execution result of the command;</li><li>a
+     * {@link Fail} due to {@link Reason#MAILBOX_FULL} if there was no room
+     * in the lane within the offer timeout;</li><li>a {@link Fail} due to
+     * {@link Reason#WRONG_EXEC} if the command threw or the wait was
+     * interrupted;</li></ul>
+     */
+    public ExecutionResult deliver(Callable<ExecutionResult> command, boolean isUrgent) {
+        FutureTask<ExecutionResult> task = new FutureTask<>(command);
+        if (DRAINING.get() == this) {
+            task.run();
+            return outcome(task);
+        }
+        BlockingQueue<FutureTask<ExecutionResult>> lane = isUrgent ? urgent : queue;
+        try {
+            if (!lane.offer(task, offerTimeout, TimeUnit.MILLISECONDS)) {
+                TimeoutEvent.emit(owner, TimeoutEvent.MAILBOX_OFFER, offerTimeout);
+                return Fail.because(Reason.MAILBOX_FULL, capacity + " commands are already waiting.");
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            return Fail.because(Reason.WRONG_EXEC, ex.toString());
+        }
+        schedule();
+        return outcome(task);
+    }
+
+    /**
+     * It provides the number of commands waiting to run.
+     *
+     * @return the number of waiting commands.
+     */
+    public int pending() {
+        return queue.size() + urgent.size();
+    }
+
+    /**
+     * It schedules a drainer unless one is already scheduled or running.
+     */
+    private void schedule() {
+        if (draining.compareAndSet(false, true)) {
+            DRAINERS.execute(this::drain);
+        }
+    }
+
+    /**
+     * It runs the waiting commands, one at a time, the urgent ones first,
+     * until the mailbox is empty. A command delivered right after the emptiness was seen is not
+     * left behind: the drainer takes over again unless another one already
+     * did. Each run is recorded as a {@link MailboxDrainEvent}.
+     */
+    private void drain() {
+        MailboxDrainEvent event = MailboxDrainEvent.started();
+        int commands = 0;
+        int urgentCommands = 0;
+        DRAINING.set(this);
+        try {
+            while (true) {
+                FutureTask<ExecutionResult> task = urgent.poll();
+                if (task != null) {
+                    urgentCommands++;
+                } else {
+                    task = queue.poll();
+                }
+                if (task != null) {
+                    commands++;
+                    task.run();
+                    continue;
+                }
+                draining.set(false);
+                if (pending() == 0 || !draining.compareAndSet(false, true)) {
+                    return;
+                }
+            }
+        } finally {
+            DRAINING.remove();
+            event.finish(owner, commands, urgentCommands);
+        }
+    }
+
+    /**
+     * It waits for the execution result of a command.
+     *
+     * @param task the command.
+     * @return <ul><li>the execution result of the command;</li><li>a
+     * {@link Fail} due to {@link Reason#WRONG_EXEC} if the command threw or
+     * the wait was interrupted;</li></ul>
+     */
+    private static ExecutionResult outcome(FutureTask<ExecutionResult> task) {
+        try {
+            return task.get();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            return Fail.because(Reason.WRONG_EXEC, ex.toString());
+        } catch (ExecutionException ex) {
+            return Fail.because(Reason.WRONG_EXEC, ex.getCause().toString());
+        }
+    }
+
+}
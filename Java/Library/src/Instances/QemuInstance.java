@@ -14,16 +14,42 @@ package Instances;
 import Commands.BuildQemuInstance;
 import Commands.CapabilitiesQMP;
 import Commands.Command;
+import Commands.Command.Priority;
+import Commands.QueryStatusQMP;
 import Communications.Fail;
 import Communications.Fail.Reason;
 import Communications.ExecutionResult;
+import Communications.Reply;
 import Communications.Success;
+import Configurations.Log;
 import Configurations.Settings;
+import Configurations.Threads;
+import Metrics.Latencies;
+import Parsers.JSONReader;
+import Profiling.ProcessExitEvent;
+import Profiling.ProcessSpawnEvent;
+import Profiling.QmpHandshakeEvent;
+import Profiling.Span;
+import Simulation.FakeQmpServer;
 import TCP.Client;
 import TCP.QMPClient;
 import java.io.IOException;
-import java.util.logging.Level;
-import java.util.logging.Logger;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * An instance of QEMU.
@@ -56,31 +82,152 @@ public class QemuInstance implements Instance {
     private final String options;
 
     /**
-     * The process in which QEMU is running.
+     * The specification from which the instance was built.
+     */
+    private final BuildQemuInstance spec;
+
+    /**
+     * The tags of the instance. They start as the ones of the
+     * {@link QemuInstance#spec} and may be replaced afterwards.
+     */
+    private volatile Map<String, String> tags;
+
+    /**
+     * The process in which QEMU is running. It is null if the instance was not
+     * started by this manager (see {@link QemuInstance#attach}).
      */
     private Process process;
 
     /**
-     * The TCP client to communicate with the QEMU instance.
+     * The handle of the operating system process in which QEMU is running,
+     * whether it was started or attached to.
+     */
+    private ProcessHandle handle;
+
+    /**
+     * The TCP client to communicate with the QEMU instance. It is only used
+     * by the drainer of the {@link QemuInstance#mailbox}, except for the
+     * commands sent out of band.
+     */
+    private volatile Client qmp;
+
+    /**
+     * The mailbox through which the commands are sent, one at a time, to the
+     * {@link QemuInstance#qmp}.
+     */
+    private final Mailbox mailbox;
+
+    /**
+     * The cache of the replies to the read-only queries.
+     */
+    private final QueryCache cache;
+
+    /**
+     * The circuit breaker of the {@link QemuInstance#qmp} connection.
      */
-    private Client qmp;
+    private final CircuitBreaker breaker;
+
+    /**
+     * Whether the QMP monitor of the current process has not been reached
+     * yet. The failures to connect to a booting QEMU are not recorded in the
+     * {@link QemuInstance#breaker}, since its monitor is not listening yet
+     * rather than broken, so that whoever waits for it to come up, e.g. the
+     * {@link Managers.BulkLauncher}, is not held back by the backoff.
+     */
+    private volatile boolean booting;
+
+    /**
+     * The periodic heartbeat of the {@link QemuInstance#qmp} connection, or
+     * null if there is none.
+     */
+    private ScheduledFuture<?> heartbeat;
+
+    /**
+     * Whether a heartbeat ping is still in flight.
+     */
+    private final AtomicBoolean pinging;
+
+    /**
+     * The run state of the guest, as last known from the QMP events.
+     */
+    private volatile RunState runState;
+
+    /**
+     * The run state the guest enters at its next «STOP» event, if a former
+     * event told why it stops, or null otherwise.
+     */
+    private volatile RunState stopCause;
+
+    /**
+     * The number of run state changes, so that a reconciliation does not
+     * overwrite a newer state.
+     */
+    private final AtomicLong runStateChanges;
+
+    /**
+     * The scheduler of the heartbeats of every instance.
+     */
+    private static final ScheduledExecutorService HEARTBEATS = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "qmp-heartbeat");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    /**
+     * The executor of the background work of the instances, i.e. the
+     * heartbeat pings and the run state reconciliations, so that a slow
+     * instance does not delay the others.
+     */
+    private static final ExecutorService BACKGROUND = Threads.perTask("qmp-background");
+
+    /**
+     * The key of the status in the reply to «query-status».
+     */
+    private static final String STATUS_KEY = "status";
+
+    /**
+     * The option that makes the QEMU wait for the migration of a guest, whose
+     * address is given afterwards through QMP.
+     */
+    private static final String INCOMING_OPTION = " -incoming defer";
+
+    /**
+     * The tolerance, in milliseconds, when comparing the start time of an
+     * attached process with the recorded one.
+     */
+    private static final long START_TIME_TOLERANCE = 1000;
+
+    /**
+     * The launcher of the {@link Settings} that spawns stand-ins of the QEMU.
+     */
+    private static final String FAKE_LAUNCHER = "fake";
 
     /**
      * The QEMU instance constructor. It initializes the attributes without any
      * validation. The data is presumed to be correct.
      *
-     * @param thIP the IP address in which the QEMU will be operating.
-     * @param thePort the port number in which the QEMU will be listening.
-     * @param theOptions the options to be used on the call to the
-     * {@link Runtime#exec(java.lang.String)} method.
+     * @param theID the identification of the instance.
+     * @param theSpec the specification from which the instance is built.
+     * @param incoming true if the QEMU must wait for the migration of a guest.
      */
-    private QemuInstance(String thIP, int thePort, String theOptions) {
-        id = QemuInstanceID.create();
-        ip = thIP;
-        port = thePort;
-        options = addQMPServerCreation(theOptions, ip, port);
+    private QemuInstance(InstanceID theID, BuildQemuInstance theSpec, boolean incoming) {
+        id = theID;
+        spec = theSpec;
+        ip = theSpec.ip();
+        port = theSpec.port();
+        options = addQMPServerCreation(theSpec.instruction() + (incoming ? INCOMING_OPTION : ""), ip, port);
+        tags = theSpec.tags();
         process = null;
+        handle = null;
         qmp = null;
+        mailbox = Mailbox.create(id.toString(), Settings.getMailboxCapacity(), Settings.getMailboxOfferTimeout());
+        cache = QueryCache.create();
+        breaker = CircuitBreaker.create();
+        heartbeat = null;
+        pinging = new AtomicBoolean(false);
+        runState = RunState.UNKNOWN;
+        stopCause = null;
+        runStateChanges = new AtomicLong();
     }
 
     /**
@@ -93,12 +240,55 @@ public class QemuInstance implements Instance {
      */
     public static QemuInstance create(Command options) {
         if (options instanceof BuildQemuInstance) {
-            BuildQemuInstance info = (BuildQemuInstance) options;
-            return new QemuInstance(info.ip(), info.port(), info.instruction());
+            return new QemuInstance(QemuInstanceID.create(), (BuildQemuInstance) options, false);
         }
         return null;
     }
 
+    /**
+     * It builds the destination of the live migration of an instance. It has
+     * the identification of the migrating instance and, once started, waits
+     * for its guest to be given through a {@link Commands.MigrateIncomingQMP}.
+     *
+     * @param id the identification of the migrating instance.
+     * @param spec the specification of the destination, which must match the
+     * one of the migrating instance but for its QMP address.
+     * @return the built QEMU instance.
+     */
+    public static QemuInstance incoming(InstanceID id, BuildQemuInstance spec) {
+        return new QemuInstance(id, spec, true);
+    }
+
+    /**
+     * It rebuilds a QEMU instance that is already running, e.g. one started by
+     * a previous run of the manager, by attaching to its process. The process
+     * must be alive and, if known, its start time must match the recorded one
+     * so that a recycled process identifier is not mistaken for the instance.
+     * The QMP connection is reestablished on the first command.
+     *
+     * @param id the long number of the identity of the instance.
+     * @param pid the process identifier of the running QEMU.
+     * @param startTime the recorded start time of the process, in milliseconds
+     * since the epoch, or zero if unknown.
+     * @param spec the specification from which the instance was built.
+     * @return the attached QEMU instance or null if the process is gone.
+     */
+    public static QemuInstance attach(long id, long pid, long startTime, BuildQemuInstance spec) {
+        Optional<ProcessHandle> found = ProcessHandle.of(pid);
+        if (!found.isPresent() || !found.get().isAlive()) {
+            return null;
+        }
+        Optional<Instant> started = found.get().info().startInstant();
+        if (startTime > 0 && started.isPresent()
+                && Math.abs(started.get().toEpochMilli() - startTime) > START_TIME_TOLERANCE) {
+            return null;
+        }
+        QemuInstance instance = new QemuInstance(QemuInstanceID.restore(id), spec, false);
+        instance.handle = found.get();
+        instance.beat();
+        return instance;
+    }
+
     /**
      * A getter of the unique and final identification.
      *
@@ -110,7 +300,9 @@ public class QemuInstance implements Instance {
     }
 
     /**
-     * It creates and starts the process of the instance.
+     * It creates and starts the process of the instance through the launcher
+     * of the {@link Settings}. The spawn is recorded as a
+     * {@link ProcessSpawnEvent}.
      *
      * @return <ul><li>a {@link Success} if everything goes well;</li>
      * <li>a {@link Fail} due to {@link Reason#WRONG_EXEC} if the process fails
@@ -118,56 +310,313 @@ public class QemuInstance implements Instance {
      */
     @Override
     public ExecutionResult start() {
-        Settings.logger().entering(getClass().getName(), "start");
+        Log.entering(getClass().getName(), "start");
+        long start = System.nanoTime();
+        ProcessSpawnEvent event = ProcessSpawnEvent.started();
         ExecutionResult result;
         try {
-            process = Runtime.getRuntime().exec(options);
+            process = spawn();
+            handle = process.toHandle();
             if (process.isAlive()) {
+                booting = true;
+                breaker.success();
+                beat();
                 result = Success.achieved(options);
-                Settings.logger().exiting(getClass().getName(), "start", result);
-                return result;
+            } else {
+                result = Fail.because(Reason.WRONG_EXEC);
             }
-            result = Fail.because(Reason.WRONG_EXEC);
-            Settings.logger().exiting(getClass().getName(), "start", result);
-            return result;
         } catch (IOException ex) {
-            Logger.getLogger(QemuInstance.class.getName()).log(Level.SEVERE, null, ex);
+            Log.thrown("The process of the instance could not be spawned.", ex);
             result = Fail.because(Reason.WRONG_EXEC);
-            Settings.logger().exiting(getClass().getName(), "start", result);
-            return result;
         }
+        event.finish(id.toString(), result.wasSuccessful() ? process : null, options, result.wasSuccessful());
+        Latencies.record(Latencies.INSTANCE, id.toString(), "start", System.nanoTime() - start, !result.wasSuccessful());
+        Log.exiting(getClass().getName(), "start", result);
+        return result;
+    }
+
+    /**
+     * It spawns the process of the instance through the launcher of the
+     * {@link Settings}: the QEMU binary of the options or, with the «fake»
+     * launcher, a stand-in served by the shared {@link FakeQmpServer}.
+     *
+     * @return the spawned process.
+     * @throws IOException if the process could not be spawned.
+     */
+    private Process spawn() throws IOException {
+        if (FAKE_LAUNCHER.equalsIgnoreCase(Settings.getLauncher())) {
+            return FakeQmpServer.shared().launch(options, ip, port);
+        }
+        return Runtime.getRuntime().exec(options);
     }
 
     /**
      * It executes the command through the
-     * {@link QMPClient#send(Commands.Command)}.
+     * {@link QMPClient#send(Commands.Command)}. The command is delivered to
+     * the {@link Mailbox} of the instance, so that the commands of concurrent
+     * callers are sent one at a time, in order, and each caller gets its own
+     * reply. The {@link Priority#HIGH} commands are delivered to its urgent
+     * lane, while the {@link Priority#OUT_OF_BAND} ones skip the mailbox if
+     * the client sends them out of band or are deemed high otherwise. The
+     * latency of the command is recorded in its {@link LaneLatency}. The
+     * read-only queries are answered through the {@link QueryCache} of the
+     * instance. While the {@link CircuitBreaker} of the connection is open,
+     * the commands fail right away. The execution is traced as a {@link Span}
+     * of the current trace, which the mailbox hands over to its drainer.
      *
      * @param command the command to be executed.
      * @return <ul><li>the {@link ExecutionResult} given from the
      * {@link QMPClient#send(Commands.Command)};</li>
      * <li>a {@link Fail} due to {@link Reason#QEMU_INSTANCE_IS_OFF} if the
-     * process is not alive;</li></ul>
+     * process is not alive;</li><li>a {@link Fail} due to
+     * {@link Reason#MAILBOX_FULL} if too many commands are already
+     * waiting;</li><li>a {@link Fail} due to {@link Reason#CIRCUIT_OPEN} if
+     * the connection is broken and no reconnection is due yet;</li></ul>
      *
      */
     @Override
     public ExecutionResult execute(Command command) {
-        Settings.logger().entering(getClass().getName(), "execute", command);
-        ExecutionResult result;
-        if (process == null || !process.isAlive()) {
-            result = Fail.because(Reason.QEMU_INSTANCE_IS_OFF);
-            Settings.logger().exiting(getClass().getName(), "execute", result);
-            return result;
+        Log.entering(getClass().getName(), "execute", command);
+        Span span = Span.begin("execute", Span.INSTANCE, id.toString(), Latencies.operation(command));
+        ExecutionResult result = cache.answer(command, () -> dispatch(command));
+        span.end();
+        Log.exiting(getClass().getName(), "execute", result);
+        return result;
+    }
+
+    /**
+     * It sends the command in its lane and records its latency.
+     *
+     * @param command the command to be sent.
+     * @return the {@link ExecutionResult} of the command.
+     */
+    private ExecutionResult dispatch(Command command) {
+        if (breaker.rejects()) {
+            return broken();
         }
-        if (qmp == null) {
-            ExecutionResult creationResult = createClient();
-            if (!creationResult.wasSuccessful()) {
-                Settings.logger().exiting(getClass().getName(), "execute", creationResult);
-                return creationResult;
+        Priority lane = lane(command);
+        long start = System.nanoTime();
+        ExecutionResult result = lane == Priority.OUT_OF_BAND
+                ? send(command)
+                : mailbox.deliver(Span.handOver(() -> send(command)), lane == Priority.HIGH);
+        LaneLatency.of(lane).record(System.nanoTime() - start);
+        return result;
+    }
+
+    /**
+     * It executes a batch of commands, such as the periodic polls of the
+     * guest statistics, through {@link QMPClient#sendAll(java.util.List)}, so
+     * that the whole batch costs a single round trip. The batch is delivered
+     * to the {@link Mailbox} as a single normal command, so it neither
+     * interleaves with nor overtakes the commands of other callers, and it
+     * bypasses the {@link QueryCache}. While the {@link CircuitBreaker} of the
+     * connection is open, the commands fail right away.
+     *
+     * @param commands the commands to be executed.
+     * @return the execution result of each command, in order, or the failure
+     * of the whole batch repeated for each command.
+     */
+    @Override
+    public List<ExecutionResult> executeAll(List<Command> commands) {
+        Log.entering(getClass().getName(), "executeAll", commands);
+        Span span = Span.begin("executeAll", Span.INSTANCE, id.toString(), commands.size() + " commands");
+        List<ExecutionResult> results;
+        if (commands.isEmpty()) {
+            results = Collections.emptyList();
+        } else if (breaker.rejects()) {
+            results = Collections.nCopies(commands.size(), broken());
+        } else {
+            List<List<ExecutionResult>> batch = new ArrayList<>(1);
+            ExecutionResult delivery = mailbox.deliver(Span.handOver(() -> {
+                batch.add(sendAll(commands));
+                return Success.achieved("batch");
+            }));
+            results = batch.isEmpty() ? Collections.nCopies(commands.size(), delivery) : batch.get(0);
+        }
+        span.end();
+        Log.exiting(getClass().getName(), "executeAll", results);
+        return results;
+    }
+
+    /**
+     * It provides the lane in which a command is actually sent. An
+     * out-of-band command is sent in the high lane unless the client is
+     * connected and sends it out of band.
+     *
+     * @param command the command to be sent.
+     * @return the lane of the command.
+     */
+    private Priority lane(Command command) {
+        Client client = qmp;
+        if (command.priority() == Priority.OUT_OF_BAND && (client == null || !client.outOfBand())) {
+            return Priority.HIGH;
+        }
+        return command.priority();
+    }
+
+    /**
+     * A getter of the state of the circuit breaker of the QMP connection.
+     *
+     * @return the state of the {@link QemuInstance#breaker}.
+     */
+    public CircuitBreaker.State connection() {
+        return breaker.state();
+    }
+
+    /**
+     * It provides the moment the oldest QMP command still waiting for its
+     * reply was sent.
+     *
+     * @return the {@link System#nanoTime()} at which the command was sent or
+     * zero if no command is waiting or there is no connection.
+     */
+    public long awaitingSince() {
+        Client client = qmp;
+        return client == null ? 0 : client.awaitingSince();
+    }
+
+    /**
+     * It provides the number of commands waiting in the mailbox of the
+     * instance.
+     *
+     * @return the number of waiting commands.
+     */
+    public int pendingCommands() {
+        return mailbox.pending();
+    }
+
+    /**
+     * It checks if the process of the instance is running.
+     *
+     * @return true if the {@link QemuInstance#handle} exists and is alive or
+     * false otherwise.
+     */
+    @Override
+    public boolean isAlive() {
+        return handle != null && handle.isAlive();
+    }
+
+    /**
+     * A getter of the run state of the guest, as last known. It is kept from
+     * the QMP events and reconciled with a «query-status» whenever the client
+     * connects, so reading it costs no QMP traffic.
+     *
+     * @return the {@link QemuInstance#runState}.
+     */
+    @Override
+    public RunState runState() {
+        return runState;
+    }
+
+    /**
+     * It waits for the process of the instance to exit.
+     *
+     * @param timeout the maximum time to wait, in milliseconds.
+     * @return true if the process has exited or was never started, or false if
+     * the time elapsed first.
+     */
+    @Override
+    public boolean awaitExit(long timeout) {
+        try {
+            if (process != null) {
+                return process.waitFor(Math.max(0, timeout), TimeUnit.MILLISECONDS);
+            }
+            if (handle != null) {
+                handle.onExit().get(Math.max(0, timeout), TimeUnit.MILLISECONDS);
             }
+            return true;
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            return !isAlive();
+        } catch (ExecutionException | TimeoutException ex) {
+            return !isAlive();
+        }
+    }
+
+    /**
+     * It registers an action to run once the current process of the instance
+     * exits. A process started later is not followed.
+     *
+     * @param action the action to run.
+     */
+    @Override
+    public void onExit(Runnable action) {
+        ProcessHandle current = handle;
+        if (current == null) {
+            action.run();
+        } else {
+            current.onExit().thenRun(action);
+        }
+    }
+
+    /**
+     * It asks the operating system to terminate the process of the instance.
+     *
+     * @param forcibly false to send a SIGTERM or true to send a SIGKILL.
+     */
+    @Override
+    public void destroy(boolean forcibly) {
+        if (handle == null) {
+            return;
+        }
+        if (forcibly) {
+            handle.destroyForcibly();
+        } else {
+            handle.destroy();
         }
-        result = qmp.send(command);
-        Settings.logger().exiting(getClass().getName(), "execute", result);
-        return result;
+    }
+
+    /**
+     * A getter of the tags of the instance.
+     *
+     * @return the {@link QemuInstance#tags}, unmodifiable.
+     */
+    @Override
+    public Map<String, String> tags() {
+        return tags;
+    }
+
+    /**
+     * It replaces the tags of the instance.
+     *
+     * @param newTags the new tags of the instance.
+     */
+    @Override
+    public void retag(Map<String, String> newTags) {
+        tags = Collections.unmodifiableMap(new TreeMap<>(newTags));
+    }
+
+    /**
+     * A getter of the specification from which the instance was built. The
+     * tags of the specification are the current tags of the instance.
+     *
+     * @return the {@link QemuInstance#spec} with the current tags.
+     */
+    public BuildQemuInstance spec() {
+        return spec.tagged(tags);
+    }
+
+    /**
+     * A getter of the process identifier of the QEMU.
+     *
+     * @return the process identifier or -1 if there is no process.
+     */
+    public long pid() {
+        return handle == null ? -1 : handle.pid();
+    }
+
+    /**
+     * A getter of the start time of the QEMU process.
+     *
+     * @return the start time in milliseconds since the epoch or zero if it is
+     * unknown.
+     */
+    public long startTime() {
+        if (handle == null) {
+            return 0;
+        }
+        Optional<Instant> started = handle.info().startInstant();
+        return started.isPresent() ? started.get().toEpochMilli() : 0;
     }
 
     /**
@@ -191,7 +640,190 @@ public class QemuInstance implements Instance {
     }
 
     /**
-     * It initializes the {@link QemuInstance#qmp}.
+     * It sends a command to the QEMU, connecting first if there is no open
+     * connection and the {@link QemuInstance#breaker} lets it. The failures
+     * to connect and the connections broken while sending are recorded in the
+     * breaker. It is only run by the drainer of the
+     * {@link QemuInstance#mailbox} or, for the commands sent out of band, once
+     * connected.
+     *
+     * @param command the command to be sent.
+     * @return <ul><li>the {@link ExecutionResult} given from the
+     * {@link QMPClient#send(Commands.Command)};</li>
+     * <li>a {@link Fail} due to {@link Reason#QEMU_INSTANCE_IS_OFF} if the
+     * process is not alive;</li><li>a {@link Fail} due to
+     * {@link Reason#CIRCUIT_OPEN} if no reconnection is due yet;</li><li>the
+     * failed execution result of {@link QemuInstance#createClient()};</li></ul>
+     */
+    private ExecutionResult send(Command command) {
+        ExecutionResult connection = connect();
+        if (connection != null) {
+            return connection;
+        }
+        ExecutionResult result = transmit(qmp, command);
+        if (broke(result)) {
+            breaker.failure();
+        }
+        return result;
+    }
+
+    /**
+     * It sends a batch of commands to the QEMU through
+     * {@link QMPClient#sendAll(java.util.List)}, connecting first as in
+     * {@link QemuInstance#send(Commands.Command)}. The latency of the whole
+     * batch is recorded for each of its commands among the {@link Latencies}.
+     *
+     * @param commands the commands to be sent.
+     * @return the execution result of each command, in order, or the failure
+     * to connect repeated for each command.
+     */
+    private List<ExecutionResult> sendAll(List<Command> commands) {
+        ExecutionResult connection = connect();
+        if (connection != null) {
+            return Collections.nCopies(commands.size(), connection);
+        }
+        long start = System.nanoTime();
+        List<ExecutionResult> results = qmp.sendAll(commands);
+        long elapsed = System.nanoTime() - start;
+        boolean broken = false;
+        for (int index = 0; index < results.size(); index++) {
+            ExecutionResult result = results.get(index);
+            Latencies.record(Latencies.QMP, id.toString(), Latencies.operation(commands.get(index)), elapsed,
+                    !result.wasSuccessful());
+            broken |= broke(result);
+        }
+        if (broken) {
+            breaker.failure();
+        }
+        return results;
+    }
+
+    /**
+     * It opens the connection to the QEMU if there is no open one and the
+     * {@link QemuInstance#breaker} lets it. The failures to connect are
+     * recorded in the breaker, unless the QEMU is still booting, in which case
+     * the breaker is bypassed until the monitor is first reached.
+     *
+     * @return <ul><li>null if the connection is open;</li><li>a {@link Fail}
+     * due to {@link Reason#QEMU_INSTANCE_IS_OFF} if the process is not
+     * alive;</li><li>a {@link Fail} due to {@link Reason#CIRCUIT_OPEN} if no
+     * reconnection is due yet;</li><li>the failed execution result of
+     * {@link QemuInstance#createClient()};</li></ul>
+     */
+    private ExecutionResult connect() {
+        if (!isAlive()) {
+            return Fail.because(Reason.QEMU_INSTANCE_IS_OFF);
+        }
+        Client client = qmp;
+        if (client == null || !client.isOpen()) {
+            boolean firstContact = booting;
+            if (!firstContact && !breaker.allow()) {
+                return broken();
+            }
+            ExecutionResult creationResult = createClient();
+            if (!creationResult.wasSuccessful()) {
+                if (!firstContact) {
+                    breaker.failure();
+                }
+                return creationResult;
+            }
+            booting = false;
+            breaker.success();
+        }
+        return null;
+    }
+
+    /**
+     * An indicator to assess if a result reveals a broken connection, i.e. an
+     * input/output failure while the process is still alive.
+     *
+     * @param result the result of a command.
+     * @return true if the connection broke while sending the command or false
+     * otherwise.
+     */
+    private boolean broke(ExecutionResult result) {
+        return result instanceof Fail && ((Fail) result).reason() == Reason.IO_EXCEPTION && isAlive();
+    }
+
+    /**
+     * It sends a command through a client and records its latency among the
+     * {@link Latencies}.
+     *
+     * @param client the client through which the command is sent.
+     * @param command the command to be sent.
+     * @return the {@link ExecutionResult} given from the client.
+     */
+    private ExecutionResult transmit(Client client, Command command) {
+        long start = System.nanoTime();
+        ExecutionResult result = client.send(command);
+        Latencies.record(Latencies.QMP, id.toString(), Latencies.operation(command), System.nanoTime() - start,
+                !result.wasSuccessful());
+        return result;
+    }
+
+    /**
+     * It builds the failure of a command rejected by the open
+     * {@link QemuInstance#breaker}.
+     *
+     * @return a {@link Fail} due to {@link Reason#CIRCUIT_OPEN}.
+     */
+    private ExecutionResult broken() {
+        return Fail.because(Reason.CIRCUIT_OPEN, "The QMP connection is broken; reconnecting in "
+                + breaker.retryIn() + " ms.");
+    }
+
+    /**
+     * It schedules the heartbeat of the {@link QemuInstance#qmp} connection,
+     * unless it is disabled in the {@link Settings}, and shuts the
+     * {@link QemuInstance#runState} down once the current process exits, which
+     * is recorded as a {@link ProcessExitEvent}.
+     */
+    private void beat() {
+        ProcessHandle current = handle;
+        Process child = process;
+        current.onExit().thenRun(() -> {
+            ProcessExitEvent.emit(id.toString(), current, child);
+            if (handle == current) {
+                changeRunState(RunState.SHUTDOWN);
+            }
+        });
+        long interval = Settings.getQmpHeartbeatInterval();
+        if (interval > 0 && (heartbeat == null || heartbeat.isDone())) {
+            heartbeat = HEARTBEATS.scheduleWithFixedDelay(() -> BACKGROUND.execute(this::ping),
+                    interval, interval, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * It pings the QEMU with a «query-status» if the instance is idle, so that
+     * a broken connection is noticed and reconnected before the next command
+     * needs it. The ping is skipped while the previous one is in flight, the
+     * mailbox is busy or the breaker rejects the commands, and the heartbeat
+     * stops once the process exits.
+     */
+    private void ping() {
+        if (!isAlive()) {
+            heartbeat.cancel(false);
+            return;
+        }
+        if (mailbox.pending() > 0 || breaker.rejects() || !pinging.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            mailbox.deliver(() -> send(QueryStatusQMP.create()));
+        } finally {
+            pinging.set(false);
+        }
+    }
+
+    /**
+     * It initializes or replaces the {@link QemuInstance#qmp}, renegotiating
+     * the capabilities, reconciling the {@link QemuInstance#runState} and
+     * enabling the out-of-band
+     * execution of commands if the QEMU supports it. The negotiation is
+     * recorded as a {@link QmpHandshakeEvent}. The events of the QEMU
+     * invalidate the replies they may change in the
+     * {@link QemuInstance#cache}.
      *
      * @return <ul><li>the {@link ExecutionResult} of the
      * {@link CapabilitiesQMP};</li><li>a {@link Fail} due to
@@ -199,15 +831,108 @@ public class QemuInstance implements Instance {
      * {@link QMPClient#create(java.lang.String, int)};</li></ul>
      */
     private ExecutionResult createClient() {
+        Client previous = qmp;
+        if (previous != null) {
+            previous.close();
+            cache.clear();
+        }
         try {
-            qmp = QMPClient.create(ip, port);
-            return execute(CapabilitiesQMP.create());
+            QMPClient client = QMPClient.create(ip, port, id.toString());
+            client.listen((event, message) -> cache.invalidate(event));
+            client.listen(this::track);
+            qmp = client;
+            QmpHandshakeEvent handshake = QmpHandshakeEvent.started();
+            ExecutionResult result = transmit(client, CapabilitiesQMP.create(client.supportsOutOfBand()));
+            handshake.finish(id.toString(), client.outOfBand(), result.wasSuccessful());
+            if (!result.wasSuccessful()) {
+                client.close();
+                return result;
+            }
+            long changes = runStateChanges.get();
+            reconcile(transmit(client, QueryStatusQMP.create()), changes);
+            return result;
         } catch (IOException ex) {
-            Settings.logger().severe(ex.toString());
+            Log.severe("{0}", ex);
             return Fail.because(Reason.IO_EXCEPTION);
         }
     }
 
+    /**
+     * It keeps the {@link QemuInstance#runState} from a QMP event. A «STOP»
+     * pauses the guest unless a former «WATCHDOG», «GUEST_PANICKED» or
+     * «BLOCK_IO_ERROR» told why, while a «RESET», whose outcome depends on the
+     * former state, is reconciled in the background.
+     *
+     * @param event the name of the QMP event.
+     * @param message the event as it was received.
+     */
+    private void track(String event, String message) {
+        switch (event) {
+            case "STOP":
+                RunState cause = stopCause;
+                stopCause = null;
+                changeRunState(cause == null ? RunState.PAUSED : cause);
+                break;
+            case "RESUME":
+            case "WAKEUP":
+                stopCause = null;
+                changeRunState(RunState.RUNNING);
+                break;
+            case "SUSPEND":
+                changeRunState(RunState.SUSPENDED);
+                break;
+            case "SHUTDOWN":
+                changeRunState(RunState.SHUTDOWN);
+                break;
+            case "GUEST_PANICKED":
+                stopCause = RunState.GUEST_PANICKED;
+                changeRunState(RunState.GUEST_PANICKED);
+                break;
+            case "WATCHDOG":
+                stopCause = RunState.WATCHDOG;
+                break;
+            case "BLOCK_IO_ERROR":
+                if ("stop".equals(JSONReader.path(JSONReader.object(message), "data", "action"))) {
+                    stopCause = RunState.IO_ERROR;
+                }
+                break;
+            case "RESET":
+                long changes = runStateChanges.incrementAndGet();
+                BACKGROUND.execute(() -> reconcile(mailbox.deliver(() -> send(QueryStatusQMP.create()), true), changes));
+                break;
+            default:
+                break;
+        }
+    }
+
+    /**
+     * It changes the {@link QemuInstance#runState}.
+     *
+     * @param state the new run state.
+     */
+    private void changeRunState(RunState state) {
+        runStateChanges.incrementAndGet();
+        runState = state;
+    }
+
+    /**
+     * It sets the {@link QemuInstance#runState} from the reply to a
+     * «query-status», unless it changed since the query was sent, in which
+     * case the reply may be older than the change.
+     *
+     * @param reply the reply to the «query-status».
+     * @param changes the number of run state changes when the query was sent.
+     */
+    private void reconcile(ExecutionResult reply, long changes) {
+        if (!(reply instanceof Reply) || !reply.wasSuccessful()) {
+            return;
+        }
+        Object status = JSONReader.path(JSONReader.object(((Reply) reply).description()), "return", STATUS_KEY);
+        if (status instanceof String && runStateChanges.compareAndSet(changes, changes + 1)) {
+            runState = RunState.of((String) status);
+        }
+    }
+
     /**
      * It compares the {@link Instance#id()} of both instances.
      *
@@ -11,6 +11,8 @@
  */
 package Instances;
 
+import java.util.concurrent.atomic.AtomicLong;
+
 /**
  * A QEMU instance identity. It matches an unique long number that will be
  * sequentially distributed on instance creation.
@@ -22,9 +24,10 @@ package Instances;
 public class QemuInstanceID implements InstanceID {
 
     /**
-     * The long number to be given in the next ID.
+     * The long number to be given in the next ID. It is atomic since instances
+     * may be created concurrently.
      */
-    private static long NEXT_AVAILABLE_ID = 1;
+    private static final AtomicLong NEXT_AVAILABLE_ID = new AtomicLong(1);
 
     /**
      * The unique identity number.
@@ -48,8 +51,28 @@ public class QemuInstanceID implements InstanceID {
      * @return the built QemuInstanceID.
      */
     protected static QemuInstanceID create() {
-        QemuInstanceID id = new QemuInstanceID(NEXT_AVAILABLE_ID);
-        NEXT_AVAILABLE_ID++;
+        return new QemuInstanceID(NEXT_AVAILABLE_ID.getAndIncrement());
+    }
+
+    /**
+     * A protected constructor to restore the identity of an instance that was
+     * created before, e.g. by a previous run of the manager. The next available
+     * long number is moved past it so that it is never given again.
+     *
+     * @param id the long number of the identity to restore.
+     * @return the restored QemuInstanceID.
+     */
+    protected static QemuInstanceID restore(long id) {
+        NEXT_AVAILABLE_ID.accumulateAndGet(id + 1, Math::max);
+        return new QemuInstanceID(id);
+    }
+
+    /**
+     * A getter of the identity number.
+     *
+     * @return the {@link QemuInstanceID#id}.
+     */
+    public long value() {
         return id;
     }
 
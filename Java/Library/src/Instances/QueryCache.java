@@ -0,0 +1,320 @@
+/*
+ *                      QEMU INSTANCES MANAGER LIBRARY
+ *                                Java Version
+ * 
+ * PRODUCT OWNER: Research Centre in Real-Time & Embedded Computing Systems
+ * PROJECT MANAGER: Luís Pinho and Cláudio Maia {lmn,clrrm}@isep.ipp.pt
+ * DEVELOPER: Manuel Meireles ( mjcdm@isep.ipp.pt )
+ * DATE: 24/11/2017
+ * SCOPE: CISTER Summer Internship 2017
+ * VERSION: 1.0
+ */
+package Instances;
+
+import Commands.Command;
+import Communications.ExecutionResult;
+import Configurations.Log;
+import Configurations.Settings;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * The cache of the replies to the read-only query commands of an instance.
+ * Concurrent identical queries share a single request to the QEMU and its
+ * successful reply is then kept for the time to live of the command. A
+ * cached reply is dropped as soon as the QEMU announces an event that may
+ * change it, e.g. «STOP» or «RESUME» for «query-status», or a command that is
+ * not a query succeeds. The hits, the misses and the coalesced queries of
+ * every cache are counted.
+ *
+ * @see QemuInstance#execute(Commands.Command)
+ * @author Manuel Meireles ( mjcdm@isep.ipp.pt )
+ */
+public class QueryCache {
+
+    /**
+     * The separator of the pairs of the times to live.
+     */
+    private static final String TTLS_SEPARATOR = ",";
+
+    /**
+     * The separator between the name of a command and its time to live.
+     */
+    private static final String TTL_SEPARATOR = ":";
+
+    /**
+     * The prefix of the names of the read-only QMP commands.
+     */
+    private static final String QUERY_PREFIX = "query-";
+
+    /**
+     * The commands whose replies each QMP event may change.
+     */
+    private static final Map<String, Set<String>> INVALIDATIONS = invalidations();
+
+    /**
+     * The number of queries answered from a cached reply.
+     */
+    private static final LongAdder HITS = new LongAdder();
+
+    /**
+     * The number of queries sent to the QEMU.
+     */
+    private static final LongAdder MISSES = new LongAdder();
+
+    /**
+     * The number of queries that shared the request of an identical one.
+     */
+    private static final LongAdder COALESCED = new LongAdder();
+
+    /**
+     * The time to live, in nanoseconds, of the replies of each cached
+     * command.
+     */
+    private final Map<String, Long> ttls;
+
+    /**
+     * The queries in flight or cached, by their instruction.
+     */
+    private final ConcurrentMap<String, Flight> flights;
+
+    /**
+     * A query in flight or, once replied, cached.
+     */
+    private static class Flight {
+
+        /**
+         * The name of the command.
+         */
+        private final String name;
+
+        /**
+         * The reply to the query.
+         */
+        private final CompletableFuture<ExecutionResult> reply;
+
+        /**
+         * The {@link System#nanoTime()} at which the cached reply expires.
+         */
+        private volatile long expiry;
+
+        /**
+         * A private constructor of a query in flight.
+         *
+         * @param theName the name of the command.
+         */
+        private Flight(String theName) {
+            name = theName;
+            reply = new CompletableFuture<>();
+            expiry = Long.MAX_VALUE;
+        }
+
+    }
+
+    /**
+     * A private constructor that initializes an empty cache. Despite no
+     * validation is made, the times to live should not be null.
+     *
+     * @param theTtls the time to live of the replies of each cached command.
+     */
+    private QueryCache(Map<String, Long> theTtls) {
+        ttls = theTtls;
+        flights = new ConcurrentHashMap<>();
+    }
+
+    /**
+     * It builds an empty cache with the times to live from the
+     * {@link Settings}. A malformed pair is ignored.
+     *
+     * @return the built cache.
+     */
+    public static QueryCache create() {
+        Map<String, Long> ttls = new HashMap<>();
+        for (String pair : Settings.getQueryCacheTtls().split(TTLS_SEPARATOR)) {
+            String[] parts = pair.split(TTL_SEPARATOR);
+            try {
+                if (parts.length == 2) {
+                    ttls.put(parts[0].trim(), Long.parseLong(parts[1].trim()));
+                }
+            } catch (NumberFormatException ex) {
+                Log.warning("Ignoring the query cache time to live {0}", pair);
+            }
+        }
+        return create(ttls);
+    }
+
+    /**
+     * It builds an empty cache. The replies of a command with a zero time to
+     * live are not kept, although identical concurrent queries still share a
+     * single request, while a negative one is ignored.
+     *
+     * @param ttls a map where the keys are the names of the cached commands
+     * and the values the time, in milliseconds, their replies are kept.
+     * @return the built cache.
+     */
+    public static QueryCache create(Map<String, Long> ttls) {
+        Map<String, Long> nanos = new HashMap<>();
+        for (Map.Entry<String, Long> entry : ttls.entrySet()) {
+            if (entry.getValue() != null && entry.getValue() >= 0) {
+                nanos.put(entry.getKey(), TimeUnit.MILLISECONDS.toNanos(entry.getValue()));
+            }
+        }
+        return new QueryCache(nanos);
+    }
+
+    /**
+     * It answers a command, from the cache if it is a cached query. A query
+     * that is still in flight is shared, an expired or missing one is sent
+     * through the given loader and its reply kept if successful. Any other
+     * command is sent through the loader and, if it is not a query and
+     * succeeds, drops every cached reply.
+     *
+     * @param command the command to answer.
+     * @param loader the sender of the command to the QEMU.
+     * @return the reply to the command.
+     */
+    public ExecutionResult answer(Command command, Supplier<ExecutionResult> loader) {
+        String instruction = command.instruction().trim();
+        String name = name(instruction);
+        Long ttl = ttls.get(name);
+        if (ttl == null) {
+            ExecutionResult result = loader.get();
+            if (!name.startsWith(QUERY_PREFIX) && result.wasSuccessful()) {
+                flights.clear();
+            }
+            return result;
+        }
+        while (true) {
+            Flight flight = flights.get(instruction);
+            if (flight != null) {
+                if (!flight.reply.isDone()) {
+                    COALESCED.increment();
+                    return flight.reply.join();
+                }
+                if (System.nanoTime() - flight.expiry < 0) {
+                    HITS.increment();
+                    return flight.reply.join();
+                }
+                flights.remove(instruction, flight);
+            }
+            Flight mine = new Flight(name);
+            if (flights.putIfAbsent(instruction, mine) != null) {
+                continue;
+            }
+            MISSES.increment();
+            ExecutionResult result;
+            try {
+                result = loader.get();
+            } catch (RuntimeException ex) {
+                flights.remove(instruction, mine);
+                mine.reply.completeExceptionally(ex);
+                throw ex;
+            }
+            mine.expiry = System.nanoTime() + ttl;
+            mine.reply.complete(result);
+            if (!result.wasSuccessful() || ttl == 0) {
+                flights.remove(instruction, mine);
+            }
+            return result;
+        }
+    }
+
+    /**
+     * It drops the cached replies that a QMP event may have changed. The
+     * queries still in flight are not shared any more either.
+     *
+     * @param event the name of the QMP event.
+     */
+    public void invalidate(String event) {
+        Set<String> names = INVALIDATIONS.get(event);
+        if (names != null) {
+            flights.values().removeIf(flight -> names.contains(flight.name));
+        }
+    }
+
+    /**
+     * It drops every cached reply.
+     */
+    public void clear() {
+        flights.clear();
+    }
+
+    /**
+     * It provides the number of queries answered from a cached reply by every
+     * cache.
+     *
+     * @return the number of hits.
+     */
+    public static long hits() {
+        return HITS.sum();
+    }
+
+    /**
+     * It provides the number of queries sent to the QEMU by every cache.
+     *
+     * @return the number of misses.
+     */
+    public static long misses() {
+        return MISSES.sum();
+    }
+
+    /**
+     * It provides the number of queries that shared the request of an
+     * identical one in every cache.
+     *
+     * @return the number of coalesced queries.
+     */
+    public static long coalesced() {
+        return COALESCED.sum();
+    }
+
+    /**
+     * It provides the name of the command of an instruction in CMD format.
+     *
+     * @param instruction the trimmed instruction.
+     * @return the name of the command or an empty text if the instruction is
+     * already in JSON format, which is never cached.
+     */
+    private static String name(String instruction) {
+        if (instruction.startsWith("{")) {
+            return "";
+        }
+        int space = instruction.indexOf(' ');
+        return space < 0 ? instruction : instruction.substring(0, space);
+    }
+
+    /**
+     * It builds the commands whose replies each QMP event may change.
+     *
+     * @return a map where the keys are the names of the events and the values
+     * the names of the commands.
+     */
+    private static Map<String, Set<String>> invalidations() {
+        Set<String> status = Collections.singleton("query-status");
+        Set<String> cpus = new HashSet<>(Arrays.asList("query-status", "query-cpus-fast"));
+        Set<String> block = Collections.singleton("query-block");
+        Map<String, Set<String>> invalidations = new HashMap<>();
+        for (String event : Arrays.asList("STOP", "RESUME", "SUSPEND", "WAKEUP", "GUEST_PANICKED", "POWERDOWN")) {
+            invalidations.put(event, status);
+        }
+        for (String event : Arrays.asList("RESET", "SHUTDOWN", "ACPI_DEVICE_OST")) {
+            invalidations.put(event, cpus);
+        }
+        for (String event : Arrays.asList("BLOCK_IO_ERROR", "DEVICE_TRAY_MOVED", "DEVICE_DELETED",
+                "BLOCK_JOB_COMPLETED", "BLOCK_JOB_CANCELLED", "BLOCK_JOB_READY")) {
+            invalidations.put(event, block);
+        }
+        return invalidations;
+    }
+
+}
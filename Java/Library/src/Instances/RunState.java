@@ -0,0 +1,70 @@
+/*
+ *                      QEMU INSTANCES MANAGER LIBRARY
+ *                                Java Version
+ * 
+ * PRODUCT OWNER: Research Centre in Real-Time & Embedded Computing Systems
+ * PROJECT MANAGER: Luís Pinho and Cláudio Maia {lmn,clrrm}@isep.ipp.pt
+ * DEVELOPER: Manuel Meireles ( mjcdm@isep.ipp.pt )
+ * DATE: 24/11/2017
+ * SCOPE: CISTER Summer Internship 2017
+ * VERSION: 1.0
+ */
+package Instances;
+
+import java.util.Locale;
+
+/**
+ * The run states of the guest of an instance, as QEMU names them in the reply
+ * to «query-status», plus {@link RunState#UNKNOWN} for an instance whose state
+ * is not known yet.
+ *
+ * @see QemuInstance#runState()
+ * @author Manuel Meireles ( mjcdm@isep.ipp.pt )
+ */
+public enum RunState {
+    UNKNOWN,
+    PRELAUNCH,
+    RUNNING,
+    PAUSED,
+    SUSPENDED,
+    INMIGRATE,
+    POSTMIGRATE,
+    FINISH_MIGRATE,
+    SAVE_VM,
+    RESTORE_VM,
+    IO_ERROR,
+    INTERNAL_ERROR,
+    WATCHDOG,
+    GUEST_PANICKED,
+    DEBUG,
+    COLO,
+    SHUTDOWN;
+
+    /**
+     * It provides the run state of a status reported by the QEMU.
+     *
+     * @param status the status, e.g. «running» or «guest-panicked».
+     * @return the run state or {@link RunState#UNKNOWN} if the status is null
+     * or not known.
+     */
+    public static RunState of(String status) {
+        if (status == null) {
+            return UNKNOWN;
+        }
+        try {
+            return valueOf(status.trim().replace('-', '_').toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException ex) {
+            return UNKNOWN;
+        }
+    }
+
+    /**
+     * It provides the status as the QEMU names it.
+     *
+     * @return the status, e.g. «running» or «guest-panicked».
+     */
+    public String status() {
+        return name().replace('_', '-').toLowerCase(Locale.ROOT);
+    }
+
+}
@@ -0,0 +1,619 @@
+/*
+ *                      QEMU INSTANCES MANAGER LIBRARY
+ *                                Java Version
+ * 
+ * PRODUCT OWNER: Research Centre in Real-Time & Embedded Computing Systems
+ * PROJECT MANAGER: Luís Pinho and Cláudio Maia {lmn,clrrm}@isep.ipp.pt
+ * DEVELOPER: Manuel Meireles ( mjcdm@isep.ipp.pt )
+ * DATE: 24/11/2017
+ * SCOPE: CISTER Summer Internship 2017
+ * VERSION: 1.0
+ */
+package Instances;
+
+import Commands.BuildQemuInstance;
+import Commands.Command;
+import Commands.Command.Priority;
+import Communications.ExecutionResult;
+import Communications.Fail;
+import Communications.Fail.Reason;
+import Communications.Reply;
+import Communications.Success;
+import Configurations.Log;
+import HTTP.ResultToJSON;
+import Parsers.JSONReader;
+import Simulation.FakeProfile;
+import Simulation.VirtualClock;
+import TCP.EventListener;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * An instance simulated in memory, without a process nor a QMP connection,
+ * so that the algorithms of the manager can be tested and benchmarked
+ * deterministically at a scale no host could run. It models the lifecycle
+ * of a QEMU and its guest under a {@link VirtualClock}:
+ * <ul><li>the commands in band are executed one at a time, each one taking
+ * the latency drawn from the {@link FakeProfile} read from the «-fake-*»
+ * options of the instance, while the ones out of band skip the queue;</li>
+ * <li>«stop», «cont», «system_reset», «system_powerdown» and «quit» change
+ * the run state as the QEMU does, «query-status» reports it and every other
+ * «query-*» replies an empty object;</li>
+ * <li>the events of the QEMU, such as «STOP» or «SHUTDOWN», are delivered to
+ * the listeners once the clock reaches the completion of their command, and
+ * only then update the {@link SimulatedInstance#runState()}, as the events of
+ * a real QEMU do;</li>
+ * <li>the instance exits once the clock reaches the completion of a «quit»,
+ * the power down of the guest or a signal;</li>
+ * <li>the faults of the profile fail the commands: an error is replied, a
+ * dropped connection fails the command and a hang fails every later command
+ * in band.</li></ul>
+ * A command replies right away, as if its caller had waited for it, since
+ * only the clock tells the time of the simulation. Likewise, waiting for the
+ * exit advances the clock up to the scheduled exit, if any, instead of
+ * sleeping.
+ *
+ * @see InstanceFactory
+ * @author Manuel Meireles ( mjcdm@isep.ipp.pt )
+ */
+public class SimulatedInstance implements Instance {
+
+    /**
+     * The command that negotiates the capabilities, which never fails.
+     */
+    private static final String CAPABILITIES = "qmp_capabilities";
+
+    /**
+     * The prefix of the read-only queries.
+     */
+    private static final String QUERY_PREFIX = "query-";
+
+    /**
+     * The number of nanoseconds in a second.
+     */
+    private static final long NANOS_PER_SECOND = 1000000000L;
+
+    /**
+     * The id. It must be unique and final.
+     */
+    private final InstanceID id;
+
+    /**
+     * The specification from which the instance was built.
+     */
+    private final BuildQemuInstance spec;
+
+    /**
+     * The clock of the simulation.
+     */
+    private final VirtualClock clock;
+
+    /**
+     * The latencies, the faults and the power down of the instance.
+     */
+    private final FakeProfile profile;
+
+    /**
+     * The source of the random choices of the {@link SimulatedInstance#profile}.
+     */
+    private final Random random;
+
+    /**
+     * The listeners of the events of the instance.
+     */
+    private final List<EventListener> listeners;
+
+    /**
+     * The tags of the instance.
+     */
+    private volatile Map<String, String> tags;
+
+    /**
+     * The run state of the guest as told by the delivered events.
+     */
+    private volatile RunState runState;
+
+    /**
+     * The run state of the guest once every command executed so far has
+     * completed, which is the one the replies report.
+     */
+    private RunState projected;
+
+    /**
+     * Whether the simulated process is running.
+     */
+    private boolean alive;
+
+    /**
+     * The number of times the instance was started, so that the scheduled
+     * tasks of a former run are discarded.
+     */
+    private long generation;
+
+    /**
+     * The time, in nanoseconds of the clock, at which the last command in
+     * band completes.
+     */
+    private long busyUntil;
+
+    /**
+     * The time, in nanoseconds of the clock, at which the instance exits, or
+     * -1 if no exit is scheduled.
+     */
+    private long exitAt;
+
+    /**
+     * Whether the commands in band fail since the monitor hung.
+     */
+    private boolean hung;
+
+    /**
+     * The actions to run once the simulated process exits.
+     */
+    private final List<Runnable> exitActions;
+
+    /**
+     * A private constructor that initializes the instance, ready to be
+     * started.
+     *
+     * @param theID the identification of the instance.
+     * @param theSpec the specification from which the instance is built.
+     * @param theClock the clock of the simulation.
+     */
+    private SimulatedInstance(InstanceID theID, BuildQemuInstance theSpec, VirtualClock theClock) {
+        id = theID;
+        spec = theSpec;
+        clock = theClock;
+        profile = FakeProfile.parse(theSpec.instruction(), theID.hashCode());
+        random = new Random(profile.seed());
+        listeners = new CopyOnWriteArrayList<>();
+        tags = theSpec.tags();
+        runState = RunState.UNKNOWN;
+        projected = RunState.UNKNOWN;
+        alive = false;
+        generation = 0;
+        busyUntil = 0;
+        exitAt = -1;
+        hung = false;
+        exitActions = new ArrayList<>();
+    }
+
+    /**
+     * It builds a simulated instance, ready to be started, from the options
+     * of a QEMU instance.
+     *
+     * @param options the specification of the instance, whose «-fake-*»
+     * options set its {@link FakeProfile}.
+     * @param clock the clock of the simulation.
+     * @return the built instance or null if the options are not a
+     * {@link BuildQemuInstance}.
+     */
+    public static SimulatedInstance create(Command options, VirtualClock clock) {
+        if (options instanceof BuildQemuInstance) {
+            return new SimulatedInstance(QemuInstanceID.create(), (BuildQemuInstance) options, clock);
+        }
+        return null;
+    }
+
+    /**
+     * It provides a factory of simulated instances under a clock.
+     *
+     * @param clock the clock of the simulation.
+     * @return the factory.
+     */
+    public static InstanceFactory factory(VirtualClock clock) {
+        return options -> create(options, clock);
+    }
+
+    /**
+     * A getter of the unique and final identification.
+     *
+     * @return the {@link SimulatedInstance#id}.
+     */
+    @Override
+    public InstanceID id() {
+        return id;
+    }
+
+    /**
+     * A getter of the clock of the simulation.
+     *
+     * @return the {@link SimulatedInstance#clock}.
+     */
+    public VirtualClock clock() {
+        return clock;
+    }
+
+    /**
+     * It adds a listener of the events of the instance. The events are
+     * delivered by the thread that advances the clock.
+     *
+     * @param listener the listener to add.
+     */
+    public void listen(EventListener listener) {
+        listeners.add(listener);
+    }
+
+    /**
+     * It starts the simulated process of the instance, with the guest in the
+     * run state its options tell.
+     *
+     * @return <ul><li>a {@link Success} if everything goes well;</li>
+     * <li>a {@link Fail} due to {@link Reason#WRONG_EXEC} if the instance is
+     * already running;</li></ul>
+     */
+    @Override
+    public ExecutionResult start() {
+        Log.entering(getClass().getName(), "start");
+        ExecutionResult result;
+        synchronized (this) {
+            if (alive) {
+                result = Fail.because(Reason.WRONG_EXEC, "The instance is already running");
+            } else {
+                generation++;
+                alive = true;
+                hung = false;
+                exitAt = -1;
+                busyUntil = clock.now();
+                projected = RunState.of(FakeProfile.status(spec.instruction()));
+                runState = projected;
+                result = Success.achieved(spec.instruction());
+            }
+        }
+        Log.exiting(getClass().getName(), "start", result);
+        return result;
+    }
+
+    /**
+     * It executes the command on the simulated QEMU. The command completes
+     * once its latency has elapsed after the former command in band, or
+     * right away if it is out of band, and its events are scheduled at that
+     * time.
+     *
+     * @param command the command to be executed.
+     * @return <ul><li>a {@link Reply} with the returned value or with the
+     * error of the QEMU;</li><li>a {@link Fail} due to
+     * {@link Reason#QEMU_INSTANCE_IS_OFF} if the instance is not running;</li>
+     * <li>a {@link Fail} due to {@link Reason#IO_EXCEPTION} if the connection
+     * was dropped or the monitor hung;</li></ul>
+     */
+    @Override
+    public ExecutionResult execute(Command command) {
+        Log.entering(getClass().getName(), "execute", command);
+        String name = name(command.instruction());
+        boolean outOfBand = command.priority() == Priority.OUT_OF_BAND;
+        ExecutionResult result;
+        synchronized (this) {
+            FakeProfile.Fault fault = CAPABILITIES.equals(name) ? FakeProfile.Fault.NONE : profile.fault(random);
+            if (!alive) {
+                result = Fail.because(Reason.QEMU_INSTANCE_IS_OFF);
+            } else if (hung && !outOfBand) {
+                result = Fail.because(Reason.IO_EXCEPTION, "The monitor does not reply");
+            } else if (fault == FakeProfile.Fault.DROP) {
+                result = Fail.because(Reason.IO_EXCEPTION, "The connection was dropped");
+            } else if (fault == FakeProfile.Fault.HANG && !outOfBand) {
+                hung = true;
+                result = Fail.because(Reason.IO_EXCEPTION, "The monitor does not reply");
+            } else {
+                long now = clock.now();
+                long done = (outOfBand ? now : Math.max(now, busyUntil)) + profile.delay(name, random);
+                if (!outOfBand) {
+                    busyUntil = done;
+                }
+                result = fault == FakeProfile.Fault.ERROR
+                        ? reply(error("GenericError", "Injected fault while executing '" + name + "'"), false)
+                        : perform(name, done);
+            }
+        }
+        Log.exiting(getClass().getName(), "execute", result);
+        return result;
+    }
+
+    /**
+     * It checks if the simulated process of the instance is running.
+     *
+     * @return true if the instance was started and has not exited yet or
+     * false otherwise.
+     */
+    @Override
+    public synchronized boolean isAlive() {
+        return alive;
+    }
+
+    /**
+     * A getter of the run state of the guest, as told by the events delivered
+     * so far.
+     *
+     * @return the {@link SimulatedInstance#runState}.
+     */
+    @Override
+    public RunState runState() {
+        return runState;
+    }
+
+    /**
+     * It waits for the simulated process of the instance to exit. Since the
+     * time of the simulation is virtual, it only waits, in real time, for an
+     * exit to be scheduled, e.g. by a «quit» sent by another thread, and then
+     * advances the clock up to the exit if it is due within the timeout.
+     *
+     * @param timeout the maximum time to wait, in milliseconds.
+     * @return true if the instance has exited (or never started) or false if
+     * it does not exit within the timeout.
+     */
+    @Override
+    public boolean awaitExit(long timeout) {
+        long wait = TimeUnit.MILLISECONDS.toNanos(Math.max(0, timeout));
+        long exit;
+        synchronized (this) {
+            long end = System.nanoTime() + wait;
+            while (alive && exitAt < 0) {
+                long left = end - System.nanoTime();
+                if (left <= 0) {
+                    return false;
+                }
+                try {
+                    TimeUnit.NANOSECONDS.timedWait(this, left);
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                    return false;
+                }
+            }
+            if (!alive) {
+                return true;
+            }
+            exit = exitAt;
+        }
+        if (exit - clock.now() <= wait) {
+            clock.advanceTo(exit);
+        }
+        return !isAlive();
+    }
+
+    /**
+     * It registers an action to run once the simulated process exits, on the
+     * thread that advances the clock up to the exit.
+     *
+     * @param action the action to run.
+     */
+    @Override
+    public void onExit(Runnable action) {
+        synchronized (this) {
+            if (alive) {
+                exitActions.add(action);
+                return;
+            }
+        }
+        action.run();
+    }
+
+    /**
+     * It terminates the simulated process of the instance at the current
+     * time of the clock, regardless of its guest.
+     *
+     * @param forcibly whether the process is killed (SIGKILL) instead of
+     * requested to terminate (SIGTERM), which makes no difference here.
+     */
+    @Override
+    public synchronized void destroy(boolean forcibly) {
+        if (alive && exitAt < 0) {
+            exit(clock.now(), "{\"guest\": false, \"reason\": \"host-signal\"}");
+        }
+    }
+
+    /**
+     * A getter of the tags of the instance.
+     *
+     * @return the {@link SimulatedInstance#tags}.
+     */
+    @Override
+    public Map<String, String> tags() {
+        return tags;
+    }
+
+    /**
+     * It replaces the tags of the instance.
+     *
+     * @param newTags the new tags of the instance.
+     */
+    @Override
+    public void retag(Map<String, String> newTags) {
+        tags = Collections.unmodifiableMap(new TreeMap<>(newTags));
+    }
+
+    /**
+     * It performs a command that completes at a given time. It must be called
+     * while holding the lock of the instance.
+     *
+     * @param name the name of the command.
+     * @param done the time, in nanoseconds of the clock, at which the command
+     * completes.
+     * @return the reply of the command.
+     */
+    private ExecutionResult perform(String name, long done) {
+        switch (name) {
+            case "stop":
+                if (projected == RunState.RUNNING) {
+                    projected = RunState.PAUSED;
+                    event(done, "STOP", null);
+                }
+                return reply("{}", true);
+            case "cont":
+                if (projected != RunState.RUNNING) {
+                    projected = RunState.RUNNING;
+                    event(done, "RESUME", null);
+                }
+                return reply("{}", true);
+            case "system_reset":
+                event(done, "RESET", "{\"guest\": false, \"reason\": \"host-qmp-system-reset\"}");
+                return reply("{}", true);
+            case "system_powerdown":
+                event(done, "POWERDOWN", null);
+                if (projected == RunState.RUNNING && exitAt < 0) {
+                    exit(done + TimeUnit.MILLISECONDS.toNanos(profile.powerdownDelay()),
+                            "{\"guest\": true, \"reason\": \"guest-shutdown\"}");
+                }
+                return reply("{}", true);
+            case "quit":
+                if (exitAt < 0 || exitAt > done) {
+                    exit(done, "{\"guest\": false, \"reason\": \"host-qmp-quit\"}");
+                }
+                return reply("{}", true);
+            case "query-status":
+                return reply("{\"status\": \"" + projected.status() + "\", \"singlestep\": false, \"running\": "
+                        + (projected == RunState.RUNNING) + "}", true);
+            default:
+                if (name.equals(CAPABILITIES) || name.startsWith(QUERY_PREFIX)) {
+                    return reply("{}", true);
+                }
+                return reply(error("CommandNotFound", "The command " + name + " has not been found"), false);
+        }
+    }
+
+    /**
+     * It schedules the exit of the simulated process, preceded by a
+     * «SHUTDOWN» event. It must be called while holding the lock of the
+     * instance.
+     *
+     * @param time the time, in nanoseconds of the clock, of the exit.
+     * @param data the JSON text of the data of the «SHUTDOWN» event.
+     */
+    private void exit(long time, String data) {
+        exitAt = time;
+        projected = RunState.SHUTDOWN;
+        notifyAll();
+        long run = generation;
+        clock.schedule(time, () -> {
+            if (deliver(run, "SHUTDOWN", data)) {
+                List<Runnable> actions;
+                synchronized (this) {
+                    alive = false;
+                    exitAt = -1;
+                    notifyAll();
+                    actions = new ArrayList<>(exitActions);
+                    exitActions.clear();
+                }
+                actions.forEach(Runnable::run);
+            }
+        });
+    }
+
+    /**
+     * It schedules an event. It must be called while holding the lock of the
+     * instance.
+     *
+     * @param time the time, in nanoseconds of the clock, of the event.
+     * @param event the name of the event.
+     * @param data the JSON text of the data of the event or null.
+     */
+    private void event(long time, String event, String data) {
+        long run = generation;
+        clock.schedule(time, () -> deliver(run, event, data));
+    }
+
+    /**
+     * It delivers an event to the listeners, unless it belongs to a former
+     * run of the instance, and keeps the {@link SimulatedInstance#runState}
+     * from it.
+     *
+     * @param run the run of the instance in which the event was scheduled.
+     * @param event the name of the event.
+     * @param data the JSON text of the data of the event or null.
+     * @return true if the event was delivered or false if it was discarded.
+     */
+    private boolean deliver(long run, String event, String data) {
+        synchronized (this) {
+            if (run != generation || !alive) {
+                return false;
+            }
+        }
+        switch (event) {
+            case "STOP":
+                runState = RunState.PAUSED;
+                break;
+            case "RESUME":
+                runState = RunState.RUNNING;
+                break;
+            case "SHUTDOWN":
+                runState = RunState.SHUTDOWN;
+                break;
+            default:
+                break;
+        }
+        long now = clock.now();
+        String message = "{\"timestamp\": {\"seconds\": " + now / NANOS_PER_SECOND + ", \"microseconds\": "
+                + now % NANOS_PER_SECOND / 1000 + "}, \"event\": \"" + event + "\""
+                + (data == null ? "" : ", \"data\": " + data) + "}";
+        for (EventListener listener : listeners) {
+            listener.eventReceived(event, message);
+        }
+        return true;
+    }
+
+    /**
+     * It finds the name of a command from its instruction, whether it is
+     * written as the console does, e.g. «query-status» or «stop {}», or in
+     * JSON.
+     *
+     * @param instruction the instruction of the command.
+     * @return the name of the command.
+     */
+    private static String name(String instruction) {
+        String text = instruction.trim();
+        if (text.startsWith("{")) {
+            Object execute = JSONReader.object(text).get("execute");
+            return execute instanceof String ? (String) execute : "";
+        }
+        return text.split("[\\s{]", 2)[0];
+    }
+
+    /**
+     * It builds a reply.
+     *
+     * @param value the JSON text of the returned value or of the error.
+     * @param returned whether the value was returned, rather than an error.
+     * @return the reply.
+     */
+    private static ExecutionResult reply(String value, boolean returned) {
+        return Reply.create("{\"" + (returned ? "return" : "error") + "\": " + value + "}", returned);
+    }
+
+    /**
+     * It builds the JSON text of an error.
+     *
+     * @param kind the class of the error.
+     * @param description the description of the error.
+     * @return the JSON text.
+     */
+    private static String error(String kind, String description) {
+        return "{\"class\": \"" + kind + "\", \"desc\": " + ResultToJSON.string(description) + "}";
+    }
+
+    /**
+     * It compares the instances by their identification.
+     *
+     * @param that the other instance.
+     * @return the comparison of the {@link InstanceID}s.
+     */
+    @Override
+    public int compareTo(Instance that) {
+        return this.id().compareTo(that.id());
+    }
+
+    /**
+     * It provides the textual representation of the id.
+     *
+     * @return the {@link InstanceID#toString() }.
+     */
+    @Override
+    public String toString() {
+        return id.toString();
+    }
+
+}
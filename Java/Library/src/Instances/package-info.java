@@ -5,8 +5,12 @@
  * {@link Instances.Instance} is identified by its unique
  * {@link Instances.InstanceID}.
  * <br/><br/>
- * For the time being only QEMU instances are being managed, i.e. the only
- * existing instance is the {@link Instances.QemuInstance} with its
- * {@link Instances.QemuInstanceID}.
+ * For the time being only QEMU instances are being managed, i.e. the
+ * instances are {@link Instances.QemuInstance}s with their
+ * {@link Instances.QemuInstanceID}. The commands to each QEMU instance go
+ * through its own {@link Instances.Mailbox}, which sends them one at a time.
+ * The manager builds them through an {@link Instances.InstanceFactory}, which
+ * may build {@link Instances.SimulatedInstance}s instead, whose QEMU is
+ * simulated in memory under a virtual clock.
  */
 package Instances;
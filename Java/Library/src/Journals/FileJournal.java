@@ -0,0 +1,449 @@
+/*
+ *                      QEMU INSTANCES MANAGER LIBRARY
+ *                                Java Version
+ * 
+ * PRODUCT OWNER: Research Centre in Real-Time & Embedded Computing Systems
+ * PROJECT MANAGER: Luís Pinho and Cláudio Maia {lmn,clrrm}@isep.ipp.pt
+ * DEVELOPER: Manuel Meireles ( mjcdm@isep.ipp.pt )
+ * DATE: 24/11/2017
+ * SCOPE: CISTER Summer Internship 2017
+ * VERSION: 1.0
+ */
+package Journals;
+
+import Communications.ExecutionResult;
+import Communications.Fail;
+import Communications.Fail.Reason;
+import Communications.Success;
+import Configurations.Log;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.UnsupportedEncodingException;
+import java.net.URLDecoder;
+import java.net.URLEncoder;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.zip.CRC32;
+
+/**
+ * A journal kept in an append-only file. Every change is appended as one line
+ * and forced to the disk before returning, so a crash can at most lose a
+ * change that was still being written. Each line starts with its checksum,
+ * which lets a torn or damaged line be skipped on replay. Once the history
+ * outgrows the live records, the file is compacted by atomically replacing it
+ * with a snapshot of the live records.
+ *
+ * @see Journal
+ * @author Manuel Meireles ( mjcdm@isep.ipp.pt )
+ */
+public class FileJournal implements Journal {
+
+    /**
+     * The operation of a line that records an instance.
+     */
+    private static final String PUT = "PUT";
+
+    /**
+     * The operation of a line that records that an instance no longer exists.
+     */
+    private static final String REMOVE = "DEL";
+
+    /**
+     * The separator between the fields of a line.
+     */
+    private static final String FIELD_SEPARATOR = "\t";
+
+    /**
+     * The separator between the tags of a record.
+     */
+    private static final String TAG_SEPARATOR = "&";
+
+    /**
+     * The separator between the key and the value of a tag.
+     */
+    private static final String TAG_ASSIGNMENT = "=";
+
+    /**
+     * The suffix of the temporary file used while compacting.
+     */
+    private static final String COMPACTION_SUFFIX = ".compacting";
+
+    /**
+     * The path of the journal file.
+     */
+    private final Path file;
+
+    /**
+     * The number of lines after which the journal is compacted, as long as
+     * most of them are history.
+     */
+    private final int compactionThreshold;
+
+    /**
+     * The live records. The keys are the long number of the identities.
+     */
+    private final Map<Long, InstanceRecord> records;
+
+    /**
+     * The channel through which lines are appended.
+     */
+    private FileChannel channel;
+
+    /**
+     * The number of lines in the journal file.
+     */
+    private int lines;
+
+    /**
+     * A private constructor that initializes the path and the threshold. The
+     * file is only read on {@link FileJournal#open(java.lang.String, int)}.
+     *
+     * @param theFile the path of the journal file.
+     * @param theCompactionThreshold the number of lines that triggers a
+     * compaction.
+     */
+    private FileJournal(Path theFile, int theCompactionThreshold) {
+        file = theFile;
+        compactionThreshold = theCompactionThreshold;
+        records = new LinkedHashMap<>();
+        channel = null;
+        lines = 0;
+    }
+
+    /**
+     * It opens a journal file, replaying its lines to rebuild the live
+     * records, and compacts it. The file is created if it does not exist.
+     *
+     * @param file the path and name of the journal file.
+     * @param compactionThreshold the number of lines that triggers a
+     * compaction.
+     * @return the opened journal.
+     * @throws IOException if the file can not be read or written.
+     */
+    public static FileJournal open(String file, int compactionThreshold) throws IOException {
+        FileJournal journal = new FileJournal(Paths.get(file), compactionThreshold);
+        journal.replay();
+        journal.rewrite();
+        return journal;
+    }
+
+    /**
+     * It durably records an instance.
+     *
+     * @param record the record of the instance.
+     * @return <ul><li>a {@link Success} if the line was forced to the
+     * disk;</li><li>a {@link Fail} due to {@link Reason#IO_EXCEPTION};</li></ul>
+     */
+    @Override
+    public synchronized ExecutionResult put(InstanceRecord record) {
+        records.put(record.id(), record);
+        return append(encode(record));
+    }
+
+    /**
+     * It durably records that an instance no longer exists.
+     *
+     * @param id the long number of the identity of the instance.
+     * @return <ul><li>a {@link Success} if the line was forced to the
+     * disk;</li><li>a {@link Fail} due to {@link Reason#IO_EXCEPTION};</li></ul>
+     */
+    @Override
+    public synchronized ExecutionResult remove(long id) {
+        if (records.remove(id) == null) {
+            return Success.achieved();
+        }
+        return append(REMOVE + FIELD_SEPARATOR + id);
+    }
+
+    /**
+     * It provides the live records.
+     *
+     * @return a copy of the {@link FileJournal#records}.
+     */
+    @Override
+    public synchronized Collection<InstanceRecord> records() {
+        return new ArrayList<>(records.values());
+    }
+
+    /**
+     * It atomically replaces the journal file with a snapshot of the live
+     * records.
+     *
+     * @return <ul><li>a {@link Success} if the file was replaced;</li><li>a
+     * {@link Fail} due to {@link Reason#IO_EXCEPTION};</li></ul>
+     */
+    @Override
+    public synchronized ExecutionResult compact() {
+        try {
+            rewrite();
+            return Success.achieved();
+        } catch (IOException ex) {
+            Log.severe("{0}", ex);
+            return Fail.because(Reason.IO_EXCEPTION, ex.getMessage());
+        }
+    }
+
+    /**
+     * It closes the channel through which lines are appended. Nothing can be
+     * recorded afterwards.
+     */
+    @Override
+    public synchronized void close() {
+        if (channel == null) {
+            return;
+        }
+        try {
+            channel.close();
+        } catch (IOException ex) {
+            Log.severe("{0}", ex);
+        }
+        channel = null;
+    }
+
+    /**
+     * It appends a line to the journal, forces it to the disk and compacts the
+     * journal if the history became too long.
+     *
+     * @param payload the line without its checksum.
+     * @return <ul><li>a {@link Success} if the line was forced to the
+     * disk;</li><li>a {@link Fail} due to {@link Reason#IO_EXCEPTION}, also
+     * if the journal was closed;</li></ul>
+     */
+    private ExecutionResult append(String payload) {
+        if (channel == null) {
+            return Fail.because(Reason.IO_EXCEPTION, "The journal " + file + " is closed.");
+        }
+        try {
+            channel.write(ByteBuffer.wrap(line(payload).getBytes(StandardCharsets.UTF_8)));
+            channel.force(false);
+            lines++;
+            if (lines > compactionThreshold && lines > 2 * records.size()) {
+                rewrite();
+            }
+            return Success.achieved();
+        } catch (IOException ex) {
+            Log.severe("{0}", ex);
+            return Fail.because(Reason.IO_EXCEPTION, ex.getMessage());
+        }
+    }
+
+    /**
+     * It rebuilds the live records from the lines of the journal file. Lines
+     * whose checksum does not match are skipped.
+     *
+     * @throws IOException if the file can not be read.
+     */
+    private void replay() throws IOException {
+        try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                String payload = verify(line);
+                if (payload == null) {
+                    Log.warning("Skipping damaged journal line: {0}", line);
+                    continue;
+                }
+                apply(payload);
+            }
+        } catch (NoSuchFileException ex) {
+            Log.fine("No journal at {0}, starting empty.", file);
+        }
+    }
+
+    /**
+     * It applies one line of the journal to the live records.
+     *
+     * @param payload the line without its checksum.
+     */
+    private void apply(String payload) {
+        String[] fields = payload.split(FIELD_SEPARATOR, -1);
+        try {
+            if (PUT.equals(fields[0]) && fields.length == 8) {
+                InstanceRecord record = InstanceRecord.create(Long.parseLong(fields[1]), Long.parseLong(fields[2]),
+                        Long.parseLong(fields[3]), decode(fields[4]), Integer.parseInt(fields[5]),
+                        decode(fields[6]), decodeTags(fields[7]));
+                records.put(record.id(), record);
+            } else if (REMOVE.equals(fields[0]) && fields.length == 2) {
+                records.remove(Long.parseLong(fields[1]));
+            }
+        } catch (NumberFormatException ex) {
+            Log.warning("Skipping malformed journal line: {0}", payload);
+        }
+    }
+
+    /**
+     * It writes the live records to a temporary file, forces it to the disk
+     * and moves it over the journal file, so that the journal is always either
+     * the old or the new one. The appending channel is reopened on the new
+     * file.
+     *
+     * @throws IOException if the file can not be written or moved.
+     */
+    private void rewrite() throws IOException {
+        if (channel != null) {
+            channel.close();
+            channel = null;
+        }
+        Path absolute = file.toAbsolutePath();
+        Path temporary = absolute.resolveSibling(absolute.getFileName() + COMPACTION_SUFFIX);
+        try (FileChannel snapshot = FileChannel.open(temporary, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            StringBuilder builder = new StringBuilder();
+            for (InstanceRecord record : records.values()) {
+                builder.append(line(encode(record)));
+            }
+            snapshot.write(ByteBuffer.wrap(builder.toString().getBytes(StandardCharsets.UTF_8)));
+            snapshot.force(true);
+        }
+        Files.move(temporary, absolute, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        syncDirectory(absolute.getParent());
+        channel = FileChannel.open(absolute, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        lines = records.size();
+    }
+
+    /**
+     * It forces the directory entry of the journal to the disk, so that the
+     * rename of a compaction survives a crash. Not every platform allows
+     * opening a directory, in which case nothing is done.
+     *
+     * @param directory the directory of the journal file.
+     */
+    private void syncDirectory(Path directory) {
+        if (directory == null) {
+            return;
+        }
+        try (FileChannel handle = FileChannel.open(directory, StandardOpenOption.READ)) {
+            handle.force(true);
+        } catch (IOException ex) {
+            Log.finest("{0}", ex);
+        }
+    }
+
+    /**
+     * It encodes a record as the payload of a line.
+     *
+     * @param record the record to encode.
+     * @return the payload of the line.
+     */
+    private String encode(InstanceRecord record) {
+        StringBuilder tags = new StringBuilder();
+        for (Map.Entry<String, String> tag : record.tags().entrySet()) {
+            if (tags.length() > 0) {
+                tags.append(TAG_SEPARATOR);
+            }
+            tags.append(encode(tag.getKey()));
+            tags.append(TAG_ASSIGNMENT);
+            tags.append(encode(tag.getValue()));
+        }
+        StringBuilder builder = new StringBuilder();
+        builder.append(PUT).append(FIELD_SEPARATOR);
+        builder.append(record.id()).append(FIELD_SEPARATOR);
+        builder.append(record.pid()).append(FIELD_SEPARATOR);
+        builder.append(record.startTime()).append(FIELD_SEPARATOR);
+        builder.append(encode(record.ip())).append(FIELD_SEPARATOR);
+        builder.append(record.port()).append(FIELD_SEPARATOR);
+        builder.append(encode(record.instruction())).append(FIELD_SEPARATOR);
+        builder.append(tags);
+        return builder.toString();
+    }
+
+    /**
+     * It prefixes a payload with its checksum and ends the line.
+     *
+     * @param payload the payload of the line.
+     * @return the complete line.
+     */
+    private static String line(String payload) {
+        return String.format("%08x", checksum(payload)) + FIELD_SEPARATOR + payload + "\n";
+    }
+
+    /**
+     * It checks the checksum of a line.
+     *
+     * @param line the complete line, without the line terminator.
+     * @return the payload of the line or null if the checksum does not match.
+     */
+    private static String verify(String line) {
+        int separator = line.indexOf(FIELD_SEPARATOR);
+        if (separator <= 0) {
+            return null;
+        }
+        String payload = line.substring(separator + 1);
+        try {
+            long expected = Long.parseLong(line.substring(0, separator), 16);
+            return expected == checksum(payload) ? payload : null;
+        } catch (NumberFormatException ex) {
+            return null;
+        }
+    }
+
+    /**
+     * It computes the checksum of a payload.
+     *
+     * @param payload the payload of a line.
+     * @return the CRC-32 of the payload.
+     */
+    private static long checksum(String payload) {
+        CRC32 crc = new CRC32();
+        crc.update(payload.getBytes(StandardCharsets.UTF_8));
+        return crc.getValue();
+    }
+
+    /**
+     * It decodes the tags of a line.
+     *
+     * @param field the encoded tags.
+     * @return the tags.
+     */
+    private static Map<String, String> decodeTags(String field) {
+        Map<String, String> tags = new TreeMap<>();
+        if (field.isEmpty()) {
+            return tags;
+        }
+        for (String tag : field.split(TAG_SEPARATOR)) {
+            String[] pair = tag.split(TAG_ASSIGNMENT, 2);
+            tags.put(decode(pair[0]), pair.length > 1 ? decode(pair[1]) : "");
+        }
+        return tags;
+    }
+
+    /**
+     * It escapes a text so that it holds no separators nor line terminators.
+     *
+     * @param text the text to escape.
+     * @return the escaped text.
+     */
+    private static String encode(String text) {
+        try {
+            return URLEncoder.encode(text, StandardCharsets.UTF_8.name());
+        } catch (UnsupportedEncodingException ex) {
+            throw new IllegalStateException(ex);
+        }
+    }
+
+    /**
+     * It reverts the escaping of {@link FileJournal#encode(java.lang.String)}.
+     *
+     * @param text the escaped text.
+     * @return the original text.
+     */
+    private static String decode(String text) {
+        try {
+            return URLDecoder.decode(text, StandardCharsets.UTF_8.name());
+        } catch (UnsupportedEncodingException ex) {
+            throw new IllegalStateException(ex);
+        }
+    }
+
+}
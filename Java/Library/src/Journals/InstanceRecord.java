@@ -0,0 +1,180 @@
+/*
+ *                      QEMU INSTANCES MANAGER LIBRARY
+ *                                Java Version
+ * 
+ * PRODUCT OWNER: Research Centre in Real-Time & Embedded Computing Systems
+ * PROJECT MANAGER: Luís Pinho and Cláudio Maia {lmn,clrrm}@isep.ipp.pt
+ * DEVELOPER: Manuel Meireles ( mjcdm@isep.ipp.pt )
+ * DATE: 24/11/2017
+ * SCOPE: CISTER Summer Internship 2017
+ * VERSION: 1.0
+ */
+package Journals;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * The persisted metadata of an instance. It holds everything needed to find
+ * the running process again and talk to it: the identity, the process
+ * identifier and start time, the QMP endpoint, the launch instruction and the
+ * tags.
+ *
+ * @see Journal
+ * @author Manuel Meireles ( mjcdm@isep.ipp.pt )
+ */
+public class InstanceRecord {
+
+    /**
+     * The long number of the identity of the instance.
+     */
+    private final long id;
+
+    /**
+     * The process identifier of the QEMU.
+     */
+    private final long pid;
+
+    /**
+     * The start time of the QEMU process, in milliseconds since the epoch, or
+     * zero if unknown.
+     */
+    private final long startTime;
+
+    /**
+     * The IP address of the QMP endpoint.
+     */
+    private final String ip;
+
+    /**
+     * The port number of the QMP endpoint.
+     */
+    private final int port;
+
+    /**
+     * The complete instruction with which the QEMU was launched, without the
+     * «-qmp» parameter.
+     */
+    private final String instruction;
+
+    /**
+     * The tags of the instance.
+     */
+    private final Map<String, String> tags;
+
+    /**
+     * A private constructor that initializes every attribute. Despite no
+     * validation is made, none of the parameters should be null.
+     *
+     * @param theID the long number of the identity.
+     * @param thePID the process identifier.
+     * @param theStartTime the start time of the process.
+     * @param theIP the IP address of the QMP endpoint.
+     * @param thePort the port number of the QMP endpoint.
+     * @param theInstruction the launch instruction.
+     * @param theTags the tags of the instance.
+     */
+    private InstanceRecord(long theID, long thePID, long theStartTime, String theIP, int thePort, String theInstruction, Map<String, String> theTags) {
+        id = theID;
+        pid = thePID;
+        startTime = theStartTime;
+        ip = theIP;
+        port = thePort;
+        instruction = theInstruction;
+        tags = Collections.unmodifiableMap(new TreeMap<>(theTags));
+    }
+
+    /**
+     * It builds an instance record. Despite no validation is made, none of the
+     * parameters should be null.
+     *
+     * @param id the long number of the identity of the instance.
+     * @param pid the process identifier of the QEMU.
+     * @param startTime the start time of the process, in milliseconds since
+     * the epoch, or zero if unknown.
+     * @param ip the IP address of the QMP endpoint.
+     * @param port the port number of the QMP endpoint.
+     * @param instruction the launch instruction, without the «-qmp» parameter.
+     * @param tags the tags of the instance.
+     * @return the built record.
+     */
+    public static InstanceRecord create(long id, long pid, long startTime, String ip, int port, String instruction, Map<String, String> tags) {
+        return new InstanceRecord(id, pid, startTime, ip, port, instruction, tags);
+    }
+
+    /**
+     * A getter of the long number of the identity.
+     *
+     * @return the {@link InstanceRecord#id}.
+     */
+    public long id() {
+        return id;
+    }
+
+    /**
+     * A getter of the process identifier.
+     *
+     * @return the {@link InstanceRecord#pid}.
+     */
+    public long pid() {
+        return pid;
+    }
+
+    /**
+     * A getter of the start time of the process.
+     *
+     * @return the {@link InstanceRecord#startTime}.
+     */
+    public long startTime() {
+        return startTime;
+    }
+
+    /**
+     * A getter of the IP address of the QMP endpoint.
+     *
+     * @return the {@link InstanceRecord#ip}.
+     */
+    public String ip() {
+        return ip;
+    }
+
+    /**
+     * A getter of the port number of the QMP endpoint.
+     *
+     * @return the {@link InstanceRecord#port}.
+     */
+    public int port() {
+        return port;
+    }
+
+    /**
+     * A getter of the launch instruction.
+     *
+     * @return the {@link InstanceRecord#instruction}.
+     */
+    public String instruction() {
+        return instruction;
+    }
+
+    /**
+     * A getter of the tags.
+     *
+     * @return the {@link InstanceRecord#tags}, unmodifiable.
+     */
+    public Map<String, String> tags() {
+        return tags;
+    }
+
+    /**
+     * The textual representation of the record.
+     *
+     * @return the identity followed by the process identifier and the QMP
+     * endpoint.
+     */
+    @Override
+    public String toString() {
+        return id + " (pid " + pid + ", qmp " + ip + ":" + port + ")";
+    }
+
+}
@@ -0,0 +1,67 @@
+/*
+ *                      QEMU INSTANCES MANAGER LIBRARY
+ *                                Java Version
+ * 
+ * PRODUCT OWNER: Research Centre in Real-Time & Embedded Computing Systems
+ * PROJECT MANAGER: Luís Pinho and Cláudio Maia {lmn,clrrm}@isep.ipp.pt
+ * DEVELOPER: Manuel Meireles ( mjcdm@isep.ipp.pt )
+ * DATE: 24/11/2017
+ * SCOPE: CISTER Summer Internship 2017
+ * VERSION: 1.0
+ */
+package Journals;
+
+import Communications.ExecutionResult;
+import java.util.Collection;
+
+/**
+ * The interface of a journal of instances, i.e. a durable store of the
+ * metadata of the running instances that survives a restart of the manager.
+ *
+ * @see InstanceRecord
+ * @author Manuel Meireles ( mjcdm@isep.ipp.pt )
+ */
+public interface Journal {
+
+    /**
+     * It durably records an instance, replacing any previous record with the
+     * same identity.
+     *
+     * @param record the record of the instance.
+     * @return a success execution result or a fail if it could not be written.
+     */
+    ExecutionResult put(InstanceRecord record);
+
+    /**
+     * It durably records that an instance no longer exists.
+     *
+     * @param id the long number of the identity of the instance.
+     * @return a success execution result or a fail if it could not be written.
+     */
+    ExecutionResult remove(long id);
+
+    /**
+     * It provides the records of the instances that exist according to the
+     * journal.
+     *
+     * @return the live records.
+     */
+    Collection<InstanceRecord> records();
+
+    /**
+     * It rewrites the journal with only the live records, discarding the
+     * history.
+     *
+     * @return a success execution result or a fail if it could not be
+     * rewritten.
+     */
+    ExecutionResult compact();
+
+    /**
+     * It releases the file, or any other resource, held by the journal. The
+     * records are kept, so that the journal can be opened again later, but
+     * nothing can be recorded afterwards.
+     */
+    void close();
+
+}
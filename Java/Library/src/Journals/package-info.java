@@ -0,0 +1,12 @@
+/**
+ * The package contains classes related to the concept of Journal. A
+ * {@link Journals.Journal} persists the metadata of the running instances, as
+ * {@link Journals.InstanceRecord}s, so that a restarted
+ * {@link Managers.InstanceManager} can re-attach to them instead of losing
+ * track of their processes.
+ * <br/><br/>
+ * For the time being there is only one journal, i.e. the
+ * {@link Journals.FileJournal}, which appends the changes to a file and
+ * compacts it from time to time.
+ */
+package Journals;
@@ -0,0 +1,318 @@
+/*
+ *                      QEMU INSTANCES MANAGER LIBRARY
+ *                                Java Version
+ * 
+ * PRODUCT OWNER: Research Centre in Real-Time & Embedded Computing Systems
+ * PROJECT MANAGER: Luís Pinho and Cláudio Maia {lmn,clrrm}@isep.ipp.pt
+ * DEVELOPER: Manuel Meireles ( mjcdm@isep.ipp.pt )
+ * DATE: 24/11/2017
+ * SCOPE: CISTER Summer Internship 2017
+ * VERSION: 1.0
+ */
+package Managers;
+
+import Commands.BuildQemuInstance;
+import Commands.Command;
+import Communications.ExecutionResult;
+import Communications.Fail;
+import Communications.Fail.Reason;
+import Communications.Headroom;
+import Communications.Success;
+import Configurations.Log;
+import Configurations.Settings;
+import Instances.InstanceID;
+import java.io.BufferedReader;
+import java.io.FileReader;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.OperatingSystemMXBean;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * An admission controller of the host capacity. It keeps track of the guest
+ * memory and virtual CPUs committed to the running instances and decides if a
+ * new instance may be launched without overcommitting the host beyond the
+ * configured ratios. Launches that do not fit are either rejected right away
+ * or queued until enough capacity is released, depending on the
+ * {@link Policy}.
+ *
+ * @see QemuInstancesManager
+ * @author Manuel Meireles ( mjcdm@isep.ipp.pt )
+ */
+public class AdmissionController {
+
+    /**
+     * The possible behaviours towards a launch that exceeds the capacity.
+     */
+    public enum Policy {
+        QUEUE,
+        REJECT
+    }
+
+    /**
+     * The file from which the host physical memory is read.
+     */
+    private static final String MEMINFO_FILE = "/proc/meminfo";
+
+    /**
+     * The entry of the {@link AdmissionController#MEMINFO_FILE} that holds the
+     * total physical memory.
+     */
+    private static final String MEMINFO_TOTAL_KEY = "MemTotal:";
+
+    /**
+     * The guest memory, in MiB, the host may commit.
+     */
+    private final long memoryCapacity;
+
+    /**
+     * The number of virtual CPUs the host may commit.
+     */
+    private final long cpuCapacity;
+
+    /**
+     * The behaviour towards launches that exceed the capacity.
+     */
+    private final Policy policy;
+
+    /**
+     * How long, in milliseconds, a queued launch waits for capacity.
+     */
+    private final long queueTimeout;
+
+    /**
+     * The launch specifications of the known instances. The keys are the
+     * instances identification and the values their specifications.
+     */
+    private final Map<InstanceID, BuildQemuInstance> demands;
+
+    /**
+     * The instances whose demand is currently committed.
+     */
+    private final Set<InstanceID> committed;
+
+    /**
+     * The guest memory, in MiB, currently committed.
+     */
+    private long memoryCommitted;
+
+    /**
+     * The number of virtual CPUs currently committed.
+     */
+    private long cpuCommitted;
+
+    /**
+     * A private constructor that initializes the capacities and the policy.
+     * Despite no validation is made, none of the values should be negative.
+     *
+     * @param theMemoryCapacity the guest memory, in MiB, the host may commit.
+     * @param theCpuCapacity the virtual CPUs the host may commit.
+     * @param thePolicy the behaviour towards launches that do not fit.
+     * @param theQueueTimeout how long a queued launch waits for capacity.
+     */
+    private AdmissionController(long theMemoryCapacity, long theCpuCapacity, Policy thePolicy, long theQueueTimeout) {
+        memoryCapacity = theMemoryCapacity;
+        cpuCapacity = theCpuCapacity;
+        policy = thePolicy;
+        queueTimeout = theQueueTimeout;
+        demands = new HashMap<>();
+        committed = new HashSet<>();
+        memoryCommitted = 0;
+        cpuCommitted = 0;
+    }
+
+    /**
+     * It builds an admission controller from the host capacity and the
+     * overcommit ratios and policy of the {@link Settings}.
+     *
+     * @return the built admission controller.
+     */
+    public static AdmissionController create() {
+        long memory = (long) (hostMemory() * Settings.getMemoryOvercommitRatio());
+        long cpus = (long) (Runtime.getRuntime().availableProcessors() * Settings.getCpuOvercommitRatio());
+        Policy policy = Policy.REJECT;
+        if (Policy.QUEUE.name().equalsIgnoreCase(Settings.getAdmissionPolicy())) {
+            policy = Policy.QUEUE;
+        }
+        return new AdmissionController(memory, cpus, policy, Settings.getAdmissionQueueTimeout());
+    }
+
+    /**
+     * It builds an admission controller with explicit capacities, e.g. to
+     * reserve part of the host to other services.
+     *
+     * @param memory the guest memory, in MiB, the host may commit.
+     * @param cpus the virtual CPUs the host may commit.
+     * @param policy the behaviour towards launches that do not fit.
+     * @param queueTimeout how long, in milliseconds, a queued launch waits.
+     * @return the built admission controller.
+     */
+    public static AdmissionController create(long memory, long cpus, Policy policy, long queueTimeout) {
+        return new AdmissionController(memory, cpus, policy, queueTimeout);
+    }
+
+    /**
+     * It registers the demand of an instance. No capacity is committed until
+     * the instance is admitted. Commands other than a
+     * {@link BuildQemuInstance} carry no demand and are ignored.
+     *
+     * @param id the identification of the instance.
+     * @param options the launch specification of the instance.
+     */
+    public synchronized void register(InstanceID id, Command options) {
+        if (options instanceof BuildQemuInstance) {
+            demands.put(id, (BuildQemuInstance) options);
+        }
+    }
+
+    /**
+     * It commits the demand of an instance if it fits on the host. If it does
+     * not fit, the launch is rejected or waits for capacity to be released,
+     * according to the {@link AdmissionController#policy}. Admitting an
+     * instance that is already committed has no effect.
+     *
+     * @param id the identification of the instance to admit.
+     * @return <ul><li>a {@link Success} if the demand was committed;</li><li>a
+     * {@link Fail} due to {@link Reason#INSUFFICIENT_CAPACITY} if it does not
+     * fit (after waiting, if queued);</li></ul>
+     */
+    public synchronized ExecutionResult admit(InstanceID id) {
+        BuildQemuInstance demand = demands.get(id);
+        if (demand == null || committed.contains(id)) {
+            return Success.achieved();
+        }
+        long memory = demand.memory();
+        long cpus = demand.cpus();
+        if (memory > memoryCapacity || cpus > cpuCapacity) {
+            return refuse(memory, cpus);
+        }
+        if (policy == Policy.QUEUE) {
+            long deadline = System.currentTimeMillis() + queueTimeout;
+            long remaining = queueTimeout;
+            while (!headroom().fits(memory, cpus) && remaining > 0) {
+                try {
+                    wait(remaining);
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                    break;
+                }
+                remaining = deadline - System.currentTimeMillis();
+            }
+        }
+        if (!headroom().fits(memory, cpus)) {
+            return refuse(memory, cpus);
+        }
+        committed.add(id);
+        memoryCommitted += memory;
+        cpuCommitted += cpus;
+        return Success.achieved();
+    }
+
+    /**
+     * It registers and commits the demand of an instance that is already
+     * running, e.g. one re-attached after a restart, regardless of the
+     * headroom.
+     *
+     * @param id the identification of the instance.
+     * @param options the launch specification of the instance.
+     */
+    public synchronized void adopt(InstanceID id, Command options) {
+        register(id, options);
+        commit(id);
+    }
+
+    /**
+     * It commits the registered demand of an instance that runs again,
+     * regardless of the headroom, e.g. one restarted by the watchdog after
+     * its former process exited. Committing an instance that is already
+     * committed has no effect.
+     *
+     * @param id the identification of the instance.
+     */
+    public synchronized void commit(InstanceID id) {
+        BuildQemuInstance demand = demands.get(id);
+        if (demand != null && committed.add(id)) {
+            memoryCommitted += demand.memory();
+            cpuCommitted += demand.cpus();
+        }
+    }
+
+    /**
+     * It releases the capacity committed to an instance, waking up any queued
+     * launch. The demand remains registered, so the instance may be admitted
+     * again.
+     *
+     * @param id the identification of the instance to release.
+     */
+    public synchronized void release(InstanceID id) {
+        if (committed.remove(id)) {
+            BuildQemuInstance demand = demands.get(id);
+            memoryCommitted -= demand.memory();
+            cpuCommitted -= demand.cpus();
+            notifyAll();
+        }
+    }
+
+    /**
+     * It releases the capacity committed to an instance and forgets its
+     * demand. It should be used once the instance leaves the manager.
+     *
+     * @param id the identification of the instance to forget.
+     */
+    public synchronized void forget(InstanceID id) {
+        release(id);
+        demands.remove(id);
+    }
+
+    /**
+     * It provides the capacity that is still available to new instances.
+     *
+     * @return the current {@link Headroom}.
+     */
+    public synchronized Headroom headroom() {
+        return Headroom.create(memoryCapacity, memoryCommitted, cpuCapacity, cpuCommitted);
+    }
+
+    /**
+     * It builds the failure of a launch that does not fit.
+     *
+     * @param memory the guest memory requested.
+     * @param cpus the virtual CPUs requested.
+     * @return a {@link Fail} due to {@link Reason#INSUFFICIENT_CAPACITY}.
+     */
+    private ExecutionResult refuse(long memory, long cpus) {
+        Headroom headroom = headroom();
+        return Fail.because(Reason.INSUFFICIENT_CAPACITY, "requested " + memory + " MiB and " + cpus
+                + " vcpus, available " + headroom.memory() + " MiB and " + headroom.cpus() + " vcpus");
+    }
+
+    /**
+     * It reads the physical memory of the host from the
+     * {@link AdmissionController#MEMINFO_FILE}. If it is not available (the
+     * host is not Linux), the operating system bean is asked instead.
+     *
+     * @return the physical memory of the host in MiB.
+     */
+    private static long hostMemory() {
+        try (BufferedReader reader = new BufferedReader(new FileReader(MEMINFO_FILE))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.startsWith(MEMINFO_TOTAL_KEY)) {
+                    String[] fields = line.substring(MEMINFO_TOTAL_KEY.length()).trim().split("\\s+");
+                    return Long.parseLong(fields[0]) / 1024;
+                }
+            }
+        } catch (IOException | NumberFormatException ex) {
+            Log.fine("{0}", ex);
+        }
+        OperatingSystemMXBean bean = ManagementFactory.getOperatingSystemMXBean();
+        if (bean instanceof com.sun.management.OperatingSystemMXBean) {
+            return ((com.sun.management.OperatingSystemMXBean) bean).getTotalMemorySize() / (1024 * 1024);
+        }
+        return 0;
+    }
+
+}
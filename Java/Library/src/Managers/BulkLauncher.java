@@ -0,0 +1,296 @@
+/*
+ *                      QEMU INSTANCES MANAGER LIBRARY
+ *                                Java Version
+ * 
+ * PRODUCT OWNER: Research Centre in Real-Time & Embedded Computing Systems
+ * PROJECT MANAGER: Luís Pinho and Cláudio Maia {lmn,clrrm}@isep.ipp.pt
+ * DEVELOPER: Manuel Meireles ( mjcdm@isep.ipp.pt )
+ * DATE: 24/11/2017
+ * SCOPE: CISTER Summer Internship 2017
+ * VERSION: 1.0
+ */
+package Managers;
+
+import Commands.Command;
+import Commands.QueryStatusQMP;
+import Communications.Creation;
+import Communications.ExecutionResult;
+import Communications.Fail;
+import Communications.Fail.Reason;
+import Communications.LaunchReport;
+import Communications.ListResult;
+import Communications.MapResult;
+import Configurations.Log;
+import Configurations.Settings;
+import Instances.InstanceID;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A throttled launcher of many instances. At most a window of launches run at
+ * the same time and new launches are started no faster than the ramp rate, so
+ * that a launch storm does not hammer the disk and the CPUs of the host all at
+ * once. A launch ends once the QMP monitor of the instance answers, so that
+ * its time-to-ready spans the spawn of the process, the capabilities
+ * negotiation and the first command.
+ *
+ * @see InstanceManager#startInstances(java.util.List, int, double,
+ * Managers.LaunchListener)
+ * @author Manuel Meireles ( mjcdm@isep.ipp.pt )
+ */
+public class BulkLauncher {
+
+    /**
+     * The number of nanoseconds in a second.
+     */
+    private static final long NANOS_PER_SECOND = 1000000000L;
+
+    /**
+     * The time, in milliseconds, between the attempts to reach the QMP
+     * monitor of a launched instance. While the instance boots, the refused
+     * attempts are not recorded in its {@link Instances.CircuitBreaker}, so
+     * the time-to-ready is not stretched to the backoff of the breaker.
+     */
+    private static final long READY_POLL = 10;
+
+    /**
+     * The manager that starts each instance.
+     */
+    private final InstanceManager manager;
+
+    /**
+     * The maximum number of launches running at the same time.
+     */
+    private final int window;
+
+    /**
+     * The maximum number of launches started per second. A non positive rate
+     * means no ramp at all.
+     */
+    private final double rampRate;
+
+    /**
+     * The time, in milliseconds, the QMP monitor of each instance is given to
+     * answer.
+     */
+    private final long readyTimeout;
+
+    /**
+     * A private constructor that initializes the manager and the throttling.
+     * Despite no validation is made, the manager should not be null and the
+     * window should be positive.
+     *
+     * @param theManager the manager that starts each instance.
+     * @param theWindow the maximum number of concurrent launches.
+     * @param theRampRate the maximum number of launches started per second.
+     * @param theReadyTimeout the time given to each QMP monitor to answer.
+     */
+    private BulkLauncher(InstanceManager theManager, int theWindow, double theRampRate, long theReadyTimeout) {
+        manager = theManager;
+        window = theWindow;
+        rampRate = theRampRate;
+        readyTimeout = theReadyTimeout;
+    }
+
+    /**
+     * It builds a bulk launcher. A window lower than one is raised to one.
+     * The time given to each QMP monitor to answer is the one from the
+     * {@link Settings}.
+     *
+     * @param manager the manager that starts each instance.
+     * @param window the maximum number of concurrent launches.
+     * @param rampRate the maximum number of launches started per second (non
+     * positive for no ramp).
+     * @return the built bulk launcher.
+     */
+    public static BulkLauncher create(InstanceManager manager, int window, double rampRate) {
+        return new BulkLauncher(manager, Math.max(1, window), rampRate, Settings.getBulkLaunchReadyTimeout());
+    }
+
+    /**
+     * It builds and starts every instance through the manager, respecting the
+     * window and the ramp rate, and waits for the QMP monitor of each one to
+     * answer. Each launch claims its turn of the ramp once it runs, no sooner
+     * than an interval after the former one, so that the launches queued
+     * behind a full window do not start in a burst.
+     * The listener, if any, is notified as soon as each instance is ready.
+     * The launches already running are always waited for, even if the
+     * launch is interrupted, so that every started instance is reported.
+     *
+     * @param options the specifications of the instances to launch.
+     * @param listener the listener to notify of each launch. It may be null.
+     * @return a {@link LaunchReport} with the result of each launch in the
+     * order of the specifications.
+     */
+    public LaunchReport launch(List<Command> options, LaunchListener listener) {
+        ExecutionResult[] results = new ExecutionResult[options.size()];
+        long[] readyTimes = new long[options.size()];
+        AtomicInteger ready = new AtomicInteger(0);
+        ExecutorService executor = Executors.newFixedThreadPool(Math.min(window, Math.max(1, options.size())), runnable -> {
+            Thread thread = new Thread(runnable, "bulk-launcher");
+            thread.setDaemon(true);
+            return thread;
+        });
+        CompletionService<Integer> completion = new ExecutorCompletionService<>(executor);
+        long interval = rampRate > 0 ? (long) (NANOS_PER_SECOND / rampRate) : 0;
+        long begin = System.nanoTime();
+        AtomicLong next = new AtomicLong(begin);
+        for (int i = 0; i < options.size(); i++) {
+            final int index = i;
+            completion.submit(() -> {
+                long turn = next.accumulateAndGet(System.nanoTime(), (former, now) -> Math.max(former, now) + interval)
+                        - interval;
+                try {
+                    pace(turn);
+                } catch (InterruptedException ex) {
+                    return index;
+                }
+                Command spec = options.get(index);
+                long start = System.nanoTime();
+                ExecutionResult result;
+                try {
+                    result = start(spec, start + TimeUnit.MILLISECONDS.toNanos(readyTimeout));
+                } catch (RuntimeException ex) {
+                    Log.severe("{0}", ex);
+                    result = Fail.because(Reason.WRONG_EXEC, ex.toString());
+                }
+                long readyTime = System.nanoTime() - start;
+                results[index] = result;
+                if (result.wasSuccessful()) {
+                    readyTimes[ready.getAndIncrement()] = readyTime;
+                }
+                if (listener != null) {
+                    listener.launched(spec, result, readyTime);
+                }
+                return index;
+            });
+        }
+        boolean interrupted = false;
+        try {
+            for (int i = 0; i < options.size(); i++) {
+                try {
+                    completion.take().get();
+                } catch (ExecutionException ex) {
+                    Log.severe("{0}", ex);
+                }
+            }
+        } catch (InterruptedException ex) {
+            interrupted = true;
+            // The queued launches are dropped, the running ones finish.
+            executor.shutdownNow();
+        }
+        executor.shutdown();
+        while (true) {
+            try {
+                executor.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+                break;
+            } catch (InterruptedException ex) {
+                interrupted = true;
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+        long elapsed = System.nanoTime() - begin;
+        List<ExecutionResult> ordered = new ArrayList<>(results.length);
+        for (ExecutionResult result : results) {
+            ordered.add(result == null ? Fail.because(Reason.WRONG_EXEC, "not launched") : result);
+        }
+        return LaunchReport.create(ordered, Arrays.copyOf(readyTimes, ready.get()), elapsed);
+    }
+
+    /**
+     * It builds and starts an instance and waits for its QMP monitor to
+     * answer. An instance whose monitor does not answer in time is shut down,
+     * so that a failed launch leaves nothing running behind.
+     *
+     * @param spec the specification of the instance.
+     * @param deadline the {@link System#nanoTime()} by which the monitor has
+     * to answer.
+     * @return <ul><li>the execution result of
+     * {@link InstanceManager#executeInstance(Instances.InstanceID)} once the
+     * monitor answered;</li><li>the failed execution result of
+     * {@link InstanceManager#buildInstance(Commands.Command)} or of
+     * {@link InstanceManager#executeInstance(Instances.InstanceID)};</li>
+     * <li>the failure of the last attempt to reach the monitor;</li></ul>
+     */
+    private ExecutionResult start(Command spec, long deadline) {
+        ExecutionResult result = manager.buildInstance(spec);
+        if (!(result instanceof Creation) || !result.wasSuccessful()) {
+            return result;
+        }
+        InstanceID id = ((Creation) result).id();
+        result = manager.executeInstance(id);
+        if (!result.wasSuccessful()) {
+            return result;
+        }
+        Map<InstanceID, List<Command>> query = new TreeMap<>();
+        query.put(id, Collections.singletonList(QueryStatusQMP.create()));
+        while (true) {
+            ExecutionResult answer = reply(manager.executeCommands(query));
+            if (answer.wasSuccessful()) {
+                return result;
+            }
+            boolean off = answer instanceof Fail && ((Fail) answer).reason() == Reason.QEMU_INSTANCE_IS_OFF;
+            if (off || deadline - System.nanoTime() <= 0) {
+                manager.shutdownInstance(id);
+                return off ? answer : Fail.because(Reason.WRONG_EXEC, "The QMP monitor did not answer within "
+                        + readyTimeout + " ms: " + answer.description());
+            }
+            try {
+                TimeUnit.MILLISECONDS.sleep(READY_POLL);
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                return result;
+            }
+        }
+    }
+
+    /**
+     * It finds the reply to the single command of a batch.
+     *
+     * @param batch the result of the batch.
+     * @return the reply or the result of the batch if it holds none.
+     */
+    private static ExecutionResult reply(ExecutionResult batch) {
+        if (batch instanceof MapResult) {
+            for (Object replies : ((MapResult<?, ?>) batch).map().values()) {
+                if (replies instanceof ListResult) {
+                    for (Object reply : ((ListResult<?>) replies).items()) {
+                        if (reply instanceof ExecutionResult) {
+                            return (ExecutionResult) reply;
+                        }
+                    }
+                }
+            }
+        }
+        return batch;
+    }
+
+    /**
+     * It waits until the given instant, so that launches are started no
+     * faster than the ramp rate.
+     *
+     * @param instant the {@link System#nanoTime()} to wait for.
+     * @throws InterruptedException if the waiting is interrupted.
+     */
+    private void pace(long instant) throws InterruptedException {
+        long delay = instant - System.nanoTime();
+        if (delay > 0) {
+            TimeUnit.NANOSECONDS.sleep(delay);
+        }
+    }
+
+}
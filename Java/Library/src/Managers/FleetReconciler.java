@@ -0,0 +1,463 @@
+/*
+ *                      QEMU INSTANCES MANAGER LIBRARY
+ *                                Java Version
+ * 
+ * PRODUCT OWNER: Research Centre in Real-Time & Embedded Computing Systems
+ * PROJECT MANAGER: Luís Pinho and Cláudio Maia {lmn,clrrm}@isep.ipp.pt
+ * DEVELOPER: Manuel Meireles ( mjcdm@isep.ipp.pt )
+ * DATE: 24/11/2017
+ * SCOPE: CISTER Summer Internship 2017
+ * VERSION: 1.0
+ */
+package Managers;
+
+import Commands.BuildQemuInstance;
+import Commands.Command;
+import Communications.ExecutionResult;
+import Communications.Fail;
+import Communications.Fail.Reason;
+import Communications.ListResult;
+import Communications.MapResult;
+import Configurations.Log;
+import Configurations.Settings;
+import Instances.Instance;
+import Instances.InstanceID;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * A reconciler of the desired state of fleets of instances. The desired state
+ * is read from a properties file, such as:
+ * <pre>
+ * profile.small=qemu-system-x86_64 -m 256 -smp 1
+ * fleet.web.count=3
+ * fleet.web.profile=small
+ * fleet.web.options=-hda web.qcow2
+ * fleet.web.tags=role=web,env=prod
+ * </pre>
+ * Each fleet is a number of identical instances, whose options are the ones
+ * of its profile (the QEMU binary and the common parameters) followed by its
+ * own, and whose tags are given to every
+ * member. The members of a fleet are recognized by the
+ * {@link FleetReconciler#FLEET_TAG} and {@link FleetReconciler#SPEC_TAG}
+ * tags. On each reconciliation the desired state is compared with the live
+ * instances and only the minimal actions are applied, in parallel: members
+ * that are missing are started, exited members are restarted, surplus or
+ * outdated members are shut down (or, if they already exited, released from
+ * the fleet) and members with other tags are retagged.
+ * The file may be watched so that every change is converged to.
+ *
+ * @see InstanceManager
+ * @author Manuel Meireles ( mjcdm@isep.ipp.pt )
+ */
+public class FleetReconciler implements AutoCloseable {
+
+    /**
+     * The tag that holds the name of the fleet of an instance.
+     */
+    public static final String FLEET_TAG = "fleet";
+
+    /**
+     * The tag that holds the fingerprint of the options of an instance, so
+     * that members launched from outdated options are recognized.
+     */
+    public static final String SPEC_TAG = "fleet_spec";
+
+    /**
+     * The prefix of the properties that define a profile.
+     */
+    private static final String PROFILE_PREFIX = "profile.";
+
+    /**
+     * The prefix of the properties that define a fleet.
+     */
+    private static final String FLEET_PREFIX = "fleet.";
+
+    /**
+     * The time, in milliseconds, to let a burst of file changes settle before
+     * reconciling.
+     */
+    private static final long SETTLE_TIME = 200;
+
+    /**
+     * The manager whose instances are reconciled.
+     */
+    private final InstanceManager manager;
+
+    /**
+     * The path of the desired state file.
+     */
+    private final Path file;
+
+    /**
+     * The thread that watches the desired state file. It is null if the file
+     * is not being watched.
+     */
+    private Thread watcher;
+
+    /**
+     * The service that notifies the changes of the desired state file.
+     */
+    private WatchService watchService;
+
+    /**
+     * The desired state of one fleet.
+     */
+    private static class Fleet {
+
+        /**
+         * The number of members.
+         */
+        private int count;
+
+        /**
+         * The options of each member.
+         */
+        private String options;
+
+        /**
+         * The tags of each member, including the reserved ones.
+         */
+        private final Map<String, String> tags = new TreeMap<>();
+
+    }
+
+    /**
+     * A private constructor that initializes the manager and the file.
+     * Despite no validation is made, none of the parameters should be null.
+     *
+     * @param theManager the manager whose instances are reconciled.
+     * @param theFile the path of the desired state file.
+     */
+    private FleetReconciler(InstanceManager theManager, Path theFile) {
+        manager = theManager;
+        file = theFile;
+        watcher = null;
+        watchService = null;
+    }
+
+    /**
+     * It builds a reconciler of the desired state file with the given path
+     * and name. Despite no validation is made, none of the parameters should
+     * be null.
+     *
+     * @param manager the manager whose instances are reconciled.
+     * @param file the path followed by the desired state file name.
+     * @return the built reconciler.
+     */
+    public static FleetReconciler create(InstanceManager manager, String file) {
+        return new FleetReconciler(manager, Paths.get(file).toAbsolutePath());
+    }
+
+    /**
+     * It reads the desired state file and applies the minimal actions to
+     * converge the live instances to it.
+     *
+     * @return <ul><li>a {@link MapResult} where the keys describe each action
+     * and the values its result;</li><li>a {@link Fail} due to
+     * {@link Reason#FILE_UNAVAILABLE};</li></ul>
+     */
+    public synchronized ExecutionResult reconcile() {
+        Log.entering(getClass().getName(), "reconcile", file);
+        ExecutionResult result;
+        Map<String, Fleet> desired;
+        try {
+            desired = read();
+        } catch (IOException ex) {
+            result = Fail.because(Reason.FILE_UNAVAILABLE, ex.toString());
+            Log.exiting(getClass().getName(), "reconcile", result);
+            return result;
+        }
+        Map<String, List<Instance>> live = members();
+        List<InstanceID> stops = new ArrayList<>();
+        List<InstanceID> restarts = new ArrayList<>();
+        Map<InstanceID, Map<String, String>> retags = new TreeMap<>();
+        List<Command> starts = new ArrayList<>();
+        for (Map.Entry<String, List<Instance>> entry : live.entrySet()) {
+            if (!desired.containsKey(entry.getKey())) {
+                for (Instance instance : entry.getValue()) {
+                    if (instance.isAlive()) {
+                        stops.add(instance.id());
+                    } else {
+                        retags.put(instance.id(), released(instance));
+                    }
+                }
+            }
+        }
+        for (Map.Entry<String, Fleet> entry : desired.entrySet()) {
+            Fleet fleet = entry.getValue();
+            List<Instance> kept = new ArrayList<>();
+            List<Instance> members = live.get(entry.getKey());
+            if (members != null) {
+                for (Instance instance : members) {
+                    if (fleet.tags.get(SPEC_TAG).equals(instance.tags().get(SPEC_TAG)) && kept.size() < fleet.count) {
+                        kept.add(instance);
+                    } else if (instance.isAlive()) {
+                        stops.add(instance.id());
+                    } else {
+                        retags.put(instance.id(), released(instance));
+                    }
+                }
+            }
+            for (Instance instance : kept) {
+                if (!instance.isAlive()) {
+                    restarts.add(instance.id());
+                }
+                if (!instance.tags().equals(fleet.tags)) {
+                    retags.put(instance.id(), fleet.tags);
+                }
+            }
+            for (int i = kept.size(); i < fleet.count; i++) {
+                starts.add(BuildQemuInstance.command(fleet.options).tagged(fleet.tags));
+            }
+        }
+        result = MapResult.create(apply(stops, restarts, retags, starts));
+        Log.exiting(getClass().getName(), "reconcile", result);
+        return result;
+    }
+
+    /**
+     * It reconciles right away and then watches the desired state file,
+     * reconciling again whenever it changes.
+     *
+     * @return the execution result of the first
+     * {@link FleetReconciler#reconcile()} or a {@link Fail} due to
+     * {@link Reason#IO_EXCEPTION} if the file can not be watched.
+     */
+    public synchronized ExecutionResult watch() {
+        if (watcher != null) {
+            return reconcile();
+        }
+        try {
+            watchService = FileSystems.getDefault().newWatchService();
+            file.getParent().register(watchService, StandardWatchEventKinds.ENTRY_CREATE,
+                    StandardWatchEventKinds.ENTRY_MODIFY);
+        } catch (IOException ex) {
+            Log.severe("{0}", ex);
+            return Fail.because(Reason.IO_EXCEPTION, ex.toString());
+        }
+        watcher = new Thread(this::watchLoop, "fleet-reconciler");
+        watcher.setDaemon(true);
+        watcher.start();
+        return reconcile();
+    }
+
+    /**
+     * It stops watching the desired state file. The instances are left as
+     * they are.
+     */
+    @Override
+    public synchronized void close() {
+        if (watcher == null) {
+            return;
+        }
+        try {
+            watchService.close();
+        } catch (IOException ex) {
+            Log.severe("{0}", ex);
+        }
+        watcher.interrupt();
+        watcher = null;
+        watchService = null;
+    }
+
+    /**
+     * The loop of the watching thread. It waits for changes of the desired
+     * state file, lets them settle and reconciles. The changes signalled while
+     * settling are covered by that reconciliation, so their keys are drained
+     * and reset, which keeps them queued for the changes to come.
+     */
+    private void watchLoop() {
+        WatchService service = watchService;
+        try {
+            while (!Thread.currentThread().isInterrupted()) {
+                WatchKey key = service.take();
+                boolean changed = false;
+                for (WatchEvent<?> event : key.pollEvents()) {
+                    Object context = event.context();
+                    if (context instanceof Path && file.getFileName().equals(context)) {
+                        changed = true;
+                    }
+                }
+                key.reset();
+                if (changed) {
+                    Thread.sleep(SETTLE_TIME);
+                    for (WatchKey settled = service.poll(); settled != null; settled = service.poll()) {
+                        settled.pollEvents();
+                        settled.reset();
+                    }
+                    Log.info("Desired state changed: {0}", reconcile());
+                }
+            }
+        } catch (InterruptedException | ClosedWatchServiceException ex) {
+            Log.fine("Stopped watching {0}", file);
+        }
+    }
+
+    /**
+     * It reads the fleets from the desired state file.
+     *
+     * @return a map where the keys are the fleet names and the values their
+     * desired state.
+     * @throws IOException if the file can not be read.
+     */
+    private Map<String, Fleet> read() throws IOException {
+        Properties properties = new Properties();
+        try (InputStream input = new FileInputStream(file.toFile())) {
+            properties.load(input);
+        }
+        Map<String, Fleet> fleets = new TreeMap<>();
+        for (String key : properties.stringPropertyNames()) {
+            if (!key.startsWith(FLEET_PREFIX) || !key.endsWith(".count")) {
+                continue;
+            }
+            String name = key.substring(FLEET_PREFIX.length(), key.length() - ".count".length());
+            String prefix = FLEET_PREFIX + name + ".";
+            Fleet fleet = new Fleet();
+            try {
+                fleet.count = Math.max(0, Integer.parseInt(properties.getProperty(key).trim()));
+            } catch (NumberFormatException ex) {
+                Log.warning("Ignoring fleet {0} with count {1}", name, properties.getProperty(key));
+                continue;
+            }
+            String profile = properties.getProperty(prefix + "profile", "").trim();
+            String options = (properties.getProperty(PROFILE_PREFIX + profile, "") + " "
+                    + properties.getProperty(prefix + "options", "")).trim();
+            fleet.options = options;
+            for (String tag : properties.getProperty(prefix + "tags", "").split(",")) {
+                String[] pair = tag.split("=", 2);
+                if (!pair[0].trim().isEmpty()) {
+                    fleet.tags.put(pair[0].trim(), pair.length > 1 ? pair[1].trim() : "");
+                }
+            }
+            fleet.tags.put(FLEET_TAG, name);
+            fleet.tags.put(SPEC_TAG, Integer.toHexString(options.hashCode()));
+            fleets.put(name, fleet);
+        }
+        return fleets;
+    }
+
+    /**
+     * It groups the live instances by the fleet they belong to. Instances
+     * without the {@link FleetReconciler#FLEET_TAG} are not managed by the
+     * reconciler and are left out.
+     *
+     * @return a map where the keys are the fleet names and the values their
+     * members, running ones first and then sorted by identity.
+     */
+    private Map<String, List<Instance>> members() {
+        Map<String, List<Instance>> fleets = new TreeMap<>();
+        ExecutionResult listing = manager.listInstances();
+        if (!(listing instanceof ListResult)) {
+            return fleets;
+        }
+        List<Instance> instances = new ArrayList<>();
+        for (Object item : ((ListResult<?>) listing).items()) {
+            if (item instanceof Instance) {
+                instances.add((Instance) item);
+            }
+        }
+        instances.sort((one, other) -> one.isAlive() == other.isAlive() ? one.compareTo(other) : (one.isAlive() ? -1 : 1));
+        for (Instance instance : instances) {
+            String fleet = instance.tags().get(FLEET_TAG);
+            if (fleet != null) {
+                fleets.computeIfAbsent(fleet, name -> new ArrayList<>()).add(instance);
+            }
+        }
+        return fleets;
+    }
+
+    /**
+     * It builds the tags of an exited instance that leaves its fleet, i.e. its
+     * tags without the reserved ones.
+     *
+     * @param instance the instance to release.
+     * @return the tags of the released instance.
+     */
+    private static Map<String, String> released(Instance instance) {
+        Map<String, String> tags = new TreeMap<>(instance.tags());
+        tags.remove(FLEET_TAG);
+        tags.remove(SPEC_TAG);
+        return tags;
+    }
+
+    /**
+     * It applies the actions in parallel. Stops go first, so that the capacity
+     * they free is available to the starts.
+     *
+     * @param stops the instances to shut down.
+     * @param restarts the exited instances to start again.
+     * @param retags the instances to retag (or release) and their new tags.
+     * @param starts the specifications of the instances to start.
+     * @return a map where the keys describe each action and the values its
+     * result.
+     */
+    private Map<String, ExecutionResult> apply(List<InstanceID> stops, List<InstanceID> restarts,
+            Map<InstanceID, Map<String, String>> retags, List<Command> starts) {
+        Map<String, ExecutionResult> results = new TreeMap<>();
+        ExecutorService executor = Executors.newFixedThreadPool(Math.max(1, Settings.getBulkLaunchWindow()), runnable -> {
+            Thread thread = new Thread(runnable, "fleet-reconciler-action");
+            thread.setDaemon(true);
+            return thread;
+        });
+        try {
+            Map<String, Future<ExecutionResult>> pending = new TreeMap<>();
+            for (InstanceID id : stops) {
+                pending.put("stop " + id, executor.submit(() -> manager.shutdownInstance(id)));
+            }
+            collect(pending, results);
+            for (InstanceID id : restarts) {
+                pending.put("restart " + id, executor.submit(() -> manager.executeInstance(id)));
+            }
+            for (Map.Entry<InstanceID, Map<String, String>> retag : retags.entrySet()) {
+                pending.put("retag " + retag.getKey(), executor.submit(() -> manager.retagInstance(retag.getKey(), retag.getValue())));
+            }
+            collect(pending, results);
+        } finally {
+            executor.shutdownNow();
+        }
+        if (!starts.isEmpty()) {
+            results.put("start " + starts.size(), manager.startInstances(starts));
+        }
+        return results;
+    }
+
+    /**
+     * It waits for the pending actions and moves their results.
+     *
+     * @param pending the pending actions, which are cleared.
+     * @param results the results of the actions.
+     */
+    private void collect(Map<String, Future<ExecutionResult>> pending, Map<String, ExecutionResult> results) {
+        for (Map.Entry<String, Future<ExecutionResult>> entry : pending.entrySet()) {
+            try {
+                results.put(entry.getKey(), entry.getValue().get());
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                results.put(entry.getKey(), Fail.because(Reason.WRONG_EXEC, "interrupted"));
+            } catch (ExecutionException ex) {
+                results.put(entry.getKey(), Fail.because(Reason.WRONG_EXEC, ex.getCause().toString()));
+            }
+        }
+        pending.clear();
+    }
+
+}
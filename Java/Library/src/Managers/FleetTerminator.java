@@ -0,0 +1,222 @@
+/*
+ *                      QEMU INSTANCES MANAGER LIBRARY
+ *                                Java Version
+ * 
+ * PRODUCT OWNER: Research Centre in Real-Time & Embedded Computing Systems
+ * PROJECT MANAGER: Luís Pinho and Cláudio Maia {lmn,clrrm}@isep.ipp.pt
+ * DEVELOPER: Manuel Meireles ( mjcdm@isep.ipp.pt )
+ * DATE: 24/11/2017
+ * SCOPE: CISTER Summer Internship 2017
+ * VERSION: 1.0
+ */
+package Managers;
+
+import Commands.Command;
+import Commands.PowerdownQMP;
+import Commands.ShutdownQMP;
+import Communications.ExecutionResult;
+import Communications.Termination;
+import Communications.Termination.Stage;
+import Configurations.Log;
+import Configurations.Settings;
+import Instances.Instance;
+import Instances.InstanceID;
+import java.util.Collection;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A concurrent terminator of a fleet of instances. Every instance is
+ * terminated in parallel by escalating through the {@link Stage}s: an
+ * optional QMP «system_powerdown», a QMP «quit», a SIGTERM and, at last, a
+ * SIGKILL. Each stage waits for the process to actually exit before moving on
+ * and the whole termination is bounded by a global deadline, so an
+ * unresponsive guest can neither delay the others nor be leaked silently.
+ *
+ * @see QemuInstancesManager#shutdown(long, long)
+ * @author Manuel Meireles ( mjcdm@isep.ipp.pt )
+ */
+public class FleetTerminator {
+
+    /**
+     * The minimum time, in milliseconds, to wait for a killed process to exit,
+     * even if the global deadline has already passed.
+     */
+    private static final long KILL_WAIT = 500;
+
+    /**
+     * The time, in milliseconds, the whole termination may take.
+     */
+    private final long deadline;
+
+    /**
+     * The time, in milliseconds, the guests are given to power down. Zero
+     * skips the graceful phase.
+     */
+    private final long powerdownGrace;
+
+    /**
+     * The time, in milliseconds, the processes are given to exit after a QMP
+     * «quit».
+     */
+    private final long quitGrace;
+
+    /**
+     * The time, in milliseconds, the processes are given to exit after a
+     * SIGTERM.
+     */
+    private final long termGrace;
+
+    /**
+     * A private constructor that initializes the deadline and the grace of
+     * each stage. Despite no validation is made, none of the values should be
+     * negative.
+     *
+     * @param theDeadline the time the whole termination may take.
+     * @param thePowerdownGrace the time given to the guests to power down.
+     * @param theQuitGrace the time given to exit after a QMP «quit».
+     * @param theTermGrace the time given to exit after a SIGTERM.
+     */
+    private FleetTerminator(long theDeadline, long thePowerdownGrace, long theQuitGrace, long theTermGrace) {
+        deadline = theDeadline;
+        powerdownGrace = thePowerdownGrace;
+        quitGrace = theQuitGrace;
+        termGrace = theTermGrace;
+    }
+
+    /**
+     * It builds a fleet terminator with the grace of the QMP «quit» and of
+     * the SIGTERM stages from the {@link Settings}.
+     *
+     * @param deadline the time, in milliseconds, the whole termination may
+     * take.
+     * @param powerdownGrace the time, in milliseconds, given to the guests to
+     * power down (zero to skip the graceful phase).
+     * @return the built fleet terminator.
+     */
+    public static FleetTerminator create(long deadline, long powerdownGrace) {
+        return new FleetTerminator(Math.max(0, deadline), Math.max(0, powerdownGrace),
+                Settings.getShutdownQuitGrace(), Settings.getShutdownTermGrace());
+    }
+
+    /**
+     * It terminates every instance in parallel and waits until all of them
+     * have exited or were given up as leaked.
+     *
+     * @param instances the instances to terminate.
+     * @return a map where the keys are the identification of the instances and
+     * the values their {@link Termination}.
+     */
+    public Map<InstanceID, ExecutionResult> terminate(Collection<Instance> instances) {
+        Map<InstanceID, ExecutionResult> results = new TreeMap<>();
+        if (instances.isEmpty()) {
+            return results;
+        }
+        ExecutorService executor = Executors.newCachedThreadPool(runnable -> {
+            Thread thread = new Thread(runnable, "fleet-terminator");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long end = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(deadline);
+        Map<InstanceID, Future<Termination>> pending = new TreeMap<>();
+        for (Instance instance : instances) {
+            pending.put(instance.id(), executor.submit(() -> terminate(instance, end, executor)));
+        }
+        for (Map.Entry<InstanceID, Future<Termination>> entry : pending.entrySet()) {
+            try {
+                results.put(entry.getKey(), entry.getValue().get());
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                results.put(entry.getKey(), Termination.create(Stage.LEAKED, 0));
+            } catch (ExecutionException ex) {
+                Log.severe("{0}", ex);
+                results.put(entry.getKey(), Termination.create(Stage.LEAKED, 0));
+            }
+        }
+        executor.shutdownNow();
+        return results;
+    }
+
+    /**
+     * It terminates one instance by escalating through the stages until its
+     * process exits.
+     *
+     * @param instance the instance to terminate.
+     * @param end the {@link System#nanoTime()} of the global deadline.
+     * @param executor the executor on which the QMP commands are sent, so that
+     * an unresponsive monitor does not block the escalation.
+     * @return the {@link Termination} of the instance.
+     */
+    private Termination terminate(Instance instance, long end, ExecutorService executor) {
+        long start = System.nanoTime();
+        if (!instance.isAlive()) {
+            return Termination.create(Stage.ALREADY_EXITED, System.nanoTime() - start);
+        }
+        Future<ExecutionResult> powerdown = null;
+        if (powerdownGrace > 0) {
+            powerdown = request(instance, PowerdownQMP.create(), executor);
+            if (instance.awaitExit(budget(powerdownGrace, end))) {
+                return Termination.create(Stage.POWERDOWN, System.nanoTime() - start);
+            }
+        }
+        Future<ExecutionResult> quit = request(instance, ShutdownQMP.create(), executor);
+        if (instance.awaitExit(budget(quitGrace, end))) {
+            return Termination.create(Stage.QUIT, System.nanoTime() - start);
+        }
+        instance.destroy(false);
+        if (instance.awaitExit(budget(termGrace, end))) {
+            return Termination.create(Stage.SIGTERM, System.nanoTime() - start);
+        }
+        instance.destroy(true);
+        if (instance.awaitExit(Math.max(KILL_WAIT, remaining(end)))) {
+            return Termination.create(Stage.SIGKILL, System.nanoTime() - start);
+        }
+        quit.cancel(true);
+        if (powerdown != null) {
+            powerdown.cancel(true);
+        }
+        return Termination.create(Stage.LEAKED, System.nanoTime() - start);
+    }
+
+    /**
+     * It sends a QMP command to the instance without waiting for the reply.
+     * The «system_powerdown» and the «quit» are {@link Command.Priority#HIGH}
+     * commands, so they go through the urgent lane of the mailbox of the
+     * instance, ahead of the commands queued by others.
+     *
+     * @param instance the instance to which the command is sent.
+     * @param command the command to send.
+     * @param executor the executor on which the command is sent.
+     * @return the pending reply.
+     */
+    private Future<ExecutionResult> request(Instance instance, Command command, ExecutorService executor) {
+        return executor.submit(() -> instance.execute(command));
+    }
+
+    /**
+     * It bounds the grace of a stage by the time left until the deadline.
+     *
+     * @param grace the grace of the stage, in milliseconds.
+     * @param end the {@link System#nanoTime()} of the global deadline.
+     * @return the time to wait, in milliseconds.
+     */
+    private long budget(long grace, long end) {
+        return Math.min(grace, remaining(end));
+    }
+
+    /**
+     * It provides the time left until the deadline.
+     *
+     * @param end the {@link System#nanoTime()} of the global deadline.
+     * @return the time left, in milliseconds, or zero if it has passed.
+     */
+    private long remaining(long end) {
+        return Math.max(0, TimeUnit.NANOSECONDS.toMillis(end - System.nanoTime()));
+    }
+
+}
@@ -13,6 +13,7 @@ package Managers;
 
 import Commands.Command;
 import Communications.ExecutionResult;
+import Events.EventBus;
 import Instances.Instance;
 import Instances.InstanceID;
 import java.util.List;
@@ -36,6 +37,31 @@ public interface InstanceManager {
      */
     ExecutionResult startInstance(Command options);
 
+    /**
+     * It starts many instances, throttled by the default window and ramp rate.
+     *
+     * @param options the specifications of the instances to launch.
+     * @return a report with the result of each launch, the launch throughput
+     * and the time-to-ready percentiles.
+     */
+    ExecutionResult startInstances(List<Command> options);
+
+    /**
+     * It starts many instances in parallel, throttled so that at most a window
+     * of launches run at the same time and no more than the ramp rate are
+     * started per second.
+     *
+     * @param options the specifications of the instances to launch.
+     * @param window the maximum number of concurrent launches.
+     * @param rampRate the maximum number of launches started per second (non
+     * positive for no ramp).
+     * @param listener the listener to notify as soon as each instance is
+     * ready. It may be null.
+     * @return a report with the result of each launch, the launch throughput
+     * and the time-to-ready percentiles.
+     */
+    ExecutionResult startInstances(List<Command> options, int window, double rampRate, LaunchListener listener);
+
     /**
      * It only builds an instance.
      *
@@ -84,6 +110,28 @@ public interface InstanceManager {
      */
     ExecutionResult shutdownInstance(InstanceID id);
 
+    /**
+     * It replaces the tags of an existing instance.
+     *
+     * @param id the identification of the existing instance to retag.
+     * @param tags the new tags of the instance.
+     * @return a success execution result or a fail if a parameter is null or
+     * the identity is not found.
+     */
+    ExecutionResult retagInstance(InstanceID id, Map<String, String> tags);
+
+    /**
+     * It live migrates an existing instance to a new QEMU, which takes its
+     * place under the same identification once the migration completes. The
+     * progress is published on the {@link InstanceManager#events()}.
+     *
+     * @param id the identification of the existing instance to migrate.
+     * @param target the address on which the destination listens.
+     * @return the final status of the migration or a fail if a parameter is
+     * null, the identity is not found or the migration failed.
+     */
+    ExecutionResult migrateInstance(InstanceID id, String target);
+
     /**
      * It lists the existing instances in the manager.
      *
@@ -91,6 +139,13 @@ public interface InstanceManager {
      */
     ExecutionResult listInstances();
 
+    /**
+     * It provides the host capacity that is still available to new instances.
+     *
+     * @return the free guest memory and virtual CPUs of the host.
+     */
+    ExecutionResult headroom();
+
     /**
      * It executes a list of commands to each of the instances.
      *
@@ -107,11 +162,32 @@ public interface InstanceManager {
      * It shuts down all the instances within the manager and then it shuts down
      * the manager itself.
      *
-     * @return a list with the execution result of each instance {@link InstanceManager#shutdownInstance(Instances.InstanceID)
-     * } request.
+     * @return a map with how each instance was terminated.
      */
     ExecutionResult shutdown();
 
+    /**
+     * It shuts down all the instances within the manager concurrently, within
+     * a global deadline, and then it shuts down the manager itself. Each
+     * instance is escalated from an optional power down to a QMP «quit», a
+     * SIGTERM and a SIGKILL until its process actually exits.
+     *
+     * @param deadline the time, in milliseconds, the whole shutdown may take.
+     * @param powerdownGrace the time, in milliseconds, given to the guests to
+     * power down (zero to skip the graceful phase).
+     * @return a map where the keys are the identification of the instances
+     * and the values how and when each one was terminated.
+     */
+    ExecutionResult shutdown(long deadline, long powerdownGrace);
+
+    /**
+     * A getter of the bus on which the manager publishes what happens to its
+     * instances.
+     *
+     * @return the event bus of the manager.
+     */
+    EventBus events();
+
     /**
      * It loads the configurations from the file at the specified path and name.
      *
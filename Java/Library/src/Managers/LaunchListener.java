@@ -0,0 +1,39 @@
+/*
+ *                      QEMU INSTANCES MANAGER LIBRARY
+ *                                Java Version
+ * 
+ * PRODUCT OWNER: Research Centre in Real-Time & Embedded Computing Systems
+ * PROJECT MANAGER: Luís Pinho and Cláudio Maia {lmn,clrrm}@isep.ipp.pt
+ * DEVELOPER: Manuel Meireles ( mjcdm@isep.ipp.pt )
+ * DATE: 24/11/2017
+ * SCOPE: CISTER Summer Internship 2017
+ * VERSION: 1.0
+ */
+package Managers;
+
+import Commands.Command;
+import Communications.ExecutionResult;
+
+/**
+ * The interface of a listener of a bulk launch. It is notified as soon as each
+ * instance is ready (or failed), without waiting for the rest of the launch.
+ *
+ * @see InstanceManager#startInstances(java.util.List, int, double,
+ * Managers.LaunchListener)
+ * @author Manuel Meireles ( mjcdm@isep.ipp.pt )
+ */
+public interface LaunchListener {
+
+    /**
+     * It is called once an instance of the bulk launch is ready or failed. It
+     * may be called concurrently from several launching threads.
+     *
+     * @param options the specification of the launched instance.
+     * @param result the execution result of the launch, which succeeds once
+     * the QMP monitor of the instance answered.
+     * @param readyTime the time, in nanoseconds, the launch took, from the
+     * build of the instance until its QMP monitor answered.
+     */
+    void launched(Command options, ExecutionResult result, long readyTime);
+
+}
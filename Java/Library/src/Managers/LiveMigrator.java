@@ -0,0 +1,404 @@
+/*
+ *                      QEMU INSTANCES MANAGER LIBRARY
+ *                                Java Version
+ * 
+ * PRODUCT OWNER: Research Centre in Real-Time & Embedded Computing Systems
+ * PROJECT MANAGER: Luís Pinho and Cláudio Maia {lmn,clrrm}@isep.ipp.pt
+ * DEVELOPER: Manuel Meireles ( mjcdm@isep.ipp.pt )
+ * DATE: 24/11/2017
+ * SCOPE: CISTER Summer Internship 2017
+ * VERSION: 1.0
+ */
+package Managers;
+
+import Commands.BuildQemuInstance;
+import Commands.Command;
+import Commands.MigrateCancelQMP;
+import Commands.MigrateIncomingQMP;
+import Commands.MigrateQMP;
+import Commands.MigrateSetCapabilitiesQMP;
+import Commands.MigrateSetParametersQMP;
+import Commands.MigrateStartPostcopyQMP;
+import Commands.QueryMigrateQMP;
+import Communications.ExecutionResult;
+import Communications.Fail;
+import Communications.Fail.Reason;
+import Communications.MigrationStatus;
+import Configurations.Log;
+import Configurations.Settings;
+import Instances.QemuInstance;
+import Parsers.JSONReader;
+import Profiling.TimeoutEvent;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.NetworkInterface;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * An orchestrator of the live migration of an instance. It launches a
+ * destination QEMU with «-incoming», tunes both sides with
+ * «migrate-set-capabilities» and «migrate-set-parameters» (bandwidth,
+ * downtime limit, multifd channels and postcopy), drives the «migrate» of the
+ * source and polls «query-migrate» until the migration ends, reporting every
+ * snapshot of the progress to a {@link MigrationListener}. Once completed, the
+ * listener is told to let the destination take over and the source is
+ * terminated; otherwise the destination is discarded and the guest keeps
+ * running on the source.
+ * <br/><br/>
+ * The destination is launched by this manager, so it runs on this host and
+ * listens on the given local address, e.g. the loopback interface. Only local
+ * migration is supported: a target that is not an address of this host is
+ * rejected, since the destination could neither listen on it nor leave the
+ * host.
+ *
+ * @see QemuInstancesManager#migrateInstance(Instances.InstanceID,
+ * java.lang.String)
+ * @author Manuel Meireles ( mjcdm@isep.ipp.pt )
+ */
+public class LiveMigrator {
+
+    /**
+     * The status of a migration that is switching to postcopy or already in
+     * it.
+     */
+    private static final String POSTCOPY_STATUS_PREFIX = "postcopy";
+
+    /**
+     * The number of passes over the memory after which the migration switches
+     * to postcopy, if allowed.
+     */
+    private static final long POSTCOPY_AFTER_PASSES = 2;
+
+    /**
+     * The maximum bandwidth, in MiB per second. Zero keeps the QEMU default.
+     */
+    private final long bandwidth;
+
+    /**
+     * The maximum downtime, in milliseconds, at the switchover.
+     */
+    private final long downtimeLimit;
+
+    /**
+     * The number of multifd channels. Zero disables multifd.
+     */
+    private final int channels;
+
+    /**
+     * Whether the migration switches to postcopy after the first pass.
+     */
+    private final boolean postcopy;
+
+    /**
+     * The time, in milliseconds, between the progress queries.
+     */
+    private final long pollInterval;
+
+    /**
+     * The time, in milliseconds, the migration may take before it is
+     * cancelled.
+     */
+    private final long timeout;
+
+    /**
+     * A private constructor that initializes the tuning of the migration.
+     * Despite no validations are made, none of the values should be negative
+     * and the intervals should be positive.
+     *
+     * @param theBandwidth the maximum bandwidth.
+     * @param theDowntimeLimit the maximum downtime at the switchover.
+     * @param theChannels the number of multifd channels.
+     * @param thePostcopy whether the migration switches to postcopy.
+     * @param thePollInterval the time between the progress queries.
+     * @param theTimeout the time the migration may take.
+     */
+    private LiveMigrator(long theBandwidth, long theDowntimeLimit, int theChannels, boolean thePostcopy,
+            long thePollInterval, long theTimeout) {
+        bandwidth = theBandwidth;
+        downtimeLimit = theDowntimeLimit;
+        channels = theChannels;
+        postcopy = thePostcopy;
+        pollInterval = thePollInterval;
+        timeout = theTimeout;
+    }
+
+    /**
+     * It builds a live migrator with the tuning from the {@link Settings}.
+     *
+     * @return the built live migrator.
+     */
+    public static LiveMigrator create() {
+        return create(Settings.getMigrationBandwidth(), Settings.getMigrationDowntimeLimit(),
+                Settings.getMigrationMultifdChannels(), Settings.getMigrationPostcopy(),
+                Settings.getMigrationPollInterval(), Settings.getMigrationTimeout());
+    }
+
+    /**
+     * It builds a live migrator.
+     *
+     * @param bandwidth the maximum bandwidth, in MiB per second (zero keeps
+     * the QEMU default).
+     * @param downtimeLimit the maximum downtime, in milliseconds, at the
+     * switchover.
+     * @param channels the number of multifd channels (zero disables multifd).
+     * @param postcopy true to switch to postcopy after the first pass over the
+     * memory.
+     * @param pollInterval the time, in milliseconds, between the progress
+     * queries.
+     * @param timeout the time, in milliseconds, the migration may take before
+     * it is cancelled.
+     * @return the built live migrator.
+     */
+    public static LiveMigrator create(long bandwidth, long downtimeLimit, int channels, boolean postcopy,
+            long pollInterval, long timeout) {
+        return new LiveMigrator(Math.max(0, bandwidth), Math.max(0, downtimeLimit), Math.max(0, channels),
+                postcopy, Math.max(1, pollInterval), Math.max(1, timeout));
+    }
+
+    /**
+     * It migrates a running instance to a new QEMU on this host.
+     *
+     * @param source the instance to migrate.
+     * @param target the local IP address on which the destination listens for
+     * its QMP and for the migration stream, e.g. «127.0.0.1».
+     * @param listener the listener of the progress and of the completion.
+     * @return <ul><li>the final {@link MigrationStatus};</li><li>a
+     * {@link Fail} due to {@link Reason#QEMU_INSTANCE_IS_OFF} if the source
+     * is not running;</li><li>a {@link Fail} due to
+     * {@link Reason#WRONG_EXEC} if the target is not an address of this
+     * host;</li><li>a {@link Fail} due to {@link Reason#WRONG_EXEC} if the
+     * destination could not be launched or the migration timed out;</li><li>a {@link Fail} due to
+     * {@link Reason#UNKNOWN_ID} if the listener refused the
+     * destination;</li><li>the failed execution result of a QMP
+     * command;</li></ul>
+     */
+    public ExecutionResult migrate(QemuInstance source, String target, MigrationListener listener) {
+        Log.entering(getClass().getName(), "migrate", source);
+        ExecutionResult result;
+        if (!isLocal(target)) {
+            result = Fail.because(Reason.WRONG_EXEC, "Only local migration is supported, " + target + " is not an address of this host.");
+            Log.exiting(getClass().getName(), "migrate", result);
+            return result;
+        }
+        if (!source.isAlive()) {
+            result = Fail.because(Reason.QEMU_INSTANCE_IS_OFF);
+            Log.exiting(getClass().getName(), "migrate", result);
+            return result;
+        }
+        BuildQemuInstance spec = source.spec();
+        QemuInstance destination = QemuInstance.incoming(source.id(),
+                BuildQemuInstance.exact(spec.instruction(), target, BuildQemuInstance.assignPort(), spec.tags()));
+        long end = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeout);
+        result = prepare(source, destination, target, end);
+        if (!result.wasSuccessful()) {
+            discard(destination);
+            Log.exiting(getClass().getName(), "migrate", result);
+            return result;
+        }
+        result = follow(source, destination, listener, end);
+        Log.exiting(getClass().getName(), "migrate", result);
+        return result;
+    }
+
+    /**
+     * An indicator to assess if an address belongs to this host, i.e. if it is
+     * a loopback address or the address of one of its network interfaces.
+     *
+     * @param target the IP address or the host name to assess.
+     * @return true if the address belongs to this host or false otherwise,
+     * namely if it can not be resolved.
+     */
+    private static boolean isLocal(String target) {
+        try {
+            InetAddress address = InetAddress.getByName(target);
+            return address.isLoopbackAddress() || NetworkInterface.getByInetAddress(address) != null;
+        } catch (IOException ex) {
+            return false;
+        }
+    }
+
+    /**
+     * It launches the destination, tunes both sides and starts the migration
+     * of the source.
+     *
+     * @param source the instance to migrate.
+     * @param destination the instance that receives the guest.
+     * @param target the local IP address of the destination.
+     * @param end the {@link System#nanoTime()} of the timeout.
+     * @return <ul><li>the execution result of the «migrate» of the
+     * source;</li><li>the first failed execution result;</li></ul>
+     */
+    private ExecutionResult prepare(QemuInstance source, QemuInstance destination, String target, long end) {
+        ExecutionResult result = destination.start();
+        if (!result.wasSuccessful()) {
+            return result;
+        }
+        Command capabilities = MigrateSetCapabilitiesQMP.create(channels > 0, postcopy);
+        result = connect(destination, capabilities, end);
+        if (!result.wasSuccessful()) {
+            return result;
+        }
+        Command parameters = MigrateSetParametersQMP.create(bandwidth, downtimeLimit, channels);
+        for (Command command : new Command[]{capabilities, parameters}) {
+            result = source.execute(command);
+            if (!result.wasSuccessful()) {
+                return result;
+            }
+        }
+        result = destination.execute(parameters);
+        if (!result.wasSuccessful()) {
+            return result;
+        }
+        String uri = "tcp:" + target + ":" + BuildQemuInstance.assignPort();
+        result = destination.execute(MigrateIncomingQMP.create(uri));
+        if (!result.wasSuccessful()) {
+            return result;
+        }
+        return source.execute(MigrateQMP.create(uri));
+    }
+
+    /**
+     * It sends the first command to the destination, retrying until its QMP
+     * server is listening or the destination exits.
+     *
+     * @param destination the instance that receives the guest.
+     * @param command the first command to send.
+     * @param end the {@link System#nanoTime()} of the timeout.
+     * @return the execution result of the command.
+     */
+    private ExecutionResult connect(QemuInstance destination, Command command, long end) {
+        ExecutionResult result = destination.execute(command);
+        while (result instanceof Fail && (((Fail) result).reason() == Reason.IO_EXCEPTION
+                || ((Fail) result).reason() == Reason.CIRCUIT_OPEN)
+                && destination.isAlive() && end - System.nanoTime() > 0) {
+            if (!pause()) {
+                break;
+            }
+            result = destination.execute(command);
+        }
+        return result;
+    }
+
+    /**
+     * It polls the progress of the migration until it ends or times out.
+     *
+     * @param source the instance being migrated.
+     * @param destination the instance that receives the guest.
+     * @param listener the listener of the progress and of the completion.
+     * @param end the {@link System#nanoTime()} of the timeout.
+     * @return <ul><li>the final {@link MigrationStatus};</li><li>a
+     * {@link Fail} due to {@link Reason#WRONG_EXEC} if the migration timed
+     * out;</li><li>a {@link Fail} due to {@link Reason#UNKNOWN_ID} if the
+     * destination could not take the place of the source;</li><li>the failed
+     * execution result of the progress query;</li></ul>
+     */
+    private ExecutionResult follow(QemuInstance source, QemuInstance destination, MigrationListener listener, long end) {
+        boolean switched = false;
+        while (end - System.nanoTime() > 0 && pause()) {
+            ExecutionResult reply = source.execute(QueryMigrateQMP.create());
+            if (!reply.wasSuccessful()) {
+                cancel(source, destination);
+                return reply;
+            }
+            Map<String, Object> status = returned(reply.description());
+            MigrationStatus progress = status(status);
+            listener.progress(progress);
+            if (MigrationStatus.COMPLETED.equals(progress.status())) {
+                boolean tookOver = listener.completed(destination);
+                FleetTerminator.create(Settings.getShutdownDeadline(), 0).terminate(Collections.singletonList(source));
+                if (!tookOver) {
+                    discard(destination);
+                    return Fail.because(Reason.UNKNOWN_ID, "The instance left the manager during its migration.");
+                }
+                return progress;
+            }
+            if (progress.hasEnded()) {
+                discard(destination);
+                return progress;
+            }
+            if (postcopy && !switched && !progress.status().startsWith(POSTCOPY_STATUS_PREFIX)
+                    && JSONReader.number(status, "ram", "dirty-sync-count") >= POSTCOPY_AFTER_PASSES) {
+                switched = source.execute(MigrateStartPostcopyQMP.create()).wasSuccessful();
+            }
+        }
+        TimeoutEvent.emit(source.id().toString(), TimeoutEvent.MIGRATION, timeout);
+        if (switched) {
+            // Past the switchover the guest only lives on both sides together.
+            return Fail.because(Reason.WRONG_EXEC, "The postcopy migration did not end within " + timeout + " ms.");
+        }
+        cancel(source, destination);
+        return Fail.because(Reason.WRONG_EXEC, "The migration did not end within " + timeout + " ms.");
+    }
+
+    /**
+     * It cancels the migration and discards the destination.
+     *
+     * @param source the instance being migrated.
+     * @param destination the instance that receives the guest.
+     */
+    private void cancel(QemuInstance source, QemuInstance destination) {
+        source.execute(MigrateCancelQMP.create());
+        discard(destination);
+    }
+
+    /**
+     * It terminates a destination that will not take over.
+     *
+     * @param destination the instance that receives the guest.
+     */
+    private void discard(QemuInstance destination) {
+        destination.destroy(true);
+        destination.awaitExit(Settings.getShutdownTermGrace());
+    }
+
+    /**
+     * It waits for the next progress query.
+     *
+     * @return true if the wait ended or false if it was interrupted.
+     */
+    private boolean pause() {
+        try {
+            TimeUnit.MILLISECONDS.sleep(pollInterval);
+            return true;
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    /**
+     * It extracts the returned object of a QMP reply.
+     *
+     * @param reply the QMP reply.
+     * @return the returned object or an empty map if there is none.
+     */
+    @SuppressWarnings("unchecked")
+    private static Map<String, Object> returned(String reply) {
+        Object returned = JSONReader.path(JSONReader.object(reply), "return");
+        return returned instanceof Map ? (Map<String, Object>) returned : Collections.<String, Object>emptyMap();
+    }
+
+    /**
+     * It builds the progress snapshot from the reply to «query-migrate».
+     *
+     * @param status the returned object of the reply.
+     * @return the progress snapshot.
+     */
+    private static MigrationStatus status(Map<String, Object> status) {
+        Object name = status.get("status");
+        long downtime = JSONReader.number(status, "downtime");
+        if (downtime < 0) {
+            downtime = JSONReader.number(status, "expected-downtime");
+        }
+        return MigrationStatus.create(name == null ? "none" : name.toString(),
+                Math.max(0, JSONReader.number(status, "ram", "transferred")),
+                Math.max(0, JSONReader.number(status, "ram", "remaining")),
+                Math.max(0, JSONReader.number(status, "ram", "total")),
+                JSONReader.number(status, "ram", "dirty-pages-rate"),
+                downtime,
+                Math.max(0, JSONReader.number(status, "total-time")));
+    }
+
+}
@@ -0,0 +1,45 @@
+/*
+ *                      QEMU INSTANCES MANAGER LIBRARY
+ *                                Java Version
+ * 
+ * PRODUCT OWNER: Research Centre in Real-Time & Embedded Computing Systems
+ * PROJECT MANAGER: Luís Pinho and Cláudio Maia {lmn,clrrm}@isep.ipp.pt
+ * DEVELOPER: Manuel Meireles ( mjcdm@isep.ipp.pt )
+ * DATE: 24/11/2017
+ * SCOPE: CISTER Summer Internship 2017
+ * VERSION: 1.0
+ */
+package Managers;
+
+import Communications.MigrationStatus;
+import Instances.Instance;
+
+/**
+ * The interface of a listener of a live migration. It is notified of the
+ * progress of the migration and of the moment the destination takes over.
+ *
+ * @see LiveMigrator
+ * @author Manuel Meireles ( mjcdm@isep.ipp.pt )
+ */
+public interface MigrationListener {
+
+    /**
+     * It is called on every progress query of the migration.
+     *
+     * @param status the progress of the migration.
+     */
+    void progress(MigrationStatus status);
+
+    /**
+     * It is called once the migration has completed, while the source is
+     * still paused and before it is terminated, so that the destination takes
+     * its place right away.
+     *
+     * @param destination the instance that now runs the guest.
+     * @return true if the destination took the place of the source or false
+     * if it can not, e.g. because the source left the manager meanwhile, in
+     * which case the destination is discarded.
+     */
+    boolean completed(Instance destination);
+
+}
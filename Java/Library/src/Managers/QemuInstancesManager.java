@@ -11,6 +11,7 @@
  */
 package Managers;
 
+import Commands.BuildQemuInstance;
 import Commands.Command;
 import Commands.ContinueQMP;
 import Communications.Fail;
@@ -19,17 +20,41 @@ import Commands.ShutdownQMP;
 import Commands.SuspendQMP;
 import Communications.Creation;
 import Communications.ExecutionResult;
+import Communications.GuestStats;
 import Communications.ListResult;
 import Communications.MapResult;
+import Communications.MigrationStatus;
+import Communications.ResourceUsage;
+import Communications.Success;
+import Configurations.Log;
 import Configurations.Settings;
+import Events.Event;
+import Events.Event.Type;
+import Events.EventBus;
 import Instances.Instance;
+import Instances.InstanceFactory;
 import Instances.InstanceID;
 import Instances.QemuInstance;
+import Instances.QemuInstanceID;
+import Instances.SimulatedInstance;
+import Journals.FileJournal;
+import Journals.InstanceRecord;
+import Journals.Journal;
+import Metrics.GuestStatsCollector;
+import Metrics.Latencies;
+import Metrics.ResourceSampler;
+import Profiling.Span;
+import Profiling.Tracer;
+import Simulation.VirtualClock;
+import java.io.IOException;
+import java.nio.file.InvalidPathException;
+import java.nio.file.Paths;
 import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * A QEMU instances manager.
@@ -39,6 +64,11 @@ import java.util.TreeMap;
  */
 public class QemuInstancesManager implements InstanceManager {
 
+    /**
+     * The backend of the {@link Settings} that simulates the instances.
+     */
+    private static final String SIMULATED_BACKEND = "simulated";
+
     /**
      * The manager itself. It implements the singleton pattern.
      */
@@ -46,16 +76,102 @@ public class QemuInstancesManager implements InstanceManager {
 
     /**
      * A map with all the existing instances. The keys are the instances
-     * identification and the values the instances themselves.
+     * identification and the values the instances themselves. It is concurrent
+     * since instances may be launched in parallel.
      */
     private final Map<InstanceID, Instance> qemuInstances;
 
+    /**
+     * The controller that decides if the host has capacity to launch an
+     * instance.
+     */
+    private final AdmissionController admission;
+
+    /**
+     * The journal in which the running instances are persisted. It is null if
+     * journaling is disabled.
+     */
+    private final Journal journal;
+
+    /**
+     * The bus on which the manager publishes what happens to its instances.
+     */
+    private final EventBus events;
+
+    /**
+     * The identification of the instances that are being migrated.
+     */
+    private final Set<InstanceID> migrating;
+
+    /**
+     * The watchdog of the hung instances.
+     */
+    private final Watchdog watchdog;
+
+    /**
+     * The sampler of the host resources used by the instances.
+     */
+    private final ResourceSampler sampler;
+
+    /**
+     * The collector of the statistics of the guests of the instances.
+     */
+    private final GuestStatsCollector collector;
+
+    /**
+     * The factory through which the instances are built.
+     */
+    private volatile InstanceFactory factory;
+
     /**
      * A private constructor to ensure the singleton pattern. It initializes the
-     * map empty.
+     * admission controller from the settings and the map with the instances
+     * that are still running according to the journal, if any. The instances
+     * are built through the factory of the backend of the settings. The
+     * watchdog, the resource sampler and the guest statistics collector are
+     * started unless they are disabled in the settings.
      */
     private QemuInstancesManager() {
-        qemuInstances = new HashMap<>();
+        qemuInstances = new ConcurrentHashMap<>();
+        factory = SIMULATED_BACKEND.equalsIgnoreCase(Settings.getInstanceBackend())
+                ? SimulatedInstance.factory(VirtualClock.shared()) : QemuInstance::create;
+        admission = AdmissionController.create();
+        events = EventBus.create();
+        migrating = ConcurrentHashMap.newKeySet();
+        journal = openJournal();
+        restore();
+        watchdog = Watchdog.create(qemuInstances::values, new WatchdogListener() {
+            @Override
+            public void unhealthy(Instance instance, Watchdog.Health health) {
+                events.publish(Event.create(Type.UNHEALTHY, instance.id(), health.toString()));
+            }
+
+            @Override
+            public void recovered(Instance instance) {
+                events.publish(Event.create(Type.RECOVERED, instance.id(), null));
+            }
+
+            @Override
+            public void restarted(Instance instance, ExecutionResult result) {
+                if (result.wasSuccessful()) {
+                    admission.commit(instance.id());
+                    watch(instance);
+                }
+                record(instance);
+                events.publish(Event.create(Type.RESTARTED, instance.id(), result.description()));
+            }
+        });
+        if (Settings.getWatchdogInterval() > 0) {
+            watchdog.start();
+        }
+        sampler = ResourceSampler.create(qemuInstances::values);
+        if (Settings.getResourceSampleInterval() > 0) {
+            sampler.start();
+        }
+        collector = GuestStatsCollector.create(qemuInstances::values);
+        if (Settings.getGuestStatsInterval() > 0) {
+            collector.start();
+        }
     }
 
     /**
@@ -64,13 +180,24 @@ public class QemuInstancesManager implements InstanceManager {
      *
      * @return the manager.
      */
-    public static InstanceManager getInstance() {
+    public static synchronized InstanceManager getInstance() {
         if (singleton == null) {
             singleton = new QemuInstancesManager();
         }
         return singleton;
     }
 
+    /**
+     * It replaces the factory through which the instances are built from now
+     * on, e.g. by a {@link SimulatedInstance#factory(VirtualClock)} under a
+     * clock of its own. The instances already built are kept.
+     *
+     * @param newFactory the new factory of the instances.
+     */
+    public void useFactory(InstanceFactory newFactory) {
+        factory = newFactory;
+    }
+
     /**
      * It builds an instance and then executes it right away.
      *
@@ -83,70 +210,138 @@ public class QemuInstancesManager implements InstanceManager {
      */
     @Override
     public ExecutionResult startInstance(Command options) {
-        Settings.logger().entering(getClass().getName(), "startInstance", options);
+        Log.entering(getClass().getName(), "startInstance", options);
+        Span span = Span.begin("startInstance", Span.MANAGER);
         ExecutionResult result;
         if (options == null) {
             result = Fail.because(Reason.NULL_ARGUMENT);
-            Settings.logger().exiting(getClass().getName(), "startInstance", result);
+            exiting(span, result);
             return result;
         }
         result = buildInstance(options);
         if (result instanceof Creation && result.wasSuccessful()) {
             result = executeInstance(((Creation) result).id());
-            Settings.logger().exiting(getClass().getName(), "startInstance", result);
+            exiting(span, result);
+            return result;
+        }
+        exiting(span, result);
+        return result;
+    }
+
+    /**
+     * It starts many instances with the window and ramp rate from the
+     * {@link Settings}.
+     *
+     * @param options the specifications of the instances to launch.
+     * @return the {@link Communications.LaunchReport} of the
+     * {@link BulkLauncher}.
+     */
+    @Override
+    public ExecutionResult startInstances(List<Command> options) {
+        return startInstances(options, Settings.getBulkLaunchWindow(), Settings.getBulkLaunchRampRate(), null);
+    }
+
+    /**
+     * It starts many instances through a {@link BulkLauncher}, each one being
+     * built, executed and then ready once its QMP monitor answers.
+     *
+     * @param options the specifications of the instances to launch.
+     * @param window the maximum number of concurrent launches.
+     * @param rampRate the maximum number of launches started per second (non
+     * positive for no ramp).
+     * @param listener the listener to notify as soon as each instance is
+     * ready. It may be null.
+     * @return <ul><li>the {@link Communications.LaunchReport} of the
+     * {@link BulkLauncher};</li><li>a {@link Fail} due to
+     * {@link Reason#NULL_ARGUMENT};</li></ul>
+     */
+    @Override
+    public ExecutionResult startInstances(List<Command> options, int window, double rampRate, LaunchListener listener) {
+        Log.entering(getClass().getName(), "startInstances", options);
+        Span span = Span.begin("startInstances", Span.MANAGER);
+        ExecutionResult result;
+        if (options == null) {
+            result = Fail.because(Reason.NULL_ARGUMENT);
+            exiting(span, result);
             return result;
         }
-        Settings.logger().exiting(getClass().getName(), "startInstance", result);
+        result = BulkLauncher.create(this, window, rampRate).launch(options, listener);
+        exiting(span, result);
         return result;
     }
 
     /**
-     * It builds an instance.
+     * It builds an instance through the {@link InstanceFactory} of the
+     * manager.
      *
      * @param options the options to be used on the call to execute the
      * instance.
      * @return <ul><li>the execution result {@link Created};</li><li>a
-     * {@link Fail} due to {@link Reason#NULL_ARGUMENT};</li></ul>
+     * {@link Fail} due to {@link Reason#NULL_ARGUMENT};</li><li>a
+     * {@link Fail} due to {@link Reason#WRONG_EXEC} if the factory can not
+     * build the options;</li></ul>
      */
     @Override
     public ExecutionResult buildInstance(Command options) {
-        Settings.logger().entering(getClass().getName(), "buildInstance", options);
+        Log.entering(getClass().getName(), "buildInstance", options);
+        Span span = Span.begin("buildInstance", Span.MANAGER);
         if (options == null) {
-            Settings.logger().exiting(getClass().getName(), "buildInstance", null);
+            exiting(span, null);
             return Fail.because(Reason.NULL_ARGUMENT);
         }
-        Instance instance = QemuInstance.create(options);
+        Instance instance = factory.create(options);
+        if (instance == null) {
+            exiting(span, null);
+            return Fail.because(Reason.WRONG_EXEC, options.instruction());
+        }
         InstanceID id = instance.id();
         qemuInstances.put(id, instance);
-        Settings.logger().exiting(getClass().getName(), "buildInstance", id);
+        admission.register(id, options);
+        events.publish(Event.create(Type.BUILT, id, options.instruction()));
+        exiting(span, id);
         return Creation.create(id, true);
     }
 
     /**
-     * It builds an instance and then executes it right away.
+     * It starts an existing instance once the {@link AdmissionController}
+     * admits it.
      *
      * @param id the identification of the existing instance to start.
      * @return <ul><li>the execution result of {@link Instance#start()
      * };</li><li>a {@link Fail} due to {@link Reason#NULL_ARGUMENT};</li><li>a
-     * {@link Fail} due to {@link Reason#UNKNOWN_ID};</li></ul>
+     * {@link Fail} due to {@link Reason#UNKNOWN_ID};</li><li>a {@link Fail}
+     * due to {@link Reason#INSUFFICIENT_CAPACITY};</li></ul>
      */
     @Override
     public ExecutionResult executeInstance(InstanceID id) {
-        Settings.logger().entering(getClass().getName(), "executeInstance", id);
+        Log.entering(getClass().getName(), "executeInstance", id);
+        Span span = Span.begin("executeInstance", Span.MANAGER);
         ExecutionResult result;
         if (id == null) {
             result = Fail.because(Reason.NULL_ARGUMENT);
-            Settings.logger().exiting(getClass().getName(), "executeInstance", result);
+            exiting(span, result);
             return result;
         }
         Instance instance = qemuInstances.get(id);
         if (instance == null) {
             result = Fail.because(Reason.UNKNOWN_ID);
-            Settings.logger().exiting(getClass().getName(), "executeInstance", result);
+            exiting(span, result);
+            return result;
+        }
+        result = admission.admit(id);
+        if (!result.wasSuccessful()) {
+            exiting(span, result);
             return result;
         }
         result = instance.start();
-        Settings.logger().exiting(getClass().getName(), "executeInstance", result);
+        if (result.wasSuccessful()) {
+            watch(instance);
+            record(instance);
+            events.publish(Event.create(Type.STARTED, id, null));
+        } else {
+            admission.release(id);
+        }
+        exiting(span, result);
         return result;
     }
 
@@ -162,22 +357,26 @@ public class QemuInstancesManager implements InstanceManager {
      */
     @Override
     public ExecutionResult continueInstance(InstanceID id) {
-        Settings.logger().entering(getClass().getName(), "continueInstance", id);
+        Log.entering(getClass().getName(), "continueInstance", id);
+        Span span = Span.begin("continueInstance", Span.MANAGER);
         ExecutionResult result;
         if (id == null) {
             result = Fail.because(Reason.NULL_ARGUMENT);
-            Settings.logger().exiting(getClass().getName(), "continueInstance", result);
+            exiting(span, result);
             return result;
         }
         Instance instance = qemuInstances.get(id);
         if (instance == null) {
             result = Fail.because(Reason.UNKNOWN_ID);
-            Settings.logger().exiting(getClass().getName(), "continueInstance", result);
+            exiting(span, result);
             return result;
         }
         Command command = ContinueQMP.create();
         result = instance.execute(command);
-        Settings.logger().exiting(getClass().getName(), "continueInstance", result);
+        if (result.wasSuccessful()) {
+            events.publish(Event.create(Type.CONTINUED, id, null));
+        }
+        exiting(span, result);
         return result;
     }
 
@@ -193,57 +392,178 @@ public class QemuInstancesManager implements InstanceManager {
      */
     @Override
     public ExecutionResult suspendInstance(InstanceID id) {
-        Settings.logger().entering(getClass().getName(), "suspendInstance", id);
+        Log.entering(getClass().getName(), "suspendInstance", id);
+        Span span = Span.begin("suspendInstance", Span.MANAGER);
         ExecutionResult result;
         if (id == null) {
             result = Fail.because(Reason.NULL_ARGUMENT);
-            Settings.logger().exiting(getClass().getName(), "suspendInstance", result);
+            exiting(span, result);
             return result;
         }
         Instance instance = qemuInstances.get(id);
         if (instance == null) {
             result = Fail.because(Reason.UNKNOWN_ID);
-            Settings.logger().exiting(getClass().getName(), "suspendInstance", result);
+            exiting(span, result);
             return result;
         }
         Command command = SuspendQMP.create();
         result = instance.execute(command);
-        Settings.logger().exiting(getClass().getName(), "suspendInstance", result);
+        if (result.wasSuccessful()) {
+            events.publish(Event.create(Type.SUSPENDED, id, null));
+        }
+        exiting(span, result);
         return result;
     }
 
     /**
      * It sends the shutdown command to an existing instance. It also removes
-     * the instance from the {@link QemuInstancesManager#qemuInstances}
+     * the instance from the {@link QemuInstancesManager#qemuInstances}. An
+     * instance whose process is not running, e.g. one that crashed or whose
+     * guest powered off, is removed right away.
      *
      * @param id the identification of the existing instance to start.
      * @return <ul><li>the execution result of the
      * {@link Instance#execute(Commands.Command)} with a
-     * {@link ShutdownQMP};</li><li>a {@link Fail} due to
+     * {@link ShutdownQMP};</li><li>a {@link Success} if the process was not
+     * running;</li><li>a {@link Fail} due to
      * {@link Reason#NULL_ARGUMENT};</li><li>a {@link Fail} due to
      * {@link Reason#UNKNOWN_ID};</li></ul>
      */
     @Override
     public ExecutionResult shutdownInstance(InstanceID id) {
-        Settings.logger().entering(getClass().getName(), "shutdownInstance", id);
+        Log.entering(getClass().getName(), "shutdownInstance", id);
+        Span span = Span.begin("shutdownInstance", Span.MANAGER);
         ExecutionResult result;
         if (id == null) {
             result = Fail.because(Reason.NULL_ARGUMENT);
-            Settings.logger().exiting(getClass().getName(), "shutdownInstance", result);
+            exiting(span, result);
             return result;
         }
         Instance instance = qemuInstances.get(id);
         if (instance == null) {
             result = Fail.because(Reason.UNKNOWN_ID);
-            Settings.logger().exiting(getClass().getName(), "shutdownInstance", result);
+            exiting(span, result);
             return result;
         }
-        Command command = ShutdownQMP.create();
-        result = instance.execute(command);
+        if (instance.isAlive()) {
+            Command command = ShutdownQMP.create();
+            result = instance.execute(command);
+        } else {
+            result = Success.achieved();
+        }
         if (result.wasSuccessful()) {
             qemuInstances.remove(id);
+            admission.forget(id);
+            Latencies.forget(id.toString());
+            unrecord(id);
+            events.publish(Event.create(Type.SHUTDOWN, id, null));
         }
-        Settings.logger().exiting(getClass().getName(), "shutdownInstance", result);
+        exiting(span, result);
+        return result;
+    }
+
+    /**
+     * It replaces the tags of an existing instance and persists them in the
+     * journal.
+     *
+     * @param id the identification of the existing instance to retag.
+     * @param tags the new tags of the instance.
+     * @return <ul><li>a {@link Success};</li><li>a {@link Fail} due to
+     * {@link Reason#NULL_ARGUMENT};</li><li>a {@link Fail} due to
+     * {@link Reason#UNKNOWN_ID};</li></ul>
+     */
+    @Override
+    public ExecutionResult retagInstance(InstanceID id, Map<String, String> tags) {
+        Log.entering(getClass().getName(), "retagInstance", id);
+        Span span = Span.begin("retagInstance", Span.MANAGER);
+        ExecutionResult result;
+        if (id == null || tags == null) {
+            result = Fail.because(Reason.NULL_ARGUMENT);
+            exiting(span, result);
+            return result;
+        }
+        Instance instance = qemuInstances.get(id);
+        if (instance == null) {
+            result = Fail.because(Reason.UNKNOWN_ID);
+            exiting(span, result);
+            return result;
+        }
+        instance.retag(tags);
+        if (instance.isAlive()) {
+            record(instance);
+        }
+        result = Success.achieved(instance.tags().toString());
+        events.publish(Event.create(Type.RETAGGED, id, result.description()));
+        exiting(span, result);
+        return result;
+    }
+
+    /**
+     * It live migrates an existing instance to a new QEMU on this host through
+     * a {@link LiveMigrator}. Every progress query is published as a
+     * {@link Type#MIGRATING} event and, once the migration completes, the
+     * destination replaces the source in the registry and in the journal
+     * under the same identification. If the source left the registry
+     * meanwhile, e.g. because it was shut down, the destination is discarded
+     * instead. An instance is migrated by one caller at a time.
+     *
+     * @param id the identification of the existing instance to migrate.
+     * @param target the local IP address on which the destination listens,
+     * e.g. «127.0.0.1».
+     * @return <ul><li>the execution result of
+     * {@link LiveMigrator#migrate(Instances.QemuInstance, java.lang.String, Managers.MigrationListener)
+     * };</li><li>a {@link Fail} due to {@link Reason#NULL_ARGUMENT};</li><li>a
+     * {@link Fail} due to {@link Reason#UNKNOWN_ID};</li><li>a {@link Fail}
+     * due to {@link Reason#WRONG_EXEC} if the instance is already
+     * migrating;</li></ul>
+     */
+    @Override
+    public ExecutionResult migrateInstance(InstanceID id, String target) {
+        Log.entering(getClass().getName(), "migrateInstance", id);
+        Span span = Span.begin("migrateInstance", Span.MANAGER);
+        ExecutionResult result;
+        if (id == null || target == null) {
+            result = Fail.because(Reason.NULL_ARGUMENT);
+            exiting(span, result);
+            return result;
+        }
+        Instance source = qemuInstances.get(id);
+        if (!(source instanceof QemuInstance)) {
+            result = Fail.because(Reason.UNKNOWN_ID);
+            exiting(span, result);
+            return result;
+        }
+        if (!migrating.add(id)) {
+            result = Fail.because(Reason.WRONG_EXEC, "The instance is already migrating.");
+            exiting(span, result);
+            return result;
+        }
+        try {
+            result = LiveMigrator.create().migrate((QemuInstance) source, target, new MigrationListener() {
+                @Override
+                public void progress(MigrationStatus status) {
+                    events.publish(Event.create(Type.MIGRATING, id, status.description()));
+                }
+
+                @Override
+                public boolean completed(Instance destination) {
+                    if (!qemuInstances.replace(id, source, destination)) {
+                        return false;
+                    }
+                    Command spec = destination instanceof QemuInstance ? ((QemuInstance) destination).spec() : null;
+                    admission.adopt(id, spec);
+                    watch(destination);
+                    record(destination);
+                    return true;
+                }
+            });
+        } finally {
+            migrating.remove(id);
+        }
+        if (result instanceof MigrationStatus && MigrationStatus.COMPLETED.equals(((MigrationStatus) result).status())) {
+            events.publish(Event.create(Type.MIGRATED, id, target));
+        }
+        exiting(span, result);
         return result;
     }
 
@@ -255,9 +575,25 @@ public class QemuInstancesManager implements InstanceManager {
      */
     @Override
     public ExecutionResult listInstances() {
-        Settings.logger().entering(getClass().getName(), "listInstances");
+        Log.entering(getClass().getName(), "listInstances");
+        Span span = Span.begin("listInstances", Span.MANAGER);
         ExecutionResult result = ListResult.create(qemuInstances.values());
-        Settings.logger().exiting(getClass().getName(), "listInstances", result);
+        exiting(span, result);
+        return result;
+    }
+
+    /**
+     * It provides the host capacity still available to new instances.
+     *
+     * @return the {@link Communications.Headroom} of the
+     * {@link AdmissionController}.
+     */
+    @Override
+    public ExecutionResult headroom() {
+        Log.entering(getClass().getName(), "headroom");
+        Span span = Span.begin("headroom", Span.MANAGER);
+        ExecutionResult result = admission.headroom();
+        exiting(span, result);
         return result;
     }
 
@@ -274,7 +610,8 @@ public class QemuInstancesManager implements InstanceManager {
      */
     @Override
     public ExecutionResult executeCommands(Map<InstanceID, List<Command>> commands) {
-        Settings.logger().entering(getClass().getName(), "executeCommands", commands);
+        Log.entering(getClass().getName(), "executeCommands", commands);
+        Span span = Span.begin("executeCommands", Span.MANAGER);
         Map<InstanceID, ExecutionResult> resultsMap = new TreeMap<>();
         for (Map.Entry<InstanceID, List<Command>> entry : commands.entrySet()) {
             InstanceID id = entry.getKey();
@@ -293,29 +630,200 @@ public class QemuInstancesManager implements InstanceManager {
             }
         }
         ExecutionResult result = MapResult.create(resultsMap);
-        Settings.logger().exiting(getClass().getName(), "executeCommands", result);
+        exiting(span, result);
         return result;
     }
 
     /**
      * It shuts down all the instances within the manager and then it shuts down
-     * the manager itself.
+     * the manager itself. The deadline and the graceful phase are the ones
+     * from the {@link Settings}.
      *
-     * @return a {@link ListResult} with the execution result of each instance {@link QemuInstancesManager#shutdownInstance(Instances.InstanceID)
-     * } request.
+     * @return the execution result of {@link QemuInstancesManager#shutdown(long, long)
+     * }.
      */
     @Override
     public ExecutionResult shutdown() {
-        Settings.logger().entering(getClass().getName(), "shutdown");
+        return shutdown(Settings.getShutdownDeadline(), Settings.getShutdownPowerdownGrace());
+    }
+
+    /**
+     * It shuts down all the instances within the manager concurrently through
+     * a {@link FleetTerminator} and then it shuts down the manager itself,
+     * closing the journal. The watchdog is stopped beforehand, so that it does
+     * not restart the instances that are being terminated, and so are the
+     * resource sampler and the guest statistics collector. The trace spans are then exported to the file
+     * defined in the {@link Settings}, if any.
+     *
+     * @param deadline the time, in milliseconds, the whole shutdown may take.
+     * @param powerdownGrace the time, in milliseconds, given to the guests to
+     * power down before the QMP «quit» (zero to skip the graceful phase).
+     * @return a {@link MapResult} where the keys are the identification of the
+     * instances and the values their {@link Communications.Termination}.
+     */
+    @Override
+    public ExecutionResult shutdown(long deadline, long powerdownGrace) {
+        Log.entering(getClass().getName(), "shutdown", deadline);
+        Span span = Span.begin("shutdown", Span.MANAGER);
+        watchdog.stop();
+        sampler.stop();
+        collector.stop();
+        List<Instance> instances = new ArrayList<>(qemuInstances.values());
+        Map<InstanceID, ExecutionResult> terminations = FleetTerminator.create(deadline, powerdownGrace).terminate(instances);
+        for (Instance instance : instances) {
+            ExecutionResult termination = terminations.get(instance.id());
+            qemuInstances.remove(instance.id());
+            admission.forget(instance.id());
+            Latencies.forget(instance.id().toString());
+            if (termination != null && termination.wasSuccessful()) {
+                unrecord(instance.id());
+            }
+            events.publish(Event.create(Type.TERMINATED, instance.id(), String.valueOf(termination)));
+        }
+        ExecutionResult result = MapResult.create(terminations);
+        if (journal != null) {
+            journal.close();
+        }
+        synchronized (QemuInstancesManager.class) {
+            singleton = null;
+        }
+        exiting(span, result);
+        if (!Settings.getTraceFile().isEmpty()) {
+            exportTrace(Settings.getTraceFile());
+        }
+        return result;
+    }
+
+    /**
+     * A getter of the bus on which the manager publishes what happens to its
+     * instances.
+     *
+     * @return the {@link QemuInstancesManager#events}.
+     */
+    @Override
+    public EventBus events() {
+        return events;
+    }
+
+    /**
+     * It provides the health of an instance as of the last probe of the
+     * watchdog.
+     *
+     * @param id the identification of the instance.
+     * @return the {@link Watchdog#health(Instances.InstanceID)} result.
+     */
+    public Watchdog.Health health(InstanceID id) {
+        return watchdog.health(id);
+    }
+
+    /**
+     * It provides the recent host resource usage of an instance, as sampled
+     * by the {@link ResourceSampler} from the «/proc» of its process.
+     *
+     * @param id the identification of the instance.
+     * @param samples the number of most recent samples wanted.
+     * @return <ul><li>a {@link ResourceUsage} of up to that many samples,
+     * oldest first;</li><li>a {@link Fail} due to {@link Reason#NULL_ARGUMENT}
+     * if the identification is null;</li><li>a {@link Fail} due to
+     * {@link Reason#UNKNOWN_ID} if there is no such instance;</li></ul>
+     */
+    public ExecutionResult resources(InstanceID id, int samples) {
+        Log.entering(getClass().getName(), "resources", id);
+        Span span = Span.begin("resources", Span.MANAGER);
+        ExecutionResult result;
+        if (id == null) {
+            result = Fail.because(Reason.NULL_ARGUMENT);
+        } else if (!qemuInstances.containsKey(id)) {
+            result = Fail.because(Reason.UNKNOWN_ID);
+        } else {
+            result = sampler.usage(id, samples);
+        }
+        exiting(span, result);
+        return result;
+    }
+
+    /**
+     * It provides the statistics of the guest of an instance collected over a
+     * recent window by the {@link GuestStatsCollector}.
+     *
+     * @param id the identification of the instance.
+     * @param window the length of the window, in milliseconds.
+     * @return <ul><li>a {@link GuestStats} of the samples taken within the
+     * window, oldest first;</li><li>a {@link Fail} due to
+     * {@link Reason#NULL_ARGUMENT} if the identification is null;</li><li>a
+     * {@link Fail} due to {@link Reason#UNKNOWN_ID} if there is no such
+     * instance;</li></ul>
+     */
+    public ExecutionResult guestStats(InstanceID id, long window) {
+        Log.entering(getClass().getName(), "guestStats", id);
+        Span span = Span.begin("guestStats", Span.MANAGER);
         ExecutionResult result;
-        List<ExecutionResult> results = new ArrayList<>();
-        Command shutdownQMP = ShutdownQMP.create();
-        for (Instance instance : qemuInstances.values()) {
-            results.add(instance.execute(shutdownQMP));
-        }
-        result = ListResult.create(results);
-        singleton = null;
-        Settings.logger().exiting(getClass().getName(), "shutdown", result);
+        if (id == null) {
+            result = Fail.because(Reason.NULL_ARGUMENT);
+        } else if (!qemuInstances.containsKey(id)) {
+            result = Fail.because(Reason.UNKNOWN_ID);
+        } else {
+            result = collector.recent(id, window);
+        }
+        exiting(span, result);
+        return result;
+    }
+
+    /**
+     * It provides the history of the statistics of the guest of an instance
+     * kept by the {@link GuestStatsCollector}, downsampled to a number of
+     * points.
+     *
+     * @param id the identification of the instance.
+     * @param points the number of points wanted.
+     * @return <ul><li>a {@link GuestStats} of up to that many points, oldest
+     * first;</li><li>a {@link Fail} due to {@link Reason#NULL_ARGUMENT} if the
+     * identification is null;</li><li>a {@link Fail} due to
+     * {@link Reason#UNKNOWN_ID} if there is no such instance;</li></ul>
+     */
+    public ExecutionResult guestHistory(InstanceID id, int points) {
+        Log.entering(getClass().getName(), "guestHistory", id);
+        Span span = Span.begin("guestHistory", Span.MANAGER);
+        ExecutionResult result;
+        if (id == null) {
+            result = Fail.because(Reason.NULL_ARGUMENT);
+        } else if (!qemuInstances.containsKey(id)) {
+            result = Fail.because(Reason.UNKNOWN_ID);
+        } else {
+            result = collector.history(id, points);
+        }
+        exiting(span, result);
+        return result;
+    }
+
+    /**
+     * It writes the trace spans kept by the {@link Tracer} to a file in the
+     * Chrome trace event format, which «chrome://tracing» and Perfetto open.
+     * Every manager operation is the root of a trace whose spans follow it
+     * through the instances and their QMP exchanges, down to the queueing,
+     * the write, the wait and the parse of each command.
+     *
+     * @param file the path of the file, which is replaced if it exists.
+     * @return <ul><li>a {@link Success} with the number of spans written;</li>
+     * <li>a {@link Fail} due to {@link Reason#NULL_ARGUMENT} if the path is
+     * null;</li><li>a {@link Fail} due to {@link Reason#FILE_UNAVAILABLE} if
+     * the file could not be written;</li></ul>
+     */
+    public ExecutionResult exportTrace(String file) {
+        Log.entering(getClass().getName(), "exportTrace", file);
+        Span span = Span.begin("exportTrace", Span.MANAGER);
+        ExecutionResult result;
+        if (file == null) {
+            result = Fail.because(Reason.NULL_ARGUMENT);
+        } else {
+            try {
+                result = Success.achieved(Tracer.export(Paths.get(file)) + " spans written to " + file);
+            } catch (IOException | InvalidPathException ex) {
+                Log.severe("{0}", ex);
+                result = Fail.because(Reason.FILE_UNAVAILABLE, ex.getMessage());
+            }
+        }
+        exiting(span, result);
         return result;
     }
 
@@ -328,9 +836,10 @@ public class QemuInstancesManager implements InstanceManager {
      */
     @Override
     public ExecutionResult loadConfigurationFile(String config) {
-        Settings.logger().entering(getClass().getName(), "loadConfigurationFile", config);
+        Log.entering(getClass().getName(), "loadConfigurationFile", config);
+        Span span = Span.begin("loadConfigurationFile", Span.MANAGER);
         ExecutionResult result = Settings.loadConfigurations(config);
-        Settings.logger().exiting(getClass().getName(), "loadConfigurationFile", result);
+        exiting(span, result);
         return result;
     }
 
@@ -360,4 +869,106 @@ public class QemuInstancesManager implements InstanceManager {
         }
     }
 
+    /**
+     * It opens the journal at the file from the {@link Settings}.
+     *
+     * @return the opened journal or null if journaling is disabled or the file
+     * can not be opened.
+     */
+    private static Journal openJournal() {
+        String file = Settings.getJournalFile();
+        if (file.isEmpty()) {
+            return null;
+        }
+        try {
+            return FileJournal.open(file, Settings.getJournalCompactionThreshold());
+        } catch (IOException ex) {
+            Log.severe("{0}", ex);
+            return null;
+        }
+    }
+
+    /**
+     * It re-attaches to the instances that are still running according to the
+     * journal, so that a restarted manager does not orphan them. Records of
+     * instances whose process is gone are dropped.
+     */
+    private void restore() {
+        if (journal == null) {
+            return;
+        }
+        for (InstanceRecord record : journal.records()) {
+            BuildQemuInstance spec = BuildQemuInstance.exact(record.instruction(), record.ip(), record.port(), record.tags());
+            QemuInstance instance = QemuInstance.attach(record.id(), record.pid(), record.startTime(), spec);
+            if (instance == null) {
+                journal.remove(record.id());
+                continue;
+            }
+            BuildQemuInstance.reservePort(record.port());
+            qemuInstances.put(instance.id(), instance);
+            admission.adopt(instance.id(), spec);
+            watch(instance);
+            Log.info("Re-attached to instance {0}", record);
+        }
+    }
+
+    /**
+     * It releases the capacity committed to an instance once its process
+     * exits, whether it crashed, its guest powered off or the watchdog killed
+     * it, so that the headroom does not shrink for good. The capacity is kept
+     * if the instance was started again meanwhile or if it was replaced under
+     * its identification, e.g. by the destination of a migration, which holds
+     * the capacity from then on.
+     *
+     * @param instance the started instance.
+     */
+    private void watch(Instance instance) {
+        instance.onExit(() -> {
+            if (!instance.isAlive() && qemuInstances.get(instance.id()) == instance) {
+                admission.release(instance.id());
+            }
+        });
+    }
+
+    /**
+     * It ends the span of an operation of the manager, records its latency
+     * among the {@link Latencies} and logs its exit. They are recorded under
+     * the whole fleet, so that they outlive the instances they concern. An
+     * operation whose result is null or not successful is deemed failed.
+     *
+     * @param span the span of the operation, named after it.
+     * @param result the result of the operation.
+     */
+    private void exiting(Span span, Object result) {
+        boolean failed = result == null || (result instanceof ExecutionResult && !((ExecutionResult) result).wasSuccessful());
+        Latencies.record(Latencies.MANAGER, Latencies.FLEET, span.name(), span.end(), failed);
+        Log.exiting(getClass().getName(), span.name(), result);
+    }
+
+    /**
+     * It persists the metadata of an instance in the journal.
+     *
+     * @param instance the instance to persist.
+     */
+    private void record(Instance instance) {
+        if (journal == null || !(instance instanceof QemuInstance)) {
+            return;
+        }
+        QemuInstance qemu = (QemuInstance) instance;
+        BuildQemuInstance spec = qemu.spec();
+        journal.put(InstanceRecord.create(((QemuInstanceID) qemu.id()).value(), qemu.pid(), qemu.startTime(),
+                spec.ip(), spec.port(), spec.instruction(), spec.tags()));
+    }
+
+    /**
+     * It removes an instance from the journal.
+     *
+     * @param id the identification of the instance to remove.
+     */
+    private void unrecord(InstanceID id) {
+        if (journal != null && id instanceof QemuInstanceID) {
+            journal.remove(((QemuInstanceID) id).value());
+        }
+    }
+
 }
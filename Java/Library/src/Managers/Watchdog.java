@@ -0,0 +1,419 @@
+/*
+ *                      QEMU INSTANCES MANAGER LIBRARY
+ *                                Java Version
+ * 
+ * PRODUCT OWNER: Research Centre in Real-Time & Embedded Computing Systems
+ * PROJECT MANAGER: Luís Pinho and Cláudio Maia {lmn,clrrm}@isep.ipp.pt
+ * DEVELOPER: Manuel Meireles ( mjcdm@isep.ipp.pt )
+ * DATE: 24/11/2017
+ * SCOPE: CISTER Summer Internship 2017
+ * VERSION: 1.0
+ */
+package Managers;
+
+import Communications.ExecutionResult;
+import Configurations.Log;
+import Configurations.Settings;
+import Instances.Instance;
+import Instances.InstanceID;
+import Instances.QemuInstance;
+import Instances.RunState;
+import Profiling.TimeoutEvent;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Supplier;
+
+/**
+ * A watchdog of hung instances. A QEMU whose main loop is stuck keeps its
+ * process alive while its commands wait forever, so on a shared timer every
+ * instance is probed, a bounded number at a time, for two symptoms: a QMP
+ * command that waits for its reply longer than the response timeout and a
+ * running guest whose process spent no CPU time over a number of consecutive
+ * probes. A probe sends nothing to the QEMU, it only reads what the client
+ * already knows and the «/proc/&lt;pid&gt;/stat» of the process, so its cost
+ * does not grow with the traffic and stays flat per instance as the fleet
+ * grows. An idle instance is still covered, since the heartbeat of its
+ * connection keeps a command in flight now and then. Once an instance turns
+ * unhealthy, the configured {@link Remedy} is applied.
+ *
+ * @see WatchdogListener
+ * @author Manuel Meireles ( mjcdm@isep.ipp.pt )
+ */
+public class Watchdog {
+
+    /**
+     * The health of an instance.
+     */
+    public enum Health {
+        HEALTHY,
+        UNRESPONSIVE,
+        STALLED
+    }
+
+    /**
+     * The remedies applied to an unhealthy instance: only notifying the
+     * listener, restarting its process or killing it.
+     */
+    public enum Remedy {
+        ALERT,
+        RESTART,
+        KILL
+    }
+
+    /**
+     * The directory of the processes information.
+     */
+    private static final Path PROC = Paths.get("/proc");
+
+    /**
+     * The index of the user CPU time among the fields of
+     * «/proc/&lt;pid&gt;/stat» that follow the name of the process, which is
+     * the 14th field of the whole line.
+     */
+    private static final int UTIME_FIELD = 11;
+
+    /**
+     * The index of the system CPU time among the fields that follow the name
+     * of the process.
+     */
+    private static final int STIME_FIELD = 12;
+
+    /**
+     * The time, in milliseconds, a killed instance is given to exit before it
+     * is restarted.
+     */
+    private static final long KILL_WAIT = 5000;
+
+    /**
+     * The instances to watch.
+     */
+    private final Supplier<Collection<Instance>> fleet;
+
+    /**
+     * The listener of the health changes.
+     */
+    private final WatchdogListener listener;
+
+    /**
+     * The remedy applied to an unhealthy instance.
+     */
+    private final Remedy remedy;
+
+    /**
+     * The time, in milliseconds, between sweeps.
+     */
+    private final long interval;
+
+    /**
+     * The time, in nanoseconds, a command may wait for its reply.
+     */
+    private final long responseTimeout;
+
+    /**
+     * The number of consecutive probes without CPU progress that make a
+     * running instance stalled.
+     */
+    private final int stallProbes;
+
+    /**
+     * The bound on the number of instances probed at the same time.
+     */
+    private final Semaphore slots;
+
+    /**
+     * The executor of the probes.
+     */
+    private final ExecutorService probes;
+
+    /**
+     * The timer of the sweeps.
+     */
+    private final ScheduledExecutorService timer;
+
+    /**
+     * The state of the probes of each instance.
+     */
+    private final Map<InstanceID, Probe> states;
+
+    /**
+     * Whether the watchdog was started.
+     */
+    private final AtomicBoolean started;
+
+    /**
+     * The state of the probes of an instance.
+     */
+    private static class Probe {
+
+        /**
+         * Whether a probe of the instance is in flight.
+         */
+        private final AtomicBoolean running = new AtomicBoolean(false);
+
+        /**
+         * The CPU time, in clock ticks, seen by the last probe, or -1 if
+         * unknown.
+         */
+        private long ticks = -1;
+
+        /**
+         * The number of consecutive probes without CPU progress.
+         */
+        private int idle = 0;
+
+        /**
+         * The current health of the instance.
+         */
+        private volatile Health health = Health.HEALTHY;
+
+    }
+
+    /**
+     * A private constructor that initializes a stopped watchdog. Despite no
+     * validations are made, the fleet, the listener and the remedy should not
+     * be null and the numbers should be positive.
+     *
+     * @param theFleet the instances to watch.
+     * @param theListener the listener of the health changes.
+     * @param theRemedy the remedy applied to an unhealthy instance.
+     * @param theInterval the time between sweeps.
+     * @param theConcurrency the number of instances probed at the same time.
+     * @param theResponseTimeout the time a command may wait for its reply.
+     * @param theStallProbes the number of probes without CPU progress.
+     */
+    private Watchdog(Supplier<Collection<Instance>> theFleet, WatchdogListener theListener, Remedy theRemedy,
+            long theInterval, int theConcurrency, long theResponseTimeout, int theStallProbes) {
+        fleet = theFleet;
+        listener = theListener;
+        remedy = theRemedy;
+        interval = theInterval;
+        responseTimeout = TimeUnit.MILLISECONDS.toNanos(theResponseTimeout);
+        stallProbes = theStallProbes;
+        slots = new Semaphore(theConcurrency);
+        probes = Executors.newFixedThreadPool(theConcurrency, runnable -> {
+            Thread thread = new Thread(runnable, "watchdog-probe");
+            thread.setDaemon(true);
+            return thread;
+        });
+        timer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "watchdog");
+            thread.setDaemon(true);
+            return thread;
+        });
+        states = new ConcurrentHashMap<>();
+        started = new AtomicBoolean(false);
+    }
+
+    /**
+     * It builds a stopped watchdog with the interval, the concurrency, the
+     * timeouts and the remedy from the {@link Settings}. An unknown remedy is
+     * deemed {@link Remedy#ALERT}.
+     *
+     * @param fleet the supplier of the instances to watch.
+     * @param listener the listener of the health changes.
+     * @return the built watchdog.
+     */
+    public static Watchdog create(Supplier<Collection<Instance>> fleet, WatchdogListener listener) {
+        Remedy remedy = Remedy.ALERT;
+        for (Remedy candidate : Remedy.values()) {
+            if (candidate.name().equalsIgnoreCase(Settings.getWatchdogRemedy())) {
+                remedy = candidate;
+            }
+        }
+        return create(fleet, listener, remedy, Settings.getWatchdogInterval(), Settings.getWatchdogConcurrency(),
+                Settings.getWatchdogResponseTimeout(), Settings.getWatchdogStallProbes());
+    }
+
+    /**
+     * It builds a stopped watchdog. The numbers lower than one are raised to
+     * one.
+     *
+     * @param fleet the supplier of the instances to watch.
+     * @param listener the listener of the health changes.
+     * @param remedy the remedy applied to an unhealthy instance.
+     * @param interval the time, in milliseconds, between sweeps.
+     * @param concurrency the number of instances probed at the same time.
+     * @param responseTimeout the time, in milliseconds, a command may wait for
+     * its reply.
+     * @param stallProbes the number of consecutive probes of a running
+     * instance without CPU progress that make it stalled.
+     * @return the built watchdog.
+     */
+    public static Watchdog create(Supplier<Collection<Instance>> fleet, WatchdogListener listener, Remedy remedy,
+            long interval, int concurrency, long responseTimeout, int stallProbes) {
+        return new Watchdog(fleet, listener, remedy, Math.max(1, interval), Math.max(1, concurrency),
+                Math.max(1, responseTimeout), Math.max(1, stallProbes));
+    }
+
+    /**
+     * It starts the sweeps, unless they were already started.
+     */
+    public void start() {
+        if (started.compareAndSet(false, true)) {
+            timer.scheduleWithFixedDelay(this::sweep, interval, interval, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * It stops the sweeps and the probes in flight.
+     */
+    public void stop() {
+        timer.shutdownNow();
+        probes.shutdownNow();
+    }
+
+    /**
+     * It provides the health of an instance as of its last probe.
+     *
+     * @param id the identification of the instance.
+     * @return the health of the instance or {@link Health#HEALTHY} if it was
+     * never probed.
+     */
+    public Health health(InstanceID id) {
+        Probe probe = states.get(id);
+        return probe == null ? Health.HEALTHY : probe.health;
+    }
+
+    /**
+     * It probes every instance of the fleet, a bounded number at a time. An
+     * instance whose previous probe is still in flight is skipped and the
+     * state of the instances that left the fleet is dropped.
+     */
+    private void sweep() {
+        Set<InstanceID> present = new HashSet<>();
+        try {
+            for (Instance instance : fleet.get()) {
+                if (!(instance instanceof QemuInstance) || !instance.isAlive()) {
+                    continue;
+                }
+                present.add(instance.id());
+                Probe probe = states.computeIfAbsent(instance.id(), id -> new Probe());
+                if (!probe.running.compareAndSet(false, true)) {
+                    continue;
+                }
+                slots.acquire();
+                probes.execute(() -> {
+                    try {
+                        probe((QemuInstance) instance, probe);
+                    } finally {
+                        probe.running.set(false);
+                        slots.release();
+                    }
+                });
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            return;
+        } catch (RuntimeException ex) {
+            Log.warning("{0}", ex);
+        }
+        states.keySet().retainAll(present);
+    }
+
+    /**
+     * It probes an instance and, if its health changed, notifies the listener
+     * and applies the remedy to an unhealthy one.
+     *
+     * @param instance the instance to probe.
+     * @param probe the state of the probes of the instance.
+     */
+    private void probe(QemuInstance instance, Probe probe) {
+        Health health = Health.HEALTHY;
+        long since = instance.awaitingSince();
+        if (since != 0 && System.nanoTime() - since > responseTimeout) {
+            health = Health.UNRESPONSIVE;
+        }
+        long ticks = cpuTicks(instance.pid());
+        if (ticks >= 0 && ticks == probe.ticks && instance.runState() == RunState.RUNNING) {
+            probe.idle++;
+        } else {
+            probe.idle = 0;
+        }
+        probe.ticks = ticks;
+        if (health == Health.HEALTHY && probe.idle >= stallProbes) {
+            health = Health.STALLED;
+        }
+        Health former = probe.health;
+        probe.health = health;
+        if (health == former) {
+            return;
+        }
+        if (health == Health.HEALTHY) {
+            listener.recovered(instance);
+            return;
+        }
+        if (former != Health.HEALTHY) {
+            return;
+        }
+        Log.warning("Instance {0} is {1}", instance.id(), health);
+        if (health == Health.UNRESPONSIVE) {
+            TimeoutEvent.emit(instance.id().toString(), TimeoutEvent.QMP_REPLY,
+                    TimeUnit.NANOSECONDS.toMillis(responseTimeout));
+        }
+        listener.unhealthy(instance, health);
+        remedy(instance, probe);
+    }
+
+    /**
+     * It applies the remedy to an unhealthy instance. A restarted or killed
+     * instance starts its probes over.
+     *
+     * @param instance the unhealthy instance.
+     * @param probe the state of the probes of the instance.
+     */
+    private void remedy(QemuInstance instance, Probe probe) {
+        switch (remedy) {
+            case KILL:
+                instance.destroy(true);
+                break;
+            case RESTART:
+                instance.destroy(true);
+                instance.awaitExit(KILL_WAIT);
+                ExecutionResult result = instance.start();
+                probe.ticks = -1;
+                probe.idle = 0;
+                probe.health = Health.HEALTHY;
+                listener.restarted(instance, result);
+                break;
+            default:
+                break;
+        }
+    }
+
+    /**
+     * It reads the CPU time the process has spent, in user and system mode.
+     * The name of the process, which may hold spaces, is skipped up to its
+     * closing parenthesis.
+     *
+     * @param pid the process identification.
+     * @return the CPU time in clock ticks or -1 if it is unknown, e.g. there
+     * is no «/proc».
+     */
+    private static long cpuTicks(long pid) {
+        if (pid <= 0) {
+            return -1;
+        }
+        try {
+            String stat = new String(Files.readAllBytes(PROC.resolve(pid + "/stat")), StandardCharsets.US_ASCII);
+            String[] fields = stat.substring(stat.lastIndexOf(')') + 2).trim().split(" ");
+            return Long.parseLong(fields[UTIME_FIELD]) + Long.parseLong(fields[STIME_FIELD]);
+        } catch (IOException | RuntimeException ex) {
+            return -1;
+        }
+    }
+
+}
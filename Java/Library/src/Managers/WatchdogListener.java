@@ -0,0 +1,51 @@
+/*
+ *                      QEMU INSTANCES MANAGER LIBRARY
+ *                                Java Version
+ * 
+ * PRODUCT OWNER: Research Centre in Real-Time & Embedded Computing Systems
+ * PROJECT MANAGER: Luís Pinho and Cláudio Maia {lmn,clrrm}@isep.ipp.pt
+ * DEVELOPER: Manuel Meireles ( mjcdm@isep.ipp.pt )
+ * DATE: 24/11/2017
+ * SCOPE: CISTER Summer Internship 2017
+ * VERSION: 1.0
+ */
+package Managers;
+
+import Communications.ExecutionResult;
+import Instances.Instance;
+
+/**
+ * The interface of a listener of the {@link Watchdog}. It is notified when an
+ * instance turns unhealthy, when it recovers and when the watchdog restarts
+ * it.
+ *
+ * @see Watchdog
+ * @author Manuel Meireles ( mjcdm@isep.ipp.pt )
+ */
+public interface WatchdogListener {
+
+    /**
+     * It is called once an instance turns unhealthy, before the remedy is
+     * applied.
+     *
+     * @param instance the unhealthy instance.
+     * @param health the reason why it is unhealthy.
+     */
+    void unhealthy(Instance instance, Watchdog.Health health);
+
+    /**
+     * It is called once an unhealthy instance is healthy again.
+     *
+     * @param instance the recovered instance.
+     */
+    void recovered(Instance instance);
+
+    /**
+     * It is called once the watchdog restarted an unhealthy instance.
+     *
+     * @param instance the restarted instance.
+     * @param result the execution result of the start.
+     */
+    void restarted(Instance instance, ExecutionResult result);
+
+}
@@ -0,0 +1,261 @@
+/*
+ *                      QEMU INSTANCES MANAGER LIBRARY
+ *                                Java Version
+ * 
+ * PRODUCT OWNER: Research Centre in Real-Time & Embedded Computing Systems
+ * PROJECT MANAGER: Luís Pinho and Cláudio Maia {lmn,clrrm}@isep.ipp.pt
+ * DEVELOPER: Manuel Meireles ( mjcdm@isep.ipp.pt )
+ * DATE: 24/11/2017
+ * SCOPE: CISTER Summer Internship 2017
+ * VERSION: 1.0
+ */
+package Metrics;
+
+import Communications.GuestStats;
+import Communications.GuestStats.Kind;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A fixed-size time series of the guest statistics of an instance. It is a
+ * ring buffer of primitive arrays, one per metric, so that recording a
+ * sample allocates nothing once every metric has been seen and the oldest
+ * sample is overwritten once the series is full. Unlike the
+ * {@link ResourceSeries}, the metrics are not known in advance, since they
+ * depend on the version of the QEMU, on the accelerator and on the drivers of
+ * the guest, so a metric gets its array the first time it is recorded.
+ *
+ * @see GuestStatsCollector
+ * @author Manuel Meireles ( mjcdm@isep.ipp.pt )
+ */
+public class GuestSeries {
+
+    /**
+     * The time, in milliseconds since the epoch, of each slot.
+     */
+    private final long[] times;
+
+    /**
+     * The name of each metric, in the order they were first recorded.
+     */
+    private final List<String> names;
+
+    /**
+     * The values of each metric, in the order of the names, of each slot.
+     */
+    private final List<long[]> columns;
+
+    /**
+     * The index of each metric among the names.
+     */
+    private final Map<String, Integer> indexes;
+
+    /**
+     * The kind of each metric whose kind is known.
+     */
+    private final Map<String, Kind> kinds;
+
+    /**
+     * The number of samples recorded so far.
+     */
+    private long written;
+
+    /**
+     * A private constructor that initializes an empty series. Despite no
+     * validation is made, the capacity should be positive.
+     *
+     * @param theCapacity the number of samples kept.
+     */
+    private GuestSeries(int theCapacity) {
+        times = new long[theCapacity];
+        names = new ArrayList<>();
+        columns = new ArrayList<>();
+        indexes = new HashMap<>();
+        kinds = new HashMap<>();
+        written = 0;
+    }
+
+    /**
+     * It builds an empty series. A capacity lower than one is raised to one.
+     *
+     * @param capacity the number of samples kept.
+     * @return the built series.
+     */
+    public static GuestSeries create(int capacity) {
+        return new GuestSeries(Math.max(1, capacity));
+    }
+
+    /**
+     * It defines the kind of a metric. The metrics whose kind is not defined
+     * are deemed {@link Kind#INSTANT}.
+     *
+     * @param name the name of the metric.
+     * @param kind the kind of the metric.
+     */
+    public synchronized void define(String name, Kind kind) {
+        kinds.put(name, kind);
+    }
+
+    /**
+     * It records a sample, overwriting the oldest one if the series is full.
+     * The metrics not in the sample are recorded as -1.
+     *
+     * @param time the time, in milliseconds since the epoch, of the sample.
+     * @param sampleNames the name of each metric of the sample.
+     * @param sampleValues the value of each metric of the sample.
+     * @param count the number of metrics of the sample, i.e. of the leading
+     * names and values to record.
+     */
+    public synchronized void record(long time, String[] sampleNames, long[] sampleValues, int count) {
+        int slot = (int) (written % times.length);
+        times[slot] = time;
+        for (long[] column : columns) {
+            column[slot] = -1;
+        }
+        for (int index = 0; index < count; index++) {
+            column(sampleNames[index])[slot] = sampleValues[index];
+        }
+        written++;
+    }
+
+    /**
+     * It provides a copy of the samples taken since a given time.
+     *
+     * @param since the time, in milliseconds since the epoch, of the oldest
+     * sample wanted.
+     * @return the {@link GuestStats} of the samples taken since then, oldest
+     * first.
+     */
+    public synchronized GuestStats recent(long since) {
+        int kept = kept();
+        int size = 0;
+        while (size < kept && times[slot(kept - size - 1)] >= since) {
+            size++;
+        }
+        return stats(kept - size, size, size);
+    }
+
+    /**
+     * It provides a downsampled copy of every sample kept. The samples are
+     * split in consecutive buckets of about the same size and each bucket
+     * becomes a single point, at the time of its last sample, whose value is
+     * the last one of a {@link Kind#CUMULATIVE} metric, the mean of a
+     * {@link Kind#INSTANT} one and the maximum of a {@link Kind#PEAK} one.
+     *
+     * @param points the number of points wanted.
+     * @return the {@link GuestStats} of up to that many points, oldest first.
+     */
+    public synchronized GuestStats history(int points) {
+        int kept = kept();
+        return stats(0, kept, Math.min(Math.max(0, points), kept));
+    }
+
+    /**
+     * A getter of the number of samples kept.
+     *
+     * @return the capacity of the series.
+     */
+    public int capacity() {
+        return times.length;
+    }
+
+    /**
+     * It provides the values of a metric, adding it if it is new.
+     *
+     * @param name the name of the metric.
+     * @return the values of the metric of each slot.
+     */
+    private long[] column(String name) {
+        Integer index = indexes.get(name);
+        if (index == null) {
+            long[] column = new long[times.length];
+            Arrays.fill(column, -1);
+            index = columns.size();
+            names.add(name);
+            columns.add(column);
+            indexes.put(name, index);
+        }
+        return columns.get(index);
+    }
+
+    /**
+     * It provides the number of samples kept.
+     *
+     * @return the number of samples kept.
+     */
+    private int kept() {
+        return (int) Math.min(written, times.length);
+    }
+
+    /**
+     * It provides the slot of a sample.
+     *
+     * @param sample the position of the sample among those kept, oldest
+     * first.
+     * @return the slot of the sample.
+     */
+    private int slot(int sample) {
+        return (int) ((written - kept() + sample) % times.length);
+    }
+
+    /**
+     * It copies a range of the samples kept, downsampled into buckets.
+     *
+     * @param first the position of the first sample among those kept.
+     * @param size the number of samples.
+     * @param points the number of buckets, which should not exceed the number
+     * of samples.
+     * @return the {@link GuestStats} of the buckets, oldest first.
+     */
+    private GuestStats stats(int first, int size, int points) {
+        String[] copyNames = names.toArray(new String[0]);
+        Kind[] copyKinds = new Kind[copyNames.length];
+        long[] copyTimes = new long[points];
+        long[][] copyValues = new long[copyNames.length][points];
+        for (int metric = 0; metric < copyNames.length; metric++) {
+            copyKinds[metric] = kinds.getOrDefault(copyNames[metric], Kind.INSTANT);
+        }
+        for (int point = 0; point < points; point++) {
+            int from = first + (int) ((long) point * size / points);
+            int to = first + (int) ((long) (point + 1) * size / points);
+            copyTimes[point] = times[slot(to - 1)];
+            for (int metric = 0; metric < copyNames.length; metric++) {
+                copyValues[metric][point] = reduce(columns.get(metric), copyKinds[metric], from, to);
+            }
+        }
+        return GuestStats.create(copyNames, copyKinds, copyTimes, copyValues);
+    }
+
+    /**
+     * It reduces the values of a metric over a bucket of samples to a single
+     * value, according to the kind of the metric. The values not collected
+     * are ignored.
+     *
+     * @param column the values of the metric of each slot.
+     * @param kind the kind of the metric.
+     * @param from the position of the first sample of the bucket.
+     * @param to the position after the last sample of the bucket.
+     * @return the value of the bucket or -1 if no value was collected.
+     */
+    private long reduce(long[] column, Kind kind, int from, int to) {
+        long result = -1;
+        long sum = 0;
+        int count = 0;
+        for (int sample = from; sample < to; sample++) {
+            long value = column[slot(sample)];
+            if (value < 0) {
+                continue;
+            }
+            if (kind == Kind.CUMULATIVE || value > result) {
+                result = value;
+            }
+            sum += value;
+            count++;
+        }
+        return kind == Kind.INSTANT && count > 0 ? sum / count : result;
+    }
+
+}
@@ -0,0 +1,663 @@
+/*
+ *                      QEMU INSTANCES MANAGER LIBRARY
+ *                                Java Version
+ * 
+ * PRODUCT OWNER: Research Centre in Real-Time & Embedded Computing Systems
+ * PROJECT MANAGER: Luís Pinho and Cláudio Maia {lmn,clrrm}@isep.ipp.pt
+ * DEVELOPER: Manuel Meireles ( mjcdm@isep.ipp.pt )
+ * DATE: 24/11/2017
+ * SCOPE: CISTER Summer Internship 2017
+ * VERSION: 1.0
+ */
+package Metrics;
+
+import Commands.Command;
+import Commands.QomGetQMP;
+import Commands.QomSetQMP;
+import Commands.QueryStatsQMP;
+import Commands.QueryStatsSchemasQMP;
+import Communications.ExecutionResult;
+import Communications.GuestStats;
+import Communications.GuestStats.Kind;
+import Communications.Reply;
+import Configurations.Log;
+import Configurations.Settings;
+import Instances.Instance;
+import Instances.InstanceID;
+import Instances.QemuInstance;
+import Instances.RunState;
+import Parsers.JSONReader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Supplier;
+
+/**
+ * A collector of the statistics of the guests of the instances. Every poll
+ * of an instance is a single pipelined batch, sent through
+ * {@link Instance#executeAll(java.util.List)}, of a «query-stats» of the
+ * virtual machine, a «query-stats» of its virtual CPUs, whose values are
+ * summed across them, and a «qom-get» of the «guest-stats» of its balloon
+ * device. The values go into the {@link GuestSeries} of the instance, whose
+ * metrics get their kind from «query-stats-schemas». A single shared timer
+ * decides which instances are due and their polls run on other threads, at
+ * most one per instance at a time, so that a slow monitor delays only its
+ * own instance. The interval of an instance doubles, up to a maximum, while
+ * its guest is idle, i.e. not running or with its virtual CPUs exiting less
+ * than a given rate, and falls back to the base interval once it is not. A
+ * statistic the QEMU does not provide, e.g. without KVM or a balloon, is not
+ * polled again until the process of the instance changes.
+ *
+ * @author Manuel Meireles ( mjcdm@isep.ipp.pt )
+ */
+public class GuestStatsCollector {
+
+    /**
+     * The prefix of the KVM statistics of the virtual machine.
+     */
+    public static final String VM_PREFIX = "vm.";
+
+    /**
+     * The prefix of the KVM statistics of the virtual CPUs.
+     */
+    public static final String VCPU_PREFIX = "vcpu.";
+
+    /**
+     * The prefix of the memory statistics of the balloon driver of the guest.
+     */
+    public static final String BALLOON_PREFIX = "balloon.";
+
+    /**
+     * The metric of the exits of the virtual CPUs, which tells if the guest is
+     * idle.
+     */
+    public static final String EXITS = VCPU_PREFIX + "exits";
+
+    /**
+     * The property of the balloon device with its statistics.
+     */
+    private static final String GUEST_STATS = "guest-stats";
+
+    /**
+     * The property of the balloon device with the time, in seconds, between
+     * two updates of its statistics by the guest.
+     */
+    private static final String POLLING_INTERVAL = "guest-stats-polling-interval";
+
+    /**
+     * The statistics of the balloon that are counters, every other one being
+     * a gauge.
+     */
+    private static final Set<String> BALLOON_COUNTERS = new HashSet<>(Arrays.asList(
+            "stat-swap-in", "stat-swap-out", "stat-major-faults", "stat-minor-faults"));
+
+    /**
+     * The number of milliseconds in a second.
+     */
+    private static final long MILLIS_PER_SECOND = 1000;
+
+    /**
+     * The state of the polls of an instance and its series.
+     */
+    private static class Target {
+
+        /**
+         * The series of the samples of the instance.
+         */
+        private final GuestSeries series;
+
+        /**
+         * The kind of each statistic, from the schemas.
+         */
+        private final Map<String, Kind> kinds = new HashMap<>();
+
+        /**
+         * Whether a poll of the instance is running.
+         */
+        private final AtomicBoolean running = new AtomicBoolean(false);
+
+        /**
+         * The process identification for which the polls were set up, or
+         * -1 if they were not.
+         */
+        private long pid = -1;
+
+        /**
+         * Whether the KVM statistics of the virtual machine are polled.
+         */
+        private boolean vm;
+
+        /**
+         * Whether the KVM statistics of the virtual CPUs are polled.
+         */
+        private boolean vcpu;
+
+        /**
+         * Whether the statistics of the balloon are polled.
+         */
+        private boolean balloon;
+
+        /**
+         * The factor applied to the base interval.
+         */
+        private long backoff = 1;
+
+        /**
+         * The {@link System#nanoTime()} at which the next poll is due.
+         */
+        private volatile long due;
+
+        /**
+         * The exits of the virtual CPUs at the last poll, or -1.
+         */
+        private long exits = -1;
+
+        /**
+         * The time, in milliseconds since the epoch, of the last poll.
+         */
+        private long polled;
+
+        /**
+         * The names of the sample being taken.
+         */
+        private String[] names = new String[64];
+
+        /**
+         * The values of the sample being taken.
+         */
+        private long[] values = new long[64];
+
+        /**
+         * The number of metrics of the sample being taken.
+         */
+        private int count;
+
+        /**
+         * The number of the tick in which the instance was last seen.
+         */
+        private long seen;
+
+        /**
+         * A constructor of a target whose polls are not set up yet.
+         *
+         * @param theSeries the series of the samples of the instance.
+         */
+        private Target(GuestSeries theSeries) {
+            series = theSeries;
+            due = System.nanoTime();
+        }
+
+        /**
+         * It adds a value to the sample being taken. The values of a metric
+         * added more than once, i.e. of each virtual CPU, are summed, unless
+         * the metric is a {@link Kind#PEAK}, whose highest value is kept.
+         *
+         * @param name the name of the metric.
+         * @param value the value of the metric.
+         */
+        private void add(String name, long value) {
+            for (int index = 0; index < count; index++) {
+                if (names[index].equals(name)) {
+                    values[index] = kinds.get(name) == Kind.PEAK ? Math.max(values[index], value)
+                            : values[index] + value;
+                    return;
+                }
+            }
+            if (count == names.length) {
+                names = Arrays.copyOf(names, count * 2);
+                values = Arrays.copyOf(values, count * 2);
+            }
+            names[count] = name;
+            values[count] = value;
+            count++;
+        }
+
+        /**
+         * It provides the value of a metric of the sample being taken.
+         *
+         * @param name the name of the metric.
+         * @return the value of the metric or -1 if it is not in the sample.
+         */
+        private long value(String name) {
+            for (int index = 0; index < count; index++) {
+                if (names[index].equals(name)) {
+                    return values[index];
+                }
+            }
+            return -1;
+        }
+
+    }
+
+    /**
+     * The instances to poll.
+     */
+    private final Supplier<Collection<Instance>> fleet;
+
+    /**
+     * The base time, in milliseconds, between two polls of an instance.
+     */
+    private final long interval;
+
+    /**
+     * The highest factor applied to the base interval of an idle instance.
+     */
+    private final long maxBackoff;
+
+    /**
+     * The rate of exits of the virtual CPUs, per second, below which a guest
+     * is idle.
+     */
+    private final long idleExits;
+
+    /**
+     * The number of samples kept per instance.
+     */
+    private final int capacity;
+
+    /**
+     * The path of the balloon device.
+     */
+    private final String balloonPath;
+
+    /**
+     * The state of the polls and the series of each instance.
+     */
+    private final Map<InstanceID, Target> targets;
+
+    /**
+     * The thread that decides which instances are due.
+     */
+    private final ScheduledExecutorService timer;
+
+    /**
+     * The threads that run the polls.
+     */
+    private final ExecutorService pollers;
+
+    /**
+     * Whether the ticks were started.
+     */
+    private final AtomicBoolean started;
+
+    /**
+     * The number of ticks run so far.
+     */
+    private long ticks;
+
+    /**
+     * A private constructor that initializes a stopped collector. Despite no
+     * validations are made, the fleet and the path should not be null and the
+     * numbers should be positive.
+     *
+     * @param theFleet the instances to poll.
+     * @param theInterval the base time between two polls of an instance.
+     * @param theMaxBackoff the highest factor applied to the base interval.
+     * @param theIdleExits the rate of exits below which a guest is idle.
+     * @param theCapacity the number of samples kept per instance.
+     * @param theBalloonPath the path of the balloon device.
+     */
+    private GuestStatsCollector(Supplier<Collection<Instance>> theFleet, long theInterval, long theMaxBackoff,
+            long theIdleExits, int theCapacity, String theBalloonPath) {
+        fleet = theFleet;
+        interval = theInterval;
+        maxBackoff = theMaxBackoff;
+        idleExits = theIdleExits;
+        capacity = theCapacity;
+        balloonPath = theBalloonPath;
+        targets = new ConcurrentHashMap<>();
+        timer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "guest-stats");
+            thread.setDaemon(true);
+            return thread;
+        });
+        pollers = Executors.newCachedThreadPool(runnable -> {
+            Thread thread = new Thread(runnable, "guest-stats-poll");
+            thread.setDaemon(true);
+            return thread;
+        });
+        started = new AtomicBoolean(false);
+        ticks = 0;
+    }
+
+    /**
+     * It builds a stopped collector with the intervals, the idle rate, the
+     * capacity and the balloon path from the {@link Settings}.
+     *
+     * @param fleet the supplier of the instances to poll.
+     * @return the built collector.
+     */
+    public static GuestStatsCollector create(Supplier<Collection<Instance>> fleet) {
+        return create(fleet, Settings.getGuestStatsInterval(), Settings.getGuestStatsMaxInterval(),
+                Settings.getGuestStatsIdleExits(), Settings.getGuestStatsCapacity(),
+                Settings.getGuestStatsBalloonPath());
+    }
+
+    /**
+     * It builds a stopped collector. The numbers lower than one are raised to
+     * one and a maximum interval lower than the base one is raised to it.
+     *
+     * @param fleet the supplier of the instances to poll.
+     * @param interval the base time, in milliseconds, between two polls of an
+     * instance.
+     * @param maxInterval the longest time, in milliseconds, between two polls
+     * of an idle instance.
+     * @param idleExits the rate of exits of the virtual CPUs, per second,
+     * below which a guest is idle.
+     * @param capacity the number of samples kept per instance.
+     * @param balloonPath the path of the balloon device in the object model of
+     * the QEMU.
+     * @return the built collector.
+     */
+    public static GuestStatsCollector create(Supplier<Collection<Instance>> fleet, long interval,
+            long maxInterval, long idleExits, int capacity, String balloonPath) {
+        long base = Math.max(1, interval);
+        return new GuestStatsCollector(fleet, base, Math.max(1, maxInterval / base), Math.max(1, idleExits),
+                Math.max(1, capacity), balloonPath);
+    }
+
+    /**
+     * It starts the ticks, unless they were already started.
+     */
+    public void start() {
+        if (started.compareAndSet(false, true)) {
+            timer.scheduleWithFixedDelay(this::tick, 0, interval, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * It stops the ticks and the polls.
+     */
+    public void stop() {
+        timer.shutdownNow();
+        pollers.shutdownNow();
+        try {
+            pollers.awaitTermination(interval, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+        targets.clear();
+    }
+
+    /**
+     * It provides the guest statistics of an instance collected over a recent
+     * window.
+     *
+     * @param id the identification of the instance.
+     * @param window the length of the window, in milliseconds.
+     * @return the {@link GuestStats} of the samples taken within the window,
+     * oldest first, which is empty if the instance was never polled.
+     */
+    public GuestStats recent(InstanceID id, long window) {
+        Target target = targets.get(id);
+        return target == null ? empty() : target.series.recent(System.currentTimeMillis() - window);
+    }
+
+    /**
+     * It provides the downsampled history of the guest statistics of an
+     * instance.
+     *
+     * @param id the identification of the instance.
+     * @param points the number of points wanted.
+     * @return the {@link GuestSeries#history(int)} of the instance, which is
+     * empty if the instance was never polled.
+     */
+    public GuestStats history(InstanceID id, int points) {
+        Target target = targets.get(id);
+        return target == null ? empty() : target.series.history(points);
+    }
+
+    /**
+     * A getter of the number of samples kept per instance.
+     *
+     * @return the {@link GuestStatsCollector#capacity}.
+     */
+    public int capacity() {
+        return capacity;
+    }
+
+    /**
+     * It builds the statistics of an instance never polled.
+     *
+     * @return an empty {@link GuestStats}.
+     */
+    private static GuestStats empty() {
+        return GuestStats.create(new String[0], new Kind[0], new long[0], new long[0][0]);
+    }
+
+    /**
+     * It hands the polls of the live instances that are due, and not already
+     * being polled, over to the pollers and drops the series of the instances
+     * that left the fleet.
+     */
+    private void tick() {
+        long tick = ++ticks;
+        long now = System.nanoTime();
+        try {
+            for (Instance instance : fleet.get()) {
+                Target target = targets.computeIfAbsent(instance.id(), id -> new Target(GuestSeries.create(capacity)));
+                target.seen = tick;
+                if (!instance.isAlive() || now - target.due < 0 || !target.running.compareAndSet(false, true)) {
+                    continue;
+                }
+                pollers.execute(() -> {
+                    try {
+                        poll(instance, target);
+                    } catch (RuntimeException ex) {
+                        Log.warning("{0}", ex);
+                    } finally {
+                        target.running.set(false);
+                    }
+                });
+            }
+        } catch (RuntimeException ex) {
+            Log.warning("{0}", ex);
+        }
+        targets.values().removeIf(target -> target.seen != tick);
+    }
+
+    /**
+     * It polls the statistics of an instance in a single batch, records them
+     * in its series and schedules its next poll according to the activity of
+     * its guest. The polls are set up again whenever the process of the
+     * instance changes.
+     *
+     * @param instance the instance to poll.
+     * @param target the state of the polls of the instance.
+     */
+    private void poll(Instance instance, Target target) {
+        long pid = instance instanceof QemuInstance ? ((QemuInstance) instance).pid() : 0;
+        if (pid != target.pid && !setUp(instance, target)) {
+            schedule(target, true);
+            return;
+        }
+        target.pid = pid;
+        List<Command> commands = new ArrayList<>(3);
+        if (target.vm) {
+            commands.add(QueryStatsQMP.create(QueryStatsQMP.VM));
+        }
+        if (target.vcpu) {
+            commands.add(QueryStatsQMP.create(QueryStatsQMP.VCPU));
+        }
+        if (target.balloon) {
+            commands.add(QomGetQMP.create(balloonPath, GUEST_STATS));
+        }
+        if (commands.isEmpty()) {
+            schedule(target, true);
+            return;
+        }
+        List<ExecutionResult> results = instance.executeAll(commands);
+        long time = System.currentTimeMillis();
+        target.count = 0;
+        int index = 0;
+        if (target.vm) {
+            target.vm = collectStats(results.get(index++), VM_PREFIX, target);
+        }
+        if (target.vcpu) {
+            target.vcpu = collectStats(results.get(index++), VCPU_PREFIX, target);
+        }
+        if (target.balloon) {
+            target.balloon = collectBalloon(results.get(index), target);
+        }
+        if (target.count > 0) {
+            target.series.record(time, target.names, target.values, target.count);
+        }
+        long exits = target.value(EXITS);
+        boolean idle = instance.runState() != RunState.RUNNING || target.count == 0 || (exits >= 0
+                && target.exits >= 0 && time > target.polled
+                && (exits - target.exits) * MILLIS_PER_SECOND / (time - target.polled) < idleExits);
+        target.exits = exits;
+        target.polled = time;
+        schedule(target, idle);
+    }
+
+    /**
+     * It sets the polls of an instance up: it learns the kind of each KVM
+     * statistic from «query-stats-schemas» and asks the balloon driver of the
+     * guest to update its statistics as often as the instance is polled.
+     *
+     * @param instance the instance to poll.
+     * @param target the state of the polls of the instance.
+     * @return true if the QEMU answered or false if it could not be reached,
+     * in which case the set up is retried at the next poll.
+     */
+    private boolean setUp(Instance instance, Target target) {
+        List<ExecutionResult> results = instance.executeAll(Arrays.asList(QueryStatsSchemasQMP.create(),
+                QomSetQMP.create(balloonPath, POLLING_INTERVAL, Math.max(1, interval / MILLIS_PER_SECOND))));
+        if (!(results.get(0) instanceof Reply) || !(results.get(1) instanceof Reply)) {
+            return false;
+        }
+        target.vm = results.get(0).wasSuccessful();
+        target.vcpu = target.vm;
+        target.balloon = results.get(1).wasSuccessful();
+        target.exits = -1;
+        Object schemas = JSONReader.path(JSONReader.object(results.get(0).description()), "return");
+        if (schemas instanceof List) {
+            for (Object schema : (List<?>) schemas) {
+                String prefix = QueryStatsQMP.VM.equals(JSONReader.path(schema, "target")) ? VM_PREFIX : VCPU_PREFIX;
+                Object stats = JSONReader.path(schema, "stats");
+                for (Object stat : stats instanceof List ? (List<?>) stats : new ArrayList<>()) {
+                    define(target, prefix + JSONReader.path(stat, "name"), kind(JSONReader.path(stat, "type")));
+                }
+            }
+        }
+        for (String counter : BALLOON_COUNTERS) {
+            define(target, BALLOON_PREFIX + counter, Kind.CUMULATIVE);
+        }
+        Log.fine("KVM statistics of {0}: {1}", instance.id(), target.vm);
+        Log.fine("Balloon statistics of {0}: {1}", instance.id(), target.balloon);
+        return true;
+    }
+
+    /**
+     * It defines the kind of a metric of an instance.
+     *
+     * @param target the state of the polls of the instance.
+     * @param name the name of the metric.
+     * @param kind the kind of the metric or null if it is not a number.
+     */
+    private void define(Target target, String name, Kind kind) {
+        if (kind != null) {
+            target.kinds.put(name, kind);
+            target.series.define(name, kind);
+        }
+    }
+
+    /**
+     * It maps the type of a statistic in the schemas to a kind of metric.
+     *
+     * @param type the type of the statistic.
+     * @return the kind of metric or null if the statistic is a histogram.
+     */
+    private static Kind kind(Object type) {
+        if ("cumulative".equals(type)) {
+            return Kind.CUMULATIVE;
+        }
+        if ("peak".equals(type)) {
+            return Kind.PEAK;
+        }
+        return "instant".equals(type) ? Kind.INSTANT : null;
+    }
+
+    /**
+     * It adds the numeric statistics of a «query-stats» reply to the sample
+     * being taken. The histograms are left out.
+     *
+     * @param result the result of the «query-stats».
+     * @param prefix the prefix of the names of the metrics.
+     * @param target the state of the polls of the instance.
+     * @return false if the QEMU refused the command, so that it is not polled
+     * again, or true otherwise.
+     */
+    private boolean collectStats(ExecutionResult result, String prefix, Target target) {
+        if (!(result instanceof Reply)) {
+            return true;
+        }
+        if (!result.wasSuccessful()) {
+            return false;
+        }
+        Object providers = JSONReader.path(JSONReader.object(result.description()), "return");
+        for (Object provider : providers instanceof List ? (List<?>) providers : new ArrayList<>()) {
+            Object stats = JSONReader.path(provider, "stats");
+            for (Object stat : stats instanceof List ? (List<?>) stats : new ArrayList<>()) {
+                Object value = JSONReader.path(stat, "value");
+                if (value instanceof Number) {
+                    target.add(prefix + JSONReader.path(stat, "name"), ((Number) value).longValue());
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * It adds the statistics of the balloon of a «qom-get» reply to the
+     * sample being taken. The statistics the guest does not report are -1.
+     *
+     * @param result the result of the «qom-get».
+     * @param target the state of the polls of the instance.
+     * @return false if the QEMU refused the command, e.g. there is no balloon,
+     * so that it is not polled again, or true otherwise.
+     */
+    private boolean collectBalloon(ExecutionResult result, Target target) {
+        if (!(result instanceof Reply)) {
+            return true;
+        }
+        if (!result.wasSuccessful()) {
+            return false;
+        }
+        Object stats = JSONReader.path(JSONReader.object(result.description()), "return", "stats");
+        if (stats instanceof Map) {
+            for (Map.Entry<?, ?> stat : ((Map<?, ?>) stats).entrySet()) {
+                if (stat.getValue() instanceof Number) {
+                    target.add(BALLOON_PREFIX + stat.getKey(), ((Number) stat.getValue()).longValue());
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * It schedules the next poll of an instance, doubling its interval, up to
+     * the maximum, if its guest is idle or going back to the base interval
+     * otherwise.
+     *
+     * @param target the state of the polls of the instance.
+     * @param idle whether the guest is idle.
+     */
+    private void schedule(Target target, boolean idle) {
+        target.backoff = idle ? Math.min(maxBackoff, target.backoff * 2) : 1;
+        target.due = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(interval * target.backoff);
+    }
+
+}
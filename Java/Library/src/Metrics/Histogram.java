@@ -0,0 +1,228 @@
+/*
+ *                      QEMU INSTANCES MANAGER LIBRARY
+ *                                Java Version
+ * 
+ * PRODUCT OWNER: Research Centre in Real-Time & Embedded Computing Systems
+ * PROJECT MANAGER: Luís Pinho and Cláudio Maia {lmn,clrrm}@isep.ipp.pt
+ * DEVELOPER: Manuel Meireles ( mjcdm@isep.ipp.pt )
+ * DATE: 24/11/2017
+ * SCOPE: CISTER Summer Internship 2017
+ * VERSION: 1.0
+ */
+package Metrics;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A lock-free histogram of latencies with a fixed memory footprint. The
+ * latencies are kept in microseconds in log-linear buckets, as HDR histograms
+ * do: every power of two is split in {@link Histogram#SUB_BUCKETS} buckets,
+ * so a percentile is off by at most one sixteenth of its value, and anything
+ * beyond {@link Histogram#HIGHEST} microseconds, about 36 minutes, falls in
+ * the last bucket. Recording is a handful of atomic increments, so any
+ * number of threads may record at once.
+ *
+ * @see Latency
+ * @author Manuel Meireles ( mjcdm@isep.ipp.pt )
+ */
+public class Histogram {
+
+    /**
+     * The number of bits of a value that pick its bucket within its power of
+     * two.
+     */
+    private static final int SUB_BUCKET_BITS = 4;
+
+    /**
+     * The number of buckets of each power of two.
+     */
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+
+    /**
+     * The highest latency, in microseconds, told apart from the others.
+     */
+    private static final long HIGHEST = (1L << 31) - 1;
+
+    /**
+     * The number of buckets.
+     */
+    private static final int BUCKETS = index(HIGHEST) + 1;
+
+    /**
+     * The number of latencies in each bucket.
+     */
+    private final AtomicLongArray buckets;
+
+    /**
+     * The number of latencies.
+     */
+    private final LongAdder count;
+
+    /**
+     * The number of latencies of failed operations.
+     */
+    private final LongAdder errors;
+
+    /**
+     * The sum of the latencies, in nanoseconds.
+     */
+    private final LongAdder total;
+
+    /**
+     * The highest latency, in nanoseconds.
+     */
+    private final LongAccumulator max;
+
+    /**
+     * A private constructor that initializes an empty histogram.
+     */
+    private Histogram() {
+        buckets = new AtomicLongArray(BUCKETS);
+        count = new LongAdder();
+        errors = new LongAdder();
+        total = new LongAdder();
+        max = new LongAccumulator(Math::max, 0);
+    }
+
+    /**
+     * It builds an empty histogram.
+     *
+     * @return the built histogram.
+     */
+    public static Histogram create() {
+        return new Histogram();
+    }
+
+    /**
+     * It records a latency. A negative one is deemed zero.
+     *
+     * @param nanos the latency, in nanoseconds.
+     * @param failed true if the operation failed.
+     */
+    public void record(long nanos, boolean failed) {
+        long latency = Math.max(0, nanos);
+        buckets.incrementAndGet(index(Math.min(HIGHEST, TimeUnit.NANOSECONDS.toMicros(latency))));
+        count.increment();
+        if (failed) {
+            errors.increment();
+        }
+        total.add(latency);
+        max.accumulate(latency);
+    }
+
+    /**
+     * It empties the histogram. The latencies recorded while it is being
+     * emptied may be kept partially.
+     */
+    public void reset() {
+        for (int i = 0; i < BUCKETS; i++) {
+            buckets.set(i, 0);
+        }
+        count.reset();
+        errors.reset();
+        total.reset();
+        max.reset();
+    }
+
+    /**
+     * It provides the number of latencies.
+     *
+     * @return the number of latencies.
+     */
+    public long count() {
+        return count.sum();
+    }
+
+    /**
+     * It provides the number of latencies of failed operations.
+     *
+     * @return the number of errors.
+     */
+    public long errors() {
+        return errors.sum();
+    }
+
+    /**
+     * It provides the mean latency.
+     *
+     * @return the mean latency, in nanoseconds, or zero if there is none.
+     */
+    public double mean() {
+        long n = count.sum();
+        return n == 0 ? 0 : (double) total.sum() / n;
+    }
+
+    /**
+     * It provides the highest latency.
+     *
+     * @return the highest latency, in nanoseconds.
+     */
+    public long max() {
+        return max.get();
+    }
+
+    /**
+     * It provides a percentile of the latencies, i.e. the highest latency of
+     * the bucket in which it falls.
+     *
+     * @param percentile the percentile, from 0 to 100.
+     * @return the latency, in nanoseconds, or zero if there is none.
+     */
+    public long percentile(double percentile) {
+        long[] snapshot = new long[BUCKETS];
+        long n = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            snapshot[i] = buckets.get(i);
+            n += snapshot[i];
+        }
+        if (n == 0) {
+            return 0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(Math.min(100, Math.max(0, percentile)) / 100 * n));
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += snapshot[i];
+            if (seen >= rank) {
+                return Math.min(max.get(), TimeUnit.MICROSECONDS.toNanos(highest(i)));
+            }
+        }
+        return max.get();
+    }
+
+    /**
+     * It provides the bucket of a latency. The latencies lower than
+     * {@link Histogram#SUB_BUCKETS} have a bucket each, the others share the
+     * bucket of the leading bits.
+     *
+     * @param micros the latency, in microseconds.
+     * @return the index of the bucket.
+     */
+    private static int index(long micros) {
+        if (micros < SUB_BUCKETS) {
+            return (int) micros;
+        }
+        int magnitude = 63 - Long.numberOfLeadingZeros(micros);
+        int shift = magnitude - SUB_BUCKET_BITS;
+        int sub = (int) ((micros >>> shift) & (SUB_BUCKETS - 1));
+        return (shift + 1) * SUB_BUCKETS + sub;
+    }
+
+    /**
+     * It provides the highest latency of a bucket.
+     *
+     * @param index the index of the bucket.
+     * @return the highest latency, in microseconds.
+     */
+    private static long highest(int index) {
+        if (index < SUB_BUCKETS) {
+            return index;
+        }
+        int shift = index / SUB_BUCKETS - 1;
+        long sub = index % SUB_BUCKETS;
+        return ((SUB_BUCKETS + sub + 1) << shift) - 1;
+    }
+
+}
@@ -0,0 +1,220 @@
+/*
+ *                      QEMU INSTANCES MANAGER LIBRARY
+ *                                Java Version
+ * 
+ * PRODUCT OWNER: Research Centre in Real-Time & Embedded Computing Systems
+ * PROJECT MANAGER: Luís Pinho and Cláudio Maia {lmn,clrrm}@isep.ipp.pt
+ * DEVELOPER: Manuel Meireles ( mjcdm@isep.ipp.pt )
+ * DATE: 24/11/2017
+ * SCOPE: CISTER Summer Internship 2017
+ * VERSION: 1.0
+ */
+package Metrics;
+
+import Commands.Command;
+import Configurations.Log;
+import Parsers.JSONReader;
+import java.lang.management.ManagementFactory;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/**
+ * The latencies of the library, by scope, instance and operation. A latency
+ * is created, and published as an MBean named
+ * «QemuInstancesManager:type=Latency,scope=...,instance=...,operation=...»,
+ * the first time it is recorded, and dropped once its instance is forgotten.
+ *
+ * @see Latency
+ * @author Manuel Meireles ( mjcdm@isep.ipp.pt )
+ */
+public class Latencies {
+
+    /**
+     * The scope of the QMP commands sent to the instances.
+     */
+    public static final String QMP = "qmp";
+
+    /**
+     * The scope of the lifecycle of the instances, e.g. their start.
+     */
+    public static final String INSTANCE = "instance";
+
+    /**
+     * The scope of the operations of the manager.
+     */
+    public static final String MANAGER = "manager";
+
+    /**
+     * The instance of the operations that concern the whole fleet.
+     */
+    public static final String FLEET = "all";
+
+    /**
+     * The domain of the names of the MBeans.
+     */
+    private static final String DOMAIN = "QemuInstancesManager";
+
+    /**
+     * The characters that must be quoted in the value of an MBean name.
+     */
+    private static final String SPECIAL = ",=:\"*?\n";
+
+    /**
+     * The latencies, by the name of their MBean.
+     */
+    private static final ConcurrentMap<ObjectName, Latency> LATENCIES = new ConcurrentHashMap<>();
+
+    /**
+     * A private constructor since the class only has static methods.
+     */
+    private Latencies() {
+    }
+
+    /**
+     * It records the latency of an operation, creating and publishing its
+     * {@link Latency} if needed.
+     *
+     * @param scope the scope of the operation, e.g. {@link Latencies#QMP}.
+     * @param instance the identification of the instance or
+     * {@link Latencies#FLEET}.
+     * @param operation the name of the operation.
+     * @param nanos the latency, in nanoseconds.
+     * @param failed true if the operation failed.
+     */
+    public static void record(String scope, String instance, String operation, long nanos, boolean failed) {
+        ObjectName name = name(scope, instance, operation);
+        if (name == null) {
+            return;
+        }
+        Latency latency = LATENCIES.get(name);
+        if (latency == null) {
+            latency = LATENCIES.computeIfAbsent(name, Latencies::publish);
+        }
+        latency.record(nanos, failed);
+    }
+
+    /**
+     * It provides the latency of an operation.
+     *
+     * @param scope the scope of the operation.
+     * @param instance the identification of the instance or
+     * {@link Latencies#FLEET}.
+     * @param operation the name of the operation.
+     * @return the latency or null if it was never recorded.
+     */
+    public static Latency get(String scope, String instance, String operation) {
+        ObjectName name = name(scope, instance, operation);
+        return name == null ? null : LATENCIES.get(name);
+    }
+
+    /**
+     * It provides every latency.
+     *
+     * @return a map where the keys are the names of the MBeans and the values
+     * the latencies.
+     */
+    public static Map<ObjectName, Latency> all() {
+        return LATENCIES;
+    }
+
+    /**
+     * It starts a new window on every latency.
+     */
+    public static void reset() {
+        for (Latency latency : LATENCIES.values()) {
+            latency.reset();
+        }
+    }
+
+    /**
+     * It drops, and withdraws from JMX, every latency of an instance.
+     *
+     * @param instance the identification of the instance.
+     */
+    public static void forget(String instance) {
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        for (ObjectName name : LATENCIES.keySet()) {
+            if (value(instance).equals(name.getKeyProperty("instance"))) {
+                LATENCIES.remove(name);
+                try {
+                    server.unregisterMBean(name);
+                } catch (JMException ex) {
+                    Log.fine("{0}", ex);
+                }
+            }
+        }
+    }
+
+    /**
+     * It provides the name of the operation of a command, i.e. the name of
+     * the QMP command.
+     *
+     * @param command the command.
+     * @return the name of the command.
+     */
+    public static String operation(Command command) {
+        String instruction = command.instruction().trim();
+        if (instruction.startsWith("{")) {
+            Object name = JSONReader.object(instruction).get("execute");
+            return name == null ? "json" : name.toString();
+        }
+        int space = instruction.indexOf(' ');
+        return space < 0 ? instruction : instruction.substring(0, space);
+    }
+
+    /**
+     * It builds a latency and publishes it as an MBean. A failure to publish
+     * it is only logged.
+     *
+     * @param name the name of the MBean.
+     * @return the built latency.
+     */
+    private static Latency publish(ObjectName name) {
+        Latency latency = Latency.create();
+        try {
+            ManagementFactory.getPlatformMBeanServer().registerMBean(latency, name);
+        } catch (JMException ex) {
+            Log.warning("{0}", ex);
+        }
+        return latency;
+    }
+
+    /**
+     * It builds the name of the MBean of a latency.
+     *
+     * @param scope the scope of the operation.
+     * @param instance the identification of the instance.
+     * @param operation the name of the operation.
+     * @return the name of the MBean or null if it is malformed.
+     */
+    private static ObjectName name(String scope, String instance, String operation) {
+        try {
+            return new ObjectName(DOMAIN + ":type=Latency,scope=" + value(scope) + ",instance=" + value(instance)
+                    + ",operation=" + value(operation));
+        } catch (JMException ex) {
+            Log.warning("{0}", ex);
+            return null;
+        }
+    }
+
+    /**
+     * It quotes a value of an MBean name if it holds special characters.
+     *
+     * @param text the value.
+     * @return the value, quoted if needed.
+     */
+    private static String value(String text) {
+        String value = text == null ? "" : text;
+        for (char c : value.toCharArray()) {
+            if (SPECIAL.indexOf(c) >= 0) {
+                return ObjectName.quote(value);
+            }
+        }
+        return value;
+    }
+
+}
@@ -0,0 +1,184 @@
+/*
+ *                      QEMU INSTANCES MANAGER LIBRARY
+ *                                Java Version
+ * 
+ * PRODUCT OWNER: Research Centre in Real-Time & Embedded Computing Systems
+ * PROJECT MANAGER: Luís Pinho and Cláudio Maia {lmn,clrrm}@isep.ipp.pt
+ * DEVELOPER: Manuel Meireles ( mjcdm@isep.ipp.pt )
+ * DATE: 24/11/2017
+ * SCOPE: CISTER Summer Internship 2017
+ * VERSION: 1.0
+ */
+package Metrics;
+
+/**
+ * The latency of an operation on an instance, e.g. a QMP command, over a
+ * window that starts anew on every reset.
+ *
+ * @see Latencies
+ * @author Manuel Meireles ( mjcdm@isep.ipp.pt )
+ */
+public class Latency implements LatencyMXBean {
+
+    /**
+     * The number of nanoseconds in a millisecond.
+     */
+    private static final double NANOS_PER_MILLI = 1e6;
+
+    /**
+     * The latencies of the window.
+     */
+    private final Histogram histogram;
+
+    /**
+     * The moment the window started, in milliseconds since the epoch.
+     */
+    private volatile long windowStart;
+
+    /**
+     * A private constructor that initializes an empty window.
+     */
+    private Latency() {
+        histogram = Histogram.create();
+        windowStart = System.currentTimeMillis();
+    }
+
+    /**
+     * It builds the latency of an operation with an empty window.
+     *
+     * @return the built latency.
+     */
+    public static Latency create() {
+        return new Latency();
+    }
+
+    /**
+     * It records the latency of an operation.
+     *
+     * @param nanos the latency, in nanoseconds.
+     * @param failed true if the operation failed.
+     */
+    public void record(long nanos, boolean failed) {
+        histogram.record(nanos, failed);
+    }
+
+    /**
+     * A getter of the latencies of the window.
+     *
+     * @return the {@link Latency#histogram}.
+     */
+    public Histogram histogram() {
+        return histogram;
+    }
+
+    /**
+     * A getter of the number of operations in the window.
+     *
+     * @return the number of operations.
+     */
+    @Override
+    public long getCount() {
+        return histogram.count();
+    }
+
+    /**
+     * A getter of the number of failed operations in the window.
+     *
+     * @return the number of errors.
+     */
+    @Override
+    public long getErrors() {
+        return histogram.errors();
+    }
+
+    /**
+     * A getter of the fraction of the operations in the window that failed.
+     *
+     * @return the error rate, from 0 to 1, or zero if there is no operation.
+     */
+    @Override
+    public double getErrorRate() {
+        long count = histogram.count();
+        return count == 0 ? 0 : (double) histogram.errors() / count;
+    }
+
+    /**
+     * A getter of the mean latency in the window.
+     *
+     * @return the mean latency, in milliseconds.
+     */
+    @Override
+    public double getMean() {
+        return histogram.mean() / NANOS_PER_MILLI;
+    }
+
+    /**
+     * A getter of the highest latency in the window.
+     *
+     * @return the highest latency, in milliseconds.
+     */
+    @Override
+    public double getMax() {
+        return histogram.max() / NANOS_PER_MILLI;
+    }
+
+    /**
+     * A getter of the median latency in the window.
+     *
+     * @return the 50th percentile, in milliseconds.
+     */
+    @Override
+    public double getP50() {
+        return histogram.percentile(50) / NANOS_PER_MILLI;
+    }
+
+    /**
+     * A getter of the 90th percentile of the latency in the window.
+     *
+     * @return the 90th percentile, in milliseconds.
+     */
+    @Override
+    public double getP90() {
+        return histogram.percentile(90) / NANOS_PER_MILLI;
+    }
+
+    /**
+     * A getter of the 99th percentile of the latency in the window.
+     *
+     * @return the 99th percentile, in milliseconds.
+     */
+    @Override
+    public double getP99() {
+        return histogram.percentile(99) / NANOS_PER_MILLI;
+    }
+
+    /**
+     * A getter of the 99.9th percentile of the latency in the window.
+     *
+     * @return the 99.9th percentile, in milliseconds.
+     */
+    @Override
+    public double getP999() {
+        return histogram.percentile(99.9) / NANOS_PER_MILLI;
+    }
+
+    /**
+     * A getter of the moment the window started.
+     *
+     * @return the {@link Latency#windowStart}.
+     */
+    @Override
+    public long getWindowStart() {
+        return windowStart;
+    }
+
+    /**
+     * It starts a new window, forgetting the latencies recorded so far.
+     */
+    @Override
+    public void reset() {
+        windowStart = System.currentTimeMillis();
+        histogram.reset();
+    }
+
+}
@@ -0,0 +1,99 @@
+/*
+ *                      QEMU INSTANCES MANAGER LIBRARY
+ *                                Java Version
+ * 
+ * PRODUCT OWNER: Research Centre in Real-Time & Embedded Computing Systems
+ * PROJECT MANAGER: Luís Pinho and Cláudio Maia {lmn,clrrm}@isep.ipp.pt
+ * DEVELOPER: Manuel Meireles ( mjcdm@isep.ipp.pt )
+ * DATE: 24/11/2017
+ * SCOPE: CISTER Summer Internship 2017
+ * VERSION: 1.0
+ */
+package Metrics;
+
+/**
+ * The management interface of a {@link Latency}, as seen through JMX. The
+ * latencies are in milliseconds and cover the current window, i.e. since the
+ * last reset.
+ *
+ * @see Latencies
+ * @author Manuel Meireles ( mjcdm@isep.ipp.pt )
+ */
+public interface LatencyMXBean {
+
+    /**
+     * A getter of the number of operations in the window.
+     *
+     * @return the number of operations.
+     */
+    long getCount();
+
+    /**
+     * A getter of the number of failed operations in the window.
+     *
+     * @return the number of errors.
+     */
+    long getErrors();
+
+    /**
+     * A getter of the fraction of the operations in the window that failed.
+     *
+     * @return the error rate, from 0 to 1.
+     */
+    double getErrorRate();
+
+    /**
+     * A getter of the mean latency in the window.
+     *
+     * @return the mean latency, in milliseconds.
+     */
+    double getMean();
+
+    /**
+     * A getter of the highest latency in the window.
+     *
+     * @return the highest latency, in milliseconds.
+     */
+    double getMax();
+
+    /**
+     * A getter of the median latency in the window.
+     *
+     * @return the 50th percentile, in milliseconds.
+     */
+    double getP50();
+
+    /**
+     * A getter of the 90th percentile of the latency in the window.
+     *
+     * @return the 90th percentile, in milliseconds.
+     */
+    double getP90();
+
+    /**
+     * A getter of the 99th percentile of the latency in the window.
+     *
+     * @return the 99th percentile, in milliseconds.
+     */
+    double getP99();
+
+    /**
+     * A getter of the 99.9th percentile of the latency in the window.
+     *
+     * @return the 99.9th percentile, in milliseconds.
+     */
+    double getP999();
+
+    /**
+     * A getter of the moment the window started.
+     *
+     * @return the start of the window, in milliseconds since the epoch.
+     */
+    long getWindowStart();
+
+    /**
+     * It starts a new window, forgetting the latencies recorded so far.
+     */
+    void reset();
+
+}
@@ -0,0 +1,197 @@
+/*
+ *                      QEMU INSTANCES MANAGER LIBRARY
+ *                                Java Version
+ * 
+ * PRODUCT OWNER: Research Centre in Real-Time & Embedded Computing Systems
+ * PROJECT MANAGER: Luís Pinho and Cláudio Maia {lmn,clrrm}@isep.ipp.pt
+ * DEVELOPER: Manuel Meireles ( mjcdm@isep.ipp.pt )
+ * DATE: 24/11/2017
+ * SCOPE: CISTER Summer Internship 2017
+ * VERSION: 1.0
+ */
+package Metrics;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+
+/**
+ * A reader of the files of «/proc». A file is opened, read from its start
+ * into a direct buffer that is reused and closed again, so that no file
+ * descriptor is held between reads, however many processes are watched, and
+ * the numbers are parsed straight from its bytes. It is not thread-safe: each
+ * thread should have its own reader.
+ *
+ * @see ResourceSampler
+ * @author Manuel Meireles ( mjcdm@isep.ipp.pt )
+ */
+public class ProcReader {
+
+    /**
+     * The contents of the last file read.
+     */
+    private final ByteBuffer buffer;
+
+    /**
+     * The number of bytes of the last file read.
+     */
+    private int length;
+
+    /**
+     * A private constructor that initializes an empty buffer. Despite no
+     * validation is made, the capacity should be positive.
+     *
+     * @param theCapacity the size, in bytes, of the largest file read.
+     */
+    private ProcReader(int theCapacity) {
+        buffer = ByteBuffer.allocateDirect(theCapacity);
+        length = 0;
+    }
+
+    /**
+     * It builds a reader. A capacity lower than one is raised to one.
+     *
+     * @param capacity the size, in bytes, of the largest file read; the rest
+     * of a larger file is ignored.
+     * @return the built reader.
+     */
+    public static ProcReader create(int capacity) {
+        return new ProcReader(Math.max(1, capacity));
+    }
+
+    /**
+     * It turns a key into the bytes that are looked for.
+     *
+     * @param key the key, e.g. «VmRSS».
+     * @return the key in ASCII.
+     */
+    public static byte[] key(String key) {
+        return key.getBytes(StandardCharsets.US_ASCII);
+    }
+
+    /**
+     * It reads a file from its start and closes it.
+     *
+     * @param file the file, or null.
+     * @return true if anything was read or false if the file is null, empty
+     * or it could not be read, e.g. because the process exited or belongs to
+     * another user.
+     */
+    public boolean read(Path file) {
+        length = 0;
+        if (file == null) {
+            return false;
+        }
+        buffer.clear();
+        try (FileChannel channel = FileChannel.open(file)) {
+            int read;
+            while (buffer.hasRemaining() && (read = channel.read(buffer, buffer.position())) > 0) {
+                length += read;
+            }
+        } catch (IOException | RuntimeException ex) {
+            length = 0;
+        }
+        return length > 0;
+    }
+
+    /**
+     * It parses a field of a «stat» file, i.e. one of the numbers that follow
+     * the name of the process, which may hold spaces and is enclosed in
+     * parentheses.
+     *
+     * @param index the index of the field after the name, e.g. 0 for the
+     * state of the process.
+     * @return the number or -1 if there is no such field.
+     */
+    public long field(int index) {
+        int position = length - 1;
+        while (position >= 0 && buffer.get(position) != ')') {
+            position--;
+        }
+        if (position < 0) {
+            return -1;
+        }
+        position += 2;
+        for (int field = 0; field < index; field++) {
+            while (position < length && buffer.get(position) != ' ') {
+                position++;
+            }
+            position++;
+        }
+        return number(position);
+    }
+
+    /**
+     * It parses the value of a key of a file of «key: value» lines, e.g.
+     * «status», «io» or «sched». Only the integer part of the value is
+     * parsed.
+     *
+     * @param key the key, as given by {@link ProcReader#key(String)}.
+     * @return the value or -1 if there is no such key.
+     */
+    public long value(byte[] key) {
+        int position = 0;
+        while (position < length) {
+            if (startsWith(position, key)) {
+                int next = position + key.length;
+                byte separator = next < length ? buffer.get(next) : 0;
+                if (separator == ':' || separator == ' ' || separator == '\t') {
+                    while (next < length && buffer.get(next) != ':') {
+                        next++;
+                    }
+                    return number(next + 1);
+                }
+            }
+            while (position < length && buffer.get(position) != '\n') {
+                position++;
+            }
+            position++;
+        }
+        return -1;
+    }
+
+    /**
+     * An indicator to assess if the contents hold a key at a position.
+     *
+     * @param position the position.
+     * @param key the key.
+     * @return true if the key starts at the position or false otherwise.
+     */
+    private boolean startsWith(int position, byte[] key) {
+        if (position + key.length > length) {
+            return false;
+        }
+        for (int index = 0; index < key.length; index++) {
+            if (buffer.get(position + index) != key[index]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * It parses the non-negative integer at a position, skipping the blanks
+     * before it.
+     *
+     * @param position the position.
+     * @return the number or -1 if there is none.
+     */
+    private long number(int position) {
+        while (position < length && (buffer.get(position) == ' ' || buffer.get(position) == '\t')) {
+            position++;
+        }
+        long number = -1;
+        while (position < length) {
+            byte digit = buffer.get(position);
+            if (digit < '0' || digit > '9') {
+                break;
+            }
+            number = (number < 0 ? 0 : number * 10) + (digit - '0');
+            position++;
+        }
+        return number;
+    }
+
+}
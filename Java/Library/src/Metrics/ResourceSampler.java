@@ -0,0 +1,463 @@
+/*
+ *                      QEMU INSTANCES MANAGER LIBRARY
+ *                                Java Version
+ * 
+ * PRODUCT OWNER: Research Centre in Real-Time & Embedded Computing Systems
+ * PROJECT MANAGER: Luís Pinho and Cláudio Maia {lmn,clrrm}@isep.ipp.pt
+ * DEVELOPER: Manuel Meireles ( mjcdm@isep.ipp.pt )
+ * DATE: 24/11/2017
+ * SCOPE: CISTER Summer Internship 2017
+ * VERSION: 1.0
+ */
+package Metrics;
+
+import Communications.ResourceUsage;
+import Communications.ResourceUsage.Metric;
+import Configurations.Log;
+import Configurations.Settings;
+import Instances.Instance;
+import Instances.InstanceID;
+import Instances.QemuInstance;
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Supplier;
+
+/**
+ * A sampler of the host resources used by the instances. On a single shared
+ * schedule, every instance is sampled from the «/proc» of its process: the
+ * CPU time and the threads from «stat», the resident memory from «status»,
+ * the storage I/O from «io» and the context switches and CPU migrations of
+ * every thread from their «sched». The files are read through a single
+ * {@link ProcReader}, which opens and closes each one per sample, so that a
+ * large fleet does not exhaust the file descriptors the QMP connections and
+ * the spawns need, and the samples go into the fixed-size {@link ResourceSeries} of
+ * the instance. The root of «/proc» may be replaced, e.g. by a directory of
+ * files made up by a test.
+ *
+ * @author Manuel Meireles ( mjcdm@isep.ipp.pt )
+ */
+public class ResourceSampler {
+
+    /**
+     * The directory of the processes information.
+     */
+    private static final Path PROC = Paths.get("/proc");
+
+    /**
+     * The size, in bytes, of the largest file read.
+     */
+    private static final int BUFFER = 16 * 1024;
+
+    /**
+     * The index of the user CPU time among the fields of «stat» that follow
+     * the name of the process, which is the 14th field of the whole line.
+     */
+    private static final int UTIME_FIELD = 11;
+
+    /**
+     * The index of the system CPU time among the fields that follow the name
+     * of the process.
+     */
+    private static final int STIME_FIELD = 12;
+
+    /**
+     * The index of the number of threads among the fields that follow the
+     * name of the process.
+     */
+    private static final int THREADS_FIELD = 17;
+
+    /**
+     * The number of nanoseconds in a clock tick of the CPU times, which is a
+     * hundredth of a second on Linux.
+     */
+    private static final long NANOS_PER_TICK = 10_000_000;
+
+    /**
+     * The number of bytes in a kB of «status».
+     */
+    private static final long BYTES_PER_KB = 1024;
+
+    /**
+     * The key of the resident memory in «status».
+     */
+    private static final byte[] RSS = ProcReader.key("VmRSS");
+
+    /**
+     * The key of the bytes read from the storage in «io».
+     */
+    private static final byte[] READ_BYTES = ProcReader.key("read_bytes");
+
+    /**
+     * The key of the bytes written to the storage in «io».
+     */
+    private static final byte[] WRITE_BYTES = ProcReader.key("write_bytes");
+
+    /**
+     * The key of the voluntary context switches in «sched».
+     */
+    private static final byte[] VOLUNTARY_SWITCHES = ProcReader.key("nr_voluntary_switches");
+
+    /**
+     * The key of the involuntary context switches in «sched».
+     */
+    private static final byte[] INVOLUNTARY_SWITCHES = ProcReader.key("nr_involuntary_switches");
+
+    /**
+     * The key of the CPU migrations in «sched».
+     */
+    private static final byte[] MIGRATIONS = ProcReader.key("se.nr_migrations");
+
+    /**
+     * The files of the process of an instance and its series.
+     */
+    private static class Target {
+
+        /**
+         * The series of the samples of the instance.
+         */
+        private final ResourceSeries series;
+
+        /**
+         * The process identification whose files are located, or -1.
+         */
+        private long pid = -1;
+
+        /**
+         * The «stat» of the process.
+         */
+        private Path stat;
+
+        /**
+         * The «status» of the process.
+         */
+        private Path status;
+
+        /**
+         * The «io» of the process.
+         */
+        private Path io;
+
+        /**
+         * The «sched» of each thread of the process.
+         */
+        private Path[] tasks = new Path[0];
+
+        /**
+         * The number of threads of the process when they were listed.
+         */
+        private long threads = -1;
+
+        /**
+         * The number of the sweep in which the instance was last seen.
+         */
+        private long seen;
+
+        /**
+         * A constructor of a target whose files are not located yet.
+         *
+         * @param theSeries the series of the samples of the instance.
+         */
+        private Target(ResourceSeries theSeries) {
+            series = theSeries;
+        }
+
+        /**
+         * It forgets the files of the process.
+         */
+        private void forget() {
+            stat = null;
+            status = null;
+            io = null;
+            tasks = new Path[0];
+            threads = -1;
+            pid = -1;
+        }
+
+    }
+
+    /**
+     * The instances to sample.
+     */
+    private final Supplier<Collection<Instance>> fleet;
+
+    /**
+     * The root of the processes information.
+     */
+    private final Path root;
+
+    /**
+     * The time, in milliseconds, between sweeps.
+     */
+    private final long interval;
+
+    /**
+     * The number of samples kept per instance.
+     */
+    private final int capacity;
+
+    /**
+     * The reader of the files, only used by the timer thread.
+     */
+    private final ProcReader reader;
+
+    /**
+     * The sample being taken, only used by the timer thread.
+     */
+    private final long[] sample;
+
+    /**
+     * The files and the series of each instance.
+     */
+    private final Map<InstanceID, Target> targets;
+
+    /**
+     * The thread that runs the sweeps.
+     */
+    private final ScheduledExecutorService timer;
+
+    /**
+     * Whether the sweeps were started.
+     */
+    private final AtomicBoolean started;
+
+    /**
+     * The number of sweeps run so far.
+     */
+    private long sweeps;
+
+    /**
+     * A private constructor that initializes a stopped sampler. Despite no
+     * validations are made, the fleet and the root should not be null and the
+     * numbers should be positive.
+     *
+     * @param theFleet the instances to sample.
+     * @param theRoot the root of the processes information.
+     * @param theInterval the time between sweeps.
+     * @param theCapacity the number of samples kept per instance.
+     */
+    private ResourceSampler(Supplier<Collection<Instance>> theFleet, Path theRoot, long theInterval,
+            int theCapacity) {
+        fleet = theFleet;
+        root = theRoot;
+        interval = theInterval;
+        capacity = theCapacity;
+        reader = ProcReader.create(BUFFER);
+        sample = new long[Metric.values().length];
+        targets = new ConcurrentHashMap<>();
+        timer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "resource-sampler");
+            thread.setDaemon(true);
+            return thread;
+        });
+        started = new AtomicBoolean(false);
+        sweeps = 0;
+    }
+
+    /**
+     * It builds a stopped sampler of the «/proc» of the host with the
+     * interval and the capacity from the {@link Settings}.
+     *
+     * @param fleet the supplier of the instances to sample.
+     * @return the built sampler.
+     */
+    public static ResourceSampler create(Supplier<Collection<Instance>> fleet) {
+        return create(fleet, PROC, Settings.getResourceSampleInterval(), Settings.getResourceSampleCapacity());
+    }
+
+    /**
+     * It builds a stopped sampler. The numbers lower than one are raised to
+     * one.
+     *
+     * @param fleet the supplier of the instances to sample.
+     * @param root the root of the processes information, usually «/proc».
+     * @param interval the time, in milliseconds, between sweeps.
+     * @param capacity the number of samples kept per instance.
+     * @return the built sampler.
+     */
+    public static ResourceSampler create(Supplier<Collection<Instance>> fleet, Path root, long interval,
+            int capacity) {
+        return new ResourceSampler(fleet, root, Math.max(1, interval), Math.max(1, capacity));
+    }
+
+    /**
+     * It starts the sweeps, unless they were already started.
+     */
+    public void start() {
+        if (started.compareAndSet(false, true)) {
+            timer.scheduleWithFixedDelay(this::sweep, 0, interval, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * It stops the sweeps and drops the series of every instance.
+     */
+    public void stop() {
+        timer.shutdownNow();
+        try {
+            timer.awaitTermination(interval, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+        targets.clear();
+    }
+
+    /**
+     * It provides the recent resource usage of an instance.
+     *
+     * @param id the identification of the instance.
+     * @param samples the number of samples wanted.
+     * @return the {@link ResourceUsage} of up to that many samples, oldest
+     * first, which is empty if the instance was never sampled.
+     */
+    public ResourceUsage usage(InstanceID id, int samples) {
+        Target target = targets.get(id);
+        return target == null ? ResourceUsage.create(new long[0], new long[Metric.values().length][0])
+                : target.series.usage(samples);
+    }
+
+    /**
+     * A getter of the number of samples kept per instance.
+     *
+     * @return the {@link ResourceSampler#capacity}.
+     */
+    public int capacity() {
+        return capacity;
+    }
+
+    /**
+     * It samples every live instance of the fleet and drops the files and the
+     * series of the instances that left it.
+     */
+    private void sweep() {
+        long sweep = ++sweeps;
+        try {
+            for (Instance instance : fleet.get()) {
+                if (!(instance instanceof QemuInstance) || !instance.isAlive()) {
+                    continue;
+                }
+                Target target = targets.computeIfAbsent(instance.id(), id -> new Target(ResourceSeries.create(capacity)));
+                target.seen = sweep;
+                sample(((QemuInstance) instance).pid(), target);
+            }
+        } catch (RuntimeException ex) {
+            Log.warning("{0}", ex);
+        }
+        targets.values().removeIf(target -> target.seen != sweep);
+    }
+
+    /**
+     * It samples the process of an instance into its series. The files are
+     * located again if the process changed and the threads are listed again
+     * if their number changed or one of them exited.
+     *
+     * @param pid the process identification of the instance.
+     * @param target the files and the series of the instance.
+     */
+    private void sample(long pid, Target target) {
+        if (pid <= 0) {
+            return;
+        }
+        if (pid != target.pid) {
+            locate(pid, target);
+        }
+        if (!reader.read(target.stat)) {
+            target.forget();
+            return;
+        }
+        long utime = reader.field(UTIME_FIELD);
+        long stime = reader.field(STIME_FIELD);
+        long threads = reader.field(THREADS_FIELD);
+        sample[Metric.CPU_TIME.ordinal()] = utime < 0 || stime < 0 ? -1 : (utime + stime) * NANOS_PER_TICK;
+        sample[Metric.THREADS.ordinal()] = threads;
+        long rss = reader.read(target.status) ? reader.value(RSS) : -1;
+        sample[Metric.RSS.ordinal()] = rss < 0 ? -1 : rss * BYTES_PER_KB;
+        boolean io = reader.read(target.io);
+        sample[Metric.READ_BYTES.ordinal()] = io ? reader.value(READ_BYTES) : -1;
+        sample[Metric.WRITE_BYTES.ordinal()] = io ? reader.value(WRITE_BYTES) : -1;
+        if (threads != target.threads) {
+            listTasks(pid, target, threads);
+        }
+        if (!sampleTasks(target)) {
+            listTasks(pid, target, threads);
+            sampleTasks(target);
+        }
+        target.series.record(System.currentTimeMillis(), sample);
+    }
+
+    /**
+     * It sums the context switches and the CPU migrations of every thread of
+     * the process into the sample.
+     *
+     * @param target the files of the process.
+     * @return true if the «sched» of every thread was read or false if a
+     * thread exited.
+     */
+    private boolean sampleTasks(Target target) {
+        long voluntary = 0;
+        long involuntary = 0;
+        long migrations = 0;
+        for (Path task : target.tasks) {
+            if (!reader.read(task)) {
+                return false;
+            }
+            voluntary += Math.max(0, reader.value(VOLUNTARY_SWITCHES));
+            involuntary += Math.max(0, reader.value(INVOLUNTARY_SWITCHES));
+            migrations += Math.max(0, reader.value(MIGRATIONS));
+        }
+        boolean known = target.tasks.length > 0;
+        sample[Metric.VOLUNTARY_SWITCHES.ordinal()] = known ? voluntary : -1;
+        sample[Metric.INVOLUNTARY_SWITCHES.ordinal()] = known ? involuntary : -1;
+        sample[Metric.MIGRATIONS.ordinal()] = known ? migrations : -1;
+        return true;
+    }
+
+    /**
+     * It locates the files of a process. A file that may not be read, e.g.
+     * the «io» of a process of another user, is simply not sampled.
+     *
+     * @param pid the process identification.
+     * @param target the files of the instance.
+     */
+    private void locate(long pid, Target target) {
+        Path process = root.resolve(Long.toString(pid));
+        target.forget();
+        target.pid = pid;
+        target.stat = process.resolve("stat");
+        target.status = process.resolve("status");
+        target.io = process.resolve("io");
+    }
+
+    /**
+     * It lists the «sched» of every thread of a process, replacing the former
+     * ones.
+     *
+     * @param pid the process identification.
+     * @param target the files of the instance.
+     * @param threads the number of threads of the process, as of its «stat».
+     */
+    private void listTasks(long pid, Target target, long threads) {
+        List<Path> tasks = new ArrayList<>();
+        try (DirectoryStream<Path> directory = Files.newDirectoryStream(root.resolve(pid + "/task"))) {
+            for (Path task : directory) {
+                tasks.add(task.resolve("sched"));
+            }
+        } catch (IOException | RuntimeException ex) {
+            Log.fine("{0}", ex);
+        }
+        target.tasks = tasks.toArray(new Path[0]);
+        target.threads = threads;
+    }
+
+}
@@ -0,0 +1,110 @@
+/*
+ *                      QEMU INSTANCES MANAGER LIBRARY
+ *                                Java Version
+ * 
+ * PRODUCT OWNER: Research Centre in Real-Time & Embedded Computing Systems
+ * PROJECT MANAGER: Luís Pinho and Cláudio Maia {lmn,clrrm}@isep.ipp.pt
+ * DEVELOPER: Manuel Meireles ( mjcdm@isep.ipp.pt )
+ * DATE: 24/11/2017
+ * SCOPE: CISTER Summer Internship 2017
+ * VERSION: 1.0
+ */
+package Metrics;
+
+import Communications.ResourceUsage;
+import Communications.ResourceUsage.Metric;
+
+/**
+ * A fixed-size time series of the resource usage of an instance. It is a
+ * ring buffer of primitive arrays, one per {@link Metric}, so that recording
+ * a sample allocates nothing and the oldest sample is overwritten once the
+ * series is full.
+ *
+ * @see ResourceSampler
+ * @author Manuel Meireles ( mjcdm@isep.ipp.pt )
+ */
+public class ResourceSeries {
+
+    /**
+     * The time, in milliseconds since the epoch, of each slot.
+     */
+    private final long[] times;
+
+    /**
+     * The values of each metric, indexed by its ordinal, of each slot.
+     */
+    private final long[][] values;
+
+    /**
+     * The number of samples recorded so far.
+     */
+    private long written;
+
+    /**
+     * A private constructor that initializes an empty series. Despite no
+     * validation is made, the capacity should be positive.
+     *
+     * @param theCapacity the number of samples kept.
+     */
+    private ResourceSeries(int theCapacity) {
+        times = new long[theCapacity];
+        values = new long[Metric.values().length][theCapacity];
+        written = 0;
+    }
+
+    /**
+     * It builds an empty series. A capacity lower than one is raised to one.
+     *
+     * @param capacity the number of samples kept.
+     * @return the built series.
+     */
+    public static ResourceSeries create(int capacity) {
+        return new ResourceSeries(Math.max(1, capacity));
+    }
+
+    /**
+     * It records a sample, overwriting the oldest one if the series is full.
+     *
+     * @param time the time, in milliseconds since the epoch, of the sample.
+     * @param sample the value of each metric, indexed by its ordinal.
+     */
+    public synchronized void record(long time, long[] sample) {
+        int slot = (int) (written % times.length);
+        times[slot] = time;
+        for (int metric = 0; metric < values.length; metric++) {
+            values[metric][slot] = sample[metric];
+        }
+        written++;
+    }
+
+    /**
+     * It provides a copy of the most recent samples.
+     *
+     * @param samples the number of samples wanted.
+     * @return the {@link ResourceUsage} of up to that many samples, oldest
+     * first.
+     */
+    public synchronized ResourceUsage usage(int samples) {
+        int size = (int) Math.min(Math.max(0, samples), Math.min(written, times.length));
+        long[] copyTimes = new long[size];
+        long[][] copyValues = new long[values.length][size];
+        for (int index = 0; index < size; index++) {
+            int slot = (int) ((written - size + index) % times.length);
+            copyTimes[index] = times[slot];
+            for (int metric = 0; metric < values.length; metric++) {
+                copyValues[metric][index] = values[metric][slot];
+            }
+        }
+        return ResourceUsage.create(copyTimes, copyValues);
+    }
+
+    /**
+     * A getter of the number of samples kept.
+     *
+     * @return the capacity of the series.
+     */
+    public int capacity() {
+        return times.length;
+    }
+
+}
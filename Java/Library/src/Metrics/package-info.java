@@ -0,0 +1,14 @@
+/**
+ * The package contains classes related to the concept of Metrics. Each
+ * {@link Metrics.Latency} keeps, in a lock-free {@link Metrics.Histogram} of
+ * fixed size, how long an operation took on an instance, e.g. a QMP command,
+ * a start or a manager operation. They are kept by {@link Metrics.Latencies}
+ * and published as MBeans, so that any JMX console shows their percentiles,
+ * counts and error rates. The {@link Metrics.ResourceSampler} samples, on a
+ * single schedule, the host resources used by the process of every instance
+ * into its {@link Metrics.ResourceSeries}, while the
+ * {@link Metrics.GuestStatsCollector} polls, in pipelined batches and less
+ * often while the guest is idle, the KVM and balloon statistics of every
+ * guest into its {@link Metrics.GuestSeries}.
+ */
+package Metrics;
@@ -16,7 +16,10 @@ import Commands.GenericQMP;
 
 /**
  * A parser. It exchanges the command in CMD format to a JSON format that QEMU
- * understands.
+ * understands. The CMD format is the name of the command optionally followed,
+ * after a space, by its arguments as a JSON object, e.g. «migrate
+ * {"uri":"tcp:127.0.0.1:4444"}». A command that is already a JSON object is
+ * left as it is.
  *
  * @author Manuel Meireles ( mjcdm@isep.ipp.pt )
  */
@@ -27,6 +30,11 @@ public class CMDtoJSON implements Parser {
      */
     private static final String JSON_KEY = "{\"execute\":\"";
 
+    /**
+     * The JSON between the name and the arguments of the command.
+     */
+    private static final String JSON_ARGUMENTS = "\",\"arguments\":";
+
     /**
      * The JSON end of the command.
      */
@@ -40,7 +48,17 @@ public class CMDtoJSON implements Parser {
      */
     @Override
     public Command parse(Command command) {
-        return GenericQMP.create(JSON_KEY + command.instruction() + JSON_END);
+        String instruction = command.instruction().trim();
+        if (instruction.startsWith("{")) {
+            return GenericQMP.create(instruction);
+        }
+        int space = instruction.indexOf(' ');
+        if (space < 0) {
+            return GenericQMP.create(JSON_KEY + instruction + JSON_END);
+        }
+        String name = instruction.substring(0, space);
+        String arguments = instruction.substring(space + 1).trim();
+        return GenericQMP.create(JSON_KEY + name + JSON_ARGUMENTS + arguments + "}");
     }
 
 }
@@ -0,0 +1,327 @@
+/*
+ *                      QEMU INSTANCES MANAGER LIBRARY
+ *                                Java Version
+ * 
+ * PRODUCT OWNER: Research Centre in Real-Time & Embedded Computing Systems
+ * PROJECT MANAGER: Luís Pinho and Cláudio Maia {lmn,clrrm}@isep.ipp.pt
+ * DEVELOPER: Manuel Meireles ( mjcdm@isep.ipp.pt )
+ * DATE: 24/11/2017
+ * SCOPE: CISTER Summer Internship 2017
+ * VERSION: 1.0
+ */
+package Parsers;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A reader of JSON texts, such as the replies and the events of QEMU. The
+ * objects are read into {@link Map}s, the arrays into {@link List}s, the
+ * numbers into {@link Long}s or, if they have a fraction or an exponent,
+ * {@link Double}s, the booleans into {@link Boolean}s and null into null.
+ *
+ * @author Manuel Meireles ( mjcdm@isep.ipp.pt )
+ */
+public class JSONReader {
+
+    /**
+     * The text being read.
+     */
+    private final String text;
+
+    /**
+     * The position of the next character to read.
+     */
+    private int position;
+
+    /**
+     * A private constructor that initializes the reader at the start of the
+     * text. Despite no validation is made, the text should not be null.
+     *
+     * @param theText the text to read.
+     */
+    private JSONReader(String theText) {
+        text = theText;
+        position = 0;
+    }
+
+    /**
+     * It reads a JSON text.
+     *
+     * @param text the text to read.
+     * @return the read value.
+     * @throws IllegalArgumentException if the text is null or is not valid
+     * JSON.
+     */
+    public static Object read(String text) {
+        if (text == null) {
+            throw new IllegalArgumentException("No JSON text.");
+        }
+        JSONReader reader = new JSONReader(text);
+        Object value = reader.value();
+        reader.skipWhitespace();
+        if (reader.position != text.length()) {
+            throw reader.error("end of text");
+        }
+        return value;
+    }
+
+    /**
+     * It reads a JSON object.
+     *
+     * @param text the text to read.
+     * @return the read object or an empty map if the text is not a valid JSON
+     * object.
+     */
+    @SuppressWarnings("unchecked")
+    public static Map<String, Object> object(String text) {
+        try {
+            Object value = read(text);
+            if (value instanceof Map) {
+                return (Map<String, Object>) value;
+            }
+        } catch (IllegalArgumentException ex) {
+            // Not an object.
+        }
+        return new LinkedHashMap<>();
+    }
+
+    /**
+     * It follows a path of keys through nested objects.
+     *
+     * @param value the outermost value.
+     * @param keys the keys to follow.
+     * @return the value at the end of the path or null if the path does not
+     * exist.
+     */
+    public static Object path(Object value, String... keys) {
+        Object current = value;
+        for (String key : keys) {
+            if (!(current instanceof Map)) {
+                return null;
+            }
+            current = ((Map<?, ?>) current).get(key);
+        }
+        return current;
+    }
+
+    /**
+     * It follows a path of keys through nested objects down to a number.
+     *
+     * @param value the outermost value.
+     * @param keys the keys to follow.
+     * @return the number at the end of the path, truncated, or -1 if the path
+     * does not exist or does not end at a number.
+     */
+    public static long number(Object value, String... keys) {
+        Object number = path(value, keys);
+        return number instanceof Number ? ((Number) number).longValue() : -1;
+    }
+
+    /**
+     * It reads the value at the current position.
+     *
+     * @return the read value.
+     */
+    private Object value() {
+        skipWhitespace();
+        if (position >= text.length()) {
+            throw error("a value");
+        }
+        char next = text.charAt(position);
+        switch (next) {
+            case '{':
+                return object();
+            case '[':
+                return array();
+            case '"':
+                return string();
+            case 't':
+                return literal("true", Boolean.TRUE);
+            case 'f':
+                return literal("false", Boolean.FALSE);
+            case 'n':
+                return literal("null", null);
+            default:
+                return number();
+        }
+    }
+
+    /**
+     * It reads the object at the current position.
+     *
+     * @return the read object, whose entries keep their order.
+     */
+    private Map<String, Object> object() {
+        Map<String, Object> object = new LinkedHashMap<>();
+        position++;
+        skipWhitespace();
+        if (consume('}')) {
+            return object;
+        }
+        do {
+            skipWhitespace();
+            if (position >= text.length() || text.charAt(position) != '"') {
+                throw error("a key");
+            }
+            String key = string();
+            skipWhitespace();
+            if (!consume(':')) {
+                throw error("':'");
+            }
+            object.put(key, value());
+            skipWhitespace();
+        } while (consume(','));
+        if (!consume('}')) {
+            throw error("'}'");
+        }
+        return object;
+    }
+
+    /**
+     * It reads the array at the current position.
+     *
+     * @return the read array.
+     */
+    private List<Object> array() {
+        List<Object> array = new ArrayList<>();
+        position++;
+        skipWhitespace();
+        if (consume(']')) {
+            return array;
+        }
+        do {
+            array.add(value());
+            skipWhitespace();
+        } while (consume(','));
+        if (!consume(']')) {
+            throw error("']'");
+        }
+        return array;
+    }
+
+    /**
+     * It reads the string at the current position.
+     *
+     * @return the read string, unescaped.
+     */
+    private String string() {
+        StringBuilder builder = new StringBuilder();
+        position++;
+        while (position < text.length()) {
+            char next = text.charAt(position++);
+            if (next == '"') {
+                return builder.toString();
+            }
+            if (next != '\\') {
+                builder.append(next);
+                continue;
+            }
+            if (position >= text.length()) {
+                break;
+            }
+            char escaped = text.charAt(position++);
+            switch (escaped) {
+                case 'b':
+                    builder.append('\b');
+                    break;
+                case 'f':
+                    builder.append('\f');
+                    break;
+                case 'n':
+                    builder.append('\n');
+                    break;
+                case 'r':
+                    builder.append('\r');
+                    break;
+                case 't':
+                    builder.append('\t');
+                    break;
+                case 'u':
+                    if (position + 4 > text.length()) {
+                        throw error("four hexadecimal digits");
+                    }
+                    builder.append((char) Integer.parseInt(text.substring(position, position + 4), 16));
+                    position += 4;
+                    break;
+                default:
+                    builder.append(escaped);
+            }
+        }
+        throw error("'\"'");
+    }
+
+    /**
+     * It reads the number at the current position.
+     *
+     * @return the read number as a {@link Long} or a {@link Double}.
+     */
+    private Number number() {
+        int start = position;
+        boolean integral = true;
+        while (position < text.length() && "+-0123456789.eE".indexOf(text.charAt(position)) >= 0) {
+            if (".eE".indexOf(text.charAt(position)) >= 0) {
+                integral = false;
+            }
+            position++;
+        }
+        String number = text.substring(start, position);
+        try {
+            return integral ? (Number) Long.valueOf(number) : (Number) Double.valueOf(number);
+        } catch (NumberFormatException ex) {
+            position = start;
+            throw error("a value");
+        }
+    }
+
+    /**
+     * It reads a literal at the current position.
+     *
+     * @param literal the expected literal.
+     * @param value the value of the literal.
+     * @return the value of the literal.
+     */
+    private Object literal(String literal, Object value) {
+        if (!text.startsWith(literal, position)) {
+            throw error(literal);
+        }
+        position += literal.length();
+        return value;
+    }
+
+    /**
+     * It consumes a character if it is the one at the current position.
+     *
+     * @param expected the expected character.
+     * @return true if it was consumed or false otherwise.
+     */
+    private boolean consume(char expected) {
+        if (position < text.length() && text.charAt(position) == expected) {
+            position++;
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * It skips the whitespace at the current position.
+     */
+    private void skipWhitespace() {
+        while (position < text.length() && Character.isWhitespace(text.charAt(position))) {
+            position++;
+        }
+    }
+
+    /**
+     * It builds the exception of an unexpected character.
+     *
+     * @param expected a description of what was expected.
+     * @return the built exception.
+     */
+    private IllegalArgumentException error(String expected) {
+        return new IllegalArgumentException("Expected " + expected + " at position " + position + ".");
+    }
+
+}
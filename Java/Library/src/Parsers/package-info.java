@@ -6,6 +6,7 @@
  * <br/><br/>
  * For the time being there is only one parser, i.e. {@link Parsers.CMDtoJSON},
  * which is responsible to transform the commands introduced as they would be in
- * the QEMU Monitor to the matching JSON format that QEMU understands.
+ * the QEMU Monitor to the matching JSON format that QEMU understands. The
+ * replies of the QEMU are read back by the {@link Parsers.JSONReader}.
  */
 package Parsers;
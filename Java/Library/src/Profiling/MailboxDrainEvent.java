@@ -0,0 +1,94 @@
+/*
+ *                      QEMU INSTANCES MANAGER LIBRARY
+ *                                Java Version
+ * 
+ * PRODUCT OWNER: Research Centre in Real-Time & Embedded Computing Systems
+ * PROJECT MANAGER: Luís Pinho and Cláudio Maia {lmn,clrrm}@isep.ipp.pt
+ * DEVELOPER: Manuel Meireles ( mjcdm@isep.ipp.pt )
+ * DATE: 24/11/2017
+ * SCOPE: CISTER Summer Internship 2017
+ * VERSION: 1.0
+ */
+package Profiling;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * A flight recorder event of a run of the drainer of a mailbox, i.e. of the
+ * time a thread is switched to the commands of an instance. It lasts until
+ * the mailbox is empty and it holds how many commands ran and how many of
+ * them were urgent.
+ *
+ * @author Manuel Meireles ( mjcdm@isep.ipp.pt )
+ */
+@Name(MailboxDrainEvent.NAME)
+@Label("Mailbox Drain")
+@Category({"QEMU Manager", "Scheduling"})
+@Description("A run of the drainer of the mailbox of an instance.")
+@StackTrace(false)
+public class MailboxDrainEvent extends Event {
+
+    /**
+     * The name of the event in a recording.
+     */
+    public static final String NAME = "qemu.MailboxDrain";
+
+    /**
+     * The identification of the instance that owns the mailbox.
+     */
+    @Label("Instance")
+    private String instance;
+
+    /**
+     * The number of commands that ran.
+     */
+    @Label("Commands")
+    private int commands;
+
+    /**
+     * The number of urgent commands that ran.
+     */
+    @Label("Urgent Commands")
+    private int urgent;
+
+    /**
+     * A private constructor of an event that has not begun.
+     */
+    private MailboxDrainEvent() {
+    }
+
+    /**
+     * It builds an event and begins it.
+     *
+     * @return the begun event.
+     */
+    public static MailboxDrainEvent started() {
+        MailboxDrainEvent event = new MailboxDrainEvent();
+        event.begin();
+        return event;
+    }
+
+    /**
+     * It ends the event and, only if the recording asks for it, fills and
+     * commits it.
+     *
+     * @param instance the identification of the instance.
+     * @param commands the number of commands that ran.
+     * @param urgent the number of urgent commands that ran.
+     */
+    public void finish(String instance, int commands, int urgent) {
+        end();
+        if (shouldCommit()) {
+            this.instance = instance;
+            this.commands = commands;
+            this.urgent = urgent;
+            commit();
+        }
+    }
+
+}
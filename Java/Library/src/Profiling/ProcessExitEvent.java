@@ -0,0 +1,81 @@
+/*
+ *                      QEMU INSTANCES MANAGER LIBRARY
+ *                                Java Version
+ * 
+ * PRODUCT OWNER: Research Centre in Real-Time & Embedded Computing Systems
+ * PROJECT MANAGER: Luís Pinho and Cláudio Maia {lmn,clrrm}@isep.ipp.pt
+ * DEVELOPER: Manuel Meireles ( mjcdm@isep.ipp.pt )
+ * DATE: 24/11/2017
+ * SCOPE: CISTER Summer Internship 2017
+ * VERSION: 1.0
+ */
+package Profiling;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * A flight recorder event of the exit of the process of an instance. It is
+ * instant and it is committed once the exit is noticed.
+ *
+ * @author Manuel Meireles ( mjcdm@isep.ipp.pt )
+ */
+@Name(ProcessExitEvent.NAME)
+@Label("Process Exit")
+@Category({"QEMU Manager", "Process"})
+@Description("The exit of the QEMU process of an instance.")
+@StackTrace(false)
+public class ProcessExitEvent extends Event {
+
+    /**
+     * The name of the event in a recording.
+     */
+    public static final String NAME = "qemu.ProcessExit";
+
+    /**
+     * The identification of the instance.
+     */
+    @Label("Instance")
+    private String instance;
+
+    /**
+     * The process identification.
+     */
+    @Label("PID")
+    private long pid;
+
+    /**
+     * The exit value of the process, or -1 if it was not its child.
+     */
+    @Label("Exit Value")
+    private int exitValue;
+
+    /**
+     * A private constructor of an instant event.
+     */
+    private ProcessExitEvent() {
+    }
+
+    /**
+     * It commits an event, only if the recording asks for it. The exit value
+     * is only known for a process created by this manager.
+     *
+     * @param instance the identification of the instance.
+     * @param handle the handle of the process that exited.
+     * @param process the process that exited, or null if it was attached.
+     */
+    public static void emit(String instance, ProcessHandle handle, Process process) {
+        ProcessExitEvent event = new ProcessExitEvent();
+        if (event.shouldCommit()) {
+            event.instance = instance;
+            event.pid = handle.pid();
+            event.exitValue = process != null && process.pid() == handle.pid() ? process.exitValue() : -1;
+            event.commit();
+        }
+    }
+
+}
@@ -0,0 +1,100 @@
+/*
+ *                      QEMU INSTANCES MANAGER LIBRARY
+ *                                Java Version
+ * 
+ * PRODUCT OWNER: Research Centre in Real-Time & Embedded Computing Systems
+ * PROJECT MANAGER: Luís Pinho and Cláudio Maia {lmn,clrrm}@isep.ipp.pt
+ * DEVELOPER: Manuel Meireles ( mjcdm@isep.ipp.pt )
+ * DATE: 24/11/2017
+ * SCOPE: CISTER Summer Internship 2017
+ * VERSION: 1.0
+ */
+package Profiling;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * A flight recorder event of the spawn of the process of an instance. It
+ * lasts while the process is created.
+ *
+ * @author Manuel Meireles ( mjcdm@isep.ipp.pt )
+ */
+@Name(ProcessSpawnEvent.NAME)
+@Label("Process Spawn")
+@Category({"QEMU Manager", "Process"})
+@Description("The creation of the QEMU process of an instance.")
+@StackTrace(false)
+public class ProcessSpawnEvent extends Event {
+
+    /**
+     * The name of the event in a recording.
+     */
+    public static final String NAME = "qemu.ProcessSpawn";
+
+    /**
+     * The identification of the instance.
+     */
+    @Label("Instance")
+    private String instance;
+
+    /**
+     * The process identification, or -1 if the process was not created.
+     */
+    @Label("PID")
+    private long pid;
+
+    /**
+     * The command line of the process.
+     */
+    @Label("Command Line")
+    private String commandLine;
+
+    /**
+     * Whether the process was created and alive.
+     */
+    @Label("Successful")
+    private boolean successful;
+
+    /**
+     * A private constructor of an event that has not begun.
+     */
+    private ProcessSpawnEvent() {
+    }
+
+    /**
+     * It builds an event and begins it.
+     *
+     * @return the begun event.
+     */
+    public static ProcessSpawnEvent started() {
+        ProcessSpawnEvent event = new ProcessSpawnEvent();
+        event.begin();
+        return event;
+    }
+
+    /**
+     * It ends the event and, only if the recording asks for it, fills and
+     * commits it.
+     *
+     * @param instance the identification of the instance.
+     * @param process the created process, or null if it was not created.
+     * @param commandLine the command line of the process.
+     * @param successful whether the process was created and alive.
+     */
+    public void finish(String instance, Process process, String commandLine, boolean successful) {
+        end();
+        if (shouldCommit()) {
+            this.instance = instance;
+            this.pid = process == null ? -1 : process.pid();
+            this.commandLine = commandLine;
+            this.successful = successful;
+            commit();
+        }
+    }
+
+}
@@ -0,0 +1,121 @@
+/*
+ *                      QEMU INSTANCES MANAGER LIBRARY
+ *                                Java Version
+ * 
+ * PRODUCT OWNER: Research Centre in Real-Time & Embedded Computing Systems
+ * PROJECT MANAGER: Luís Pinho and Cláudio Maia {lmn,clrrm}@isep.ipp.pt
+ * DEVELOPER: Manuel Meireles ( mjcdm@isep.ipp.pt )
+ * DATE: 24/11/2017
+ * SCOPE: CISTER Summer Internship 2017
+ * VERSION: 1.0
+ */
+package Profiling;
+
+import Commands.Command;
+import Metrics.Latencies;
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * A flight recorder event of a QMP command. It lasts from the moment the
+ * command is written until its reply is read and it holds the instance, the
+ * command, the lane and the bytes written and read.
+ *
+ * @author Manuel Meireles ( mjcdm@isep.ipp.pt )
+ */
+@Name(QmpCommandEvent.NAME)
+@Label("QMP Command")
+@Category({"QEMU Manager", "QMP"})
+@Description("A QMP command sent to an instance and its reply.")
+@StackTrace(false)
+public class QmpCommandEvent extends Event {
+
+    /**
+     * The name of the event in a recording.
+     */
+    public static final String NAME = "qemu.QmpCommand";
+
+    /**
+     * The identification of the instance or the address of the QEMU.
+     */
+    @Label("Instance")
+    private String instance;
+
+    /**
+     * The name of the command, e.g. «query-status».
+     */
+    @Label("Command")
+    private String command;
+
+    /**
+     * The lane in which the command was sent.
+     */
+    @Label("Lane")
+    private String lane;
+
+    /**
+     * The bytes written to the socket.
+     */
+    @Label("Bytes Sent")
+    @DataAmount
+    private long sent;
+
+    /**
+     * The bytes of the reply.
+     */
+    @Label("Bytes Received")
+    @DataAmount
+    private long received;
+
+    /**
+     * Whether the QEMU replied with a success.
+     */
+    @Label("Successful")
+    private boolean successful;
+
+    /**
+     * A private constructor of an event that has not begun.
+     */
+    private QmpCommandEvent() {
+    }
+
+    /**
+     * It builds an event and begins it.
+     *
+     * @return the begun event.
+     */
+    public static QmpCommandEvent started() {
+        QmpCommandEvent event = new QmpCommandEvent();
+        event.begin();
+        return event;
+    }
+
+    /**
+     * It ends the event and, only if the recording asks for it, fills and
+     * commits it. Nothing is derived from the command or the reply otherwise.
+     *
+     * @param instance the identification of the instance.
+     * @param command the command sent.
+     * @param sent the command as it was written to the socket.
+     * @param reply the reply of the QEMU, or null if there was none.
+     * @param successful whether the QEMU replied with a success.
+     */
+    public void finish(String instance, Command command, String sent, String reply, boolean successful) {
+        end();
+        if (shouldCommit()) {
+            this.instance = instance;
+            this.command = Latencies.operation(command);
+            this.lane = command.priority().name();
+            this.sent = sent == null ? 0 : sent.length();
+            this.received = reply == null ? 0 : reply.length();
+            this.successful = successful;
+            commit();
+        }
+    }
+
+}
@@ -0,0 +1,93 @@
+/*
+ *                      QEMU INSTANCES MANAGER LIBRARY
+ *                                Java Version
+ * 
+ * PRODUCT OWNER: Research Centre in Real-Time & Embedded Computing Systems
+ * PROJECT MANAGER: Luís Pinho and Cláudio Maia {lmn,clrrm}@isep.ipp.pt
+ * DEVELOPER: Manuel Meireles ( mjcdm@isep.ipp.pt )
+ * DATE: 24/11/2017
+ * SCOPE: CISTER Summer Internship 2017
+ * VERSION: 1.0
+ */
+package Profiling;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * A flight recorder event of a QMP connection. It lasts from the moment the
+ * socket starts connecting until the greeting of the QEMU is read.
+ *
+ * @author Manuel Meireles ( mjcdm@isep.ipp.pt )
+ */
+@Name(QmpConnectEvent.NAME)
+@Label("QMP Connect")
+@Category({"QEMU Manager", "QMP"})
+@Description("A connection to the QMP of an instance, up to its greeting.")
+@StackTrace(false)
+public class QmpConnectEvent extends Event {
+
+    /**
+     * The name of the event in a recording.
+     */
+    public static final String NAME = "qemu.QmpConnect";
+
+    /**
+     * The identification of the instance.
+     */
+    @Label("Instance")
+    private String instance;
+
+    /**
+     * The address of the QMP, i.e. the IP address and the port number.
+     */
+    @Label("Address")
+    private String address;
+
+    /**
+     * Whether the greeting was read.
+     */
+    @Label("Successful")
+    private boolean successful;
+
+    /**
+     * A private constructor of an event that has not begun.
+     */
+    private QmpConnectEvent() {
+    }
+
+    /**
+     * It builds an event and begins it.
+     *
+     * @return the begun event.
+     */
+    public static QmpConnectEvent started() {
+        QmpConnectEvent event = new QmpConnectEvent();
+        event.begin();
+        return event;
+    }
+
+    /**
+     * It ends the event and, only if the recording asks for it, fills and
+     * commits it.
+     *
+     * @param instance the identification of the instance.
+     * @param ip the IP address of the QEMU.
+     * @param port the port number of the QMP.
+     * @param successful whether the greeting was read.
+     */
+    public void finish(String instance, String ip, int port, boolean successful) {
+        end();
+        if (shouldCommit()) {
+            this.instance = instance;
+            this.address = ip + ":" + port;
+            this.successful = successful;
+            commit();
+        }
+    }
+
+}
@@ -0,0 +1,93 @@
+/*
+ *                      QEMU INSTANCES MANAGER LIBRARY
+ *                                Java Version
+ * 
+ * PRODUCT OWNER: Research Centre in Real-Time & Embedded Computing Systems
+ * PROJECT MANAGER: Luís Pinho and Cláudio Maia {lmn,clrrm}@isep.ipp.pt
+ * DEVELOPER: Manuel Meireles ( mjcdm@isep.ipp.pt )
+ * DATE: 24/11/2017
+ * SCOPE: CISTER Summer Internship 2017
+ * VERSION: 1.0
+ */
+package Profiling;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * A flight recorder event of a QMP handshake. It lasts while the
+ * capabilities of a new connection are negotiated and tells whether the
+ * out-of-band execution was enabled.
+ *
+ * @author Manuel Meireles ( mjcdm@isep.ipp.pt )
+ */
+@Name(QmpHandshakeEvent.NAME)
+@Label("QMP Handshake")
+@Category({"QEMU Manager", "QMP"})
+@Description("The negotiation of the capabilities of a QMP connection.")
+@StackTrace(false)
+public class QmpHandshakeEvent extends Event {
+
+    /**
+     * The name of the event in a recording.
+     */
+    public static final String NAME = "qemu.QmpHandshake";
+
+    /**
+     * The identification of the instance.
+     */
+    @Label("Instance")
+    private String instance;
+
+    /**
+     * Whether the out-of-band execution was enabled.
+     */
+    @Label("Out Of Band")
+    private boolean outOfBand;
+
+    /**
+     * Whether the capabilities were accepted.
+     */
+    @Label("Successful")
+    private boolean successful;
+
+    /**
+     * A private constructor of an event that has not begun.
+     */
+    private QmpHandshakeEvent() {
+    }
+
+    /**
+     * It builds an event and begins it.
+     *
+     * @return the begun event.
+     */
+    public static QmpHandshakeEvent started() {
+        QmpHandshakeEvent event = new QmpHandshakeEvent();
+        event.begin();
+        return event;
+    }
+
+    /**
+     * It ends the event and, only if the recording asks for it, fills and
+     * commits it.
+     *
+     * @param instance the identification of the instance.
+     * @param outOfBand whether the out-of-band execution was enabled.
+     * @param successful whether the capabilities were accepted.
+     */
+    public void finish(String instance, boolean outOfBand, boolean successful) {
+        end();
+        if (shouldCommit()) {
+            this.instance = instance;
+            this.outOfBand = outOfBand;
+            this.successful = successful;
+            commit();
+        }
+    }
+
+}
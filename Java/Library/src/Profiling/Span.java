@@ -0,0 +1,382 @@
+/*
+ *                      QEMU INSTANCES MANAGER LIBRARY
+ *                                Java Version
+ * 
+ * PRODUCT OWNER: Research Centre in Real-Time & Embedded Computing Systems
+ * PROJECT MANAGER: Luís Pinho and Cláudio Maia {lmn,clrrm}@isep.ipp.pt
+ * DEVELOPER: Manuel Meireles ( mjcdm@isep.ipp.pt )
+ * DATE: 24/11/2017
+ * SCOPE: CISTER Summer Internship 2017
+ * VERSION: 1.0
+ */
+package Profiling;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A span of a trace, i.e. a timed step of an operation, such as a manager
+ * operation, the execution of a command by an instance or its exchange over
+ * the QMP. The spans of an operation share the identification of its trace
+ * and each one knows its parent, so that a slow operation can be broken down
+ * into the steps of each instance and command. The span of the running step
+ * of a thread is its current span: a new span is a child of it, or the root
+ * of a new trace if there is none, and a task handed over to another thread
+ * through {@link Span#handOver(java.util.concurrent.Callable)} runs within
+ * the span that handed it over. The finished spans are kept by the
+ * {@link Tracer}.
+ *
+ * @author Manuel Meireles ( mjcdm@isep.ipp.pt )
+ */
+public class Span {
+
+    /**
+     * The category of the manager operations.
+     */
+    public static final String MANAGER = "manager";
+
+    /**
+     * The category of the executions of an instance.
+     */
+    public static final String INSTANCE = "instance";
+
+    /**
+     * The category of the QMP exchanges.
+     */
+    public static final String QMP = "qmp";
+
+    /**
+     * The category of the phases of a span, such as the queueing in a
+     * mailbox or the write, the wait and the parse of a QMP exchange.
+     */
+    public static final String PHASE = "phase";
+
+    /**
+     * The source of the identifications of the traces and of the spans.
+     */
+    private static final AtomicLong IDS = new AtomicLong(System.nanoTime() & 0xFFFFFFL);
+
+    /**
+     * The current span of each thread.
+     */
+    private static final ThreadLocal<Span> CURRENT = new ThreadLocal<>();
+
+    /**
+     * The identification of the trace.
+     */
+    private final long trace;
+
+    /**
+     * The identification of the span.
+     */
+    private final long id;
+
+    /**
+     * The identification of the parent span or zero if it is a root.
+     */
+    private final long parent;
+
+    /**
+     * The name of the step.
+     */
+    private final String name;
+
+    /**
+     * The category of the step.
+     */
+    private final String category;
+
+    /**
+     * The identification of the instance or null if the step is not bound
+     * to one.
+     */
+    private final String instance;
+
+    /**
+     * A detail of the step, e.g. the command, or null.
+     */
+    private final String detail;
+
+    /**
+     * The identification of the thread that ran the step.
+     */
+    private final long thread;
+
+    /**
+     * The name of the thread that ran the step.
+     */
+    private final String threadName;
+
+    /**
+     * The {@link System#nanoTime()} at which the step started.
+     */
+    private final long start;
+
+    /**
+     * The {@link System#nanoTime()} at which the step ended or zero if it is
+     * still running.
+     */
+    private long end;
+
+    /**
+     * The span that was current before this one began, restored once it ends.
+     */
+    private final Span previous;
+
+    /**
+     * A private constructor that initializes a running span. Despite no
+     * validations are made, the name and the category should not be null.
+     *
+     * @param theTrace the identification of the trace.
+     * @param theParent the identification of the parent span.
+     * @param theName the name of the step.
+     * @param theCategory the category of the step.
+     * @param theInstance the identification of the instance.
+     * @param theDetail a detail of the step.
+     * @param theThread the identification of the thread that runs the step.
+     * @param theThreadName the name of the thread that runs the step.
+     * @param theStart the start of the step.
+     * @param thePrevious the span current before this one.
+     */
+    private Span(long theTrace, long theParent, String theName, String theCategory, String theInstance,
+            String theDetail, long theThread, String theThreadName, long theStart, Span thePrevious) {
+        id = IDS.incrementAndGet();
+        trace = theTrace == 0 ? id : theTrace;
+        parent = theParent;
+        name = theName;
+        category = theCategory;
+        instance = theInstance;
+        detail = theDetail;
+        thread = theThread;
+        threadName = theThreadName;
+        start = theStart;
+        end = 0;
+        previous = thePrevious;
+    }
+
+    /**
+     * It begins a span not bound to an instance and makes it the current span
+     * of the thread.
+     *
+     * @param name the name of the step.
+     * @param category the category of the step.
+     * @return the begun span.
+     */
+    public static Span begin(String name, String category) {
+        return begin(name, category, null, null);
+    }
+
+    /**
+     * It begins a span and makes it the current span of the thread. It is a
+     * child of the current span, whose instance it inherits if none is given,
+     * or the root of a new trace if there is no current span.
+     *
+     * @param name the name of the step.
+     * @param category the category of the step.
+     * @param instance the identification of the instance or null.
+     * @param detail a detail of the step, e.g. the command, or null.
+     * @return the begun span.
+     */
+    public static Span begin(String name, String category, String instance, String detail) {
+        Span current = CURRENT.get();
+        Thread running = Thread.currentThread();
+        Span span = current == null
+                ? new Span(0, 0, name, category, instance, detail, running.getId(), running.getName(),
+                        System.nanoTime(), null)
+                : new Span(current.trace, current.id, name, category, instance == null ? current.instance : instance,
+                        detail, running.getId(), running.getName(), System.nanoTime(), current);
+        CURRENT.set(span);
+        return span;
+    }
+
+    /**
+     * A getter of the current span of the thread.
+     *
+     * @return the current span or null if there is none.
+     */
+    public static Span current() {
+        return CURRENT.get();
+    }
+
+    /**
+     * It wraps a task that is to run on another thread, such as the drainer
+     * of a mailbox, so that it runs within the current span. The time from the
+     * wrap to the run is recorded as a «queue» phase of the span.
+     *
+     * @param <T> the type of the result of the task.
+     * @param task the task to wrap.
+     * @return the wrapped task or the task itself if there is no current span.
+     */
+    public static <T> Callable<T> handOver(Callable<T> task) {
+        Span owner = CURRENT.get();
+        if (owner == null) {
+            return task;
+        }
+        long queued = System.nanoTime();
+        return () -> {
+            owner.phase("queue", queued, System.nanoTime());
+            Span former = CURRENT.get();
+            CURRENT.set(owner);
+            try {
+                return task.call();
+            } finally {
+                CURRENT.set(former);
+            }
+        };
+    }
+
+    /**
+     * It ends the span, hands it over to the {@link Tracer} and makes its
+     * parent the current span of the thread again. Ending a span twice has no
+     * effect.
+     *
+     * @return the duration of the span in nanoseconds.
+     */
+    public long end() {
+        if (end == 0) {
+            end = System.nanoTime();
+            if (CURRENT.get() == this) {
+                CURRENT.set(previous);
+            }
+            Tracer.record(this);
+        }
+        return end - start;
+    }
+
+    /**
+     * It records a finished phase of the span, e.g. the write or the wait of
+     * a QMP exchange. The phase is a child of the span, on the thread of the
+     * span, and never becomes the current span.
+     *
+     * @param phase the name of the phase.
+     * @param from the {@link System#nanoTime()} at which the phase started.
+     * @param to the {@link System#nanoTime()} at which the phase ended.
+     */
+    public void phase(String phase, long from, long to) {
+        Span child = new Span(trace, id, phase, PHASE, instance, null, thread, threadName, from, null);
+        child.end = to;
+        Tracer.record(child);
+    }
+
+    /**
+     * It provides the identification of the span as it is carried on the
+     * wire, e.g. in the «id» member of a QMP command.
+     *
+     * @return the identifications of the trace and of the span in
+     * hexadecimal, separated by a hyphen.
+     */
+    public String tag() {
+        return Long.toHexString(trace) + "-" + Long.toHexString(id);
+    }
+
+    /**
+     * A getter of the identification of the trace.
+     *
+     * @return the {@link Span#trace}.
+     */
+    public long trace() {
+        return trace;
+    }
+
+    /**
+     * A getter of the identification of the span.
+     *
+     * @return the {@link Span#id}.
+     */
+    public long id() {
+        return id;
+    }
+
+    /**
+     * A getter of the identification of the parent span.
+     *
+     * @return the {@link Span#parent} or zero if it is a root.
+     */
+    public long parent() {
+        return parent;
+    }
+
+    /**
+     * A getter of the name of the step.
+     *
+     * @return the {@link Span#name}.
+     */
+    public String name() {
+        return name;
+    }
+
+    /**
+     * A getter of the category of the step.
+     *
+     * @return the {@link Span#category}.
+     */
+    public String category() {
+        return category;
+    }
+
+    /**
+     * A getter of the identification of the instance.
+     *
+     * @return the {@link Span#instance} or null.
+     */
+    public String instance() {
+        return instance;
+    }
+
+    /**
+     * A getter of the detail of the step.
+     *
+     * @return the {@link Span#detail} or null.
+     */
+    public String detail() {
+        return detail;
+    }
+
+    /**
+     * A getter of the identification of the thread that ran the step.
+     *
+     * @return the {@link Span#thread}.
+     */
+    public long thread() {
+        return thread;
+    }
+
+    /**
+     * A getter of the name of the thread that ran the step.
+     *
+     * @return the {@link Span#threadName}.
+     */
+    public String threadName() {
+        return threadName;
+    }
+
+    /**
+     * A getter of the start of the step.
+     *
+     * @return the {@link Span#start} as a {@link System#nanoTime()}.
+     */
+    public long start() {
+        return start;
+    }
+
+    /**
+     * A getter of the end of the step.
+     *
+     * @return the {@link Span#end} as a {@link System#nanoTime()} or zero if
+     * the span is still running.
+     */
+    public long ended() {
+        return end;
+    }
+
+    /**
+     * The textual representation of the span.
+     *
+     * @return the tag, the name and the instance of the span.
+     */
+    @Override
+    public String toString() {
+        return tag() + " " + name + (instance == null ? "" : " @" + instance);
+    }
+
+}
@@ -0,0 +1,102 @@
+/*
+ *                      QEMU INSTANCES MANAGER LIBRARY
+ *                                Java Version
+ * 
+ * PRODUCT OWNER: Research Centre in Real-Time & Embedded Computing Systems
+ * PROJECT MANAGER: Luís Pinho and Cláudio Maia {lmn,clrrm}@isep.ipp.pt
+ * DEVELOPER: Manuel Meireles ( mjcdm@isep.ipp.pt )
+ * DATE: 24/11/2017
+ * SCOPE: CISTER Summer Internship 2017
+ * VERSION: 1.0
+ */
+package Profiling;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Timespan;
+
+/**
+ * A flight recorder event of a timeout. It is instant and it tells which
+ * operation of which instance ran out of time and what the time was, e.g. a
+ * QMP connection, a delivery to a full mailbox, a reply the watchdog gave up
+ * waiting for or a live migration.
+ *
+ * @author Manuel Meireles ( mjcdm@isep.ipp.pt )
+ */
+@Name(TimeoutEvent.NAME)
+@Label("Timeout")
+@Category({"QEMU Manager"})
+@Description("An operation of an instance that ran out of time.")
+public class TimeoutEvent extends Event {
+
+    /**
+     * The name of the event in a recording.
+     */
+    public static final String NAME = "qemu.Timeout";
+
+    /**
+     * The operation of the QMP connection.
+     */
+    public static final String QMP_CONNECT = "qmp-connect";
+
+    /**
+     * The operation of a delivery to a mailbox.
+     */
+    public static final String MAILBOX_OFFER = "mailbox-offer";
+
+    /**
+     * The operation of a QMP reply.
+     */
+    public static final String QMP_REPLY = "qmp-reply";
+
+    /**
+     * The operation of a live migration.
+     */
+    public static final String MIGRATION = "migration";
+
+    /**
+     * The identification of the instance.
+     */
+    @Label("Instance")
+    private String instance;
+
+    /**
+     * The operation that ran out of time.
+     */
+    @Label("Operation")
+    private String operation;
+
+    /**
+     * The time, in milliseconds, the operation was given.
+     */
+    @Label("Timeout")
+    @Timespan(Timespan.MILLISECONDS)
+    private long timeout;
+
+    /**
+     * A private constructor of an instant event.
+     */
+    private TimeoutEvent() {
+    }
+
+    /**
+     * It commits an event, only if the recording asks for it.
+     *
+     * @param instance the identification of the instance.
+     * @param operation the operation that ran out of time.
+     * @param timeout the time, in milliseconds, the operation was given.
+     */
+    public static void emit(String instance, String operation, long timeout) {
+        TimeoutEvent event = new TimeoutEvent();
+        if (event.shouldCommit()) {
+            event.instance = instance;
+            event.operation = operation;
+            event.timeout = timeout;
+            event.commit();
+        }
+    }
+
+}
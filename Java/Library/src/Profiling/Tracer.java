@@ -0,0 +1,208 @@
+/*
+ *                      QEMU INSTANCES MANAGER LIBRARY
+ *                                Java Version
+ * 
+ * PRODUCT OWNER: Research Centre in Real-Time & Embedded Computing Systems
+ * PROJECT MANAGER: Luís Pinho and Cláudio Maia {lmn,clrrm}@isep.ipp.pt
+ * DEVELOPER: Manuel Meireles ( mjcdm@isep.ipp.pt )
+ * DATE: 24/11/2017
+ * SCOPE: CISTER Summer Internship 2017
+ * VERSION: 1.0
+ */
+package Profiling;
+
+import Configurations.Settings;
+import HTTP.ResultToJSON;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * The keeper of the finished {@link Span}s. They are kept in a fixed-size
+ * ring, whose size is defined in the {@link Settings}, so that tracing costs
+ * a bounded amount of memory and the oldest spans are overwritten once it is
+ * full. The spans kept are exported in the Chrome trace event format, which
+ * «chrome://tracing» and Perfetto open: each span is a complete event on the
+ * row of its thread, carrying the identifications of its trace, of itself and
+ * of its parent, and a span whose parent ran on another thread, e.g. a
+ * command sent by the drainer of a mailbox, is linked to it by a flow event.
+ *
+ * @author Manuel Meireles ( mjcdm@isep.ipp.pt )
+ */
+public final class Tracer {
+
+    /**
+     * The number of nanoseconds in a microsecond, the unit of the Chrome trace
+     * event format.
+     */
+    private static final double NANOS_PER_MICRO = 1e3;
+
+    /**
+     * The process identification of every event, since they all come from
+     * the manager.
+     */
+    private static final int PID = 1;
+
+    /**
+     * The ring of the finished spans.
+     */
+    private static final AtomicReferenceArray<Span> SPANS = new AtomicReferenceArray<>(Math.max(0,
+            Settings.getTraceBuffer()));
+
+    /**
+     * The number of spans recorded so far.
+     */
+    private static final AtomicLong RECORDED = new AtomicLong();
+
+    /**
+     * A private constructor since the class only has static methods.
+     */
+    private Tracer() {
+    }
+
+    /**
+     * It keeps a finished span, overwriting the oldest one if the ring is
+     * full. Nothing is kept if the ring has no room at all.
+     *
+     * @param span the finished span.
+     */
+    static void record(Span span) {
+        int capacity = SPANS.length();
+        if (capacity > 0) {
+            SPANS.set((int) (RECORDED.getAndIncrement() % capacity), span);
+        }
+    }
+
+    /**
+     * It provides the spans kept.
+     *
+     * @return the spans kept, ordered by their start.
+     */
+    public static List<Span> spans() {
+        List<Span> spans = new ArrayList<>(SPANS.length());
+        for (int index = 0; index < SPANS.length(); index++) {
+            Span span = SPANS.get(index);
+            if (span != null) {
+                spans.add(span);
+            }
+        }
+        spans.sort(Comparator.comparingLong(Span::start));
+        return spans;
+    }
+
+    /**
+     * It drops every span kept.
+     */
+    public static void clear() {
+        for (int index = 0; index < SPANS.length(); index++) {
+            SPANS.set(index, null);
+        }
+    }
+
+    /**
+     * It writes the spans kept to a file in the Chrome trace event format.
+     *
+     * @param file the file to write, which is replaced if it exists.
+     * @return the number of spans written.
+     * @throws IOException if the file could not be written.
+     */
+    public static int export(Path file) throws IOException {
+        List<Span> spans = spans();
+        try (Writer writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            writer.write(chrome(spans));
+        }
+        return spans.size();
+    }
+
+    /**
+     * It builds the Chrome trace event format of some spans: the name of each
+     * thread, a complete event per span and a pair of flow events per span
+     * whose parent ran on another thread.
+     *
+     * @param spans the spans, ordered by their start.
+     * @return the trace as JSON text.
+     */
+    static String chrome(List<Span> spans) {
+        long origin = spans.isEmpty() ? 0 : spans.get(0).start();
+        Map<Long, String> threads = new TreeMap<>();
+        Map<Long, Span> byId = new HashMap<>();
+        for (Span span : spans) {
+            threads.putIfAbsent(span.thread(), span.threadName());
+            byId.put(span.id(), span);
+        }
+        StringBuilder builder = new StringBuilder();
+        builder.append("{\"displayTimeUnit\":\"ms\",\"traceEvents\":[");
+        boolean first = true;
+        for (Map.Entry<Long, String> thread : threads.entrySet()) {
+            first = separate(builder, first);
+            builder.append("{\"name\":\"thread_name\",\"ph\":\"M\",\"pid\":").append(PID)
+                    .append(",\"tid\":").append(thread.getKey())
+                    .append(",\"args\":{\"name\":").append(ResultToJSON.string(thread.getValue())).append("}}");
+        }
+        for (Span span : spans) {
+            first = separate(builder, first);
+            builder.append("{\"name\":").append(ResultToJSON.string(span.name()))
+                    .append(",\"cat\":").append(ResultToJSON.string(span.category()))
+                    .append(",\"ph\":\"X\",\"ts\":").append(micros(span.start() - origin))
+                    .append(",\"dur\":").append(micros(span.ended() - span.start()))
+                    .append(",\"pid\":").append(PID).append(",\"tid\":").append(span.thread())
+                    .append(",\"args\":{\"trace\":\"").append(Long.toHexString(span.trace()))
+                    .append("\",\"span\":\"").append(Long.toHexString(span.id()))
+                    .append("\",\"parent\":\"").append(Long.toHexString(span.parent())).append('"');
+            if (span.instance() != null) {
+                builder.append(",\"instance\":").append(ResultToJSON.string(span.instance()));
+            }
+            if (span.detail() != null) {
+                builder.append(",\"detail\":").append(ResultToJSON.string(span.detail()));
+            }
+            builder.append("}}");
+            Span parent = byId.get(span.parent());
+            if (parent != null && parent.thread() != span.thread()) {
+                builder.append(",{\"name\":\"handover\",\"cat\":\"flow\",\"ph\":\"s\",\"id\":").append(span.id())
+                        .append(",\"ts\":").append(micros(span.start() - origin))
+                        .append(",\"pid\":").append(PID).append(",\"tid\":").append(parent.thread()).append('}');
+                builder.append(",{\"name\":\"handover\",\"cat\":\"flow\",\"ph\":\"f\",\"bp\":\"e\",\"id\":")
+                        .append(span.id()).append(",\"ts\":").append(micros(span.start() - origin))
+                        .append(",\"pid\":").append(PID).append(",\"tid\":").append(span.thread()).append('}');
+            }
+        }
+        builder.append("]}");
+        return builder.toString();
+    }
+
+    /**
+     * It appends the separator of the events unless it is the first one.
+     *
+     * @param builder the builder of the trace.
+     * @param first whether the next event is the first one.
+     * @return false, since the next event is no longer the first one.
+     */
+    private static boolean separate(StringBuilder builder, boolean first) {
+        if (!first) {
+            builder.append(',');
+        }
+        return false;
+    }
+
+    /**
+     * It converts a time to the unit of the Chrome trace event format.
+     *
+     * @param nanos the time in nanoseconds.
+     * @return the time in microseconds, with three decimal places.
+     */
+    private static String micros(long nanos) {
+        return String.format(Locale.ROOT, "%.3f", nanos / NANOS_PER_MICRO);
+    }
+
+}
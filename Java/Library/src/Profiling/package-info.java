@@ -0,0 +1,15 @@
+/**
+ * The package contains classes related to the concept of Profiling. They are
+ * the Java Flight Recorder events of the manager: the QMP commands, the
+ * connections and their handshakes, the spawn and the exit of the processes,
+ * the runs of the mailbox drainers and the timeouts. An event that is not
+ * enabled in the recording is neither filled nor committed, so that they cost
+ * nothing unless a recording asks for them, e.g. through the
+ * «qemu-manager.jfc» profile of the distribution. A recording is summarized
+ * by instance and command through {@link Testing.FlightSummary}. Besides,
+ * every manager operation is traced: its {@link Profiling.Span}s follow it
+ * through the instances, their mailboxes and their QMP exchanges, whose
+ * «id» member carries them on the wire, and the {@link Profiling.Tracer}
+ * keeps them for export in the Chrome trace event format.
+ */
+package Profiling;
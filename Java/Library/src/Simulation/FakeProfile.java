@@ -0,0 +1,395 @@
+/*
+ *                      QEMU INSTANCES MANAGER LIBRARY
+ *                                Java Version
+ * 
+ * PRODUCT OWNER: Research Centre in Real-Time & Embedded Computing Systems
+ * PROJECT MANAGER: Luís Pinho and Cláudio Maia {lmn,clrrm}@isep.ipp.pt
+ * DEVELOPER: Manuel Meireles ( mjcdm@isep.ipp.pt )
+ * DATE: 24/11/2017
+ * SCOPE: CISTER Summer Internship 2017
+ * VERSION: 1.0
+ */
+package Simulation;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+
+/**
+ * The behaviour of a {@link FakeQmpServer} endpoint: how long it takes to
+ * reply to a command, which faults it injects and which events it emits by
+ * itself. It is read from the «-fake-*» options of the instruction of an
+ * instance, which a real QEMU would refuse, so that every stand-in of a
+ * fleet may behave differently:
+ * <ul><li>-fake-latency ms: the fixed part of the time to reply;</li>
+ * <li>-fake-latency:command ms: the fixed part of the time to reply to a
+ * given command, e.g. «-fake-latency:query-status 0.2»;</li>
+ * <li>-fake-jitter ms: the mean of an exponentially distributed time added
+ * to it;</li>
+ * <li>-fake-error rate: the probability of replying with an error;</li>
+ * <li>-fake-drop rate: the probability of closing the connection instead of
+ * replying;</li>
+ * <li>-fake-hang rate: the probability of never replying again, as a QEMU
+ * whose main loop is stuck;</li>
+ * <li>-fake-events ms: the interval of the unsolicited events;</li>
+ * <li>-fake-powerdown ms: the time the guest takes to power down;</li>
+ * <li>-fake-boot ms: the time the guest takes, once running, to print its
+ * banner on the serial port;</li>
+ * <li>-fake-restore ms: the time an incoming migration takes to load;</li>
+ * <li>-fake-seed number: the seed of the random choices.</li></ul>
+ *
+ * @author Manuel Meireles ( mjcdm@isep.ipp.pt )
+ */
+public class FakeProfile {
+
+    /**
+     * A fault injected instead of the reply to a command.
+     */
+    public enum Fault {
+        /**
+         * The command is replied to normally.
+         */
+        NONE,
+        /**
+         * The command is replied to with an error.
+         */
+        ERROR,
+        /**
+         * The connection is closed without replying.
+         */
+        DROP,
+        /**
+         * The command and every later one are never replied to.
+         */
+        HANG
+    }
+
+    /**
+     * The prefix of the options of the profile.
+     */
+    private static final String PREFIX = "-fake-";
+
+    /**
+     * The prefix of the options of the latency of a given command.
+     */
+    private static final String COMMAND_LATENCY_PREFIX = PREFIX + "latency:";
+
+    /**
+     * The number of nanoseconds in a millisecond.
+     */
+    private static final double NANOS_PER_MILLI = 1e6;
+
+    /**
+     * The default time, in milliseconds, the guest takes to power down.
+     */
+    private static final long POWERDOWN = 100;
+
+    /**
+     * The fixed part of the time to reply, in nanoseconds.
+     */
+    private final long latency;
+
+    /**
+     * The fixed part of the time to reply to given commands, in nanoseconds,
+     * by the name of the command.
+     */
+    private final Map<String, Long> commandLatency;
+
+    /**
+     * The mean of the exponential part of the time to reply, in nanoseconds.
+     */
+    private final long jitter;
+
+    /**
+     * The probability of replying with an error.
+     */
+    private final double errorRate;
+
+    /**
+     * The probability of closing the connection instead of replying.
+     */
+    private final double dropRate;
+
+    /**
+     * The probability of hanging.
+     */
+    private final double hangRate;
+
+    /**
+     * The interval of the unsolicited events, in milliseconds, or zero for
+     * none.
+     */
+    private final long eventInterval;
+
+    /**
+     * The time the guest takes to power down, in milliseconds.
+     */
+    private final long powerdownDelay;
+
+    /**
+     * The time the guest takes to boot, in milliseconds.
+     */
+    private final long bootDelay;
+
+    /**
+     * The time an incoming migration takes to load, in milliseconds.
+     */
+    private final long restoreDelay;
+
+    /**
+     * The seed of the random choices.
+     */
+    private final long seed;
+
+    /**
+     * A private constructor that initializes the profile. Despite no
+     * validation is made, none of the values should be negative and the rates
+     * should not add up to more than one.
+     *
+     * @param theLatency the fixed part of the time to reply.
+     * @param theCommandLatency the fixed part of the time to reply to given
+     * commands.
+     * @param theJitter the mean of the exponential part of the time to reply.
+     * @param theErrorRate the probability of replying with an error.
+     * @param theDropRate the probability of closing the connection.
+     * @param theHangRate the probability of hanging.
+     * @param theEventInterval the interval of the unsolicited events.
+     * @param thePowerdownDelay the time the guest takes to power down.
+     * @param theBootDelay the time the guest takes to boot.
+     * @param theRestoreDelay the time an incoming migration takes to load.
+     * @param theSeed the seed of the random choices.
+     */
+    private FakeProfile(long theLatency, Map<String, Long> theCommandLatency, long theJitter, double theErrorRate, double theDropRate,
+            double theHangRate, long theEventInterval, long thePowerdownDelay, long theBootDelay,
+            long theRestoreDelay, long theSeed) {
+        latency = theLatency;
+        commandLatency = theCommandLatency;
+        jitter = theJitter;
+        errorRate = theErrorRate;
+        dropRate = theDropRate;
+        hangRate = theHangRate;
+        eventInterval = theEventInterval;
+        powerdownDelay = thePowerdownDelay;
+        bootDelay = theBootDelay;
+        restoreDelay = theRestoreDelay;
+        seed = theSeed;
+    }
+
+    /**
+     * It builds a profile. The negative values are taken as zero.
+     *
+     * @param latency the fixed part of the time to reply, in milliseconds.
+     * @param jitter the mean of the exponential part of the time to reply, in
+     * milliseconds.
+     * @param errorRate the probability of replying with an error.
+     * @param dropRate the probability of closing the connection instead of
+     * replying.
+     * @param hangRate the probability of never replying again.
+     * @param eventInterval the interval of the unsolicited events, in
+     * milliseconds, or zero for none.
+     * @param powerdownDelay the time, in milliseconds, the guest takes to
+     * power down.
+     * @param bootDelay the time, in milliseconds, the guest takes, once
+     * running, to print its banner on the serial port.
+     * @param restoreDelay the time, in milliseconds, an incoming migration
+     * takes to load.
+     * @param seed the seed of the random choices.
+     * @return the built profile.
+     */
+    public static FakeProfile create(double latency, double jitter, double errorRate, double dropRate,
+            double hangRate, long eventInterval, long powerdownDelay, long bootDelay, long restoreDelay, long seed) {
+        return new FakeProfile(nanos(latency), Collections.emptyMap(), Math.round(Math.max(0, jitter) * NANOS_PER_MILLI), Math.max(0, errorRate), Math.max(0, dropRate),
+                Math.max(0, hangRate), Math.max(0, eventInterval), Math.max(0, powerdownDelay), Math.max(0, bootDelay),
+                Math.max(0, restoreDelay), seed);
+    }
+
+    /**
+     * It reads a profile from the «-fake-*» options of an instruction. The
+     * missing options are taken as zero, which replies right away without
+     * faults, but for the power down, which takes 100 milliseconds. The
+     * commands without a latency of their own take the common one.
+     *
+     * @param options the instruction of the instance.
+     * @param seed the seed of the random choices if the instruction has no
+     * «-fake-seed».
+     * @return the read profile.
+     * @throws NumberFormatException if the value of an option is not a
+     * number.
+     */
+    public static FakeProfile parse(String options, long seed) {
+        String[] tokens = tokens(options);
+        Map<String, Long> commandLatency = new TreeMap<>();
+        for (int index = 0; index + 1 < tokens.length; index++) {
+            if (tokens[index].startsWith(COMMAND_LATENCY_PREFIX)) {
+                commandLatency.put(tokens[index].substring(COMMAND_LATENCY_PREFIX.length()),
+                        nanos(Double.parseDouble(tokens[index + 1])));
+            }
+        }
+        FakeProfile common = create(option(tokens, "latency", 0), option(tokens, "jitter", 0),
+                option(tokens, "error", 0), option(tokens, "drop", 0), option(tokens, "hang", 0),
+                (long) option(tokens, "events", 0), (long) option(tokens, "powerdown", POWERDOWN),
+                (long) option(tokens, "boot", 0), (long) option(tokens, "restore", 0),
+                (long) option(tokens, "seed", seed));
+        return new FakeProfile(common.latency, Collections.unmodifiableMap(commandLatency), common.jitter,
+                common.errorRate, common.dropRate, common.hangRate, common.eventInterval, common.powerdownDelay,
+                common.bootDelay, common.restoreDelay, common.seed);
+    }
+
+    /**
+     * It finds the initial run state of the guest from the instruction of an
+     * instance.
+     *
+     * @param options the instruction of the instance.
+     * @return «inmigrate» if the QEMU waits for a migrating guest,
+     * «prelaunch» if it starts the guest paused or «running» otherwise.
+     */
+    public static String status(String options) {
+        List<String> tokens = Arrays.asList(tokens(options));
+        if (tokens.contains("-incoming")) {
+            return "inmigrate";
+        }
+        return tokens.contains("-S") ? "prelaunch" : "running";
+    }
+
+    /**
+     * It splits an instruction in its tokens.
+     *
+     * @param options the instruction, which may be null.
+     * @return the tokens.
+     */
+    private static String[] tokens(String options) {
+        return options == null ? new String[0] : options.trim().split("\\s+");
+    }
+
+    /**
+     * It converts a time in milliseconds to nanoseconds.
+     *
+     * @param millis the time in milliseconds, taken as zero if negative.
+     * @return the time in nanoseconds.
+     */
+    private static long nanos(double millis) {
+        return Math.round(Math.max(0, millis) * NANOS_PER_MILLI);
+    }
+
+    /**
+     * It finds the value of a «-fake-*» option.
+     *
+     * @param tokens the tokens of the instruction.
+     * @param name the name of the option without the prefix.
+     * @param missing the value if the option is missing.
+     * @return the value of the option.
+     */
+    private static double option(String[] tokens, String name, double missing) {
+        for (int index = 0; index + 1 < tokens.length; index++) {
+            if (tokens[index].equals(PREFIX + name)) {
+                return Double.parseDouble(tokens[index + 1]);
+            }
+        }
+        return missing;
+    }
+
+    /**
+     * It draws the time to reply to a command.
+     *
+     * @param command the name of the command.
+     * @param random the source of the random choices.
+     * @return the time, in nanoseconds.
+     */
+    public long delay(String command, Random random) {
+        long fixed = commandLatency.getOrDefault(command, latency);
+        if (jitter == 0) {
+            return fixed;
+        }
+        return fixed + Math.round(-jitter * Math.log(1 - random.nextDouble()));
+    }
+
+    /**
+     * It draws the fault injected instead of the reply to a command.
+     *
+     * @param random the source of the random choices.
+     * @return the fault, which is {@link Fault#NONE} most of the times.
+     */
+    public Fault fault(Random random) {
+        if (dropRate + hangRate + errorRate == 0) {
+            return Fault.NONE;
+        }
+        double draw = random.nextDouble();
+        if (draw < dropRate) {
+            return Fault.DROP;
+        }
+        if (draw < dropRate + hangRate) {
+            return Fault.HANG;
+        }
+        if (draw < dropRate + hangRate + errorRate) {
+            return Fault.ERROR;
+        }
+        return Fault.NONE;
+    }
+
+    /**
+     * A getter of the interval of the unsolicited events.
+     *
+     * @return the {@link FakeProfile#eventInterval} in milliseconds.
+     */
+    public long eventInterval() {
+        return eventInterval;
+    }
+
+    /**
+     * A getter of the time the guest takes to power down.
+     *
+     * @return the {@link FakeProfile#powerdownDelay} in milliseconds.
+     */
+    public long powerdownDelay() {
+        return powerdownDelay;
+    }
+
+    /**
+     * A getter of the time the guest takes to boot.
+     *
+     * @return the {@link FakeProfile#bootDelay} in milliseconds.
+     */
+    public long bootDelay() {
+        return bootDelay;
+    }
+
+    /**
+     * A getter of the time an incoming migration takes to load.
+     *
+     * @return the {@link FakeProfile#restoreDelay} in milliseconds.
+     */
+    public long restoreDelay() {
+        return restoreDelay;
+    }
+
+    /**
+     * A getter of the seed of the random choices.
+     *
+     * @return the {@link FakeProfile#seed}.
+     */
+    public long seed() {
+        return seed;
+    }
+
+    /**
+     * The textual representation of the profile.
+     *
+     * @return the options that would build the same profile.
+     */
+    @Override
+    public String toString() {
+        StringBuilder text = new StringBuilder(String.format("-fake-latency %s -fake-jitter %s -fake-error %s "
+                + "-fake-drop %s -fake-hang %s -fake-events %d -fake-powerdown %d -fake-boot %d "
+                + "-fake-restore %d -fake-seed %d", latency / NANOS_PER_MILLI, jitter / NANOS_PER_MILLI, errorRate,
+                dropRate, hangRate, eventInterval, powerdownDelay, bootDelay, restoreDelay, seed));
+        for (Map.Entry<String, Long> entry : commandLatency.entrySet()) {
+            text.append(' ').append(COMMAND_LATENCY_PREFIX).append(entry.getKey()).append(' ')
+                    .append(entry.getValue() / NANOS_PER_MILLI);
+        }
+        return text.toString();
+    }
+
+}
@@ -0,0 +1,1200 @@
+/*
+ *                      QEMU INSTANCES MANAGER LIBRARY
+ *                                Java Version
+ * 
+ * PRODUCT OWNER: Research Centre in Real-Time & Embedded Computing Systems
+ * PROJECT MANAGER: Luís Pinho and Cláudio Maia {lmn,clrrm}@isep.ipp.pt
+ * DEVELOPER: Manuel Meireles ( mjcdm@isep.ipp.pt )
+ * DATE: 24/11/2017
+ * SCOPE: CISTER Summer Internship 2017
+ * VERSION: 1.0
+ */
+package Simulation;
+
+import Configurations.Log;
+import HTTP.ResultToJSON;
+import Parsers.JSONReader;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.CancelledKeyException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A stand-in of the QMP servers of the QEMU, so that the manager can be
+ * driven at the scale of thousands of instances without their binaries and
+ * guests. A server hosts any number of endpoints, each one listening on the
+ * QMP address of an instance, on a single selector thread. Every endpoint
+ * greets its client, requires the capabilities negotiation and then:
+ * <ul><li>«stop» and «cont» pause and resume the guest, emitting «STOP» and
+ * «RESUME»;</li>
+ * <li>«system_reset» emits «RESET» and boots the guest again;</li>
+ * <li>«system_powerdown» emits «POWERDOWN» and, if the guest is running,
+ * quits after the guest powered down;</li>
+ * <li>«quit» emits «SHUTDOWN» and closes the endpoint;</li>
+ * <li>«migrate» saves the guest, which is left paused, and
+ * «migrate-incoming» loads it into a QEMU started with «-incoming», both
+ * being followed through «query-migrate»;</li>
+ * <li>«query-status» reports the run state and every other «query-*» an
+ * empty object;</li>
+ * <li>any other command is not found.</li></ul>
+ * As in the QEMU, the commands in band are executed one at a time, in
+ * order, while the ones out of band are executed right away, and a single
+ * client is served at a time. The latency, the faults and the unsolicited
+ * events of each endpoint follow its {@link FakeProfile}. Once the guest
+ * first runs, it boots and, if the QEMU was given a «-serial tcp:host:port»
+ * client, prints the {@link FakeQmpServer#BANNER} on it, so that the time
+ * until a guest is ready can be measured as with a real one.
+ * <br/><br/>
+ * With the «fake» launcher of the {@link Configurations.Settings}, the
+ * instances are spawned through {@link FakeQmpServer#launch}: an idle
+ * process stands for the QEMU, so that its liveness, its signals and its
+ * exit are handled as usual, while its QMP endpoint is served by the shared
+ * server. The server may also run on its own process, taking the place of a
+ * QEMU binary.
+ * <br/><br/>
+ * Usage: FakeQmpServer [QEMU options] -qmp tcp:host:port,server,nowait
+ * [-fake-* options]
+ *
+ * @author Manuel Meireles ( mjcdm@isep.ipp.pt )
+ */
+public class FakeQmpServer {
+
+    /**
+     * The line the guest prints on its serial port once booted.
+     */
+    public static final String BANNER = "Fake guest ready";
+
+    /**
+     * The greeting of the QEMU.
+     */
+    private static final String GREETING = "{\"QMP\": {\"version\": {\"qemu\": {\"micro\": 0, \"minor\": 2, "
+            + "\"major\": 8}, \"package\": \"fake\"}, \"capabilities\": [\"oob\"]}}\r\n";
+
+    /**
+     * The instruction of the process that stands for the QEMU. It waits for
+     * the end of its input, so that it does not outlive the manager.
+     */
+    private static final String[] STAND_IN = {"cat"};
+
+    /**
+     * The option of the QEMU that sets the QMP address.
+     */
+    private static final String QMP_OPTION = "-qmp";
+
+    /**
+     * The option of the QEMU that redirects the serial port.
+     */
+    private static final String SERIAL_OPTION = "-serial";
+
+    /**
+     * The option of the QEMU that starts the guest paused.
+     */
+    private static final String PAUSED_OPTION = "-S";
+
+    /**
+     * The prefix of the TCP addresses of the QEMU options.
+     */
+    private static final String TCP_PREFIX = "tcp:";
+
+    /**
+     * The command that negotiates the capabilities.
+     */
+    private static final String CAPABILITIES = "qmp_capabilities";
+
+    /**
+     * The prefix of the read-only queries.
+     */
+    private static final String QUERY_PREFIX = "query-";
+
+    /**
+     * The run state of a running guest.
+     */
+    private static final String RUNNING = "running";
+
+    /**
+     * The run state of a paused guest.
+     */
+    private static final String PAUSED = "paused";
+
+    /**
+     * The run state of a QEMU waiting for an incoming migration.
+     */
+    private static final String INMIGRATE = "inmigrate";
+
+    /**
+     * The status of an ongoing migration.
+     */
+    private static final String ACTIVE = "active";
+
+    /**
+     * The status of a completed migration.
+     */
+    private static final String COMPLETED = "completed";
+
+    /**
+     * The time, in milliseconds, to connect to the serial port of a guest.
+     */
+    private static final int SERIAL_TIMEOUT = 1000;
+
+    /**
+     * The maximum number of connections waiting to be accepted by an
+     * endpoint.
+     */
+    private static final int BACKLOG = 8;
+
+    /**
+     * The size of the buffer of each connection.
+     */
+    private static final int BUFFER = 8192;
+
+    /**
+     * The server shared by the instances spawned through
+     * {@link FakeQmpServer#launch}.
+     */
+    private static FakeQmpServer shared;
+
+    /**
+     * The selector of every channel of the server.
+     */
+    private final Selector selector;
+
+    /**
+     * The timer of the delayed replies and of the events.
+     */
+    private final ScheduledExecutorService timer;
+
+    /**
+     * The tasks to run on the selector thread, which is the only one that
+     * touches the endpoints and their connections.
+     */
+    private final Queue<Runnable> tasks;
+
+    /**
+     * The open endpoints.
+     */
+    private final Set<Endpoint> endpoints;
+
+    /**
+     * The selector thread.
+     */
+    private final Thread loop;
+
+    /**
+     * Whether the server was closed.
+     */
+    private volatile boolean closed;
+
+    /**
+     * A private constructor that opens the selector and prepares its thread.
+     *
+     * @throws IOException if the selector could not be opened.
+     */
+    private FakeQmpServer() throws IOException {
+        selector = Selector.open();
+        timer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "fake-qmp-timer");
+            thread.setDaemon(true);
+            return thread;
+        });
+        tasks = new ConcurrentLinkedQueue<>();
+        endpoints = ConcurrentHashMap.newKeySet();
+        loop = new Thread(this::run, "fake-qmp");
+        loop.setDaemon(true);
+        closed = false;
+    }
+
+    /**
+     * It builds a server without endpoints and starts its selector thread.
+     *
+     * @return the started server.
+     * @throws IOException if the selector could not be opened.
+     */
+    public static FakeQmpServer create() throws IOException {
+        FakeQmpServer server = new FakeQmpServer();
+        server.loop.start();
+        return server;
+    }
+
+    /**
+     * A getter of the server shared by the instances spawned through
+     * {@link FakeQmpServer#launch}. It is started on the first call.
+     *
+     * @return the shared server.
+     * @throws IOException if the selector could not be opened.
+     */
+    public static synchronized FakeQmpServer shared() throws IOException {
+        if (shared == null) {
+            shared = create();
+        }
+        return shared;
+    }
+
+    /**
+     * It spawns a process that stands for the QEMU of an instance and opens
+     * its QMP endpoint, which is closed once the process exits. The process
+     * is terminated once the endpoint quits.
+     *
+     * @param options the instruction of the instance, from which the
+     * {@link FakeProfile} and the initial run state are read.
+     * @param ip the IP address of the QMP endpoint.
+     * @param port the port of the QMP endpoint.
+     * @return the stand-in process.
+     * @throws IOException if the process could not be spawned or the
+     * endpoint could not be opened.
+     */
+    public Process launch(String options, String ip, int port) throws IOException {
+        Process process = new ProcessBuilder(STAND_IN)
+                .redirectOutput(ProcessBuilder.Redirect.DISCARD)
+                .redirectError(ProcessBuilder.Redirect.DISCARD)
+                .start();
+        Endpoint endpoint;
+        try {
+            endpoint = open(ip, port, options, process::destroy);
+        } catch (IOException ex) {
+            process.destroyForcibly();
+            throw ex;
+        }
+        process.onExit().thenRun(endpoint::close);
+        return process;
+    }
+
+    /**
+     * It opens an endpoint. It listens right away, so that a client may
+     * connect as soon as this method returns.
+     *
+     * @param ip the IP address on which the endpoint listens.
+     * @param port the port on which the endpoint listens.
+     * @param options the instruction of the instance, from which the
+     * {@link FakeProfile}, the initial run state and the serial port of the
+     * guest are read.
+     * @param onQuit the action to run once the endpoint quits, after its last
+     * reply was sent.
+     * @return the open endpoint.
+     * @throws IOException if the address could not be bound.
+     */
+    public Endpoint open(String ip, int port, String options, Runnable onQuit) throws IOException {
+        FakeProfile profile = FakeProfile.parse(options, port);
+        List<String> tokens = Arrays.asList(options.trim().split("\\s+"));
+        ServerSocketChannel channel = ServerSocketChannel.open();
+        try {
+            channel.setOption(StandardSocketOptions.SO_REUSEADDR, true);
+            channel.bind(new InetSocketAddress(ip, port), BACKLOG);
+            channel.configureBlocking(false);
+        } catch (IOException ex) {
+            channel.close();
+            throw ex;
+        }
+        Endpoint endpoint = new Endpoint(channel, profile, FakeProfile.status(options), serial(tokens),
+                !tokens.contains(PAUSED_OPTION), onQuit);
+        endpoints.add(endpoint);
+        post(endpoint::listen);
+        Log.fine("Fake QMP endpoint opened on {0}:{1}", ip, String.valueOf(port));
+        return endpoint;
+    }
+
+    /**
+     * A getter of the number of open endpoints.
+     *
+     * @return the number of endpoints.
+     */
+    public int endpoints() {
+        return endpoints.size();
+    }
+
+    /**
+     * It closes every endpoint and stops the threads of the server.
+     */
+    public void close() {
+        closed = true;
+        for (Endpoint endpoint : endpoints) {
+            endpoint.close();
+        }
+        timer.shutdownNow();
+        selector.wakeup();
+    }
+
+    /**
+     * It runs a single endpoint on its own process, taking the place of a
+     * QEMU binary, until it quits.
+     *
+     * @param args the options of the QEMU, with the «-qmp» address and the
+     * «-fake-*» options.
+     * @throws Exception if the endpoint could not be opened.
+     */
+    public static void main(String[] args) throws Exception {
+        List<String> tokens = Arrays.asList(args);
+        int position = tokens.indexOf(QMP_OPTION);
+        if (position < 0 || position + 1 >= tokens.size() || !tokens.get(position + 1).startsWith("tcp:")) {
+            System.err.println("Usage: FakeQmpServer [QEMU options] -qmp tcp:host:port,server,nowait [-fake-* options]");
+            System.exit(1);
+        }
+        String address = tokens.get(position + 1).substring("tcp:".length()).split(",")[0];
+        int colon = address.lastIndexOf(':');
+        String ip = address.substring(0, colon);
+        int port = Integer.parseInt(address.substring(colon + 1));
+        String options = String.join(" ", args);
+        CountDownLatch quit = new CountDownLatch(1);
+        FakeQmpServer server = create();
+        server.open(ip, port, options, quit::countDown);
+        quit.await();
+        server.close();
+    }
+
+    /**
+     * It finds the serial port of the guest, if it is a TCP client.
+     *
+     * @param tokens the tokens of the instruction of the instance.
+     * @return the address to which the guest prints or null if none.
+     */
+    private static InetSocketAddress serial(List<String> tokens) {
+        int position = tokens.indexOf(SERIAL_OPTION);
+        if (position < 0 || position + 1 >= tokens.size() || !tokens.get(position + 1).startsWith(TCP_PREFIX)) {
+            return null;
+        }
+        String address = tokens.get(position + 1).substring(TCP_PREFIX.length()).split(",")[0];
+        int colon = address.lastIndexOf(':');
+        return colon < 0 ? null : new InetSocketAddress(address.substring(0, colon),
+                Integer.parseInt(address.substring(colon + 1)));
+    }
+
+    /**
+     * It runs a task on the selector thread.
+     *
+     * @param task the task to run.
+     */
+    private void post(Runnable task) {
+        tasks.add(task);
+        selector.wakeup();
+    }
+
+    /**
+     * It runs a task on the selector thread after a delay.
+     *
+     * @param delay the delay, in nanoseconds.
+     * @param task the task to run.
+     */
+    private void later(long delay, Runnable task) {
+        if (delay <= 0) {
+            post(task);
+        } else if (!closed) {
+            timer.schedule(() -> post(task), delay, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    /**
+     * The selector loop. It runs the posted tasks and serves the ready
+     * channels until the server is closed.
+     */
+    private void run() {
+        while (!closed) {
+            try {
+                selector.select();
+            } catch (IOException ex) {
+                Log.severe("{0}", ex);
+                return;
+            }
+            Runnable task;
+            while ((task = tasks.poll()) != null) {
+                try {
+                    task.run();
+                } catch (RuntimeException ex) {
+                    Log.severe("{0}", ex);
+                }
+            }
+            Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+            while (keys.hasNext()) {
+                SelectionKey key = keys.next();
+                keys.remove();
+                serve(key);
+            }
+        }
+        try {
+            selector.close();
+        } catch (IOException ex) {
+            Log.severe("{0}", ex);
+        }
+    }
+
+    /**
+     * It serves a ready channel: it accepts the connection of an endpoint or
+     * reads from and writes to a connection.
+     *
+     * @param key the key of the ready channel.
+     */
+    private void serve(SelectionKey key) {
+        Object attachment = key.attachment();
+        try {
+            if (attachment instanceof Endpoint) {
+                if (key.isValid() && key.isAcceptable()) {
+                    ((Endpoint) attachment).accept();
+                }
+            } else {
+                Session session = (Session) attachment;
+                if (key.isValid() && key.isReadable()) {
+                    session.read();
+                }
+                if (key.isValid() && key.isWritable()) {
+                    session.flush();
+                }
+            }
+        } catch (IOException | CancelledKeyException ex) {
+            if (attachment instanceof Session) {
+                ((Session) attachment).close();
+            }
+        }
+    }
+
+    /**
+     * It builds the JSON text of the identification of a command, so that it
+     * is echoed as it was received.
+     *
+     * @param id the identification read from the command.
+     * @return the JSON text or null if the command has none.
+     */
+    private static String identification(Object id) {
+        if (id instanceof String) {
+            return ResultToJSON.string((String) id);
+        }
+        if (id instanceof Number) {
+            Number number = (Number) id;
+            return number.doubleValue() == number.longValue() ? Long.toString(number.longValue()) : number.toString();
+        }
+        return null;
+    }
+
+    /**
+     * It builds the JSON text of an error.
+     *
+     * @param kind the class of the error.
+     * @param description the description of the error.
+     * @return the JSON text.
+     */
+    private static String error(String kind, String description) {
+        return "{\"class\": \"" + kind + "\", \"desc\": " + ResultToJSON.string(description) + "}";
+    }
+
+    /**
+     * The QMP endpoint of an instance.
+     */
+    public final class Endpoint {
+
+        /**
+         * The listening channel.
+         */
+        private final ServerSocketChannel channel;
+
+        /**
+         * The behaviour of the endpoint.
+         */
+        private final FakeProfile profile;
+
+        /**
+         * The source of the random choices of the {@link Endpoint#profile}.
+         */
+        private final Random random;
+
+        /**
+         * The action to run once the endpoint quits.
+         */
+        private final Runnable onQuit;
+
+        /**
+         * The address to which the guest prints its banner or null.
+         */
+        private final InetSocketAddress serial;
+
+        /**
+         * Whether the guest runs once an incoming migration was loaded.
+         */
+        private final boolean autostart;
+
+        /**
+         * The run state of the guest.
+         */
+        private volatile String status;
+
+        /**
+         * The status of the last migration or null if none.
+         */
+        private String migration;
+
+        /**
+         * Whether the guest has booted, so that it is not booted again when
+         * resumed.
+         */
+        private boolean booted;
+
+        /**
+         * The key of the listening channel.
+         */
+        private SelectionKey key;
+
+        /**
+         * The connection being served, if any.
+         */
+        private Session session;
+
+        /**
+         * Whether the endpoint was closed.
+         */
+        private volatile boolean closed;
+
+        /**
+         * A private constructor that initializes the endpoint.
+         *
+         * @param theChannel the bound listening channel.
+         * @param theProfile the behaviour of the endpoint.
+         * @param theStatus the initial run state of the guest.
+         * @param theSerial the address to which the guest prints its banner
+         * or null.
+         * @param theAutostart whether the guest runs once an incoming
+         * migration was loaded.
+         * @param theOnQuit the action to run once the endpoint quits.
+         */
+        private Endpoint(ServerSocketChannel theChannel, FakeProfile theProfile, String theStatus,
+                InetSocketAddress theSerial, boolean theAutostart, Runnable theOnQuit) {
+            channel = theChannel;
+            profile = theProfile;
+            random = new Random(theProfile.seed());
+            serial = theSerial;
+            autostart = theAutostart;
+            onQuit = theOnQuit;
+            status = theStatus;
+            migration = null;
+            booted = false;
+            key = null;
+            session = null;
+            closed = false;
+        }
+
+        /**
+         * A getter of the port on which the endpoint listens.
+         *
+         * @return the port number or -1 if the endpoint was closed.
+         */
+        public int port() {
+            return channel.socket().getLocalPort();
+        }
+
+        /**
+         * A getter of the run state of the guest.
+         *
+         * @return the {@link Endpoint#status}.
+         */
+        public String status() {
+            return status;
+        }
+
+        /**
+         * It closes the endpoint and its connection, if any, once the replies
+         * already executed were sent. The address is released right away.
+         */
+        public void close() {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            try {
+                channel.close();
+            } catch (IOException ex) {
+                Log.severe("{0}", ex);
+            }
+            endpoints.remove(this);
+            post(() -> {
+                if (session != null) {
+                    session.finish(null);
+                }
+            });
+        }
+
+        /**
+         * It registers the listening channel on the selector and boots the
+         * guest if it starts running.
+         */
+        private void listen() {
+            if (closed) {
+                return;
+            }
+            try {
+                key = channel.register(selector, SelectionKey.OP_ACCEPT, this);
+            } catch (IOException ex) {
+                Log.severe("{0}", ex);
+            }
+            if (RUNNING.equals(status)) {
+                boot();
+            }
+        }
+
+        /**
+         * It boots the guest, which prints its banner on the serial port, if
+         * any, once the boot time of the profile has elapsed.
+         */
+        private void boot() {
+            booted = true;
+            if (serial == null || FakeQmpServer.this.closed) {
+                return;
+            }
+            try {
+                timer.schedule(this::banner, profile.bootDelay(), TimeUnit.MILLISECONDS);
+            } catch (RejectedExecutionException ex) {
+                Log.fine("The banner of the guest was not scheduled: {0}", ex.getMessage());
+            }
+        }
+
+        /**
+         * It prints the banner of the guest on the serial port, unless the
+         * endpoint was closed meanwhile.
+         */
+        private void banner() {
+            if (closed) {
+                return;
+            }
+            try (Socket socket = new Socket()) {
+                socket.connect(serial, SERIAL_TIMEOUT);
+                socket.getOutputStream().write((BANNER + "\r\n").getBytes(StandardCharsets.UTF_8));
+            } catch (IOException ex) {
+                Log.fine("The serial port {0} could not be reached: {1}", serial, ex.getMessage());
+            }
+        }
+
+        /**
+         * It accepts a connection and stops accepting others until it is
+         * closed, as the QEMU does.
+         *
+         * @throws IOException if the connection could not be set up.
+         */
+        private void accept() throws IOException {
+            SocketChannel client = channel.accept();
+            if (client == null) {
+                return;
+            }
+            client.configureBlocking(false);
+            client.setOption(StandardSocketOptions.TCP_NODELAY, true);
+            key.interestOps(0);
+            session = new Session(this, client);
+            session.greet();
+        }
+
+        /**
+         * It forgets a closed connection and accepts the next one.
+         *
+         * @param closing the closed connection.
+         */
+        private void detach(Session closing) {
+            if (session == closing) {
+                session = null;
+                if (!closed && key != null && key.isValid()) {
+                    key.interestOps(SelectionKey.OP_ACCEPT);
+                }
+            }
+        }
+
+        /**
+         * It executes a command and sends its reply and its events through
+         * the connection.
+         *
+         * @param connection the connection from which the command came.
+         * @param command the name of the command.
+         * @param id the JSON text of the identification of the command or
+         * null.
+         */
+        private void execute(Session connection, String command, String id) {
+            switch (command) {
+                case "stop":
+                    connection.reply(id, "{}", false);
+                    if (RUNNING.equals(status)) {
+                        status = PAUSED;
+                        emit("STOP", null);
+                    }
+                    break;
+                case "cont":
+                    if (INMIGRATE.equals(status)) {
+                        connection.reply(id, error("GenericError", "Guest can not be started while it is "
+                                + "waiting for an incoming migration"), true);
+                        break;
+                    }
+                    connection.reply(id, "{}", false);
+                    if (!RUNNING.equals(status)) {
+                        status = RUNNING;
+                        emit("RESUME", null);
+                    }
+                    if (!booted) {
+                        boot();
+                    }
+                    break;
+                case "system_reset":
+                    connection.reply(id, "{}", false);
+                    emit("RESET", "{\"guest\": false, \"reason\": \"host-qmp-system-reset\"}");
+                    booted = false;
+                    if (RUNNING.equals(status)) {
+                        boot();
+                    }
+                    break;
+                case "migrate":
+                    if (ACTIVE.equals(migration) || INMIGRATE.equals(status)) {
+                        connection.reply(id, error("GenericError", "There's a migration process in progress"), true);
+                        break;
+                    }
+                    connection.reply(id, "{}", false);
+                    migrate(() -> {
+                        if (RUNNING.equals(status)) {
+                            emit("STOP", null);
+                        }
+                        status = "postmigrate";
+                    });
+                    break;
+                case "migrate-incoming":
+                    if (!INMIGRATE.equals(status) || migration != null) {
+                        connection.reply(id, error("GenericError", "'-incoming' was not specified on the command "
+                                + "line or the incoming migration was already started"), true);
+                        break;
+                    }
+                    connection.reply(id, "{}", false);
+                    migrate(() -> {
+                        booted = true;
+                        status = autostart ? RUNNING : PAUSED;
+                        if (autostart) {
+                            emit("RESUME", null);
+                        }
+                    });
+                    break;
+                case "query-migrate":
+                    connection.reply(id, migration == null ? "{}" : "{\"status\": \"" + migration + "\"}", false);
+                    break;
+                case "system_powerdown":
+                    connection.reply(id, "{}", false);
+                    emit("POWERDOWN", null);
+                    if (RUNNING.equals(status)) {
+                        later(TimeUnit.MILLISECONDS.toNanos(profile.powerdownDelay()), () -> {
+                            if (!closed) {
+                                quit("{\"guest\": true, \"reason\": \"guest-shutdown\"}");
+                            }
+                        });
+                    }
+                    break;
+                case "quit":
+                    connection.reply(id, "{}", false);
+                    quit("{\"guest\": false, \"reason\": \"host-qmp-quit\"}");
+                    break;
+                case "query-status":
+                    connection.reply(id, "{\"status\": \"" + status + "\", \"singlestep\": false, \"running\": "
+                            + RUNNING.equals(status) + "}", false);
+                    break;
+                default:
+                    if (command.startsWith(QUERY_PREFIX)) {
+                        connection.reply(id, "{}", false);
+                    } else {
+                        connection.reply(id, error("CommandNotFound", "The command " + command + " has not been found"), true);
+                    }
+            }
+        }
+
+        /**
+         * It runs a migration, which completes once the restore time of the
+         * profile has elapsed.
+         *
+         * @param then the action to run once the migration completed.
+         */
+        private void migrate(Runnable then) {
+            migration = ACTIVE;
+            later(TimeUnit.MILLISECONDS.toNanos(profile.restoreDelay()), () -> {
+                if (!closed) {
+                    migration = COMPLETED;
+                    then.run();
+                }
+            });
+        }
+
+        /**
+         * It emits an event through the connection, if any.
+         *
+         * @param event the name of the event.
+         * @param data the JSON text of the data of the event or null.
+         */
+        private void emit(String event, String data) {
+            if (session == null) {
+                return;
+            }
+            long now = System.currentTimeMillis();
+            session.write("{\"timestamp\": {\"seconds\": " + now / 1000 + ", \"microseconds\": " + now % 1000 * 1000
+                    + "}, \"event\": \"" + event + "\"" + (data == null ? "" : ", \"data\": " + data) + "}\r\n");
+        }
+
+        /**
+         * It shuts the guest down: it emits «SHUTDOWN», closes the endpoint
+         * and runs the {@link Endpoint#onQuit} once the connection was
+         * flushed.
+         *
+         * @param data the JSON text of the data of the «SHUTDOWN» event.
+         */
+        private void quit(String data) {
+            emit("SHUTDOWN", data);
+            status = "shutdown";
+            if (session != null) {
+                session.finish(onQuit);
+            } else {
+                onQuit.run();
+            }
+            close();
+        }
+
+    }
+
+    /**
+     * A connection to an endpoint. It is only touched by the selector thread.
+     */
+    private final class Session {
+
+        /**
+         * The endpoint that accepted the connection.
+         */
+        private final Endpoint endpoint;
+
+        /**
+         * The channel of the connection.
+         */
+        private final SocketChannel channel;
+
+        /**
+         * The key of the {@link Session#channel}.
+         */
+        private final SelectionKey key;
+
+        /**
+         * The buffer of the received bytes.
+         */
+        private final ByteBuffer input;
+
+        /**
+         * The bytes of the command being received.
+         */
+        private final ByteArrayOutputStream command;
+
+        /**
+         * The bytes still to be sent.
+         */
+        private final Deque<ByteBuffer> output;
+
+        /**
+         * The nesting of the braces of the command being received.
+         */
+        private int depth;
+
+        /**
+         * Whether the command being received is within a string.
+         */
+        private boolean quoted;
+
+        /**
+         * Whether the last received character escapes the next one.
+         */
+        private boolean escaped;
+
+        /**
+         * Whether the capabilities were negotiated.
+         */
+        private boolean negotiated;
+
+        /**
+         * The {@link System#nanoTime()} at which the last command in band is
+         * executed, so that the next one waits for it.
+         */
+        private long busyUntil;
+
+        /**
+         * Whether the commands in band are never replied to again.
+         */
+        private boolean hung;
+
+        /**
+         * Whether the connection is to be closed once flushed.
+         */
+        private boolean closing;
+
+        /**
+         * The action to run once the connection is closed or null.
+         */
+        private Runnable after;
+
+        /**
+         * Whether the connection is open.
+         */
+        private boolean open;
+
+        /**
+         * The periodic unsolicited events or null.
+         */
+        private ScheduledFuture<?> ticker;
+
+        /**
+         * A private constructor that registers the connection for reading.
+         *
+         * @param theEndpoint the endpoint that accepted the connection.
+         * @param theChannel the channel of the connection.
+         * @throws IOException if the channel could not be registered.
+         */
+        private Session(Endpoint theEndpoint, SocketChannel theChannel) throws IOException {
+            endpoint = theEndpoint;
+            channel = theChannel;
+            key = theChannel.register(selector, SelectionKey.OP_READ, this);
+            input = ByteBuffer.allocate(BUFFER);
+            command = new ByteArrayOutputStream();
+            output = new ArrayDeque<>();
+            depth = 0;
+            quoted = false;
+            escaped = false;
+            negotiated = false;
+            busyUntil = 0;
+            hung = false;
+            closing = false;
+            after = null;
+            open = true;
+            ticker = null;
+        }
+
+        /**
+         * It greets the client and starts the unsolicited events, if any.
+         */
+        private void greet() {
+            write(GREETING);
+            long interval = endpoint.profile.eventInterval();
+            if (interval > 0) {
+                ticker = timer.scheduleAtFixedRate(() -> post(() -> {
+                    if (open && endpoint.session == this) {
+                        endpoint.emit("RTC_CHANGE", "{\"offset\": 0}");
+                    }
+                }), interval, interval, TimeUnit.MILLISECONDS);
+            }
+        }
+
+        /**
+         * It reads the available bytes and handles every command completed by
+         * them. The commands are split from the stream by the nesting of
+         * their braces, since the QMP does not delimit them.
+         *
+         * @throws IOException if the channel could not be read.
+         */
+        private void read() throws IOException {
+            if (channel.read(input) < 0) {
+                close();
+                return;
+            }
+            input.flip();
+            while (input.hasRemaining() && open) {
+                byte read = input.get();
+                char character = (char) (read & 0xff);
+                if (depth > 0) {
+                    command.write(read);
+                }
+                if (escaped) {
+                    escaped = false;
+                } else if (quoted) {
+                    escaped = character == '\\';
+                    quoted = character != '"';
+                } else if (character == '"') {
+                    quoted = true;
+                } else if (character == '{') {
+                    if (depth++ == 0) {
+                        command.write(read);
+                    }
+                } else if (character == '}' && --depth == 0) {
+                    handle(new String(command.toByteArray(), StandardCharsets.UTF_8));
+                    command.reset();
+                }
+            }
+            input.clear();
+        }
+
+        /**
+         * It handles a command: it draws its fault and its latency from the
+         * profile and schedules its execution.
+         *
+         * @param text the JSON text of the command.
+         */
+        private void handle(String text) {
+            Map<String, Object> json = JSONReader.object(text);
+            String id = identification(json.get("id"));
+            boolean outOfBand = json.containsKey("exec-oob");
+            Object name = outOfBand ? json.get("exec-oob") : json.get("execute");
+            if (!(name instanceof String)) {
+                reply(id, error("GenericError", "QMP input lacks member 'execute'"), true);
+                return;
+            }
+            String execute = (String) name;
+            if (CAPABILITIES.equals(execute)) {
+                if (negotiated) {
+                    reply(id, error("CommandNotFound", "Capabilities negotiation is already complete, command ignored"), true);
+                } else {
+                    negotiated = true;
+                    reply(id, "{}", false);
+                }
+                return;
+            }
+            if (!negotiated) {
+                reply(id, error("CommandNotFound", "Expecting capabilities negotiation with 'qmp_capabilities'"), true);
+                return;
+            }
+            FakeProfile.Fault fault = endpoint.profile.fault(endpoint.random);
+            if (fault == FakeProfile.Fault.DROP) {
+                close();
+                return;
+            }
+            long delay = endpoint.profile.delay(execute, endpoint.random);
+            boolean failed = fault == FakeProfile.Fault.ERROR;
+            if (outOfBand) {
+                later(delay, () -> complete(execute, id, failed));
+                return;
+            }
+            if (hung || fault == FakeProfile.Fault.HANG) {
+                hung = true;
+                return;
+            }
+            long now = System.nanoTime();
+            busyUntil = Math.max(now, busyUntil) + delay;
+            later(busyUntil - now, () -> complete(execute, id, failed));
+        }
+
+        /**
+         * It executes a command once its latency has elapsed, unless the
+         * connection was closed meanwhile.
+         *
+         * @param execute the name of the command.
+         * @param id the JSON text of the identification of the command or
+         * null.
+         * @param failed whether an error is injected instead.
+         */
+        private void complete(String execute, String id, boolean failed) {
+            if (!open || closing) {
+                return;
+            }
+            if (failed) {
+                reply(id, error("GenericError", "Injected fault while executing '" + execute + "'"), true);
+            } else {
+                endpoint.execute(this, execute, id);
+            }
+        }
+
+        /**
+         * It sends a reply.
+         *
+         * @param id the JSON text of the identification of the command or
+         * null.
+         * @param value the JSON text of the returned value or of the error.
+         * @param failed whether the value is an error.
+         */
+        private void reply(String id, String value, boolean failed) {
+            write("{\"" + (failed ? "error" : "return") + "\": " + value + (id == null ? "" : ", \"id\": " + id)
+                    + "}\r\n");
+        }
+
+        /**
+         * It sends a text, queueing what the channel does not take right
+         * away.
+         *
+         * @param text the text to send.
+         */
+        private void write(String text) {
+            if (!open) {
+                return;
+            }
+            ByteBuffer buffer = ByteBuffer.wrap(text.getBytes(StandardCharsets.UTF_8));
+            try {
+                if (output.isEmpty()) {
+                    channel.write(buffer);
+                }
+                if (buffer.hasRemaining()) {
+                    output.add(buffer);
+                    key.interestOps(SelectionKey.OP_READ | SelectionKey.OP_WRITE);
+                }
+            } catch (IOException | CancelledKeyException ex) {
+                close();
+            }
+        }
+
+        /**
+         * It sends the queued bytes that the channel takes and closes the
+         * connection once they were all sent, if it is closing.
+         *
+         * @throws IOException if the channel could not be written.
+         */
+        private void flush() throws IOException {
+            while (!output.isEmpty()) {
+                ByteBuffer buffer = output.peek();
+                channel.write(buffer);
+                if (buffer.hasRemaining()) {
+                    return;
+                }
+                output.poll();
+            }
+            key.interestOps(SelectionKey.OP_READ);
+            if (closing) {
+                close();
+            }
+        }
+
+        /**
+         * It closes the connection once the queued bytes were sent.
+         *
+         * @param then the action to run once closed or null.
+         */
+        private void finish(Runnable then) {
+            closing = true;
+            if (then != null) {
+                after = then;
+            }
+            if (output.isEmpty()) {
+                close();
+            }
+        }
+
+        /**
+         * It closes the connection and lets the endpoint accept the next one.
+         */
+        private void close() {
+            if (!open) {
+                return;
+            }
+            open = false;
+            if (ticker != null) {
+                ticker.cancel(false);
+            }
+            key.cancel();
+            try {
+                channel.close();
+            } catch (IOException ex) {
+                Log.severe("{0}", ex);
+            }
+            endpoint.detach(this);
+            if (after != null) {
+                after.run();
+            }
+        }
+
+    }
+
+}
@@ -0,0 +1,225 @@
+/*
+ *                      QEMU INSTANCES MANAGER LIBRARY
+ *                                Java Version
+ * 
+ * PRODUCT OWNER: Research Centre in Real-Time & Embedded Computing Systems
+ * PROJECT MANAGER: Luís Pinho and Cláudio Maia {lmn,clrrm}@isep.ipp.pt
+ * DEVELOPER: Manuel Meireles ( mjcdm@isep.ipp.pt )
+ * DATE: 24/11/2017
+ * SCOPE: CISTER Summer Internship 2017
+ * VERSION: 1.0
+ */
+package Simulation;
+
+import java.util.PriorityQueue;
+
+/**
+ * A virtual clock of a simulation. Its time only moves when it is advanced,
+ * running on the way, in order, the tasks scheduled up to the new time. The
+ * tasks due at the same time run in the order in which they were scheduled,
+ * so that a simulation driven by a single thread is deterministic. The
+ * advances are serialized, so a task never runs concurrently with another
+ * one, and it may schedule further tasks or even advance the clock itself.
+ *
+ * @author Manuel Meireles ( mjcdm@isep.ipp.pt )
+ */
+public class VirtualClock {
+
+    /**
+     * The clock shared by the simulated instances built from the
+     * {@link Configurations.Settings}.
+     */
+    private static VirtualClock shared;
+
+    /**
+     * The scheduled tasks, by their time and their order of scheduling.
+     */
+    private final PriorityQueue<Task> tasks;
+
+    /**
+     * The lock that serializes the advances.
+     */
+    private final Object advancing;
+
+    /**
+     * The current time, in nanoseconds since the start of the simulation.
+     */
+    private long now;
+
+    /**
+     * The order of the next scheduled task.
+     */
+    private long sequence;
+
+    /**
+     * A private constructor that initializes the clock at time zero without
+     * tasks.
+     */
+    private VirtualClock() {
+        tasks = new PriorityQueue<>();
+        advancing = new Object();
+        now = 0;
+        sequence = 0;
+    }
+
+    /**
+     * It builds a clock at time zero.
+     *
+     * @return the built clock.
+     */
+    public static VirtualClock create() {
+        return new VirtualClock();
+    }
+
+    /**
+     * A getter of the clock shared by the simulated instances built from the
+     * {@link Configurations.Settings}. It is built on the first call.
+     *
+     * @return the shared clock.
+     */
+    public static synchronized VirtualClock shared() {
+        if (shared == null) {
+            shared = create();
+        }
+        return shared;
+    }
+
+    /**
+     * A getter of the current time.
+     *
+     * @return the {@link VirtualClock#now} in nanoseconds.
+     */
+    public synchronized long now() {
+        return now;
+    }
+
+    /**
+     * It provides the number of tasks still to run.
+     *
+     * @return the number of scheduled tasks.
+     */
+    public synchronized int pending() {
+        return tasks.size();
+    }
+
+    /**
+     * It schedules a task. A task scheduled in the past runs on the next
+     * advance.
+     *
+     * @param time the time, in nanoseconds, at which the task runs.
+     * @param task the task to run.
+     */
+    public synchronized void schedule(long time, Runnable task) {
+        tasks.add(new Task(time, sequence++, task));
+    }
+
+    /**
+     * It advances the clock by some time.
+     *
+     * @param nanos the time to advance, in nanoseconds.
+     */
+    public void advance(long nanos) {
+        advanceTo(now() + Math.max(0, nanos));
+    }
+
+    /**
+     * It advances the clock up to a time, running the tasks due by then. The
+     * clock never goes back.
+     *
+     * @param time the time, in nanoseconds, to advance to.
+     */
+    public void advanceTo(long time) {
+        synchronized (advancing) {
+            Task task;
+            while ((task = next(time)) != null) {
+                task.action.run();
+            }
+            synchronized (this) {
+                now = Math.max(now, time);
+            }
+        }
+    }
+
+    /**
+     * It runs every task, advancing the clock to the time of the last one,
+     * until none is left.
+     *
+     * @return the time, in nanoseconds, at which the last task ran.
+     */
+    public long runAll() {
+        synchronized (advancing) {
+            Task task;
+            while ((task = next(Long.MAX_VALUE)) != null) {
+                task.action.run();
+            }
+            return now();
+        }
+    }
+
+    /**
+     * It takes the next task due up to a time and moves the clock to its
+     * time.
+     *
+     * @param time the time, in nanoseconds, up to which the tasks are due.
+     * @return the next due task or null if there is none.
+     */
+    private synchronized Task next(long time) {
+        Task task = tasks.peek();
+        if (task == null || task.time > time) {
+            return null;
+        }
+        tasks.poll();
+        now = Math.max(now, task.time);
+        return task;
+    }
+
+    /**
+     * A scheduled task.
+     */
+    private static final class Task implements Comparable<Task> {
+
+        /**
+         * The time, in nanoseconds, at which the task runs.
+         */
+        private final long time;
+
+        /**
+         * The order in which the task was scheduled.
+         */
+        private final long order;
+
+        /**
+         * The action of the task.
+         */
+        private final Runnable action;
+
+        /**
+         * A private constructor that initializes the task.
+         *
+         * @param theTime the time at which the task runs.
+         * @param theOrder the order in which the task was scheduled.
+         * @param theAction the action of the task.
+         */
+        private Task(long theTime, long theOrder, Runnable theAction) {
+            time = theTime;
+            order = theOrder;
+            action = theAction;
+        }
+
+        /**
+         * It orders the tasks by their time and then by their order of
+         * scheduling.
+         *
+         * @param that the other task.
+         * @return a negative number, zero or a positive number as this task
+         * runs before, with or after the other one.
+         */
+        @Override
+        public int compareTo(Task that) {
+            int byTime = Long.compare(time, that.time);
+            return byTime != 0 ? byTime : Long.compare(order, that.order);
+        }
+
+    }
+
+}
@@ -0,0 +1,10 @@
+/**
+ * The package contains stand-ins of the QEMU, so that the manager can be
+ * driven at scale without its binaries and guests. The
+ * {@link Simulation.FakeQmpServer} serves the QMP endpoints of the instances
+ * spawned by the «fake» launcher and the {@link Simulation.FakeProfile} sets
+ * the latency, the faults, the events and the boot of each one, while the
+ * {@link Simulation.VirtualClock} tells the time of the
+ * {@link Instances.SimulatedInstance}s.
+ */
+package Simulation;
@@ -13,6 +13,8 @@ package TCP;
 
 import Commands.Command;
 import Communications.ExecutionResult;
+import java.util.ArrayList;
+import java.util.List;
 
 /**
  * The interface of a client in a client/server configuration. It is used to
@@ -31,4 +33,65 @@ public interface Client {
      */
     ExecutionResult send(Command command);
 
+    /**
+     * An indicator of whether the connection to the instance is still open.
+     * A closed client fails every command and has to be replaced.
+     *
+     * @return true if the connection is open or false otherwise.
+     */
+    boolean isOpen();
+
+    /**
+     * It sends several commands to the instance and waits for all their
+     * replies. Clients that may have several commands in flight pipeline
+     * them, i.e. write them all before waiting for the first reply, while the
+     * others send them one at a time, which is the case unless overridden.
+     *
+     * @param commands the commands to be sent.
+     * @return the execution result of each command, in order.
+     */
+    default List<ExecutionResult> sendAll(List<Command> commands) {
+        List<ExecutionResult> results = new ArrayList<>(commands.size());
+        for (Command command : commands) {
+            results.add(send(command));
+        }
+        return results;
+    }
+
+    /**
+     * It closes the connection to the instance.
+     */
+    void close();
+
+    /**
+     * An indicator of whether the client sends the
+     * {@link Command.Priority#OUT_OF_BAND} commands out of band, i.e. even
+     * while other commands are still waiting for their replies.
+     *
+     * @return false unless overridden.
+     */
+    default boolean outOfBand() {
+        return false;
+    }
+
+    /**
+     * It provides the moment the oldest command still waiting for its reply
+     * was sent, so that an instance that stopped replying can be told apart.
+     *
+     * @return the {@link System#nanoTime()} at which the command was sent or
+     * zero if no command is waiting, which is the case unless overridden.
+     */
+    default long awaitingSince() {
+        return 0;
+    }
+
+    /**
+     * It registers a listener of the asynchronous events of the instance.
+     * Clients whose instances send no events ignore it.
+     *
+     * @param listener the listener to register.
+     */
+    default void listen(EventListener listener) {
+    }
+
 }
@@ -0,0 +1,32 @@
+/*
+ *                      QEMU INSTANCES MANAGER LIBRARY
+ *                                Java Version
+ * 
+ * PRODUCT OWNER: Research Centre in Real-Time & Embedded Computing Systems
+ * PROJECT MANAGER: Luís Pinho and Cláudio Maia {lmn,clrrm}@isep.ipp.pt
+ * DEVELOPER: Manuel Meireles ( mjcdm@isep.ipp.pt )
+ * DATE: 24/11/2017
+ * SCOPE: CISTER Summer Internship 2017
+ * VERSION: 1.0
+ */
+package TCP;
+
+/**
+ * A listener of the asynchronous events a QEMU sends through QMP, such as
+ * «STOP», «RESUME» or «SHUTDOWN».
+ *
+ * @see Client#listen(EventListener)
+ * @author Manuel Meireles ( mjcdm@isep.ipp.pt )
+ */
+public interface EventListener {
+
+    /**
+     * It is called by the reader of the client for every event received. It
+     * should return quickly, since the replies wait for it.
+     *
+     * @param event the name of the event.
+     * @param message the event as it was received, in JSON format.
+     */
+    void eventReceived(String event, String message);
+
+}
@@ -11,26 +11,50 @@
  */
 package TCP;
 
+import Commands.CapabilitiesQMP;
 import Commands.Command;
+import Commands.Command.Priority;
 import Communications.Fail;
 import Communications.Fail.Reason;
 import Commands.ShutdownQMP;
 import Communications.ExecutionResult;
 import Communications.Reply;
+import Configurations.Log;
 import Configurations.Settings;
+import Configurations.Threads;
 import Parsers.CMDtoJSON;
+import Parsers.JSONReader;
 import Parsers.Parser;
+import Profiling.QmpCommandEvent;
+import Profiling.QmpConnectEvent;
+import Profiling.Span;
+import Profiling.TimeoutEvent;
 import java.io.BufferedReader;
 import java.io.BufferedWriter;
 import java.io.IOException;
 import java.io.InputStreamReader;
 import java.io.OutputStreamWriter;
+import java.net.InetSocketAddress;
 import java.net.Socket;
-import java.util.logging.Level;
-import java.util.logging.Logger;
+import java.net.SocketTimeoutException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
- * A client of the QemuInstance.
+ * A client of the QemuInstance. Every command is tagged with its own «id»,
+ * which the QEMU echoes in the reply, and a single reader hands each reply to
+ * the command it belongs to. Thus a command may be sent while others are
+ * still waiting for their replies, which is what lets the
+ * {@link Priority#OUT_OF_BAND} ones overtake a slow command through QMP
+ * «exec-oob» once the «oob» capability was negotiated.
  *
  * @see Client
  * @see QemuInstance
@@ -38,22 +62,64 @@ import java.util.logging.Logger;
  */
 public class QMPClient implements Client {
 
+    /**
+     * The executor of the readers of every client.
+     */
+    private static final ExecutorService READERS = Threads.perTask("qmp-reader");
+
+    /**
+     * The key of the QMP messages that are asynchronous events.
+     */
+    private static final String EVENT_KEY = "event";
+
+    /**
+     * The key of the QMP replies that are errors.
+     */
+    private static final String ERROR_KEY = "error";
+
+    /**
+     * The key of the identification of a command, echoed in its reply.
+     */
+    private static final String ID_KEY = "id";
+
+    /**
+     * The capability of the QMP server to execute commands out of band.
+     */
+    private static final String OUT_OF_BAND_CAPABILITY = "oob";
+
+    /**
+     * The JSON start of an in-band command.
+     */
+    private static final String EXECUTE = "{\"execute\":";
+
+    /**
+     * The JSON start of an out-of-band command.
+     */
+    private static final String EXECUTE_OUT_OF_BAND = "{\"exec-oob\":";
+
+    /**
+     * The identification of the instance to which the client is connected,
+     * as it is told to the flight recorder.
+     */
+    private final String instance;
+
     /**
      * The socket to be used in the communication. It should bind to the IP
      * address and port number given to the instance through the «-qmp»
      * parameter.
      */
-    private Socket sock;
+    private final Socket sock;
 
     /**
-     * The output stream to the socket.
+     * The output stream to the socket. The writes are serialized on it.
      */
-    private BufferedWriter writer;
+    private final BufferedWriter writer;
 
     /**
-     * The input stream to the socket.
+     * The input stream to the socket. It is only read by the reader of the
+     * client once the greeting was read.
      */
-    private BufferedReader reader;
+    private final BufferedReader reader;
 
     /**
      * A parser capable of changing the received command to a structure that can
@@ -61,92 +127,492 @@ public class QMPClient implements Client {
      */
     private final Parser parser;
 
+    /**
+     * Whether the QEMU advertised the «oob» capability in its greeting.
+     */
+    private final boolean outOfBandAdvertised;
+
+    /**
+     * Whether the out-of-band execution of commands was negotiated.
+     */
+    private volatile boolean outOfBandEnabled;
+
+    /**
+     * Whether the connection is still open.
+     */
+    private volatile boolean open;
+
+    /**
+     * The source of the identifications of the commands.
+     */
+    private final AtomicLong sequence;
+
+    /**
+     * The replies still awaited, by the identification of their command.
+     */
+    private final ConcurrentNavigableMap<Long, Awaited> pending;
+
+    /**
+     * The listeners of the asynchronous events.
+     */
+    private final List<EventListener> listeners;
+
+    /**
+     * A reply awaited by a command, which remembers when the command was
+     * sent and keeps the reply as parsed by the reader, so that it is not
+     * parsed again.
+     */
+    private static class Awaited extends CompletableFuture<String> {
+
+        /**
+         * The {@link System#nanoTime()} at which the command was sent.
+         */
+        private final long since = System.nanoTime();
+
+        /**
+         * The reply as parsed by the reader. It is null until the reply is
+         * received.
+         */
+        private volatile Map<String, Object> parsed;
+
+        /**
+         * It completes the wait with the reply.
+         *
+         * @param message the reply as it was received.
+         * @param json the reply as it was parsed.
+         */
+        private void receive(String message, Map<String, Object> json) {
+            parsed = json;
+            complete(message);
+        }
+
+    }
+
     /**
      * The client constructor. It initializes the attributes without any
      * validation. The data is presumed to be correct. The parser to be used it
      * defines the parser as {@link CMDtoJSON}. If the necessity arises,
-     * multiple parsers might be used through the use of handlers.
+     * multiple parsers might be used through the use of handlers. Once the
+     * greeting is read, the reader of the client is started. The connection
+     * is recorded as a {@link QmpConnectEvent}.
      *
      * @param ip the IP address of the QEMU.
      * @param port the port number in which the QEMU is listening.
-     * @throws IOException due to {@link Socket#Socket(java.lang.String, int) }.
+     * @param theInstance the identification of the instance.
+     * @throws IOException due to {@link Socket#connect(java.net.SocketAddress, int)}
+     * or to the reading of the greeting of the QEMU, either of which may take
+     * up to {@link Settings#getQmpConnectTimeout()}.
      */
-    private QMPClient(String ip, int port) throws IOException {
-        sock = new Socket(ip, port);
-        writer = new BufferedWriter(new OutputStreamWriter(sock.getOutputStream()));
-        reader = new BufferedReader(new InputStreamReader(sock.getInputStream()));
+    private QMPClient(String ip, int port, String theInstance) throws IOException {
+        QmpConnectEvent event = QmpConnectEvent.started();
+        int timeout = (int) Settings.getQmpConnectTimeout();
+        instance = theInstance;
+        sock = new Socket();
+        String greeting;
+        try {
+            sock.connect(new InetSocketAddress(ip, port), timeout);
+            sock.setSoTimeout(timeout);
+            writer = new BufferedWriter(new OutputStreamWriter(sock.getOutputStream()));
+            reader = new BufferedReader(new InputStreamReader(sock.getInputStream()));
+            greeting = reader.readLine();
+            Log.fine("GREETING {0}", greeting);
+            if (greeting == null) {
+                throw new IOException("The QMP connection was closed before the greeting.");
+            }
+            sock.setSoTimeout(0);
+        } catch (IOException ex) {
+            sock.close();
+            if (ex instanceof SocketTimeoutException) {
+                TimeoutEvent.emit(instance, TimeoutEvent.QMP_CONNECT, timeout);
+            }
+            event.finish(instance, ip, port, false);
+            throw ex;
+        }
+        event.finish(instance, ip, port, true);
         parser = new CMDtoJSON();
+        Object capabilities = JSONReader.path(JSONReader.object(greeting), "QMP", "capabilities");
+        outOfBandAdvertised = capabilities instanceof List && ((List<?>) capabilities).contains(OUT_OF_BAND_CAPABILITY);
+        outOfBandEnabled = false;
+        open = true;
+        sequence = new AtomicLong();
+        pending = new ConcurrentSkipListMap<>();
+        listeners = new CopyOnWriteArrayList<>();
+        READERS.execute(this::read);
     }
 
     /**
      * It builds a QMP client and sets it ready to communicate. The input data
-     * should be same given through the «-qmp» parameter of the instance.
+     * should be same given through the «-qmp» parameter of the instance. The
+     * client is known to the flight recorder by its address.
      *
      * @param ip the IP address of the QEMU.
      * @param port the port number in which the QEMU is listening.
      * @return the built QMP client.
-     * @throws IOException due to {@link Socket#Socket(java.lang.String, int) }.
+     * @throws IOException due to {@link Socket#connect(java.net.SocketAddress, int)}
+     * or to the reading of the greeting of the QEMU.
      */
     public static QMPClient create(String ip, int port) throws IOException {
-        return new QMPClient(ip, port);
+        return new QMPClient(ip, port, ip + ":" + port);
+    }
+
+    /**
+     * It builds a QMP client of an instance and sets it ready to communicate.
+     * The input data should be same given through the «-qmp» parameter of the
+     * instance.
+     *
+     * @param ip the IP address of the QEMU.
+     * @param port the port number in which the QEMU is listening.
+     * @param instance the identification of the instance, as it is told to
+     * the flight recorder.
+     * @return the built QMP client.
+     * @throws IOException due to {@link Socket#connect(java.net.SocketAddress, int)}
+     * or to the reading of the greeting of the QEMU.
+     */
+    public static QMPClient create(String ip, int port, String instance) throws IOException {
+        return new QMPClient(ip, port, instance);
+    }
+
+    /**
+     * An indicator of whether the QEMU advertised the «oob» capability, i.e.
+     * whether it may be enabled through {@link CapabilitiesQMP#create(boolean)}.
+     *
+     * @return the {@link QMPClient#outOfBandAdvertised}.
+     */
+    public boolean supportsOutOfBand() {
+        return outOfBandAdvertised;
+    }
+
+    /**
+     * An indicator of whether the {@link Priority#OUT_OF_BAND} commands are
+     * sent with «exec-oob».
+     *
+     * @return the {@link QMPClient#outOfBandEnabled}.
+     */
+    @Override
+    public boolean outOfBand() {
+        return outOfBandEnabled;
+    }
+
+    /**
+     * It provides the moment the oldest command still waiting for its reply
+     * was sent.
+     *
+     * @return the {@link System#nanoTime()} at which the command was sent or
+     * zero if no command is waiting.
+     */
+    @Override
+    public long awaitingSince() {
+        Awaited oldest = oldest();
+        return oldest == null ? 0 : oldest.since;
+    }
+
+    /**
+     * It registers a listener of the asynchronous events of the QEMU. It is
+     * called by the reader of the client.
+     *
+     * @param listener the listener to register. It is ignored if null.
+     */
+    @Override
+    public void listen(EventListener listener) {
+        if (listener != null) {
+            listeners.add(listener);
+        }
     }
 
     /**
      * It sends a command to the instance. It uses the {@link QMPClient#parser}
-     * to parse the received command to JSON format that QEMU recognizes and
-     * then writes it to the socket. The received reply is then trapped, in
-     * order to check if any action should be taken by the client, and returned.
+     * to parse the received command to JSON format that QEMU recognizes, tags
+     * it with its identification and then writes it to the socket. A
+     * {@link Priority#OUT_OF_BAND} command is executed out of band if it was
+     * negotiated. The reply, handed over by the reader, is then trapped, in
+     * order to check if any action should be taken by the client, and
+     * returned. The exchange is recorded as a {@link QmpCommandEvent} and
+     * traced as a {@link Span}, whose tag is carried by the «id» member of
+     * the command and whose write, wait and parse are traced as its phases.
      *
      * @param command the command to be sent. It is parsed within.
-     * @return a {@link Reply} of the QEMU to the command.
+     * @return <ul><li>a {@link Reply} of the QEMU to the command;</li><li>a
+     * {@link Fail} due to {@link Reason#IO_EXCEPTION} if the connection is or
+     * got closed;</li><li>a {@link Fail} due to {@link Reason#WRONG_EXEC} if
+     * the wait for the reply was interrupted;</li></ul>
      */
     @Override
     public ExecutionResult send(Command command) {
-        Settings.logger().entering(getClass().getName(), "send", command);
+        Log.entering(getClass().getName(), "send", command);
         ExecutionResult result;
+        if (!open) {
+            result = Fail.because(Reason.IO_EXCEPTION, "The QMP connection was closed.");
+            Log.exiting(getClass().getName(), "send", result);
+            return result;
+        }
+        long id = sequence.incrementAndGet();
+        Awaited awaited = new Awaited();
+        pending.put(id, awaited);
+        QmpCommandEvent event = QmpCommandEvent.started();
+        Span span = Span.begin("send", Span.QMP, instance, null);
+        String json = null;
         try {
-            Command json = parser.parse(command);
-
-            writer.write(json.instruction());
-            writer.flush();
-            Settings.logger().fine("SEND " + json);
+            if (!open) {
+                throw new IOException("The QMP connection was closed.");
+            }
+            json = frame(parser.parse(command).instruction(), tag(span, id), command.priority());
+            long write = System.nanoTime();
+            synchronized (writer) {
+                writer.write(json);
+                writer.flush();
+            }
+            long wait = System.nanoTime();
+            span.phase("write", write, wait);
+            Log.fine("SEND {0}", json);
 
-            String reply = reader.readLine();
-            Settings.logger().fine("RECEIVE " + reply);
+            String reply = awaited.get();
+            long parse = System.nanoTime();
+            span.phase("wait", wait, parse);
+            Log.fine("RECEIVE {0}", reply);
 
-            result = Reply.create(reply, interpretSuccessOf(command, reply));
+            result = Reply.create(reply, interpretSuccessOf(command, awaited.parsed));
 
             trapCommand(command, result);
+            span.phase("parse", parse, System.nanoTime());
 
-            Settings.logger().exiting(getClass().getName(), "send", result);
+            event.finish(instance, command, json, reply, result.wasSuccessful());
+            Log.exiting(getClass().getName(), "send", result);
             return result;
-        } catch (IOException ex) {
-            Logger.getLogger(QMPClient.class.getName()).log(Level.SEVERE, null, ex);
-            result = Fail.because(Reason.IO_EXCEPTION);
-            Settings.logger().exiting(getClass().getName(), "send", result);
+        } catch (IOException | ExecutionException ex) {
+            Log.severe("{0}", ex);
+            close();
+            result = Fail.because(Reason.IO_EXCEPTION, "The QMP connection was closed.");
+            event.finish(instance, command, json, null, false);
+            Log.exiting(getClass().getName(), "send", result);
+            return result;
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            result = Fail.because(Reason.WRONG_EXEC, ex.toString());
+            event.finish(instance, command, json, null, false);
+            Log.exiting(getClass().getName(), "send", result);
             return result;
+        } finally {
+            pending.remove(id);
+            span.end();
+        }
+    }
+
+    /**
+     * It pipelines several commands to the instance: every command is tagged
+     * and the whole batch is written at once, before the first reply is
+     * waited for, so that the batch costs a single round trip instead of one
+     * per command. The replies are trapped and each exchange is recorded as
+     * a {@link QmpCommandEvent} and the batch is traced as a {@link Span}, as
+     * in {@link QMPClient#send(Commands.Command)}.
+     *
+     * @param commands the commands to be sent.
+     * @return the execution result of each command, in order, each one being
+     * <ul><li>a {@link Reply} of the QEMU to the command;</li><li>a
+     * {@link Fail} due to {@link Reason#IO_EXCEPTION} if the connection is or
+     * got closed;</li><li>a {@link Fail} due to {@link Reason#WRONG_EXEC} if
+     * the wait for the reply was interrupted;</li></ul>
+     */
+    @Override
+    public List<ExecutionResult> sendAll(List<Command> commands) {
+        Log.entering(getClass().getName(), "sendAll", commands);
+        int size = commands.size();
+        List<ExecutionResult> results = new ArrayList<>(size);
+        long[] ids = new long[size];
+        Awaited[] replies = new Awaited[size];
+        String[] frames = new String[size];
+        QmpCommandEvent[] events = new QmpCommandEvent[size];
+        Span span = Span.begin("sendAll", Span.QMP, instance, size + " commands");
+        try {
+            if (!open) {
+                throw new IOException("The QMP connection was closed.");
+            }
+            for (int index = 0; index < size; index++) {
+                Command command = commands.get(index);
+                ids[index] = sequence.incrementAndGet();
+                replies[index] = new Awaited();
+                pending.put(ids[index], replies[index]);
+                frames[index] = frame(parser.parse(command).instruction(), tag(span, ids[index]), command.priority());
+            }
+            long write = System.nanoTime();
+            synchronized (writer) {
+                for (int index = 0; index < size; index++) {
+                    events[index] = QmpCommandEvent.started();
+                    writer.write(frames[index]);
+                }
+                writer.flush();
+            }
+            long wait = System.nanoTime();
+            span.phase("write", write, wait);
+            for (int index = 0; index < size; index++) {
+                Log.fine("SEND {0}", frames[index]);
+                Command command = commands.get(index);
+                String reply = replies[index].get();
+                long parse = System.nanoTime();
+                span.phase("wait", wait, parse);
+                Log.fine("RECEIVE {0}", reply);
+                ExecutionResult result = Reply.create(reply, interpretSuccessOf(command, replies[index].parsed));
+                trapCommand(command, result);
+                wait = System.nanoTime();
+                span.phase("parse", parse, wait);
+                events[index].finish(instance, command, frames[index], reply, result.wasSuccessful());
+                results.add(result);
+            }
+        } catch (IOException | ExecutionException ex) {
+            Log.severe("{0}", ex);
+            close();
+            while (results.size() < size) {
+                results.add(Fail.because(Reason.IO_EXCEPTION, "The QMP connection was closed."));
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            while (results.size() < size) {
+                results.add(Fail.because(Reason.WRONG_EXEC, ex.toString()));
+            }
+        } finally {
+            for (long id : ids) {
+                pending.remove(id);
+            }
+            span.end();
+        }
+        Log.exiting(getClass().getName(), "sendAll", results);
+        return results;
+    }
+
+    /**
+     * It tags the command with its identification and, if it is to be
+     * executed out of band and that was negotiated, swaps «execute» for
+     * «exec-oob».
+     *
+     * @param json the command in JSON format.
+     * @param id the identification of the command, as a JSON value.
+     * @param priority the lane in which the command is sent.
+     * @return the command ready to be written.
+     */
+    private String frame(String json, String id, Priority priority) {
+        String framed = json;
+        if (priority == Priority.OUT_OF_BAND && outOfBandEnabled && framed.startsWith(EXECUTE)) {
+            framed = EXECUTE_OUT_OF_BAND + framed.substring(EXECUTE.length());
+        }
+        return "{\"" + ID_KEY + "\":" + id + "," + framed.substring(1);
+    }
+
+    /**
+     * It builds the identification of a command as it is carried on the wire:
+     * the tag of the span of the exchange, so that the trace can be told from
+     * a capture of the traffic or from the log of the QEMU, followed by the
+     * sequence number under which the reply is awaited.
+     *
+     * @param span the span of the exchange.
+     * @param id the sequence number of the command.
+     * @return the identification as a JSON string.
+     */
+    private static String tag(Span span, long id) {
+        return "\"" + span.tag() + "-" + id + "\"";
+    }
+
+    /**
+     * It provides the sequence number carried by the identification of a
+     * reply.
+     *
+     * @param id the identification echoed by the QEMU.
+     * @return the sequence number or -1 if the identification carries none.
+     */
+    private static long sequenceOf(Object id) {
+        if (id instanceof Number) {
+            return ((Number) id).longValue();
         }
+        if (id instanceof String) {
+            String text = (String) id;
+            try {
+                return Long.parseLong(text.substring(text.lastIndexOf('-') + 1));
+            } catch (NumberFormatException ex) {
+                return -1;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * It reads the messages of the QEMU until the connection is closed. Each
+     * reply is handed over to the command whose identification it echoes,
+     * while the asynchronous events are handed over to the listeners. A reply
+     * without an identification, which the QEMU only gives to a command it
+     * could not parse, is handed over to the oldest command still waiting. Once the connection is closed, every
+     * command still waiting fails.
+     */
+    private void read() {
+        try {
+            String message;
+            while ((message = reader.readLine()) != null) {
+                Map<String, Object> json = JSONReader.object(message);
+                if (json.containsKey(EVENT_KEY)) {
+                    Log.fine("EVENT {0}", message);
+                    notify(String.valueOf(json.get(EVENT_KEY)), message);
+                    continue;
+                }
+                long id = sequenceOf(json.get(ID_KEY));
+                Awaited awaited = id < 0 ? oldest() : pending.get(id);
+                if (awaited != null) {
+                    awaited.receive(message, json);
+                }
+            }
+        } catch (IOException ex) {
+            if (open) {
+                Log.warning("{0}", ex);
+            }
+        }
+        close();
+        IOException closed = new IOException("The QMP connection was closed.");
+        for (Awaited awaited : pending.values()) {
+            awaited.completeExceptionally(closed);
+        }
+    }
+
+    /**
+     * It hands an event over to every listener. A listener that throws does
+     * not prevent the others from being notified.
+     *
+     * @param event the name of the event.
+     * @param message the event as it was received.
+     */
+    private void notify(String event, String message) {
+        for (EventListener listener : listeners) {
+            try {
+                listener.eventReceived(event, message);
+            } catch (RuntimeException ex) {
+                Log.warning("{0}", ex);
+            }
+        }
+    }
+
+    /**
+     * It provides the reply awaited by the oldest command still waiting.
+     *
+     * @return the awaited reply or null if no command is waiting.
+     */
+    private Awaited oldest() {
+        Map.Entry<Long, Awaited> entry = pending.firstEntry();
+        return entry == null ? null : entry.getValue();
     }
 
     /**
      * It interprets the reply of the QEMU and decides if the command request
-     * was successful.
+     * was successful. Any reply but an error one is deemed successful.
      *
-     * @param request
-     * @param reply
+     * @param request the issued command.
+     * @param reply the reply gotten from the QEMU, as parsed by the reader.
      * @return true if the reply implies success or false otherwise.
      */
-    private boolean interpretSuccessOf(Command request, String reply) {
-        //TODO  this will require an analysis of the possible requests and
-        //      outcomes of them in order to be able to decide. It will not
-        //      be implemented for the time being.
-        return true;
+    private boolean interpretSuccessOf(Command request, Map<String, Object> reply) {
+        return !reply.containsKey(ERROR_KEY);
     }
 
     /**
      * It checks if any action is needed to be taken by this client based on the
      * command and reply made. Traps mounted are:<ul><li>Shutdown: it requires
-     * the client to close the socket and streams connections</li></ul>
+     * the client to close the socket and streams connections;</li>
+     * <li>Capabilities: it enables the out-of-band execution if it was
+     * negotiated;</li></ul>
      *
      * @param command the issued command.
      * @param result the reply gotten from the QEMU.
@@ -155,27 +621,32 @@ public class QMPClient implements Client {
         if (command instanceof ShutdownQMP && result.wasSuccessful()) {
             close();
         }
+        if (command instanceof CapabilitiesQMP && result.wasSuccessful()) {
+            outOfBandEnabled = ((CapabilitiesQMP) command).outOfBand();
+        }
     }
 
     /**
-     * It closes the socket as well as the I/O streams.
+     * An indicator of whether the connection is still open.
+     *
+     * @return the {@link QMPClient#open}.
+     */
+    @Override
+    public boolean isOpen() {
+        return open;
+    }
+
+    /**
+     * It closes the socket as well as the I/O streams. The reader of the
+     * client then stops and every command still waiting fails.
      */
-    private void close() {
+    @Override
+    public void close() {
+        open = false;
         try {
-            if (writer != null) {
-                writer.close();
-                writer = null;
-            }
-            if (reader != null) {
-                reader.close();
-                reader = null;
-            }
-            if (sock != null) {
-                sock.close();
-                sock = null;
-            }
+            sock.close();
         } catch (IOException ex) {
-            Settings.logger().severe(ex.toString());
+            Log.severe("{0}", ex);
         }
     }
 
@@ -0,0 +1,1313 @@
+/*
+ *                      QEMU INSTANCES MANAGER LIBRARY
+ *                                Java Version
+ * 
+ * PRODUCT OWNER: Research Centre in Real-Time & Embedded Computing Systems
+ * PROJECT MANAGER: Luís Pinho and Cláudio Maia {lmn,clrrm}@isep.ipp.pt
+ * DEVELOPER: Manuel Meireles ( mjcdm@isep.ipp.pt )
+ * DATE: 24/11/2017
+ * SCOPE: CISTER Summer Internship 2017
+ * VERSION: 1.0
+ */
+package Testing;
+
+import Commands.BuildQemuInstance;
+import Commands.Command;
+import Commands.MigrateIncomingQMP;
+import Commands.MigrateQMP;
+import Commands.QueryMigrateQMP;
+import Commands.QueryStatusQMP;
+import Communications.Creation;
+import Communications.ExecutionResult;
+import Communications.ListResult;
+import Communications.MapResult;
+import Communications.MigrationStatus;
+import Configurations.Settings;
+import HTTP.ResultToJSON;
+import Instances.InstanceID;
+import Managers.InstanceManager;
+import Managers.QemuInstancesManager;
+import Parsers.JSONReader;
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintWriter;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.BrokenBarrierException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.regex.Pattern;
+
+/**
+ * A testing class. It measures the time an instance takes to become ready
+ * under each boot strategy, so that they can be compared with hard numbers:
+ * <ul><li>«cold»: the QEMU is spawned and the guest boots from scratch;</li>
+ * <li>«pool»: the QEMU was spawned beforehand with «-S» and its monitor
+ * connected, so that only the first «cont» and the boot are left;</li>
+ * <li>«snapshot»: the QEMU is spawned with «-incoming defer» and loads a
+ * guest saved once, before the measurements, from a booted instance;</li>
+ * <li>«overlay»: a copy-on-write overlay of the base image is provisioned
+ * through «qemu-img» and the guest boots from it.</li></ul>
+ * Every instance is timed from the moment it is asked for through the
+ * phases it goes through, each one being the time elapsed until it ended:
+ * «provision» once the overlay was created, «spawn» once the process was
+ * started by the manager, «qmp» once the monitor greets, «restore» once the
+ * incoming migration completed, «cont» once the first «cont» through the
+ * manager succeeded and «guest» once the guest printed the banner on its
+ * serial port, which is only waited for if a banner is given. The time to
+ * ready is the last of them.
+ * <br/><br/>
+ * Each strategy runs for every concurrency level as many rounds as the
+ * repetitions, a round starting as many instances at once as the
+ * concurrency, after a few warm-up rounds that are not reported. The
+ * percentiles of each phase are printed and the report is written as CSV, a
+ * row per instance, and as JSON, with the summaries. It is meant to run a tiny guest, such as a bare multiboot kernel, with KVM if
+ * the host offers it and with TCG otherwise. With the «fake» launcher of the
+ * {@link Settings}, the instances are served by a
+ * {@link Simulation.FakeQmpServer}, whose guests print the
+ * {@link Simulation.FakeQmpServer#BANNER}.
+ * <br/><br/>
+ * Usage: BootBenchmark config [key=value ...], with the keys «strategies»,
+ * «repetitions», «warmup», «concurrency», «options», «kernel», «banner»,
+ * «image», «qemu_img», «accel» (auto, kvm, tcg or none), «timeout» (in
+ * milliseconds), «directory» and «output», e.g. BootBenchmark
+ * config.properties strategies=cold,pool,snapshot repetitions=20
+ * concurrency=1,8 kernel=hello.elf "banner=Hello, world"
+ *
+ * @author Manuel Meireles ( mjcdm@isep.ipp.pt )
+ */
+public class BootBenchmark {
+
+    /**
+     * The strategy that boots the guest from scratch.
+     */
+    private static final String COLD = "cold";
+
+    /**
+     * The strategy that resumes an instance started beforehand with «-S».
+     */
+    private static final String POOL = "pool";
+
+    /**
+     * The strategy that restores a saved guest.
+     */
+    private static final String SNAPSHOT = "snapshot";
+
+    /**
+     * The strategy that boots the guest from a fresh overlay of the base
+     * image.
+     */
+    private static final String OVERLAY = "overlay";
+
+    /**
+     * The names of the phases, in the order of their indexes.
+     */
+    private static final String[] PHASES = {"provision", "spawn", "qmp", "restore", "cont", "guest"};
+
+    /**
+     * The index of the provisioning of the overlay.
+     */
+    private static final int PROVISION = 0;
+
+    /**
+     * The index of the spawn of the process.
+     */
+    private static final int SPAWN = 1;
+
+    /**
+     * The index of the greeting of the monitor.
+     */
+    private static final int QMP = 2;
+
+    /**
+     * The index of the completion of the incoming migration.
+     */
+    private static final int RESTORE = 3;
+
+    /**
+     * The index of the first «cont».
+     */
+    private static final int CONT = 4;
+
+    /**
+     * The index of the banner of the guest.
+     */
+    private static final int GUEST = 5;
+
+    /**
+     * The name of the time to ready in the report.
+     */
+    private static final String READY = "ready";
+
+    /**
+     * The percentiles of the summaries.
+     */
+    private static final double[] PERCENTILES = {50, 90, 99};
+
+    /**
+     * The device through which the KVM is used.
+     */
+    private static final String KVM_DEVICE = "/dev/kvm";
+
+    /**
+     * The number of nanoseconds in a millisecond.
+     */
+    private static final double NANOS_PER_MILLI = 1e6;
+
+    /**
+     * The time, in milliseconds, between the attempts to reach the monitor
+     * and between the queries of a migration.
+     */
+    private static final long POLL_INTERVAL = 1;
+
+    /**
+     * The time, in milliseconds, the fleet is given to terminate.
+     */
+    private static final long SHUTDOWN_DEADLINE = 60000;
+
+    /**
+     * The parameters and their default values.
+     */
+    private static final String[][] DEFAULTS = {
+        {"strategies", "cold,pool,snapshot,overlay"},
+        {"repetitions", "10"},
+        {"warmup", "1"},
+        {"concurrency", "1,4,16"},
+        {"options", "qemu-system-x86_64 -m 32 -smp 1 -nodefaults -display none -no-reboot"},
+        {"kernel", ""},
+        {"banner", ""},
+        {"image", ""},
+        {"qemu_img", "qemu-img"},
+        {"accel", "auto"},
+        {"timeout", "60000"},
+        {"directory", ""},
+        {"output", "boot-benchmark"}};
+
+    /**
+     * The manager of the instances.
+     */
+    private final InstanceManager manager;
+
+    /**
+     * The options of every instance, with the acceleration and the kernel.
+     */
+    private final String options;
+
+    /**
+     * The acceleration in use: «kvm», «tcg», «none» or «options» if the
+     * options already choose it.
+     */
+    private final String acceleration;
+
+    /**
+     * The pattern of the banner of the guest or null if the guest is not
+     * waited for.
+     */
+    private final Pattern banner;
+
+    /**
+     * The base image or null if the guest boots without a disk.
+     */
+    private final String image;
+
+    /**
+     * The instruction of the «qemu-img» tool.
+     */
+    private final String qemuImg;
+
+    /**
+     * The time, in milliseconds, an instance is given to become ready.
+     */
+    private final long timeout;
+
+    /**
+     * The directory of the overlays and of the saved guest.
+     */
+    private final Path directory;
+
+    /**
+     * The file of the saved guest or null if not saved yet.
+     */
+    private Path state;
+
+    /**
+     * The measured instances.
+     */
+    private final List<Sample> samples;
+
+    /**
+     * A private constructor that reads the parameters of the benchmark.
+     *
+     * @param theManager the manager of the instances.
+     * @param parameters the parameters by their keys.
+     * @throws IOException if the directory could not be created.
+     */
+    private BootBenchmark(InstanceManager theManager, Map<String, String> parameters) throws IOException {
+        manager = theManager;
+        String base = parameters.get("options");
+        acceleration = acceleration(parameters.get("accel"), base);
+        String kernel = parameters.get("kernel");
+        options = base + accelerator(acceleration) + (kernel.isEmpty() ? "" : " -kernel " + kernel);
+        banner = parameters.get("banner").isEmpty() ? null : Pattern.compile(parameters.get("banner"));
+        image = parameters.get("image").isEmpty() ? null : parameters.get("image");
+        qemuImg = parameters.get("qemu_img");
+        timeout = Long.parseLong(parameters.get("timeout"));
+        directory = parameters.get("directory").isEmpty() ? Files.createTempDirectory("boot-benchmark")
+                : Files.createDirectories(Paths.get(parameters.get("directory")));
+        state = null;
+        samples = new ArrayList<>();
+    }
+
+    /**
+     * @param args the configuration file followed by the parameters as
+     * «key=value» pairs.
+     * @throws Exception if the benchmark was interrupted.
+     */
+    public static void main(String[] args) throws Exception {
+        Map<String, String> parameters = parameters(args);
+        if (parameters == null) {
+            StringBuilder keys = new StringBuilder();
+            for (String[] pair : DEFAULTS) {
+                keys.append(String.format("%n  %-12s %s", pair[0], pair[1]));
+            }
+            System.err.println("Usage: BootBenchmark config [key=value ...], the keys and their defaults being:" + keys);
+            System.exit(1);
+        }
+        ExecutionResult loaded = Settings.loadConfigurations(args[0]);
+        if (!loaded.wasSuccessful()) {
+            System.err.println("The configuration was not loaded: " + loaded);
+            System.exit(1);
+        }
+        BootBenchmark benchmark = new BootBenchmark(QemuInstancesManager.getInstance(), parameters);
+        System.out.printf("Launcher: %s, acceleration: %s, options: %s%n", Settings.getLauncher(),
+                benchmark.acceleration, benchmark.options);
+        int repetitions = Integer.parseInt(parameters.get("repetitions"));
+        int warmup = Integer.parseInt(parameters.get("warmup"));
+        for (String strategy : parameters.get("strategies").split(",")) {
+            if (!benchmark.prepare(strategy.trim())) {
+                continue;
+            }
+            for (int round = 0; round < warmup; round++) {
+                benchmark.round(strategy.trim(), 1, -1);
+            }
+            for (String level : parameters.get("concurrency").split(",")) {
+                int concurrency = Integer.parseInt(level.trim());
+                for (int round = 0; round < repetitions; round++) {
+                    benchmark.samples.addAll(benchmark.round(strategy.trim(), concurrency, round));
+                }
+                benchmark.print(strategy.trim(), concurrency);
+            }
+        }
+        String output = parameters.get("output");
+        benchmark.report(Paths.get(output + ".csv"), Paths.get(output + ".json"), repetitions);
+        System.out.printf("Report written to %s.csv and %s.json%n", output, output);
+        QemuInstancesManager.getInstance().shutdown(SHUTDOWN_DEADLINE, 0);
+        if (benchmark.state != null) {
+            Files.deleteIfExists(benchmark.state);
+        }
+        if (parameters.get("directory").isEmpty()) {
+            Files.deleteIfExists(benchmark.directory);
+        }
+        System.exit(0);
+    }
+
+    /**
+     * It reads the parameters of the benchmark over their defaults.
+     *
+     * @param args the configuration file followed by the parameters.
+     * @return the parameters by their keys or null if a parameter is not
+     * known or there is no configuration file.
+     */
+    private static Map<String, String> parameters(String[] args) {
+        if (args.length < 1) {
+            return null;
+        }
+        Map<String, String> parameters = new LinkedHashMap<>();
+        for (String[] pair : DEFAULTS) {
+            parameters.put(pair[0], pair[1]);
+        }
+        for (String arg : Arrays.asList(args).subList(1, args.length)) {
+            int equals = arg.indexOf('=');
+            if (equals < 0 || !parameters.containsKey(arg.substring(0, equals))) {
+                return null;
+            }
+            parameters.put(arg.substring(0, equals), arg.substring(equals + 1));
+        }
+        return parameters;
+    }
+
+    /**
+     * It chooses the acceleration of the instances: with «auto», the KVM if
+     * its device can be used and the TCG otherwise.
+     *
+     * @param accel the requested acceleration.
+     * @param options the options of the instances.
+     * @return the chosen acceleration or «options» if the options already
+     * choose it.
+     */
+    private static String acceleration(String accel, String options) {
+        if (options.contains("-accel") || options.contains("-enable-kvm") || options.contains("accel=")) {
+            return "options";
+        }
+        if ("auto".equalsIgnoreCase(accel)) {
+            Path device = Paths.get(KVM_DEVICE);
+            return Files.isReadable(device) && Files.isWritable(device) ? "kvm" : "tcg";
+        }
+        return accel.toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * It builds the options that select an acceleration.
+     *
+     * @param acceleration the acceleration.
+     * @return the options, which are empty if the acceleration is not chosen
+     * by the benchmark.
+     */
+    private static String accelerator(String acceleration) {
+        switch (acceleration) {
+            case "kvm":
+                return " -accel kvm -cpu host";
+            case "tcg":
+                return " -accel tcg";
+            default:
+                return "";
+        }
+    }
+
+    /**
+     * It prepares a strategy before it is measured: the «snapshot» one saves
+     * a booted guest and the «overlay» one requires a base image.
+     *
+     * @param strategy the name of the strategy.
+     * @return true if the strategy can be measured or false otherwise.
+     */
+    private boolean prepare(String strategy) {
+        switch (strategy) {
+            case COLD:
+            case POOL:
+                return true;
+            case OVERLAY:
+                if (image == null) {
+                    System.out.println("Skipping overlay: no base image was given (image=...)");
+                    return false;
+                }
+                return true;
+            case SNAPSHOT:
+                return save();
+            default:
+                System.out.println("Skipping " + strategy + ": unknown strategy");
+                return false;
+        }
+    }
+
+    /**
+     * It saves a booted guest to the file from which the «snapshot» strategy
+     * restores it: an instance is booted cold, paused and migrated to the
+     * file.
+     *
+     * @return true if the guest was saved or false otherwise.
+     */
+    private boolean save() {
+        Trial template = new Trial(new Sample(SNAPSHOT, 0, -1, 0));
+        try {
+            template.begin();
+            spawn(template, options + drive(image, true));
+            probe(template);
+            require(manager.continueInstance(template.id), "cont");
+            if (banner != null) {
+                guest(template);
+            }
+            require(manager.suspendInstance(template.id), "stop");
+            Path file = directory.resolve("snapshot.state");
+            require(execute(template.id, MigrateQMP.create("exec:cat > " + file)), "migrate");
+            migration(template, "migrate");
+            state = file;
+            System.out.printf("Snapshot saved in %.1f ms to %s (%d bytes)%n",
+                    (System.nanoTime() - template.start) / NANOS_PER_MILLI, file,
+                    Files.exists(file) ? Files.size(file) : 0);
+            return true;
+        } catch (Abort | IOException ex) {
+            System.out.println("Skipping snapshot: the guest was not saved: " + ex.getMessage());
+            return false;
+        } finally {
+            cleanup(template);
+        }
+    }
+
+    /**
+     * It runs a round: as many instances as the concurrency are prepared,
+     * measured at once and terminated.
+     *
+     * @param strategy the name of the strategy.
+     * @param concurrency the number of instances started at once.
+     * @param round the number of the round or -1 for a warm-up.
+     * @return the samples of the instances.
+     * @throws InterruptedException if the round was interrupted.
+     */
+    private List<Sample> round(String strategy, int concurrency, int round) throws InterruptedException {
+        List<Sample> measured = new ArrayList<>();
+        ExecutorService pool = Executors.newFixedThreadPool(concurrency);
+        CyclicBarrier barrier = new CyclicBarrier(concurrency);
+        List<Future<Sample>> pending = new ArrayList<>();
+        for (int index = 0; index < concurrency; index++) {
+            Sample sample = new Sample(strategy, concurrency, round, index);
+            pending.add(pool.submit(() -> trial(sample, barrier)));
+        }
+        for (Future<Sample> future : pending) {
+            try {
+                measured.add(future.get());
+            } catch (ExecutionException ex) {
+                Sample sample = new Sample(strategy, concurrency, round, pending.indexOf(future));
+                sample.error = String.valueOf(ex.getCause());
+                measured.add(sample);
+            }
+        }
+        pool.shutdown();
+        return measured;
+    }
+
+    /**
+     * It measures an instance. The instances of a round are prepared, then
+     * measured and then terminated together, so that neither the preparation
+     * nor the termination of one is measured with another.
+     *
+     * @param sample the sample of the instance.
+     * @param barrier the barrier shared by the instances of the round.
+     * @return the sample, with the measured phases or the error.
+     */
+    private Sample trial(Sample sample, CyclicBarrier barrier) {
+        Trial trial = new Trial(sample);
+        try {
+            try {
+                if (POOL.equals(sample.strategy)) {
+                    warm(trial);
+                }
+            } catch (Abort ex) {
+                sample.error = ex.getMessage();
+            }
+            await(barrier);
+            if (sample.error == null) {
+                try {
+                    measure(trial);
+                } catch (Abort ex) {
+                    sample.error = ex.getMessage();
+                }
+            }
+            await(barrier);
+        } finally {
+            cleanup(trial);
+        }
+        return sample;
+    }
+
+    /**
+     * It waits for the other instances of the round, but no longer than the
+     * timeout, so that a lost instance does not stall the others.
+     *
+     * @param barrier the barrier shared by the instances of the round.
+     */
+    private void await(CyclicBarrier barrier) {
+        try {
+            barrier.await(timeout, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        } catch (BrokenBarrierException | TimeoutException ex) {
+            // The others go on by themselves.
+        }
+    }
+
+    /**
+     * It prepares an instance of the «pool» strategy: it is spawned paused,
+     * its monitor greets and the manager has connected to it.
+     *
+     * @param trial the instance.
+     * @throws Abort if the instance could not be prepared.
+     */
+    private void warm(Trial trial) throws Abort {
+        trial.begin();
+        spawn(trial, options + drive(image, true) + " -S");
+        probe(trial);
+        require(execute(trial.id, QueryStatusQMP.create()), "warm");
+    }
+
+    /**
+     * It measures the phases of an instance according to its strategy.
+     *
+     * @param trial the instance.
+     * @throws Abort if a phase failed or timed out.
+     */
+    private void measure(Trial trial) throws Abort {
+        trial.begin();
+        switch (trial.sample.strategy) {
+            case POOL:
+                require(manager.continueInstance(trial.id), "cont");
+                trial.mark(CONT);
+                guest(trial);
+                break;
+            case SNAPSHOT:
+                spawn(trial, options + drive(image, true) + " -S -incoming defer");
+                trial.mark(SPAWN);
+                probe(trial);
+                trial.mark(QMP);
+                require(execute(trial.id, MigrateIncomingQMP.create("exec:cat " + state)), "restore");
+                migration(trial, "restore");
+                trial.mark(RESTORE);
+                require(manager.continueInstance(trial.id), "cont");
+                trial.mark(CONT);
+                break;
+            case OVERLAY:
+                provision(trial);
+                trial.mark(PROVISION);
+                spawn(trial, options + drive(trial.overlay.toString(), false));
+                trial.mark(SPAWN);
+                probe(trial);
+                trial.mark(QMP);
+                require(manager.continueInstance(trial.id), "cont");
+                trial.mark(CONT);
+                guest(trial);
+                break;
+            default:
+                spawn(trial, options + drive(image, true));
+                trial.mark(SPAWN);
+                probe(trial);
+                trial.mark(QMP);
+                require(manager.continueInstance(trial.id), "cont");
+                trial.mark(CONT);
+                guest(trial);
+        }
+    }
+
+    /**
+     * It builds the options that attach a disk.
+     *
+     * @param file the image of the disk or null for none.
+     * @param shared whether the image is shared by several instances, which
+     * then write to a temporary overlay of their own.
+     * @return the options, which are empty if there is no disk.
+     */
+    private static String drive(String file, boolean shared) {
+        if (file == null) {
+            return "";
+        }
+        return " -drive file=" + file + ",if=virtio,format=qcow2" + (shared ? ",snapshot=on" : "");
+    }
+
+    /**
+     * It provisions the overlay of an instance through «qemu-img».
+     *
+     * @param trial the instance.
+     * @throws Abort if the overlay could not be created.
+     */
+    private void provision(Trial trial) throws Abort {
+        Sample sample = trial.sample;
+        trial.overlay = directory.resolve(String.format("overlay-%d-%d-%d.qcow2", sample.concurrency, sample.round,
+                sample.index));
+        try {
+            Process process = new ProcessBuilder(qemuImg, "create", "-q", "-f", "qcow2", "-F", "qcow2", "-b", image,
+                    trial.overlay.toString()).redirectErrorStream(true).start();
+            String output = new String(process.getInputStream().readAllBytes(), StandardCharsets.UTF_8).trim();
+            if (!process.waitFor(trial.remaining(), TimeUnit.NANOSECONDS)) {
+                process.destroyForcibly();
+                throw new Abort("provision: qemu-img did not end within " + timeout + " ms");
+            }
+            if (process.exitValue() != 0) {
+                throw new Abort("provision: " + output);
+            }
+        } catch (IOException ex) {
+            throw new Abort("provision: " + ex.getMessage());
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new Abort("provision: interrupted");
+        }
+    }
+
+    /**
+     * It builds and starts an instance through the manager, with its serial
+     * port redirected to a console of the benchmark if a banner is given.
+     *
+     * @param trial the instance.
+     * @param instruction the options of the instance.
+     * @throws Abort if the instance could not be built or started.
+     */
+    private void spawn(Trial trial, String instruction) throws Abort {
+        String serial = "";
+        if (banner != null) {
+            try {
+                trial.console = new Console(banner);
+            } catch (IOException ex) {
+                throw new Abort("spawn: the console was not opened: " + ex.getMessage());
+            }
+            serial = " -serial tcp:" + InetAddress.getLoopbackAddress().getHostAddress() + ":" + trial.console.port();
+        }
+        BuildQemuInstance spec = BuildQemuInstance.command(instruction + serial);
+        ExecutionResult result = manager.buildInstance(spec);
+        if (!(result instanceof Creation) || !result.wasSuccessful()) {
+            throw new Abort("build: " + result.description());
+        }
+        trial.spec = spec;
+        trial.id = ((Creation) result).id();
+        require(manager.executeInstance(trial.id), "spawn");
+    }
+
+    /**
+     * It waits until the monitor of an instance greets. It connects by
+     * itself, rather than through the manager, so that the attempts before
+     * the QEMU listens are neither retried nor held against the connection.
+     *
+     * @param trial the instance.
+     * @throws Abort if the monitor did not greet within the timeout.
+     */
+    private void probe(Trial trial) throws Abort {
+        InetSocketAddress address = new InetSocketAddress(trial.spec.ip(), trial.spec.port());
+        while (true) {
+            int wait = (int) Math.max(1, TimeUnit.NANOSECONDS.toMillis(trial.remaining()));
+            try (Socket socket = new Socket()) {
+                socket.connect(address, wait);
+                socket.setSoTimeout(wait);
+                String line = new BufferedReader(new InputStreamReader(socket.getInputStream(),
+                        StandardCharsets.UTF_8)).readLine();
+                if (line != null && line.contains("\"QMP\"")) {
+                    return;
+                }
+            } catch (IOException ex) {
+                // The QEMU is not listening yet.
+            }
+            if (trial.remaining() <= 0) {
+                throw new Abort("qmp: the monitor did not greet within " + timeout + " ms");
+            }
+            pause("qmp");
+        }
+    }
+
+    /**
+     * It follows a migration of an instance until it completes.
+     *
+     * @param trial the instance.
+     * @param phase the name of the phase, for the errors.
+     * @throws Abort if the migration failed or did not complete within the
+     * timeout.
+     */
+    private void migration(Trial trial, String phase) throws Abort {
+        while (true) {
+            ExecutionResult reply = execute(trial.id, QueryMigrateQMP.create());
+            require(reply, phase);
+            Object status = JSONReader.path(JSONReader.object(reply.description()), "return", "status");
+            if (MigrationStatus.COMPLETED.equals(status)) {
+                return;
+            }
+            if (MigrationStatus.FAILED.equals(status) || MigrationStatus.CANCELLED.equals(status)) {
+                throw new Abort(phase + ": the migration " + status);
+            }
+            if (trial.remaining() <= 0) {
+                throw new Abort(phase + ": the migration did not complete within " + timeout + " ms");
+            }
+            pause(phase);
+        }
+    }
+
+    /**
+     * It waits until the guest of an instance printed the banner, if one is
+     * given.
+     *
+     * @param trial the instance.
+     * @throws Abort if the banner was not printed within the timeout.
+     */
+    private void guest(Trial trial) throws Abort {
+        if (banner == null) {
+            return;
+        }
+        long printed = trial.console.await(trial.remaining());
+        if (printed < 0) {
+            throw new Abort("guest: the banner was not printed within " + timeout + " ms");
+        }
+        trial.sample.marks[GUEST] = Math.max(0, printed - trial.start);
+    }
+
+    /**
+     * It terminates an instance and discards its console and its overlay.
+     *
+     * @param trial the instance.
+     */
+    private void cleanup(Trial trial) {
+        if (trial.id != null) {
+            manager.shutdownInstance(trial.id);
+        }
+        if (trial.console != null) {
+            trial.console.close();
+        }
+        if (trial.overlay != null) {
+            try {
+                Files.deleteIfExists(trial.overlay);
+            } catch (IOException ex) {
+                System.err.println("The overlay " + trial.overlay + " was not deleted: " + ex.getMessage());
+            }
+        }
+    }
+
+    /**
+     * It executes a command on an instance through the manager.
+     *
+     * @param id the identification of the instance.
+     * @param command the command to execute.
+     * @return the result of the command or the result of the batch if the
+     * command was not executed.
+     */
+    private ExecutionResult execute(InstanceID id, Command command) {
+        Map<InstanceID, List<Command>> commands = new TreeMap<>();
+        commands.put(id, Collections.singletonList(command));
+        ExecutionResult result = manager.executeCommands(commands);
+        if (result instanceof MapResult) {
+            Object replies = ((MapResult<?, ?>) result).map().get(id);
+            if (replies instanceof ListResult) {
+                for (Object reply : ((ListResult<?>) replies).items()) {
+                    if (reply instanceof ExecutionResult) {
+                        return (ExecutionResult) reply;
+                    }
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * It asserts that a step of a phase succeeded.
+     *
+     * @param result the result of the step.
+     * @param phase the name of the phase, for the errors.
+     * @throws Abort if the step failed.
+     */
+    private static void require(ExecutionResult result, String phase) throws Abort {
+        if (!result.wasSuccessful()) {
+            throw new Abort(phase + ": " + result.description());
+        }
+    }
+
+    /**
+     * It waits for the {@link BootBenchmark#POLL_INTERVAL}.
+     *
+     * @param phase the name of the phase, for the errors.
+     * @throws Abort if the wait was interrupted.
+     */
+    private static void pause(String phase) throws Abort {
+        try {
+            TimeUnit.MILLISECONDS.sleep(POLL_INTERVAL);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new Abort(phase + ": interrupted");
+        }
+    }
+
+    /**
+     * It selects the samples of a strategy at a concurrency level.
+     *
+     * @param strategy the name of the strategy.
+     * @param concurrency the concurrency level.
+     * @return the selected samples.
+     */
+    private List<Sample> select(String strategy, int concurrency) {
+        List<Sample> selected = new ArrayList<>();
+        for (Sample sample : samples) {
+            if (sample.strategy.equals(strategy) && sample.concurrency == concurrency) {
+                selected.add(sample);
+            }
+        }
+        return selected;
+    }
+
+    /**
+     * It gathers the times of a phase of the successful samples.
+     *
+     * @param selected the samples.
+     * @param phase the index of the phase or the number of phases for the
+     * time to ready.
+     * @return the sorted times, in milliseconds.
+     */
+    private static double[] times(List<Sample> selected, int phase) {
+        double[] times = new double[selected.size()];
+        int count = 0;
+        for (Sample sample : selected) {
+            long time = phase == PHASES.length ? sample.ready() : sample.marks[phase];
+            if (sample.error == null && time >= 0) {
+                times[count++] = time / NANOS_PER_MILLI;
+            }
+        }
+        times = Arrays.copyOf(times, count);
+        Arrays.sort(times);
+        return times;
+    }
+
+    /**
+     * It finds a percentile of sorted times by the nearest rank.
+     *
+     * @param times the sorted times, which are not empty.
+     * @param percentile the percentile, from 0 to 100.
+     * @return the time at the percentile.
+     */
+    private static double percentile(double[] times, double percentile) {
+        int rank = (int) Math.ceil(percentile / 100 * times.length);
+        return times[Math.min(times.length - 1, Math.max(0, rank - 1))];
+    }
+
+    /**
+     * It finds the mean of times.
+     *
+     * @param times the times, which are not empty.
+     * @return the mean.
+     */
+    private static double mean(double[] times) {
+        double sum = 0;
+        for (double time : times) {
+            sum += time;
+        }
+        return sum / times.length;
+    }
+
+    /**
+     * It prints the summary of a strategy at a concurrency level.
+     *
+     * @param strategy the name of the strategy.
+     * @param concurrency the concurrency level.
+     */
+    private void print(String strategy, int concurrency) {
+        List<Sample> selected = select(strategy, concurrency);
+        int errors = 0;
+        for (Sample sample : selected) {
+            if (sample.error != null) {
+                errors++;
+            }
+        }
+        System.out.printf("%s x%d: %d instances, %d errors%n", strategy, concurrency, selected.size(), errors);
+        for (int phase = 0; phase <= PHASES.length; phase++) {
+            double[] times = times(selected, phase);
+            if (times.length > 0) {
+                System.out.printf(Locale.ROOT, "  %-9s mean %9.2f  p50 %9.2f  p90 %9.2f  p99 %9.2f  max %9.2f ms%n",
+                        phase == PHASES.length ? READY : PHASES[phase], mean(times), percentile(times, 50), percentile(times, 90),
+                        percentile(times, 99), times[times.length - 1]);
+            }
+        }
+        for (Sample sample : selected) {
+            if (sample.error != null) {
+                System.out.printf("  round %d #%d: %s%n", sample.round, sample.index, sample.error);
+                break;
+            }
+        }
+    }
+
+    /**
+     * It writes the report: a CSV row per instance and a JSON document with
+     * the setup, the summaries and the instances.
+     *
+     * @param csv the path of the CSV file.
+     * @param json the path of the JSON file.
+     * @param repetitions the number of rounds of each concurrency level.
+     * @throws IOException if a file could not be written.
+     */
+    private void report(Path csv, Path json, int repetitions) throws IOException {
+        try (PrintWriter writer = new PrintWriter(Files.newBufferedWriter(csv, StandardCharsets.UTF_8))) {
+            StringBuilder header = new StringBuilder("strategy,concurrency,round,index");
+            for (String phase : PHASES) {
+                header.append(',').append(phase).append("_ms");
+            }
+            writer.println(header.append(',').append(READY).append("_ms,error"));
+            for (Sample sample : samples) {
+                StringBuilder row = new StringBuilder(String.format("%s,%d,%d,%d", sample.strategy,
+                        sample.concurrency, sample.round, sample.index));
+                for (int phase = 0; phase < PHASES.length; phase++) {
+                    row.append(',').append(millis(sample.marks[phase], ""));
+                }
+                row.append(',').append(millis(sample.ready(), "")).append(',');
+                if (sample.error != null) {
+                    row.append('"').append(sample.error.replace("\"", "\"\"")).append('"');
+                }
+                writer.println(row);
+            }
+        }
+        StringBuilder text = new StringBuilder("{\"launcher\": ").append(ResultToJSON.string(Settings.getLauncher()))
+                .append(", \"acceleration\": ").append(ResultToJSON.string(acceleration))
+                .append(", \"options\": ").append(ResultToJSON.string(options))
+                .append(", \"repetitions\": ").append(repetitions)
+                .append(", \"timeout_ms\": ").append(timeout)
+                .append(", \"summary\": [");
+        Map<String, List<Sample>> groups = new LinkedHashMap<>();
+        for (Sample sample : samples) {
+            groups.computeIfAbsent(sample.strategy + "\n" + sample.concurrency,
+                    key -> select(sample.strategy, sample.concurrency));
+        }
+        String separator = "";
+        for (List<Sample> group : groups.values()) {
+            text.append(separator).append(summary(group));
+            separator = ", ";
+        }
+        text.append("], \"samples\": [");
+        separator = "";
+        for (Sample sample : samples) {
+            text.append(separator).append("{\"strategy\": ").append(ResultToJSON.string(sample.strategy))
+                    .append(", \"concurrency\": ").append(sample.concurrency)
+                    .append(", \"round\": ").append(sample.round)
+                    .append(", \"index\": ").append(sample.index);
+            for (int phase = 0; phase < PHASES.length; phase++) {
+                text.append(", \"").append(PHASES[phase]).append("_ms\": ")
+                        .append(millis(sample.marks[phase], "null"));
+            }
+            text.append(", \"").append(READY).append("_ms\": ").append(millis(sample.ready(), "null"))
+                    .append(", \"error\": ").append(sample.error == null ? "null" : ResultToJSON.string(sample.error))
+                    .append('}');
+            separator = ", ";
+        }
+        Files.write(json, text.append("]}\n").toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * It builds the JSON summary of the samples of a strategy at a
+     * concurrency level.
+     *
+     * @param group the samples, which are not empty.
+     * @return the JSON text.
+     */
+    private static String summary(List<Sample> group) {
+        int errors = 0;
+        for (Sample sample : group) {
+            if (sample.error != null) {
+                errors++;
+            }
+        }
+        StringBuilder text = new StringBuilder("{\"strategy\": ").append(ResultToJSON.string(group.get(0).strategy))
+                .append(", \"concurrency\": ").append(group.get(0).concurrency)
+                .append(", \"instances\": ").append(group.size())
+                .append(", \"errors\": ").append(errors)
+                .append(", \"phases\": {");
+        String separator = "";
+        for (int phase = 0; phase <= PHASES.length; phase++) {
+            double[] times = times(group, phase);
+            if (times.length == 0) {
+                continue;
+            }
+            text.append(separator).append('"').append(phase == PHASES.length ? READY : PHASES[phase]).append("_ms\": {")
+                    .append("\"count\": ").append(times.length)
+                    .append(String.format(Locale.ROOT, ", \"mean\": %.3f", mean(times)));
+            for (double percentile : PERCENTILES) {
+                text.append(String.format(Locale.ROOT, ", \"p%.0f\": %.3f", percentile, percentile(times, percentile)));
+            }
+            text.append(String.format(Locale.ROOT, ", \"max\": %.3f}", times[times.length - 1]));
+            separator = ", ";
+        }
+        return text.append("}}").toString();
+    }
+
+    /**
+     * It formats a time in milliseconds.
+     *
+     * @param nanos the time, in nanoseconds, or a negative value if missing.
+     * @param missing the text of a missing time.
+     * @return the formatted time.
+     */
+    private static String millis(long nanos, String missing) {
+        return nanos < 0 ? missing : String.format(Locale.ROOT, "%.3f", nanos / NANOS_PER_MILLI);
+    }
+
+    /**
+     * The measures of an instance.
+     */
+    private static final class Sample {
+
+        /**
+         * The name of the strategy.
+         */
+        private final String strategy;
+
+        /**
+         * The number of instances started at once.
+         */
+        private final int concurrency;
+
+        /**
+         * The number of the round.
+         */
+        private final int round;
+
+        /**
+         * The index of the instance within the round.
+         */
+        private final int index;
+
+        /**
+         * The time, in nanoseconds, at which each phase ended, or -1 if it
+         * was not gone through.
+         */
+        private final long[] marks;
+
+        /**
+         * The error that ended the measures or null if none.
+         */
+        private String error;
+
+        /**
+         * A private constructor that initializes a sample without measures.
+         *
+         * @param theStrategy the name of the strategy.
+         * @param theConcurrency the number of instances started at once.
+         * @param theRound the number of the round.
+         * @param theIndex the index of the instance within the round.
+         */
+        private Sample(String theStrategy, int theConcurrency, int theRound, int theIndex) {
+            strategy = theStrategy;
+            concurrency = theConcurrency;
+            round = theRound;
+            index = theIndex;
+            marks = new long[PHASES.length];
+            Arrays.fill(marks, -1);
+            error = null;
+        }
+
+        /**
+         * It provides the time to ready, i.e. the end of the last phase.
+         *
+         * @return the time, in nanoseconds, or -1 if the instance did not
+         * become ready.
+         */
+        private long ready() {
+            if (error != null) {
+                return -1;
+            }
+            long ready = -1;
+            for (long mark : marks) {
+                ready = Math.max(ready, mark);
+            }
+            return ready;
+        }
+
+    }
+
+    /**
+     * An instance being measured.
+     */
+    private final class Trial {
+
+        /**
+         * The sample of the instance.
+         */
+        private final Sample sample;
+
+        /**
+         * The {@link System#nanoTime()} from which the phases are timed.
+         */
+        private long start;
+
+        /**
+         * The build command of the instance or null if not built.
+         */
+        private BuildQemuInstance spec;
+
+        /**
+         * The identification of the instance or null if not built.
+         */
+        private InstanceID id;
+
+        /**
+         * The console of the serial port of the guest or null if none.
+         */
+        private Console console;
+
+        /**
+         * The overlay of the instance or null if none.
+         */
+        private Path overlay;
+
+        /**
+         * A private constructor that initializes an instance not built yet.
+         *
+         * @param theSample the sample of the instance.
+         */
+        private Trial(Sample theSample) {
+            sample = theSample;
+            start = System.nanoTime();
+            spec = null;
+            id = null;
+            console = null;
+            overlay = null;
+        }
+
+        /**
+         * It starts timing the phases.
+         */
+        private void begin() {
+            start = System.nanoTime();
+        }
+
+        /**
+         * It records the end of a phase.
+         *
+         * @param phase the index of the phase.
+         */
+        private void mark(int phase) {
+            sample.marks[phase] = System.nanoTime() - start;
+        }
+
+        /**
+         * It provides the time left until the timeout.
+         *
+         * @return the time left, in nanoseconds, which is not positive once
+         * the timeout has passed.
+         */
+        private long remaining() {
+            return start + TimeUnit.MILLISECONDS.toNanos(timeout) - System.nanoTime();
+        }
+
+    }
+
+    /**
+     * The console to which the guest of an instance prints: a TCP server
+     * that the QEMU connects to and whose lines are matched with the banner.
+     */
+    private static final class Console implements Closeable {
+
+        /**
+         * The listening socket.
+         */
+        private final ServerSocket server;
+
+        /**
+         * The pattern of the banner.
+         */
+        private final Pattern banner;
+
+        /**
+         * The {@link System#nanoTime()} at which the banner was printed, or
+         * -1 if the guest left without printing it.
+         */
+        private final CompletableFuture<Long> printed;
+
+        /**
+         * The connection of the QEMU or null if not accepted yet.
+         */
+        private volatile Socket connection;
+
+        /**
+         * A private constructor that listens on the loopback address and
+         * starts reading the guest.
+         *
+         * @param theBanner the pattern of the banner.
+         * @throws IOException if the socket could not be bound.
+         */
+        private Console(Pattern theBanner) throws IOException {
+            server = new ServerSocket(0, 1, InetAddress.getLoopbackAddress());
+            banner = theBanner;
+            printed = new CompletableFuture<>();
+            connection = null;
+            Thread reader = new Thread(this::read, "boot-console");
+            reader.setDaemon(true);
+            reader.start();
+        }
+
+        /**
+         * A getter of the port of the console.
+         *
+         * @return the port number.
+         */
+        private int port() {
+            return server.getLocalPort();
+        }
+
+        /**
+         * It reads the guest until it leaves, timing the first line that
+         * matches the banner. It keeps reading afterwards, so that the guest
+         * is never blocked by a full socket.
+         */
+        private void read() {
+            try (Socket socket = server.accept()) {
+                connection = socket;
+                BufferedReader reader = new BufferedReader(new InputStreamReader(socket.getInputStream(),
+                        StandardCharsets.UTF_8));
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    if (!printed.isDone() && banner.matcher(line).find()) {
+                        printed.complete(System.nanoTime());
+                    }
+                }
+            } catch (IOException ex) {
+                // The console was closed.
+            }
+            printed.complete(-1L);
+        }
+
+        /**
+         * It waits until the banner is printed.
+         *
+         * @param nanos the time to wait, in nanoseconds.
+         * @return the {@link System#nanoTime()} at which the banner was
+         * printed or -1 if it was not printed within the time.
+         */
+        private long await(long nanos) {
+            try {
+                return printed.get(Math.max(0, nanos), TimeUnit.NANOSECONDS);
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                return -1;
+            } catch (ExecutionException | TimeoutException ex) {
+                return -1;
+            }
+        }
+
+        /**
+         * It closes the listening socket and the connection of the QEMU.
+         */
+        @Override
+        public void close() {
+            try {
+                server.close();
+                Socket socket = connection;
+                if (socket != null) {
+                    socket.close();
+                }
+            } catch (IOException ex) {
+                // Nothing is left to read.
+            }
+        }
+
+    }
+
+    /**
+     * The failure of a phase, which ends the measures of an instance.
+     */
+    private static final class Abort extends Exception {
+
+        /**
+         * The version of the serialized form of the failure.
+         */
+        private static final long serialVersionUID = 1L;
+
+        /**
+         * A private constructor that describes the failure.
+         *
+         * @param message the phase followed by the description of the
+         * failure.
+         */
+        private Abort(String message) {
+            super(message);
+        }
+
+    }
+
+}
@@ -0,0 +1,57 @@
+/*
+ *                      QEMU INSTANCES MANAGER LIBRARY
+ *                                Java Version
+ * 
+ * PRODUCT OWNER: Research Centre in Real-Time & Embedded Computing Systems
+ * PROJECT MANAGER: Luís Pinho and Cláudio Maia {lmn,clrrm}@isep.ipp.pt
+ * DEVELOPER: Manuel Meireles ( mjcdm@isep.ipp.pt )
+ * DATE: 24/11/2017
+ * SCOPE: CISTER Summer Internship 2017
+ * VERSION: 1.0
+ */
+package Testing;
+
+import Configurations.Settings;
+import Federation.FederatedManager;
+import Federation.NodeInstanceID;
+
+/**
+ * A testing class. It runs a member of a federation of managers and the
+ * console of {@link Start} on top of it, where the instances are identified
+ * by their {@link NodeInstanceID}, e.g. «a/0 | query-status». Several members
+ * may run on the same host over the loopback interface, each one with its own
+ * configuration file, e.g. for the first member:
+ * <pre>
+ * federation_node=a
+ * binary_port=8351
+ * port_number=4000
+ * journal_file=a.journal
+ * </pre> and for the second one:
+ * <pre>
+ * federation_node=b
+ * binary_port=8352
+ * port_number=5000
+ * journal_file=b.journal
+ * federation_seeds=127.0.0.1:8351
+ * </pre> Since the console lowers the case of its input, the node
+ * identifications should be lower case.
+ * <br/><br/>
+ * Usage: FederationNode [configuration file]
+ *
+ * @author Manuel Meireles ( mjcdm@isep.ipp.pt )
+ */
+public class FederationNode {
+
+    /**
+     * @param args the configuration file of the member.
+     */
+    public static void main(String[] args) {
+        if (args.length > 0) {
+            System.out.println(Settings.loadConfigurations(args[0]));
+        }
+        FederatedManager federation = FederatedManager.create();
+        System.out.println(federation.start());
+        Start.console(federation, NodeInstanceID::valueOf);
+    }
+
+}
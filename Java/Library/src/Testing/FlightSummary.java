@@ -0,0 +1,139 @@
+/*
+ *                      QEMU INSTANCES MANAGER LIBRARY
+ *                                Java Version
+ * 
+ * PRODUCT OWNER: Research Centre in Real-Time & Embedded Computing Systems
+ * PROJECT MANAGER: Luís Pinho and Cláudio Maia {lmn,clrrm}@isep.ipp.pt
+ * DEVELOPER: Manuel Meireles ( mjcdm@isep.ipp.pt )
+ * DATE: 24/11/2017
+ * SCOPE: CISTER Summer Internship 2017
+ * VERSION: 1.0
+ */
+package Testing;
+
+import Profiling.QmpCommandEvent;
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+
+/**
+ * A testing class. It summarizes the events of the manager in a flight
+ * recording, e.g. one made with the «qemu-manager.jfc» profile, by instance
+ * and, for the QMP commands, by command: how many there were, how many
+ * failed, their mean, 99th percentile and maximum durations and the bytes
+ * sent and received. Every other event of the manager is summarized under its
+ * label or, for the timeouts, under the operation that ran out of time.
+ * <br/><br/>
+ * Usage: FlightSummary recording.jfr
+ *
+ * @author Manuel Meireles ( mjcdm@isep.ipp.pt )
+ */
+public class FlightSummary {
+
+    /**
+     * The prefix of the names of the events of the manager.
+     */
+    private static final String PREFIX = "qemu.";
+
+    /**
+     * The number of nanoseconds in a millisecond.
+     */
+    private static final double NANOS_PER_MILLI = 1e6;
+
+    /**
+     * The events of one instance and command or kind of event.
+     */
+    private static class Row {
+
+        /**
+         * The durations of the events, in nanoseconds.
+         */
+        private final List<Long> durations = new ArrayList<>();
+
+        /**
+         * The number of events that were not successful.
+         */
+        private long failures;
+
+        /**
+         * The bytes sent.
+         */
+        private long sent;
+
+        /**
+         * The bytes received.
+         */
+        private long received;
+    }
+
+    /**
+     * @param args the recording file.
+     * @throws IOException if the recording could not be read.
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length == 0) {
+            System.out.println("Usage: FlightSummary recording.jfr");
+            return;
+        }
+        Map<String, Map<String, Row>> instances = new TreeMap<>();
+        for (RecordedEvent event : RecordingFile.readAllEvents(Paths.get(args[0]))) {
+            String name = event.getEventType().getName();
+            if (!name.startsWith(PREFIX)) {
+                continue;
+            }
+            String instance = event.hasField("instance") ? event.getString("instance") : "";
+            Row row = instances.computeIfAbsent(instance == null ? "" : instance, key -> new TreeMap<>())
+                    .computeIfAbsent(what(event), key -> new Row());
+            row.durations.add(event.getDuration().toNanos());
+            if (event.hasField("successful") && !event.getBoolean("successful")) {
+                row.failures++;
+            }
+            if (QmpCommandEvent.NAME.equals(name)) {
+                row.sent += event.getLong("sent");
+                row.received += event.getLong("received");
+            }
+        }
+        System.out.printf("%-12s %-36s %8s %8s %10s %10s %10s %12s %12s%n", "instance", "command / event",
+                "count", "failed", "mean ms", "p99 ms", "max ms", "bytes sent", "bytes recv");
+        for (Map.Entry<String, Map<String, Row>> instance : instances.entrySet()) {
+            for (Map.Entry<String, Row> entry : instance.getValue().entrySet()) {
+                Row row = entry.getValue();
+                Collections.sort(row.durations);
+                long total = 0;
+                for (long duration : row.durations) {
+                    total += duration;
+                }
+                int count = row.durations.size();
+                System.out.printf("%-12s %-36s %8d %8d %10.3f %10.3f %10.3f %12d %12d%n", instance.getKey(),
+                        entry.getKey(), count, row.failures, total / NANOS_PER_MILLI / count,
+                        row.durations.get((int) Math.ceil(count * 0.99) - 1) / NANOS_PER_MILLI,
+                        row.durations.get(count - 1) / NANOS_PER_MILLI, row.sent, row.received);
+            }
+        }
+    }
+
+    /**
+     * It tells under what an event is summarized within its instance.
+     *
+     * @param event the event of the manager.
+     * @return the command of a QMP command, the label and the operation of a
+     * timeout or the label of any other event.
+     */
+    private static String what(RecordedEvent event) {
+        String label = event.getEventType().getLabel();
+        if (QmpCommandEvent.NAME.equals(event.getEventType().getName())) {
+            return event.getString("command");
+        }
+        if (event.hasField("operation")) {
+            return label + " " + event.getString("operation");
+        }
+        return "[" + label + "]";
+    }
+
+}
@@ -0,0 +1,361 @@
+/*
+ *                      QEMU INSTANCES MANAGER LIBRARY
+ *                                Java Version
+ * 
+ * PRODUCT OWNER: Research Centre in Real-Time & Embedded Computing Systems
+ * PROJECT MANAGER: Luís Pinho and Cláudio Maia {lmn,clrrm}@isep.ipp.pt
+ * DEVELOPER: Manuel Meireles ( mjcdm@isep.ipp.pt )
+ * DATE: 24/11/2017
+ * SCOPE: CISTER Summer Internship 2017
+ * VERSION: 1.0
+ */
+package Testing;
+
+import Commands.BuildQemuInstance;
+import Commands.Command;
+import Commands.QueryStatusQMP;
+import Communications.Creation;
+import Communications.ExecutionResult;
+import Communications.Fail;
+import Communications.ListResult;
+import Communications.MapResult;
+import Configurations.Settings;
+import Instances.InstanceID;
+import Managers.InstanceManager;
+import Managers.QemuInstancesManager;
+import Metrics.Histogram;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A testing class. It drives an {@link InstanceManager} at a target rate of
+ * operations over a fleet of instances and reports the achieved throughput,
+ * the latency percentiles and the errors of each operation. It is meant to
+ * run with the «fake» launcher of the {@link Settings}, whose instances are
+ * served by a {@link Simulation.FakeQmpServer}, so that thousands of them fit
+ * in a single host.
+ * <br/><br/>
+ * The load is open: each operation is issued at its scheduled time whether
+ * or not the previous ones have completed, and its latency is measured from
+ * that time, so that a stalled manager is not hidden by a slowed down load.
+ * Each operation picks an instance and one of the «query», «suspend»,
+ * «continue» or «list» operations at random, weighted by the mix.
+ * <br/><br/>
+ * Usage: LoadGenerator config [instances [rate [seconds [options [mix
+ * [workers]]]]]], e.g. LoadGenerator config.properties 5000 20000 60
+ * "fake -m 16 -fake-latency 1 -fake-jitter 2" query=70,suspend=15,continue=15
+ * 512
+ *
+ * @author Manuel Meireles ( mjcdm@isep.ipp.pt )
+ */
+public class LoadGenerator {
+
+    /**
+     * The number of nanoseconds in a millisecond.
+     */
+    private static final double NANOS_PER_MILLI = 1e6;
+
+    /**
+     * The number of nanoseconds in a second.
+     */
+    private static final double NANOS_PER_SECOND = 1e9;
+
+    /**
+     * The number of instances started at once.
+     */
+    private static final int LAUNCHERS = 32;
+
+    /**
+     * The time, in milliseconds, the fleet is given to terminate.
+     */
+    private static final long SHUTDOWN_DEADLINE = 60000;
+
+    /**
+     * The time, in milliseconds, the operations still running once all were
+     * issued are waited for. A hung instance never replies, so the ones
+     * still running afterwards are reported as pending.
+     */
+    private static final long DRAIN = 10000;
+
+    /**
+     * The operations, in the order of the weights of the mix.
+     */
+    private static final String[] OPERATIONS = {"query", "suspend", "continue", "list"};
+
+    /**
+     * @param args the configuration file, the number of instances, the target
+     * rate of operations per second, the duration in seconds, the options of
+     * the instances, the mix of the operations and the number of workers.
+     * @throws Exception if the load was interrupted.
+     */
+    public static void main(String[] args) throws Exception {
+        if (args.length < 1) {
+            System.err.println("Usage: LoadGenerator config [instances [rate [seconds [options [mix [workers]]]]]]");
+            System.exit(1);
+        }
+        int instances = args.length > 1 ? Integer.parseInt(args[1]) : 1000;
+        double rate = args.length > 2 ? Double.parseDouble(args[2]) : 5000;
+        int seconds = args.length > 3 ? Integer.parseInt(args[3]) : 30;
+        String options = args.length > 4 ? args[4] : "fake -m 16 -fake-latency 1 -fake-jitter 1";
+        int[] mix = mix(args.length > 5 ? args[5] : "query=70,suspend=15,continue=15,list=0");
+        int workers = args.length > 6 ? Integer.parseInt(args[6]) : 256;
+        ExecutionResult loaded = Settings.loadConfigurations(args[0]);
+        if (!loaded.wasSuccessful()) {
+            System.err.println("The configuration was not loaded: " + loaded);
+            System.exit(1);
+        }
+        InstanceManager manager = QemuInstancesManager.getInstance();
+        System.out.printf("Launcher: %s%n", Settings.getLauncher());
+        List<InstanceID> fleet = boot(manager, instances, options);
+        if (!fleet.isEmpty()) {
+            drive(manager, fleet, rate, seconds, mix, workers);
+        }
+        long start = System.nanoTime();
+        manager.shutdown(SHUTDOWN_DEADLINE, 0);
+        System.out.printf("Shut down in %.1f ms%n", (System.nanoTime() - start) / NANOS_PER_MILLI);
+        System.exit(0);
+    }
+
+    /**
+     * It reads the weights of the operations.
+     *
+     * @param text the weights as «operation=weight» pairs separated by commas.
+     * @return the weight of each of the {@link LoadGenerator#OPERATIONS}.
+     */
+    private static int[] mix(String text) {
+        int[] weights = new int[OPERATIONS.length];
+        for (String pair : text.split(",")) {
+            String[] parts = pair.trim().split("=");
+            for (int index = 0; index < OPERATIONS.length; index++) {
+                if (OPERATIONS[index].equals(parts[0]) && parts.length == 2) {
+                    weights[index] = Math.max(0, Integer.parseInt(parts[1]));
+                }
+            }
+        }
+        return weights;
+    }
+
+    /**
+     * It builds and starts the fleet, {@link LoadGenerator#LAUNCHERS} at a
+     * time, and reports how long it took.
+     *
+     * @param manager the manager of the fleet.
+     * @param instances the number of instances.
+     * @param options the options of the instances.
+     * @return the identification of the started instances.
+     * @throws InterruptedException if the boot was interrupted.
+     */
+    private static List<InstanceID> boot(InstanceManager manager, int instances, String options)
+            throws InterruptedException {
+        long start = System.nanoTime();
+        List<InstanceID> fleet = Collections.synchronizedList(new ArrayList<>());
+        Histogram latency = Histogram.create();
+        Map<String, LongAdder> errors = new ConcurrentHashMap<>();
+        ExecutorService launchers = Executors.newFixedThreadPool(LAUNCHERS);
+        for (int index = 0; index < instances; index++) {
+            launchers.execute(() -> {
+                long begin = System.nanoTime();
+                ExecutionResult result = manager.buildInstance(BuildQemuInstance.command(options));
+                if (result instanceof Creation && result.wasSuccessful()) {
+                    InstanceID id = ((Creation) result).id();
+                    result = manager.executeInstance(id);
+                    if (result.wasSuccessful()) {
+                        fleet.add(id);
+                    }
+                }
+                latency.record(System.nanoTime() - begin, !result.wasSuccessful());
+                count(errors, result);
+            });
+        }
+        launchers.shutdown();
+        launchers.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+        double elapsed = (System.nanoTime() - start) / NANOS_PER_SECOND;
+        System.out.printf("Started %d of %d instances in %.2f s (%.1f/s)%n", fleet.size(), instances, elapsed,
+                fleet.size() / elapsed);
+        print("start", latency);
+        print(errors);
+        return new ArrayList<>(fleet);
+    }
+
+    /**
+     * It drives the manager at the target rate and reports the results.
+     *
+     * @param manager the manager of the fleet.
+     * @param fleet the identification of the instances.
+     * @param rate the target rate of operations per second.
+     * @param seconds the duration of the load.
+     * @param mix the weight of each of the operations.
+     * @param workers the number of threads that issue the operations.
+     * @throws InterruptedException if the load was interrupted.
+     */
+    private static void drive(InstanceManager manager, List<InstanceID> fleet, double rate, int seconds, int[] mix,
+            int workers) throws InterruptedException {
+        int total = 0;
+        for (int weight : mix) {
+            total += weight;
+        }
+        if (total == 0 || rate <= 0) {
+            return;
+        }
+        Map<String, Histogram> latencies = new LinkedHashMap<>();
+        for (String operation : OPERATIONS) {
+            latencies.put(operation, Histogram.create());
+        }
+        Map<String, LongAdder> errors = new ConcurrentHashMap<>();
+        LongAdder completed = new LongAdder();
+        ExecutorService pool = Executors.newFixedThreadPool(workers);
+        Random random = new Random(fleet.size());
+        long operations = (long) (rate * seconds);
+        double interval = NANOS_PER_SECOND / rate;
+        long start = System.nanoTime();
+        for (long index = 0; index < operations; index++) {
+            long scheduled = start + (long) (index * interval);
+            long wait = scheduled - System.nanoTime();
+            if (wait > 0) {
+                TimeUnit.NANOSECONDS.sleep(wait);
+            }
+            String operation = pick(mix, total, random.nextInt(total));
+            InstanceID id = fleet.get(random.nextInt(fleet.size()));
+            pool.execute(() -> {
+                ExecutionResult result = operate(manager, operation, id);
+                latencies.get(operation).record(System.nanoTime() - scheduled, !result.wasSuccessful());
+                count(errors, result);
+                completed.increment();
+            });
+        }
+        long issued = System.nanoTime();
+        pool.shutdown();
+        pool.awaitTermination(DRAIN, TimeUnit.MILLISECONDS);
+        double elapsed = (System.nanoTime() - start) / NANOS_PER_SECOND;
+        long done = completed.sum();
+        System.out.printf("Issued %d operations in %.2f s (target %.1f/s), completed %d in %.2f s (%.1f/s)%n",
+                operations, (issued - start) / NANOS_PER_SECOND, rate, done, elapsed, done / elapsed);
+        if (done < operations) {
+            System.out.printf("  %-24s %d%n", "PENDING", operations - done);
+            pool.shutdownNow();
+        }
+        for (Map.Entry<String, Histogram> entry : latencies.entrySet()) {
+            print(entry.getKey(), entry.getValue());
+        }
+        print(errors);
+    }
+
+    /**
+     * It picks an operation by its weight.
+     *
+     * @param mix the weight of each of the operations.
+     * @param total the sum of the weights.
+     * @param draw a number from zero to the sum of the weights, exclusive.
+     * @return the picked operation.
+     */
+    private static String pick(int[] mix, int total, int draw) {
+        int seen = 0;
+        for (int index = 0; index < mix.length; index++) {
+            seen += mix[index];
+            if (draw < seen) {
+                return OPERATIONS[index];
+            }
+        }
+        return OPERATIONS[mix.length - 1];
+    }
+
+    /**
+     * It runs an operation on the manager.
+     *
+     * @param manager the manager of the fleet.
+     * @param operation the name of the operation.
+     * @param id the identification of the instance.
+     * @return the result of the operation.
+     */
+    private static ExecutionResult operate(InstanceManager manager, String operation, InstanceID id) {
+        switch (operation) {
+            case "suspend":
+                return manager.suspendInstance(id);
+            case "continue":
+                return manager.continueInstance(id);
+            case "list":
+                return manager.listInstances();
+            default:
+                Map<InstanceID, List<Command>> commands = new TreeMap<>();
+                commands.put(id, Collections.singletonList(QueryStatusQMP.create()));
+                return failure(manager.executeCommands(commands));
+        }
+    }
+
+    /**
+     * It finds the first failure within the result of a batch of commands,
+     * since the batch itself succeeds as long as it names an instance.
+     *
+     * @param result the result of the batch.
+     * @return the first failure or the result if there is none.
+     */
+    private static ExecutionResult failure(ExecutionResult result) {
+        List<Object> items = new ArrayList<>();
+        if (result instanceof MapResult) {
+            items.addAll(((MapResult<?, ?>) result).map().values());
+        } else if (result instanceof ListResult) {
+            items.addAll(((ListResult<?>) result).items());
+        }
+        for (Object item : items) {
+            if (item instanceof ExecutionResult) {
+                ExecutionResult inner = failure((ExecutionResult) item);
+                if (!inner.wasSuccessful()) {
+                    return inner;
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * It counts a failed result by its reason.
+     *
+     * @param errors the counts of the errors by reason.
+     * @param result the result of an operation.
+     */
+    private static void count(Map<String, LongAdder> errors, ExecutionResult result) {
+        if (!result.wasSuccessful()) {
+            String reason = result instanceof Fail ? ((Fail) result).reason().name() : result.getClass().getSimpleName();
+            errors.computeIfAbsent(reason, key -> new LongAdder()).increment();
+        }
+    }
+
+    /**
+     * It prints the latencies of an operation.
+     *
+     * @param operation the name of the operation.
+     * @param latency the latencies of the operation.
+     */
+    private static void print(String operation, Histogram latency) {
+        if (latency.count() == 0) {
+            return;
+        }
+        System.out.printf("%-9s %8d ops %6d errors  mean %8.3f  p50 %8.3f  p90 %8.3f  p99 %8.3f  p99.9 %8.3f"
+                + "  max %8.3f ms%n", operation, latency.count(), latency.errors(), latency.mean() / NANOS_PER_MILLI,
+                latency.percentile(50) / NANOS_PER_MILLI, latency.percentile(90) / NANOS_PER_MILLI,
+                latency.percentile(99) / NANOS_PER_MILLI, latency.percentile(99.9) / NANOS_PER_MILLI,
+                latency.max() / NANOS_PER_MILLI);
+    }
+
+    /**
+     * It prints the counts of the errors by reason.
+     *
+     * @param errors the counts of the errors by reason.
+     */
+    private static void print(Map<String, LongAdder> errors) {
+        for (Map.Entry<String, LongAdder> entry : new TreeMap<>(errors).entrySet()) {
+            System.out.printf("  %-24s %d%n", entry.getKey(), entry.getValue().sum());
+        }
+    }
+
+}
@@ -0,0 +1,203 @@
+/*
+ *                      QEMU INSTANCES MANAGER LIBRARY
+ *                                Java Version
+ * 
+ * PRODUCT OWNER: Research Centre in Real-Time & Embedded Computing Systems
+ * PROJECT MANAGER: Luís Pinho and Cláudio Maia {lmn,clrrm}@isep.ipp.pt
+ * DEVELOPER: Manuel Meireles ( mjcdm@isep.ipp.pt )
+ * DATE: 24/11/2017
+ * SCOPE: CISTER Summer Internship 2017
+ * VERSION: 1.0
+ */
+package Testing;
+
+import Binary.BinaryClient;
+import Binary.BinaryServer;
+import Binary.Request;
+import HTTP.ControlServer;
+import Managers.InstanceManager;
+import Managers.QemuInstancesManager;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Semaphore;
+
+/**
+ * A testing class. It measures the throughput and the latency of the same
+ * query, the headroom of the manager, through the HTTP control API and
+ * through the binary control protocol, both pipelined and batched. Every
+ * route keeps the same number of requests in flight.
+ * <br/><br/>
+ * Usage: ProtocolBenchmark [requests [in flight [batch size]]]
+ *
+ * @author Manuel Meireles ( mjcdm@isep.ipp.pt )
+ */
+public class ProtocolBenchmark {
+
+    /**
+     * The number of nanoseconds in a millisecond.
+     */
+    private static final double NANOS_PER_MILLI = 1e6;
+
+    /**
+     * The number of nanoseconds in a second.
+     */
+    private static final double NANOS_PER_SECOND = 1e9;
+
+    /**
+     * @param args the number of requests, the number of requests in flight
+     * and the size of the batches.
+     * @throws Exception if a server or a client failed.
+     */
+    public static void main(String[] args) throws Exception {
+        int requests = args.length > 0 ? Integer.parseInt(args[0]) : 100000;
+        int inFlight = args.length > 1 ? Integer.parseInt(args[1]) : 64;
+        int batch = args.length > 2 ? Integer.parseInt(args[2]) : 16;
+        InstanceManager manager = QemuInstancesManager.getInstance();
+        ControlServer http = ControlServer.create(manager, 0);
+        BinaryServer binary = BinaryServer.create(manager, 0);
+        System.out.println(http.start());
+        System.out.println(binary.start());
+        HttpClient httpClient = HttpClient.newHttpClient();
+        URI uri = URI.create("http://127.0.0.1:" + http.port() + "/headroom");
+        try (BinaryClient binaryClient = BinaryClient.connect(binary.port())) {
+            http(httpClient, uri, http.token(), requests / 10, inFlight);
+            pipelined(binaryClient, requests / 10, inFlight);
+            batched(binaryClient, requests / 10, inFlight, batch);
+            System.out.printf("%d requests, %d in flight, batches of %d%n", requests, inFlight, batch);
+            report("http", http(httpClient, uri, http.token(), requests, inFlight));
+            report("binary pipelined", pipelined(binaryClient, requests, inFlight));
+            report("binary batched", batched(binaryClient, requests, inFlight, batch));
+        }
+        http.stop();
+        binary.stop();
+        manager.shutdown();
+    }
+
+    /**
+     * It sends the requests through the HTTP control API.
+     *
+     * @param client the HTTP client.
+     * @param uri the URI of the query.
+     * @param token the token of the HTTP server.
+     * @param requests the number of requests.
+     * @param inFlight the number of requests in flight.
+     * @return the latency of each request followed by the elapsed time, all
+     * in nanoseconds.
+     * @throws InterruptedException if the waiting is interrupted.
+     */
+    private static long[] http(HttpClient client, URI uri, String token, int requests, int inFlight) throws InterruptedException {
+        long[] timings = new long[requests + 1];
+        Semaphore window = new Semaphore(inFlight);
+        CountDownLatch done = new CountDownLatch(requests);
+        HttpRequest request = HttpRequest.newBuilder(uri).header("Authorization", "Bearer " + token).GET().build();
+        long begin = System.nanoTime();
+        for (int i = 0; i < requests; i++) {
+            window.acquire();
+            int index = i;
+            long start = System.nanoTime();
+            client.sendAsync(request, HttpResponse.BodyHandlers.ofByteArray()).whenComplete((response, error) -> {
+                timings[index] = System.nanoTime() - start;
+                window.release();
+                done.countDown();
+            });
+        }
+        done.await();
+        timings[requests] = System.nanoTime() - begin;
+        return timings;
+    }
+
+    /**
+     * It pipelines the requests through the binary control protocol.
+     *
+     * @param client the binary client.
+     * @param requests the number of requests.
+     * @param inFlight the number of requests in flight.
+     * @return the latency of each request followed by the elapsed time, all
+     * in nanoseconds.
+     * @throws InterruptedException if the waiting is interrupted.
+     */
+    private static long[] pipelined(BinaryClient client, int requests, int inFlight) throws InterruptedException {
+        long[] timings = new long[requests + 1];
+        Semaphore window = new Semaphore(inFlight);
+        CountDownLatch done = new CountDownLatch(requests);
+        Request request = Request.headroom();
+        long begin = System.nanoTime();
+        for (int i = 0; i < requests; i++) {
+            window.acquire();
+            int index = i;
+            long start = System.nanoTime();
+            client.submit(request).whenComplete((result, error) -> {
+                timings[index] = System.nanoTime() - start;
+                window.release();
+                done.countDown();
+            });
+        }
+        done.await();
+        timings[requests] = System.nanoTime() - begin;
+        return timings;
+    }
+
+    /**
+     * It sends the requests in batches through the binary control protocol.
+     * Each request is given the latency of its batch.
+     *
+     * @param client the binary client.
+     * @param requests the number of requests.
+     * @param inFlight the number of requests in flight.
+     * @param batch the number of requests of each batch.
+     * @return the latency of each request followed by the elapsed time, all
+     * in nanoseconds.
+     * @throws InterruptedException if the waiting is interrupted.
+     */
+    private static long[] batched(BinaryClient client, int requests, int inFlight, int batch) throws InterruptedException {
+        int batches = (requests + batch - 1) / batch;
+        long[] timings = new long[requests + 1];
+        Semaphore window = new Semaphore(Math.max(1, inFlight / batch));
+        CountDownLatch done = new CountDownLatch(batches);
+        long begin = System.nanoTime();
+        for (int b = 0; b < batches; b++) {
+            int first = b * batch;
+            int last = Math.min(requests, first + batch);
+            List<Request> group = new ArrayList<>(last - first);
+            for (int i = first; i < last; i++) {
+                group.add(Request.headroom());
+            }
+            window.acquire();
+            long start = System.nanoTime();
+            client.submit(group).whenComplete((results, error) -> {
+                Arrays.fill(timings, first, last, System.nanoTime() - start);
+                window.release();
+                done.countDown();
+            });
+        }
+        done.await();
+        timings[requests] = System.nanoTime() - begin;
+        return timings;
+    }
+
+    /**
+     * It prints the throughput and the latency percentiles of a route.
+     *
+     * @param route the name of the route.
+     * @param timings the latency of each request followed by the elapsed
+     * time, all in nanoseconds.
+     */
+    private static void report(String route, long[] timings) {
+        int requests = timings.length - 1;
+        long elapsed = timings[requests];
+        long[] latencies = Arrays.copyOf(timings, requests);
+        Arrays.sort(latencies);
+        System.out.printf("%-18s %10.0f req/s | p50 %8.3f ms | p99 %8.3f ms | max %8.3f ms%n", route,
+                requests * NANOS_PER_SECOND / elapsed,
+                latencies[(int) (requests * 0.50)] / NANOS_PER_MILLI,
+                latencies[Math.min(requests - 1, (int) (requests * 0.99))] / NANOS_PER_MILLI,
+                latencies[requests - 1] / NANOS_PER_MILLI);
+    }
+
+}
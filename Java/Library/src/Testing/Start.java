@@ -11,13 +11,17 @@
  */
 package Testing;
 
+import Binary.BinaryServer;
 import Commands.BuildQemuInstance;
 import Commands.Command;
 import Commands.GenericQMP;
 import Communications.ExecutionResult;
 import Communications.Fail;
+import Configurations.Settings;
+import HTTP.ControlServer;
 import Instances.InstanceID;
 import Instances.QemuInstanceID;
+import Managers.FleetReconciler;
 import Managers.InstanceManager;
 import Managers.QemuInstancesManager;
 import java.util.ArrayList;
@@ -25,6 +29,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.Scanner;
 import java.util.TreeMap;
+import java.util.function.Function;
 
 /**
  * A testing class. It builds a console that allows interaction with the
@@ -38,17 +43,31 @@ public class Start {
      * @param args the command line arguments
      */
     public static void main(String[] args) {
+        console(QemuInstancesManager.getInstance(), text -> QemuInstanceID.valueOf(Long.parseLong(text)));
+    }
+
+    /**
+     * It runs the console on a manager until it is shut down.
+     *
+     * @param manager the manager to interact with.
+     * @param ids the parser of the identification of the instances of the
+     * manager. It throws an {@link IllegalArgumentException} on a text that is
+     * not an identification.
+     */
+    public static void console(InstanceManager manager, Function<String, InstanceID> ids) {
         printHeader();
-        loop();
+        loop(manager, ids);
         printFooter();
     }
 
     /**
      * The loop to keep reading commands.
+     *
+     * @param manager the manager to send the commands.
+     * @param ids the parser of the identification of the instances.
      */
-    private static void loop() {
+    private static void loop(InstanceManager manager, Function<String, InstanceID> ids) {
         Scanner in = new Scanner(System.in);
-        InstanceManager manager = QemuInstancesManager.getInstance();
         boolean iterate = true;
         System.out.println("== For information about this application type \"help\".");
         do {
@@ -59,13 +78,16 @@ public class Start {
                 case 2:
                     input[0] = input[0].trim().toLowerCase();
                     input[1] = input[1].trim().toLowerCase();
-                    System.out.println(runCommand(manager, input[0], input[1]));
+                    System.out.println(runCommand(manager, ids, input[0], input[1]));
                     break;
                 case 1:
                     input[0] = input[0].trim().toLowerCase();
                     switch(input[0]){
                         case "list":
-                            System.out.println(runCommand(manager, input[0], ""));
+                        case "headroom":
+                        case "serve":
+                        case "binary":
+                            System.out.println(runCommand(manager, ids, input[0], ""));
                             break;
                         case "help":
                             printHelp();
@@ -127,8 +149,15 @@ public class Start {
         System.out.println("==  - \"suspend | {id}\"");
         System.out.println("==  - \"shutdown | {id}\"");
         System.out.println("==  - \"{id} | {command}\"");
+        System.out.println("==  - \"migrate | {id} [target]\"");
         System.out.println("==  - \"config | {file}\"");
+        System.out.println("==  - \"reconcile | {file}\"");
+        System.out.println("==  - \"serve | {port}\"");
+        System.out.println("==  - \"binary | {port}\"");
         System.out.println("==  - \"list\"");
+        System.out.println("==  - \"headroom\"");
+        System.out.println("==  - \"serve\"");
+        System.out.println("==  - \"binary\"");
         System.out.println("==  - \"help\"");
         System.out.println("==  - \"shutdown\"");
         System.out.println("== To exit type \"shutdown\".");
@@ -138,22 +167,22 @@ public class Start {
      * It runs a given command.
      *
      * @param manager the manager to send the command.
+     * @param ids the parser of the identification of the instances.
      * @param instruction the command to the manager or the id of an instance
      * for the "executeCMD".
      * @param argument the id of the machine in which to apply the instruction
      * or the command to send on the "executeCMD".
      * @return the execution result.
      */
-    private static ExecutionResult runCommand(InstanceManager manager, String instruction, String argument) {
-        long id;
+    private static ExecutionResult runCommand(InstanceManager manager, Function<String, InstanceID> ids, String instruction, String argument) {
+        InstanceID instance;
         try {
-            id = Long.parseLong(instruction);
-        } catch (NumberFormatException e) {
-            return executeManagerInstruction(manager, instruction, argument);
+            instance = ids.apply(instruction);
+        } catch (IllegalArgumentException e) {
+            return executeManagerInstruction(manager, ids, instruction, argument);
         }
         Map<InstanceID, List<Command>> result = new TreeMap<>();
         List<Command> commands = new ArrayList<>();
-        InstanceID instance = QemuInstanceID.valueOf(id);
         Command command = GenericQMP.create(argument);
         commands.add(command);
         result.put(instance, commands);
@@ -164,33 +193,46 @@ public class Start {
      * It calls the right method on a given instruction to the manager.
      *
      * @param manager the manager to execute the instruction.
+     * @param ids the parser of the identification of the instances.
      * @param instruction the instruction to be executed.
      * @param argument the parameters of the instruction.
      * @return the execution result.
      */
-    private static ExecutionResult executeManagerInstruction(InstanceManager manager, String instruction, String argument) {
-        int id;
+    private static ExecutionResult executeManagerInstruction(InstanceManager manager, Function<String, InstanceID> ids, String instruction, String argument) {
         switch (instruction) {
             case "start":
                 return manager.startInstance(BuildQemuInstance.command(argument));
             case "build":
                 return manager.buildInstance(BuildQemuInstance.command(argument));
             case "execute":
-                id = Integer.parseInt(argument);
-                return manager.executeInstance(QemuInstanceID.valueOf(id));
+                return manager.executeInstance(ids.apply(argument));
             case "continue":
-                id = Integer.parseInt(argument);
-                return manager.continueInstance(QemuInstanceID.valueOf(id));
+                return manager.continueInstance(ids.apply(argument));
             case "suspend":
-                id = Integer.parseInt(argument);
-                return manager.suspendInstance(QemuInstanceID.valueOf(id));
+                return manager.suspendInstance(ids.apply(argument));
             case "shutdown":
-                id = Integer.parseInt(argument);
-                return manager.shutdownInstance(QemuInstanceID.valueOf(id));
+                return manager.shutdownInstance(ids.apply(argument));
+            case "migrate":
+                String[] operands = argument.split("\\s+");
+                return manager.migrateInstance(ids.apply(operands[0]), operands.length > 1 ? operands[1] : "127.0.0.1");
             case "list":
                 return manager.listInstances();
+            case "headroom":
+                return manager.headroom();
             case "config":
                 return manager.loadConfigurationFile(argument);
+            case "reconcile":
+                return FleetReconciler.create(manager, argument).reconcile();
+            case "serve":
+                if (argument.isEmpty()) {
+                    return ControlServer.create(manager, Settings.getHttpPort(), ids).start();
+                }
+                return ControlServer.create(manager, Integer.parseInt(argument), ids).start();
+            case "binary":
+                if (argument.isEmpty()) {
+                    return BinaryServer.create(manager).start();
+                }
+                return BinaryServer.create(manager, Integer.parseInt(argument)).start();
             default:
                 return Fail.because(Fail.Reason.NULL_ARGUMENT, "Unknown command \"" + instruction + "\".");
         }
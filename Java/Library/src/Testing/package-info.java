@@ -1,6 +1,13 @@
 /**
  * The package contains testing classes. The {@link Testing.Start} class
- * provides a console application to interact with the manager. This package
- * should be discarded on a delivery version.
+ * provides a console application to interact with the manager, the
+ * {@link Testing.FederationNode} runs it on a member of a federation of
+ * managers, the {@link Testing.ProtocolBenchmark} compares the throughput
+ * of its control protocols, the {@link Testing.FlightSummary} summarizes
+ * a flight recording by instance and command, the
+ * {@link Testing.LoadGenerator} drives the manager at a target rate over a
+ * fleet of stand-ins and the {@link Testing.BootBenchmark} measures the time
+ * to ready of the boot strategies. This package should be discarded on a
+ * delivery version.
  */
 package Testing;